@@ -25,6 +25,8 @@ import java.util.Optional;
 
 import javax.inject.Inject;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
+
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
@@ -38,10 +40,16 @@ import reactor.core.scheduler.Schedulers;
 public class CassandraAsyncExecutor {
 
     private final Session session;
+    private final CassandraConfiguration configuration;
 
     @Inject
-    public CassandraAsyncExecutor(Session session) {
+    public CassandraAsyncExecutor(Session session, CassandraConfiguration configuration) {
         this.session = session;
+        this.configuration = configuration;
+    }
+
+    public CassandraAsyncExecutor(Session session) {
+        this(session, CassandraConfiguration.DEFAULT_CONFIGURATION);
     }
 
     public Mono<ResultSet> execute(Statement statement) {
@@ -67,7 +75,7 @@ public class CassandraAsyncExecutor {
 
     public Flux<Row> executeRows(Statement statement) {
         return execute(statement)
-            .flatMapMany(Flux::fromIterable);
+            .flatMapMany(resultSet -> PagedRowPublisher.rows(resultSet, configuration.getFetchNextPageInAdvanceRow()));
     }
 
     public Mono<Optional<Row>> executeSingleRowOptional(Statement statement) {
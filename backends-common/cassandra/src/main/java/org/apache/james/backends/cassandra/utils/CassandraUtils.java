@@ -43,7 +43,7 @@ public class CassandraUtils {
     }
 
     public Flux<Row> convertToFlux(ResultSet resultSet) {
-        return Flux.fromIterable(resultSet);
+        return PagedRowPublisher.rows(resultSet, cassandraConfiguration.getFetchNextPageInAdvanceRow());
     }
 
     public Stream<Row> convertToStream(ResultSet resultSet) {
@@ -0,0 +1,109 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.backends.cassandra.utils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+
+import net.javacrumbs.futureconverter.java8guava.FutureConverter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Streams the rows of a paged {@link ResultSet} without blocking the consuming thread.
+ *
+ * Iterating a {@link ResultSet} synchronously fetches the next page once the current one is consumed. Instead, only the
+ * rows already fetched are emitted, as the downstream demands them, and the next page is requested through
+ * {@link ResultSet#fetchMoreResults()}: emission resumes once it arrived. The next page is requested in advance when
+ * only <code>fetchNextPageInAdvanceRow</code> rows remain available.
+ */
+public class PagedRowPublisher {
+
+    public static Flux<Row> rows(ResultSet resultSet, int fetchNextPageInAdvanceRow) {
+        return Flux.<Row>create(sink -> {
+            PagedRowPublisher publisher = new PagedRowPublisher(resultSet, fetchNextPageInAdvanceRow, sink);
+            sink.onRequest(any -> publisher.drain());
+        })
+            .publishOn(Schedulers.elastic());
+    }
+
+    private final ResultSet resultSet;
+    private final int fetchNextPageInAdvanceRow;
+    private final FluxSink<Row> sink;
+    private final AtomicInteger wip;
+    private final AtomicBoolean fetching;
+
+    private PagedRowPublisher(ResultSet resultSet, int fetchNextPageInAdvanceRow, FluxSink<Row> sink) {
+        this.resultSet = resultSet;
+        this.fetchNextPageInAdvanceRow = fetchNextPageInAdvanceRow;
+        this.sink = sink;
+        this.wip = new AtomicInteger();
+        this.fetching = new AtomicBoolean();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                // Read before the available rows so that a page landing in between is not missed
+                boolean fullyFetched = resultSet.isFullyFetched();
+                if (resultSet.getAvailableWithoutFetching() == 0) {
+                    if (fullyFetched) {
+                        sink.complete();
+                        return;
+                    }
+                    fetchNextPage();
+                    break;
+                }
+                sink.next(resultSet.one());
+                fetchInAdvanceIfNeeded();
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void fetchNextPage() {
+        if (fetching.compareAndSet(false, true)) {
+            FutureConverter.toCompletableFuture(resultSet.fetchMoreResults())
+                .whenComplete((any, error) -> {
+                    fetching.set(false);
+                    if (error != null) {
+                        sink.error(error);
+                    } else {
+                        drain();
+                    }
+                });
+        }
+    }
+
+    private void fetchInAdvanceIfNeeded() {
+        if (resultSet.getAvailableWithoutFetching() == fetchNextPageInAdvanceRow && !resultSet.isFullyFetched()) {
+            // Rows of that page are emitted once demanded, the driver takes care of not fetching it twice
+            resultSet.fetchMoreResults();
+        }
+    }
+}
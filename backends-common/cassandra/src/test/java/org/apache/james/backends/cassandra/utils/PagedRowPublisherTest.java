@@ -0,0 +1,186 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.backends.cassandra.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.SettableFuture;
+
+class PagedRowPublisherTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final int NO_FETCH_IN_ADVANCE = 0;
+
+    static class PagedResultSet {
+        private final ResultSet resultSet;
+        private final Deque<Row> available;
+        private final Deque<List<Row>> remainingPages;
+        private final boolean completeFetches;
+        private Optional<SettableFuture<ResultSet>> pendingFetch;
+        private int consumedRows;
+        private Optional<Integer> consumedRowsOnFirstFetch;
+
+        @SafeVarargs
+        PagedResultSet(boolean completeFetches, List<Row>... pages) {
+            this.completeFetches = completeFetches;
+            this.resultSet = mock(ResultSet.class);
+            this.remainingPages = new ArrayDeque<>(Arrays.asList(pages));
+            this.available = new ArrayDeque<>(remainingPages.pollFirst());
+            this.pendingFetch = Optional.empty();
+            this.consumedRows = 0;
+            this.consumedRowsOnFirstFetch = Optional.empty();
+
+            when(resultSet.getAvailableWithoutFetching()).thenAnswer(any -> availableRows());
+            when(resultSet.isFullyFetched()).thenAnswer(any -> isFullyFetched());
+            when(resultSet.one()).thenAnswer(any -> one());
+            when(resultSet.fetchMoreResults()).thenAnswer(any -> fetchMoreResults());
+        }
+
+        synchronized int availableRows() {
+            return available.size();
+        }
+
+        synchronized boolean isFullyFetched() {
+            return remainingPages.isEmpty();
+        }
+
+        synchronized Row one() {
+            consumedRows++;
+            return available.pollFirst();
+        }
+
+        synchronized SettableFuture<ResultSet> fetchMoreResults() {
+            if (!consumedRowsOnFirstFetch.isPresent()) {
+                consumedRowsOnFirstFetch = Optional.of(consumedRows);
+            }
+            if (remainingPages.isEmpty()) {
+                SettableFuture<ResultSet> fetched = SettableFuture.create();
+                fetched.set(resultSet);
+                return fetched;
+            }
+            if (!pendingFetch.isPresent()) {
+                SettableFuture<ResultSet> fetch = SettableFuture.create();
+                pendingFetch = Optional.of(fetch);
+                if (completeFetches) {
+                    CompletableFuture.runAsync(this::completeFetch,
+                        CompletableFuture.delayedExecutor(10, TimeUnit.MILLISECONDS));
+                }
+            }
+            return pendingFetch.get();
+        }
+
+        void completeFetch() {
+            SettableFuture<ResultSet> fetch;
+            synchronized (this) {
+                available.addAll(remainingPages.pollFirst());
+                fetch = pendingFetch.get();
+                pendingFetch = Optional.empty();
+            }
+            fetch.set(resultSet);
+        }
+
+        synchronized void failFetch(Exception exception) {
+            fetchMoreResults().setException(exception);
+            consumedRowsOnFirstFetch = Optional.empty();
+        }
+    }
+
+    private static List<Row> rows(int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> mock(Row.class))
+            .collect(ImmutableList.toImmutableList());
+    }
+
+    @Test
+    void rowsShouldBeEmptyWhenNoRows() {
+        PagedResultSet resultSet = new PagedResultSet(true, ImmutableList.of());
+
+        assertThat(PagedRowPublisher.rows(resultSet.resultSet, NO_FETCH_IN_ADVANCE).collectList().block(TIMEOUT))
+            .isEmpty();
+    }
+
+    @Test
+    void rowsShouldEmitAllPagesInOrder() {
+        List<Row> page1 = rows(3);
+        List<Row> page2 = rows(3);
+        List<Row> page3 = rows(2);
+        PagedResultSet resultSet = new PagedResultSet(true, page1, page2, page3);
+
+        assertThat(PagedRowPublisher.rows(resultSet.resultSet, NO_FETCH_IN_ADVANCE).collectList().block(TIMEOUT))
+            .containsExactlyElementsOf(ImmutableList.<Row>builder()
+                .addAll(page1)
+                .addAll(page2)
+                .addAll(page3)
+                .build());
+    }
+
+    @Test
+    void rowsShouldEmitAvailableRowsWithoutWaitingForTheNextPage() {
+        List<Row> page1 = rows(3);
+        PagedResultSet resultSet = new PagedResultSet(false, page1, rows(3));
+
+        assertThat(PagedRowPublisher.rows(resultSet.resultSet, NO_FETCH_IN_ADVANCE).take(3).collectList().block(TIMEOUT))
+            .containsExactlyElementsOf(page1);
+    }
+
+    @Test
+    void rowsShouldFetchTheNextPageInAdvance() {
+        PagedResultSet resultSet = new PagedResultSet(true, rows(5), rows(5));
+
+        PagedRowPublisher.rows(resultSet.resultSet, 2).collectList().block(TIMEOUT);
+
+        assertThat(resultSet.consumedRowsOnFirstFetch).contains(3);
+    }
+
+    @Test
+    void rowsShouldOnlyFetchTheNextPageOnceCurrentOneIsConsumedWhenNoFetchInAdvance() {
+        PagedResultSet resultSet = new PagedResultSet(true, rows(5), rows(5));
+
+        PagedRowPublisher.rows(resultSet.resultSet, NO_FETCH_IN_ADVANCE).collectList().block(TIMEOUT);
+
+        assertThat(resultSet.consumedRowsOnFirstFetch).contains(5);
+    }
+
+    @Test
+    void rowsShouldPropagateFetchFailures() {
+        PagedResultSet resultSet = new PagedResultSet(false, rows(3), rows(3));
+        resultSet.failFetch(new RuntimeException("boom"));
+
+        assertThatThrownBy(() -> PagedRowPublisher.rows(resultSet.resultSet, NO_FETCH_IN_ADVANCE).collectList().block(TIMEOUT))
+            .hasMessage("boom");
+    }
+}
@@ -81,4 +81,28 @@ class PaggingTest {
             .hasSize(size);
     }
 
+    @Test
+    void executeRowsShouldStreamAllPages() {
+        int fetchSize = 200;
+        int size = 2 * fetchSize + 50;
+
+        Flux.range(0, size)
+            .flatMap(i -> executor
+                .executeVoid(insertInto(TABLE_NAME)
+                    .value(ID, UUID)
+                    .value(CLUSTERING, i)))
+            .blockLast();
+
+        assertThat(
+            executor.executeRows(select()
+                    .from(TABLE_NAME)
+                    .where(eq(ID, UUID))
+                    .setFetchSize(fetchSize))
+                .map(row -> row.getLong(CLUSTERING))
+                .collectList()
+                .block())
+            .hasSize(size)
+            .isSorted();
+    }
+
 }
@@ -0,0 +1,233 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Compares two JMH JSON result files, typically the result of a run on the main branch
+ * and the result of a run on a feature branch, and reports the score and allocation deltas.
+ *
+ * A benchmark is reported as a regression when its score, or its normalized allocation rate
+ * (as reported by the GC profiler), gets worse than the baseline by more than the threshold.
+ */
+public class BaselineComparison {
+    private static final String ALLOCATION_METRIC_SUFFIX = "gc.alloc.rate.norm";
+    private static final String THROUGHPUT_MODE = "thrpt";
+    private static final double ALLOCATION_NOISE_IN_BYTES = 16;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    public static class Entry {
+        private final String benchmark;
+        private final String mode;
+        private final String unit;
+        private final double baselineScore;
+        private final double currentScore;
+        private final Optional<Double> baselineAllocation;
+        private final Optional<Double> currentAllocation;
+
+        Entry(Result baseline, Result current) {
+            this.benchmark = current.key;
+            this.mode = current.mode;
+            this.unit = current.unit;
+            this.baselineScore = baseline.score;
+            this.currentScore = current.score;
+            this.baselineAllocation = baseline.allocation;
+            this.currentAllocation = current.allocation;
+        }
+
+        public String getBenchmark() {
+            return benchmark;
+        }
+
+        public double scoreChangePercent() {
+            if (baselineScore == 0) {
+                return 0;
+            }
+            return (currentScore - baselineScore) * 100 / baselineScore;
+        }
+
+        public boolean isScoreRegression(double thresholdPercent) {
+            if (mode.equals(THROUGHPUT_MODE)) {
+                return scoreChangePercent() < -thresholdPercent;
+            }
+            return scoreChangePercent() > thresholdPercent;
+        }
+
+        public boolean isAllocationRegression(double thresholdPercent) {
+            if (!baselineAllocation.isPresent() || !currentAllocation.isPresent()) {
+                return false;
+            }
+            double baseline = baselineAllocation.get();
+            double current = currentAllocation.get();
+            return current - baseline > ALLOCATION_NOISE_IN_BYTES
+                && current > baseline * (1 + thresholdPercent / 100);
+        }
+
+        public boolean isRegression(double thresholdPercent) {
+            return isScoreRegression(thresholdPercent) || isAllocationRegression(thresholdPercent);
+        }
+
+        String format(double thresholdPercent) {
+            return String.format("%-90s %-6s %14.3f %14.3f %8.2f%% %14s %14s %s",
+                benchmark, mode, baselineScore, currentScore, scoreChangePercent(),
+                formatAllocation(baselineAllocation), formatAllocation(currentAllocation),
+                isRegression(thresholdPercent) ? "REGRESSION" : "")
+                + " " + unit;
+        }
+
+        private static String formatAllocation(Optional<Double> allocation) {
+            return allocation.map(value -> String.format("%.1f", value)).orElse("-");
+        }
+    }
+
+    static class Result {
+        private final String key;
+        private final String mode;
+        private final String unit;
+        private final double score;
+        private final Optional<Double> allocation;
+
+        Result(String key, String mode, String unit, double score, Optional<Double> allocation) {
+            this.key = key;
+            this.mode = mode;
+            this.unit = unit;
+            this.score = score;
+            this.allocation = allocation;
+        }
+    }
+
+    public static BaselineComparison compare(Path baseline, Path current, double thresholdPercent) throws IOException {
+        return compare(OBJECT_MAPPER.readTree(baseline.toFile()), OBJECT_MAPPER.readTree(current.toFile()), thresholdPercent);
+    }
+
+    @VisibleForTesting
+    static BaselineComparison compare(JsonNode baseline, JsonNode current, double thresholdPercent) {
+        Preconditions.checkArgument(thresholdPercent >= 0, "'thresholdPercent' should be positive");
+
+        Map<String, Result> baselineResults = parse(baseline)
+            .collect(Collectors.toMap(result -> result.key, Function.identity(), (a, b) -> b));
+        ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+        ImmutableList.Builder<String> newBenchmarks = ImmutableList.builder();
+        parse(current).forEach(result -> {
+            Result baselineResult = baselineResults.get(result.key);
+            if (baselineResult == null) {
+                newBenchmarks.add(result.key);
+            } else {
+                entries.add(new Entry(baselineResult, result));
+            }
+        });
+        return new BaselineComparison(entries.build(), newBenchmarks.build(), thresholdPercent);
+    }
+
+    private static Stream<Result> parse(JsonNode results) {
+        return StreamSupport.stream(results.spliterator(), false)
+            .map(BaselineComparison::parseResult);
+    }
+
+    private static Result parseResult(JsonNode result) {
+        JsonNode primaryMetric = result.get("primaryMetric");
+        return new Result(key(result),
+            result.get("mode").asText(),
+            primaryMetric.get("scoreUnit").asText(),
+            primaryMetric.get("score").asDouble(),
+            allocation(result.path("secondaryMetrics")));
+    }
+
+    private static String key(JsonNode result) {
+        JsonNode params = result.path("params");
+        if (params.size() == 0) {
+            return result.get("benchmark").asText();
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+        StringBuilder key = new StringBuilder(result.get("benchmark").asText()).append('{');
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            key.append(field.getKey()).append('=').append(field.getValue().asText());
+            if (fields.hasNext()) {
+                key.append(", ");
+            }
+        }
+        return key.append('}').toString();
+    }
+
+    private static Optional<Double> allocation(JsonNode secondaryMetrics) {
+        Iterator<Map.Entry<String, JsonNode>> fields = secondaryMetrics.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getKey().endsWith(ALLOCATION_METRIC_SUFFIX)) {
+                return Optional.of(field.getValue().get("score").asDouble());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private final ImmutableList<Entry> entries;
+    private final ImmutableList<String> newBenchmarks;
+    private final double thresholdPercent;
+
+    private BaselineComparison(ImmutableList<Entry> entries, ImmutableList<String> newBenchmarks, double thresholdPercent) {
+        this.entries = entries;
+        this.newBenchmarks = newBenchmarks;
+        this.thresholdPercent = thresholdPercent;
+    }
+
+    public ImmutableList<Entry> getEntries() {
+        return entries;
+    }
+
+    public ImmutableList<String> getNewBenchmarks() {
+        return newBenchmarks;
+    }
+
+    public ImmutableList<Entry> regressions() {
+        return entries.stream()
+            .filter(entry -> entry.isRegression(thresholdPercent))
+            .collect(ImmutableList.toImmutableList());
+    }
+
+    public boolean hasRegressions() {
+        return !regressions().isEmpty();
+    }
+
+    public String report() {
+        StringBuilder report = new StringBuilder()
+            .append(String.format("%-90s %-6s %14s %14s %9s %14s %14s%n",
+                "Benchmark", "Mode", "Baseline", "Current", "Change", "Base B/op", "Current B/op"));
+        entries.forEach(entry -> report.append(entry.format(thresholdPercent)).append(System.lineSeparator()));
+        newBenchmarks.forEach(benchmark -> report.append(benchmark).append(" (no baseline)").append(System.lineSeparator()));
+        report.append(String.format("%d benchmark(s) compared, %d regression(s) above %.1f%%%n",
+            entries.size(), regressions().size(), thresholdPercent));
+        return report.toString();
+    }
+}
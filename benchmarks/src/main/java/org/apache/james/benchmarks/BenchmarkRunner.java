@@ -0,0 +1,81 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar.
+ *
+ * Accepts the regular JMH command line options, and additionally:
+ *  - always enables the GC profiler so that allocation rates are part of the results
+ *  - writes JSON results (to jmh-result.json unless -rff is specified)
+ *  - when the james.benchmarks.baseline system property points to a previous JSON result,
+ *  prints a comparison report and exits with a non zero status upon regressions above
+ *  james.benchmarks.threshold percents (defaults to 10).
+ */
+public class BenchmarkRunner {
+    public static final String BASELINE_PROPERTY = "james.benchmarks.baseline";
+    public static final String THRESHOLD_PROPERTY = "james.benchmarks.threshold";
+    public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+    public static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+    public static void main(String[] args) throws RunnerException, IOException, CommandLineOptionException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList() || commandLineOptions.shouldListProfilers()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        String resultFile = commandLineOptions.getResult().orElse(DEFAULT_RESULT_FILE);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+            .parent(commandLineOptions)
+            .resultFormat(ResultFormatType.JSON)
+            .result(resultFile);
+        if (commandLineOptions.getProfilers().stream().noneMatch(profiler -> profiler.getKlass().equals(GCProfiler.class.getCanonicalName())
+                || profiler.getKlass().equals("gc"))) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+
+        Optional<Path> baseline = Optional.ofNullable(System.getProperty(BASELINE_PROPERTY)).map(Paths::get);
+        if (baseline.isPresent()) {
+            double threshold = Optional.ofNullable(System.getProperty(THRESHOLD_PROPERTY))
+                .map(Double::parseDouble)
+                .orElse(DEFAULT_THRESHOLD_PERCENT);
+            BaselineComparison comparison = BaselineComparison.compare(baseline.get(), Paths.get(resultFile), threshold);
+            System.out.println(comparison.report());
+            if (comparison.hasRegressions()) {
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.benchmarks.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.mail.MessagingException;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.james.benchmarks.BenchmarkMessages;
+import org.apache.james.server.core.MimeMessageInputStreamSource;
+import org.apache.james.server.core.MimeMessageWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MimeMessageWrapperBenchmark {
+    private static final String MESSAGE_KEY = "benchmark";
+
+    private byte[] message;
+
+    @Setup
+    public void setUp() {
+        message = BenchmarkMessages.sampleMessage();
+    }
+
+    @Benchmark
+    public String readSubject() throws MessagingException {
+        MimeMessageWrapper wrapper = wrap();
+        try {
+            return wrapper.getSubject();
+        } finally {
+            wrapper.dispose();
+        }
+    }
+
+    @Benchmark
+    public long computeMessageSize() throws MessagingException {
+        MimeMessageWrapper wrapper = wrap();
+        try {
+            return wrapper.getMessageSize();
+        } finally {
+            wrapper.dispose();
+        }
+    }
+
+    @Benchmark
+    public long modifyHeaderAndWrite() throws MessagingException, IOException {
+        MimeMessageWrapper wrapper = wrap();
+        try {
+            wrapper.setHeader("X-Benchmark", "true");
+            CountingOutputStream outputStream = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+            wrapper.writeTo(outputStream);
+            return outputStream.getByteCount();
+        } finally {
+            wrapper.dispose();
+        }
+    }
+
+    private MimeMessageWrapper wrap() throws MessagingException {
+        return new MimeMessageWrapper(new MimeMessageInputStreamSource(MESSAGE_KEY, new ByteArrayInputStream(message)));
+    }
+}
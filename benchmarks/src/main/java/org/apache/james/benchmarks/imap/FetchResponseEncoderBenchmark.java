@@ -0,0 +1,130 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.benchmarks.imap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.mail.Flags;
+
+import org.apache.james.imap.api.Tag;
+import org.apache.james.imap.decode.main.OutputStreamImapResponseWriter;
+import org.apache.james.imap.encode.FetchResponseEncoder;
+import org.apache.james.imap.encode.ImapResponseComposer;
+import org.apache.james.imap.encode.base.ImapResponseComposerImpl;
+import org.apache.james.imap.message.response.FetchResponse;
+import org.apache.james.mailbox.FlagsBuilder;
+import org.apache.james.mailbox.MessageSequenceNumber;
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.ModSeq;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FetchResponseEncoderBenchmark {
+    private static final Tag TAG = new Tag("A42");
+    private static final Flags FLAGS = FlagsBuilder.builder()
+        .add(Flags.Flag.SEEN, Flags.Flag.ANSWERED)
+        .add("$Forwarded")
+        .build();
+    private static final byte[] HEADERS = ("From: Alice <alice@example.com>\r\n"
+        + "To: Bob <bob@example.org>\r\n"
+        + "Subject: Quarterly report\r\n"
+        + "Date: Mon, 6 Jan 2020 10:15:00 +0100\r\n"
+        + "\r\n").getBytes(StandardCharsets.US_ASCII);
+
+    private static class HeaderElement implements FetchResponse.BodyElement {
+        @Override
+        public String getName() {
+            return "BODY[HEADER.FIELDS (FROM TO SUBJECT DATE)]";
+        }
+
+        @Override
+        public long size() {
+            return HEADERS.length;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(HEADERS);
+        }
+    }
+
+    private FetchResponseEncoder encoder;
+    private ByteArrayOutputStream outputStream;
+    private FetchResponse flagsResponse;
+    private FetchResponse headersResponse;
+
+    @Setup
+    public void setUp() {
+        encoder = new FetchResponseEncoder(false);
+        outputStream = new ByteArrayOutputStream(ImapResponseComposerImpl.DEFAULT_BUFFER_SIZE);
+        Date internalDate = Date.from(Instant.parse("2020-01-06T10:15:00Z"));
+        flagsResponse = new FetchResponse(MessageSequenceNumber.of(1234), FLAGS, MessageUid.of(5678), ModSeq.of(91011),
+            null, null, null, null, null, null);
+        headersResponse = new FetchResponse(MessageSequenceNumber.of(1234), FLAGS, MessageUid.of(5678), null,
+            internalDate, 10240L, null, null, null, ImmutableList.of(new HeaderElement()));
+    }
+
+    @Benchmark
+    public int encodeFlagsAndUid() throws IOException {
+        return encode(flagsResponse);
+    }
+
+    @Benchmark
+    public int encodeHeaderFields() throws IOException {
+        return encode(headersResponse);
+    }
+
+    @Benchmark
+    public int composeTaggedOk() throws IOException {
+        outputStream.reset();
+        ImapResponseComposer composer = new ImapResponseComposerImpl(new OutputStreamImapResponseWriter(outputStream));
+        composer.tag(TAG).message("OK").message("FETCH completed.").end();
+        return outputStream.size();
+    }
+
+    private int encode(FetchResponse response) throws IOException {
+        outputStream.reset();
+        ImapResponseComposer composer = new ImapResponseComposerImpl(new OutputStreamImapResponseWriter(outputStream));
+        encoder.encode(response, composer);
+        return outputStream.size();
+    }
+}
@@ -0,0 +1,66 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.benchmarks.imap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.james.imap.api.message.IdRange;
+import org.apache.james.imap.decode.DecodingException;
+import org.apache.james.imap.decode.ImapRequestLineReader;
+import org.apache.james.imap.decode.ImapRequestStreamLineReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImapRequestLineReaderBenchmark {
+    private static final byte[] SELECT_LINE = "SELECT \"INBOX.Quarterly reports\"\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ID_RANGE_LINE = "1:100,150,200:300,400:*\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    @Benchmark
+    public String readAtomAndAstring() throws DecodingException {
+        ImapRequestLineReader reader = reader(SELECT_LINE);
+        reader.atom();
+        reader.nextWordChar();
+        return reader.astring();
+    }
+
+    @Benchmark
+    public IdRange[] readIdRange() throws DecodingException {
+        return reader(ID_RANGE_LINE).parseIdRange();
+    }
+
+    private ImapRequestLineReader reader(byte[] bytes) {
+        return new ImapRequestStreamLineReader(new ByteArrayInputStream(bytes), new ByteArrayOutputStream());
+    }
+}
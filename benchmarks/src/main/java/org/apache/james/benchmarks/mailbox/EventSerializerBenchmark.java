@@ -0,0 +1,100 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.benchmarks.mailbox;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.mail.Flags;
+
+import org.apache.james.core.Username;
+import org.apache.james.event.json.EventSerializer;
+import org.apache.james.mailbox.FlagsBuilder;
+import org.apache.james.mailbox.MailboxSession;
+import org.apache.james.mailbox.MessageUid;
+import org.apache.james.mailbox.ModSeq;
+import org.apache.james.mailbox.events.Event;
+import org.apache.james.mailbox.events.MailboxListener;
+import org.apache.james.mailbox.model.MailboxConstants;
+import org.apache.james.mailbox.model.MailboxPath;
+import org.apache.james.mailbox.model.MessageMetaData;
+import org.apache.james.mailbox.model.TestId;
+import org.apache.james.mailbox.model.TestMessageId;
+import org.apache.james.mailbox.store.quota.DefaultUserQuotaRootResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableSortedMap;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventSerializerBenchmark {
+    private static final Username USERNAME = Username.of("bob@example.org");
+    private static final MailboxPath MAILBOX_PATH = new MailboxPath(MailboxConstants.USER_NAMESPACE, USERNAME, "INBOX");
+    private static final Flags FLAGS = FlagsBuilder.builder()
+        .add(Flags.Flag.SEEN, Flags.Flag.ANSWERED)
+        .add("$Forwarded")
+        .build();
+
+    @Param({"1", "100"})
+    public int addedMessageCount;
+
+    private EventSerializer eventSerializer;
+    private MailboxListener.Added added;
+    private String addedJson;
+
+    @Setup
+    public void setUp() {
+        eventSerializer = new EventSerializer(new TestId.Factory(), new TestMessageId.Factory(), new DefaultUserQuotaRootResolver.DefaultQuotaRootDeserializer());
+
+        ImmutableSortedMap.Builder<MessageUid, MessageMetaData> metaData = ImmutableSortedMap.naturalOrder();
+        Date internalDate = Date.from(Instant.parse("2020-01-06T10:15:00Z"));
+        for (int i = 1; i <= addedMessageCount; i++) {
+            MessageUid uid = MessageUid.of(i);
+            metaData.put(uid, new MessageMetaData(uid, ModSeq.of(i), FLAGS, 10 * 1024, internalDate, TestMessageId.of(i)));
+        }
+        added = new MailboxListener.Added(MailboxSession.SessionId.of(42), USERNAME, MAILBOX_PATH, TestId.of(18),
+            metaData.build(), Event.EventId.random());
+        addedJson = eventSerializer.toJson(added);
+    }
+
+    @Benchmark
+    public String serializeAdded() {
+        return eventSerializer.toJson(added);
+    }
+
+    @Benchmark
+    public Event deserializeAdded() {
+        return eventSerializer.fromJson(addedJson).get();
+    }
+}
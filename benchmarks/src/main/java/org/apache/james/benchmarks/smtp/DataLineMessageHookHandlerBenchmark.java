@@ -0,0 +1,127 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.benchmarks.smtp;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.james.benchmarks.BenchmarkMessages;
+import org.apache.james.protocols.api.ProtocolSession;
+import org.apache.james.protocols.api.Response;
+import org.apache.james.protocols.api.handler.WiringException;
+import org.apache.james.protocols.smtp.MailEnvelope;
+import org.apache.james.protocols.smtp.MailEnvelopeImpl;
+import org.apache.james.protocols.smtp.core.DataCmdHandler;
+import org.apache.james.protocols.smtp.core.DataLineMessageHookHandler;
+import org.apache.james.protocols.smtp.hook.HookResult;
+import org.apache.james.protocols.smtp.hook.MessageHook;
+import org.apache.james.protocols.smtp.utils.BaseFakeSMTPSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataLineMessageHookHandlerBenchmark {
+    private static final byte[] END_OF_DATA = ".\r\n".getBytes();
+
+    private static class DataSession extends BaseFakeSMTPSession {
+        private final Map<AttachmentKey<?>, Object> attachments = new HashMap<>();
+
+        @Override
+        public <T> Optional<T> setAttachment(AttachmentKey<T> key, T value, State state) {
+            return key.convert(attachments.put(key, value));
+        }
+
+        @Override
+        public <T> Optional<T> removeAttachment(AttachmentKey<T> key, State state) {
+            return key.convert(attachments.remove(key));
+        }
+
+        @Override
+        public <T> Optional<T> getAttachment(AttachmentKey<T> key, State state) {
+            return key.convert(attachments.get(key));
+        }
+
+        @Override
+        public void popLineHandler() {
+
+        }
+
+        @Override
+        public void resetState() {
+            attachments.clear();
+        }
+    }
+
+    private DataLineMessageHookHandler handler;
+    private DataSession session;
+    private List<byte[]> lines;
+
+    @Setup
+    public void setUp() throws WiringException {
+        MessageHook acceptingHook = (session, mail) -> HookResult.OK;
+        handler = new DataLineMessageHookHandler();
+        handler.wireExtensions(MessageHook.class, ImmutableList.of(acceptingHook));
+        session = new DataSession();
+        lines = splitLines(BenchmarkMessages.sampleMessage());
+    }
+
+    @Benchmark
+    public Response receiveMessage() {
+        MailEnvelope envelope = new MailEnvelopeImpl();
+        session.setAttachment(DataCmdHandler.MAILENV, envelope, ProtocolSession.State.Transaction);
+        for (byte[] line : lines) {
+            handler.onLine(session, ByteBuffer.wrap(line), null);
+        }
+        return handler.onLine(session, ByteBuffer.wrap(END_OF_DATA), null);
+    }
+
+    private static List<byte[]> splitLines(byte[] message) {
+        List<byte[]> result = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < message.length - 1; i++) {
+            if (message[i] == '\r' && message[i + 1] == '\n') {
+                byte[] line = new byte[i + 2 - start];
+                System.arraycopy(message, start, line, 0, line.length);
+                result.add(line);
+                start = i + 2;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.benchmarks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class BaselineComparisonTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static JsonNode results(String mode, double score, double allocation) throws Exception {
+        return OBJECT_MAPPER.readTree("[{" +
+            "  \"benchmark\": \"org.apache.james.Bench.run\"," +
+            "  \"mode\": \"" + mode + "\"," +
+            "  \"params\": {\"size\": \"10\"}," +
+            "  \"primaryMetric\": {\"score\": " + score + ", \"scoreUnit\": \"ns/op\"}," +
+            "  \"secondaryMetrics\": {\"\u00b7gc.alloc.rate.norm\": {\"score\": " + allocation + ", \"scoreUnit\": \"B/op\"}}" +
+            "}]");
+    }
+
+    @Test
+    void compareShouldNotReportRegressionWithinThreshold() throws Exception {
+        BaselineComparison comparison = BaselineComparison.compare(results("avgt", 100, 512), results("avgt", 105, 512), 10);
+
+        assertThat(comparison.hasRegressions()).isFalse();
+    }
+
+    @Test
+    void compareShouldReportSlowerAverageTime() throws Exception {
+        BaselineComparison comparison = BaselineComparison.compare(results("avgt", 100, 512), results("avgt", 120, 512), 10);
+
+        assertThat(comparison.regressions())
+            .extracting(BaselineComparison.Entry::getBenchmark)
+            .containsExactly("org.apache.james.Bench.run{size=10}");
+    }
+
+    @Test
+    void compareShouldNotReportFasterAverageTime() throws Exception {
+        BaselineComparison comparison = BaselineComparison.compare(results("avgt", 100, 512), results("avgt", 50, 512), 10);
+
+        assertThat(comparison.hasRegressions()).isFalse();
+    }
+
+    @Test
+    void compareShouldReportLowerThroughput() throws Exception {
+        BaselineComparison comparison = BaselineComparison.compare(results("thrpt", 100, 512), results("thrpt", 80, 512), 10);
+
+        assertThat(comparison.hasRegressions()).isTrue();
+    }
+
+    @Test
+    void compareShouldReportAllocationIncrease() throws Exception {
+        BaselineComparison comparison = BaselineComparison.compare(results("avgt", 100, 512), results("avgt", 100, 1024), 10);
+
+        assertThat(comparison.hasRegressions()).isTrue();
+    }
+
+    @Test
+    void compareShouldIgnoreAllocationNoise() throws Exception {
+        BaselineComparison comparison = BaselineComparison.compare(results("avgt", 100, 0), results("avgt", 100, 8), 10);
+
+        assertThat(comparison.hasRegressions()).isFalse();
+    }
+
+    @Test
+    void compareShouldListBenchmarksWithoutBaseline() throws Exception {
+        BaselineComparison comparison = BaselineComparison.compare(OBJECT_MAPPER.readTree("[]"), results("avgt", 100, 512), 10);
+
+        assertThat(comparison.getNewBenchmarks()).containsExactly("org.apache.james.Bench.run{size=10}");
+        assertThat(comparison.getEntries()).isEmpty();
+    }
+
+    @Test
+    void compareShouldRejectNegativeThreshold() {
+        assertThatThrownBy(() -> BaselineComparison.compare(results("avgt", 100, 512), results("avgt", 100, 512), -1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -23,7 +23,7 @@ import com.datastax.driver.core.querybuilder.QueryBuilder
 import com.datastax.driver.core.querybuilder.QueryBuilder.{bindMarker, insertInto}
 import javax.inject.Inject
 
-import org.apache.james.backends.cassandra.init.configuration.CassandraConsistenciesConfiguration
+import org.apache.james.backends.cassandra.init.configuration.{CassandraConfiguration, CassandraConsistenciesConfiguration}
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor
 import org.apache.james.eventsourcing.eventstore.History
 import org.apache.james.eventsourcing.eventstore.cassandra.CassandraEventStoreTable.{AGGREGATE_ID, EVENT, EVENTS_TABLE, EVENT_ID}
@@ -33,12 +33,16 @@ import reactor.core.scala.publisher.{SFlux, SMono}
 
 class EventStoreDao @Inject() (val session: Session,
                                val jsonEventSerializer: JsonEventSerializer,
-                               val consistenciesConfiguration: CassandraConsistenciesConfiguration) {
-  private val cassandraAsyncExecutor = new CassandraAsyncExecutor(session)
+                               val consistenciesConfiguration: CassandraConsistenciesConfiguration,
+                               val cassandraConfiguration: CassandraConfiguration) {
+  private val cassandraAsyncExecutor = new CassandraAsyncExecutor(session, cassandraConfiguration)
   private val consistencyLevel: ConsistencyLevel = consistenciesConfiguration.getLightweightTransaction
   private val insert = prepareInsert(session)
   private val select = prepareSelect(session)
 
+  def this(session: Session, jsonEventSerializer: JsonEventSerializer, consistenciesConfiguration: CassandraConsistenciesConfiguration) =
+    this(session, jsonEventSerializer, consistenciesConfiguration, CassandraConfiguration.DEFAULT_CONFIGURATION)
+
   private def prepareInsert(session: Session): PreparedStatement = {
     session.prepare(
       insertInto(EVENTS_TABLE)
@@ -24,8 +24,10 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.SortedMap;
 
+import org.apache.james.core.Domain;
 import org.apache.james.core.Username;
 import org.apache.james.core.quota.QuotaCountLimit;
 import org.apache.james.core.quota.QuotaCountUsage;
@@ -241,6 +243,75 @@ public interface MailboxListener {
 
     }
 
+    /**
+     * Signals a change of the quota limits. Depending on the scope of the change it targets a single
+     * {@link QuotaRoot}, all the quota roots of a domain, or every quota root when both are empty.
+     */
+    class QuotaLimitsUpdatedEvent implements Event {
+        private final EventId eventId;
+        private final Username username;
+        private final Optional<QuotaRoot> quotaRoot;
+        private final Optional<Domain> domain;
+
+        public QuotaLimitsUpdatedEvent(EventId eventId, Username username, Optional<QuotaRoot> quotaRoot, Optional<Domain> domain) {
+            this.eventId = eventId;
+            this.username = username;
+            this.quotaRoot = quotaRoot;
+            this.domain = domain;
+        }
+
+        @Override
+        public boolean isNoop() {
+            return false;
+        }
+
+        @Override
+        public Username getUsername() {
+            return username;
+        }
+
+        @Override
+        public EventId getEventId() {
+            return eventId;
+        }
+
+        public Optional<QuotaRoot> getQuotaRoot() {
+            return quotaRoot;
+        }
+
+        public Optional<Domain> getDomain() {
+            return domain;
+        }
+
+        public boolean concerns(QuotaRoot otherQuotaRoot) {
+            if (quotaRoot.isPresent()) {
+                return quotaRoot.get().equals(otherQuotaRoot);
+            }
+            if (domain.isPresent()) {
+                return domain.equals(otherQuotaRoot.getDomain());
+            }
+            return true;
+        }
+
+        @Override
+        public final boolean equals(Object o) {
+            if (o instanceof QuotaLimitsUpdatedEvent) {
+                QuotaLimitsUpdatedEvent that = (QuotaLimitsUpdatedEvent) o;
+
+                return Objects.equals(this.eventId, that.eventId)
+                    && Objects.equals(this.username, that.username)
+                    && Objects.equals(this.quotaRoot, that.quotaRoot)
+                    && Objects.equals(this.domain, that.domain);
+            }
+            return false;
+        }
+
+        @Override
+        public final int hashCode() {
+            return Objects.hash(eventId, username, quotaRoot, domain);
+        }
+    }
+
     /**
      * A mailbox event.
      */
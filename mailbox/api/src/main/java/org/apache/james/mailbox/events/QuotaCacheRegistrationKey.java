@@ -0,0 +1,62 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+
+package org.apache.james.mailbox.events;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Registration key shared by every node caching quota values.
+ *
+ * Quota usage and quota limits updates are dispatched on this key so that each node can keep
+ * its cached quotas up to date.
+ */
+public class QuotaCacheRegistrationKey implements RegistrationKey {
+    public static final QuotaCacheRegistrationKey INSTANCE = new QuotaCacheRegistrationKey();
+
+    public static class Factory implements RegistrationKey.Factory {
+        @Override
+        public Class<? extends RegistrationKey> forClass() {
+            return QuotaCacheRegistrationKey.class;
+        }
+
+        @Override
+        public RegistrationKey fromString(String asString) {
+            return INSTANCE;
+        }
+    }
+
+    private static final String KEY = "quota-cache";
+
+    private QuotaCacheRegistrationKey() {
+    }
+
+    @Override
+    public String asString() {
+        return KEY;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("key", KEY)
+            .toString();
+    }
+}
@@ -103,7 +103,8 @@ public class CassandraMailboxManager extends StoreMailboxManager {
             getMessageIdFactory(),
             configuration.getBatchSizes(),
             getStoreRightManager(),
-            getPreDeletionHooks());
+            getPreDeletionHooks(),
+            configuration.getContentBuffering());
     }
 
 }
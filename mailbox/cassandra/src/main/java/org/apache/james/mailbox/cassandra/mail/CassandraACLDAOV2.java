@@ -30,6 +30,7 @@ import static com.datastax.driver.core.querybuilder.QueryBuilder.update;
 import javax.inject.Inject;
 
 import org.apache.commons.lang3.NotImplementedException;
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.mailbox.cassandra.ids.CassandraId;
 import org.apache.james.mailbox.cassandra.table.CassandraACLTable;
@@ -41,6 +42,7 @@ import com.datastax.driver.core.Session;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
 import com.github.fge.lambdas.Throwing;
 import com.github.steveash.guavate.Guavate;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
@@ -55,8 +57,8 @@ public class CassandraACLDAOV2 {
     private final PreparedStatement read;
 
     @Inject
-    public CassandraACLDAOV2(Session session) {
-        this.executor = new CassandraAsyncExecutor(session);
+    public CassandraACLDAOV2(Session session, CassandraConfiguration cassandraConfiguration) {
+        this.executor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         this.insertRights = prepareInsertRights(session);
         this.removeRights = prepareRemoveRights(session);
         this.replaceRights = prepareReplaceRights(session);
@@ -64,6 +66,11 @@ public class CassandraACLDAOV2 {
         this.delete = prepareDelete(session);
     }
 
+    @VisibleForTesting
+    public CassandraACLDAOV2(Session session) {
+        this(session, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareDelete(Session session) {
         return session.prepare(
             QueryBuilder.delete().from(CassandraACLV2Table.TABLE_NAME)
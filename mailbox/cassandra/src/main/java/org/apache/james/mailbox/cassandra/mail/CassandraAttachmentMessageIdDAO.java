@@ -31,6 +31,7 @@ import static org.apache.james.mailbox.cassandra.table.CassandraAttachmentMessag
 
 import javax.inject.Inject;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.mailbox.model.AttachmentId;
 import org.apache.james.mailbox.model.MessageId;
@@ -39,6 +40,7 @@ import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 
 import reactor.core.publisher.Flux;
@@ -53,15 +55,20 @@ public class CassandraAttachmentMessageIdDAO {
     private final MessageId.Factory messageIdFactory;
 
     @Inject
-    public CassandraAttachmentMessageIdDAO(Session session, MessageId.Factory messageIdFactory) {
+    public CassandraAttachmentMessageIdDAO(Session session, MessageId.Factory messageIdFactory, CassandraConfiguration cassandraConfiguration) {
         this.messageIdFactory = messageIdFactory;
-        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session);
+        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session, cassandraConfiguration);
 
         this.selectStatement = prepareSelect(session);
         this.insertStatement = prepareInsert(session);
         this.deleteStatement = prepareDelete(session);
     }
 
+    @VisibleForTesting
+    public CassandraAttachmentMessageIdDAO(Session session, MessageId.Factory messageIdFactory) {
+        this(session, messageIdFactory, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareInsert(Session session) {
         return session.prepare(
             insertInto(TABLE_NAME)
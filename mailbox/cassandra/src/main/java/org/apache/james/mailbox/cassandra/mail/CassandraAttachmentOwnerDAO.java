@@ -30,6 +30,7 @@ import static org.apache.james.mailbox.cassandra.table.CassandraAttachmentOwnerT
 
 import javax.inject.Inject;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.core.Username;
 import org.apache.james.mailbox.model.AttachmentId;
@@ -37,6 +38,7 @@ import org.apache.james.mailbox.model.AttachmentId;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
+import com.google.common.annotations.VisibleForTesting;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -48,13 +50,18 @@ public class CassandraAttachmentOwnerDAO {
     private final PreparedStatement selectStatement;
 
     @Inject
-    public CassandraAttachmentOwnerDAO(Session session) {
-        this.executor = new CassandraAsyncExecutor(session);
+    public CassandraAttachmentOwnerDAO(Session session, CassandraConfiguration cassandraConfiguration) {
+        this.executor = new CassandraAsyncExecutor(session, cassandraConfiguration);
 
         this.selectStatement = prepareSelect(session);
         this.addStatement = prepareAdd(session);
     }
 
+    @VisibleForTesting
+    public CassandraAttachmentOwnerDAO(Session session) {
+        this(session, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareAdd(Session session) {
         return session.prepare(
             insertInto(TABLE_NAME)
@@ -34,6 +34,7 @@ import static org.apache.james.mailbox.cassandra.table.CassandraMailboxPathTable
 import javax.inject.Inject;
 
 import org.apache.james.backends.cassandra.init.CassandraTypesProvider;
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.init.configuration.CassandraConsistenciesConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.backends.cassandra.utils.CassandraUtils;
@@ -74,8 +75,9 @@ public class CassandraMailboxPathDAOImpl {
     @Inject
     public CassandraMailboxPathDAOImpl(Session session, CassandraTypesProvider typesProvider,
                                        CassandraUtils cassandraUtils,
-                                       CassandraConsistenciesConfiguration consistenciesConfiguration) {
-        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session);
+                                       CassandraConsistenciesConfiguration consistenciesConfiguration,
+                                       CassandraConfiguration cassandraConfiguration) {
+        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         this.mailboxBaseTupleUtil = new MailboxBaseTupleUtil(typesProvider);
         this.cassandraUtils = cassandraUtils;
         this.consistencyLevel = consistenciesConfiguration.getRegular();
@@ -87,6 +89,13 @@ public class CassandraMailboxPathDAOImpl {
         this.countAll = prepareCountAll(session);
     }
 
+    @VisibleForTesting
+    public CassandraMailboxPathDAOImpl(Session session, CassandraTypesProvider typesProvider,
+                                       CassandraUtils cassandraUtils,
+                                       CassandraConsistenciesConfiguration consistenciesConfiguration) {
+        this(session, typesProvider, cassandraUtils, consistenciesConfiguration, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     @VisibleForTesting
     public CassandraMailboxPathDAOImpl(Session session, CassandraTypesProvider typesProvider,
                                        CassandraConsistenciesConfiguration consistenciesConfiguration) {
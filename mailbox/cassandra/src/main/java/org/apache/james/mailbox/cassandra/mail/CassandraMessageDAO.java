@@ -48,6 +48,7 @@ import javax.mail.util.SharedByteArrayInputStream;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.james.backends.cassandra.init.CassandraTypesProvider;
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.init.configuration.CassandraConsistenciesConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.blob.api.BlobId;
@@ -75,6 +76,7 @@ import com.datastax.driver.core.Session;
 import com.datastax.driver.core.UDTValue;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
 import com.github.steveash.guavate.Guavate;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Bytes;
 
@@ -104,8 +106,9 @@ public class CassandraMessageDAO {
                                BlobStore blobStore,
                                BlobId.Factory blobIdFactory,
                                CassandraMessageId.Factory messageIdFactory,
-                               CassandraConsistenciesConfiguration consistenciesConfiguration) {
-        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session);
+                               CassandraConsistenciesConfiguration consistenciesConfiguration,
+                               CassandraConfiguration cassandraConfiguration) {
+        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         this.messageIdFactory = messageIdFactory;
         this.consistencyLevel = consistenciesConfiguration.getRegular();
         this.typesProvider = typesProvider;
@@ -119,6 +122,16 @@ public class CassandraMessageDAO {
         this.cidParser = Cid.parser().relaxed();
     }
 
+    @VisibleForTesting
+    public CassandraMessageDAO(Session session,
+                               CassandraTypesProvider typesProvider,
+                               BlobStore blobStore,
+                               BlobId.Factory blobIdFactory,
+                               CassandraMessageId.Factory messageIdFactory,
+                               CassandraConsistenciesConfiguration consistenciesConfiguration) {
+        this(session, typesProvider, blobStore, blobIdFactory, messageIdFactory, consistenciesConfiguration, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareSelect(Session session) {
         return session.prepare(select()
             .from(TABLE_NAME)
@@ -48,6 +48,7 @@ import javax.inject.Inject;
 import javax.mail.Flags;
 import javax.mail.Flags.Flag;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.mailbox.MessageUid;
 import org.apache.james.mailbox.ModSeq;
@@ -63,6 +64,7 @@ import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 
 import reactor.core.publisher.Flux;
@@ -90,8 +92,8 @@ public class CassandraMessageIdDAO {
     private final PreparedStatement listStatement;
 
     @Inject
-    public CassandraMessageIdDAO(Session session, CassandraMessageId.Factory messageIdFactory) {
-        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session);
+    public CassandraMessageIdDAO(Session session, CassandraMessageId.Factory messageIdFactory, CassandraConfiguration cassandraConfiguration) {
+        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         this.messageIdFactory = messageIdFactory;
         this.delete = prepareDelete(session);
         this.insert = prepareInsert(session);
@@ -107,6 +109,11 @@ public class CassandraMessageIdDAO {
         this.listStatement = prepareList(session);
     }
 
+    @VisibleForTesting
+    public CassandraMessageIdDAO(Session session, CassandraMessageId.Factory messageIdFactory) {
+        this(session, messageIdFactory, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareDelete(Session session) {
         return session.prepare(QueryBuilder.delete()
                 .from(TABLE_NAME)
@@ -46,6 +46,7 @@ import javax.inject.Inject;
 import javax.mail.Flags;
 import javax.mail.Flags.Flag;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.init.configuration.CassandraConsistenciesConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.mailbox.MessageUid;
@@ -62,6 +63,7 @@ import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 
 import reactor.core.publisher.Flux;
@@ -83,8 +85,9 @@ public class CassandraMessageIdToImapUidDAO {
 
     @Inject
     public CassandraMessageIdToImapUidDAO(Session session, CassandraConsistenciesConfiguration consistenciesConfiguration,
-                                          CassandraMessageId.Factory messageIdFactory) {
-        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session);
+                                          CassandraMessageId.Factory messageIdFactory,
+                                          CassandraConfiguration cassandraConfiguration) {
+        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         this.consistencyLevel = consistenciesConfiguration.getLightweightTransaction();
         this.messageIdFactory = messageIdFactory;
         this.delete = prepareDelete(session);
@@ -95,6 +98,12 @@ public class CassandraMessageIdToImapUidDAO {
         this.listStatement = prepareList(session);
     }
 
+    @VisibleForTesting
+    public CassandraMessageIdToImapUidDAO(Session session, CassandraConsistenciesConfiguration consistenciesConfiguration,
+                                          CassandraMessageId.Factory messageIdFactory) {
+        this(session, consistenciesConfiguration, messageIdFactory, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareDelete(Session session) {
         return session.prepare(QueryBuilder.delete()
                 .from(TABLE_NAME)
@@ -31,11 +31,13 @@ import static org.apache.james.mailbox.events.tables.CassandraEventDeadLettersTa
 
 import javax.inject.Inject;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.event.json.EventSerializer;
 
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
+import com.google.common.annotations.VisibleForTesting;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -50,8 +52,8 @@ public class CassandraEventDeadLettersDAO {
     private final PreparedStatement containEventsStatement;
 
     @Inject
-    CassandraEventDeadLettersDAO(Session session, EventSerializer eventSerializer) {
-        this.executor = new CassandraAsyncExecutor(session);
+    CassandraEventDeadLettersDAO(Session session, EventSerializer eventSerializer, CassandraConfiguration cassandraConfiguration) {
+        this.executor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         this.eventSerializer = eventSerializer;
         this.insertStatement = prepareInsertStatement(session);
         this.deleteStatement = prepareDeleteStatement(session);
@@ -60,6 +62,11 @@ public class CassandraEventDeadLettersDAO {
         this.containEventsStatement = prepareContainEventStatement(session);
     }
 
+    @VisibleForTesting
+    CassandraEventDeadLettersDAO(Session session, EventSerializer eventSerializer) {
+        this(session, eventSerializer, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareInsertStatement(Session session) {
         return session.prepare(insertInto(TABLE_NAME)
             .value(GROUP, bindMarker(GROUP))
@@ -27,11 +27,13 @@ import static org.apache.james.mailbox.events.tables.CassandraEventDeadLettersGr
 
 import javax.inject.Inject;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
 import com.github.fge.lambdas.Throwing;
+import com.google.common.annotations.VisibleForTesting;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -42,12 +44,17 @@ public class CassandraEventDeadLettersGroupDAO {
     private final PreparedStatement selectAllStatement;
 
     @Inject
-    CassandraEventDeadLettersGroupDAO(Session session) {
-        this.executor = new CassandraAsyncExecutor(session);
+    CassandraEventDeadLettersGroupDAO(Session session, CassandraConfiguration cassandraConfiguration) {
+        this.executor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         this.insertStatement = prepareInsertStatement(session);
         this.selectAllStatement = prepareSelectStatement(session);
     }
 
+    @VisibleForTesting
+    CassandraEventDeadLettersGroupDAO(Session session) {
+        this(session, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareInsertStatement(Session session) {
         return session.prepare(insertInto(TABLE_NAME)
             .value(GROUP, bindMarker(GROUP)));
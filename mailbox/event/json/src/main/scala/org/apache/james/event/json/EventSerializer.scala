@@ -24,13 +24,13 @@ import java.util.{TreeMap => JavaTreeMap}
 
 import javax.inject.Inject
 import julienrf.json.derived
-import org.apache.james.core.Username
+import org.apache.james.core.{Domain, Username}
 import org.apache.james.core.quota.{QuotaCountLimit, QuotaCountUsage, QuotaLimitValue, QuotaSizeLimit, QuotaSizeUsage, QuotaUsageValue}
 import org.apache.james.event.json.DTOs.SystemFlag.SystemFlag
 import org.apache.james.event.json.DTOs._
 import org.apache.james.mailbox.MailboxSession.SessionId
 import org.apache.james.mailbox.events.Event.EventId
-import org.apache.james.mailbox.events.MailboxListener.{Added => JavaAdded, Expunged => JavaExpunged, FlagsUpdated => JavaFlagsUpdated, MailboxACLUpdated => JavaMailboxACLUpdated, MailboxAdded => JavaMailboxAdded, MailboxDeletion => JavaMailboxDeletion, MailboxRenamed => JavaMailboxRenamed, QuotaUsageUpdatedEvent => JavaQuotaUsageUpdatedEvent}
+import org.apache.james.mailbox.events.MailboxListener.{Added => JavaAdded, Expunged => JavaExpunged, FlagsUpdated => JavaFlagsUpdated, MailboxACLUpdated => JavaMailboxACLUpdated, MailboxAdded => JavaMailboxAdded, MailboxDeletion => JavaMailboxDeletion, MailboxRenamed => JavaMailboxRenamed, QuotaLimitsUpdatedEvent => JavaQuotaLimitsUpdatedEvent, QuotaUsageUpdatedEvent => JavaQuotaUsageUpdatedEvent}
 import org.apache.james.mailbox.events.{Event => JavaEvent, MessageMoveEvent => JavaMessageMoveEvent}
 import org.apache.james.mailbox.model.{MailboxId, MessageId, MessageMoves, QuotaRoot, MailboxACL => JavaMailboxACL, MessageMetaData => JavaMessageMetaData, Quota => JavaQuota}
 import org.apache.james.mailbox.quota.QuotaRootDeserializer
@@ -38,6 +38,7 @@ import org.apache.james.mailbox.{MessageUid, ModSeq}
 import play.api.libs.json._
 
 import scala.jdk.CollectionConverters._
+import scala.jdk.OptionConverters._
 
 private sealed trait Event {
   def toJava: JavaEvent
@@ -67,6 +68,10 @@ private object DTO {
     override def toJava: JavaEvent = new JavaQuotaUsageUpdatedEvent(eventId, user, quotaRoot, countQuota.toJava, sizeQuota.toJava, time)
   }
 
+  case class QuotaLimitsUpdatedEvent(eventId: EventId, user: Username, quotaRoot: Option[QuotaRoot], domain: Option[Domain]) extends Event {
+    override def toJava: JavaEvent = new JavaQuotaLimitsUpdatedEvent(eventId, user, quotaRoot.toJava, domain.toJava)
+  }
+
   case class Added(eventId: EventId, sessionId: SessionId, user: Username, path: MailboxPath, mailboxId: MailboxId,
                    added: Map[MessageUid, DTOs.MessageMetaData]) extends Event {
     override def toJava: JavaEvent = new JavaAdded(
@@ -156,6 +161,12 @@ private object ScalaConverter {
     sizeQuota = Quota.toScala(event.getSizeQuota),
     time = event.getInstant)
 
+  private def toScala(event: JavaQuotaLimitsUpdatedEvent): DTO.QuotaLimitsUpdatedEvent = DTO.QuotaLimitsUpdatedEvent(
+    eventId = event.getEventId,
+    user = event.getUsername,
+    quotaRoot = event.getQuotaRoot.toScala,
+    domain = event.getDomain.toScala)
+
   private def toScala(event: JavaAdded): DTO.Added = DTO.Added(
     eventId = event.getEventId,
     sessionId = event.getSessionId,
@@ -197,6 +208,7 @@ private object ScalaConverter {
     case e: JavaMailboxRenamed => toScala(e)
     case e: JavaMessageMoveEvent => toScala(e)
     case e: JavaQuotaUsageUpdatedEvent => toScala(e)
+    case e: JavaQuotaLimitsUpdatedEvent => toScala(e)
     case _ => throw new RuntimeException("no Scala conversion known")
   }
 }
@@ -205,6 +217,7 @@ class JsonSerialize(mailboxIdFactory: MailboxId.Factory, messageIdFactory: Messa
   implicit val systemFlagsWrites: Writes[SystemFlag] = Writes.enumNameWrites
   implicit val userWriters: Writes[Username] = (user: Username) => JsString(user.asString)
   implicit val quotaRootWrites: Writes[QuotaRoot] = quotaRoot => JsString(quotaRoot.getValue)
+  implicit val domainWrites: Writes[Domain] = domain => JsString(domain.asString)
   implicit val quotaScopeWrites: Writes[JavaQuota.Scope] = value => JsString(value.name)
   implicit val quotaCountLimitWrites: Writes[QuotaCountLimit] = value => if (value.isUnlimited) JsNull else JsNumber(value.asLong())
   implicit val quotaCountUsageWrites: Writes[QuotaCountUsage] = value => JsNumber(value.asLong())
@@ -255,6 +268,10 @@ class JsonSerialize(mailboxIdFactory: MailboxId.Factory, messageIdFactory: Messa
     case JsString(quotaRoot) => JsSuccess(quotaRootDeserializer.fromString(quotaRoot))
     case _ => JsError()
   }
+  implicit val domainReads: Reads[Domain] = {
+    case JsString(domain) => JsSuccess(Domain.of(domain))
+    case _ => JsError()
+  }
   implicit val quotaScopeReads: Reads[JavaQuota.Scope] = {
     case JsString(value) => JsSuccess(JavaQuota.Scope.valueOf(value))
     case _ => JsError()
@@ -349,10 +366,45 @@ class JsonSerialize(mailboxIdFactory: MailboxId.Factory, messageIdFactory: Messa
     .map(event => event.toJava)
 }
 
-class EventSerializer @Inject() (mailboxIdFactory: MailboxId.Factory, messageIdFactory: MessageId.Factory, quotaRootDeserializer: QuotaRootDeserializer) {
-  private val jsonSerialize = new JsonSerialize(mailboxIdFactory, messageIdFactory, quotaRootDeserializer)
+/**
+ * Serializes events defined outside of the mailbox, so that they can transit through the event bus.
+ *
+ * The serialized event is wrapped in an object keyed by `typeName`, like the mailbox events are.
+ */
+trait EventSerializerExtension {
+  def typeName: String
 
-  def toJson(event: JavaEvent): String = jsonSerialize.toJson(event)
-  def fromJson(json: String): JsResult[JavaEvent] = jsonSerialize.fromJson(json)
+  def toJson(event: JavaEvent): Option[JsValue]
+
+  def fromJson(json: JsValue): JsResult[JavaEvent]
 }
 
+class EventSerializer @Inject() (mailboxIdFactory: MailboxId.Factory, messageIdFactory: MessageId.Factory, quotaRootDeserializer: QuotaRootDeserializer,
+                                 extensions: java.util.Set[EventSerializerExtension]) {
+  private val jsonSerialize = new JsonSerialize(mailboxIdFactory, messageIdFactory, quotaRootDeserializer)
+  private val extensionsByTypeName: Map[String, EventSerializerExtension] = extensions.asScala
+    .map(extension => extension.typeName -> extension)
+    .toMap
+
+  def this(mailboxIdFactory: MailboxId.Factory, messageIdFactory: MessageId.Factory, quotaRootDeserializer: QuotaRootDeserializer) = {
+    this(mailboxIdFactory, messageIdFactory, quotaRootDeserializer, java.util.Set.of[EventSerializerExtension]())
+  }
+
+  def toJson(event: JavaEvent): String = extensionsByTypeName.values
+    .view
+    .flatMap(extension => extension.toJson(event).map(json => Json.obj(extension.typeName -> json)))
+    .headOption
+    .map(_.toString())
+    .getOrElse(jsonSerialize.toJson(event))
+
+  def fromJson(json: String): JsResult[JavaEvent] =
+    if (extensionsByTypeName.isEmpty) {
+      jsonSerialize.fromJson(json)
+    } else {
+      Json.parse(json) match {
+        case JsObject(fields) if fields.size == 1 && extensionsByTypeName.contains(fields.head._1) =>
+          extensionsByTypeName(fields.head._1).fromJson(fields.head._2)
+        case _ => jsonSerialize.fromJson(json)
+      }
+    }
+}
@@ -0,0 +1,105 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+
+package org.apache.james.event.json;
+
+import static net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson;
+import static org.apache.james.event.json.SerializerFixture.EVENT_ID;
+import static org.apache.james.event.json.SerializerFixture.EVENT_SERIALIZER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Optional;
+
+import org.apache.james.core.Domain;
+import org.apache.james.core.Username;
+import org.apache.james.mailbox.events.MailboxListener;
+import org.apache.james.mailbox.model.QuotaRoot;
+import org.junit.jupiter.api.Test;
+
+class QuotaLimitsUpdatedEventSerializationTest {
+    private static final Username USERNAME = Username.of("quota-admin");
+    private static final Domain DOMAIN = Domain.of("domain.tld");
+    private static final QuotaRoot QUOTA_ROOT = QuotaRoot.quotaRoot("#private&bob@domain.tld", Optional.of(DOMAIN));
+
+    private static final MailboxListener.QuotaLimitsUpdatedEvent QUOTA_ROOT_EVENT = new MailboxListener.QuotaLimitsUpdatedEvent(
+        EVENT_ID, USERNAME, Optional.of(QUOTA_ROOT), Optional.empty());
+    private static final String QUOTA_ROOT_JSON = "{" +
+        "  \"QuotaLimitsUpdatedEvent\":{" +
+        "    \"eventId\":\"6e0dd59d-660e-4d9b-b22f-0354479f47b4\"," +
+        "    \"user\":\"quota-admin\"," +
+        "    \"quotaRoot\":\"#private&bob@domain.tld\"" +
+        "  }" +
+        "}";
+
+    private static final MailboxListener.QuotaLimitsUpdatedEvent DOMAIN_EVENT = new MailboxListener.QuotaLimitsUpdatedEvent(
+        EVENT_ID, USERNAME, Optional.empty(), Optional.of(DOMAIN));
+    private static final String DOMAIN_JSON = "{" +
+        "  \"QuotaLimitsUpdatedEvent\":{" +
+        "    \"eventId\":\"6e0dd59d-660e-4d9b-b22f-0354479f47b4\"," +
+        "    \"user\":\"quota-admin\"," +
+        "    \"domain\":\"domain.tld\"" +
+        "  }" +
+        "}";
+
+    private static final MailboxListener.QuotaLimitsUpdatedEvent GLOBAL_EVENT = new MailboxListener.QuotaLimitsUpdatedEvent(
+        EVENT_ID, USERNAME, Optional.empty(), Optional.empty());
+    private static final String GLOBAL_JSON = "{" +
+        "  \"QuotaLimitsUpdatedEvent\":{" +
+        "    \"eventId\":\"6e0dd59d-660e-4d9b-b22f-0354479f47b4\"," +
+        "    \"user\":\"quota-admin\"" +
+        "  }" +
+        "}";
+
+    @Test
+    void quotaRootEventShouldBeWellSerialized() {
+        assertThatJson(EVENT_SERIALIZER.toJson(QUOTA_ROOT_EVENT))
+            .isEqualTo(QUOTA_ROOT_JSON);
+    }
+
+    @Test
+    void quotaRootEventShouldBeWellDeSerialized() {
+        assertThat(EVENT_SERIALIZER.fromJson(QUOTA_ROOT_JSON).get())
+            .isEqualTo(QUOTA_ROOT_EVENT);
+    }
+
+    @Test
+    void domainEventShouldBeWellSerialized() {
+        assertThatJson(EVENT_SERIALIZER.toJson(DOMAIN_EVENT))
+            .isEqualTo(DOMAIN_JSON);
+    }
+
+    @Test
+    void domainEventShouldBeWellDeSerialized() {
+        assertThat(EVENT_SERIALIZER.fromJson(DOMAIN_JSON).get())
+            .isEqualTo(DOMAIN_EVENT);
+    }
+
+    @Test
+    void globalEventShouldBeWellSerialized() {
+        assertThatJson(EVENT_SERIALIZER.toJson(GLOBAL_EVENT))
+            .isEqualTo(GLOBAL_JSON);
+    }
+
+    @Test
+    void globalEventShouldBeWellDeSerialized() {
+        assertThat(EVENT_SERIALIZER.fromJson(GLOBAL_JSON).get())
+            .isEqualTo(GLOBAL_EVENT);
+    }
+}
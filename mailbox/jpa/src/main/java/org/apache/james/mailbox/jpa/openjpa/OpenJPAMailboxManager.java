@@ -77,7 +77,8 @@ public class OpenJPAMailboxManager extends StoreMailboxManager {
             getQuotaComponents().getQuotaRootResolver(),
             getMessageIdFactory(),
             configuration.getBatchSizes(),
-            getStoreRightManager());
+            getStoreRightManager(),
+            configuration.getContentBuffering());
     }
 
     @Override
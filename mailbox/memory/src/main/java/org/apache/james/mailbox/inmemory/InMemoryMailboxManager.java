@@ -87,6 +87,7 @@ public class InMemoryMailboxManager extends StoreMailboxManager {
             getMessageIdFactory(),
             configuration.getBatchSizes(),
             getStoreRightManager(),
-            getPreDeletionHooks());
+            getPreDeletionHooks(),
+            configuration.getContentBuffering());
     }
 }
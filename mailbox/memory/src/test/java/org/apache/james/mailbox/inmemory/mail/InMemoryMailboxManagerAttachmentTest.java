@@ -19,20 +19,29 @@
 
 package org.apache.james.mailbox.inmemory.mail;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.io.InputStream;
 
+import org.apache.james.core.Username;
 import org.apache.james.mailbox.MailboxManager;
+import org.apache.james.mailbox.MailboxSession;
+import org.apache.james.mailbox.MessageManager;
 import org.apache.james.mailbox.inmemory.InMemoryMailboxManager;
 import org.apache.james.mailbox.inmemory.manager.InMemoryIntegrationResources;
+import org.apache.james.mailbox.model.MailboxPath;
 import org.apache.james.mailbox.store.AbstractMailboxManagerAttachmentTest;
 import org.apache.james.mailbox.store.MailboxSessionMapperFactory;
 import org.apache.james.mailbox.store.mail.AttachmentMapperFactory;
 import org.apache.james.mailbox.store.mail.model.impl.MessageParser;
+import org.apache.james.mime4j.MimeException;
+import org.apache.james.mime4j.MimeIOException;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 
 class InMemoryMailboxManagerAttachmentTest extends AbstractMailboxManagerAttachmentTest {
     InMemoryMailboxManager mailboxManager;
@@ -41,7 +50,7 @@ class InMemoryMailboxManagerAttachmentTest extends AbstractMailboxManagerAttachm
     @BeforeEach
     void setup() throws Exception {
         MessageParser failingMessageParser = mock(MessageParser.class);
-        when(failingMessageParser.retrieveAttachments(any(InputStream.class)))
+        when(failingMessageParser.parse(any(InputStream.class), anyBoolean()))
             .thenThrow(new RuntimeException("Message parser set to fail"));
 
         mailboxManager = InMemoryIntegrationResources.defaultResources().getMailboxManager();
@@ -60,6 +69,33 @@ class InMemoryMailboxManagerAttachmentTest extends AbstractMailboxManagerAttachm
         super.setUp();
     }
 
+    @Test
+    void appendMessageShouldStoreMailWhenParserReportsMalformedMail() throws Exception {
+        MessageParser malformedMessageParser = mock(MessageParser.class);
+        when(malformedMessageParser.parse(any(InputStream.class), anyBoolean()))
+            .thenThrow(new MimeIOException(new MimeException("Malformed message")));
+        InMemoryMailboxManager manager = InMemoryIntegrationResources.builder()
+            .preProvisionnedFakeAuthenticator()
+            .fakeAuthorizator()
+            .inVmEventBus()
+            .defaultAnnotationLimits()
+            .messageParser(malformedMessageParser)
+            .scanningSearchIndex()
+            .noPreDeletionHooks()
+            .storeQuotaManager()
+            .build()
+            .getMailboxManager();
+        MailboxSession session = manager.createSystemSession(Username.of("bob@domain.tld"));
+        MailboxPath inbox = MailboxPath.inbox(session);
+        manager.createMailbox(inbox, session);
+        MessageManager messageManager = manager.getMailbox(inbox, session);
+
+        messageManager.appendMessage(MessageManager.AppendCommand.builder()
+            .build("Subject: test\r\n\r\nbody"), session);
+
+        assertThat(messageManager.getMessageCount(session)).isEqualTo(1);
+    }
+
     @Override
     protected MailboxManager getMailboxManager() {
         return mailboxManager;
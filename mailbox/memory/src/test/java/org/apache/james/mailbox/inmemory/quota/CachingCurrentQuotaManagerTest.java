@@ -0,0 +1,96 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+
+package org.apache.james.mailbox.inmemory.quota;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+
+import org.apache.james.core.Username;
+import org.apache.james.core.quota.QuotaCountLimit;
+import org.apache.james.core.quota.QuotaCountUsage;
+import org.apache.james.core.quota.QuotaSizeLimit;
+import org.apache.james.core.quota.QuotaSizeUsage;
+import org.apache.james.mailbox.inmemory.manager.InMemoryIntegrationResources;
+import org.apache.james.mailbox.model.CurrentQuotas;
+import org.apache.james.mailbox.model.Quota;
+import org.apache.james.mailbox.model.QuotaOperation;
+import org.apache.james.mailbox.quota.CurrentQuotaManager;
+import org.apache.james.mailbox.store.event.EventFactory;
+import org.apache.james.mailbox.store.quota.CachingCurrentQuotaManager;
+import org.apache.james.mailbox.store.quota.CurrentQuotaManagerContract;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+
+class CachingCurrentQuotaManagerTest implements CurrentQuotaManagerContract {
+
+    CurrentQuotaManager storage;
+    CachingCurrentQuotaManager testee;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryIntegrationResources resources = InMemoryIntegrationResources.defaultResources();
+
+        storage = resources.getCurrentQuotaManager();
+        testee = new CachingCurrentQuotaManager(storage);
+    }
+
+    @Override
+    public CurrentQuotaManager testee() {
+        return testee;
+    }
+
+    @Test
+    void getCurrentQuotasShouldBeServedFromCache() {
+        Mono.from(testee.getCurrentQuotas(QUOTA_ROOT)).block();
+
+        Mono.from(storage.increase(new QuotaOperation(QUOTA_ROOT, QuotaCountUsage.count(10), QuotaSizeUsage.size(100)))).block();
+
+        assertThat(Mono.from(testee.getCurrentQuotas(QUOTA_ROOT)).block())
+            .isEqualTo(CurrentQuotas.emptyQuotas());
+    }
+
+    @Test
+    void quotaUsageUpdatedEventShouldRefreshCachedValue() {
+        Mono.from(testee.getCurrentQuotas(QUOTA_ROOT)).block();
+
+        Mono.from(testee.reactiveEvent(EventFactory.quotaUpdated()
+            .randomEventId()
+            .user(Username.of("benwa"))
+            .quotaRoot(QUOTA_ROOT)
+            .quotaCount(Quota.<QuotaCountLimit, QuotaCountUsage>builder()
+                .used(QuotaCountUsage.count(10))
+                .computedLimit(QuotaCountLimit.unlimited())
+                .build())
+            .quotaSize(Quota.<QuotaSizeLimit, QuotaSizeUsage>builder()
+                .used(QuotaSizeUsage.size(100))
+                .computedLimit(QuotaSizeLimit.unlimited())
+                .build())
+            .instant(Instant.now())
+            .build()))
+            .block();
+
+        assertThat(Mono.from(testee.getCurrentQuotas(QUOTA_ROOT)).block())
+            .isEqualTo(new CurrentQuotas(QuotaCountUsage.count(10), QuotaSizeUsage.size(100)));
+    }
+}
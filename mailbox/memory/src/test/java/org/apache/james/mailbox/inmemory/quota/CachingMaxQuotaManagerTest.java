@@ -0,0 +1,107 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+
+package org.apache.james.mailbox.inmemory.quota;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.james.core.Domain;
+import org.apache.james.core.quota.QuotaCountLimit;
+import org.apache.james.core.quota.QuotaSizeLimit;
+import org.apache.james.mailbox.events.EventBus;
+import org.apache.james.mailbox.events.EventBusTestFixture;
+import org.apache.james.mailbox.events.InVMEventBus;
+import org.apache.james.mailbox.events.MemoryEventDeadLetters;
+import org.apache.james.mailbox.events.QuotaCacheRegistrationKey;
+import org.apache.james.mailbox.events.delivery.InVmEventDelivery;
+import org.apache.james.mailbox.quota.MaxQuotaManager;
+import org.apache.james.mailbox.store.quota.CachingMaxQuotaManager;
+import org.apache.james.mailbox.store.quota.GenericMaxQuotaManagerTest;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+
+class CachingMaxQuotaManagerTest extends GenericMaxQuotaManagerTest {
+
+    @Override
+    protected MaxQuotaManager provideMaxQuotaManager() {
+        return new CachingMaxQuotaManager(new InMemoryPerUserMaxQuotaManager(), eventBus());
+    }
+
+    private static EventBus eventBus() {
+        return new InVMEventBus(new InVmEventDelivery(new RecordingMetricFactory()), EventBusTestFixture.RETRY_BACKOFF_CONFIGURATION, new MemoryEventDeadLetters());
+    }
+
+    @Nested
+    class Distributed {
+        private CachingMaxQuotaManager node1;
+        private CachingMaxQuotaManager node2;
+
+        @BeforeEach
+        void setUp() {
+            InMemoryPerUserMaxQuotaManager sharedStorage = new InMemoryPerUserMaxQuotaManager();
+            EventBus eventBus = eventBus();
+            node1 = new CachingMaxQuotaManager(sharedStorage, eventBus);
+            node2 = new CachingMaxQuotaManager(sharedStorage, eventBus);
+            Mono.from(eventBus.register(node1, QuotaCacheRegistrationKey.INSTANCE)).block();
+            Mono.from(eventBus.register(node2, QuotaCacheRegistrationKey.INSTANCE)).block();
+        }
+
+        @Test
+        void quotaRootUpdateShouldBeVisibleOnOtherNodes() throws Exception {
+            assertThat(node2.getMaxMessage(QUOTA_ROOT)).isEmpty();
+
+            node1.setMaxMessage(QUOTA_ROOT, QuotaCountLimit.count(36));
+
+            assertThat(node2.getMaxMessage(QUOTA_ROOT)).contains(QuotaCountLimit.count(36));
+        }
+
+        @Test
+        void domainUpdateShouldBeVisibleOnOtherNodes() throws Exception {
+            assertThat(node2.getMaxStorage(QUOTA_ROOT)).isEmpty();
+
+            node1.setDomainMaxStorage(Domain.of("domain"), QuotaSizeLimit.size(36));
+
+            assertThat(node2.getMaxStorage(QUOTA_ROOT)).contains(QuotaSizeLimit.size(36));
+        }
+
+        @Test
+        void globalUpdateShouldBeVisibleOnOtherNodes() throws Exception {
+            assertThat(node2.getMaxMessage(QUOTA_ROOT)).isEmpty();
+
+            node1.setGlobalMaxMessage(QuotaCountLimit.count(36));
+
+            assertThat(node2.getMaxMessage(QUOTA_ROOT)).contains(QuotaCountLimit.count(36));
+        }
+
+        @Test
+        void removalShouldBeVisibleOnOtherNodes() throws Exception {
+            node1.setMaxMessage(QUOTA_ROOT, QuotaCountLimit.count(36));
+            assertThat(node2.getMaxMessage(QUOTA_ROOT)).contains(QuotaCountLimit.count(36));
+
+            node1.removeMaxMessage(QUOTA_ROOT);
+
+            assertThat(node2.getMaxMessage(QUOTA_ROOT)).isEmpty();
+        }
+    }
+}
@@ -33,6 +33,7 @@ import static org.apache.james.vault.metadata.DeletedMessageMetadataModule.Delet
 
 import javax.inject.Inject;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.blob.api.BucketName;
 import org.apache.james.core.Username;
@@ -40,6 +41,7 @@ import org.apache.james.mailbox.model.MessageId;
 
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
+import com.google.common.annotations.VisibleForTesting;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -55,8 +57,8 @@ public class MetadataDAO {
     private final MetadataSerializer metadataSerializer;
 
     @Inject
-    MetadataDAO(Session session, MessageId.Factory messageIdFactory, MetadataSerializer metadataSerializer) {
-        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session);
+    MetadataDAO(Session session, MessageId.Factory messageIdFactory, MetadataSerializer metadataSerializer, CassandraConfiguration cassandraConfiguration) {
+        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         this.addStatement = prepareAdd(session);
         this.removeStatement = prepareRemove(session);
         this.removeAllStatement = prepareRemoveAll(session);
@@ -66,6 +68,11 @@ public class MetadataDAO {
         this.metadataSerializer = metadataSerializer;
     }
 
+    @VisibleForTesting
+    MetadataDAO(Session session, MessageId.Factory messageIdFactory, MetadataSerializer metadataSerializer) {
+        this(session, messageIdFactory, metadataSerializer, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareRead(Session session, String fieldName) {
         return session.prepare(select(fieldName).from(TABLE)
             .where(eq(BUCKET_NAME, bindMarker(BUCKET_NAME)))
@@ -30,12 +30,14 @@ import static org.apache.james.vault.metadata.DeletedMessageMetadataModule.UserP
 
 import javax.inject.Inject;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.blob.api.BucketName;
 import org.apache.james.core.Username;
 
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
+import com.google.common.annotations.VisibleForTesting;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -48,14 +50,19 @@ public class UserPerBucketDAO {
     private final PreparedStatement listBucketsStatement;
 
     @Inject
-    UserPerBucketDAO(Session session) {
-        cassandraAsyncExecutor = new CassandraAsyncExecutor(session);
+    UserPerBucketDAO(Session session, CassandraConfiguration cassandraConfiguration) {
+        cassandraAsyncExecutor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         addStatement = prepareAddUser(session);
         removeStatement = prepareRemoveBucket(session);
         listStatement = prepareListUser(session);
         listBucketsStatement = prepareListBuckets(session);
     }
 
+    @VisibleForTesting
+    UserPerBucketDAO(Session session) {
+        this(session, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareAddUser(Session session) {
         return session.prepare(insertInto(TABLE)
             .value(BUCKET_NAME, bindMarker(BUCKET_NAME))
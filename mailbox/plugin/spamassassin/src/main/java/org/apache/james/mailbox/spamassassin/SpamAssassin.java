@@ -18,44 +18,56 @@
  ****************************************************************/
 package org.apache.james.mailbox.spamassassin;
 
-import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
 import org.apache.james.core.Username;
+import org.apache.james.mailbox.store.mail.model.Message;
 import org.apache.james.metrics.api.MetricFactory;
-import org.apache.james.spamassassin.SpamAssassinInvoker;
+import org.apache.james.spamassassin.ReactiveSpamAssassinInvoker;
 import org.apache.james.util.Host;
 
-import com.github.fge.lambdas.Throwing;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 public class SpamAssassin {
 
-    private final MetricFactory metricFactory;
-    private final SpamAssassinConfiguration spamAssassinConfiguration;
+    private final Optional<ReactiveSpamAssassinInvoker> invoker;
 
     @Inject
     public SpamAssassin(MetricFactory metricFactory, SpamAssassinConfiguration spamAssassinConfiguration) {
-        this.metricFactory = metricFactory;
-        this.spamAssassinConfiguration = spamAssassinConfiguration;
+        this.invoker = spamAssassinConfiguration.getHost()
+            .map(host -> invoker(metricFactory, host));
     }
 
-    public void learnSpam(List<InputStream> messages, Username username) {
-        if (spamAssassinConfiguration.isEnable()) {
-            Host host = spamAssassinConfiguration.getHost().get();
-            SpamAssassinInvoker invoker = new SpamAssassinInvoker(metricFactory, host.getHostName(), host.getPort());
-            messages
-                .forEach(Throwing.consumer(message -> invoker.learnAsSpam(message, username)));
-        }
+    private static ReactiveSpamAssassinInvoker invoker(MetricFactory metricFactory, Host host) {
+        return ReactiveSpamAssassinInvoker.builder(metricFactory)
+            .spamdHost(host.getHostName())
+            .spamdPort(host.getPort())
+            .build();
     }
 
-    public void learnHam(List<InputStream> messages, Username username) {
-        if (spamAssassinConfiguration.isEnable()) {
-            Host host = spamAssassinConfiguration.getHost().get();
-            SpamAssassinInvoker invoker = new SpamAssassinInvoker(metricFactory, host.getHostName(), host.getPort());
-            messages
-                .forEach(Throwing.consumer(message -> invoker.learnAsHam(message, username)));
-        }
+    public Mono<Void> learnSpam(List<? extends Message> messages, Username username) {
+        return invoker.map(spamAssassin -> Flux.fromIterable(messages)
+                .flatMap(message -> Mono.fromCallable(message::getFullContent)
+                    .flatMap(content -> spamAssassin.learnAsSpam(content, message.getFullContentOctets(), username)))
+                .then())
+            .orElse(Mono.empty());
+    }
+
+    public Mono<Void> learnHam(List<? extends Message> messages, Username username) {
+        return invoker.map(spamAssassin -> Flux.fromIterable(messages)
+                .flatMap(message -> Mono.fromCallable(message::getFullContent)
+                    .flatMap(content -> spamAssassin.learnAsHam(content, message.getFullContentOctets(), username)))
+                .then())
+            .orElse(Mono.empty());
+    }
+
+    @PreDestroy
+    public void dispose() {
+        invoker.ifPresent(ReactiveSpamAssassinInvoker::dispose);
     }
 }
@@ -18,7 +18,6 @@
  ****************************************************************/
 package org.apache.james.mailbox.spamassassin;
 
-import java.io.InputStream;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -31,6 +30,7 @@ import org.apache.james.mailbox.Role;
 import org.apache.james.mailbox.SystemMailboxesProvider;
 import org.apache.james.mailbox.events.Event;
 import org.apache.james.mailbox.events.Group;
+import org.apache.james.mailbox.events.MailboxListener;
 import org.apache.james.mailbox.events.MessageMoveEvent;
 import org.apache.james.mailbox.exception.MailboxException;
 import org.apache.james.mailbox.model.Mailbox;
@@ -40,17 +40,19 @@ import org.apache.james.mailbox.store.MailboxSessionMapperFactory;
 import org.apache.james.mailbox.store.event.SpamEventListener;
 import org.apache.james.mailbox.store.mail.MessageMapper;
 import org.apache.james.mailbox.store.mail.model.MailboxMessage;
-import org.apache.james.mailbox.store.mail.model.Message;
 import org.apache.james.util.streams.Iterators;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.github.fge.lambdas.Throwing;
 import com.github.steveash.guavate.Guavate;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 
-public class SpamAssassinListener implements SpamEventListener {
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+public class SpamAssassinListener implements SpamEventListener, MailboxListener.ReactiveGroupMailboxListener {
     public static class SpamAssassinListenerGroup extends Group {
 
     }
@@ -90,42 +92,47 @@ public class SpamAssassinListener implements SpamEventListener {
     }
 
     @Override
-    public void event(Event event) throws MailboxException {
+    public Publisher<Void> reactiveEvent(Event event) {
         Username username = Username.of(getClass().getCanonicalName());
         if (event instanceof MessageMoveEvent) {
             MailboxSession session = mailboxManager.createSystemSession(username);
-            handleMessageMove(event, session, (MessageMoveEvent) event);
+            return handleMessageMove(event, session, (MessageMoveEvent) event);
         }
         if (event instanceof Added) {
             MailboxSession session = mailboxManager.createSystemSession(username);
-            handleAdded(event, session, (Added) event);
+            return handleAdded(event, session, (Added) event);
         }
+        return Mono.empty();
     }
 
-    private void handleAdded(Event event, MailboxSession session, Added addedEvent) {
+    private Mono<Void> handleAdded(Event event, MailboxSession session, Added addedEvent) {
         if (isAppendedToInbox(addedEvent)) {
-            Mailbox mailbox = mapperFactory.getMailboxMapper(session).findMailboxById(addedEvent.getMailboxId()).block();
-            MessageMapper messageMapper = mapperFactory.getMessageMapper(session);
-
-            List<InputStream> contents = MessageRange.toRanges(addedEvent.getUids())
-                .stream()
-                .flatMap(range -> retrieveMessages(messageMapper, mailbox, range))
-                .map(Throwing.function(MailboxMessage::getFullContent))
-                .collect(Guavate.toImmutableList());
-            spamAssassin.learnHam(contents, event.getUsername());
+            return mapperFactory.getMailboxMapper(session).findMailboxById(addedEvent.getMailboxId())
+                .flatMap(mailbox -> Mono.fromCallable(() -> retrieveMessages(mapperFactory.getMessageMapper(session), mailbox, addedEvent))
+                    .subscribeOn(Schedulers.elastic()))
+                .flatMap(messages -> spamAssassin.learnHam(messages, event.getUsername()));
         }
+        return Mono.empty();
     }
 
-    private void handleMessageMove(Event event, MailboxSession session, MessageMoveEvent messageMoveEvent) {
+    private Mono<Void> handleMessageMove(Event event, MailboxSession session, MessageMoveEvent messageMoveEvent) {
         if (isMessageMovedToSpamMailbox(messageMoveEvent)) {
             LOGGER.debug("Spam event detected");
-            ImmutableList<InputStream> messages = retrieveMessages(messageMoveEvent, session);
-            spamAssassin.learnSpam(messages, event.getUsername());
+            return retrieveMessages(messageMoveEvent, session)
+                .flatMap(messages -> spamAssassin.learnSpam(messages, event.getUsername()));
         }
         if (isMessageMovedOutOfSpamMailbox(messageMoveEvent)) {
-            ImmutableList<InputStream> messages = retrieveMessages(messageMoveEvent, session);
-            spamAssassin.learnHam(messages, event.getUsername());
+            return retrieveMessages(messageMoveEvent, session)
+                .flatMap(messages -> spamAssassin.learnHam(messages, event.getUsername()));
         }
+        return Mono.empty();
+    }
+
+    private ImmutableList<MailboxMessage> retrieveMessages(MessageMapper messageMapper, Mailbox mailbox, Added addedEvent) {
+        return MessageRange.toRanges(addedEvent.getUids())
+            .stream()
+            .flatMap(range -> retrieveMessages(messageMapper, mailbox, range))
+            .collect(Guavate.toImmutableList());
     }
 
     private Stream<MailboxMessage> retrieveMessages(MessageMapper messageMapper, Mailbox mailbox, MessageRange range) {
@@ -147,12 +154,10 @@ public class SpamAssassinListener implements SpamEventListener {
         }
     }
 
-    private ImmutableList<InputStream> retrieveMessages(MessageMoveEvent messageMoveEvent, MailboxSession session) {
-        return mapperFactory.getMessageIdMapper(session)
-            .find(messageMoveEvent.getMessageIds(), MessageMapper.FetchType.Full)
-            .stream()
-            .map(Throwing.function(Message::getFullContent))
-            .collect(Guavate.toImmutableList());
+    private Mono<List<MailboxMessage>> retrieveMessages(MessageMoveEvent messageMoveEvent, MailboxSession session) {
+        return Mono.fromCallable(() -> mapperFactory.getMessageIdMapper(session)
+                .find(messageMoveEvent.getMessageIds(), MessageMapper.FetchType.Full))
+            .subscribeOn(Schedulers.elastic());
     }
 
     @VisibleForTesting
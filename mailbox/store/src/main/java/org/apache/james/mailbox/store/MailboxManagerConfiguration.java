@@ -33,16 +33,26 @@ public class MailboxManagerConfiguration {
     }
 
     private final BatchSizes batchSizes;
+    private final MessageContentBuffering contentBuffering;
 
-    @Inject
     public MailboxManagerConfiguration(BatchSizes batchSizes) {
+        this(batchSizes, MessageContentBuffering.DEFAULT);
+    }
+
+    @Inject
+    public MailboxManagerConfiguration(BatchSizes batchSizes, MessageContentBuffering contentBuffering) {
         this.batchSizes = batchSizes;
+        this.contentBuffering = contentBuffering;
     }
 
     public BatchSizes getBatchSizes() {
         return batchSizes;
     }
 
+    public MessageContentBuffering getContentBuffering() {
+        return contentBuffering;
+    }
+
     public MessageBatcher getCopyBatcher() {
         return new MessageBatcher(batchSizes.getCopyBatchSize().orElse(MessageBatcher.NO_BATCH_SIZE));
     }
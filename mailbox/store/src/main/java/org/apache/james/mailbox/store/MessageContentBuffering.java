@@ -0,0 +1,132 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+
+package org.apache.james.mailbox.store;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+
+import javax.inject.Inject;
+import javax.mail.internet.SharedInputStream;
+import javax.mail.util.SharedByteArrayInputStream;
+import javax.mail.util.SharedFileInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.apache.james.metrics.api.MetricFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Holds the content of messages being appended.
+ *
+ * Messages smaller than the threshold are kept on the heap, bigger ones are spilled to a temporary file. The
+ * number of messages kept in memory and spilled to disk are reported as metrics.
+ */
+public class MessageContentBuffering {
+    public static final int DEFAULT_IN_MEMORY_THRESHOLD = 100 * 1024;
+    public static final MessageContentBuffering DEFAULT = new MessageContentBuffering(DEFAULT_IN_MEMORY_THRESHOLD, Optional.empty());
+
+    static final String IN_MEMORY_METRIC_NAME = "mailboxAppendInMemory";
+    static final String SPILLED_TO_DISK_METRIC_NAME = "mailboxAppendSpilledToDisk";
+    private static final String TEMPORARY_FILE_PREFIX = "imap";
+    private static final String TEMPORARY_FILE_SUFFIX = ".msg";
+
+    /**
+     * The content of a single message. Closing it releases the underlying temporary file, if any.
+     */
+    public class Buffer implements Closeable {
+        private final DeferredFileOutputStream outputStream;
+        private Optional<SharedFileInputStream> fileContent;
+
+        private Buffer() {
+            this.outputStream = new DeferredFileOutputStream(threshold, TEMPORARY_FILE_PREFIX, TEMPORARY_FILE_SUFFIX, null);
+            this.fileContent = Optional.empty();
+        }
+
+        public OutputStream getOutputStream() {
+            return outputStream;
+        }
+
+        /**
+         * Ends the writes and gives access to what was written.
+         */
+        public SharedInputStream getContent() throws IOException {
+            outputStream.close();
+            if (outputStream.isInMemory()) {
+                metricFactory.ifPresent(factory -> factory.generate(IN_MEMORY_METRIC_NAME).increment());
+                return new SharedByteArrayInputStream(outputStream.getData());
+            }
+            metricFactory.ifPresent(factory -> factory.generate(SPILLED_TO_DISK_METRIC_NAME).increment());
+            SharedFileInputStream content = new SharedFileInputStream(outputStream.getFile());
+            fileContent = Optional.of(content);
+            return content;
+        }
+
+        public long getSize() {
+            return outputStream.getByteCount();
+        }
+
+        public boolean isInMemory() {
+            return outputStream.isInMemory();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                outputStream.close();
+                if (fileContent.isPresent()) {
+                    fileContent.get().close();
+                }
+            } finally {
+                File file = outputStream.getFile();
+                if (file != null) {
+                    // The message could be appended, the temporary file will hopefully be deleted some day
+                    FileUtils.deleteQuietly(file);
+                }
+            }
+        }
+    }
+
+    private final int threshold;
+    private final Optional<MetricFactory> metricFactory;
+
+    @Inject
+    public MessageContentBuffering(MetricFactory metricFactory) {
+        this(DEFAULT_IN_MEMORY_THRESHOLD, metricFactory);
+    }
+
+    public MessageContentBuffering(int threshold, MetricFactory metricFactory) {
+        this(threshold, Optional.of(metricFactory));
+    }
+
+    private MessageContentBuffering(int threshold, Optional<MetricFactory> metricFactory) {
+        Preconditions.checkArgument(threshold >= 0, "'threshold' needs to be positive");
+        this.threshold = threshold;
+        this.metricFactory = metricFactory;
+    }
+
+    public Buffer newBuffer() {
+        return new Buffer();
+    }
+}
@@ -19,6 +19,8 @@
 
 package org.apache.james.mailbox.store;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -33,25 +35,27 @@ import org.apache.james.mailbox.model.Mailbox;
 import org.apache.james.mailbox.model.MessageAttachmentMetadata;
 import org.apache.james.mailbox.model.MessageId;
 import org.apache.james.mailbox.model.MessageMetaData;
-import org.apache.james.mailbox.model.ParsedAttachment;
 import org.apache.james.mailbox.store.mail.AttachmentMapperFactory;
 import org.apache.james.mailbox.store.mail.MessageMapper;
 import org.apache.james.mailbox.store.mail.model.MailboxMessage;
 import org.apache.james.mailbox.store.mail.model.impl.MessageParser;
-import org.apache.james.mailbox.store.mail.model.impl.PropertyBuilder;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
 
 public interface MessageStorer {
     /**
-     * If supported by the underlying implementation, this method will parse the messageContent to retrieve associated
-     * attachments and will store them.
+     * Analyses the message content in a single pass. Attachments are only retrieved if supported by the underlying
+     * implementation.
+     */
+    MessageParser.ParsingResult parse(InputStream messageContent) throws IOException;
+
+    /**
+     * If supported by the underlying implementation, this method will store the attachments retrieved by
+     * {@link #parse(InputStream)}.
      *
      * Otherwize an empty optional will be returned on the right side of the pair.
      */
-    Pair<MessageMetaData, Optional<List<MessageAttachmentMetadata>>> appendMessageToStore(Mailbox mailbox, Date internalDate, int size, int bodyStartOctet, SharedInputStream content, Flags flags, PropertyBuilder propertyBuilder, MailboxSession session) throws MailboxException;
+    Pair<MessageMetaData, Optional<List<MessageAttachmentMetadata>>> appendMessageToStore(Mailbox mailbox, Date internalDate, int size, int bodyStartOctet, SharedInputStream content, Flags flags, MessageParser.ParsingResult parsingResult, MailboxSession session) throws MailboxException;
 
     /**
      * MessageStorer parsing, storing and returning AttachmentMetadata
@@ -59,10 +63,6 @@ public interface MessageStorer {
      * To be used with implementation that supports attachment content storage
      */
     class WithAttachment implements MessageStorer {
-        private static final Logger LOGGER = LoggerFactory.getLogger(WithAttachment.class);
-        private static final int START = 0;
-        private static final int UNLIMITED = -1;
-
         private final MailboxSessionMapperFactory mapperFactory;
         private final MessageId.Factory messageIdFactory;
         private final MessageFactory messageFactory;
@@ -80,40 +80,32 @@ public interface MessageStorer {
         }
 
         @Override
-        public Pair<MessageMetaData, Optional<List<MessageAttachmentMetadata>>> appendMessageToStore(Mailbox mailbox, Date internalDate, int size, int bodyStartOctet, SharedInputStream content, Flags flags, PropertyBuilder propertyBuilder, MailboxSession session) throws MailboxException {
+        public MessageParser.ParsingResult parse(InputStream messageContent) throws IOException {
+            return messageParser.parse(messageContent, MessageParser.RETRIEVE_ATTACHMENTS);
+        }
+
+        @Override
+        public Pair<MessageMetaData, Optional<List<MessageAttachmentMetadata>>> appendMessageToStore(Mailbox mailbox, Date internalDate, int size, int bodyStartOctet, SharedInputStream content, Flags flags, MessageParser.ParsingResult parsingResult, MailboxSession session) throws MailboxException {
             MessageMapper messageMapper = mapperFactory.getMessageMapper(session);
             MessageId messageId = messageIdFactory.generate();
 
             return mapperFactory.getMessageMapper(session).execute(() -> {
-                List<MessageAttachmentMetadata> attachments = storeAttachments(messageId, content, session);
-                MailboxMessage message = messageFactory.createMessage(messageId, mailbox, internalDate, size, bodyStartOctet, content, flags, propertyBuilder, attachments);
+                List<MessageAttachmentMetadata> attachments = attachmentMapperFactory.getAttachmentMapper(session)
+                    .storeAttachmentsForMessage(parsingResult.getAttachments(), messageId);
+                MailboxMessage message = messageFactory.createMessage(messageId, mailbox, internalDate, size, bodyStartOctet, content, flags, parsingResult.getPropertyBuilder(), attachments);
                 MessageMetaData metadata = messageMapper.add(mailbox, message);
                 return Pair.of(metadata, Optional.of(attachments));
             });
         }
-
-        private List<MessageAttachmentMetadata> storeAttachments(MessageId messageId, SharedInputStream messageContent, MailboxSession session) throws MailboxException {
-            List<ParsedAttachment> attachments = extractAttachments(messageContent);
-            return attachmentMapperFactory.getAttachmentMapper(session)
-                .storeAttachmentsForMessage(attachments, messageId);
-        }
-
-        private List<ParsedAttachment> extractAttachments(SharedInputStream contentIn) {
-            try {
-                return messageParser.retrieveAttachments(contentIn.newStream(START, UNLIMITED));
-            } catch (Exception e) {
-                LOGGER.warn("Error while parsing mail's attachments: {}", e.getMessage(), e);
-                return ImmutableList.of();
-            }
-        }
     }
 
     /**
-     * MessageStorer that does not parse, store, nor return Attachment metadata
+     * MessageStorer that does not retrieve, store, nor return Attachment metadata
      *
      * To be used when the underlying implementation does not support attachment storage.
      */
     class WithoutAttachment implements MessageStorer {
+        private final MessageParser messageParser = new MessageParser();
         private final MailboxSessionMapperFactory mapperFactory;
         private final MessageId.Factory messageIdFactory;
         private final MessageFactory messageFactory;
@@ -125,12 +117,17 @@ public interface MessageStorer {
         }
 
         @Override
-        public Pair<MessageMetaData, Optional<List<MessageAttachmentMetadata>>> appendMessageToStore(Mailbox mailbox, Date internalDate, int size, int bodyStartOctet, SharedInputStream content, Flags flags, PropertyBuilder propertyBuilder, MailboxSession session) throws MailboxException {
+        public MessageParser.ParsingResult parse(InputStream messageContent) throws IOException {
+            return messageParser.parse(messageContent, MessageParser.SKIP_ATTACHMENTS);
+        }
+
+        @Override
+        public Pair<MessageMetaData, Optional<List<MessageAttachmentMetadata>>> appendMessageToStore(Mailbox mailbox, Date internalDate, int size, int bodyStartOctet, SharedInputStream content, Flags flags, MessageParser.ParsingResult parsingResult, MailboxSession session) throws MailboxException {
             MessageMapper messageMapper = mapperFactory.getMessageMapper(session);
             MessageId messageId = messageIdFactory.generate();
 
             return mapperFactory.getMessageMapper(session).execute(() -> {
-                MailboxMessage message = messageFactory.createMessage(messageId, mailbox, internalDate, size, bodyStartOctet, content, flags, propertyBuilder, ImmutableList.of());
+                MailboxMessage message = messageFactory.createMessage(messageId, mailbox, internalDate, size, bodyStartOctet, content, flags, parsingResult.getPropertyBuilder(), ImmutableList.of());
                 MessageMetaData metadata = messageMapper.add(mailbox, message);
                 return Pair.of(metadata, Optional.empty());
             });
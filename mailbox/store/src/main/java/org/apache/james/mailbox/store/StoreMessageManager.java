@@ -24,9 +24,6 @@ import static org.apache.james.mailbox.store.mail.AbstractMessageMapper.UNLIMITE
 import static org.apache.james.util.ReactorUtils.DEFAULT_CONCURRENCY;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -41,7 +38,7 @@ import java.util.TreeMap;
 
 import javax.mail.Flags;
 import javax.mail.Flags.Flag;
-import javax.mail.util.SharedFileInputStream;
+import javax.mail.internet.SharedInputStream;
 
 import org.apache.commons.io.input.TeeInputStream;
 import org.apache.commons.lang3.tuple.Pair;
@@ -82,23 +79,16 @@ import org.apache.james.mailbox.store.event.EventFactory;
 import org.apache.james.mailbox.store.mail.MessageMapper;
 import org.apache.james.mailbox.store.mail.MessageMapper.FetchType;
 import org.apache.james.mailbox.store.mail.model.MailboxMessage;
-import org.apache.james.mailbox.store.mail.model.impl.PropertyBuilder;
+import org.apache.james.mailbox.store.mail.model.impl.MessageParser;
 import org.apache.james.mailbox.store.quota.QuotaChecker;
 import org.apache.james.mailbox.store.search.MessageSearchIndex;
-import org.apache.james.mailbox.store.streaming.CountingInputStream;
-import org.apache.james.mime4j.MimeException;
-import org.apache.james.mime4j.message.DefaultBodyDescriptorBuilder;
-import org.apache.james.mime4j.message.HeaderImpl;
-import org.apache.james.mime4j.message.MaximalBodyDescriptor;
-import org.apache.james.mime4j.stream.EntityState;
-import org.apache.james.mime4j.stream.MimeConfig;
-import org.apache.james.mime4j.stream.MimeTokenStream;
-import org.apache.james.mime4j.stream.RecursionMode;
 import org.apache.james.util.IteratorWrapper;
 import org.apache.james.util.io.BodyOffsetInputStream;
 import org.apache.james.util.io.InputStreamConsummer;
 import org.apache.james.util.streams.Iterators;
 import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.github.steveash.guavate.Guavate;
 import com.google.common.collect.ImmutableList;
@@ -126,16 +116,8 @@ public class StoreMessageManager implements MessageManager {
      */
     protected static final Flags MINIMAL_PERMANET_FLAGS;
     private static final SearchQuery LIST_ALL_QUERY = SearchQuery.of(SearchQuery.all());
-
-    private static class MediaType {
-        final String mediaType;
-        final String subType;
-
-        private MediaType(String mediaType, String subType) {
-            this.mediaType = mediaType;
-            this.subType = subType;
-        }
-    }
+    private static final Logger LOGGER = LoggerFactory.getLogger(StoreMessageManager.class);
+    private static final MessageParser FALLBACK_PARSER = new MessageParser();
 
     static {
         MINIMAL_PERMANET_FLAGS = new Flags();
@@ -158,12 +140,14 @@ public class StoreMessageManager implements MessageManager {
     private final BatchSizes batchSizes;
     private final PreDeletionHooks preDeletionHooks;
     private final MessageStorer messageStorer;
+    private final MessageContentBuffering contentBuffering;
 
     public StoreMessageManager(EnumSet<MessageCapabilities> messageCapabilities, MailboxSessionMapperFactory mapperFactory,
                                MessageSearchIndex index, EventBus eventBus,
                                MailboxPathLocker locker, Mailbox mailbox,
                                QuotaManager quotaManager, QuotaRootResolver quotaRootResolver, BatchSizes batchSizes,
-                               StoreRightManager storeRightManager, PreDeletionHooks preDeletionHooks, MessageStorer messageStorer) {
+                               StoreRightManager storeRightManager, PreDeletionHooks preDeletionHooks, MessageStorer messageStorer,
+                               MessageContentBuffering contentBuffering) {
         this.messageCapabilities = messageCapabilities;
         this.eventBus = eventBus;
         this.mailbox = mailbox;
@@ -176,6 +160,7 @@ public class StoreMessageManager implements MessageManager {
         this.storeRightManager = storeRightManager;
         this.preDeletionHooks = preDeletionHooks;
         this.messageStorer = messageStorer;
+        this.contentBuffering = contentBuffering;
     }
 
     /**
@@ -308,82 +293,51 @@ public class StoreMessageManager implements MessageManager {
 
     @Override
     public AppendResult appendMessage(InputStream msgIn, Date internalDate, final MailboxSession mailboxSession, boolean isRecent, Flags flagsToBeSet) throws MailboxException {
-        File file = null;
-
         if (!isWriteable(mailboxSession)) {
             throw new ReadOnlyException(getMailboxPath());
         }
 
-        try {
-            // Create a temporary file and copy the message to it. We will work
-            // with the file as
-            // source for the InputStream
-            file = File.createTempFile("imap", ".msg");
-            try (FileOutputStream out = new FileOutputStream(file);
-                 BufferedOutputStream bufferedOut = new BufferedOutputStream(out);
-                 BufferedInputStream tmpMsgIn = new BufferedInputStream(new TeeInputStream(msgIn, bufferedOut));
+        // Copy the message to a buffer, kept in memory for small messages or backed by a temporary file. We will
+        // work with the buffer as source for the InputStream
+        try (MessageContentBuffering.Buffer buffer = contentBuffering.newBuffer()) {
+            try (BufferedInputStream tmpMsgIn = new BufferedInputStream(new TeeInputStream(msgIn, buffer.getOutputStream()));
                  BodyOffsetInputStream bIn = new BodyOffsetInputStream(tmpMsgIn)) {
-                // Disable line length... This should be handled by the smtp server
-                // component and not the parser itself
-                // https://issues.apache.org/jira/browse/IMAP-122
-                final MimeTokenStream parser = getParser(bIn);
-                readHeader(parser);
-                final MaximalBodyDescriptor descriptor = (MaximalBodyDescriptor) parser.getBodyDescriptor();
-                final MediaType mediaType = getMediaType(descriptor);
-                final PropertyBuilder propertyBuilder = getPropertyBuilder(descriptor, mediaType.mediaType, mediaType.subType);
-                setTextualLinesCount(parser, mediaType.mediaType, propertyBuilder);
+                // The message is analysed (structure and attachments) while being copied to the buffer
+                final Optional<MessageParser.ParsingResult> singlePassResult = parse(bIn);
                 final Flags flags = getFlags(mailboxSession, isRecent, flagsToBeSet);
 
                 if (internalDate == null) {
                     internalDate = new Date();
                 }
-                InputStreamConsummer.consume(tmpMsgIn);
-                bufferedOut.flush();
+                InputStreamConsummer.consume(bIn);
                 int bodyStartOctet = getBodyStartOctet(bIn);
-                return createAndDispatchMessage(internalDate, mailboxSession, file, propertyBuilder, flags, bodyStartOctet);
+                SharedInputStream content = buffer.getContent();
+                MessageParser.ParsingResult parsingResult = singlePassResult.isPresent() ? singlePassResult.get() : parseWithoutAttachments(content);
+                return createAndDispatchMessage(internalDate, mailboxSession, content, (int) buffer.getSize(), parsingResult, flags, bodyStartOctet);
             }
-        } catch (IOException | MimeException e) {
+        } catch (IOException e) {
             throw new MailboxException("Unable to parse message", e);
-        } finally {
-            // delete the temporary file if one was specified
-            if (file != null) {
-                if (!file.delete()) {
-                    // Don't throw an IOException. The message could be appended
-                    // and the temporary file
-                    // will be deleted hopefully some day
-                }
-            }
         }
     }
 
-    private MimeTokenStream getParser(BodyOffsetInputStream bIn) {
-        final MimeTokenStream parser = new MimeTokenStream(MimeConfig.PERMISSIVE, new DefaultBodyDescriptorBuilder());
-
-        parser.setRecursionMode(RecursionMode.M_NO_RECURSE);
-        parser.parse(bIn);
-        return parser;
-    }
-
-    private MediaType getMediaType(MaximalBodyDescriptor descriptor) {
-        final String mediaTypeFromHeader = descriptor.getMediaType();
-        if (mediaTypeFromHeader == null) {
-            return new MediaType("text", "plain");
-        } else {
-            return new MediaType(mediaTypeFromHeader, descriptor.getSubType());
+    /**
+     * A malformed message (reported as a {@link org.apache.james.mime4j.MimeIOException}), or any other parsing
+     * failure, results in the message being stored without attachments. The remaining content is still copied to
+     * the buffer by the caller, which fails if the underlying stream can not be read.
+     */
+    private Optional<MessageParser.ParsingResult> parse(InputStream content) {
+        try {
+            return Optional.of(messageStorer.parse(content));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Error while parsing mail's attachments: {}", e.getMessage(), e);
+            return Optional.empty();
         }
     }
 
-    private HeaderImpl readHeader(MimeTokenStream parser) throws IOException, MimeException {
-        final HeaderImpl header = new HeaderImpl();
-
-        EntityState next = parser.next();
-        while (next != EntityState.T_BODY && next != EntityState.T_END_OF_STREAM && next != EntityState.T_START_MULTIPART) {
-            if (next == EntityState.T_FIELD) {
-                header.addField(parser.getField());
-            }
-            next = parser.next();
+    private MessageParser.ParsingResult parseWithoutAttachments(SharedInputStream content) throws IOException {
+        try (InputStream contentStream = content.newStream(0, -1)) {
+            return FALLBACK_PARSER.parse(contentStream, MessageParser.SKIP_ATTACHMENTS);
         }
-        return header;
     }
 
     private Flags getFlags(MailboxSession mailboxSession, boolean isRecent, Flags flagsToBeSet) {
@@ -403,25 +357,6 @@ public class StoreMessageManager implements MessageManager {
         return flags;
     }
 
-    private void setTextualLinesCount(MimeTokenStream parser, String mediaType, PropertyBuilder propertyBuilder) throws IOException, MimeException {
-        EntityState next;
-        if ("text".equalsIgnoreCase(mediaType)) {
-            final CountingInputStream bodyStream = new CountingInputStream(parser.getInputStream());
-            bodyStream.readAll();
-            long lines = bodyStream.getLineCount();
-            bodyStream.close();
-            next = parser.next();
-            if (next == EntityState.T_EPILOGUE) {
-                final CountingInputStream epilogueStream = new CountingInputStream(parser.getInputStream());
-                epilogueStream.readAll();
-                lines += epilogueStream.getLineCount();
-                epilogueStream.close();
-
-            }
-            propertyBuilder.setTextualLineCount(lines);
-        }
-    }
-
     private int getBodyStartOctet(BodyOffsetInputStream bIn) {
         int bodyStartOctet = (int) bIn.getBodyStartOffset();
         if (bodyStartOctet == -1) {
@@ -430,55 +365,27 @@ public class StoreMessageManager implements MessageManager {
         return bodyStartOctet;
     }
 
-    private AppendResult createAndDispatchMessage(Date internalDate, MailboxSession mailboxSession, File file, PropertyBuilder propertyBuilder, Flags flags, int bodyStartOctet) throws IOException, MailboxException {
-        try (SharedFileInputStream contentIn = new SharedFileInputStream(file)) {
-            final int size = (int) file.length();
-            new QuotaChecker(quotaManager, quotaRootResolver, mailbox).tryAddition(1, size);
-
-            return locker.executeWithLock(getMailboxPath(), () -> {
-                Pair<MessageMetaData, Optional<List<MessageAttachmentMetadata>>> data = messageStorer.appendMessageToStore(mailbox, internalDate, size, bodyStartOctet, contentIn, flags, propertyBuilder, mailboxSession);
-
-                Mailbox mailbox = getMailboxEntity();
-
-                eventBus.dispatch(EventFactory.added()
-                        .randomEventId()
-                        .mailboxSession(mailboxSession)
-                        .mailbox(mailbox)
-                        .addMetaData(data.getLeft())
-                        .build(),
-                        new MailboxIdRegistrationKey(mailbox.getMailboxId()))
-                    .subscribeOn(Schedulers.elastic())
-                    .block();
-                MessageMetaData messageMetaData = data.getLeft();
-                ComposedMessageId ids = new ComposedMessageId(mailbox.getMailboxId(), messageMetaData.getMessageId(), messageMetaData.getUid());
-                return new AppendResult(ids, messageMetaData.getSize(), data.getRight());
-            }, MailboxPathLocker.LockType.Write);
-        }
-    }
+    private AppendResult createAndDispatchMessage(Date internalDate, MailboxSession mailboxSession, SharedInputStream contentIn, int size, MessageParser.ParsingResult parsingResult, Flags flags, int bodyStartOctet) throws MailboxException {
+        new QuotaChecker(quotaManager, quotaRootResolver, mailbox).tryAddition(1, size);
 
-    private PropertyBuilder getPropertyBuilder(MaximalBodyDescriptor descriptor, String mediaType, String subType) {
-        final PropertyBuilder propertyBuilder = new PropertyBuilder();
-        propertyBuilder.setMediaType(mediaType);
-        propertyBuilder.setSubType(subType);
-        propertyBuilder.setContentID(descriptor.getContentId());
-        propertyBuilder.setContentDescription(descriptor.getContentDescription());
-        propertyBuilder.setContentLocation(descriptor.getContentLocation());
-        propertyBuilder.setContentMD5(descriptor.getContentMD5Raw());
-        propertyBuilder.setContentTransferEncoding(descriptor.getTransferEncoding());
-        propertyBuilder.setContentLanguage(descriptor.getContentLanguage());
-        propertyBuilder.setContentDispositionType(descriptor.getContentDispositionType());
-        propertyBuilder.setContentDispositionParameters(descriptor.getContentDispositionParameters());
-        propertyBuilder.setContentTypeParameters(descriptor.getContentTypeParameters());
-        // Add missing types
-        final String codeset = descriptor.getCharset();
-        if (codeset == null) {
-            if ("TEXT".equalsIgnoreCase(mediaType)) {
-                propertyBuilder.setCharset("us-ascii");
-            }
-        } else {
-            propertyBuilder.setCharset(codeset);
-        }
-        return propertyBuilder;
+        return locker.executeWithLock(getMailboxPath(), () -> {
+            Pair<MessageMetaData, Optional<List<MessageAttachmentMetadata>>> data = messageStorer.appendMessageToStore(mailbox, internalDate, size, bodyStartOctet, contentIn, flags, parsingResult, mailboxSession);
+
+            Mailbox mailbox = getMailboxEntity();
+
+            eventBus.dispatch(EventFactory.added()
+                    .randomEventId()
+                    .mailboxSession(mailboxSession)
+                    .mailbox(mailbox)
+                    .addMetaData(data.getLeft())
+                    .build(),
+                    new MailboxIdRegistrationKey(mailbox.getMailboxId()))
+                .subscribeOn(Schedulers.elastic())
+                .block();
+            MessageMetaData messageMetaData = data.getLeft();
+            ComposedMessageId ids = new ComposedMessageId(mailbox.getMailboxId(), messageMetaData.getMessageId(), messageMetaData.getUid());
+            return new AppendResult(ids, messageMetaData.getSize(), data.getRight());
+        }, MailboxPathLocker.LockType.Write);
     }
 
     @Override
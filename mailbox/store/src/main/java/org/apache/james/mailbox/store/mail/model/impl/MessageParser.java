@@ -17,44 +17,81 @@
  * under the License.                                           *
  ****************************************************************/
 
+
 package org.apache.james.mailbox.store.mail.model.impl;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.function.Predicate;
-import java.util.stream.Stream;
 
 import org.apache.james.mailbox.model.Cid;
 import org.apache.james.mailbox.model.ContentType;
 import org.apache.james.mailbox.model.ParsedAttachment;
+import org.apache.james.mailbox.store.streaming.CountingInputStream;
+import org.apache.james.mime4j.MimeException;
+import org.apache.james.mime4j.MimeIOException;
+import org.apache.james.mime4j.codec.Base64InputStream;
 import org.apache.james.mime4j.codec.DecodeMonitor;
-import org.apache.james.mime4j.dom.Body;
-import org.apache.james.mime4j.dom.Entity;
-import org.apache.james.mime4j.dom.Message;
-import org.apache.james.mime4j.dom.Multipart;
+import org.apache.james.mime4j.codec.QuotedPrintableInputStream;
+import org.apache.james.mime4j.dom.FieldParser;
 import org.apache.james.mime4j.dom.field.ContentDispositionField;
 import org.apache.james.mime4j.dom.field.ContentIdField;
 import org.apache.james.mime4j.dom.field.ContentTypeField;
 import org.apache.james.mime4j.dom.field.ParsedField;
-import org.apache.james.mime4j.message.DefaultMessageBuilder;
-import org.apache.james.mime4j.message.DefaultMessageWriter;
+import org.apache.james.mime4j.field.LenientFieldParser;
+import org.apache.james.mime4j.message.DefaultBodyDescriptorBuilder;
+import org.apache.james.mime4j.message.MaximalBodyDescriptor;
+import org.apache.james.mime4j.stream.EntityState;
 import org.apache.james.mime4j.stream.Field;
 import org.apache.james.mime4j.stream.MimeConfig;
+import org.apache.james.mime4j.stream.MimeTokenStream;
+import org.apache.james.mime4j.stream.RecursionMode;
 import org.apache.james.mime4j.util.MimeUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.github.steveash.guavate.Guavate;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 
+/**
+ * Analyses a message in a single streaming pass: the structure of the top level entity (used to build the
+ * {@link PropertyBuilder}) and the attachments are retrieved without building a DOM of the message.
+ *
+ * Preview and indexable text are not produced by this pass. The preview projection and the search index compute
+ * them from the stored message when handling the append event, and thus still parse it again.
+ */
 public class MessageParser {
 
+    public static class ParsingResult {
+        private final PropertyBuilder propertyBuilder;
+        private final List<ParsedAttachment> attachments;
+
+        ParsingResult(PropertyBuilder propertyBuilder, List<ParsedAttachment> attachments) {
+            this.propertyBuilder = propertyBuilder;
+            this.attachments = attachments;
+        }
+
+        public PropertyBuilder getPropertyBuilder() {
+            return propertyBuilder;
+        }
+
+        public List<ParsedAttachment> getAttachments() {
+            return attachments;
+        }
+    }
+
+    public static final boolean RETRIEVE_ATTACHMENTS = true;
+    public static final boolean SKIP_ATTACHMENTS = false;
+
     private static final String TEXT_MEDIA_TYPE = "text";
+    private static final String PLAIN_SUB_TYPE = "plain";
+    private static final String DEFAULT_TEXT_CHARSET = "us-ascii";
     private static final String CONTENT_TYPE = "Content-Type";
     private static final String CONTENT_ID = "Content-ID";
     private static final String CONTENT_DISPOSITION = "Content-Disposition";
@@ -67,6 +104,7 @@ public class MessageParser {
         "application/pgp-signature",
         "message/disposition-notification",
         TEXT_CALENDAR);
+    private static final FieldParser<ParsedField> FIELD_PARSER = LenientFieldParser.getParser();
     private static final Logger LOGGER = LoggerFactory.getLogger(MessageParser.class);
 
     private final Cid.CidParser cidParser;
@@ -78,88 +116,188 @@ public class MessageParser {
     }
 
     public List<ParsedAttachment> retrieveAttachments(InputStream fullContent) throws IOException {
-        DefaultMessageBuilder defaultMessageBuilder = new DefaultMessageBuilder();
-        defaultMessageBuilder.setMimeEntityConfig(MimeConfig.PERMISSIVE);
-        defaultMessageBuilder.setDecodeMonitor(DecodeMonitor.SILENT);
-        Message message = defaultMessageBuilder.parseMessage(fullContent);
-        Body body = message.getBody();
+        return parse(fullContent, RETRIEVE_ATTACHMENTS).getAttachments();
+    }
+
+    /**
+     * Reads the whole message.
+     *
+     * @param retrieveAttachments when false, attachments are skipped and the returned attachment list is empty
+     */
+    public ParsingResult parse(InputStream fullContent, boolean retrieveAttachments) throws IOException {
         try {
-            if (isAttachment(message, Context.BODY)) {
-                return ImmutableList.of(retrieveAttachment(message));
+            return new Parsing(fullContent, retrieveAttachments).parse();
+        } catch (MimeException e) {
+            throw new MimeIOException(e);
+        }
+    }
+
+    private class Parsing {
+        private final MimeTokenStream stream;
+        private final boolean retrieveAttachments;
+        private final Deque<Context> contexts;
+        private final ImmutableList.Builder<ParsedAttachment> attachments;
+        private PartHeaders headers;
+        private PropertyBuilder propertyBuilder;
+
+        Parsing(InputStream fullContent, boolean retrieveAttachments) {
+            this.stream = new MimeTokenStream(MimeConfig.PERMISSIVE, new DefaultBodyDescriptorBuilder());
+            this.retrieveAttachments = retrieveAttachments;
+            this.contexts = new ArrayDeque<>();
+            this.attachments = ImmutableList.builder();
+            this.headers = new PartHeaders();
+            // message/rfc822 parts are handled as leaves
+            stream.setRecursionMode(RecursionMode.M_NO_RECURSE);
+            stream.parse(fullContent);
+        }
+
+        ParsingResult parse() throws IOException, MimeException {
+            for (EntityState state = stream.next(); state != EntityState.T_END_OF_STREAM; state = stream.next()) {
+                switch (state) {
+                    case T_START_HEADER:
+                        headers = new PartHeaders();
+                        break;
+                    case T_FIELD:
+                        headers.add(stream.getField());
+                        break;
+                    case T_END_HEADER:
+                        if (isTopLevel() && isAttachment(headers, Context.BODY)) {
+                            // The whole body is the attachment, even when it is a multipart
+                            stream.setRecursionMode(RecursionMode.M_FLAT);
+                        }
+                        break;
+                    case T_START_MULTIPART:
+                        MaximalBodyDescriptor multipartDescriptor = (MaximalBodyDescriptor) stream.getBodyDescriptor();
+                        if (isTopLevel()) {
+                            propertyBuilder = propertyBuilder(multipartDescriptor);
+                        }
+                        contexts.push(Context.fromSubType(multipartDescriptor.getSubType()));
+                        break;
+                    case T_END_MULTIPART:
+                        contexts.pop();
+                        break;
+                    case T_BODY:
+                        onBody();
+                        break;
+                    default:
+                        break;
+                }
             }
+            return new ParsingResult(propertyBuilder, attachments.build());
+        }
 
-            if (body instanceof Multipart) {
-                Multipart multipartBody = (Multipart) body;
-                return listAttachments(multipartBody, Context.fromSubType(multipartBody.getSubType()))
-                    .collect(Guavate.toImmutableList());
-            } else {
-                return ImmutableList.of();
+        private boolean isTopLevel() {
+            return propertyBuilder == null;
+        }
+
+        private void onBody() throws IOException {
+            if (isTopLevel()) {
+                MaximalBodyDescriptor descriptor = (MaximalBodyDescriptor) stream.getBodyDescriptor();
+                propertyBuilder = propertyBuilder(descriptor);
+                onTopLevelBody(descriptor);
+            } else if (isAttachment(headers, contexts.peek())) {
+                retrieveAttachment(headers, stream.getDecodedInputStream());
             }
-        } finally {
-            body.dispose();
         }
-    }
 
-    private Stream<ParsedAttachment> listAttachments(Multipart multipart, Context context) {
-        return multipart.getBodyParts()
-            .stream()
-            .flatMap(entity -> listAttachments(entity, context));
-    }
+        private void onTopLevelBody(MaximalBodyDescriptor descriptor) throws IOException {
+            boolean isAttachment = isAttachment(headers, Context.BODY);
+            if (!TEXT_MEDIA_TYPE.equalsIgnoreCase(mediaType(descriptor))) {
+                if (isAttachment) {
+                    retrieveAttachment(headers, stream.getDecodedInputStream());
+                }
+                return;
+            }
+            if (!isAttachment) {
+                propertyBuilder.setTextualLineCount(countLines(stream.getInputStream()));
+                return;
+            }
+            // The raw content is needed for counting lines, and the decoded one for the attachment
+            byte[] rawContent = stream.getInputStream().readAllBytes();
+            propertyBuilder.setTextualLineCount(countLines(new ByteArrayInputStream(rawContent)));
+            retrieveAttachment(headers, decode(new ByteArrayInputStream(rawContent), descriptor.getTransferEncoding()));
+        }
 
-    private Stream<ParsedAttachment> listAttachments(Entity entity, Context context) {
-        if (isMultipart(entity)) {
-            return listAttachments((Multipart) entity.getBody(), Context.fromEntity(entity));
+        private boolean isAttachment(PartHeaders headers, Context context) {
+            return retrieveAttachments && MessageParser.this.isAttachment(headers, context);
         }
-        if (isAttachment(entity, context)) {
+
+        private void retrieveAttachment(PartHeaders headers, InputStream content) throws IOException {
             try {
-                return Stream.of(retrieveAttachment(entity));
-            } catch (IllegalStateException e) {
+                attachments.add(MessageParser.this.retrieveAttachment(headers, content));
+            } catch (RuntimeException e) {
                 LOGGER.warn("The attachment is not well-formed", e);
-            } catch (IOException e) {
-                LOGGER.warn("There is an error when retrieving attachment", e);
             }
         }
-        return Stream.empty();
     }
 
-    private ParsedAttachment retrieveAttachment(Entity entity) throws IOException {
-        Optional<ContentTypeField> contentTypeField = getContentTypeField(entity);
-        Optional<ContentDispositionField> contentDispositionField = getContentDispositionField(entity);
+    private long countLines(InputStream rawContent) throws IOException {
+        CountingInputStream countingInputStream = new CountingInputStream(rawContent);
+        countingInputStream.readAll();
+        countingInputStream.close();
+        return countingInputStream.getLineCount();
+    }
+
+    private InputStream decode(InputStream rawContent, String transferEncoding) {
+        if (MimeUtil.isBase64Encoding(transferEncoding)) {
+            return new Base64InputStream(rawContent, DecodeMonitor.SILENT);
+        }
+        if (MimeUtil.isQuotedPrintableEncoded(transferEncoding)) {
+            return new QuotedPrintableInputStream(rawContent, DecodeMonitor.SILENT);
+        }
+        return rawContent;
+    }
+
+    private String mediaType(MaximalBodyDescriptor descriptor) {
+        return Optional.ofNullable(descriptor.getMediaType()).orElse(TEXT_MEDIA_TYPE);
+    }
+
+    private PropertyBuilder propertyBuilder(MaximalBodyDescriptor descriptor) {
+        PropertyBuilder propertyBuilder = new PropertyBuilder();
+        String mediaType = mediaType(descriptor);
+        propertyBuilder.setMediaType(mediaType);
+        propertyBuilder.setSubType(Optional.ofNullable(descriptor.getMediaType())
+            .map(any -> descriptor.getSubType())
+            .orElse(PLAIN_SUB_TYPE));
+        propertyBuilder.setContentID(descriptor.getContentId());
+        propertyBuilder.setContentDescription(descriptor.getContentDescription());
+        propertyBuilder.setContentLocation(descriptor.getContentLocation());
+        propertyBuilder.setContentMD5(descriptor.getContentMD5Raw());
+        propertyBuilder.setContentTransferEncoding(descriptor.getTransferEncoding());
+        propertyBuilder.setContentLanguage(descriptor.getContentLanguage());
+        propertyBuilder.setContentDispositionType(descriptor.getContentDispositionType());
+        propertyBuilder.setContentDispositionParameters(descriptor.getContentDispositionParameters());
+        propertyBuilder.setContentTypeParameters(descriptor.getContentTypeParameters());
+        // Add missing types
+        String codeset = descriptor.getCharset();
+        if (codeset == null) {
+            if (TEXT_MEDIA_TYPE.equalsIgnoreCase(mediaType)) {
+                propertyBuilder.setCharset(DEFAULT_TEXT_CHARSET);
+            }
+        } else {
+            propertyBuilder.setCharset(codeset);
+        }
+        return propertyBuilder;
+    }
+
+    private ParsedAttachment retrieveAttachment(PartHeaders headers, InputStream content) throws IOException {
+        Optional<ContentTypeField> contentTypeField = headers.contentType();
+        Optional<ContentDispositionField> contentDispositionField = headers.contentDisposition();
         Optional<ContentType> contentType = contentTypeField.map(ContentTypeField::getBody)
             .filter(Predicate.not(Strings::isNullOrEmpty))
             .map(ContentType::of);
         Optional<String> name = name(contentTypeField, contentDispositionField);
-        Optional<Cid> cid = cid(readHeader(entity, CONTENT_ID, ContentIdField.class));
-        boolean isInline = isInline(readHeader(entity, CONTENT_DISPOSITION, ContentDispositionField.class)) && cid.isPresent();
+        Optional<Cid> cid = cid(headers.contentId());
+        boolean isInline = isInline(contentDispositionField) && cid.isPresent();
 
         return ParsedAttachment.builder()
                 .contentType(contentType.orElse(DEFAULT_CONTENT_TYPE))
-                .content(getContent(entity.getBody()))
+                .content(content.readAllBytes())
                 .name(name)
                 .cid(cid)
                 .inline(isInline);
     }
 
-    private <T extends ParsedField> Optional<T> readHeader(Entity entity, String headerName, Class<T> clazz) {
-        return castField(entity.getHeader().getField(headerName), clazz);
-    }
-
-    private Optional<ContentTypeField> getContentTypeField(Entity entity) {
-        return castField(entity.getHeader().getField(CONTENT_TYPE), ContentTypeField.class);
-    }
-
-    private Optional<ContentDispositionField> getContentDispositionField(Entity entity) {
-        return castField(entity.getHeader().getField(CONTENT_DISPOSITION), ContentDispositionField.class);
-    }
-
-    @SuppressWarnings("unchecked")
-    private <U extends ParsedField> Optional<U> castField(Field field, Class<U> clazz) {
-        if (field == null || !clazz.isInstance(field)) {
-            return Optional.empty();
-        }
-        return Optional.of((U) field);
-    }
-
     private Optional<String> name(Optional<ContentTypeField> contentTypeField, Optional<ContentDispositionField> contentDispositionField) {
         return contentTypeField
             .flatMap(field -> Optional.ofNullable(field.getParameter("name")))
@@ -172,55 +310,89 @@ public class MessageParser {
             .flatMap(cidParser::parse);
     }
 
-    private boolean isMultipart(Entity entity) {
-        return entity.isMultipart() && entity.getBody() instanceof Multipart;
-    }
-
     private boolean isInline(Optional<ContentDispositionField> contentDispositionField) {
         return contentDispositionField.map(ContentDispositionField::isInline)
             .orElse(false);
     }
 
-    private boolean isAttachment(Entity part, Context context) {
+    private boolean isAttachment(PartHeaders part, Context context) {
         if (context == Context.BODY && isTextPart(part)) {
             return false;
         }
         return attachmentDispositionCriterion(part) || attachmentContentTypeCriterion(part) || hadCID(part);
     }
 
-    private boolean isTextPart(Entity part) {
-        return getContentTypeField(part)
+    private boolean isTextPart(PartHeaders part) {
+        return part.contentType()
             .filter(header -> !ATTACHMENT_CONTENT_TYPES.contains(header.getMimeType()))
             .map(ContentTypeField::getMediaType)
             .map(TEXT_MEDIA_TYPE::equals)
             .orElse(false);
     }
 
-    private boolean attachmentContentTypeCriterion(Entity part) {
-        return getContentTypeField(part)
+    private boolean attachmentContentTypeCriterion(PartHeaders part) {
+        return part.contentType()
             .map(ContentTypeField::getMimeType)
             .map(dispositionType -> dispositionType.toLowerCase(Locale.US))
             .map(ATTACHMENT_CONTENT_TYPES::contains)
             .orElse(false);
     }
 
-    private boolean attachmentDispositionCriterion(Entity part) {
-        return getContentDispositionField(part)
+    private boolean attachmentDispositionCriterion(PartHeaders part) {
+        return part.contentDisposition()
             .map(ContentDispositionField::getDispositionType)
             .map(dispositionType -> dispositionType.toLowerCase(Locale.US))
             .map(ATTACHMENT_CONTENT_DISPOSITIONS::contains)
             .orElse(false);
     }
 
-    private boolean hadCID(Entity part) {
-        return readHeader(part, CONTENT_ID, ContentIdField.class).isPresent();
+    private boolean hadCID(PartHeaders part) {
+        return part.contentId().isPresent();
     }
 
-    private byte[] getContent(Body body) throws IOException {
-        DefaultMessageWriter messageWriter = new DefaultMessageWriter();
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        messageWriter.writeBody(body, out);
-        return out.toByteArray();
+    /**
+     * The headers of a MIME entity that are relevant for attachment detection. Like in a mime4j DOM, the first
+     * occurrence of each header wins.
+     */
+    private static class PartHeaders {
+        private Field contentType;
+        private Field contentDisposition;
+        private Field contentId;
+
+        void add(Field field) {
+            String name = field.getName();
+            if (contentType == null && CONTENT_TYPE.equalsIgnoreCase(name)) {
+                contentType = field;
+            } else if (contentDisposition == null && CONTENT_DISPOSITION.equalsIgnoreCase(name)) {
+                contentDisposition = field;
+            } else if (contentId == null && CONTENT_ID.equalsIgnoreCase(name)) {
+                contentId = field;
+            }
+        }
+
+        Optional<ContentTypeField> contentType() {
+            return parse(contentType, ContentTypeField.class);
+        }
+
+        Optional<ContentDispositionField> contentDisposition() {
+            return parse(contentDisposition, ContentDispositionField.class);
+        }
+
+        Optional<ContentIdField> contentId() {
+            return parse(contentId, ContentIdField.class);
+        }
+
+        @SuppressWarnings("unchecked")
+        private <U extends ParsedField> Optional<U> parse(Field field, Class<U> clazz) {
+            if (field == null) {
+                return Optional.empty();
+            }
+            ParsedField parsedField = FIELD_PARSER.parse(field, DecodeMonitor.SILENT);
+            if (!clazz.isInstance(parsedField)) {
+                return Optional.empty();
+            }
+            return Optional.of((U) parsedField);
+        }
     }
 
     private enum Context {
@@ -228,14 +400,6 @@ public class MessageParser {
         OTHER;
 
         private static final String ALTERNATIVE_SUB_TYPE = "alternative";
-        private static final String MULTIPART_ALTERNATIVE = "multipart/" + ALTERNATIVE_SUB_TYPE;
-
-        public static Context fromEntity(Entity entity) {
-            if (isMultipartAlternative(entity)) {
-                return BODY;
-            }
-            return OTHER;
-        }
 
         public static Context fromSubType(String subPart) {
             if (isAlternative(subPart)) {
@@ -244,13 +408,8 @@ public class MessageParser {
             return OTHER;
         }
 
-        private static boolean isMultipartAlternative(Entity entity) {
-            return entity.getMimeType().equalsIgnoreCase(MULTIPART_ALTERNATIVE);
-        }
-
         private static boolean isAlternative(String subPart) {
-            return subPart.equalsIgnoreCase(ALTERNATIVE_SUB_TYPE);
+            return ALTERNATIVE_SUB_TYPE.equalsIgnoreCase(subPart);
         }
-
     }
 }
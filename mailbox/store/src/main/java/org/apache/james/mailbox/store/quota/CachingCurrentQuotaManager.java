@@ -0,0 +1,117 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+
+package org.apache.james.mailbox.store.quota;
+
+import java.time.Duration;
+
+import org.apache.james.core.quota.QuotaCountUsage;
+import org.apache.james.core.quota.QuotaSizeUsage;
+import org.apache.james.mailbox.events.Event;
+import org.apache.james.mailbox.events.MailboxListener;
+import org.apache.james.mailbox.model.CurrentQuotas;
+import org.apache.james.mailbox.model.QuotaOperation;
+import org.apache.james.mailbox.model.QuotaRoot;
+import org.apache.james.mailbox.quota.CurrentQuotaManager;
+import org.reactivestreams.Publisher;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link CurrentQuotaManager} decorator keeping the current usage of each {@link QuotaRoot} in memory.
+ *
+ * Local updates evict the entry, while the usage carried by {@link QuotaUsageUpdatedEvent} - aggregated by the node
+ * that applied the update - refreshes it. Entries expire after the reconciliation delay so that the cached usage
+ * is periodically read again from the underlying storage.
+ */
+public class CachingCurrentQuotaManager implements CurrentQuotaManager, MailboxListener.ReactiveMailboxListener {
+    public static final Duration DEFAULT_RECONCILIATION_DELAY = Duration.ofMinutes(1);
+    public static final long DEFAULT_MAXIMUM_SIZE = 100_000L;
+
+    private final CurrentQuotaManager delegate;
+    private final Cache<QuotaRoot, CurrentQuotas> cache;
+
+    public CachingCurrentQuotaManager(CurrentQuotaManager delegate) {
+        this(delegate, DEFAULT_RECONCILIATION_DELAY, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public CachingCurrentQuotaManager(CurrentQuotaManager delegate, Duration reconciliationDelay, long maximumSize) {
+        this.delegate = delegate;
+        this.cache = CacheBuilder.newBuilder()
+            .expireAfterWrite(reconciliationDelay)
+            .maximumSize(maximumSize)
+            .build();
+    }
+
+    @Override
+    public Publisher<QuotaCountUsage> getCurrentMessageCount(QuotaRoot quotaRoot) {
+        return Mono.from(getCurrentQuotas(quotaRoot))
+            .map(CurrentQuotas::count);
+    }
+
+    @Override
+    public Publisher<QuotaSizeUsage> getCurrentStorage(QuotaRoot quotaRoot) {
+        return Mono.from(getCurrentQuotas(quotaRoot))
+            .map(CurrentQuotas::size);
+    }
+
+    @Override
+    public Publisher<CurrentQuotas> getCurrentQuotas(QuotaRoot quotaRoot) {
+        return Mono.justOrEmpty(cache.getIfPresent(quotaRoot))
+            .switchIfEmpty(Mono.from(delegate.getCurrentQuotas(quotaRoot))
+                .doOnNext(currentQuotas -> cache.put(quotaRoot, currentQuotas)));
+    }
+
+    @Override
+    public Publisher<Void> increase(QuotaOperation quotaOperation) {
+        return Mono.from(delegate.increase(quotaOperation))
+            .doFinally(any -> cache.invalidate(quotaOperation.quotaRoot()));
+    }
+
+    @Override
+    public Publisher<Void> decrease(QuotaOperation quotaOperation) {
+        return Mono.from(delegate.decrease(quotaOperation))
+            .doFinally(any -> cache.invalidate(quotaOperation.quotaRoot()));
+    }
+
+    @Override
+    public Publisher<Void> setCurrentQuotas(QuotaOperation quotaOperation) {
+        return Mono.from(delegate.setCurrentQuotas(quotaOperation))
+            .doFinally(any -> cache.invalidate(quotaOperation.quotaRoot()));
+    }
+
+    @Override
+    public boolean isHandling(Event event) {
+        return event instanceof QuotaUsageUpdatedEvent;
+    }
+
+    @Override
+    public Publisher<Void> reactiveEvent(Event event) {
+        if (event instanceof QuotaUsageUpdatedEvent) {
+            QuotaUsageUpdatedEvent quotaUsageUpdatedEvent = (QuotaUsageUpdatedEvent) event;
+            return Mono.fromRunnable(() -> cache.put(quotaUsageUpdatedEvent.getQuotaRoot(),
+                new CurrentQuotas(quotaUsageUpdatedEvent.getCountQuota().getUsed(), quotaUsageUpdatedEvent.getSizeQuota().getUsed())));
+        }
+        return Mono.empty();
+    }
+}
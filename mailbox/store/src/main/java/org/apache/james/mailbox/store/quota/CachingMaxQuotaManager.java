@@ -0,0 +1,218 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+
+package org.apache.james.mailbox.store.quota;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.james.core.Domain;
+import org.apache.james.core.Username;
+import org.apache.james.core.quota.QuotaCountLimit;
+import org.apache.james.core.quota.QuotaSizeLimit;
+import org.apache.james.mailbox.events.Event;
+import org.apache.james.mailbox.events.EventBus;
+import org.apache.james.mailbox.events.MailboxListener;
+import org.apache.james.mailbox.events.QuotaCacheRegistrationKey;
+import org.apache.james.mailbox.exception.MailboxException;
+import org.apache.james.mailbox.model.Quota;
+import org.apache.james.mailbox.model.QuotaRoot;
+import org.apache.james.mailbox.quota.MaxQuotaManager;
+import org.reactivestreams.Publisher;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link MaxQuotaManager} decorator caching the limits resolved for each {@link QuotaRoot}.
+ *
+ * Limits are read on every append and every delivery while they seldom change: resolving them from the cache
+ * avoids several lookups per message. Updates are applied locally then broadcasted on the
+ * {@link QuotaCacheRegistrationKey} so that every node evicts the stale entries. Entries also expire after a
+ * bounded delay, which caps the staleness should an invalidation be missed.
+ */
+public class CachingMaxQuotaManager implements MaxQuotaManager, MailboxListener.ReactiveMailboxListener {
+    public static final Duration DEFAULT_EXPIRATION = Duration.ofMinutes(1);
+    public static final long DEFAULT_MAXIMUM_SIZE = 100_000L;
+    @VisibleForTesting
+    static final Username QUOTA_ADMINISTRATOR = Username.of("quota-administrator");
+
+    private final MaxQuotaManager delegate;
+    private final EventBus eventBus;
+    private final Cache<QuotaRoot, QuotaDetails> cache;
+
+    public CachingMaxQuotaManager(MaxQuotaManager delegate, EventBus eventBus) {
+        this(delegate, eventBus, DEFAULT_EXPIRATION, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public CachingMaxQuotaManager(MaxQuotaManager delegate, EventBus eventBus, Duration expiration, long maximumSize) {
+        this.delegate = delegate;
+        this.eventBus = eventBus;
+        this.cache = CacheBuilder.newBuilder()
+            .expireAfterWrite(expiration)
+            .maximumSize(maximumSize)
+            .build();
+    }
+
+    @Override
+    public QuotaDetails quotaDetails(QuotaRoot quotaRoot) {
+        QuotaDetails cached = cache.getIfPresent(quotaRoot);
+        if (cached != null) {
+            return cached;
+        }
+        QuotaDetails quotaDetails = delegate.quotaDetails(quotaRoot);
+        cache.put(quotaRoot, quotaDetails);
+        return quotaDetails;
+    }
+
+    @Override
+    public Map<Quota.Scope, QuotaCountLimit> listMaxMessagesDetails(QuotaRoot quotaRoot) {
+        return quotaDetails(quotaRoot).getMaxMessageDetails();
+    }
+
+    @Override
+    public Map<Quota.Scope, QuotaSizeLimit> listMaxStorageDetails(QuotaRoot quotaRoot) {
+        return quotaDetails(quotaRoot).getMaxStorageDetails();
+    }
+
+    @Override
+    public void setMaxStorage(QuotaRoot quotaRoot, QuotaSizeLimit maxStorageQuota) throws MailboxException {
+        delegate.setMaxStorage(quotaRoot, maxStorageQuota);
+        invalidate(Optional.of(quotaRoot), Optional.empty());
+    }
+
+    @Override
+    public void setMaxMessage(QuotaRoot quotaRoot, QuotaCountLimit maxMessageCount) throws MailboxException {
+        delegate.setMaxMessage(quotaRoot, maxMessageCount);
+        invalidate(Optional.of(quotaRoot), Optional.empty());
+    }
+
+    @Override
+    public void removeMaxMessage(QuotaRoot quotaRoot) throws MailboxException {
+        delegate.removeMaxMessage(quotaRoot);
+        invalidate(Optional.of(quotaRoot), Optional.empty());
+    }
+
+    @Override
+    public void removeMaxStorage(QuotaRoot quotaRoot) throws MailboxException {
+        delegate.removeMaxStorage(quotaRoot);
+        invalidate(Optional.of(quotaRoot), Optional.empty());
+    }
+
+    @Override
+    public void setGlobalMaxStorage(QuotaSizeLimit globalMaxStorage) throws MailboxException {
+        delegate.setGlobalMaxStorage(globalMaxStorage);
+        invalidate(Optional.empty(), Optional.empty());
+    }
+
+    @Override
+    public void removeGlobalMaxStorage() throws MailboxException {
+        delegate.removeGlobalMaxStorage();
+        invalidate(Optional.empty(), Optional.empty());
+    }
+
+    @Override
+    public void setGlobalMaxMessage(QuotaCountLimit globalMaxMessageCount) throws MailboxException {
+        delegate.setGlobalMaxMessage(globalMaxMessageCount);
+        invalidate(Optional.empty(), Optional.empty());
+    }
+
+    @Override
+    public void removeGlobalMaxMessage() throws MailboxException {
+        delegate.removeGlobalMaxMessage();
+        invalidate(Optional.empty(), Optional.empty());
+    }
+
+    @Override
+    public Optional<QuotaSizeLimit> getGlobalMaxStorage() throws MailboxException {
+        return delegate.getGlobalMaxStorage();
+    }
+
+    @Override
+    public Optional<QuotaCountLimit> getGlobalMaxMessage() throws MailboxException {
+        return delegate.getGlobalMaxMessage();
+    }
+
+    @Override
+    public Optional<QuotaCountLimit> getDomainMaxMessage(Domain domain) {
+        return delegate.getDomainMaxMessage(domain);
+    }
+
+    @Override
+    public void setDomainMaxMessage(Domain domain, QuotaCountLimit count) throws MailboxException {
+        delegate.setDomainMaxMessage(domain, count);
+        invalidate(Optional.empty(), Optional.of(domain));
+    }
+
+    @Override
+    public void removeDomainMaxMessage(Domain domain) throws MailboxException {
+        delegate.removeDomainMaxMessage(domain);
+        invalidate(Optional.empty(), Optional.of(domain));
+    }
+
+    @Override
+    public void setDomainMaxStorage(Domain domain, QuotaSizeLimit size) throws MailboxException {
+        delegate.setDomainMaxStorage(domain, size);
+        invalidate(Optional.empty(), Optional.of(domain));
+    }
+
+    @Override
+    public Optional<QuotaSizeLimit> getDomainMaxStorage(Domain domain) {
+        return delegate.getDomainMaxStorage(domain);
+    }
+
+    @Override
+    public void removeDomainMaxStorage(Domain domain) throws MailboxException {
+        delegate.removeDomainMaxStorage(domain);
+        invalidate(Optional.empty(), Optional.of(domain));
+    }
+
+    @Override
+    public boolean isHandling(Event event) {
+        return event instanceof QuotaLimitsUpdatedEvent;
+    }
+
+    @Override
+    public Publisher<Void> reactiveEvent(Event event) {
+        if (event instanceof QuotaLimitsUpdatedEvent) {
+            return Mono.fromRunnable(() -> evict((QuotaLimitsUpdatedEvent) event));
+        }
+        return Mono.empty();
+    }
+
+    private void invalidate(Optional<QuotaRoot> quotaRoot, Optional<Domain> domain) {
+        QuotaLimitsUpdatedEvent event = new QuotaLimitsUpdatedEvent(Event.EventId.random(), QUOTA_ADMINISTRATOR, quotaRoot, domain);
+        evict(event);
+        eventBus.dispatch(event, ImmutableSet.of(QuotaCacheRegistrationKey.INSTANCE)).block();
+    }
+
+    private void evict(QuotaLimitsUpdatedEvent event) {
+        if (event.getQuotaRoot().isPresent()) {
+            cache.invalidate(event.getQuotaRoot().get());
+        } else {
+            cache.asMap().keySet().removeIf(event::concerns);
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.apache.james.mailbox.events.Event;
 import org.apache.james.mailbox.events.EventBus;
 import org.apache.james.mailbox.events.Group;
 import org.apache.james.mailbox.events.MailboxListener;
+import org.apache.james.mailbox.events.QuotaCacheRegistrationKey;
 import org.apache.james.mailbox.events.RegistrationKey;
 import org.apache.james.mailbox.model.QuotaOperation;
 import org.apache.james.mailbox.model.QuotaRoot;
@@ -49,7 +50,7 @@ public class ListeningCurrentQuotaUpdater implements MailboxListener.ReactiveGro
     }
 
     public static final Group GROUP = new ListeningCurrentQuotaUpdaterGroup();
-    private static final ImmutableSet<RegistrationKey> NO_REGISTRATION_KEYS = ImmutableSet.of();
+    private static final ImmutableSet<RegistrationKey> QUOTA_CACHE_KEYS = ImmutableSet.of(QuotaCacheRegistrationKey.INSTANCE);
 
     private final CurrentQuotaManager currentQuotaManager;
     private final QuotaRootResolver quotaRootResolver;
@@ -118,7 +119,7 @@ public class ListeningCurrentQuotaUpdater implements MailboxListener.ReactiveGro
                     .quotaSize(quotas.getStorageQuota())
                     .instant(Instant.now())
                     .build(),
-                NO_REGISTRATION_KEYS));
+                QUOTA_CACHE_KEYS));
     }
 
     private Mono<QuotaOperation> computeQuotaOperation(MetaDataHoldingEvent metaDataHoldingEvent, QuotaRoot quotaRoot) {
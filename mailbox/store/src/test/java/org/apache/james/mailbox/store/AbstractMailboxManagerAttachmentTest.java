@@ -23,6 +23,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
@@ -186,6 +187,30 @@ public abstract class AbstractMailboxManagerAttachmentTest {
         assertThat(messages.next().getAttachments()).hasSize(1);
     }
 
+    @Test
+    void appendMessageShouldStoreMalformedMail() throws Exception {
+        String mail = "Subject: Malformed\r\n" +
+            "Content-Type: multipart/mixed; boundary=\"boundary\"\r\n" +
+            "\r\n" +
+            "--boundary\r\n" +
+            "Content-Type: text/plain\r\n" +
+            "\r\n" +
+            "Body\r\n" +
+            "--boundary\r\n" +
+            "Content-Type: application/octet-stream\r\n" +
+            "Content-Disposition: attachment; filename=\"truncated.bin\"\r\n" +
+            "Content-Transfer-Encoding: base64\r\n" +
+            "\r\n" +
+            "not*base64%content\r\n";
+        inboxMessageManager.appendMessage(MessageManager.AppendCommand.builder()
+            .build(new ByteArrayInputStream(mail.getBytes(StandardCharsets.UTF_8))), mailboxSession);
+
+        Iterator<MailboxMessage> messages = messageMapper.findInMailbox(inbox, MessageRange.all(), FetchType.Full, 1);
+        assertThat(messages.hasNext()).isTrue();
+        assertThat(messages.next().getFullContent())
+            .hasSameContentAs(new ByteArrayInputStream(mail.getBytes(StandardCharsets.UTF_8)));
+    }
+
     @Test
     void appendMessageShouldNotStoreAnyAttachmentWhenUnparsableMail() throws Exception {
         MailboxManager parseFailingMailboxManager = getParseFailingMailboxManager();
@@ -0,0 +1,108 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+
+package org.apache.james.mailbox.store;
+
+import static org.apache.james.mailbox.store.MessageContentBuffering.IN_MEMORY_METRIC_NAME;
+import static org.apache.james.mailbox.store.MessageContentBuffering.SPILLED_TO_DISK_METRIC_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.mail.internet.SharedInputStream;
+
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Strings;
+
+class MessageContentBufferingTest {
+    private static final int THRESHOLD = 16;
+    private static final byte[] SMALL_CONTENT = "small".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BIG_CONTENT = Strings.repeat("big ", 10).getBytes(StandardCharsets.US_ASCII);
+
+    RecordingMetricFactory metricFactory;
+    MessageContentBuffering testee;
+
+    @BeforeEach
+    void setUp() {
+        metricFactory = new RecordingMetricFactory();
+        testee = new MessageContentBuffering(THRESHOLD, metricFactory);
+    }
+
+    @Test
+    void smallContentShouldBeKeptInMemory() throws Exception {
+        try (MessageContentBuffering.Buffer buffer = testee.newBuffer()) {
+            buffer.getOutputStream().write(SMALL_CONTENT);
+
+            assertThat(readAll((InputStream) buffer.getContent())).isEqualTo(SMALL_CONTENT);
+            assertThat(buffer.isInMemory()).isTrue();
+            assertThat(buffer.getSize()).isEqualTo(SMALL_CONTENT.length);
+        }
+    }
+
+    @Test
+    void bigContentShouldBeSpilledToDisk() throws Exception {
+        try (MessageContentBuffering.Buffer buffer = testee.newBuffer()) {
+            buffer.getOutputStream().write(BIG_CONTENT);
+
+            assertThat(readAll((InputStream) buffer.getContent())).isEqualTo(BIG_CONTENT);
+            assertThat(buffer.isInMemory()).isFalse();
+            assertThat(buffer.getSize()).isEqualTo(BIG_CONTENT.length);
+        }
+    }
+
+    @Test
+    void contentShouldSupportSubStreams() throws Exception {
+        try (MessageContentBuffering.Buffer buffer = testee.newBuffer()) {
+            buffer.getOutputStream().write(BIG_CONTENT);
+
+            SharedInputStream content = buffer.getContent();
+            assertThat(readAll(content.newStream(4, 8))).isEqualTo("big ".getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    void metricsShouldCountSpilledAndInMemoryMessages() throws Exception {
+        try (MessageContentBuffering.Buffer buffer = testee.newBuffer()) {
+            buffer.getOutputStream().write(SMALL_CONTENT);
+            buffer.getContent();
+        }
+        try (MessageContentBuffering.Buffer buffer = testee.newBuffer()) {
+            buffer.getOutputStream().write(BIG_CONTENT);
+            buffer.getContent();
+        }
+        try (MessageContentBuffering.Buffer buffer = testee.newBuffer()) {
+            buffer.getOutputStream().write(BIG_CONTENT);
+            buffer.getContent();
+        }
+
+        assertThat(metricFactory.countFor(IN_MEMORY_METRIC_NAME)).isEqualTo(1);
+        assertThat(metricFactory.countFor(SPILLED_TO_DISK_METRIC_NAME)).isEqualTo(2);
+    }
+
+    private byte[] readAll(InputStream content) throws Exception {
+        try (content) {
+            return content.readAllBytes();
+        }
+    }
+}
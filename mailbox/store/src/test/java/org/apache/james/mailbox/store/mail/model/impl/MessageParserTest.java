@@ -22,6 +22,7 @@ package org.apache.james.mailbox.store.mail.model.impl;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
@@ -336,4 +337,54 @@ class MessageParserTest {
         assertThat(result).hasSize(1)
             .allMatch(attachment -> attachment.getContentType().equals(ContentType.of("message/disposition-notification; charset=UTF-8")));
     }
+
+    @Test
+    void parseShouldDefaultToTextPlainWhenNoContentType() throws Exception {
+        MessageParser.ParsingResult result = testee.parse(new ByteArrayInputStream(
+            "Subject: test\r\n\r\nline 1\r\nline 2\r\nline 3\r\n".getBytes(StandardCharsets.US_ASCII)),
+            MessageParser.RETRIEVE_ATTACHMENTS);
+
+        Properties properties = result.getPropertyBuilder().build();
+        assertThat(properties.getMediaType()).isEqualTo("text");
+        assertThat(properties.getSubType()).isEqualTo("plain");
+        assertThat(properties.getTextualLineCount()).isEqualTo(3L);
+    }
+
+    @Test
+    void parseShouldReturnTheTopLevelStructureOfMultipartMessages() throws Exception {
+        MessageParser.ParsingResult result = testee.parse(
+            ClassLoader.getSystemResourceAsStream("eml/oneAttachmentAndSomeTextInlined.eml"),
+            MessageParser.RETRIEVE_ATTACHMENTS);
+
+        assertThat(result.getPropertyBuilder().build().getMediaType()).isEqualTo("multipart");
+        assertThat(result.getPropertyBuilder().build().getSubType()).isEqualTo("mixed");
+        assertThat(result.getPropertyBuilder().getTextualLineCount()).isNull();
+        assertThat(result.getAttachments()).hasSize(1);
+    }
+
+    @Test
+    void parseShouldCountLinesOfTextAttachmentsAtTopLevel() throws Exception {
+        MessageParser.ParsingResult result = testee.parse(new ByteArrayInputStream((
+                "Content-Type: text/calendar; charset=utf-8\r\n" +
+                "Content-Transfer-Encoding: base64\r\n" +
+                "\r\n" +
+                "QkVHSU46VkNBTEVOREFS\r\n" +
+                "RU5EOlZDQUxFTkRBUg==\r\n").getBytes(StandardCharsets.US_ASCII)),
+            MessageParser.RETRIEVE_ATTACHMENTS);
+
+        assertThat(result.getPropertyBuilder().getTextualLineCount()).isEqualTo(2L);
+        assertThat(result.getAttachments()).hasSize(1)
+            .extracting(ParsedAttachment::getContent)
+            .containsExactly("BEGIN:VCALENDAREND:VCALENDAR".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void parseShouldNotRetrieveAttachmentsWhenSkipped() throws Exception {
+        MessageParser.ParsingResult result = testee.parse(
+            ClassLoader.getSystemResourceAsStream("eml/oneAttachmentAndSomeTextInlined.eml"),
+            MessageParser.SKIP_ATTACHMENTS);
+
+        assertThat(result.getPropertyBuilder().build().getMediaType()).isEqualTo("multipart");
+        assertThat(result.getAttachments()).isEmpty();
+    }
 }
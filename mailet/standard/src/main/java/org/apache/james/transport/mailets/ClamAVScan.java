@@ -20,11 +20,12 @@
 
 package org.apache.james.transport.mailets;
 
-import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -32,14 +33,22 @@ import java.net.ConnectException;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
-import java.util.HashSet;
+import java.time.Duration;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.mail.MessagingException;
+import javax.mail.Multipart;
+import javax.mail.Part;
 import javax.mail.internet.MimeMessage;
 
 import org.apache.james.core.MailAddress;
+import org.apache.james.transport.mailets.clamav.ClamdClient;
+import org.apache.james.transport.mailets.clamav.ClamdVerdict;
+import org.apache.james.transport.mailets.clamav.VerdictCache;
 import org.apache.mailet.Attribute;
 import org.apache.mailet.AttributeName;
 import org.apache.mailet.AttributeValue;
@@ -50,14 +59,22 @@ import org.apache.mailet.base.RFC2822Headers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.io.FileBackedOutputStream;
 
 
 /**
  * <P>Does an antivirus scan check using a ClamAV daemon (CLAMD)</P>
  * <p/>
- * <P> Interacts directly with the daemon using the "stream" method,
- * which should have the lowest possible overhead.</P>
+ * <P> Interacts directly with the daemon using the "INSTREAM" command within clamd
+ * sessions, which should have the lowest possible overhead: the content to scan is sent on
+ * the same connection, and connections are kept open to be reused by following scans.</P>
+ * <P>The raw message is streamed to clamd. Optionally, each MIME part of the message can be scanned separately
+ * instead: verdicts are then remembered by content hash and clamd signature version, hence the same attachment
+ * received many times, for instance within mass mailings, is only sent once to clamd.</P>
  * <P>The CLAMD daemon will typically reside on <I>localhost</I>, but could reside on a
  * different host.
  * It may also consist on a set of multiple daemons, each residing on a different
@@ -83,8 +100,16 @@ import com.google.common.collect.ImmutableSet;
  * <LI><CODE>&lt;pingIntervalMilli&gt;</CODE>: the interval (in milliseconds)
  * between each connection retry during startup.
  * The default is <I>30000</I> (30 seconds).</LI>
- * <LI><CODE>&lt;streamBufferSize&gt;</CODE>: the BufferedOutputStream buffer size to use
- * writing to the <I>stream connection</I>. The default is <I>8192</I>.</LI>
+ * <LI><CODE>&lt;streamBufferSize&gt;</CODE>: the size of the chunks used to stream the content
+ * to scan. The default is <I>8192</I>.</LI>
+ * <LI><CODE>&lt;maxIdleConnections&gt;</CODE>: the maximum number of idle CLAMD connections kept
+ * open for later scans. The default is <I>8</I>.</LI>
+ * <LI><CODE>&lt;scanParts&gt;</CODE>: if <I>true</I>, scans each leaf MIME part on its own rather than the raw message,
+ * so that verdicts can be remembered. Messages whose MIME structure can not be parsed are scanned raw.
+ * The default is <I>false</I>.</LI>
+ * <LI><CODE>&lt;verdictCacheSize&gt;</CODE>: the maximum number of part verdicts remembered by content hash
+ * when <CODE>&lt;scanParts&gt;</CODE> is enabled.
+ * <I>0</I> disables the cache. The default is <I>10000</I>.</LI>
  * </UL>
  * <p/>
  * <P>The actions performed are as follows:</P>
@@ -103,19 +128,14 @@ import com.google.common.collect.ImmutableSet;
  * </OL>
  * <LI>For every mail</LI>
  * <OL>
- * <LI>connects to CLAMD at the "next" IP in the round-robin list, on
- * the specified <CODE>&lt;port&gt;</CODE>, and increments the "next" index;
- * if the connection request is not accepted tries with the next one
- * in the list unless all of them have failed;</LI>
- * <LI>sends a "<CODE>STREAM</CODE>" request;</LI>
- * <LI>parses the "<CODE>PORT <I>streamPort</I></CODE>" answer obtaining the port number;</LI>
- * <LI>makes a second connection (the <I>stream connection</I>) to CLAMD at the same host (or IP)
- * on the <I>streamPort</I> just obtained;</LI>
- * <LI>sends the mime message to CLAMD (using {@link MimeMessage#writeTo(java.io.OutputStream)})
- * through the <I>stream connection</I>;</LI>
- * <LI>closes the <I>stream connection</I>;</LI>
- * <LI>gets the "<CODE>OK</CODE>" or "<CODE>... FOUND</CODE>" answer from the main connection;</LI>
- * <LI>closes the main connection;</LI>
+ * <LI>reuses an idle CLAMD session, or connects to CLAMD at the "next" IP in the round-robin
+ * list, on the specified <CODE>&lt;port&gt;</CODE>; if the connection request is not accepted tries
+ * with the next one in the list unless all of them have failed;</LI>
+ * <LI>sends a "<CODE>INSTREAM</CODE>" request followed by the raw message;</LI>
+ * <LI>or, when <CODE>&lt;scanParts&gt;</CODE> is enabled, for each MIME part, asks the signature version of the
+ * CLAMD serving the session and looks up a previous verdict for the SHA-256 of the decoded part content and
+ * this version, otherwise sends a "<CODE>INSTREAM</CODE>" request followed by the part content;</LI>
+ * <LI>gets the "<CODE>OK</CODE>" or "<CODE>... FOUND</CODE>" answer;</LI>
  * <LI>sets the "<CODE>org.apache.james.infected</CODE>" <I>mail attribute</I> to either
  * "<CODE>true</CODE>" or "<CODE>false</CODE>";</LI>
  * <LI>adds the "<CODE>X-MessageIsInfected</CODE>" <I>header</I> to either
@@ -197,11 +217,13 @@ public class ClamAVScan extends GenericMailet {
 
     private static final int DEFAULT_STREAM_BUFFER_SIZE = 8192;
 
-    //private static final int DEFAULT_CONNECTION_TIMEOUT = 20000;
+    private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 8;
 
-    private static final String STREAM_PORT_STRING = "PORT ";
+    private static final int DEFAULT_VERDICT_CACHE_SIZE = 10000;
 
-    private static final String FOUND_STRING = "FOUND";
+    private static final int PART_IN_MEMORY_THRESHOLD = 100 * 1024;
+
+    private static final Duration CONNECTION_TIMEOUT = Duration.ofMinutes(2);
 
     private static final AttributeName MAIL_ATTRIBUTE_NAME = AttributeName.of("org.apache.james.infected");
 
@@ -243,9 +265,23 @@ public class ClamAVScan extends GenericMailet {
     private InetAddress[] addresses;
 
     /**
-     * Holds the index of the next address to connect to
+     * Holds value of property maxIdleConnections.
      */
-    private int nextAddressIndex;
+    private int maxIdleConnections;
+
+    /**
+     * Holds value of property scanParts.
+     */
+    private boolean scanParts;
+
+    /**
+     * Holds value of property verdictCacheSize.
+     */
+    private int verdictCacheSize;
+
+    private ClamdClient clamdClient;
+
+    private Optional<VerdictCache> verdictCache;
 
     @Override
     public String getMailetInfo() {
@@ -263,7 +299,10 @@ public class ClamAVScan extends GenericMailet {
                 "port",
                 "maxPings",
                 "pingIntervalMilli",
-                "streamBufferSize"
+                "streamBufferSize",
+                "maxIdleConnections",
+                "scanParts",
+                "verdictCacheSize"
         );
     }
 
@@ -307,9 +346,8 @@ public class ClamAVScan extends GenericMailet {
 
     /**
      * Setter for property host.
-     * Resolves also the host name into the corresponding IP addresses, issues
-     * a {@link #setAddresses} and resets the <CODE>nextAddressIndex</CODE>
-     * variable to <I>0</I> for dealing with <I>round-robin</I>.
+     * Resolves also the host name into the corresponding IP addresses, and issues
+     * a {@link #setAddresses}.
      *
      * @param host New value of property host.
      * @throws UnknownHostException if unable to resolve the host name, or if invalid
@@ -318,8 +356,6 @@ public class ClamAVScan extends GenericMailet {
         this.host = host;
 
         setAddresses(InetAddress.getAllByName(host));
-
-        nextAddressIndex = 0;
     }
 
     /**
@@ -446,6 +482,93 @@ public class ClamAVScan extends GenericMailet {
         this.streamBufferSize = streamBufferSize;
     }
 
+    /**
+     * Initializer for property maxIdleConnections.
+     */
+    protected void initMaxIdleConnections() {
+        String maxIdleConnectionsParam = getInitParameter("maxIdleConnections");
+        setMaxIdleConnections((maxIdleConnectionsParam == null) ? DEFAULT_MAX_IDLE_CONNECTIONS : Integer.parseInt(maxIdleConnectionsParam));
+        if (isDebug()) {
+            LOGGER.debug("maxIdleConnections: {}", getMaxIdleConnections());
+        }
+    }
+
+    /**
+     * Getter for property maxIdleConnections.
+     *
+     * @return Value of property maxIdleConnections.
+     */
+    public int getMaxIdleConnections() {
+        return this.maxIdleConnections;
+    }
+
+    /**
+     * Setter for property maxIdleConnections.
+     *
+     * @param maxIdleConnections New value of property maxIdleConnections.
+     */
+    public void setMaxIdleConnections(int maxIdleConnections) {
+        this.maxIdleConnections = maxIdleConnections;
+    }
+
+    /**
+     * Initializer for property scanParts.
+     */
+    protected void initScanParts() {
+        String scanPartsParam = getInitParameter("scanParts");
+        setScanParts((scanPartsParam != null) && Boolean.parseBoolean(scanPartsParam));
+        if (isDebug()) {
+            LOGGER.debug("scanParts: {}", isScanParts());
+        }
+    }
+
+    /**
+     * Getter for property scanParts.
+     *
+     * @return Value of property scanParts.
+     */
+    public boolean isScanParts() {
+        return this.scanParts;
+    }
+
+    /**
+     * Setter for property scanParts.
+     *
+     * @param scanParts New value of property scanParts.
+     */
+    public void setScanParts(boolean scanParts) {
+        this.scanParts = scanParts;
+    }
+
+    /**
+     * Initializer for property verdictCacheSize.
+     */
+    protected void initVerdictCacheSize() {
+        String verdictCacheSizeParam = getInitParameter("verdictCacheSize");
+        setVerdictCacheSize((verdictCacheSizeParam == null) ? DEFAULT_VERDICT_CACHE_SIZE : Integer.parseInt(verdictCacheSizeParam));
+        if (isDebug()) {
+            LOGGER.debug("verdictCacheSize: {}", getVerdictCacheSize());
+        }
+    }
+
+    /**
+     * Getter for property verdictCacheSize.
+     *
+     * @return Value of property verdictCacheSize.
+     */
+    public int getVerdictCacheSize() {
+        return this.verdictCacheSize;
+    }
+
+    /**
+     * Setter for property verdictCacheSize.
+     *
+     * @param verdictCacheSize New value of property verdictCacheSize.
+     */
+    public void setVerdictCacheSize(int verdictCacheSize) {
+        this.verdictCacheSize = verdictCacheSize;
+    }
+
     /**
      * Indexed getter for property addresses.
      *
@@ -477,26 +600,6 @@ public class ClamAVScan extends GenericMailet {
         this.addresses = addresses;
     }
 
-    /**
-     * Getter for property nextAddress.
-     * <p/>
-     * Gets the address of the next CLAMD server to connect to in this round, using round-robin.
-     * Increments the nextAddressIndex for the next round.
-     *
-     * @return Value of property address.
-     */
-    protected synchronized InetAddress getNextAddress() {
-
-        InetAddress address = getAddresses(nextAddressIndex);
-
-        nextAddressIndex++;
-        if (nextAddressIndex >= getAddressesCount()) {
-            nextAddressIndex = 0;
-        }
-
-        return address;
-    }
-
     /**
      * Getter for property addressesCount.
      *
@@ -506,43 +609,6 @@ public class ClamAVScan extends GenericMailet {
         return getAddresses().length;
     }
 
-    /**
-     * Gets a Socket connected to CLAMD.
-     * <p/>
-     * Will loop though the round-robin address list until the first one accepts
-     * the connection.
-     *
-     * @return a socket connected to CLAMD
-     * @throws MessagingException if no CLAMD in the round-robin address list has accepted the connection
-     */
-    protected Socket getClamdSocket() throws MessagingException {
-
-        InetAddress address;
-
-        Set<InetAddress> usedAddresses = new HashSet<>(getAddressesCount());
-        for (; ; ) {
-            // this do-while loop is needed because other threads could in the meantime
-            // calling getNextAddress(), and because of that the current thread may skip
-            // some working address
-            do {
-                if (usedAddresses.size() >= getAddressesCount()) {
-                    String logText = "Unable to connect to CLAMD. All addresses failed.";
-                    LOGGER.debug("{} Giving up.", logText);
-                    throw new MessagingException(logText);
-                }
-                address = getNextAddress();
-            } while (!usedAddresses.add(address));
-            try {
-                // get the socket
-                return new Socket(address, getPort());
-            } catch (IOException ioe) {
-                LOGGER.error("Exception caught acquiring main socket to CLAMD on {} on port {}: ", address, getPort(), ioe);
-                getNextAddress();
-                // retry
-            }
-        }
-    }
-
     @Override
     public void init() throws MessagingException {
 
@@ -560,12 +626,21 @@ public class ClamAVScan extends GenericMailet {
             initMaxPings();
             initPingIntervalMilli();
             initStreamBufferSize();
+            initMaxIdleConnections();
+            initScanParts();
+            initVerdictCacheSize();
 
             // If "maxPings is > ping the CLAMD server to check if it is up
             if (getMaxPings() > 0) {
                 ping();
             }
 
+            clamdClient = new ClamdClient(ImmutableList.copyOf(getAddresses()), getPort(), getStreamBufferSize(),
+                getMaxIdleConnections(), CONNECTION_TIMEOUT);
+            verdictCache = Optional.of(getVerdictCacheSize())
+                .filter(size -> size > 0 && isScanParts())
+                .map(VerdictCache::new);
+
         } catch (Exception e) {
             LOGGER.error("Exception thrown", e);
             throw new MessagingException("Exception thrown", e);
@@ -596,96 +671,136 @@ public class ClamAVScan extends GenericMailet {
             return;
         }
 
-        Socket clamdSocket = getClamdSocket();
+        try {
+            List<String> signatures = scan(mimeMessage);
+            boolean virusFound = !signatures.isEmpty();
+
+            if (virusFound) {
+                String logMessage = signatures.stream()
+                    .map(signature -> signature + " FOUND (by CLAMD on " + getHost() + ")")
+                    .collect(Collectors.joining("\r\n"));
+                LOGGER.debug(logMessage);
+
+                String errorMessage = mail.getErrorMessage();
+                if (errorMessage == null) {
+                    errorMessage = "";
+                } else {
+                    errorMessage += "\r\n";
+                }
+                StringBuilder sb = new StringBuilder(errorMessage);
+                sb.append(logMessage).append("\r\n");
 
-        try (Socket socket = clamdSocket;
-            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "ASCII"));
-            PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())), true)) {
+                // write mail and message info to log
+                logMailInfo(mail);
+                logMessageInfo(mimeMessage);
 
-            // write a request for a port to use for streaming out the data to scan
-            writer.println("STREAM");
-            writer.flush();
+                // mark the mail with a mail attribute to check later on by other matchers/mailets
+                mail.setAttribute(makeAttribute(true));
 
-            // parse and get the "stream" port#
-            int streamPort = getStreamPortFromAnswer(reader.readLine());
-
-            // get the "stream" socket and the related (buffered) output stream
-            try (Socket streamSocket = new Socket(socket.getInetAddress(), streamPort);
-                 BufferedOutputStream bos = new BufferedOutputStream(streamSocket.getOutputStream(), getStreamBufferSize())) {
-
-                // stream out the message to the scanner
-                mimeMessage.writeTo(bos);
-                bos.flush();
-                bos.close();
-                streamSocket.close();
-
-                String answer;
-                boolean virusFound = false;
-                String logMessage = "";
-                for (; ; ) {
-                    answer = reader.readLine();
-                    if (answer != null) {
-                        answer = answer.trim();
-
-                        // if a virus is found the answer will be '... FOUND'
-                        if (answer.substring(answer.length() - FOUND_STRING.length()).equals(FOUND_STRING)) {
-                            virusFound = true;
-                            logMessage = answer + " (by CLAMD on " + socket.getInetAddress() + ")";
-                            LOGGER.debug(logMessage);
-                        }
-                    } else {
-                        break;
-                    }
-                }
+                // sets the error message to be shown in any "notifyXxx" message
+                mail.setErrorMessage(sb.toString());
 
-                reader.close();
-                writer.close();
+                // mark the message with a header string
+                mimeMessage.setHeader(HEADER_NAME, "true");
 
-                if (virusFound) {
-                    String errorMessage = mail.getErrorMessage();
-                    if (errorMessage == null) {
-                        errorMessage = "";
-                    } else {
-                        errorMessage += "\r\n";
-                    }
-                    StringBuilder sb = new StringBuilder(errorMessage);
-                    sb.append(logMessage).append("\r\n");
-
-                    // write mail and message info to log
-                    logMailInfo(mail);
-                    logMessageInfo(mimeMessage);
+            } else {
+                if (isDebug()) {
+                    LOGGER.debug("OK (by CLAMD on {})", getHost());
+                }
+                mail.setAttribute(makeAttribute(false));
 
-                    // mark the mail with a mail attribute to check later on by other matchers/mailets
-                    mail.setAttribute(makeAttribute(true));
+                // mark the message with a header string
+                mimeMessage.setHeader(HEADER_NAME, "false");
 
-                    // sets the error message to be shown in any "notifyXxx" message
-                    mail.setErrorMessage(sb.toString());
+            }
 
-                    // mark the message with a header string
-                    mimeMessage.setHeader(HEADER_NAME, "true");
+            try {
+                saveChanges(mimeMessage);
+            } catch (Exception ex) {
+                LOGGER.error("Exception caught while saving changes (header) to the MimeMessage. Ignoring ...", ex);
+            }
+        } catch (Exception ex) {
+            LOGGER.error("Exception caught calling CLAMD on {}: {}", getHost(), ex.getMessage(), ex);
+            throw new MessagingException("Exception caught", ex);
+        }
 
-                } else {
-                    if (isDebug()) {
-                        LOGGER.debug("OK (by CLAMD on {})", socket.getInetAddress());
-                    }
-                    mail.setAttribute(makeAttribute(false));
+    }
 
-                    // mark the message with a header string
-                    mimeMessage.setHeader(HEADER_NAME, "false");
+    /**
+     * Scans the raw message, or its MIME parts one by one when {@code scanParts} is enabled.
+     *
+     * @return the signatures of the viruses found
+     */
+    private List<String> scan(MimeMessage message) throws MessagingException, IOException {
+        if (isScanParts()) {
+            try {
+                return scanParts(message);
+            } catch (MessagingException e) {
+                LOGGER.warn("Could not scan MIME parts of {}, scanning the raw message instead", message.getMessageID(), e);
+            }
+        }
+        return signatures(clamdClient.scan(out -> {
+            try {
+                message.writeTo(out);
+            } catch (MessagingException e) {
+                throw new IOException("Can not write message", e);
+            }
+        }));
+    }
 
-                }
+    /**
+     * Scans each leaf MIME part of the given part.
+     *
+     * @return the signatures of the viruses found
+     * @throws MessagingException if the MIME structure or the content of a part can not be read
+     */
+    private List<String> scanParts(Part part) throws MessagingException, IOException {
+        if (part.isMimeType("multipart/*")) {
+            Multipart multipart = (Multipart) part.getContent();
+            ImmutableList.Builder<String> signatures = ImmutableList.builder();
+            for (int i = 0; i < multipart.getCount(); i++) {
+                signatures.addAll(scanParts(multipart.getBodyPart(i)));
+            }
+            return signatures.build();
+        }
+        if (part.isMimeType("message/rfc822") && part.getContent() instanceof Part) {
+            return scanParts((Part) part.getContent());
+        }
+        if (verdictCache.isEmpty()) {
+            return signatures(clamdClient.scan(out -> copyContent(part, out)));
+        }
 
-                try {
-                    saveChanges(mimeMessage);
-                } catch (Exception ex) {
-                    LOGGER.error("Exception caught while saving changes (header) to the MimeMessage. Ignoring ...", ex);
-                }
+        FileBackedOutputStream content = new FileBackedOutputStream(PART_IN_MEMORY_THRESHOLD);
+        try {
+            HashingOutputStream hashingContent = new HashingOutputStream(Hashing.sha256(), content);
+            try {
+                copyContent(part, hashingContent);
+            } catch (IOException e) {
+                throw new MessagingException("Can not decode MIME part content", e);
             }
-        } catch (Exception ex) {
-            LOGGER.error("Exception caught calling CLAMD on {}: {}", clamdSocket.getInetAddress(), ex.getMessage(), ex);
-            throw new MessagingException("Exception caught", ex);
+            return signatures(clamdClient.scan(content.asByteSource(), hashingContent.hash(), verdictCache.get()));
+        } finally {
+            content.reset();
+        }
+    }
+
+    private void copyContent(Part part, OutputStream out) throws IOException {
+        try (InputStream stream = part.getInputStream()) {
+            stream.transferTo(out);
+        } catch (MessagingException e) {
+            throw new IOException("Can not read MIME part content", e);
         }
+    }
 
+    private List<String> signatures(ClamdVerdict verdict) {
+        return verdict.getSignature()
+            .map(ImmutableList::of)
+            .orElse(ImmutableList.of());
+    }
+
+    @Override
+    public void destroy() {
+        Optional.ofNullable(clamdClient).ifPresent(ClamdClient::close);
     }
 
     private Attribute makeAttribute(boolean value) {
@@ -774,30 +889,6 @@ public class ClamAVScan extends GenericMailet {
         }
     }
 
-    /**
-     * Parses the answer from a STREAM request and gets the port number.
-     *
-     * @param answer the answer from CLAMD containing the port number
-     * @return the port number for streaming out the data to scan
-     */
-    protected final int getStreamPortFromAnswer(String answer) throws ConnectException {
-        int port = -1;
-        if (answer != null && answer.startsWith(STREAM_PORT_STRING)) {
-            String portSubstring = answer.substring(STREAM_PORT_STRING.length());
-            try {
-                port = Integer.parseInt(portSubstring);
-            } catch (NumberFormatException nfe) {
-                LOGGER.error("Can not parse port from substring {}", portSubstring);
-            }
-        }
-
-        if (port <= 0) {
-            throw new ConnectException("\"PORT nn\" expected - unable to parse: " + "\"" + answer + "\"");
-        }
-
-        return port;
-    }
-
     /**
      * Saves changes resetting the original message id.
      *
@@ -0,0 +1,311 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.transport.mailets.clamav;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.io.ByteSource;
+
+/**
+ * Scans content with clamd using the INSTREAM command.
+ *
+ * Commands are sent within clamd sessions ({@code IDSESSION}) so that a connection can be reused for
+ * several scans. Idle sessions are kept in a bounded pool, up to {@code maxIdleSessions}. clamd ends sessions
+ * that stayed idle for too long: a failing pooled session is thus discarded and the command retried once on a
+ * new session.
+ *
+ * Sessions are opened against the given addresses in a round-robin fashion.
+ */
+public class ClamdClient implements Closeable {
+    /**
+     * Content to scan, written to the INSTREAM chunks as it is produced.
+     */
+    @FunctionalInterface
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface SessionOperation<T> {
+        T execute(Session session) throws IOException;
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClamdClient.class);
+
+    private static final byte[] ID_SESSION = command("IDSESSION");
+    private static final byte[] INSTREAM = command("INSTREAM");
+    private static final byte[] VERSION = command("VERSION");
+    private static final byte[] END = command("END");
+    private static final char VERSION_SEPARATOR = '/';
+
+    private static byte[] command(String name) {
+        return ("z" + name + "\0").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private class Session implements Closeable {
+        private final Socket socket;
+        private final DataOutputStream out;
+        private final InputStream in;
+        private final byte[] buffer;
+
+        Session(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), chunkSize + Integer.BYTES));
+            this.in = socket.getInputStream();
+            this.buffer = new byte[chunkSize];
+            out.write(ID_SESSION);
+            out.flush();
+        }
+
+        ClamdVerdict scan(Content content) throws IOException {
+            out.write(INSTREAM);
+            ChunkOutputStream chunks = new ChunkOutputStream();
+            content.writeTo(chunks);
+            chunks.writeChunk();
+            out.writeInt(0);
+            out.flush();
+            return ClamdVerdict.parse(readReply());
+        }
+
+        String version() throws IOException {
+            out.write(VERSION);
+            out.flush();
+            return readReply();
+        }
+
+        /**
+         * Replies are terminated by a NUL character when using 'z' prefixed commands.
+         */
+        private String readReply() throws IOException {
+            ByteArrayOutputStream reply = new ByteArrayOutputStream();
+            int read;
+            while ((read = in.read()) > 0) {
+                reply.write(read);
+            }
+            if (read < 0) {
+                throw new EOFException("clamd closed the session on " + socket.getInetAddress());
+            }
+            return reply.toString(StandardCharsets.US_ASCII);
+        }
+
+        /**
+         * Buffers written bytes into length prefixed chunks of at most {@code chunkSize} bytes.
+         */
+        private class ChunkOutputStream extends OutputStream {
+            private int count = 0;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (count == buffer.length) {
+                    writeChunk();
+                }
+                buffer[count++] = (byte) b;
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                int position = offset;
+                int remaining = length;
+                while (remaining > 0) {
+                    if (count == buffer.length) {
+                        writeChunk();
+                    }
+                    int copied = Math.min(remaining, buffer.length - count);
+                    System.arraycopy(bytes, position, buffer, count, copied);
+                    count += copied;
+                    position += copied;
+                    remaining -= copied;
+                }
+            }
+
+            void writeChunk() throws IOException {
+                if (count > 0) {
+                    out.writeInt(count);
+                    out.write(buffer, 0, count);
+                    count = 0;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            try (Socket closeable = socket) {
+                out.write(END);
+                out.flush();
+            } catch (IOException e) {
+                LOGGER.debug("Failed ending clamd session on {}", socket.getInetAddress(), e);
+            }
+        }
+    }
+
+    private final List<InetAddress> addresses;
+    private final int port;
+    private final int chunkSize;
+    private final Duration timeout;
+    private final AtomicInteger nextAddressIndex;
+    private final BlockingQueue<Session> idleSessions;
+
+    public ClamdClient(List<InetAddress> addresses, int port, int chunkSize, int maxIdleSessions, Duration timeout) {
+        Preconditions.checkArgument(!addresses.isEmpty(), "At least one clamd address is needed");
+        Preconditions.checkArgument(chunkSize > 0, "'chunkSize' needs to be strictly positive");
+        Preconditions.checkArgument(maxIdleSessions > 0, "'maxIdleSessions' needs to be strictly positive");
+
+        this.addresses = ImmutableList.copyOf(addresses);
+        this.port = port;
+        this.chunkSize = chunkSize;
+        this.timeout = timeout;
+        this.nextAddressIndex = new AtomicInteger(0);
+        this.idleSessions = new LinkedBlockingQueue<>(maxIdleSessions);
+    }
+
+    public ClamdVerdict scan(ByteSource content) throws IOException {
+        return scan(content::copyTo);
+    }
+
+    public ClamdVerdict scan(Content content) throws IOException {
+        return withSession(session -> session.scan(content));
+    }
+
+    /**
+     * Scans the content unless the verdict cache knows it for the signature version of the clamd serving the session.
+     *
+     * The version is asked on the session used for the scan: daemons behind the configured addresses may not have
+     * loaded the same signature database, and a daemon may reload its database at any time.
+     */
+    public ClamdVerdict scan(ByteSource content, HashCode contentHash, VerdictCache verdictCache) throws IOException {
+        return withSession(session -> {
+            String version = parseSignatureVersion(session.version());
+            Optional<ClamdVerdict> knownVerdict = verdictCache.get(contentHash, version);
+            if (knownVerdict.isPresent()) {
+                return knownVerdict.get();
+            }
+            ClamdVerdict verdict = session.scan(content::copyTo);
+            verdictCache.put(contentHash, version, verdict);
+            return verdict;
+        });
+    }
+
+    /**
+     * @return the version of the signature database loaded by clamd, for instance {@code 25800}
+     */
+    public String signatureVersion() throws IOException {
+        return parseSignatureVersion(withSession(Session::version));
+    }
+
+    private static String parseSignatureVersion(String version) {
+        int start = version.indexOf(VERSION_SEPARATOR);
+        int end = version.indexOf(VERSION_SEPARATOR, start + 1);
+        if (start < 0 || end < 0) {
+            return version.trim();
+        }
+        return version.substring(start + 1, end);
+    }
+
+    private <T> T withSession(SessionOperation<T> operation) throws IOException {
+        Session pooledSession = idleSessions.poll();
+        if (pooledSession != null) {
+            try {
+                return executeAndRelease(operation, pooledSession);
+            } catch (IOException e) {
+                LOGGER.debug("Pooled clamd session failed, retrying on a new session", e);
+            }
+        }
+        return executeAndRelease(operation, openSession());
+    }
+
+    private <T> T executeAndRelease(SessionOperation<T> operation, Session session) throws IOException {
+        try {
+            T result = operation.execute(session);
+            if (!idleSessions.offer(session)) {
+                session.close();
+            }
+            return result;
+        } catch (IOException e) {
+            session.close();
+            throw e;
+        }
+    }
+
+    private Session openSession() throws IOException {
+        Set<InetAddress> triedAddresses = new HashSet<>();
+        IOException lastFailure = new IOException("Unable to connect to CLAMD. All addresses failed.");
+        while (triedAddresses.size() < addresses.size()) {
+            InetAddress address = nextAddress();
+            if (triedAddresses.add(address)) {
+                try {
+                    return new Session(connect(address));
+                } catch (IOException e) {
+                    LOGGER.error("Exception caught acquiring socket to CLAMD on {} on port {}: ", address, port, e);
+                    lastFailure = e;
+                }
+            }
+        }
+        throw lastFailure;
+    }
+
+    private Socket connect(InetAddress address) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setSoTimeout(Math.toIntExact(timeout.toMillis()));
+            socket.connect(new InetSocketAddress(address, port), Math.toIntExact(timeout.toMillis()));
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private InetAddress nextAddress() {
+        return addresses.get(Math.floorMod(nextAddressIndex.getAndIncrement(), addresses.size()));
+    }
+
+    @Override
+    public void close() {
+        Session session;
+        while ((session = idleSessions.poll()) != null) {
+            session.close();
+        }
+    }
+}
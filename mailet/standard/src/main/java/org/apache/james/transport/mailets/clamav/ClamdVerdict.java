@@ -0,0 +1,92 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.transport.mailets.clamav;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Outcome of a clamd scan: either clean or infected by a given signature.
+ */
+public class ClamdVerdict {
+    public static final ClamdVerdict CLEAN = new ClamdVerdict(Optional.empty());
+
+    private static final String OK = "OK";
+    private static final String FOUND = "FOUND";
+
+    public static ClamdVerdict infected(String signature) {
+        return new ClamdVerdict(Optional.of(signature));
+    }
+
+    /**
+     * Parses a clamd INSTREAM reply, such as {@code stream: OK} or {@code stream: Eicar-Signature FOUND}.
+     *
+     * @throws IOException when clamd reports an error, for instance a size limit being exceeded
+     */
+    static ClamdVerdict parse(String reply) throws IOException {
+        String answer = reply.substring(reply.lastIndexOf(':') + 1).trim();
+        if (answer.equals(OK)) {
+            return CLEAN;
+        }
+        if (answer.endsWith(FOUND)) {
+            return infected(answer.substring(0, answer.length() - FOUND.length()).trim());
+        }
+        throw new IOException("Unexpected clamd answer: " + reply);
+    }
+
+    private final Optional<String> signature;
+
+    private ClamdVerdict(Optional<String> signature) {
+        this.signature = signature;
+    }
+
+    public boolean isInfected() {
+        return signature.isPresent();
+    }
+
+    public Optional<String> getSignature() {
+        return signature;
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (o instanceof ClamdVerdict) {
+            ClamdVerdict that = (ClamdVerdict) o;
+
+            return Objects.equals(this.signature, that.signature);
+        }
+        return false;
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(signature);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("signature", signature)
+            .toString();
+    }
+}
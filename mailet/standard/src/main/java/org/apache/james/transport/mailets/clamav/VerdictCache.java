@@ -0,0 +1,85 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.transport.mailets.clamav;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+
+/**
+ * Remembers clamd verdicts by content hash.
+ *
+ * Verdicts are keyed by the signature database version too: an update of the signatures invalidates
+ * previous verdicts. The number of remembered verdicts is bounded.
+ */
+public class VerdictCache {
+    private static class Key {
+        private final HashCode contentHash;
+        private final String signatureVersion;
+
+        Key(HashCode contentHash, String signatureVersion) {
+            this.contentHash = contentHash;
+            this.signatureVersion = signatureVersion;
+        }
+
+        @Override
+        public final boolean equals(Object o) {
+            if (o instanceof Key) {
+                Key that = (Key) o;
+
+                return Objects.equals(this.contentHash, that.contentHash)
+                    && Objects.equals(this.signatureVersion, that.signatureVersion);
+            }
+            return false;
+        }
+
+        @Override
+        public final int hashCode() {
+            return Objects.hash(contentHash, signatureVersion);
+        }
+    }
+
+    private final Cache<Key, ClamdVerdict> verdicts;
+
+    public VerdictCache(long maximumSize) {
+        Preconditions.checkArgument(maximumSize > 0, "'maximumSize' needs to be strictly positive");
+
+        this.verdicts = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .build();
+    }
+
+    public Optional<ClamdVerdict> get(HashCode contentHash, String signatureVersion) {
+        return Optional.ofNullable(verdicts.getIfPresent(new Key(contentHash, signatureVersion)));
+    }
+
+    public void put(HashCode contentHash, String signatureVersion, ClamdVerdict verdict) {
+        verdicts.put(new Key(contentHash, signatureVersion), verdict);
+    }
+
+    public long size() {
+        verdicts.cleanUp();
+        return verdicts.size();
+    }
+}
@@ -0,0 +1,198 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.transport.mailets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.mail.MessagingException;
+
+import org.apache.james.core.builder.MimeMessageBuilder;
+import org.apache.james.transport.mailets.clamav.FakeClamd;
+import org.apache.james.util.MimeMessageUtil;
+import org.apache.mailet.Attribute;
+import org.apache.mailet.AttributeName;
+import org.apache.mailet.AttributeValue;
+import org.apache.mailet.Mail;
+import org.apache.mailet.base.test.FakeMail;
+import org.apache.mailet.base.test.FakeMailetConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ClamAVScanTest {
+    static final AttributeName INFECTED = AttributeName.of("org.apache.james.infected");
+
+    FakeClamd clamd;
+    ClamAVScan mailet;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clamd = new FakeClamd();
+        mailet = new ClamAVScan();
+        mailet.init(FakeMailetConfig.builder()
+            .mailetName("ClamAVScan")
+            .setProperty("host", "127.0.0.1")
+            .setProperty("port", String.valueOf(clamd.getPort()))
+            .setProperty("maxPings", "0")
+            .build());
+    }
+
+    void scanParts(String verdictCacheSize) throws MessagingException {
+        mailet.destroy();
+        mailet.init(FakeMailetConfig.builder()
+            .mailetName("ClamAVScan")
+            .setProperty("host", "127.0.0.1")
+            .setProperty("port", String.valueOf(clamd.getPort()))
+            .setProperty("maxPings", "0")
+            .setProperty("scanParts", "true")
+            .setProperty("verdictCacheSize", verdictCacheSize)
+            .build());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mailet.destroy();
+        clamd.close();
+    }
+
+    Mail mailWithAttachment(String text, String attachment) throws MessagingException {
+        return FakeMail.builder()
+            .name("mail")
+            .sender("sender@james.org")
+            .recipient("rcpt@james.org")
+            .mimeMessage(MimeMessageBuilder.mimeMessageBuilder()
+                .setMultipartWithBodyParts(
+                    MimeMessageBuilder.bodyPartBuilder()
+                        .data(text),
+                    MimeMessageBuilder.bodyPartBuilder()
+                        .data(attachment)
+                        .filename("attachment.bin")))
+            .build();
+    }
+
+    @Test
+    void serviceShouldMarkCleanMail() throws Exception {
+        Mail mail = mailWithAttachment("text", "harmless");
+
+        mailet.service(mail);
+
+        assertThat(mail.getAttribute(INFECTED)).contains(new Attribute(INFECTED, AttributeValue.of(false)));
+        assertThat(mail.getMessage().getHeader("X-MessageIsInfected")).containsExactly("false");
+    }
+
+    @Test
+    void serviceShouldMarkInfectedMail() throws Exception {
+        Mail mail = mailWithAttachment("text", FakeClamd.VIRUS);
+
+        mailet.service(mail);
+
+        assertThat(mail.getAttribute(INFECTED)).contains(new Attribute(INFECTED, AttributeValue.of(true)));
+        assertThat(mail.getErrorMessage()).contains(FakeClamd.SIGNATURE + " FOUND");
+    }
+
+    @Test
+    void serviceShouldScanTheRawMessageByDefault() throws Exception {
+        mailet.service(mailWithAttachment("text", "harmless"));
+        mailet.service(mailWithAttachment("text", "harmless"));
+
+        assertThat(clamd.getScanCount()).isEqualTo(2);
+    }
+
+    @Test
+    void serviceShouldScanEachPartWhenScanPartsIsEnabled() throws Exception {
+        scanParts("10");
+
+        mailet.service(mailWithAttachment("text", "harmless"));
+
+        assertThat(clamd.getScanCount()).isEqualTo(2);
+    }
+
+    @Test
+    void serviceShouldMarkInfectedMailWhenScanPartsIsEnabled() throws Exception {
+        scanParts("10");
+        Mail mail = mailWithAttachment("text", FakeClamd.VIRUS);
+
+        mailet.service(mail);
+
+        assertThat(mail.getAttribute(INFECTED)).contains(new Attribute(INFECTED, AttributeValue.of(true)));
+        assertThat(mail.getErrorMessage()).contains(FakeClamd.SIGNATURE + " FOUND");
+    }
+
+    @Test
+    void serviceShouldScanTheRawMessageWhenPartsCanNotBeParsed() throws Exception {
+        scanParts("10");
+        Mail mail = FakeMail.builder()
+            .name("mail")
+            .sender("sender@james.org")
+            .recipient("rcpt@james.org")
+            .mimeMessage(MimeMessageUtil.mimeMessageFromString("Content-Type: multipart/mixed\r\n" +
+                "\r\n" +
+                "no boundary " + FakeClamd.VIRUS + "\r\n"))
+            .build();
+
+        mailet.service(mail);
+
+        assertThat(mail.getAttribute(INFECTED)).contains(new Attribute(INFECTED, AttributeValue.of(true)));
+        assertThat(clamd.getScanCount()).isEqualTo(1);
+    }
+
+    @Test
+    void serviceShouldNotScanAgainAlreadyScannedContent() throws Exception {
+        scanParts("10");
+
+        mailet.service(mailWithAttachment("first text", "same attachment"));
+        mailet.service(mailWithAttachment("second text", "same attachment"));
+
+        assertThat(clamd.getScanCount()).isEqualTo(3);
+    }
+
+    @Test
+    void serviceShouldScanAgainWhenSignaturesAreUpdated() throws Exception {
+        scanParts("10");
+
+        mailet.service(mailWithAttachment("first text", "same attachment"));
+        clamd.setVersion(FakeClamd.UPDATED_VERSION);
+        mailet.service(mailWithAttachment("second text", "same attachment"));
+
+        assertThat(clamd.getScanCount()).isEqualTo(4);
+    }
+
+    @Test
+    void serviceShouldRememberInfectedContent() throws Exception {
+        scanParts("10");
+        mailet.service(mailWithAttachment("first text", FakeClamd.VIRUS));
+        Mail mail = mailWithAttachment("second text", FakeClamd.VIRUS);
+
+        mailet.service(mail);
+
+        assertThat(mail.getAttribute(INFECTED)).contains(new Attribute(INFECTED, AttributeValue.of(true)));
+        assertThat(clamd.getScanCount()).isEqualTo(3);
+    }
+
+    @Test
+    void serviceShouldScanEveryTimeWhenCacheIsDisabled() throws Exception {
+        scanParts("0");
+
+        mailet.service(mailWithAttachment("first text", "same attachment"));
+        mailet.service(mailWithAttachment("second text", "same attachment"));
+
+        assertThat(clamd.getScanCount()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,152 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.transport.mailets.clamav;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+
+class ClamdClientTest {
+    static final int CHUNK_SIZE = 4;
+
+    FakeClamd clamd;
+    ClamdClient testee;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clamd = new FakeClamd();
+        testee = new ClamdClient(ImmutableList.of(InetAddress.getLoopbackAddress()), clamd.getPort(), CHUNK_SIZE, 2, Duration.ofSeconds(1));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        testee.close();
+        clamd.close();
+    }
+
+    ByteSource content(String content) {
+        return ByteSource.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void scanShouldReturnCleanWhenNoVirus() throws Exception {
+        assertThat(testee.scan(content("harmless content")))
+            .isEqualTo(ClamdVerdict.CLEAN);
+    }
+
+    @Test
+    void scanShouldReturnSignatureWhenInfected() throws Exception {
+        assertThat(testee.scan(content("prefix " + FakeClamd.VIRUS + " suffix")))
+            .isEqualTo(ClamdVerdict.infected(FakeClamd.SIGNATURE));
+    }
+
+    @Test
+    void scanShouldChunkWrittenContent() throws Exception {
+        assertThat(testee.scan(out -> {
+            out.write('X');
+            out.write((FakeClamd.VIRUS.substring(1) + " and some more").getBytes(StandardCharsets.US_ASCII));
+        }))
+            .isEqualTo(ClamdVerdict.infected(FakeClamd.SIGNATURE));
+    }
+
+    @Test
+    void scanShouldSupportEmptyContent() throws Exception {
+        assertThat(testee.scan(content("")))
+            .isEqualTo(ClamdVerdict.CLEAN);
+    }
+
+    @Test
+    void scansShouldReuseTheSameConnection() throws Exception {
+        testee.scan(content("first"));
+        testee.scan(content("second"));
+        testee.scan(content("third"));
+
+        assertThat(clamd.getConnectionCount()).isEqualTo(1);
+        assertThat(clamd.getScanCount()).isEqualTo(3);
+    }
+
+    @Test
+    void scanShouldRetryOnANewSessionWhenPooledSessionWasEnded() throws Exception {
+        testee.scan(content("first"));
+        clamd.closeSessions();
+
+        assertThat(testee.scan(content(FakeClamd.VIRUS)))
+            .isEqualTo(ClamdVerdict.infected(FakeClamd.SIGNATURE));
+        assertThat(clamd.getConnectionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void scanShouldFailWhenClamdIsDown() throws Exception {
+        clamd.close();
+
+        assertThatThrownBy(() -> testee.scan(content("content")))
+            .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void signatureVersionShouldReturnDatabaseVersion() throws Exception {
+        assertThat(testee.signatureVersion()).isEqualTo("25800");
+    }
+
+    @Test
+    void scanWithCacheShouldReturnKnownVerdict() throws Exception {
+        VerdictCache cache = new VerdictCache(10);
+        ByteSource content = content(FakeClamd.VIRUS);
+        HashCode hash = content.hash(Hashing.sha256());
+
+        testee.scan(content, hash, cache);
+
+        assertThat(testee.scan(content, hash, cache))
+            .isEqualTo(ClamdVerdict.infected(FakeClamd.SIGNATURE));
+        assertThat(clamd.getScanCount()).isEqualTo(1);
+    }
+
+    @Test
+    void scanWithCacheShouldScanAgainWhenServingClamdHasAnotherVersion() throws Exception {
+        VerdictCache cache = new VerdictCache(10);
+        ByteSource content = content("content");
+        HashCode hash = content.hash(Hashing.sha256());
+
+        testee.scan(content, hash, cache);
+        clamd.setVersion(FakeClamd.UPDATED_VERSION);
+        testee.scan(content, hash, cache);
+
+        assertThat(clamd.getScanCount()).isEqualTo(2);
+    }
+
+    @Test
+    void parseShouldFailOnErrorAnswer() {
+        assertThatThrownBy(() -> ClamdVerdict.parse("1: INSTREAM size limit exceeded. ERROR"))
+            .isInstanceOf(IOException.class);
+    }
+}
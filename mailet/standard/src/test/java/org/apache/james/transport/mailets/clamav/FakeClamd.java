@@ -0,0 +1,166 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.transport.mailets.clamav;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.james.util.concurrent.NamedThreadFactory;
+
+/**
+ * Minimal clamd speaking the session protocol: IDSESSION, INSTREAM, VERSION and END.
+ *
+ * Content containing {@link #VIRUS} is reported as infected by {@link #SIGNATURE}.
+ */
+public class FakeClamd implements AutoCloseable {
+    public static final String VIRUS = "X5O!P%@AP[4\\PZX54(P^)7CC)7}$EICAR";
+    public static final String SIGNATURE = "Eicar-Signature";
+    public static final String VERSION = "ClamAV 0.102.2/25800/Mon Apr 13 10:00:00 2020";
+    public static final String UPDATED_VERSION = "ClamAV 0.102.2/25801/Tue Apr 14 10:00:00 2020";
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+    private final ConcurrentLinkedQueue<Socket> sockets;
+    private final AtomicInteger connectionCount;
+    private final AtomicInteger scanCount;
+    private volatile String version;
+
+    public FakeClamd() throws IOException {
+        this.serverSocket = new ServerSocket(0);
+        this.executor = Executors.newCachedThreadPool(NamedThreadFactory.withClassName(getClass()));
+        this.sockets = new ConcurrentLinkedQueue<>();
+        this.connectionCount = new AtomicInteger();
+        this.scanCount = new AtomicInteger();
+        this.version = VERSION;
+        executor.execute(this::acceptLoop);
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionCount.incrementAndGet();
+                sockets.add(socket);
+                executor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket closeable = socket;
+             DataInputStream in = new DataInputStream(socket.getInputStream());
+             OutputStream out = socket.getOutputStream()) {
+            int id = 0;
+            while (true) {
+                String command = readCommand(in);
+                switch (command) {
+                    case "zIDSESSION":
+                        break;
+                    case "zINSTREAM":
+                        id++;
+                        String content = readChunks(in);
+                        scanCount.incrementAndGet();
+                        reply(out, id + ": stream: " + (content.contains(VIRUS) ? SIGNATURE + " FOUND" : "OK"));
+                        break;
+                    case "zVERSION":
+                        id++;
+                        reply(out, id + ": " + version);
+                        break;
+                    default:
+                        return;
+                }
+            }
+        } catch (IOException e) {
+            // connection closed
+        }
+    }
+
+    private String readCommand(DataInputStream in) throws IOException {
+        ByteArrayOutputStream command = new ByteArrayOutputStream();
+        int read;
+        while ((read = in.read()) > 0) {
+            command.write(read);
+        }
+        return command.toString(StandardCharsets.US_ASCII);
+    }
+
+    private String readChunks(DataInputStream in) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        int length;
+        while ((length = in.readInt()) > 0) {
+            byte[] chunk = new byte[length];
+            in.readFully(chunk);
+            content.write(chunk);
+        }
+        return content.toString(StandardCharsets.UTF_8);
+    }
+
+    private void reply(OutputStream out, String reply) throws IOException {
+        out.write((reply + "\0").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    /**
+     * Simulates clamd ending idle sessions.
+     */
+    public void closeSessions() throws IOException {
+        Socket socket;
+        while ((socket = sockets.poll()) != null) {
+            socket.close();
+        }
+    }
+
+    /**
+     * Simulates clamd reloading its signature database.
+     */
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public int getScanCount() {
+        return scanCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        closeSessions();
+        executor.shutdownNow();
+    }
+}
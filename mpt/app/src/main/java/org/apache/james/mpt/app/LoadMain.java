@@ -0,0 +1,211 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mpt.app;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Locale;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.james.mpt.load.GeneratedWorkload;
+import org.apache.james.mpt.load.LoadGenerator;
+import org.apache.james.mpt.load.LoadProtocol;
+import org.apache.james.mpt.load.LoadReport;
+import org.apache.james.mpt.load.SocketSessionFactory;
+import org.apache.james.mpt.load.Workload;
+
+/**
+ * <p>Runs a MPT script, or a generated workload, with many concurrent virtual users
+ * and reports throughput and latency percentiles per command.</p>
+ * <p>Return values:</p>
+ * <table>
+ * <tr><td>0</td><td>Success</td></tr>
+ * <tr><td>-1</td><td>Illegal Arguments</td></tr>
+ * <tr><td>1</td><td>Script not found</td></tr>
+ * <tr><td>3</td><td>Some iterations failed</td></tr>
+ * </table>
+ */
+public class LoadMain {
+    private static final int FILE_NOT_FOUND = 1;
+    private static final int ITERATIONS_FAILED = 3;
+
+    private static final String FILE_OPTION = "f";
+    private static final String PROTOCOL_OPTION = "P";
+    private static final String WORKLOAD_OPTION = "w";
+    private static final String PORT_OPTION = "p";
+    private static final String HOST_OPTION = "h";
+    private static final String VIRTUAL_USERS_OPTION = "u";
+    private static final String ITERATIONS_OPTION = "n";
+    private static final String DURATION_OPTION = "d";
+    private static final String RAMP_UP_OPTION = "r";
+    private static final String USER_TEMPLATE_OPTION = "users";
+    private static final String USER_COUNT_OPTION = "userCount";
+    private static final String PASSWORD_OPTION = "password";
+    private static final String TIMEOUT_OPTION = "timeout";
+
+    public static void main(String[] args) throws Exception {
+        Options options = buildOptions();
+
+        try {
+            CommandLineParser parser = new DefaultParser();
+            CommandLine cmd = parser.parse(options, args);
+            runCommand(cmd);
+        } catch (ParseException | IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            new HelpFormatter().printHelp("mpt-load", options);
+            System.exit(-1);
+        }
+    }
+
+    private static void runCommand(CommandLine cmd) throws Exception {
+        Workload workload = workload(cmd);
+        InetSocketAddress address = new InetSocketAddress(cmd.getOptionValue(HOST_OPTION, "localhost"),
+            Integer.parseInt(cmd.getOptionValue(PORT_OPTION)));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(cmd.getOptionValue(TIMEOUT_OPTION, "60")));
+
+        LoadGenerator.Builder builder = LoadGenerator.builder()
+            .sessionFactory(new SocketSessionFactory(address, timeout))
+            .workload(workload)
+            .virtualUsers(Integer.parseInt(cmd.getOptionValue(VIRTUAL_USERS_OPTION, "1")))
+            .iterations(Integer.parseInt(cmd.getOptionValue(ITERATIONS_OPTION, String.valueOf(Integer.MAX_VALUE))))
+            .rampUp(Duration.ofSeconds(Long.parseLong(cmd.getOptionValue(RAMP_UP_OPTION, "0"))))
+            .users(cmd.getOptionValue(USER_TEMPLATE_OPTION, "user%d@domain.tld"),
+                Integer.parseInt(cmd.getOptionValue(USER_COUNT_OPTION, "1")))
+            .password(cmd.getOptionValue(PASSWORD_OPTION, "password"));
+        if (cmd.hasOption(DURATION_OPTION)) {
+            builder.duration(Duration.ofSeconds(Long.parseLong(cmd.getOptionValue(DURATION_OPTION))));
+        } else if (!cmd.hasOption(ITERATIONS_OPTION)) {
+            throw new IllegalArgumentException("Either iterations or duration needs to be specified");
+        }
+
+        System.out.println("Running " + workload.getName() + " against " + address + "...");
+        LoadReport report = builder.build().run();
+        System.out.println(report.asText());
+        if (report.getFailedIterations() > 0) {
+            System.exit(ITERATIONS_FAILED);
+        }
+    }
+
+    private static Workload workload(CommandLine cmd) throws Exception {
+        if (cmd.hasOption(FILE_OPTION)) {
+            File file = new File(cmd.getOptionValue(FILE_OPTION));
+            if (!file.exists()) {
+                System.out.println("Script not found");
+                System.exit(FILE_NOT_FOUND);
+            }
+            LoadProtocol protocol = LoadProtocol.valueOf(cmd.getOptionValue(PROTOCOL_OPTION, "imap").toUpperCase(Locale.US));
+            return Workload.fromFile(file, protocol);
+        }
+        if (cmd.hasOption(WORKLOAD_OPTION)) {
+            return GeneratedWorkload.valueOf(cmd.getOptionValue(WORKLOAD_OPTION).toUpperCase(Locale.US));
+        }
+        throw new IllegalArgumentException("Either a script file or a generated workload needs to be specified");
+    }
+
+    private static Options buildOptions() {
+        Options options = new Options();
+        options.addOption(Option.builder(FILE_OPTION)
+            .argName("file")
+            .hasArg()
+            .desc("plays this script")
+            .longOpt("file")
+            .build());
+        options.addOption(Option.builder(PROTOCOL_OPTION)
+            .argName("protocol")
+            .hasArg()
+            .desc("protocol of the script: imap or smtp (defaults to imap)")
+            .longOpt("protocol")
+            .build());
+        options.addOption(Option.builder(WORKLOAD_OPTION)
+            .argName("workload")
+            .hasArg()
+            .desc("plays a generated workload: deliver, select, fetch, search or idle")
+            .longOpt("workload")
+            .build());
+        options.addOption(Option.builder(PORT_OPTION)
+            .argName("port")
+            .hasArg()
+            .desc("runs against this port")
+            .longOpt("port")
+            .required()
+            .build());
+        options.addOption(Option.builder(HOST_OPTION)
+            .argName("host")
+            .hasArg()
+            .desc("runs against this host (defaults to localhost)")
+            .longOpt("host")
+            .build());
+        options.addOption(Option.builder(VIRTUAL_USERS_OPTION)
+            .argName("count")
+            .hasArg()
+            .desc("number of concurrent virtual users (defaults to 1)")
+            .longOpt("virtualUsers")
+            .build());
+        options.addOption(Option.builder(ITERATIONS_OPTION)
+            .argName("count")
+            .hasArg()
+            .desc("number of iterations played by each virtual user")
+            .longOpt("iterations")
+            .build());
+        options.addOption(Option.builder(DURATION_OPTION)
+            .argName("seconds")
+            .hasArg()
+            .desc("stops the virtual users after this duration")
+            .longOpt("duration")
+            .build());
+        options.addOption(Option.builder(RAMP_UP_OPTION)
+            .argName("seconds")
+            .hasArg()
+            .desc("starts virtual users progressively over this duration (defaults to 0)")
+            .longOpt("rampUp")
+            .build());
+        options.addOption(Option.builder()
+            .argName("template")
+            .hasArg()
+            .desc("user name template, receiving the user index (defaults to user%d@domain.tld)")
+            .longOpt(USER_TEMPLATE_OPTION)
+            .build());
+        options.addOption(Option.builder()
+            .argName("count")
+            .hasArg()
+            .desc("number of distinct users (defaults to 1)")
+            .longOpt(USER_COUNT_OPTION)
+            .build());
+        options.addOption(Option.builder()
+            .argName("password")
+            .hasArg()
+            .desc("password of the users (defaults to password)")
+            .longOpt(PASSWORD_OPTION)
+            .build());
+        options.addOption(Option.builder()
+            .argName("seconds")
+            .hasArg()
+            .desc("socket timeout (defaults to 60)")
+            .longOpt(TIMEOUT_OPTION)
+            .build());
+        return options;
+    }
+}
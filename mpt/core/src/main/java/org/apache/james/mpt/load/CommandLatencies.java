@@ -0,0 +1,64 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mpt.load;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.google.common.collect.ImmutableSortedMap;
+
+/**
+ * Thread safe collection of per command latency histograms.
+ */
+public class CommandLatencies {
+    private static final long HIGHEST_TRACKABLE_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, ConcurrentHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    public void record(String command, long latencyInNanos) {
+        histograms.computeIfAbsent(command, any -> new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY_NANOS, SIGNIFICANT_DIGITS))
+            .recordValue(Math.min(Math.max(latencyInNanos, 0), HIGHEST_TRACKABLE_LATENCY_NANOS));
+    }
+
+    public void recordFailure(String command) {
+        failures.computeIfAbsent(command, any -> new LongAdder())
+            .increment();
+    }
+
+    public ImmutableSortedMap<String, Histogram> histograms() {
+        return histograms.entrySet().stream()
+            .collect(ImmutableSortedMap.toImmutableSortedMap(String::compareTo,
+                Map.Entry::getKey,
+                entry -> entry.getValue().copy()));
+    }
+
+    public ImmutableSortedMap<String, Long> failures() {
+        return failures.entrySet().stream()
+            .collect(ImmutableSortedMap.toImmutableSortedMap(String::compareTo,
+                Map.Entry::getKey,
+                entry -> entry.getValue().sum()));
+    }
+}
@@ -0,0 +1,167 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mpt.load;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Ready to use workloads, exercising the most common operations of a mail server.
+ *
+ * IMAP workloads operate on a freshly created mailbox, deleted at the end of each iteration,
+ * so that server responses are predictable whatever the number of iterations.
+ */
+public enum GeneratedWorkload implements Workload {
+    DELIVER(LoadProtocol.SMTP, ImmutableList.<String>builder()
+        .add("S: 220 .*")
+        .add("C: HELO load.local")
+        .add("S: 250 .*")
+        .add("C: MAIL FROM:<${user}>")
+        .add("S: 250 .*")
+        .add("C: RCPT TO:<${user}>")
+        .add("S: 250 .*")
+        .add("C: DATA")
+        .add("S: 354 .*")
+        .add("C: From: ${user}")
+        .add("C: To: ${user}")
+        .add("C: Subject: load test ${virtualUser}-${iteration}")
+        .addAll(Scripts.clientLines(Scripts.MESSAGE))
+        .add("C: .")
+        .add("S: 250 .*")
+        .add("C: QUIT")
+        .add("S: 221 .*")
+        .build()),
+    SELECT(LoadProtocol.IMAP, ImmutableList.<String>builder()
+        .addAll(Scripts.IMAP_SETUP)
+        .addAll(Scripts.IMAP_TEARDOWN)
+        .build()),
+    FETCH(LoadProtocol.IMAP, ImmutableList.<String>builder()
+        .addAll(Scripts.IMAP_SETUP)
+        .addAll(Scripts.IMAP_APPEND)
+        .add("C: A10 FETCH 1:* (FLAGS UID RFC822.SIZE INTERNALDATE ENVELOPE)")
+        .add("S: \\* 1 FETCH \\(.*\\)")
+        .add("S: A10 OK.*")
+        .add("C: A11 UID FETCH 1:* (BODYSTRUCTURE)")
+        .add("S: \\* 1 FETCH \\(.*\\)")
+        .add("S: A11 OK.*")
+        .addAll(Scripts.IMAP_TEARDOWN)
+        .build()),
+    SEARCH(LoadProtocol.IMAP, ImmutableList.<String>builder()
+        .addAll(Scripts.IMAP_SETUP)
+        .addAll(Scripts.IMAP_APPEND)
+        .add("C: A10 SEARCH SUBJECT \"load test\"")
+        .add("S: \\* SEARCH 1")
+        .add("S: A10 OK.*")
+        .add("C: A11 UID SEARCH UNSEEN FROM load-generator")
+        .add("S: \\* SEARCH \\d+")
+        .add("S: A11 OK.*")
+        .addAll(Scripts.IMAP_TEARDOWN)
+        .build()),
+    IDLE(LoadProtocol.IMAP, ImmutableList.<String>builder()
+        .addAll(Scripts.IMAP_SETUP)
+        .add("C: A10 IDLE")
+        .add("S: \\+ Idling")
+        .add("C: DONE")
+        .add("S: A10 OK.*")
+        .addAll(Scripts.IMAP_TEARDOWN)
+        .build());
+
+    private static class Scripts {
+        private static final ImmutableList<String> MESSAGE = ImmutableList.of(
+            "Content-Type: text/plain; charset=us-ascii",
+            "",
+            "This message was generated by the MPT load generator.",
+            "It carries just enough content to be representative of a small notification mail.");
+
+        private static final ImmutableList<String> APPENDED_MESSAGE = ImmutableList.<String>builder()
+            .add("From: load-generator@load.local")
+            .add("Subject: load test")
+            .addAll(MESSAGE)
+            .build();
+
+        private static final ImmutableList<String> IMAP_SETUP = ImmutableList.of(
+            "S: \\* OK .*",
+            "C: A1 LOGIN ${user} ${password}",
+            "S: A1 OK.*",
+            "C: A2 CREATE ${mailbox}",
+            "S: A2 OK.*",
+            "C: A3 SELECT ${mailbox}",
+            "S: \\* FLAGS .*",
+            "S: \\* \\d+ EXISTS",
+            "S: \\* \\d+ RECENT",
+            "S: \\* OK \\[UIDVALIDITY \\d+\\].*",
+            "S: \\* OK \\[PERMANENTFLAGS .*",
+            "S: \\* OK \\[HIGHESTMODSEQ \\d+\\].*",
+            "S: \\* OK \\[UIDNEXT \\d+\\].*",
+            "S: A3 OK \\[READ-WRITE\\].*");
+
+        private static final ImmutableList<String> IMAP_APPEND = ImmutableList.<String>builder()
+            .add("C: A4 APPEND ${mailbox} {" + literalSize(APPENDED_MESSAGE) + "+}")
+            .addAll(clientLines(APPENDED_MESSAGE))
+            .add("S: \\* 1 EXISTS")
+            .add("S: \\* 1 RECENT")
+            .add("S: A4 OK.*")
+            .build();
+
+        private static final ImmutableList<String> IMAP_TEARDOWN = ImmutableList.of(
+            "C: A20 CLOSE",
+            "S: A20 OK.*",
+            "C: A21 DELETE ${mailbox}",
+            "S: A21 OK.*",
+            "C: A22 LOGOUT",
+            "S: \\* BYE.*",
+            "S: A22 OK.*");
+
+        private static ImmutableList<String> clientLines(ImmutableList<String> lines) {
+            return lines.stream()
+                .map(line -> "C: " + line)
+                .collect(ImmutableList.toImmutableList());
+        }
+
+        private static int literalSize(ImmutableList<String> lines) {
+            return Joiner.on("\r\n").join(lines).getBytes(StandardCharsets.US_ASCII).length;
+        }
+    }
+
+    private final LoadProtocol protocol;
+    private final String script;
+
+    GeneratedWorkload(LoadProtocol protocol, ImmutableList<String> lines) {
+        this.protocol = protocol;
+        this.script = Joiner.on('\n').join(lines);
+    }
+
+    @Override
+    public String getName() {
+        return name().toLowerCase(Locale.US);
+    }
+
+    @Override
+    public LoadProtocol getProtocol() {
+        return protocol;
+    }
+
+    @Override
+    public String getScript() {
+        return script;
+    }
+}
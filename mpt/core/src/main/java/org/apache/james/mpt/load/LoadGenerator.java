@@ -0,0 +1,229 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mpt.load;
+
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.james.mpt.Runner;
+import org.apache.james.mpt.api.SessionFactory;
+import org.apache.james.mpt.protocol.ProtocolSessionBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Plays a {@link Workload} concurrently with many virtual users, each of them running the
+ * workload script in a loop, and reports throughput and latency percentiles per command.
+ *
+ * A failing iteration (unexpected server response, connection error) is accounted as a failure
+ * of the command being executed, and the virtual user proceeds with its next iteration.
+ */
+public class LoadGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
+
+    public static class Builder {
+        private SessionFactory sessionFactory;
+        private Workload workload;
+        private int virtualUsers = 1;
+        private int iterations = 1;
+        private Optional<Duration> duration = Optional.empty();
+        private Duration rampUp = Duration.ZERO;
+        private String userTemplate = "user%d@domain.tld";
+        private int userCount = 1;
+        private String password = "password";
+
+        private Builder() {
+        }
+
+        public Builder sessionFactory(SessionFactory sessionFactory) {
+            this.sessionFactory = sessionFactory;
+            return this;
+        }
+
+        public Builder workload(Workload workload) {
+            this.workload = workload;
+            return this;
+        }
+
+        public Builder virtualUsers(int virtualUsers) {
+            this.virtualUsers = virtualUsers;
+            return this;
+        }
+
+        public Builder iterations(int iterations) {
+            this.iterations = iterations;
+            return this;
+        }
+
+        /**
+         * Stops the virtual users once this duration elapsed, regardless of the iteration count.
+         */
+        public Builder duration(Duration duration) {
+            this.duration = Optional.of(duration);
+            return this;
+        }
+
+        /**
+         * Virtual users are started progressively over this duration.
+         */
+        public Builder rampUp(Duration rampUp) {
+            this.rampUp = rampUp;
+            return this;
+        }
+
+        /**
+         * @param userTemplate {@link String#format(String, Object...)} template receiving the user index
+         * @param userCount number of distinct users, virtual users share them in a round robin fashion
+         */
+        public Builder users(String userTemplate, int userCount) {
+            this.userTemplate = userTemplate;
+            this.userCount = userCount;
+            return this;
+        }
+
+        public Builder password(String password) {
+            this.password = password;
+            return this;
+        }
+
+        public LoadGenerator build() {
+            Preconditions.checkNotNull(sessionFactory, "'sessionFactory' is compulsory");
+            Preconditions.checkNotNull(workload, "'workload' is compulsory");
+            Preconditions.checkArgument(virtualUsers > 0, "'virtualUsers' should be strictly positive");
+            Preconditions.checkArgument(iterations > 0, "'iterations' should be strictly positive");
+            Preconditions.checkArgument(userCount > 0, "'userCount' should be strictly positive");
+            Preconditions.checkArgument(!rampUp.isNegative(), "'rampUp' should not be negative");
+
+            return new LoadGenerator(sessionFactory, workload, virtualUsers, iterations, duration, rampUp,
+                userTemplate, userCount, password);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final SessionFactory sessionFactory;
+    private final Workload workload;
+    private final int virtualUsers;
+    private final int iterations;
+    private final Optional<Duration> duration;
+    private final Duration rampUp;
+    private final String userTemplate;
+    private final int userCount;
+    private final String password;
+    private final CommandLatencies latencies;
+    private final LongAdder succeededIterations;
+    private final LongAdder failedIterations;
+
+    private LoadGenerator(SessionFactory sessionFactory, Workload workload, int virtualUsers, int iterations,
+                          Optional<Duration> duration, Duration rampUp, String userTemplate, int userCount, String password) {
+        this.sessionFactory = sessionFactory;
+        this.workload = workload;
+        this.virtualUsers = virtualUsers;
+        this.iterations = iterations;
+        this.duration = duration;
+        this.rampUp = rampUp;
+        this.userTemplate = userTemplate;
+        this.userCount = userCount;
+        this.password = password;
+        this.latencies = new CommandLatencies();
+        this.succeededIterations = new LongAdder();
+        this.failedIterations = new LongAdder();
+    }
+
+    public LoadReport run() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(virtualUsers, new ThreadFactoryBuilder()
+            .setNameFormat("mpt-virtual-user-%d")
+            .setDaemon(true)
+            .build());
+        long start = System.nanoTime();
+        Optional<Long> deadline = duration.map(value -> start + value.toNanos());
+
+        for (int virtualUser = 0; virtualUser < virtualUsers; virtualUser++) {
+            int index = virtualUser;
+            long startDelay = rampUp.toNanos() * index / virtualUsers;
+            executor.execute(() -> runVirtualUser(index, start + startDelay, deadline));
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        return new LoadReport(workload.getName(), virtualUsers, Duration.ofNanos(System.nanoTime() - start),
+            succeededIterations.sum(), failedIterations.sum(), latencies.histograms(), latencies.failures());
+    }
+
+    private void runVirtualUser(int virtualUser, long startTime, Optional<Long> deadline) {
+        try {
+            long delay = startTime - System.nanoTime();
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            for (int iteration = 0; iteration < iterations && !deadlineReached(deadline); iteration++) {
+                runIteration(virtualUser, iteration);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean deadlineReached(Optional<Long> deadline) {
+        return deadline.map(value -> System.nanoTime() - value >= 0)
+            .orElse(false);
+    }
+
+    private void runIteration(int virtualUser, int iteration) {
+        List<TimedSession> sessions = new ArrayList<>();
+        try {
+            Runner runner = new Runner();
+            builder(virtualUser, iteration)
+                .addProtocolLines(workload.getName(), new StringReader(workload.getScript()), runner.getTestElements());
+            runner.runSessions(continuation -> {
+                TimedSession session = new TimedSession(sessionFactory.newSession(continuation), workload.getProtocol(), latencies);
+                sessions.add(session);
+                return session;
+            });
+            sessions.forEach(TimedSession::complete);
+            succeededIterations.increment();
+        } catch (Exception e) {
+            LOGGER.debug("Iteration {} of virtual user {} failed", iteration, virtualUser, e);
+            sessions.forEach(TimedSession::fail);
+            failedIterations.increment();
+        }
+    }
+
+    private ProtocolSessionBuilder builder(int virtualUser, int iteration) {
+        ProtocolSessionBuilder builder = new ProtocolSessionBuilder();
+        builder.setVariable("user", String.format(userTemplate, virtualUser % userCount));
+        builder.setVariable("password", password);
+        builder.setVariable("mailbox", "load-" + virtualUser + "-" + iteration);
+        builder.setVariable("virtualUser", String.valueOf(virtualUser));
+        builder.setVariable("iteration", String.valueOf(iteration));
+        return builder;
+    }
+}
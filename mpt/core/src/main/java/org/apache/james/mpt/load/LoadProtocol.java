@@ -0,0 +1,152 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mpt.load;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Knows how to recognise the client lines starting a new command of a line based protocol,
+ * so that latencies can be recorded per command.
+ */
+public enum LoadProtocol {
+    IMAP(ImmutableSet.of("CAPABILITY", "NOOP", "LOGOUT", "STARTTLS", "AUTHENTICATE", "LOGIN", "SELECT", "EXAMINE",
+        "CREATE", "DELETE", "RENAME", "SUBSCRIBE", "UNSUBSCRIBE", "LIST", "LSUB", "XLIST", "STATUS", "APPEND", "CHECK",
+        "CLOSE", "EXPUNGE", "SEARCH", "FETCH", "STORE", "COPY", "MOVE", "IDLE", "NAMESPACE", "ENABLE", "UNSELECT",
+        "GETQUOTA", "GETQUOTAROOT", "SETQUOTA", "GETACL", "SETACL", "DELETEACL", "LISTRIGHTS", "MYRIGHTS", "ID",
+        "GETMETADATA", "SETMETADATA", "COMPRESS")) {
+        @Override
+        public CommandRecognizer newRecognizer() {
+            return new CommandRecognizer() {
+                private long literalBytesRemaining = 0;
+
+                @Override
+                public Optional<String> commandName(String clientLine) {
+                    if (literalBytesRemaining > 0) {
+                        literalBytesRemaining = Math.max(0, literalBytesRemaining - clientLine.length() - CRLF_LENGTH);
+                        return Optional.empty();
+                    }
+                    literalBytesRemaining = literalLength(clientLine);
+                    return imapCommandName(clientLine);
+                }
+            };
+        }
+    },
+    SMTP(ImmutableSet.of("HELO", "EHLO", "LHLO", "MAIL", "RCPT", "DATA", "RSET", "NOOP", "QUIT", "VRFY", "EXPN",
+        "AUTH", "STARTTLS")) {
+        @Override
+        public CommandRecognizer newRecognizer() {
+            return new CommandRecognizer() {
+                private boolean inMessageContent = false;
+
+                @Override
+                public Optional<String> commandName(String clientLine) {
+                    if (inMessageContent) {
+                        inMessageContent = !clientLine.equals(END_OF_DATA);
+                        return Optional.empty();
+                    }
+                    Optional<String> command = smtpCommandName(clientLine);
+                    inMessageContent = command.filter(DATA::equals).isPresent();
+                    return command;
+                }
+            };
+        }
+    };
+
+    /**
+     * Stateful recogniser of the commands of a single session.
+     */
+    public interface CommandRecognizer {
+        /**
+         * @return the name of the command started by this client line, or empty if this line
+         * is the continuation of the previous command (literal, message content, IDLE termination...)
+         */
+        Optional<String> commandName(String clientLine);
+    }
+
+    private static final Splitter SPACE_SPLITTER = Splitter.on(' ').omitEmptyStrings();
+    private static final Pattern LITERAL = Pattern.compile("\\{(\\d+)\\+?}$");
+    private static final int CRLF_LENGTH = 2;
+    private static final String DATA = "DATA";
+    private static final String END_OF_DATA = ".";
+
+    private static ImmutableList<String> tokens(String clientLine, int limit) {
+        return SPACE_SPLITTER.limit(limit).splitToList(clientLine).stream()
+            .collect(ImmutableList.toImmutableList());
+    }
+
+    private static long literalLength(String clientLine) {
+        Matcher matcher = LITERAL.matcher(clientLine);
+        if (matcher.find()) {
+            return Long.parseLong(matcher.group(1));
+        }
+        return 0;
+    }
+
+    private final ImmutableSet<String> commands;
+
+    LoadProtocol(ImmutableSet<String> commands) {
+        this.commands = commands;
+    }
+
+    /**
+     * Message content and literals can only be told apart from commands by following the
+     * session, hence a recogniser needs to be created for each session.
+     */
+    public abstract CommandRecognizer newRecognizer();
+
+    Optional<String> imapCommandName(String clientLine) {
+        ImmutableList<String> tokens = tokens(clientLine, 4);
+        if (tokens.size() < 2) {
+            return Optional.empty();
+        }
+        String command = tokens.get(1).toUpperCase(Locale.US);
+        if (command.equals("UID") && tokens.size() > 2) {
+            return knownCommand(tokens.get(2)).map(subCommand -> "UID " + subCommand);
+        }
+        return knownCommand(command);
+    }
+
+    Optional<String> smtpCommandName(String clientLine) {
+        ImmutableList<String> tokens = tokens(clientLine, 2);
+        if (tokens.isEmpty()) {
+            return Optional.empty();
+        }
+        String command = tokens.get(0);
+        int colon = command.indexOf(':');
+        if (colon > 0) {
+            command = command.substring(0, colon);
+        }
+        return knownCommand(command);
+    }
+
+    Optional<String> knownCommand(String token) {
+        String command = token.toUpperCase(Locale.US);
+        if (commands.contains(command)) {
+            return Optional.of(command);
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,120 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mpt.load;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Sets;
+
+public class LoadReport {
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String workload;
+    private final int virtualUsers;
+    private final Duration elapsed;
+    private final long succeededIterations;
+    private final long failedIterations;
+    private final ImmutableSortedMap<String, Histogram> latencies;
+    private final ImmutableSortedMap<String, Long> failures;
+
+    public LoadReport(String workload, int virtualUsers, Duration elapsed, long succeededIterations, long failedIterations,
+                      ImmutableSortedMap<String, Histogram> latencies, ImmutableSortedMap<String, Long> failures) {
+        this.workload = workload;
+        this.virtualUsers = virtualUsers;
+        this.elapsed = elapsed;
+        this.succeededIterations = succeededIterations;
+        this.failedIterations = failedIterations;
+        this.latencies = latencies;
+        this.failures = failures;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public long getSucceededIterations() {
+        return succeededIterations;
+    }
+
+    public long getFailedIterations() {
+        return failedIterations;
+    }
+
+    public ImmutableSortedMap<String, Histogram> getLatencies() {
+        return latencies;
+    }
+
+    public ImmutableSortedMap<String, Long> getFailures() {
+        return failures;
+    }
+
+    public double throughput(String command) {
+        return count(command) / seconds();
+    }
+
+    public String asText() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Workload %s: %d virtual users, %d iterations succeeded, %d failed in %.3f s (%.1f iterations/s)%n",
+            workload, virtualUsers, succeededIterations, failedIterations, seconds(), (succeededIterations + failedIterations) / seconds()));
+        report.append(String.format("%-14s %10s %9s %11s %9s %9s %9s %9s %9s%n",
+            "Command", "Count", "Failures", "Ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        Set<String> commands = ImmutableSortedSet.copyOf(Sets.union(latencies.keySet(), failures.keySet()));
+        commands.forEach(command -> report.append(line(command)));
+        return report.toString();
+    }
+
+    private String line(String command) {
+        Histogram histogram = latencies.get(command);
+        if (histogram == null) {
+            return String.format("%-14s %10d %9d %11.1f%n", command, 0, failures.getOrDefault(command, 0L), 0.0);
+        }
+        return String.format("%-14s %10d %9d %11.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+            command,
+            histogram.getTotalCount(),
+            failures.getOrDefault(command, 0L),
+            throughput(command),
+            millis(histogram.getValueAtPercentile(50)),
+            millis(histogram.getValueAtPercentile(90)),
+            millis(histogram.getValueAtPercentile(99)),
+            millis(histogram.getValueAtPercentile(99.9)),
+            millis(histogram.getMaxValue()));
+    }
+
+    private long count(String command) {
+        Histogram histogram = latencies.get(command);
+        if (histogram == null) {
+            return 0;
+        }
+        return histogram.getTotalCount();
+    }
+
+    private double seconds() {
+        return Math.max(elapsed.toNanos(), 1) / 1_000_000_000.0;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
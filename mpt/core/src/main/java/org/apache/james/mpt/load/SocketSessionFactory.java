@@ -0,0 +1,125 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mpt.load;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.apache.james.mpt.api.Continuation;
+import org.apache.james.mpt.api.Session;
+import org.apache.james.mpt.api.SessionFactory;
+
+/**
+ * Creates sessions relying on blocking sockets.
+ *
+ * Unlike {@link org.apache.james.mpt.session.ExternalSessionFactory}, reads do not poll the
+ * socket: the latency measured on a read is the one of the server.
+ */
+public class SocketSessionFactory implements SessionFactory {
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    static class SocketSession implements Session {
+        private final InetSocketAddress address;
+        private final Duration timeout;
+        private final ByteArrayOutputStream lineBuffer;
+        private Socket socket;
+        private InputStream input;
+        private OutputStream output;
+
+        SocketSession(InetSocketAddress address, Duration timeout) {
+            this.address = address;
+            this.timeout = timeout;
+            this.lineBuffer = new ByteArrayOutputStream();
+        }
+
+        @Override
+        public String readLine() throws Exception {
+            lineBuffer.reset();
+            int next = input.read();
+            while (next != '\n') {
+                if (next == -1) {
+                    throw new EOFException("Connection closed by " + address);
+                }
+                if (next != '\r') {
+                    lineBuffer.write(next);
+                }
+                next = input.read();
+            }
+            return new String(lineBuffer.toByteArray(), StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public void writeLine(String line) throws Exception {
+            output.write(line.getBytes(StandardCharsets.US_ASCII));
+            output.write(CRLF);
+            output.flush();
+        }
+
+        @Override
+        public void start() throws Exception {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(Math.toIntExact(timeout.toMillis()));
+            socket.connect(address, Math.toIntExact(timeout.toMillis()));
+            input = new BufferedInputStream(socket.getInputStream());
+            output = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        @Override
+        public void restart() throws Exception {
+            stop();
+            start();
+        }
+
+        @Override
+        public void stop() throws Exception {
+            if (socket != null) {
+                socket.close();
+            }
+        }
+
+        /**
+         * Server side processing can not be observed through a socket: scripts synchronize on server responses.
+         */
+        @Override
+        public void await() {
+        }
+    }
+
+    private final InetSocketAddress address;
+    private final Duration timeout;
+
+    public SocketSessionFactory(InetSocketAddress address, Duration timeout) {
+        this.address = address;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public Session newSession(Continuation continuation) {
+        return new SocketSession(address, timeout);
+    }
+}
@@ -0,0 +1,127 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mpt.load;
+
+import java.util.Optional;
+
+import org.apache.james.mpt.api.Session;
+
+/**
+ * Session decorator recording the latency of each command into {@link CommandLatencies}.
+ *
+ * A command starts when the client writes a line recognised as a command by the
+ * {@link LoadProtocol}, and ends with the last server line read before the next command is
+ * written. Lines written before any server line was read (pipelined commands, message
+ * content, literals) are accounted to the current command. Connection establishment is
+ * recorded as the {@link #CONNECT} command, ending with the server greeting.
+ *
+ * The last command of a session is only accounted once the outcome of the script is known,
+ * using either {@link #complete()} or {@link #fail()}.
+ */
+public class TimedSession implements Session {
+    public static final String CONNECT = "CONNECT";
+
+    private final Session delegate;
+    private final LoadProtocol protocol;
+    private final CommandLatencies latencies;
+    private LoadProtocol.CommandRecognizer commandRecognizer;
+    private Optional<String> currentCommand;
+    private long commandStart;
+    private long lastRead;
+    private boolean readSinceCommandStart;
+
+    public TimedSession(Session delegate, LoadProtocol protocol, CommandLatencies latencies) {
+        this.delegate = delegate;
+        this.protocol = protocol;
+        this.commandRecognizer = protocol.newRecognizer();
+        this.latencies = latencies;
+        this.currentCommand = Optional.empty();
+    }
+
+    @Override
+    public String readLine() throws Exception {
+        String line = delegate.readLine();
+        lastRead = System.nanoTime();
+        readSinceCommandStart = true;
+        return line;
+    }
+
+    @Override
+    public void writeLine(String line) throws Exception {
+        Optional<String> command = commandRecognizer.commandName(line);
+        if (command.isPresent() && (readSinceCommandStart || !currentCommand.isPresent())) {
+            completeCurrentCommand();
+            startCommand(command.get());
+        }
+        delegate.writeLine(line);
+    }
+
+    @Override
+    public void start() throws Exception {
+        startCommand(CONNECT);
+        delegate.start();
+    }
+
+    @Override
+    public void restart() throws Exception {
+        completeCurrentCommand();
+        commandRecognizer = protocol.newRecognizer();
+        startCommand(CONNECT);
+        delegate.restart();
+    }
+
+    @Override
+    public void stop() throws Exception {
+        delegate.stop();
+    }
+
+    @Override
+    public void await() throws Exception {
+        delegate.await();
+    }
+
+    /**
+     * Accounts the current command as successful.
+     */
+    public void complete() {
+        completeCurrentCommand();
+    }
+
+    /**
+     * Accounts the current command as failed, typically because the server answered something unexpected.
+     */
+    public void fail() {
+        currentCommand.ifPresent(latencies::recordFailure);
+        currentCommand = Optional.empty();
+    }
+
+    private void startCommand(String command) {
+        currentCommand = Optional.of(command);
+        commandStart = System.nanoTime();
+        readSinceCommandStart = false;
+    }
+
+    private void completeCurrentCommand() {
+        if (readSinceCommandStart) {
+            currentCommand.ifPresent(command -> latencies.record(command, lastRead - commandStart));
+        }
+        currentCommand = Optional.empty();
+        readSinceCommandStart = false;
+    }
+}
@@ -0,0 +1,69 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mpt.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * A MPT script played by each virtual user of a load test.
+ *
+ * The script can use the following variables, substituted for each iteration:
+ * <ul>
+ *     <li>${user}: the user the virtual user acts as</li>
+ *     <li>${password}: its password</li>
+ *     <li>${mailbox}: a mailbox name unique to this virtual user and iteration</li>
+ *     <li>${virtualUser}: the index of the virtual user</li>
+ *     <li>${iteration}: the index of the iteration</li>
+ * </ul>
+ */
+public interface Workload {
+
+    static Workload fromFile(File file, LoadProtocol protocol) throws IOException {
+        String script = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        return of(file.getName(), protocol, script);
+    }
+
+    static Workload of(String name, LoadProtocol protocol, String script) {
+        return new Workload() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public LoadProtocol getProtocol() {
+                return protocol;
+            }
+
+            @Override
+            public String getScript() {
+                return script;
+            }
+        };
+    }
+
+    String getName();
+
+    LoadProtocol getProtocol();
+
+    String getScript();
+}
@@ -0,0 +1,83 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mpt.load;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+
+import org.apache.james.mpt.api.Session;
+
+class FakeSmtpSession implements Session {
+    private final Deque<String> responses = new ArrayDeque<>();
+    private final String rejectedRecipient;
+    private boolean inData = false;
+
+    FakeSmtpSession(String rejectedRecipient) {
+        this.rejectedRecipient = rejectedRecipient;
+    }
+
+    @Override
+    public String readLine() {
+        return responses.removeFirst();
+    }
+
+    @Override
+    public void writeLine(String line) {
+        if (inData) {
+            if (line.equals(".")) {
+                inData = false;
+                responses.add("250 2.6.0 Message received");
+            }
+            return;
+        }
+        String command = line.toUpperCase(Locale.US);
+        if (command.startsWith("HELO") || command.startsWith("MAIL")) {
+            responses.add("250 OK");
+        } else if (command.startsWith("RCPT")) {
+            if (line.contains(rejectedRecipient)) {
+                responses.add("550 Unknown user");
+            } else {
+                responses.add("250 OK");
+            }
+        } else if (command.startsWith("DATA")) {
+            inData = true;
+            responses.add("354 Ok Send data ending with <CRLF>.<CRLF>");
+        } else if (command.startsWith("QUIT")) {
+            responses.add("221 Bye");
+        }
+    }
+
+    @Override
+    public void start() {
+        responses.add("220 fake smtp");
+    }
+
+    @Override
+    public void restart() {
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public void await() {
+    }
+}
@@ -0,0 +1,95 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mpt.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class LoadGeneratorTest {
+    private static final String REJECTED = "rejected@domain.tld";
+
+    @Test
+    void runShouldReportLatenciesPerCommand() throws Exception {
+        LoadReport report = LoadGenerator.builder()
+            .sessionFactory(continuation -> new FakeSmtpSession(REJECTED))
+            .workload(GeneratedWorkload.DELIVER)
+            .virtualUsers(4)
+            .iterations(5)
+            .build()
+            .run();
+
+        assertThat(report.getSucceededIterations()).isEqualTo(20);
+        assertThat(report.getFailedIterations()).isZero();
+        assertThat(report.getLatencies().keySet())
+            .containsExactly(TimedSession.CONNECT, "DATA", "HELO", "MAIL", "QUIT", "RCPT");
+        assertThat(report.getLatencies().get("DATA").getTotalCount()).isEqualTo(20);
+    }
+
+    @Test
+    void runShouldReportFailedCommands() throws Exception {
+        LoadReport report = LoadGenerator.builder()
+            .sessionFactory(continuation -> new FakeSmtpSession(REJECTED))
+            .workload(GeneratedWorkload.DELIVER)
+            .users("rejected@domain.tld", 1)
+            .iterations(3)
+            .build()
+            .run();
+
+        assertThat(report.getFailedIterations()).isEqualTo(3);
+        assertThat(report.getFailures()).containsEntry("RCPT", 3L);
+        assertThat(report.getLatencies()).doesNotContainKey("RCPT");
+    }
+
+    @Test
+    void runShouldAccountConnectionFailures() throws Exception {
+        LoadReport report = LoadGenerator.builder()
+            .sessionFactory(continuation -> {
+                throw new IllegalStateException("Connection refused");
+            })
+            .workload(GeneratedWorkload.DELIVER)
+            .iterations(2)
+            .build()
+            .run();
+
+        assertThat(report.getFailedIterations()).isEqualTo(2);
+    }
+
+    @Test
+    void asTextShouldListCommands() throws Exception {
+        LoadReport report = LoadGenerator.builder()
+            .sessionFactory(continuation -> new FakeSmtpSession(REJECTED))
+            .workload(GeneratedWorkload.DELIVER)
+            .build()
+            .run();
+
+        assertThat(report.asText())
+            .contains("Workload deliver")
+            .contains("RCPT");
+    }
+
+    @Test
+    void buildShouldRequireAWorkload() {
+        assertThatThrownBy(() -> LoadGenerator.builder()
+                .sessionFactory(continuation -> new FakeSmtpSession(REJECTED))
+                .build())
+            .isInstanceOf(NullPointerException.class);
+    }
+}
@@ -0,0 +1,110 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.mpt.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class LoadProtocolTest {
+    @Test
+    void imapShouldExtractCommandAfterTag() {
+        assertThat(LoadProtocol.IMAP.newRecognizer().commandName("A1 login user password")).contains("LOGIN");
+    }
+
+    @Test
+    void imapShouldExtractUidSubCommand() {
+        assertThat(LoadProtocol.IMAP.newRecognizer().commandName("A1 UID FETCH 1:* (FLAGS)")).contains("UID FETCH");
+    }
+
+    @Test
+    void imapShouldIgnoreLiteralContent() {
+        assertThat(LoadProtocol.IMAP.newRecognizer().commandName("Subject: test subject")).isEmpty();
+    }
+
+    @Test
+    void imapShouldIgnoreIdleTermination() {
+        assertThat(LoadProtocol.IMAP.newRecognizer().commandName("DONE")).isEmpty();
+    }
+
+    @Test
+    void smtpShouldExtractCommandBeforeColon() {
+        assertThat(LoadProtocol.SMTP.newRecognizer().commandName("mail from:<bob@domain.tld>")).contains("MAIL");
+    }
+
+    @Test
+    void smtpShouldIgnoreMessageContent() {
+        assertThat(LoadProtocol.SMTP.newRecognizer().commandName("This is the body")).isEmpty();
+    }
+
+    @Test
+    void smtpShouldIgnoreEmptyLines() {
+        assertThat(LoadProtocol.SMTP.newRecognizer().commandName("")).isEmpty();
+    }
+
+    @Test
+    void smtpShouldIgnoreMessageContentLookingLikeCommands() {
+        LoadProtocol.CommandRecognizer recognizer = LoadProtocol.SMTP.newRecognizer();
+
+        assertThat(recognizer.commandName("DATA")).contains("DATA");
+        assertThat(recognizer.commandName("Quit smoking in 10 days")).isEmpty();
+        assertThat(recognizer.commandName("Help: see attached")).isEmpty();
+        assertThat(recognizer.commandName("Data")).isEmpty();
+    }
+
+    @Test
+    void smtpShouldRecognizeCommandsAfterEndOfData() {
+        LoadProtocol.CommandRecognizer recognizer = LoadProtocol.SMTP.newRecognizer();
+
+        recognizer.commandName("DATA");
+        recognizer.commandName("Quit smoking in 10 days");
+        recognizer.commandName(".");
+
+        assertThat(recognizer.commandName("QUIT")).contains("QUIT");
+    }
+
+    @Test
+    void smtpShouldNotEndDataOnDotStuffedLines() {
+        LoadProtocol.CommandRecognizer recognizer = LoadProtocol.SMTP.newRecognizer();
+
+        recognizer.commandName("DATA");
+        recognizer.commandName("..");
+
+        assertThat(recognizer.commandName("QUIT")).isEmpty();
+    }
+
+    @Test
+    void imapShouldIgnoreLiteralContentLookingLikeCommands() {
+        LoadProtocol.CommandRecognizer recognizer = LoadProtocol.IMAP.newRecognizer();
+
+        assertThat(recognizer.commandName("A1 APPEND INBOX {22}")).contains("APPEND");
+        assertThat(recognizer.commandName("A2 FETCH 1:* (FLAGS)")).isEmpty();
+        assertThat(recognizer.commandName("A3 NOOP")).contains("NOOP");
+    }
+
+    @Test
+    void imapShouldIgnoreNonSynchronizingLiteralContent() {
+        LoadProtocol.CommandRecognizer recognizer = LoadProtocol.IMAP.newRecognizer();
+
+        recognizer.commandName("A1 APPEND INBOX {7+}");
+
+        assertThat(recognizer.commandName("A2 NOOP")).isEmpty();
+        assertThat(recognizer.commandName("A3 NOOP")).contains("NOOP");
+    }
+}
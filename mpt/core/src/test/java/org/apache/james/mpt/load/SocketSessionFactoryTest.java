@@ -0,0 +1,106 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mpt.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.james.mpt.api.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SocketSessionFactoryTest {
+    private ServerSocket serverSocket;
+    private ExecutorService executor;
+    private AtomicInteger connectionCount;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        serverSocket = new ServerSocket(0);
+        executor = Executors.newSingleThreadExecutor();
+        connectionCount = new AtomicInteger();
+        executor.submit(() -> {
+            while (!serverSocket.isClosed()) {
+                try (Socket socket = serverSocket.accept();
+                     OutputStream outputStream = socket.getOutputStream()) {
+                    outputStream.write(("* OK greeting " + connectionCount.incrementAndGet() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                    outputStream.flush();
+                    socket.getInputStream().read();
+                } catch (IOException e) {
+                    // server stopped, or client disconnected
+                }
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private Session newSession() {
+        return new SocketSessionFactory(new InetSocketAddress("127.0.0.1", serverSocket.getLocalPort()), Duration.ofSeconds(10))
+            .newSession(null);
+    }
+
+    @Test
+    void readLineShouldReadServerGreeting() throws Exception {
+        Session session = newSession();
+        session.start();
+
+        assertThat(session.readLine()).isEqualTo("* OK greeting 1");
+        session.stop();
+    }
+
+    @Test
+    void restartShouldOpenANewConnection() throws Exception {
+        Session session = newSession();
+        session.start();
+        session.readLine();
+
+        session.restart();
+
+        assertThat(session.readLine()).isEqualTo("* OK greeting 2");
+        session.stop();
+    }
+
+    @Test
+    void awaitShouldNotFail() throws Exception {
+        Session session = newSession();
+        session.start();
+
+        session.await();
+
+        assertThat(session.readLine()).isEqualTo("* OK greeting 1");
+        session.stop();
+    }
+}
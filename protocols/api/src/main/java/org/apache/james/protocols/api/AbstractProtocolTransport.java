@@ -22,6 +22,11 @@ package org.apache.james.protocols.api;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
@@ -29,10 +34,15 @@ import java.util.List;
  * stuff when handling {@link Response}'s.
  */
 public abstract class AbstractProtocolTransport implements ProtocolTransport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractProtocolTransport.class);
     private static final String CRLF = "\r\n";
     
     @Override
     public final void writeResponse(Response response, ProtocolSession session) {
+        if (response instanceof FutureResponse) {
+            writeFutureResponse((FutureResponse) response, session);
+            return;
+        }
         if (response != null) {
             boolean startTLS = false;
             if (response instanceof StartTlsResponse) {
@@ -62,11 +72,45 @@ public abstract class AbstractProtocolTransport implements ProtocolTransport {
         }
     }
 
+    /**
+     * Write the {@link FutureResponse} to the remote peer once it completes. No further line of the session
+     * should be processed meanwhile, so this default implementation just waits for it.
+     */
+    protected void writeFutureResponse(FutureResponse response, ProtocolSession session) {
+        Response result;
+        try {
+            result = response.getResponse().join();
+        } catch (CompletionException | CancellationException e) {
+            writeCompletedResponse(null, e, session);
+            return;
+        }
+        writeCompletedResponse(result, null, session);
+    }
+
+    /**
+     * Write back the outcome of a completed {@link FutureResponse}, or a fatal error if it failed
+     */
+    protected void writeCompletedResponse(Response response, Throwable error, ProtocolSession session) {
+        if (error != null) {
+            LOGGER.error("Unable to compute the response", error);
+            writeResponse(session.newFatalErrorResponse(), session);
+        } else {
+            writeResponse(response, session);
+        }
+    }
+
     /**
      * Take the {@link Response} and encode it to a <code>byte</code> array
      * @return bytes
      */
     protected static byte[] toBytes(Response response) {
+        if (response instanceof ImmutableResponse) {
+            return ((ImmutableResponse) response).encoded();
+        }
+        return encode(response);
+    }
+
+    static byte[] encode(Response response) {
         StringBuilder builder = new StringBuilder();
         List<CharSequence> lines = response.getLines();
         for (int i = 0; i < lines.size(); i++) {
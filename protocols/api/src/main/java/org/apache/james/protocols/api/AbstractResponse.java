@@ -108,23 +108,7 @@ public abstract class AbstractResponse implements Response {
      * @return immutable
      */
     public Response immutable() {
-        return new Response() {
-            
-            @Override
-            public boolean isEndSession() {
-                return AbstractResponse.this.isEndSession();
-            }
-            
-            @Override
-            public String getRetCode() {
-                return AbstractResponse.this.getRetCode();
-            }
-            
-            @Override
-            public List<CharSequence> getLines() {
-                return AbstractResponse.this.getLines();
-            }
-        };
+        return new ImmutableResponse(this);
     }
 
 }
@@ -0,0 +1,91 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.protocols.api;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.UnaryOperator;
+
+import com.google.common.base.Throwables;
+
+/**
+ * {@link Response} which is not available yet, for instance because it depends on a remote call.
+ *
+ * The {@link ProtocolTransport} does not hold a thread while waiting for it: it stops handing the lines received
+ * for this session to the protocol, writes the {@link Response} once it completes and then resumes the processing.
+ */
+public class FutureResponse implements Response {
+
+    /**
+     * Return the actual {@link Response} when it is already available, a {@link FutureResponse} otherwise
+     */
+    public static Response of(CompletableFuture<Response> response) {
+        if (response.isDone()) {
+            try {
+                return response.join();
+            } catch (CompletionException e) {
+                Throwables.throwIfUnchecked(e.getCause());
+                throw e;
+            }
+        }
+        return new FutureResponse(response);
+    }
+
+    private final CompletableFuture<Response> response;
+
+    public FutureResponse(CompletableFuture<Response> response) {
+        this.response = response;
+    }
+
+    /**
+     * Return the future of the actual {@link Response}. It may complete with <code>null</code> when there is
+     * nothing to write back to the client.
+     */
+    public CompletableFuture<Response> getResponse() {
+        return response;
+    }
+
+    /**
+     * Return a {@link FutureResponse} completing with the given function applied to the actual {@link Response}
+     */
+    public FutureResponse map(UnaryOperator<Response> function) {
+        return new FutureResponse(response.thenApply(function));
+    }
+
+    @Override
+    public String getRetCode() {
+        throw new IllegalStateException("Response is not available yet");
+    }
+
+    @Override
+    public List<CharSequence> getLines() {
+        throw new IllegalStateException("Response is not available yet");
+    }
+
+    @Override
+    public boolean isEndSession() {
+        throw new IllegalStateException("Response is not available yet");
+    }
+
+    @Override
+    public String toString() {
+        return "FutureResponse{" + response + "}";
+    }
+}
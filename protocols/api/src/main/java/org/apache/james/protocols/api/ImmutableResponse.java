@@ -0,0 +1,58 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.protocols.api;
+
+import java.util.List;
+
+/**
+ * {@link Response} view returned by {@link AbstractResponse#immutable()}. As such responses are shared constants,
+ * their encoded form is computed once and reused by {@link AbstractProtocolTransport} for every write.
+ */
+class ImmutableResponse implements Response {
+    private final AbstractResponse response;
+    private volatile byte[] encoded;
+
+    ImmutableResponse(AbstractResponse response) {
+        this.response = response;
+    }
+
+    @Override
+    public String getRetCode() {
+        return response.getRetCode();
+    }
+
+    @Override
+    public List<CharSequence> getLines() {
+        return response.getLines();
+    }
+
+    @Override
+    public boolean isEndSession() {
+        return response.isEndSession();
+    }
+
+    byte[] encoded() {
+        byte[] result = encoded;
+        if (result == null) {
+            result = AbstractProtocolTransport.encode(this);
+            encoded = result;
+        }
+        return result;
+    }
+}
@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Locale;
 
 import org.apache.james.protocols.api.BaseRequest;
+import org.apache.james.protocols.api.FutureResponse;
 import org.apache.james.protocols.api.ProtocolSession;
 import org.apache.james.protocols.api.Request;
 import org.apache.james.protocols.api.Response;
@@ -160,6 +161,10 @@ public class CommandDispatcher<SessionT extends ProtocolSession> implements Exte
         for (CommandHandler<SessionT> commandHandler : commandHandlers) {
             final long start = System.currentTimeMillis();
             Response response = commandHandler.onCommand(session, request);
+            if (response instanceof FutureResponse) {
+                // the result handlers need the actual response
+                return ((FutureResponse) response).map(result -> executeResultHandlers(session, result, start, commandHandler));
+            }
             if (response != null) {
                 long executionTime = System.currentTimeMillis() - start;
 
@@ -175,6 +180,13 @@ public class CommandDispatcher<SessionT extends ProtocolSession> implements Exte
         return null;
     }
 
+    private Response executeResultHandlers(SessionT session, Response response, long start, CommandHandler<SessionT> cHandler) {
+        if (response == null) {
+            return null;
+        }
+        return executeResultHandlers(session, response, System.currentTimeMillis() - start, cHandler, rHandlers.iterator());
+    }
+
     private Response executeResultHandlers(final SessionT session, Response responseFuture, final long executionTime, final CommandHandler<SessionT> cHandler, final Iterator<ProtocolHandlerResultHandler<Response, SessionT>> resultHandlers) {
         // Check if the there is a ResultHandler left to execute if not just return the response
         if (resultHandlers.hasNext()) {
@@ -24,6 +24,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -53,6 +54,21 @@ public class AbstractProtocolTransportTest {
         checkWrittenResponses(messages);
     }
     
+    @Test
+    public void immutableResponsesShouldBeEncodedOnce() {
+        Response response = new AbstractResponse("250", "OK") {
+            @Override
+            public List<CharSequence> getLines() {
+                return lines;
+            }
+        }.immutable();
+
+        byte[] encoded = AbstractProtocolTransport.toBytes(response);
+
+        assertThat(encoded).isEqualTo("OK\r\n".getBytes(StandardCharsets.US_ASCII));
+        assertThat(AbstractProtocolTransport.toBytes(response)).isSameAs(encoded);
+    }
+    
     private void checkWrittenResponses(List<Response> messages) throws InterruptedException, UnsupportedEncodingException {
         final List<byte[]> writtenMessages = new ArrayList<>();
 
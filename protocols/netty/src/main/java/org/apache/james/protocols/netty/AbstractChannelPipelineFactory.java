@@ -20,6 +20,8 @@ package org.apache.james.protocols.netty;
 
 import static org.jboss.netty.channel.Channels.pipeline;
 
+import java.util.Optional;
+
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.ChannelPipelineFactory;
 import org.jboss.netty.channel.ChannelUpstreamHandler;
@@ -38,6 +40,7 @@ public abstract class AbstractChannelPipelineFactory implements ChannelPipelineF
     protected final ConnectionPerIpLimitUpstreamHandler connectionPerIpLimitHandler;
     private final HashedWheelTimer timer;
     private final ChannelGroupHandler groupHandler;
+    private final ReadBatchUpstreamHandler readBatchHandler;
     private final int timeout;
     private final ExecutionHandler eHandler;
     private final ChannelHandlerFactory frameHandlerFactory;
@@ -48,6 +51,7 @@ public abstract class AbstractChannelPipelineFactory implements ChannelPipelineF
         this.connectionLimitHandler = new ConnectionLimitUpstreamHandler(maxConnections);
         this.connectionPerIpLimitHandler = new ConnectionPerIpLimitUpstreamHandler(maxConnectsPerIp);
         this.groupHandler = new ChannelGroupHandler(channels);
+        this.readBatchHandler = new ReadBatchUpstreamHandler();
         this.timeout = timeout;
         this.eHandler = eHandler;
         this.frameHandlerFactory = frameHandlerFactory;
@@ -65,7 +69,9 @@ public abstract class AbstractChannelPipelineFactory implements ChannelPipelineF
 
         pipeline.addLast(HandlerConstants.CONNECTION_PER_IP_LIMIT_HANDLER, connectionPerIpLimitHandler);
 
-        
+        // Delimit each read so the responses to pipelined commands get written at once
+        pipeline.addLast(HandlerConstants.READ_BATCH_HANDLER, readBatchHandler);
+
         // Add the text line decoder which limit the max line length, don't strip the delimiter and use CRLF as delimiter
         pipeline.addLast(HandlerConstants.FRAMER, frameHandlerFactory.create(pipeline));
        
@@ -76,7 +82,10 @@ public abstract class AbstractChannelPipelineFactory implements ChannelPipelineF
         if (eHandler != null) {
             pipeline.addLast(HandlerConstants.EXECUTION_HANDLER, eHandler);
         }
-        
+
+        // Hold back the received lines while a response gets computed asynchronously
+        pipeline.addLast(HandlerConstants.SUSPENSION_HANDLER, new SuspendableUpstreamHandler(Optional.ofNullable(eHandler)));
+
         pipeline.addLast(HandlerConstants.CORE_HANDLER, createHandler());
 
 
@@ -26,6 +26,7 @@ import java.util.List;
 import javax.net.ssl.SSLEngine;
 
 import org.apache.james.protocols.api.Encryption;
+import org.apache.james.protocols.api.FutureResponse;
 import org.apache.james.protocols.api.Protocol;
 import org.apache.james.protocols.api.ProtocolSession;
 import org.apache.james.protocols.api.ProtocolSessionImpl;
@@ -38,6 +39,7 @@ import org.apache.james.protocols.api.handler.ProtocolHandlerChain;
 import org.apache.james.protocols.api.handler.ProtocolHandlerResultHandler;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelEvent;
 import org.jboss.netty.channel.ChannelHandler.Sharable;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.ChannelStateEvent;
@@ -132,6 +134,34 @@ public class BasicChannelUpstreamHandler extends SimpleChannelUpstreamHandler {
     }
 
 
+    /**
+     * Consume the {@link ReadBatchUpstreamHandler.ReadBatch} markers so the responses written while handling the
+     * lines of a single read get flushed to the client at once
+     */
+    @Override
+    public void handleUpstream(ChannelHandlerContext ctx, ChannelEvent e) throws Exception {
+        if (e instanceof MessageEvent && ((MessageEvent) e).getMessage() instanceof ReadBatchUpstreamHandler.ReadBatch) {
+            ProtocolSession session = (ProtocolSession) ctx.getAttachment();
+            if (session != null) {
+                onReadBatch(session, (ReadBatchUpstreamHandler.ReadBatch) ((MessageEvent) e).getMessage());
+            }
+            return;
+        }
+        super.handleUpstream(ctx, e);
+    }
+
+    private void onReadBatch(ProtocolSession session, ReadBatchUpstreamHandler.ReadBatch marker) {
+        ProtocolTransport transport = ((ProtocolSessionImpl) session).getProtocolTransport();
+        if (transport instanceof NettyProtocolTransport) {
+            NettyProtocolTransport nettyTransport = (NettyProtocolTransport) transport;
+            if (marker == ReadBatchUpstreamHandler.ReadBatch.START) {
+                nettyTransport.startBatch();
+            } else {
+                nettyTransport.endBatch();
+            }
+        }
+    }
+
     /**
      * Call the {@link LineHandler} 
      */
@@ -150,10 +180,12 @@ public class BasicChannelUpstreamHandler extends SimpleChannelUpstreamHandler {
                 LineHandler lHandler = (LineHandler) lineHandlers.getLast();
                 long start = System.currentTimeMillis();
                 Response response = lHandler.onLine(pSession, buf.toByteBuffer());
-                long executionTime = System.currentTimeMillis() - start;
 
-                for (ProtocolHandlerResultHandler resultHandler : resultHandlers) {
-                    response = resultHandler.onResponse(pSession, response, executionTime, lHandler);
+                if (response instanceof FutureResponse) {
+                    response = ((FutureResponse) response).map(result -> result == null ? null
+                        : executeResultHandlers(pSession, result, start, lHandler, resultHandlers));
+                } else {
+                    response = executeResultHandlers(pSession, response, start, lHandler, resultHandlers);
                 }
                 if (response != null) {
                     // TODO: This kind of sucks but I was able to come up with something more elegant here
@@ -167,6 +199,15 @@ public class BasicChannelUpstreamHandler extends SimpleChannelUpstreamHandler {
     }
 
 
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Response executeResultHandlers(ProtocolSession session, Response response, long start, LineHandler lHandler, List<ProtocolHandlerResultHandler> resultHandlers) {
+        long executionTime = System.currentTimeMillis() - start;
+        for (ProtocolHandlerResultHandler resultHandler : resultHandlers) {
+            response = resultHandler.onResponse(session, response, executionTime, lHandler);
+        }
+        return response;
+    }
+
     @Override
     public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
         try (Closeable closeable = mdcContextFactory.from(protocol, ctx)) {
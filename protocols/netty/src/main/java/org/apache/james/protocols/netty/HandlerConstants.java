@@ -35,12 +35,16 @@ public interface HandlerConstants {
 
     String CONNECTION_PER_IP_LIMIT_HANDLER = "connectionPerIpLimit";
 
+    String READ_BATCH_HANDLER = "readBatchHandler";
+
     String FRAMER = "framer";
 
     String EXECUTION_HANDLER = "executionHandler";
 
     String TIMEOUT_HANDLER = "timeoutHandler";
 
+    String SUSPENSION_HANDLER = "suspensionHandler";
+
     String CORE_HANDLER = "coreHandler";
 
     String CHUNK_HANDLER = "chunkHandler";
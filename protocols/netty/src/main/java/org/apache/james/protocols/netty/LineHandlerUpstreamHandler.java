@@ -44,7 +44,12 @@ public class LineHandlerUpstreamHandler<S extends ProtocolSession> extends Simpl
     }
     
     @Override
-    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {        
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        if (e.getMessage() instanceof ReadBatchUpstreamHandler.ReadBatch) {
+            // Let the core handler delimit the responses of this read
+            super.messageReceived(ctx, e);
+            return;
+        }
         ChannelBuffer buf = (ChannelBuffer) e.getMessage();      
 
         Response response = handler.onLine(session, buf.toByteBuffer()); 
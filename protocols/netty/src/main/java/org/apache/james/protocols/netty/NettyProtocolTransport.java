@@ -24,12 +24,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.net.ssl.SSLEngine;
 
 import org.apache.james.protocols.api.AbstractProtocolTransport;
+import org.apache.james.protocols.api.FutureResponse;
 import org.apache.james.protocols.api.ProtocolSession;
 import org.apache.james.protocols.api.handler.LineHandler;
+import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelFutureListener;
@@ -44,7 +48,9 @@ public class NettyProtocolTransport extends AbstractProtocolTransport {
     
     private final Channel channel;
     private final SSLEngine engine;
+    private final List<ChannelBuffer> pendingWrites = new ArrayList<>();
     private int lineHandlerCount = 0;
+    private boolean batching = false;
     
     public NettyProtocolTransport(Channel channel, SSLEngine engine) {
         this.channel = channel;
@@ -94,23 +100,80 @@ public class NettyProtocolTransport extends AbstractProtocolTransport {
         channel.getPipeline().addFirst(HandlerConstants.SSL_HANDLER, filter);
     }
 
+    /**
+     * Hold back the responses written from now on until {@link #endBatch()} is called, so that the responses to
+     * pipelined commands reach the client in a single write
+     */
+    synchronized void startBatch() {
+        batching = true;
+    }
+
+    /**
+     * Write all the responses held back since {@link #startBatch()} at once
+     */
+    synchronized void endBatch() {
+        batching = false;
+        flushPendingWrites();
+    }
+
+    private void flushPendingWrites() {
+        if (!pendingWrites.isEmpty()) {
+            channel.write(ChannelBuffers.wrappedBuffer(pendingWrites.toArray(new ChannelBuffer[0])));
+            pendingWrites.clear();
+        }
+    }
+
     @Override
-    protected void writeToClient(byte[] bytes, ProtocolSession session, boolean startTLS) {
+    protected synchronized void writeToClient(byte[] bytes, ProtocolSession session, boolean startTLS) {
         if (startTLS) {
+            // Responses already held back must be written before the SslHandler gets added
+            flushPendingWrites();
             prepareStartTLS();
+            channel.write(ChannelBuffers.wrappedBuffer(bytes));
+        } else if (batching) {
+            pendingWrites.add(ChannelBuffers.wrappedBuffer(bytes));
+        } else {
+            channel.write(ChannelBuffers.wrappedBuffer(bytes));
         }
-        channel.write(ChannelBuffers.wrappedBuffer(bytes));
-        
+    }
+
+    /**
+     * Hold back the lines received for this session until the {@link FutureResponse} completes, instead of
+     * waiting for it
+     */
+    @Override
+    protected void writeFutureResponse(FutureResponse response, ProtocolSession session) {
+        SuspendableUpstreamHandler suspension = (SuspendableUpstreamHandler) channel.getPipeline().get(HandlerConstants.SUSPENSION_HANDLER);
+        if (suspension == null) {
+            super.writeFutureResponse(response, session);
+            return;
+        }
+        synchronized (this) {
+            // Do not delay the responses to the previous commands
+            flushPendingWrites();
+        }
+        suspension.suspend();
+        channel.setReadable(false);
+        response.getResponse().whenComplete((result, error) -> {
+            try {
+                writeCompletedResponse(result, error, session);
+            } finally {
+                channel.setReadable(true);
+                suspension.resume();
+            }
+        });
     }
 
     @Override
-    protected void close() {
+    protected synchronized void close() {
+        flushPendingWrites();
         channel.write(ChannelBuffers.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
     }
 
 
     @Override
-    protected void writeToClient(InputStream in, ProtocolSession session, boolean startTLS) {
+    protected synchronized void writeToClient(InputStream in, ProtocolSession session, boolean startTLS) {
+        flushPendingWrites();
         if (startTLS) {
             prepareStartTLS();
         }
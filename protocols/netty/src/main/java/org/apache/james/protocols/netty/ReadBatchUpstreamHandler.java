@@ -0,0 +1,57 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.protocols.netty;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.ChannelHandler.Sharable;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelUpstreamHandler;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+
+/**
+ * {@link ChannelUpstreamHandler} which surrounds every raw read with a {@link ReadBatch#START} and a
+ * {@link ReadBatch#END} message. The frame decoder passes these markers through, so the core handler sees all the
+ * lines of a single read between them, even when an {@link org.jboss.netty.handler.execution.ExecutionHandler}
+ * sits in between. {@link BasicChannelUpstreamHandler} uses them to write all the responses to pipelined commands
+ * at once.
+ */
+@Sharable
+public class ReadBatchUpstreamHandler extends SimpleChannelUpstreamHandler {
+
+    public enum ReadBatch {
+        START,
+        END
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        if (!(e.getMessage() instanceof ChannelBuffer)) {
+            super.messageReceived(ctx, e);
+            return;
+        }
+        Channels.fireMessageReceived(ctx, ReadBatch.START, e.getRemoteAddress());
+        try {
+            super.messageReceived(ctx, e);
+        } finally {
+            Channels.fireMessageReceived(ctx, ReadBatch.END, e.getRemoteAddress());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.protocols.netty;
+
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import org.apache.james.protocols.api.FutureResponse;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelUpstreamHandler;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.handler.execution.ExecutionHandler;
+
+/**
+ * {@link ChannelUpstreamHandler} which holds back the received messages while the session waits for a
+ * {@link FutureResponse}, and hands them over in order once that response got written. Pipelined commands thus keep
+ * their order without any thread being blocked on the slow one.
+ *
+ * The held messages are handed over on the executor of the channel: the one of the {@link ExecutionHandler} when
+ * there is one, the I/O thread of the channel otherwise. They are never processed on the thread completing the
+ * {@link FutureResponse}.
+ *
+ * There must be one instance per channel.
+ */
+public class SuspendableUpstreamHandler extends SimpleChannelUpstreamHandler {
+
+    private final Optional<ExecutionHandler> executionHandler;
+    private final Queue<MessageEvent> heldMessages = new ArrayDeque<>();
+    private ChannelHandlerContext context;
+    private boolean suspended = false;
+    private boolean draining = false;
+
+    public SuspendableUpstreamHandler(Optional<ExecutionHandler> executionHandler) {
+        this.executionHandler = executionHandler;
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        synchronized (this) {
+            if (suspended || draining) {
+                context = ctx;
+                heldMessages.add(e);
+                return;
+            }
+        }
+        super.messageReceived(ctx, e);
+    }
+
+    /**
+     * Hold back the received messages until {@link #resume()} is called
+     */
+    public synchronized void suspend() {
+        suspended = true;
+    }
+
+    /**
+     * Hand over the messages held back since {@link #suspend()}, stopping as soon as one of them suspends the
+     * processing again
+     */
+    public void resume() {
+        ChannelHandlerContext ctx;
+        synchronized (this) {
+            suspended = false;
+            if (draining || heldMessages.isEmpty()) {
+                // Either nothing to hand over, or the task handing over the held messages will carry on
+                return;
+            }
+            draining = true;
+            ctx = context;
+        }
+        executor(ctx).execute(() -> drain(ctx));
+    }
+
+    private Executor executor(ChannelHandlerContext ctx) {
+        return executionHandler
+            .map(ExecutionHandler::getExecutor)
+            .orElse(runnable -> ctx.getPipeline().execute(runnable));
+    }
+
+    private void drain(ChannelHandlerContext ctx) {
+        while (true) {
+            MessageEvent next;
+            synchronized (this) {
+                next = suspended ? null : heldMessages.poll();
+                if (next == null) {
+                    draining = false;
+                    return;
+                }
+            }
+            ctx.sendUpstream(next);
+        }
+    }
+}
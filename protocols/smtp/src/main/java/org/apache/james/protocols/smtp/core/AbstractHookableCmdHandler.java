@@ -24,12 +24,14 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.inject.Inject;
 
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.metrics.api.TimeMetric;
+import org.apache.james.protocols.api.FutureResponse;
 import org.apache.james.protocols.api.Request;
 import org.apache.james.protocols.api.Response;
 import org.apache.james.protocols.api.handler.CommandHandler;
@@ -41,8 +43,15 @@ import org.apache.james.protocols.smtp.hook.HookResult;
 import org.apache.james.protocols.smtp.hook.HookResultHook;
 import org.apache.james.protocols.smtp.hook.HookReturnCode;
 import org.apache.james.util.MDCBuilder;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import com.google.common.collect.ImmutableMap;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Abstract class which Handle hook-aware CommanHandler.
@@ -65,30 +74,42 @@ public abstract class AbstractHookableCmdHandler<HookT extends org.apache.james.
         String command = request.getCommand();
         String parameters = request.getArgument();
 
+        Response response = null;
         try (Closeable closeable =
                  MDCBuilder.create()
                      .addContext(MDCBuilder.ACTION, command)
                      .build()) {
-            Response response = doFilterChecks(session, command, parameters);
+            response = doFilterChecks(session, command, parameters);
             if (response == null) {
-
-                response = processHooks(session, command, parameters);
-                if (response == null) {
-                    return doCoreCmd(session, command, parameters);
-                } else {
-                    return response;
-                }
-            } else {
-                return response;
+                Map<String, String> mdc = Optional.ofNullable(MDC.getCopyOfContextMap()).orElse(ImmutableMap.of());
+                response = asResponse(processHooks(session, command, parameters, mdc)
+                    .switchIfEmpty(Mono.fromCallable(() -> doCoreCmd(session, command, parameters))));
             }
+            return response;
         } catch (IOException e) {
             throw new RuntimeException(e);
         } finally {
-            timeMetric.stopAndPublish();
+            publishOnCompletion(timeMetric, response);
         }
 
     }
 
+    /**
+     * Hooks relying on the synchronous adapter complete right away, so their response is returned as is. Otherwise
+     * a {@link FutureResponse} lets the transport write it once available, without holding the current thread.
+     */
+    private Response asResponse(Mono<Response> response) {
+        return FutureResponse.of(response.toFuture());
+    }
+
+    private void publishOnCompletion(TimeMetric timeMetric, Response response) {
+        if (response instanceof FutureResponse) {
+            ((FutureResponse) response).getResponse().whenComplete((result, error) -> timeMetric.stopAndPublish());
+        } else {
+            timeMetric.stopAndPublish();
+        }
+    }
+
     /**
      * Process all hooks for the given command
      * 
@@ -98,62 +119,90 @@ public abstract class AbstractHookableCmdHandler<HookT extends org.apache.james.
      *            the command
      * @param parameters
      *            the parameters
-     * @return SMTPResponse
+     * @param mdc
+     *            the MDC of the command, restored when a hook completes on another thread
+     * @return the SMTPResponse, empty if no hook decided of it
      */
-    private Response processHooks(SMTPSession session, String command,
-            String parameters) {
+    private Mono<Response> processHooks(SMTPSession session, String command,
+            String parameters, Map<String, String> mdc) {
         List<HookT> hooks = getHooks();
-        if (hooks != null) {
-            int count = hooks.size();
-            int i = 0;
-            while (i < count) {
-                HookT rawHook = hooks.get(i);
-                LOGGER.debug("executing hook {}", rawHook.getClass().getName());
-                long start = System.currentTimeMillis();
-
-                HookResult hRes = callHook(rawHook, session, parameters);
-                long executionTime = System.currentTimeMillis() - start;
-
-                if (rHooks != null) {
-                    for (HookResultHook rHook : rHooks) {
-                        LOGGER.debug("executing hook {}", rHook);
-                        hRes = rHook.onHookResult(session, hRes, executionTime, rawHook);
+        if (hooks == null) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(hooks)
+            .concatMap(rawHook -> executeHook(session, command, parameters, rawHook, mdc))
+            .next();
+    }
+
+    private Mono<Response> executeHook(SMTPSession session, String command, String parameters, HookT rawHook, Map<String, String> mdc) {
+        LOGGER.debug("executing hook {}", rawHook.getClass().getName());
+        long start = System.currentTimeMillis();
+
+        return withMdc(mdc, callHookReactive(rawHook, session, parameters))
+            .flatMap(hRes -> Mono.justOrEmpty(toResponse(session, command, parameters, rawHook, hRes, System.currentTimeMillis() - start)));
+    }
+
+    /**
+     * Signal the outcome of the hook with the given MDC set, so that the following hooks and the core command,
+     * which run on the thread completing the hook, log with the context of the command
+     */
+    private <T> Mono<T> withMdc(Map<String, String> mdc, Publisher<T> hookResult) {
+        return Mono.create(sink -> runWithMdc(mdc, () ->
+            sink.onCancel(Mono.from(hookResult)
+                .subscribe(
+                    value -> runWithMdc(mdc, () -> sink.success(value)),
+                    error -> runWithMdc(mdc, () -> sink.error(error)),
+                    () -> runWithMdc(mdc, sink::success)))));
+    }
+
+    private static void runWithMdc(Map<String, String> mdc, Runnable runnable) {
+        Map<String, String> previous = MDC.getCopyOfContextMap();
+        MDC.setContextMap(mdc);
+        try {
+            runnable.run();
+        } finally {
+            if (previous == null) {
+                MDC.clear();
+            } else {
+                MDC.setContextMap(previous);
+            }
+        }
+    }
+
+    private Optional<Response> toResponse(SMTPSession session, String command, String parameters, HookT rawHook, HookResult hookResult, long executionTime) {
+        HookResult hRes = hookResult;
+        if (rHooks != null) {
+            for (HookResultHook rHook : rHooks) {
+                LOGGER.debug("executing hook {}", rHook);
+                hRes = rHook.onHookResult(session, hRes, executionTime, rawHook);
+            }
+        }
+
+        // call the core cmd if we receive a ok return code of the hook so no other hooks are executed
+        if (hRes.getResult().getAction() == HookReturnCode.Action.OK) {
+            final Response response = doCoreCmd(session, command, parameters);
+            if (hRes.getResult().isDisconnected()) {
+                return Optional.of(new Response() {
+
+                    @Override
+                    public boolean isEndSession() {
+                        return true;
                     }
-                }
 
-                // call the core cmd if we receive a ok return code of the hook so no other hooks are executed
-                if (hRes.getResult().getAction() == HookReturnCode.Action.OK) {
-                    final Response response = doCoreCmd(session, command, parameters);
-                    if (hRes.getResult().isDisconnected()) {
-                        return new Response() {
-
-                            @Override
-                            public boolean isEndSession() {
-                                return true;
-                            }
-
-                            @Override
-                            public String getRetCode() {
-                                return response.getRetCode();
-                            }
-
-                            @Override
-                            public List<CharSequence> getLines() {
-                                return response.getLines();
-                            }
-                        };
+                    @Override
+                    public String getRetCode() {
+                        return response.getRetCode();
                     }
-                    return response;
-                } else {
-                    SMTPResponse res = calcDefaultSMTPResponse(hRes);
-                    if (res != null) {
-                        return res;
+
+                    @Override
+                    public List<CharSequence> getLines() {
+                        return response.getLines();
                     }
-                }
-                i++;
+                });
             }
+            return Optional.of(response);
         }
-        return null;
+        return Optional.ofNullable(calcDefaultSMTPResponse(hRes));
     }
 
     /**
@@ -166,6 +215,19 @@ public abstract class AbstractHookableCmdHandler<HookT extends org.apache.james.
      */
     protected abstract HookResult callHook(HookT rawHook, SMTPSession session, String parameters);
 
+    /**
+     * Make the call to an hook without blocking the calling thread. The default implementation adapts
+     * {@link #callHook(org.apache.james.protocols.smtp.hook.Hook, SMTPSession, String)}.
+     *
+     * @param rawHook the hook
+     * @param session the session
+     * @param parameters the parameters
+     * @return the HookResult, will be calculated using HookResultToSMTPResponse.
+     */
+    protected Publisher<HookResult> callHookReactive(HookT rawHook, SMTPSession session, String parameters) {
+        return Mono.fromCallable(() -> callHook(rawHook, session, parameters));
+    }
+
     /**
      * Convert the HookResult to SMTPResponse using default values. Should be override for using own values
      * 
@@ -42,6 +42,7 @@ import org.apache.james.protocols.smtp.dsn.DSNStatus;
 import org.apache.james.protocols.smtp.hook.HookResult;
 import org.apache.james.protocols.smtp.hook.MailHook;
 import org.apache.james.protocols.smtp.hook.MailParametersHook;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -249,6 +250,12 @@ public class MailCmdHandler extends AbstractHookableCmdHandler<MailHook> {
         MaybeSender sender = session.getAttachment(SMTPSession.SENDER, State.Transaction).orElse(MaybeSender.nullSender());
         return rawHook.doMail(session, sender);
     }
+
+    @Override
+    protected Publisher<HookResult> callHookReactive(MailHook rawHook, SMTPSession session, String parameters) {
+        MaybeSender sender = session.getAttachment(SMTPSession.SENDER, State.Transaction).orElse(MaybeSender.nullSender());
+        return rawHook.doMailReactive(session, sender);
+    }
     
     @Override
     public List<Class<?>> getMarkerInterfaces() {
@@ -28,9 +28,12 @@ import org.apache.james.protocols.smtp.dsn.DSNStatus;
 import org.apache.james.protocols.smtp.hook.HookResult;
 import org.apache.james.protocols.smtp.hook.HookReturnCode;
 import org.apache.james.protocols.smtp.hook.RcptHook;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import reactor.core.publisher.Mono;
+
 /**
  * Handler which want to do a recipient check should extend this
  */
@@ -48,6 +51,18 @@ public abstract class AbstractValidRcptHandler implements RcptHook {
         return HookResult.DECLINED;
     }
 
+    @Override
+    public Publisher<HookResult> doRcptReactive(SMTPSession session, MaybeSender sender, MailAddress rcpt) {
+        return Mono.from(isLocalDomainReactive(session, rcpt.getDomain()))
+            .flatMap(isLocalDomain -> {
+                if (!isLocalDomain) {
+                    return Mono.just(HookResult.DECLINED);
+                }
+                return Mono.from(isValidRecipientReactive(session, rcpt))
+                    .map(isValidRecipient -> isValidRecipient ? HookResult.DECLINED : reject(rcpt));
+            });
+    }
+
     public HookResult reject(MailAddress rcpt) {
         LOGGER.info("Rejected message. Unknown user: {}", rcpt);
         return HookResult.builder()
@@ -61,9 +76,23 @@ public abstract class AbstractValidRcptHandler implements RcptHook {
      * Return true if email for the given recipient should get accepted
      */
     protected abstract boolean isValidRecipient(SMTPSession session, MailAddress recipient);
+
+    /**
+     * Non blocking version of {@link #isValidRecipient(SMTPSession, MailAddress)}. The default implementation calls it.
+     */
+    protected Publisher<Boolean> isValidRecipientReactive(SMTPSession session, MailAddress recipient) {
+        return Mono.fromCallable(() -> isValidRecipient(session, recipient));
+    }
     
     /**
      * Return true if the domain is local
      */
     protected abstract boolean isLocalDomain(SMTPSession session, Domain domain);
+
+    /**
+     * Non blocking version of {@link #isLocalDomain(SMTPSession, Domain)}. The default implementation calls it.
+     */
+    protected Publisher<Boolean> isLocalDomainReactive(SMTPSession session, Domain domain) {
+        return Mono.fromCallable(() -> isLocalDomain(session, domain));
+    }
 }
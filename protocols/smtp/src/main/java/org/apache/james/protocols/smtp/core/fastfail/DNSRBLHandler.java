@@ -20,9 +20,12 @@ package org.apache.james.protocols.smtp.core.fastfail;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.StringTokenizer;
 
 import org.apache.james.core.MailAddress;
@@ -34,9 +37,15 @@ import org.apache.james.protocols.smtp.dsn.DSNStatus;
 import org.apache.james.protocols.smtp.hook.HookResult;
 import org.apache.james.protocols.smtp.hook.HookReturnCode;
 import org.apache.james.protocols.smtp.hook.RcptHook;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import reactor.core.publisher.Mono;
+
 /**
   * Connect handler for DNSRBL processing
   */
@@ -105,71 +114,98 @@ public class DNSRBLHandler implements RcptHook {
      * abuse (RFC 2142), unless authenticated.
      */
     public void checkDNSRBL(SMTPSession session, String ipAddress) {
-        
+        checkDNSRBLReactive(session, ipAddress).block();
+    }
+
+    /**
+     * Non blocking version of {@link #checkDNSRBL(SMTPSession, String)}
+     */
+    public Mono<Void> checkDNSRBLReactive(SMTPSession session, String ipAddress) {
         /*
          * don't check against rbllists if the client is allowed to relay..
          * This whould make no sense.
          */
         if (session.isRelayingAllowed()) {
             LOGGER.info("Ipaddress {} is allowed to relay. Don't check it", session.getRemoteAddress().getAddress());
-            return;
+            return Mono.empty();
         }
         
-        if (whitelist != null || blacklist != null) {
-            StringBuilder sb = new StringBuilder();
-            StringTokenizer st = new StringTokenizer(ipAddress, " .", false);
-            while (st.hasMoreTokens()) {
-                sb.insert(0, st.nextToken() + ".");
-            }
-            String reversedOctets = sb.toString();
-
-            if (whitelist != null) {
-                String[] rblList = whitelist;
-                for (String rbl : rblList) {
-                    if (resolve(reversedOctets + rbl)) {
-                        LOGGER.info("Connection from {} whitelisted by {}", ipAddress, rbl);
-                        return;
-                    } else {
-                        LOGGER.debug("IpAddress {} not listed on {}", session.getRemoteAddress().getAddress(), rbl);
-                    }
-                }
-            }
+        if (whitelist == null && blacklist == null) {
+            return Mono.empty();
+        }
 
-            if (blacklist != null) {
-                String[] rblList = blacklist;
-                for (String rbl : rblList) {
-                    if (resolve(reversedOctets + rbl)) {
-                        LOGGER.info("Connection from {} restricted by {} to SMTP AUTH/postmaster/abuse.", ipAddress, rbl);
+        StringBuilder sb = new StringBuilder();
+        StringTokenizer st = new StringTokenizer(ipAddress, " .", false);
+        while (st.hasMoreTokens()) {
+            sb.insert(0, st.nextToken() + ".");
+        }
+        String reversedOctets = sb.toString();
 
-                        // we should try to retrieve details
-                        if (getDetail) {
-                            Collection<String> txt = resolveTXTRecords(reversedOctets + rbl);
+        List<String> whitelistNames = namesToLookup(reversedOctets, whitelist);
+        List<String> blacklistNames = namesToLookup(reversedOctets, blacklist);
 
-                            // Check if we found a txt record
-                            if (!txt.isEmpty()) {
-                                // Set the detail
-                                String blocklistedDetail = txt.iterator().next().toString();
+        return Mono.from(resolvableNamesReactive(ImmutableList.<String>builder()
+                .addAll(whitelistNames)
+                .addAll(blacklistNames)
+                .build()))
+            .flatMap(listedNames -> {
+                Optional<String> whitelistingName = whitelistNames.stream()
+                    .filter(listedNames::contains)
+                    .findFirst();
+                if (whitelistingName.isPresent()) {
+                    LOGGER.info("Connection from {} whitelisted by {}", ipAddress, whitelistingName.get());
+                    return Mono.empty();
+                }
 
-                                session.setAttachment(RBL_DETAIL_MAIL_ATTRIBUTE_NAME, blocklistedDetail, State.Connection);
-                            }
-                        }
+                Optional<String> blacklistingName = blacklistNames.stream()
+                    .filter(listedNames::contains)
+                    .findFirst();
+                if (blacklistingName.isPresent()) {
+                    LOGGER.info("Connection from {} restricted by {} to SMTP AUTH/postmaster/abuse.", ipAddress, blacklistingName.get());
+                    return blocklist(session, blacklistingName.get());
+                }
+                LOGGER.debug("IpAddress {} not listed", session.getRemoteAddress().getAddress());
+                return Mono.empty();
+            });
+    }
 
-                        session.setAttachment(RBL_BLOCKLISTED_MAIL_ATTRIBUTE_NAME, true, State.Connection);
-                        return;
-                    } else {
-                        // if it is unknown, it isn't blocked
-                        LOGGER.debug("unknown host exception thrown: {}", rbl);
-                    }
+    private Mono<Void> blocklist(SMTPSession session, String blacklistingName) {
+        // we should try to retrieve details
+        Mono<Void> retrieveDetail = Mono.empty();
+        if (getDetail) {
+            retrieveDetail = Mono.from(resolveTXTRecordsReactive(blacklistingName))
+                // Check if we found a txt record
+                .filter(txt -> !txt.isEmpty())
+                // Set the detail
+                .doOnNext(txt -> session.setAttachment(RBL_DETAIL_MAIL_ATTRIBUTE_NAME, txt.iterator().next(), State.Connection))
+                .then();
+        }
 
-                }
-            }
+        return retrieveDetail
+            .then(Mono.fromRunnable(() -> session.setAttachment(RBL_BLOCKLISTED_MAIL_ATTRIBUTE_NAME, true, State.Connection)));
+    }
+
+    private List<String> namesToLookup(String reversedOctets, String[] rblList) {
+        if (rblList == null) {
+            return ImmutableList.of();
         }
+        return Arrays.stream(rblList)
+            .map(rbl -> reversedOctets + rbl)
+            .collect(ImmutableList.toImmutableList());
     }
     
     @Override
     public HookResult doRcpt(SMTPSession session, MaybeSender sender, MailAddress rcpt) {
-        checkDNSRBL(session, session.getRemoteAddress().getAddress().getHostAddress());
-    
+        return Mono.from(doRcptReactive(session, sender, rcpt)).block();
+    }
+
+    @Override
+    public Publisher<HookResult> doRcptReactive(SMTPSession session, MaybeSender sender, MailAddress rcpt) {
+        return checkDNSRBLReactive(session, session.getRemoteAddress().getAddress().getHostAddress())
+            .then(Mono.fromCallable(() -> blocklistedResult(session)));
+    }
+
+    private HookResult blocklistedResult(SMTPSession session) {
         if (!session.isRelayingAllowed()) {
             Optional<Boolean> blocklisted = session.getAttachment(RBL_BLOCKLISTED_MAIL_ATTRIBUTE_NAME, State.Connection);
             Optional<String> blocklistedDetail = session.getAttachment(RBL_DETAIL_MAIL_ATTRIBUTE_NAME, State.Connection);
@@ -211,6 +247,32 @@ public class DNSRBLHandler implements RcptHook {
         }
     }
     
+    /**
+     * Return the names, among the given ones, which are resolvable.
+     *
+     * This implementation resolves them one after the other. Sub-classes may override this to resolve them concurrently, so
+     * that checking several lists costs a single DNS round trip.
+     *
+     * @return resolvableNames
+     */
+    protected Set<String> resolvableNames(List<String> names) {
+        return names.stream()
+            .filter(this::resolve)
+            .collect(ImmutableSet.toImmutableSet());
+    }
+
+    /**
+     * Non blocking version of {@link #resolvableNames(List)}.
+     *
+     * This implementation calls {@link #resolvableNames(List)}. Sub-classes relying on a non blocking DNS client
+     * should override this.
+     *
+     * @return resolvableNames
+     */
+    protected Publisher<Set<String>> resolvableNamesReactive(List<String> names) {
+        return Mono.fromCallable(() -> resolvableNames(names));
+    }
+
     /**
      * Return a {@link Collection} which holds all TXT records for the ip. This is most times used to add details for a RBL entry.
      * 
@@ -221,4 +283,15 @@ public class DNSRBLHandler implements RcptHook {
     protected Collection<String> resolveTXTRecords(String ip) {
         return Collections.<String>emptyList();
     }
+
+    /**
+     * Non blocking version of {@link #resolveTXTRecords(String)}.
+     *
+     * This implementation calls {@link #resolveTXTRecords(String)}. Sub-classes may override this.
+     *
+     * @return txtRecords
+     */
+    protected Publisher<Collection<String>> resolveTXTRecordsReactive(String ip) {
+        return Mono.fromCallable(() -> resolveTXTRecords(ip));
+    }
 }
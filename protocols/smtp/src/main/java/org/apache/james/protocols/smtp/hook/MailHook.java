@@ -22,6 +22,9 @@ package org.apache.james.protocols.smtp.hook;
 import org.apache.james.core.MailAddress;
 import org.apache.james.core.MaybeSender;
 import org.apache.james.protocols.smtp.SMTPSession;
+import org.reactivestreams.Publisher;
+
+import reactor.core.publisher.Mono;
 
 /**
  * Implement this interfaces to hook in the MAIL Command
@@ -53,4 +56,14 @@ public interface MailHook extends Hook {
     default HookResult doMail(SMTPSession session, MaybeSender sender) {
         return doMail(session, sender.asOptional().orElse(MailAddress.nullSender()));
     }
+
+    /**
+     * Return the HookResult after run the hook, without blocking the calling thread
+     *
+     * Hooks relying on remote calls should override this method. The default implementation calls
+     * {@link #doMail(SMTPSession, MaybeSender)}.
+     */
+    default Publisher<HookResult> doMailReactive(SMTPSession session, MaybeSender sender) {
+        return Mono.fromCallable(() -> doMail(session, sender));
+    }
 }
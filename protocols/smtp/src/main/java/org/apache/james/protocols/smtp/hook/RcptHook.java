@@ -21,6 +21,9 @@ package org.apache.james.protocols.smtp.hook;
 import org.apache.james.core.MailAddress;
 import org.apache.james.core.MaybeSender;
 import org.apache.james.protocols.smtp.SMTPSession;
+import org.reactivestreams.Publisher;
+
+import reactor.core.publisher.Mono;
 
 /**
  * Implement this interfaces to hook in the MAIL Command
@@ -51,4 +54,14 @@ public interface RcptHook extends Hook {
         return doRcpt(session, sender.asOptional().orElse(null), rcpt);
     }
 
+    /**
+     * Return the HookResult after run the hook, without blocking the calling thread
+     *
+     * Hooks relying on remote calls should override this method. The default implementation calls
+     * {@link #doRcpt(SMTPSession, MaybeSender, MailAddress)}.
+     */
+    default Publisher<HookResult> doRcptReactive(SMTPSession session, MaybeSender sender, MailAddress rcpt) {
+        return Mono.fromCallable(() -> doRcpt(session, sender, rcpt));
+    }
+
 }
@@ -52,9 +52,12 @@ import org.apache.james.protocols.smtp.hook.RcptHook;
 import org.apache.james.protocols.smtp.utils.TestMessageHook;
 import org.apache.james.util.concurrency.ConcurrentTestRunner;
 import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
 
 import com.google.common.io.CharStreams;
 
+import reactor.core.publisher.Mono;
+
 public abstract class AbstractSMTPServerTest {
 
     protected static final String MSG1 = "Subject: Testmessage\r\n\r\nThis is a message\r\n";
@@ -676,6 +679,50 @@ public abstract class AbstractSMTPServerTest {
     
     
 
+    @Test
+    void asynchronousRcptHookResultsShouldBeWrittenBack() throws Exception {
+        RcptHook hook = new RcptHook() {
+            @Override
+            public Publisher<HookResult> doRcptReactive(SMTPSession session, MaybeSender sender, MailAddress rcpt) {
+                HookResult result = RCPT1.equals(rcpt.toString()) ? HookResult.DENY : HookResult.DECLINED;
+                return Mono.delay(Duration.ofMillis(100))
+                    .thenReturn(result);
+            }
+        };
+
+        ProtocolServer server = null;
+        try {
+            server = createServer(createProtocol(hook));
+            server.bind();
+
+            SMTPClient client = createClient();
+            InetSocketAddress bindedAddress = new ProtocolServerUtils(server).retrieveBindedAddress();
+            client.connect(bindedAddress.getAddress().getHostAddress(), bindedAddress.getPort());
+            assertThat(SMTPReply.isPositiveCompletion(client.getReplyCode())).as("Reply=" + client.getReplyString()).isTrue();
+
+            client.helo("localhost");
+            assertThat(SMTPReply.isPositiveCompletion(client.getReplyCode())).as("Reply=" + client.getReplyString()).isTrue();
+
+            client.setSender(SENDER);
+            assertThat(SMTPReply.isPositiveCompletion(client.getReplyCode())).as("Reply=" + client.getReplyString()).isTrue();
+
+            client.addRecipient(RCPT1);
+            assertThat(SMTPReply.isNegativePermanent(client.getReplyCode())).as("Reply=" + client.getReplyString()).isTrue();
+
+            client.addRecipient(RCPT2);
+            assertThat(SMTPReply.isPositiveCompletion(client.getReplyCode())).as("Reply=" + client.getReplyString()).isTrue();
+
+            client.quit();
+            assertThat(SMTPReply.isPositiveCompletion(client.getReplyCode())).as("Reply=" + client.getReplyString()).isTrue();
+            client.disconnect();
+
+        } finally {
+            if (server != null) {
+                server.unbind();
+            }
+        }
+    }
+
     @Test
     void testRcptHookTemporaryError() throws Exception {
         RcptHook hook = new RcptHook() {
@@ -32,16 +32,21 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.apache.james.core.MailAddress;
 import org.apache.james.core.MaybeSender;
 import org.apache.james.protocols.api.ProtocolSession.State;
 import org.apache.james.protocols.smtp.SMTPSession;
+import org.apache.james.protocols.smtp.hook.HookResult;
+import org.apache.james.protocols.smtp.hook.HookReturnCode;
 import org.apache.james.protocols.smtp.utils.BaseFakeSMTPSession;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 public class DNSRBLHandlerTest {
 
@@ -89,6 +94,12 @@ public class DNSRBLHandlerTest {
                     return true;
                 } else if ("1.0.168.192.bl.spamcop.net.".equals(host)) {
                     return false;
+                } else if ("2.0.0.127.wl.example.net.".equals(host)) {
+                    return true;
+                } else if ("2.0.0.127.other.example.net.".equals(host)) {
+                    return true;
+                } else if ("2.0.0.127.unlisted.example.net.".equals(host)) {
+                    return false;
                 }
                 throw new UnsupportedOperationException("getByName(" + host + ") not implemented in DNSRBLHandlerTest mock");
             }
@@ -101,6 +112,8 @@ public class DNSRBLHandlerTest {
                 }
                 if ("2.0.0.127.bl.spamcop.net.".equals(hostname)) {
                     res.add("Blocked - see http://www.spamcop.net/bl.shtml?127.0.0.2");
+                } else if ("2.0.0.127.other.example.net.".equals(hostname)) {
+                    res.add("Listed by other.example.net");
                 }
                 return res;
             }
@@ -267,6 +280,98 @@ public class DNSRBLHandlerTest {
         assertThat(mockedSMTPSession.getAttachment(RBL_DETAIL_MAIL_ATTRIBUTE_NAME, Connection)).isEmpty();
         assertThat(mockedSMTPSession.getAttachment(RBL_BLOCKLISTED_MAIL_ATTRIBUTE_NAME, Connection)).withFailMessage("Not blocked").isEmpty();
     }
-   
 
+    // ip on both a whitelist and a blacklist
+    @Test
+    void testWhiteListTakesPrecedenceOverBlackList() throws Exception {
+        DNSRBLHandler rbl = createHandler();
+        setupMockedSMTPSession(new MailAddress("any@domain"));
+
+        rbl.setWhitelist(new String[] { "wl.example.net." });
+        rbl.setBlacklist(new String[] { "bl.spamcop.net." });
+        rbl.setGetDetail(true);
+        HookResult result = rbl.doRcpt(mockedSMTPSession, MaybeSender.nullSender(), new MailAddress("test@localhost"));
+
+        assertThat(result).isEqualTo(HookResult.DECLINED);
+        assertThat(mockedSMTPSession.getAttachment(RBL_DETAIL_MAIL_ATTRIBUTE_NAME, Connection)).isEmpty();
+        assertThat(mockedSMTPSession.getAttachment(RBL_BLOCKLISTED_MAIL_ATTRIBUTE_NAME, Connection)).withFailMessage("Not blocked").isEmpty();
+    }
+
+    // ip on a blacklist, but not on the configured whitelist
+    @Test
+    void testNotWhiteListedButBlackListed() throws Exception {
+        DNSRBLHandler rbl = createHandler();
+        setupMockedSMTPSession(new MailAddress("any@domain"));
+
+        rbl.setWhitelist(new String[] { "unlisted.example.net." });
+        rbl.setBlacklist(new String[] { "bl.spamcop.net." });
+        rbl.setGetDetail(true);
+        rbl.doRcpt(mockedSMTPSession, MaybeSender.nullSender(), new MailAddress("test@localhost"));
+
+        assertThat(mockedSMTPSession.getAttachment(RBL_BLOCKLISTED_MAIL_ATTRIBUTE_NAME, Connection)).withFailMessage("Blocked").isPresent();
+    }
+
+    // ip on several blacklists: the first listing one in configuration order gives the details
+    @Test
+    void testDetailComesFromFirstListingBlackList() throws Exception {
+        DNSRBLHandler rbl = createHandler();
+        setupMockedSMTPSession(new MailAddress("any@domain"));
+
+        rbl.setBlacklist(new String[] { "unlisted.example.net.", "other.example.net.", "bl.spamcop.net." });
+        rbl.setGetDetail(true);
+        rbl.doRcpt(mockedSMTPSession, MaybeSender.nullSender(), new MailAddress("test@localhost"));
+
+        assertThat(mockedSMTPSession.getAttachment(RBL_DETAIL_MAIL_ATTRIBUTE_NAME, Connection)).contains("Listed by other.example.net");
+        assertThat(mockedSMTPSession.getAttachment(RBL_BLOCKLISTED_MAIL_ATTRIBUTE_NAME, Connection)).withFailMessage("Blocked").isPresent();
+    }
+
+    @Test
+    void testDetailFollowsBlackListOrder() throws Exception {
+        DNSRBLHandler rbl = createHandler();
+        setupMockedSMTPSession(new MailAddress("any@domain"));
+
+        rbl.setBlacklist(new String[] { "bl.spamcop.net.", "other.example.net." });
+        rbl.setGetDetail(true);
+        rbl.doRcpt(mockedSMTPSession, MaybeSender.nullSender(), new MailAddress("test@localhost"));
+
+        assertThat(mockedSMTPSession.getAttachment(RBL_DETAIL_MAIL_ATTRIBUTE_NAME, Connection)).contains("Blocked - see http://www.spamcop.net/bl.shtml?127.0.0.2");
+    }
+
+    // the txt details are part of the rejection
+    @Test
+    void testRejectionContainsTxtDetail() throws Exception {
+        DNSRBLHandler rbl = createHandler();
+        setupMockedSMTPSession(new MailAddress("any@domain"));
+
+        rbl.setBlacklist(new String[] { "bl.spamcop.net." });
+        rbl.setGetDetail(true);
+        HookResult result = rbl.doRcpt(mockedSMTPSession, MaybeSender.nullSender(), new MailAddress("test@localhost"));
+
+        assertThat(result.getResult()).isEqualTo(HookReturnCode.deny());
+        assertThat(result.getSmtpDescription()).contains("Blocked - see http://www.spamcop.net/bl.shtml?127.0.0.2");
+    }
+
+    // all the lists are looked up at once, whitelists first
+    @Test
+    void testAllListsAreResolvedTogether() throws Exception {
+        List<List<String>> lookups = new ArrayList<>();
+        DNSRBLHandler rbl = new DNSRBLHandler() {
+            @Override
+            protected Set<String> resolvableNames(List<String> names) {
+                lookups.add(names);
+                return ImmutableSet.of("2.0.0.127.other.example.net.");
+            }
+        };
+        setupMockedSMTPSession(new MailAddress("any@domain"));
+
+        rbl.setWhitelist(new String[] { "wl.example.net." });
+        rbl.setBlacklist(new String[] { "bl.spamcop.net.", "other.example.net." });
+        rbl.doRcpt(mockedSMTPSession, MaybeSender.nullSender(), new MailAddress("test@localhost"));
+
+        assertThat(lookups).containsExactly(ImmutableList.of(
+            "2.0.0.127.wl.example.net.",
+            "2.0.0.127.bl.spamcop.net.",
+            "2.0.0.127.other.example.net."));
+        assertThat(mockedSMTPSession.getAttachment(RBL_BLOCKLISTED_MAIL_ATTRIBUTE_NAME, Connection)).withFailMessage("Blocked").isPresent();
+    }
 }
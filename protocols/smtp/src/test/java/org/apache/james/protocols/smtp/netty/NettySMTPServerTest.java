@@ -18,15 +18,44 @@
  ****************************************************************/
 package org.apache.james.protocols.smtp.netty;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.james.core.MailAddress;
+import org.apache.james.core.MaybeSender;
 import org.apache.james.protocols.api.Protocol;
 import org.apache.james.protocols.api.ProtocolServer;
+import org.apache.james.protocols.api.utils.ProtocolServerUtils;
 import org.apache.james.protocols.netty.NettyServer;
 import org.apache.james.protocols.smtp.AbstractSMTPServerTest;
+import org.apache.james.protocols.smtp.MailEnvelope;
+import org.apache.james.protocols.smtp.SMTPSession;
+import org.apache.james.protocols.smtp.hook.HookResult;
+import org.apache.james.protocols.smtp.hook.RcptHook;
+import org.apache.james.protocols.smtp.utils.TestMessageHook;
+import org.apache.james.util.MDCBuilder;
 import org.jboss.netty.util.HashedWheelTimer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.slf4j.MDC;
+
+import reactor.core.publisher.Mono;
 
 /**
  * Integration tests which use netty implementation
@@ -59,4 +88,178 @@ public class NettySMTPServerTest extends AbstractSMTPServerTest {
         server.setListenAddresses(new InetSocketAddress(LOCALHOST_IP, RANDOM_PORT));
         return server;
     }
+
+    @Test
+    void pipelinedCommandsShouldBeAnsweredInOrder() throws Exception {
+        TestMessageHook hook = new TestMessageHook();
+        ProtocolServer server = createServer(createProtocol(hook));
+        try {
+            server.bind();
+            InetSocketAddress bindedAddress = new ProtocolServerUtils(server).retrieveBindedAddress();
+
+            try (Socket socket = new Socket(bindedAddress.getAddress(), bindedAddress.getPort())) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                OutputStream out = socket.getOutputStream();
+                assertThat(reader.readLine()).startsWith("220");
+
+                out.write(("EHLO localhost\r\n"
+                    + "MAIL FROM:<" + SENDER + ">\r\n"
+                    + "RCPT TO:<" + RCPT1 + ">\r\n"
+                    + "RCPT TO:<" + RCPT2 + ">\r\n"
+                    + "DATA\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+
+                assertThat(readReplyCodes(reader, 5)).containsExactly("250", "250", "250", "250", "354");
+
+                out.write((MSG1 + ".\r\nQUIT\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+
+                assertThat(readReplyCodes(reader, 2)).containsExactly("250", "221");
+            }
+
+            Iterator<MailEnvelope> queued = hook.getQueued().iterator();
+            assertThat(queued.hasNext()).isTrue();
+            checkEnvelope(queued.next(), SENDER, Arrays.asList(RCPT1, RCPT2), MSG1);
+            assertThat(queued.hasNext()).isFalse();
+        } finally {
+            server.unbind();
+        }
+    }
+
+    @Test
+    void pipelinedCommandsShouldWaitForAsynchronousHooks() throws Exception {
+        RcptHook slowHook = new RcptHook() {
+            @Override
+            public Publisher<HookResult> doRcptReactive(SMTPSession session, MaybeSender sender, MailAddress rcpt) {
+                HookResult result = RCPT1.equals(rcpt.toString()) ? HookResult.DENY : HookResult.DECLINED;
+                return Mono.delay(Duration.ofMillis(200))
+                    .thenReturn(result);
+            }
+        };
+        TestMessageHook hook = new TestMessageHook();
+        ProtocolServer server = createServer(createProtocol(slowHook, hook));
+        try {
+            server.bind();
+            InetSocketAddress bindedAddress = new ProtocolServerUtils(server).retrieveBindedAddress();
+
+            try (Socket socket = new Socket(bindedAddress.getAddress(), bindedAddress.getPort())) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                OutputStream out = socket.getOutputStream();
+                assertThat(reader.readLine()).startsWith("220");
+
+                out.write(("EHLO localhost\r\n"
+                    + "MAIL FROM:<" + SENDER + ">\r\n"
+                    + "RCPT TO:<" + RCPT1 + ">\r\n"
+                    + "RCPT TO:<" + RCPT2 + ">\r\n"
+                    + "DATA\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+
+                assertThat(readReplyCodes(reader, 5)).containsExactly("250", "250", "554", "250", "354");
+
+                out.write((MSG1 + ".\r\nQUIT\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+
+                assertThat(readReplyCodes(reader, 2)).containsExactly("250", "221");
+            }
+
+            Iterator<MailEnvelope> queued = hook.getQueued().iterator();
+            assertThat(queued.hasNext()).isTrue();
+            checkEnvelope(queued.next(), SENDER, Arrays.asList(RCPT2), MSG1);
+        } finally {
+            server.unbind();
+        }
+    }
+
+    @Test
+    void commandsFollowingAsynchronousHooksShouldKeepTheirContext() throws Exception {
+        RcptHook slowHook = new RcptHook() {
+            @Override
+            public Publisher<HookResult> doRcptReactive(SMTPSession session, MaybeSender sender, MailAddress rcpt) {
+                if (RCPT1.equals(rcpt.toString())) {
+                    return Mono.delay(Duration.ofMillis(200))
+                        .thenReturn(HookResult.DECLINED);
+                }
+                return Mono.just(HookResult.DECLINED);
+            }
+        };
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        Map<String, String> actions = new ConcurrentHashMap<>();
+        RcptHook recordingHook = new RcptHook() {
+            @Override
+            public HookResult doRcpt(SMTPSession session, MaybeSender sender, MailAddress rcpt) {
+                threads.put(rcpt.toString(), Thread.currentThread().getName());
+                actions.put(rcpt.toString(), Optional.ofNullable(MDC.get(MDCBuilder.ACTION)).orElse("none"));
+                return HookResult.DECLINED;
+            }
+        };
+        TestMessageHook hook = new TestMessageHook();
+        ProtocolServer server = createServer(createProtocol(slowHook, recordingHook, hook));
+        try {
+            server.bind();
+            InetSocketAddress bindedAddress = new ProtocolServerUtils(server).retrieveBindedAddress();
+
+            try (Socket socket = new Socket(bindedAddress.getAddress(), bindedAddress.getPort())) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                OutputStream out = socket.getOutputStream();
+                assertThat(reader.readLine()).startsWith("220");
+
+                out.write(("EHLO localhost\r\n"
+                    + "MAIL FROM:<" + SENDER + ">\r\n"
+                    + "RCPT TO:<" + RCPT1 + ">\r\n"
+                    + "RCPT TO:<" + RCPT2 + ">\r\n"
+                    + "QUIT\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+
+                assertThat(readReplyCodes(reader, 5)).containsExactly("250", "250", "250", "250", "221");
+            }
+
+            // the hooks following the asynchronous one run where it completed, with the MDC of the command
+            assertThat(actions.get(RCPT1)).isEqualToIgnoringCase("RCPT");
+            // the lines held back meanwhile are replayed on the channel thread
+            assertThat(actions.get(RCPT2)).isEqualToIgnoringCase("RCPT");
+            assertThat(threads.get(RCPT1)).startsWith("parallel");
+            assertThat(threads.get(RCPT2)).doesNotStartWith("parallel");
+        } finally {
+            server.unbind();
+        }
+    }
+
+    @Test
+    void responsesToSeveralReadsShouldAllBeWritten() throws Exception {
+        ProtocolServer server = createServer(createProtocol(new TestMessageHook()));
+        try {
+            server.bind();
+            InetSocketAddress bindedAddress = new ProtocolServerUtils(server).retrieveBindedAddress();
+
+            try (Socket socket = new Socket(bindedAddress.getAddress(), bindedAddress.getPort())) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                OutputStream out = socket.getOutputStream();
+                assertThat(reader.readLine()).startsWith("220");
+
+                for (int i = 0; i < 3; i++) {
+                    out.write("NOOP\r\nNOOP\r\n".getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+
+                    assertThat(readReplyCodes(reader, 2)).containsExactly("250", "250");
+                }
+            }
+        } finally {
+            server.unbind();
+        }
+    }
+
+    /**
+     * Read the given count of replies, skipping the continuation lines of multi-line replies
+     */
+    private List<String> readReplyCodes(BufferedReader reader, int count) throws Exception {
+        List<String> codes = new ArrayList<>();
+        while (codes.size() < count) {
+            String line = reader.readLine();
+            assertThat(line).isNotNull();
+            if (line.length() < 4 || line.charAt(3) != '-') {
+                codes.add(line.substring(0, 3));
+            }
+        }
+        return codes;
+    }
 }
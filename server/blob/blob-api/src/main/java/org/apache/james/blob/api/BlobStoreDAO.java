@@ -46,6 +46,14 @@ public interface BlobStoreDAO {
      */
     Publisher<byte[]> readBytes(BucketName bucketName, BlobId blobId);
 
+    /**
+     * Checks whether a Blob exists without reading its content
+     *
+     * @return a Mono containing true when the blob exists, false when the blobId or the bucket is not found
+     *  or an IOObjectStoreException in its error channel when an unexpected IO error occurs
+     */
+    Publisher<Boolean> exists(BucketName bucketName, BlobId blobId);
+
 
     /**
      * Save the blob with the provided blob id, and overwrite the previous blob with the same id if it already exists
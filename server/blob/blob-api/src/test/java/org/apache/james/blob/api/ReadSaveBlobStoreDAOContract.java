@@ -19,6 +19,7 @@
 
 package org.apache.james.blob.api;
 
+import static org.apache.james.blob.api.BlobStoreDAOFixture.CUSTOM_BUCKET_NAME;
 import static org.apache.james.blob.api.BlobStoreDAOFixture.ELEVEN_KILOBYTES;
 import static org.apache.james.blob.api.BlobStoreDAOFixture.EMPTY_BYTEARRAY;
 import static org.apache.james.blob.api.BlobStoreDAOFixture.SHORT_BYTEARRAY;
@@ -169,6 +170,43 @@ public interface ReadSaveBlobStoreDAOContract {
         assertThat(bytes).isEqualTo(TWELVE_MEGABYTES);
     }
 
+    @Test
+    default void existsShouldReturnFalseWhenNotExisting() {
+        BlobStoreDAO store = testee();
+
+        assertThat(Mono.from(store.exists(TEST_BUCKET_NAME, new TestBlobId("unknown"))).block())
+            .isFalse();
+    }
+
+    @Test
+    default void existsShouldReturnFalseWhenBucketNotExisting() {
+        BlobStoreDAO store = testee();
+
+        assertThat(Mono.from(store.exists(CUSTOM_BUCKET_NAME, new TestBlobId("unknown"))).block())
+            .isFalse();
+    }
+
+    @Test
+    default void existsShouldReturnTrueWhenSaved() {
+        BlobStoreDAO store = testee();
+
+        Mono.from(store.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+
+        assertThat(Mono.from(store.exists(TEST_BUCKET_NAME, TEST_BLOB_ID)).block())
+            .isTrue();
+    }
+
+    @Test
+    default void existsShouldReturnFalseWhenDeleted() {
+        BlobStoreDAO store = testee();
+
+        Mono.from(store.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY)).block();
+        Mono.from(store.delete(TEST_BUCKET_NAME, TEST_BLOB_ID)).block();
+
+        assertThat(Mono.from(store.exists(TEST_BUCKET_NAME, TEST_BLOB_ID)).block())
+            .isFalse();
+    }
+
     @Test
     default void readStreamShouldThrowWhenNotExisting() {
         BlobStoreDAO store = testee();
@@ -79,6 +79,12 @@ public class CassandraBlobStoreDAO implements BlobStoreDAO {
             .map(this::byteBuffersToBytesArray);
     }
 
+    @Override
+    public Mono<Boolean> exists(BucketName bucketName, BlobId blobId) {
+        return selectRowCount(bucketName, blobId)
+            .hasElement();
+    }
+
     @Override
     public Mono<Void> save(BucketName bucketName, BlobId blobId, byte[] data) {
         Preconditions.checkNotNull(data);
@@ -33,6 +33,7 @@ import java.nio.ByteBuffer;
 import javax.inject.Inject;
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.blob.api.BlobId;
 import org.apache.james.blob.api.BucketName;
@@ -58,10 +59,9 @@ public class CassandraBucketDAO {
     private final PreparedStatement listAll;
 
     @Inject
-    @VisibleForTesting
-    public CassandraBucketDAO(BlobId.Factory blobIdFactory, Session session) {
+    public CassandraBucketDAO(BlobId.Factory blobIdFactory, Session session, CassandraConfiguration cassandraConfiguration) {
         this.blobIdFactory = blobIdFactory;
-        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session);
+        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         this.insert = prepareInsert(session);
         this.select = prepareSelect(session);
         this.delete = prepareDelete(session);
@@ -71,6 +71,11 @@ public class CassandraBucketDAO {
         this.listAll = prepareListAll(session);
     }
 
+    @VisibleForTesting
+    public CassandraBucketDAO(BlobId.Factory blobIdFactory, Session session) {
+        this(blobIdFactory, session, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareDeleteParts(Session session) {
         return session.prepare(
             delete().from(BucketBlobParts.TABLE_NAME)
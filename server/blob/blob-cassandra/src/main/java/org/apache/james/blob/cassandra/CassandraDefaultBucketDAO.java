@@ -31,6 +31,7 @@ import java.nio.ByteBuffer;
 
 import javax.inject.Inject;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.blob.api.BlobId;
 import org.apache.james.blob.cassandra.BlobTables.DefaultBucketBlobParts;
@@ -52,9 +53,8 @@ public class CassandraDefaultBucketDAO {
     private final PreparedStatement deleteParts;
 
     @Inject
-    @VisibleForTesting
-    public CassandraDefaultBucketDAO(Session session) {
-        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session);
+    public CassandraDefaultBucketDAO(Session session, CassandraConfiguration cassandraConfiguration) {
+        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         this.insert = prepareInsert(session);
         this.select = prepareSelect(session);
         this.insertPart = prepareInsertPart(session);
@@ -63,6 +63,11 @@ public class CassandraDefaultBucketDAO {
         this.deleteParts = prepareDeleteParts(session);
     }
 
+    @VisibleForTesting
+    public CassandraDefaultBucketDAO(Session session) {
+        this(session, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareSelect(Session session) {
         return session.prepare(select()
             .from(BlobTables.DefaultBucketBlobTable.TABLE_NAME)
@@ -37,6 +37,7 @@ import java.nio.ByteBuffer;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.init.configuration.InjectionNames;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.blob.api.BlobId;
@@ -63,10 +64,10 @@ public class CassandraBlobStoreCache implements BlobStoreCache {
     private final int timeToLive;
 
     @Inject
-    @VisibleForTesting
     CassandraBlobStoreCache(@Named(InjectionNames.CACHE) Session session,
-                            CassandraCacheConfiguration cacheConfiguration) {
-        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session);
+                            CassandraCacheConfiguration cacheConfiguration,
+                            CassandraConfiguration cassandraConfiguration) {
+        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         this.insertStatement = prepareInsert(session);
         this.selectStatement = prepareSelect(session);
         this.deleteStatement = prepareDelete(session);
@@ -75,6 +76,12 @@ public class CassandraBlobStoreCache implements BlobStoreCache {
         this.timeToLive = Math.toIntExact(cacheConfiguration.getTtl().getSeconds());
     }
 
+    @VisibleForTesting
+    CassandraBlobStoreCache(Session session,
+                            CassandraCacheConfiguration cacheConfiguration) {
+        this(session, cacheConfiguration, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     @Override
     public Mono<Void> cache(BlobId blobId, byte[] bytes) {
         return save(blobId, toByteBuffer(bytes));
@@ -0,0 +1,570 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobStoreDAO;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.ObjectNotFoundException;
+import org.apache.james.blob.api.ObjectStoreIOException;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteSource;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Node local disk cache tier in front of a remote {@link BlobStoreDAO}, typically an object storage.
+ *
+ * Blobs are admitted on read, once they missed the cache {@link DiskCacheConfiguration#getAdmissionThreshold()}
+ * times, so that blobs read once do not evict hot ones. Blobs below
+ * {@link DiskCacheConfiguration#getMinimumBlobSizeInBytes()} are never admitted and are left to the
+ * {@code BlobStoreCache}. Least recently used blobs are evicted once the cached blobs exceed
+ * {@link DiskCacheConfiguration#getMaxSizeInBytes()}.
+ *
+ * Stream reads fill the cache while the caller consumes the stream, the blob being registered once the stream is fully
+ * read. Byte array reads fill it in the background. Each fill writes a file owned by a single cache entry, hence
+ * concurrent fills of the same blob never expose a partially written file.
+ *
+ * Cached blobs smaller than {@link #MAPPING_THRESHOLD_IN_BYTES} are read on the heap, bigger ones through memory
+ * mapping. The JDK offers no supported way to unmap a buffer: a mapping is released once the stream reading it is
+ * garbage collected, and keeps the file content readable even if it is evicted meanwhile.
+ *
+ * The cache index is kept in memory: the cache starts empty.
+ */
+public class DiskCacheBlobStoreDAO implements BlobStoreDAO {
+    public static final String BACKEND = "diskCacheBackend";
+    public static final String HIT_COUNT_METRIC_NAME = "blobStore:diskCache:hits";
+    public static final String MISS_COUNT_METRIC_NAME = "blobStore:diskCache:misses";
+    public static final String ADMISSION_COUNT_METRIC_NAME = "blobStore:diskCache:admissions";
+    public static final String EVICTION_COUNT_METRIC_NAME = "blobStore:diskCache:evictions";
+
+    public static final int MAPPING_THRESHOLD_IN_BYTES = 1024 * 1024;
+
+    static final String FILE_PREFIX = "blob-";
+    static final String FILE_SUFFIX = ".cache";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiskCacheBlobStoreDAO.class);
+
+    @FunctionalInterface
+    private interface ContentWriter {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface CachedFileReader<T> {
+        T read(Path path, int size) throws IOException;
+    }
+
+    private static class CacheKey {
+        private final BucketName bucketName;
+        private final BlobId blobId;
+
+        private CacheKey(BucketName bucketName, BlobId blobId) {
+            this.bucketName = bucketName;
+            this.blobId = blobId;
+        }
+
+        @Override
+        public final boolean equals(Object o) {
+            if (o instanceof CacheKey) {
+                CacheKey that = (CacheKey) o;
+
+                return Objects.equals(this.bucketName, that.bucketName)
+                    && Objects.equals(this.blobId, that.blobId);
+            }
+            return false;
+        }
+
+        @Override
+        public final int hashCode() {
+            return Objects.hash(bucketName, blobId);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                .add("bucketName", bucketName.asString())
+                .add("blobId", blobId.asString())
+                .toString();
+        }
+    }
+
+    private static class CachedFile {
+        private final Path path;
+        private final int size;
+
+        private CachedFile(Path path, int size) {
+            this.path = path;
+            this.size = size;
+        }
+    }
+
+    private static class MappedInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private MappedInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            Objects.checkFromIndexSize(offset, length, bytes.length);
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int readLength = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, readLength);
+            return readLength;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * Copies the content read by the caller into the cache file. The blob is registered once the end of the stream is
+     * reached. The fill is abandoned if the stream is closed before, skipped, or exceeds the maximum blob size.
+     */
+    private class FillingInputStream extends FilterInputStream {
+        private final CacheKey key;
+        private final Object fill;
+        private final Path path;
+        private final OutputStream outputStream;
+        private long written;
+        private boolean done;
+
+        private FillingInputStream(InputStream content, CacheKey key, Object fill, Path path, OutputStream outputStream) {
+            super(content);
+            this.key = key;
+            this.fill = fill;
+            this.path = path;
+            this.outputStream = outputStream;
+            this.written = 0;
+            this.done = false;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value == -1) {
+                complete();
+            } else {
+                copy(new byte[] {(byte) value}, 0, 1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int readLength = super.read(bytes, offset, length);
+            if (readLength == -1) {
+                complete();
+            } else {
+                copy(bytes, offset, readLength);
+            }
+            return readLength;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            abandon();
+            return super.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                abandon();
+            }
+        }
+
+        private void copy(byte[] bytes, int offset, int length) {
+            if (done) {
+                return;
+            }
+            if (written + length > maxBlobSizeInBytes) {
+                abandon();
+                return;
+            }
+            try {
+                outputStream.write(bytes, offset, length);
+                written += length;
+            } catch (IOException e) {
+                LOGGER.warn("Failed caching blob {} on disk", key, e);
+                abandon();
+            }
+        }
+
+        private void complete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            try {
+                outputStream.close();
+                register(key, fill, path);
+            } catch (IOException e) {
+                LOGGER.warn("Failed caching blob {} on disk", key, e);
+                deleteQuietly(path);
+            } finally {
+                fillsInProgress.remove(key, fill);
+            }
+        }
+
+        private void abandon() {
+            if (done) {
+                return;
+            }
+            done = true;
+            try {
+                outputStream.close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed closing cache file {}", path, e);
+            } finally {
+                deleteQuietly(path);
+                fillsInProgress.remove(key, fill);
+            }
+        }
+    }
+
+    private final BlobStoreDAO underlying;
+    private final DiskCacheConfiguration configuration;
+    private final long maxBlobSizeInBytes;
+    private final Cache<CacheKey, CachedFile> index;
+    private final Cache<CacheKey, AtomicInteger> missCounts;
+    private final ConcurrentHashMap<CacheKey, Object> fillsInProgress;
+    private final Metric hits;
+    private final Metric misses;
+    private final Metric admissions;
+    private final Metric evictions;
+
+    @Inject
+    public DiskCacheBlobStoreDAO(@Named(BACKEND) BlobStoreDAO underlying,
+                                 DiskCacheConfiguration configuration,
+                                 MetricFactory metricFactory) throws IOException {
+        this.underlying = underlying;
+        this.configuration = configuration;
+        this.maxBlobSizeInBytes = Math.min(configuration.getMaxSizeInBytes(), Integer.MAX_VALUE);
+        this.index = CacheBuilder.newBuilder()
+            // A single segment, otherwise the size bound is enforced per segment
+            .concurrencyLevel(1)
+            .maximumWeight(configuration.getMaxSizeInBytes())
+            .weigher((CacheKey key, CachedFile file) -> file.size)
+            .removalListener(this::onRemoval)
+            .build();
+        this.missCounts = CacheBuilder.newBuilder()
+            .maximumSize(configuration.getTrackedBlobCount())
+            .build();
+        this.fillsInProgress = new ConcurrentHashMap<>();
+        this.hits = metricFactory.generate(HIT_COUNT_METRIC_NAME);
+        this.misses = metricFactory.generate(MISS_COUNT_METRIC_NAME);
+        this.admissions = metricFactory.generate(ADMISSION_COUNT_METRIC_NAME);
+        this.evictions = metricFactory.generate(EVICTION_COUNT_METRIC_NAME);
+
+        Files.createDirectories(configuration.getDirectory());
+        removeLeftOverFiles();
+    }
+
+    @Override
+    public InputStream read(BucketName bucketName, BlobId blobId) throws ObjectStoreIOException, ObjectNotFoundException {
+        CacheKey key = new CacheKey(bucketName, blobId);
+        Optional<InputStream> cached = readCachedFile(key, this::openCachedFile);
+        if (cached.isPresent()) {
+            hits.increment();
+            return cached.get();
+        }
+
+        misses.increment();
+        InputStream content = underlying.read(bucketName, blobId);
+        if (shouldAdmit(key)) {
+            // The size is not known upfront: the fill copies the content read by the caller and checks it
+            return startFill(key, content);
+        }
+        return content;
+    }
+
+    @Override
+    public Mono<byte[]> readBytes(BucketName bucketName, BlobId blobId) {
+        CacheKey key = new CacheKey(bucketName, blobId);
+
+        return Mono.fromCallable(() -> readCachedFile(key, (path, size) -> Files.readAllBytes(path)))
+            .subscribeOn(Schedulers.elastic())
+            .flatMap(Mono::justOrEmpty)
+            .doOnNext(any -> hits.increment())
+            .switchIfEmpty(Mono.defer(() -> {
+                misses.increment();
+                return Mono.from(underlying.readBytes(bucketName, blobId))
+                    .doOnNext(bytes -> {
+                        if (isCacheable(bytes.length) && shouldAdmit(key)) {
+                            scheduleFill(key, outputStream -> outputStream.write(bytes));
+                        }
+                    });
+            }));
+    }
+
+    @Override
+    public Mono<Boolean> exists(BucketName bucketName, BlobId blobId) {
+        // The cache is local to this node: blobs deleted through other nodes can still be cached here
+        return Mono.from(underlying.exists(bucketName, blobId));
+    }
+
+    @Override
+    public Mono<Void> save(BucketName bucketName, BlobId blobId, byte[] data) {
+        return Mono.from(underlying.save(bucketName, blobId, data))
+            .then(Mono.fromRunnable(() -> invalidate(new CacheKey(bucketName, blobId))));
+    }
+
+    @Override
+    public Mono<Void> save(BucketName bucketName, BlobId blobId, InputStream inputStream) {
+        return Mono.from(underlying.save(bucketName, blobId, inputStream))
+            .then(Mono.fromRunnable(() -> invalidate(new CacheKey(bucketName, blobId))));
+    }
+
+    @Override
+    public Mono<Void> save(BucketName bucketName, BlobId blobId, ByteSource content) {
+        return Mono.from(underlying.save(bucketName, blobId, content))
+            .then(Mono.fromRunnable(() -> invalidate(new CacheKey(bucketName, blobId))));
+    }
+
+    @Override
+    public Mono<Void> delete(BucketName bucketName, BlobId blobId) {
+        return Mono.from(underlying.delete(bucketName, blobId))
+            .then(Mono.fromRunnable(() -> invalidate(new CacheKey(bucketName, blobId))));
+    }
+
+    @Override
+    public Mono<Void> deleteBucket(BucketName bucketName) {
+        return Mono.from(underlying.deleteBucket(bucketName))
+            .then(Mono.fromRunnable(() -> ImmutableSet.<CacheKey>builder()
+                .addAll(index.asMap().keySet())
+                .addAll(fillsInProgress.keySet())
+                .build()
+                .stream()
+                .filter(key -> key.bucketName.equals(bucketName))
+                .forEach(this::invalidate)));
+    }
+
+    private <T> Optional<T> readCachedFile(CacheKey key, CachedFileReader<T> reader) {
+        CachedFile cachedFile = index.getIfPresent(key);
+        if (cachedFile == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(reader.read(cachedFile.path, cachedFile.size));
+        } catch (NoSuchFileException e) {
+            index.asMap().remove(key, cachedFile);
+            return Optional.empty();
+        } catch (IOException e) {
+            LOGGER.warn("Failed reading cached blob {}, falling back to the underlying blob store", key, e);
+            index.asMap().remove(key, cachedFile);
+            return Optional.empty();
+        }
+    }
+
+    private InputStream openCachedFile(Path path, int size) throws IOException {
+        if (size < MAPPING_THRESHOLD_IN_BYTES) {
+            return new ByteArrayInputStream(Files.readAllBytes(path));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid once the channel is closed, and once the file is evicted
+            return new MappedInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private boolean isCacheable(long size) {
+        return size >= configuration.getMinimumBlobSizeInBytes() && size <= maxBlobSizeInBytes;
+    }
+
+    private boolean shouldAdmit(CacheKey key) {
+        int missCount = missCounts.asMap()
+            .computeIfAbsent(key, any -> new AtomicInteger())
+            .incrementAndGet();
+        return missCount >= configuration.getAdmissionThreshold();
+    }
+
+    private InputStream startFill(CacheKey key, InputStream content) {
+        Object fill = new Object();
+        if (fillsInProgress.putIfAbsent(key, fill) != null) {
+            // An other read is already filling the cache with this blob
+            return content;
+        }
+
+        Path path = newCacheFile();
+        try {
+            OutputStream outputStream = Files.newOutputStream(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            return new FillingInputStream(content, key, fill, path, outputStream);
+        } catch (IOException e) {
+            LOGGER.warn("Failed caching blob {} on disk", key, e);
+            deleteQuietly(path);
+            fillsInProgress.remove(key, fill);
+            return content;
+        }
+    }
+
+    private void scheduleFill(CacheKey key, ContentWriter contentWriter) {
+        Object fill = new Object();
+        if (fillsInProgress.putIfAbsent(key, fill) != null) {
+            // An other read is already filling the cache with this blob
+            return;
+        }
+
+        Mono.fromRunnable(() -> fill(key, fill, contentWriter))
+            .subscribeOn(Schedulers.elastic())
+            .doFinally(any -> fillsInProgress.remove(key, fill))
+            .subscribe(any -> { },
+                e -> LOGGER.warn("Failed caching blob {} on disk", key, e));
+    }
+
+    private void fill(CacheKey key, Object fill, ContentWriter contentWriter) {
+        Path path = newCacheFile();
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                contentWriter.writeTo(outputStream);
+            }
+            register(key, fill, path);
+        } catch (IOException e) {
+            deleteQuietly(path);
+            throw new ObjectStoreIOException("Error caching blob " + key.blobId.asString(), e);
+        }
+    }
+
+    private Path newCacheFile() {
+        return configuration.getDirectory().resolve(FILE_PREFIX + UUID.randomUUID() + FILE_SUFFIX);
+    }
+
+    private void register(CacheKey key, Object fill, Path path) throws IOException {
+        long size = Files.size(path);
+        if (!isCacheable(size) || !register(key, fill, new CachedFile(path, (int) size))) {
+            deleteQuietly(path);
+        }
+    }
+
+    private boolean register(CacheKey key, Object fill, CachedFile cachedFile) {
+        boolean[] registered = {false};
+        // Serialized with invalidations: a fill started before a blob update or deletion is discarded
+        fillsInProgress.computeIfPresent(key, (any, currentFill) -> {
+            if (currentFill == fill) {
+                registered[0] = index.asMap().putIfAbsent(key, cachedFile) == null;
+                return null;
+            }
+            return currentFill;
+        });
+        if (registered[0]) {
+            admissions.increment();
+            missCounts.invalidate(key);
+        }
+        return registered[0];
+    }
+
+    private void invalidate(CacheKey key) {
+        fillsInProgress.compute(key, (any, currentFill) -> {
+            index.invalidate(key);
+            return null;
+        });
+        missCounts.invalidate(key);
+    }
+
+    private void onRemoval(RemovalNotification<CacheKey, CachedFile> notification) {
+        if (notification.wasEvicted()) {
+            evictions.increment();
+        }
+        deleteQuietly(notification.getValue().path);
+    }
+
+    private void removeLeftOverFiles() throws IOException {
+        try (Stream<Path> files = Files.list(configuration.getDirectory())) {
+            files.filter(this::isCacheFile)
+                .forEach(this::deleteQuietly);
+        }
+    }
+
+    private boolean isCacheFile(Path path) {
+        String fileName = path.getFileName().toString();
+        return Files.isRegularFile(path)
+            && fileName.startsWith(FILE_PREFIX)
+            && fileName.endsWith(FILE_SUFFIX);
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.warn("Failed deleting cached blob file {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.cache;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.james.util.SizeFormat;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+public class DiskCacheConfiguration {
+    public static final long DEFAULT_MAX_SIZE_IN_BYTES = 10L * 1024 * 1024 * 1024;
+    public static final int DEFAULT_MINIMUM_BLOB_SIZE_IN_BYTES = 8 * 1024;
+    public static final int DEFAULT_ADMISSION_THRESHOLD = 2;
+    public static final int DEFAULT_TRACKED_BLOB_COUNT = 100_000;
+    public static final String DEFAULT_DIRECTORY_LOCATION = "file://var/blobCache";
+
+    static final String DIRECTORY_PROPERTY = "cache.disk.directory";
+    static final String MAX_SIZE_PROPERTY = "cache.disk.maxSizeInBytes";
+    static final String MINIMUM_BLOB_SIZE_PROPERTY = "cache.disk.minimumBlobSizeInBytes";
+    static final String ADMISSION_THRESHOLD_PROPERTY = "cache.disk.admissionThreshold";
+    static final String TRACKED_BLOB_COUNT_PROPERTY = "cache.disk.trackedBlobCount";
+
+    public static class Builder {
+        private final Path directory;
+        private Optional<Long> maxSizeInBytes;
+        private Optional<Integer> minimumBlobSizeInBytes;
+        private Optional<Integer> admissionThreshold;
+        private Optional<Integer> trackedBlobCount;
+
+        private Builder(Path directory) {
+            this.directory = directory;
+            this.maxSizeInBytes = Optional.empty();
+            this.minimumBlobSizeInBytes = Optional.empty();
+            this.admissionThreshold = Optional.empty();
+            this.trackedBlobCount = Optional.empty();
+        }
+
+        public Builder maxSizeInBytes(long maxSizeInBytes) {
+            Preconditions.checkArgument(maxSizeInBytes > 0, "'maxSizeInBytes' needs to be strictly positive");
+
+            this.maxSizeInBytes = Optional.of(maxSizeInBytes);
+            return this;
+        }
+
+        public Builder minimumBlobSizeInBytes(int minimumBlobSizeInBytes) {
+            Preconditions.checkArgument(minimumBlobSizeInBytes >= 0, "'minimumBlobSizeInBytes' needs to be positive");
+
+            this.minimumBlobSizeInBytes = Optional.of(minimumBlobSizeInBytes);
+            return this;
+        }
+
+        public Builder admissionThreshold(int admissionThreshold) {
+            Preconditions.checkArgument(admissionThreshold > 0, "'admissionThreshold' needs to be strictly positive");
+
+            this.admissionThreshold = Optional.of(admissionThreshold);
+            return this;
+        }
+
+        public Builder trackedBlobCount(int trackedBlobCount) {
+            Preconditions.checkArgument(trackedBlobCount > 0, "'trackedBlobCount' needs to be strictly positive");
+
+            this.trackedBlobCount = Optional.of(trackedBlobCount);
+            return this;
+        }
+
+        public DiskCacheConfiguration build() {
+            return new DiskCacheConfiguration(directory,
+                maxSizeInBytes.orElse(DEFAULT_MAX_SIZE_IN_BYTES),
+                minimumBlobSizeInBytes.orElse(DEFAULT_MINIMUM_BLOB_SIZE_IN_BYTES),
+                admissionThreshold.orElse(DEFAULT_ADMISSION_THRESHOLD),
+                trackedBlobCount.orElse(DEFAULT_TRACKED_BLOB_COUNT));
+        }
+    }
+
+    public static Builder builder(Path directory) {
+        Preconditions.checkNotNull(directory);
+
+        return new Builder(directory);
+    }
+
+    /**
+     * Location of the cache directory, following the James file system format. It needs to be resolved before
+     * calling {@link #from(Configuration, Path)}.
+     */
+    public static String directoryLocation(Configuration configuration) {
+        return configuration.getString(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY_LOCATION);
+    }
+
+    public static DiskCacheConfiguration from(Configuration configuration, Path directory) {
+        Builder builder = builder(directory);
+        Optional.ofNullable(configuration.getString(MAX_SIZE_PROPERTY, null))
+            .map(SizeFormat::parseAsByteCount)
+            .ifPresent(builder::maxSizeInBytes);
+        Optional.ofNullable(configuration.getString(MINIMUM_BLOB_SIZE_PROPERTY, null))
+            .map(SizeFormat::parseAsByteCount)
+            .map(Math::toIntExact)
+            .ifPresent(builder::minimumBlobSizeInBytes);
+        Optional.ofNullable(configuration.getInteger(ADMISSION_THRESHOLD_PROPERTY, null))
+            .ifPresent(builder::admissionThreshold);
+        Optional.ofNullable(configuration.getInteger(TRACKED_BLOB_COUNT_PROPERTY, null))
+            .ifPresent(builder::trackedBlobCount);
+        return builder.build();
+    }
+
+    private final Path directory;
+    private final long maxSizeInBytes;
+    private final int minimumBlobSizeInBytes;
+    private final int admissionThreshold;
+    private final int trackedBlobCount;
+
+    private DiskCacheConfiguration(Path directory, long maxSizeInBytes, int minimumBlobSizeInBytes,
+                                   int admissionThreshold, int trackedBlobCount) {
+        this.directory = directory;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.minimumBlobSizeInBytes = minimumBlobSizeInBytes;
+        this.admissionThreshold = admissionThreshold;
+        this.trackedBlobCount = trackedBlobCount;
+    }
+
+    /**
+     * Directory dedicated to the cache. Cache files left over by a previous run are removed on startup.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Total size of the cached blobs. Least recently used blobs are evicted above it.
+     */
+    public long getMaxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    /**
+     * Blobs smaller than this size are not cached on disk. They are better served by a
+     * {@code BlobStoreCache}.
+     */
+    public int getMinimumBlobSizeInBytes() {
+        return minimumBlobSizeInBytes;
+    }
+
+    /**
+     * Number of reads missing the cache before a blob is admitted in it.
+     */
+    public int getAdmissionThreshold() {
+        return admissionThreshold;
+    }
+
+    /**
+     * Number of not yet admitted blobs whose reads are counted.
+     */
+    public int getTrackedBlobCount() {
+        return trackedBlobCount;
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (o instanceof DiskCacheConfiguration) {
+            DiskCacheConfiguration that = (DiskCacheConfiguration) o;
+
+            return Objects.equals(this.maxSizeInBytes, that.maxSizeInBytes)
+                && Objects.equals(this.minimumBlobSizeInBytes, that.minimumBlobSizeInBytes)
+                && Objects.equals(this.admissionThreshold, that.admissionThreshold)
+                && Objects.equals(this.trackedBlobCount, that.trackedBlobCount)
+                && Objects.equals(this.directory, that.directory);
+        }
+        return false;
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(directory, maxSizeInBytes, minimumBlobSizeInBytes, admissionThreshold, trackedBlobCount);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("directory", directory)
+            .add("maxSizeInBytes", maxSizeInBytes)
+            .add("minimumBlobSizeInBytes", minimumBlobSizeInBytes)
+            .add("admissionThreshold", admissionThreshold)
+            .add("trackedBlobCount", trackedBlobCount)
+            .toString();
+    }
+}
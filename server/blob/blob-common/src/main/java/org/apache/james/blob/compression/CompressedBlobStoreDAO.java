@@ -0,0 +1,297 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobStoreDAO;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.ObjectNotFoundException;
+import org.apache.james.blob.api.ObjectStoreIOException;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.io.CountingInputStream;
+import com.google.common.primitives.Bytes;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Compresses the blobs stored by the underlying {@link BlobStoreDAO} according to the {@link CompressionConfiguration}
+ * policy of their bucket.
+ *
+ * Compressed blobs are framed: they start with a magic number followed by the compression method. Blobs not starting
+ * with the magic number are returned as is, which allows reading blobs stored before compression was enabled. Blobs
+ * that would be ambiguous, because their content starts with the magic number, are framed as stored.
+ *
+ * Blobs below the policy threshold, and blobs whose content is recognised as an already compressed format (archives,
+ * images, audio, video, PDF), are stored uncompressed.
+ */
+public class CompressedBlobStoreDAO implements BlobStoreDAO {
+    public static final String BACKEND = "compressionBackend";
+    public static final String ORIGINAL_BYTES_METRIC_NAME = "blobStore:compression:originalBytes";
+    public static final String STORED_BYTES_METRIC_NAME = "blobStore:compression:storedBytes";
+    public static final String UNCOMPRESSED_BLOBS_METRIC_NAME = "blobStore:compression:uncompressedBlobs";
+
+    static final byte[] MAGIC = {0x00, 'J', 'B', 'Z'};
+    static final byte STORED = 0x00;
+    static final byte DEFLATED = 0x01;
+    private static final int HEADER_LENGTH = MAGIC.length + 1;
+    private static final int SNIFF_LENGTH = 16;
+    private static final boolean LAZY = false;
+
+    private static final List<byte[]> COMPRESSED_FORMAT_SIGNATURES = ImmutableList.of(
+        new byte[] {0x1F, (byte) 0x8B}, // gzip
+        new byte[] {'P', 'K', 0x03, 0x04}, // zip, office documents, jar
+        new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}, // jpeg
+        new byte[] {(byte) 0x89, 'P', 'N', 'G'}, // png
+        new byte[] {'G', 'I', 'F', '8'}, // gif
+        new byte[] {'%', 'P', 'D', 'F'}, // pdf
+        new byte[] {'7', 'z', (byte) 0xBC, (byte) 0xAF}, // 7z
+        new byte[] {'R', 'a', 'r', '!'}, // rar
+        new byte[] {'B', 'Z', 'h'}, // bzip2
+        new byte[] {(byte) 0xFD, '7', 'z', 'X', 'Z', 0x00}, // xz
+        new byte[] {0x28, (byte) 0xB5, 0x2F, (byte) 0xFD}, // zstd
+        new byte[] {'I', 'D', '3'}, // mp3
+        new byte[] {'O', 'g', 'g', 'S'}, // ogg
+        new byte[] {'R', 'I', 'F', 'F'}); // webp, avi, wav
+    private static final byte[] ISO_MEDIA_SIGNATURE = {'f', 't', 'y', 'p'}; // mp4, mov, heic, at offset 4
+    private static final int ISO_MEDIA_SIGNATURE_OFFSET = 4;
+
+    private final BlobStoreDAO underlying;
+    private final CompressionConfiguration configuration;
+    private final Metric originalBytes;
+    private final Metric storedBytes;
+    private final Metric uncompressedBlobs;
+
+    @Inject
+    public CompressedBlobStoreDAO(@Named(BACKEND) BlobStoreDAO underlying,
+                                  CompressionConfiguration configuration,
+                                  MetricFactory metricFactory) {
+        this.underlying = underlying;
+        this.configuration = configuration;
+        this.originalBytes = metricFactory.generate(ORIGINAL_BYTES_METRIC_NAME);
+        this.storedBytes = metricFactory.generate(STORED_BYTES_METRIC_NAME);
+        this.uncompressedBlobs = metricFactory.generate(UNCOMPRESSED_BLOBS_METRIC_NAME);
+    }
+
+    @Override
+    public InputStream read(BucketName bucketName, BlobId blobId) throws ObjectStoreIOException, ObjectNotFoundException {
+        try {
+            return decode(underlying.read(bucketName, blobId));
+        } catch (IOException e) {
+            throw new ObjectStoreIOException("Error reading blob " + blobId.asString(), e);
+        }
+    }
+
+    @Override
+    public Mono<byte[]> readBytes(BucketName bucketName, BlobId blobId) {
+        return Mono.from(underlying.readBytes(bucketName, blobId))
+            .map(this::decode);
+    }
+
+    @Override
+    public Mono<Boolean> exists(BucketName bucketName, BlobId blobId) {
+        return Mono.from(underlying.exists(bucketName, blobId));
+    }
+
+    @Override
+    public Mono<Void> save(BucketName bucketName, BlobId blobId, byte[] data) {
+        Preconditions.checkNotNull(data);
+
+        return Mono.fromCallable(() -> encode(bucketName, data))
+            .flatMap(encoded -> Mono.from(underlying.save(bucketName, blobId, encoded))
+                .then(Mono.fromRunnable(() -> recordSave(data.length, encoded.length))));
+    }
+
+    @Override
+    public Mono<Void> save(BucketName bucketName, BlobId blobId, InputStream inputStream) {
+        Preconditions.checkNotNull(inputStream);
+
+        CompressionConfiguration.Policy policy = configuration.policyFor(bucketName);
+        int prefixLength = prefixLength(policy);
+
+        return Mono.fromCallable(() -> ByteStreams.toByteArray(ByteStreams.limit(inputStream, prefixLength)))
+            .flatMap(prefix -> {
+                if (prefix.length < prefixLength) {
+                    // The whole content was read
+                    return save(bucketName, blobId, prefix);
+                }
+                InputStream content = new SequenceInputStream(new ByteArrayInputStream(prefix), inputStream);
+                if (policy.shouldCompress(prefix.length) && !isAlreadyCompressed(prefix)) {
+                    return saveStream(bucketName, blobId, content, original -> new SequenceInputStream(
+                        new ByteArrayInputStream(header(DEFLATED)),
+                        new DeflaterInputStream(original)));
+                }
+                uncompressedBlobs.increment();
+                if (startsWithMagic(prefix)) {
+                    return saveStream(bucketName, blobId, content, original -> new SequenceInputStream(
+                        new ByteArrayInputStream(header(STORED)),
+                        original));
+                }
+                return saveStream(bucketName, blobId, content, original -> original);
+            })
+            .onErrorMap(IOException.class, e -> new ObjectStoreIOException("Error saving blob " + blobId.asString(), e));
+    }
+
+    @Override
+    public Mono<Void> save(BucketName bucketName, BlobId blobId, ByteSource content) {
+        Preconditions.checkNotNull(content);
+
+        return Mono.using(content::openStream,
+            stream -> save(bucketName, blobId, stream),
+            Closeables::closeQuietly,
+            LAZY);
+    }
+
+    @Override
+    public Mono<Void> delete(BucketName bucketName, BlobId blobId) {
+        return Mono.from(underlying.delete(bucketName, blobId));
+    }
+
+    @Override
+    public Mono<Void> deleteBucket(BucketName bucketName) {
+        return Mono.from(underlying.deleteBucket(bucketName));
+    }
+
+    private Mono<Void> saveStream(BucketName bucketName, BlobId blobId, InputStream content, UnaryOperator<InputStream> encoder) {
+        CountingInputStream original = new CountingInputStream(content);
+
+        return Mono.using(() -> new CountingInputStream(encoder.apply(original)),
+            stored -> Mono.from(underlying.save(bucketName, blobId, stored))
+                .then(Mono.fromRunnable(() -> recordSave(original.getCount(), stored.getCount()))),
+            Closeables::closeQuietly,
+            LAZY);
+    }
+
+    private int prefixLength(CompressionConfiguration.Policy policy) {
+        return policy.getThresholdInBytes()
+            .map(threshold -> (int) Math.min(Math.max(threshold, SNIFF_LENGTH), Integer.MAX_VALUE))
+            .orElse(SNIFF_LENGTH);
+    }
+
+    private byte[] encode(BucketName bucketName, byte[] data) throws IOException {
+        if (configuration.policyFor(bucketName).shouldCompress(data.length) && !isAlreadyCompressed(data)) {
+            byte[] compressed = deflate(data);
+            if (compressed.length < data.length) {
+                return compressed;
+            }
+        }
+        uncompressedBlobs.increment();
+        if (startsWithMagic(data)) {
+            return Bytes.concat(header(STORED), data);
+        }
+        return data;
+    }
+
+    private byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        compressed.write(header(DEFLATED));
+        try (DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(compressed)) {
+            deflaterOutputStream.write(data);
+        }
+        return compressed.toByteArray();
+    }
+
+    private byte[] decode(byte[] stored) {
+        if (!isFramed(stored)) {
+            return stored;
+        }
+        byte method = stored[MAGIC.length];
+        InputStream payload = new ByteArrayInputStream(stored, HEADER_LENGTH, stored.length - HEADER_LENGTH);
+        try (InputStream decoded = decodePayload(method, payload)) {
+            return ByteStreams.toByteArray(decoded);
+        } catch (IOException e) {
+            throw new ObjectStoreIOException("Error decompressing blob", e);
+        }
+    }
+
+    private InputStream decode(InputStream stored) throws IOException {
+        PushbackInputStream pushbackInputStream = new PushbackInputStream(stored, HEADER_LENGTH);
+        byte[] header = pushbackInputStream.readNBytes(HEADER_LENGTH);
+        if (isFramed(header)) {
+            return decodePayload(header[MAGIC.length], pushbackInputStream);
+        }
+        pushbackInputStream.unread(header);
+        return pushbackInputStream;
+    }
+
+    private InputStream decodePayload(byte method, InputStream payload) {
+        switch (method) {
+            case STORED:
+                return payload;
+            case DEFLATED:
+                return new InflaterInputStream(payload);
+            default:
+                throw new ObjectStoreIOException("Unknown blob compression method " + method);
+        }
+    }
+
+    private void recordSave(long originalSize, long storedSize) {
+        originalBytes.add(asMetricValue(originalSize));
+        storedBytes.add(asMetricValue(storedSize));
+    }
+
+    private int asMetricValue(long size) {
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private static byte[] header(byte method) {
+        return Bytes.concat(MAGIC, new byte[] {method});
+    }
+
+    private static boolean isFramed(byte[] data) {
+        return data.length >= HEADER_LENGTH && startsWithMagic(data);
+    }
+
+    private static boolean startsWithMagic(byte[] data) {
+        return startsWith(data, 0, MAGIC);
+    }
+
+    private static boolean isAlreadyCompressed(byte[] data) {
+        return COMPRESSED_FORMAT_SIGNATURES.stream().anyMatch(signature -> startsWith(data, 0, signature))
+            || startsWith(data, ISO_MEDIA_SIGNATURE_OFFSET, ISO_MEDIA_SIGNATURE);
+    }
+
+    private static boolean startsWith(byte[] data, int offset, byte[] prefix) {
+        return data.length >= offset + prefix.length
+            && Arrays.equals(data, offset, offset + prefix.length, prefix, 0, prefix.length);
+    }
+}
@@ -0,0 +1,222 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.compression;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.util.SizeFormat;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Streams;
+
+public class CompressionConfiguration {
+    public static class Policy {
+        public static final long DEFAULT_THRESHOLD_IN_BYTES = 1024;
+        public static final Policy DISABLED = new Policy(Optional.empty());
+
+        public static Policy enabled() {
+            return enabled(DEFAULT_THRESHOLD_IN_BYTES);
+        }
+
+        public static Policy enabled(long thresholdInBytes) {
+            Preconditions.checkArgument(thresholdInBytes >= 0, "'thresholdInBytes' needs to be positive");
+
+            return new Policy(Optional.of(thresholdInBytes));
+        }
+
+        private final Optional<Long> thresholdInBytes;
+
+        private Policy(Optional<Long> thresholdInBytes) {
+            this.thresholdInBytes = thresholdInBytes;
+        }
+
+        public boolean isEnabled() {
+            return thresholdInBytes.isPresent();
+        }
+
+        /**
+         * Blobs smaller than this threshold are stored uncompressed.
+         */
+        public Optional<Long> getThresholdInBytes() {
+            return thresholdInBytes;
+        }
+
+        boolean shouldCompress(long size) {
+            return thresholdInBytes
+                .map(threshold -> size >= threshold)
+                .orElse(false);
+        }
+
+        @Override
+        public final boolean equals(Object o) {
+            if (o instanceof Policy) {
+                Policy that = (Policy) o;
+
+                return Objects.equals(this.thresholdInBytes, that.thresholdInBytes);
+            }
+            return false;
+        }
+
+        @Override
+        public final int hashCode() {
+            return Objects.hash(thresholdInBytes);
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                .add("thresholdInBytes", thresholdInBytes)
+                .toString();
+        }
+    }
+
+    public static class Builder {
+        private Policy defaultPolicy;
+        private final ImmutableMap.Builder<BucketName, Policy> bucketPolicies;
+
+        private Builder() {
+            defaultPolicy = Policy.enabled();
+            bucketPolicies = ImmutableMap.builder();
+        }
+
+        public Builder defaultPolicy(Policy defaultPolicy) {
+            Preconditions.checkNotNull(defaultPolicy);
+
+            this.defaultPolicy = defaultPolicy;
+            return this;
+        }
+
+        public Builder bucketPolicy(BucketName bucketName, Policy policy) {
+            Preconditions.checkNotNull(bucketName);
+            Preconditions.checkNotNull(policy);
+
+            bucketPolicies.put(bucketName, policy);
+            return this;
+        }
+
+        public CompressionConfiguration build() {
+            return new CompressionConfiguration(defaultPolicy, bucketPolicies.build());
+        }
+    }
+
+    public static final CompressionConfiguration DEFAULT = builder().build();
+    public static final CompressionConfiguration DISABLED = builder().defaultPolicy(Policy.DISABLED).build();
+
+    static final String THRESHOLD_PROPERTY = "compression.thresholdInBytes";
+    static final String BUCKET_PROPERTY_PREFIX = "compression.bucket";
+    static final String BUCKET_ENABLE_SUFFIX = ".enable";
+    static final String BUCKET_THRESHOLD_SUFFIX = ".thresholdInBytes";
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Reads the policies from the blob.properties keys:
+     *
+     *  - compression.thresholdInBytes: the default threshold, 1 KiB when omitted
+     *  - compression.bucket.{bucketName}.enable: whether blobs of that bucket are compressed, true when omitted
+     *  - compression.bucket.{bucketName}.thresholdInBytes: the threshold of that bucket, the default one when omitted
+     *
+     * Whether compression is used at all is decided by the compression.enable key, which is read along with the
+     * blob store implementation. When it is disabled, {@link #DISABLED} is used instead.
+     */
+    public static CompressionConfiguration from(Configuration configuration) {
+        long defaultThreshold = Optional.ofNullable(configuration.getString(THRESHOLD_PROPERTY, null))
+            .map(SizeFormat::parseAsByteCount)
+            .orElse(Policy.DEFAULT_THRESHOLD_IN_BYTES);
+
+        Builder builder = builder().defaultPolicy(Policy.enabled(defaultThreshold));
+        bucketNames(configuration)
+            .forEach(bucketName -> builder.bucketPolicy(BucketName.of(bucketName),
+                bucketPolicy(configuration, bucketName, defaultThreshold)));
+        return builder.build();
+    }
+
+    private static ImmutableSet<String> bucketNames(Configuration configuration) {
+        return Streams.stream(configuration.getKeys(BUCKET_PROPERTY_PREFIX))
+            .map(key -> StringUtils.removeStart(key, BUCKET_PROPERTY_PREFIX + "."))
+            .map(key -> {
+                if (key.endsWith(BUCKET_ENABLE_SUFFIX)) {
+                    return StringUtils.removeEnd(key, BUCKET_ENABLE_SUFFIX);
+                }
+                if (key.endsWith(BUCKET_THRESHOLD_SUFFIX)) {
+                    return StringUtils.removeEnd(key, BUCKET_THRESHOLD_SUFFIX);
+                }
+                throw new IllegalArgumentException(String.format("Unsupported property %s.%s, only %s and %s can be set per bucket",
+                    BUCKET_PROPERTY_PREFIX, key, BUCKET_ENABLE_SUFFIX, BUCKET_THRESHOLD_SUFFIX));
+            })
+            .collect(ImmutableSet.toImmutableSet());
+    }
+
+    private static Policy bucketPolicy(Configuration configuration, String bucketName, long defaultThreshold) {
+        String prefix = BUCKET_PROPERTY_PREFIX + "." + bucketName;
+        if (!configuration.getBoolean(prefix + BUCKET_ENABLE_SUFFIX, true)) {
+            return Policy.DISABLED;
+        }
+        return Policy.enabled(Optional.ofNullable(configuration.getString(prefix + BUCKET_THRESHOLD_SUFFIX, null))
+            .map(SizeFormat::parseAsByteCount)
+            .orElse(defaultThreshold));
+    }
+
+    private final Policy defaultPolicy;
+    private final Map<BucketName, Policy> bucketPolicies;
+
+    private CompressionConfiguration(Policy defaultPolicy, Map<BucketName, Policy> bucketPolicies) {
+        this.defaultPolicy = defaultPolicy;
+        this.bucketPolicies = bucketPolicies;
+    }
+
+    public Policy policyFor(BucketName bucketName) {
+        return bucketPolicies.getOrDefault(bucketName, defaultPolicy);
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (o instanceof CompressionConfiguration) {
+            CompressionConfiguration that = (CompressionConfiguration) o;
+
+            return Objects.equals(this.defaultPolicy, that.defaultPolicy)
+                && Objects.equals(this.bucketPolicies, that.bucketPolicies);
+        }
+        return false;
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(defaultPolicy, bucketPolicies);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("defaultPolicy", defaultPolicy)
+            .add("bucketPolicies", bucketPolicies)
+            .toString();
+    }
+}
@@ -0,0 +1,350 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.cache;
+
+import static org.apache.james.blob.api.BlobStoreDAOFixture.CUSTOM_BUCKET_NAME;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.ELEVEN_KILOBYTES;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.SHORT_BYTEARRAY;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BLOB_ID;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BUCKET_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.awaitility.Duration.TEN_SECONDS;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BlobStoreDAO;
+import org.apache.james.blob.api.BlobStoreDAOContract;
+import org.apache.james.blob.api.ObjectNotFoundException;
+import org.apache.james.blob.api.TestBlobId;
+import org.apache.james.blob.memory.MemoryBlobStoreDAO;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.util.concurrency.ConcurrentTestRunner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+
+class DiskCacheBlobStoreDAOTest implements BlobStoreDAOContract {
+    private static final byte[] OTHER_ELEVEN_KILOBYTES = new String(ELEVEN_KILOBYTES, StandardCharsets.UTF_8)
+        .replace('2', '3')
+        .getBytes(StandardCharsets.UTF_8);
+
+    private Path directory;
+    private MemoryBlobStoreDAO underlying;
+    private RecordingMetricFactory metricFactory;
+    private DiskCacheBlobStoreDAO testee;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("disk-cache");
+        underlying = new MemoryBlobStoreDAO();
+        metricFactory = new RecordingMetricFactory();
+        testee = new DiskCacheBlobStoreDAO(underlying,
+            DiskCacheConfiguration.builder(directory)
+                .maxSizeInBytes(32 * 1024 * 1024)
+                .minimumBlobSizeInBytes(1024)
+                .admissionThreshold(2)
+                .build(),
+            metricFactory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Background cache fills may still be running
+        FileUtils.deleteQuietly(directory.toFile());
+    }
+
+    @Override
+    public BlobStoreDAO testee() {
+        return testee;
+    }
+
+    private List<Path> cachedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(DiskCacheBlobStoreDAO.FILE_PREFIX))
+                .collect(ImmutableList.toImmutableList());
+        }
+    }
+
+    private void admit(BlobId blobId) {
+        int admissions = metricFactory.countFor(DiskCacheBlobStoreDAO.ADMISSION_COUNT_METRIC_NAME);
+        testee.readBytes(TEST_BUCKET_NAME, blobId).block();
+        testee.readBytes(TEST_BUCKET_NAME, blobId).block();
+
+        await().atMost(TEN_SECONDS)
+            .untilAsserted(() -> assertThat(metricFactory.countFor(DiskCacheBlobStoreDAO.ADMISSION_COUNT_METRIC_NAME))
+                .isEqualTo(admissions + 1));
+    }
+
+    @Test
+    void firstReadShouldNotAdmitBlob() throws Exception {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ELEVEN_KILOBYTES).block();
+
+        testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block();
+
+        assertThat(cachedFiles()).isEmpty();
+        assertThat(metricFactory.countFor(DiskCacheBlobStoreDAO.MISS_COUNT_METRIC_NAME)).isEqualTo(1);
+    }
+
+    @Test
+    void blobsReadAboveAdmissionThresholdShouldBeReadFromDisk() throws Exception {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ELEVEN_KILOBYTES).block();
+        admit(TEST_BLOB_ID);
+
+        // Not visible to the cache: proves reads are served from disk
+        underlying.delete(TEST_BUCKET_NAME, TEST_BLOB_ID).block();
+
+        assertThat(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block()).isEqualTo(ELEVEN_KILOBYTES);
+        assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasSameContentAs(new ByteArrayInputStream(ELEVEN_KILOBYTES));
+        assertThat(metricFactory.countFor(DiskCacheBlobStoreDAO.HIT_COUNT_METRIC_NAME)).isEqualTo(2);
+        assertThat(cachedFiles()).hasSize(1);
+    }
+
+    @Test
+    void streamReadsShouldAdmitBlobs() throws Exception {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ELEVEN_KILOBYTES).block();
+
+        assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasSameContentAs(new ByteArrayInputStream(ELEVEN_KILOBYTES));
+        assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasSameContentAs(new ByteArrayInputStream(ELEVEN_KILOBYTES));
+
+        await().atMost(TEN_SECONDS)
+            .untilAsserted(() -> assertThat(metricFactory.countFor(DiskCacheBlobStoreDAO.ADMISSION_COUNT_METRIC_NAME)).isEqualTo(1));
+        underlying.delete(TEST_BUCKET_NAME, TEST_BLOB_ID).block();
+
+        assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasSameContentAs(new ByteArrayInputStream(ELEVEN_KILOBYTES));
+    }
+
+    @Test
+    void streamReadsShouldFillTheCacheWithTheContentReadByTheCaller() throws Exception {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ELEVEN_KILOBYTES).block();
+        testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID).close();
+
+        InputStream content = testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID);
+        // Not visible to the cache: proves the fill does not read the blob again
+        underlying.delete(TEST_BUCKET_NAME, TEST_BLOB_ID).block();
+
+        assertThat(content).hasSameContentAs(new ByteArrayInputStream(ELEVEN_KILOBYTES));
+        assertThat(metricFactory.countFor(DiskCacheBlobStoreDAO.ADMISSION_COUNT_METRIC_NAME)).isEqualTo(1);
+        assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasSameContentAs(new ByteArrayInputStream(ELEVEN_KILOBYTES));
+    }
+
+    @Test
+    void partiallyReadStreamsShouldNotBeAdmitted() throws Exception {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ELEVEN_KILOBYTES).block();
+        testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID).close();
+
+        try (InputStream content = testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)) {
+            content.read(new byte[1024]);
+        }
+
+        assertThat(cachedFiles()).isEmpty();
+        assertThat(metricFactory.countFor(DiskCacheBlobStoreDAO.ADMISSION_COUNT_METRIC_NAME)).isEqualTo(0);
+    }
+
+    @Test
+    void abandonedFillsShouldNotPreventLaterAdmissions() throws Exception {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ELEVEN_KILOBYTES).block();
+        testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID).close();
+        testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID).close();
+
+        assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasSameContentAs(new ByteArrayInputStream(ELEVEN_KILOBYTES));
+
+        assertThat(cachedFiles()).hasSize(1);
+        assertThat(metricFactory.countFor(DiskCacheBlobStoreDAO.ADMISSION_COUNT_METRIC_NAME)).isEqualTo(1);
+    }
+
+    @Test
+    void blobsAboveMappingThresholdShouldBeReadFromDisk() throws Exception {
+        byte[] bigBlob = Strings.repeat("0123456789\n", DiskCacheBlobStoreDAO.MAPPING_THRESHOLD_IN_BYTES / 5)
+            .getBytes(StandardCharsets.UTF_8);
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, bigBlob).block();
+        admit(TEST_BLOB_ID);
+        underlying.delete(TEST_BUCKET_NAME, TEST_BLOB_ID).block();
+
+        assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasSameContentAs(new ByteArrayInputStream(bigBlob));
+        assertThat(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block()).isEqualTo(bigBlob);
+    }
+
+    @Test
+    void smallBlobsShouldNotBeAdmitted() throws Exception {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY).block();
+
+        IntStream.range(0, 5).forEach(i -> testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block());
+
+        assertThat(cachedFiles()).isEmpty();
+        assertThat(metricFactory.countFor(DiskCacheBlobStoreDAO.ADMISSION_COUNT_METRIC_NAME)).isEqualTo(0);
+    }
+
+    @Test
+    void smallBlobsReadAsStreamShouldNotBeAdmitted() throws Exception {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SHORT_BYTEARRAY).block();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasSameContentAs(new ByteArrayInputStream(SHORT_BYTEARRAY));
+        }
+
+        await().atMost(TEN_SECONDS)
+            .untilAsserted(() -> assertThat(cachedFiles()).isEmpty());
+        assertThat(metricFactory.countFor(DiskCacheBlobStoreDAO.ADMISSION_COUNT_METRIC_NAME)).isEqualTo(0);
+    }
+
+    @Test
+    void deleteShouldInvalidateCachedBlob() throws Exception {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ELEVEN_KILOBYTES).block();
+        admit(TEST_BLOB_ID);
+
+        testee.delete(TEST_BUCKET_NAME, TEST_BLOB_ID).block();
+
+        assertThat(cachedFiles()).isEmpty();
+        assertThatThrownBy(() -> testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block())
+            .isInstanceOf(ObjectNotFoundException.class);
+    }
+
+    @Test
+    void deleteBucketShouldInvalidateCachedBlobsOfThisBucket() throws Exception {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ELEVEN_KILOBYTES).block();
+        testee.save(CUSTOM_BUCKET_NAME, TEST_BLOB_ID, ELEVEN_KILOBYTES).block();
+        admit(TEST_BLOB_ID);
+        testee.readBytes(CUSTOM_BUCKET_NAME, TEST_BLOB_ID).block();
+        testee.readBytes(CUSTOM_BUCKET_NAME, TEST_BLOB_ID).block();
+        await().atMost(TEN_SECONDS)
+            .untilAsserted(() -> assertThat(cachedFiles()).hasSize(2));
+
+        testee.deleteBucket(CUSTOM_BUCKET_NAME).block();
+
+        assertThat(cachedFiles()).hasSize(1);
+        assertThat(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block()).isEqualTo(ELEVEN_KILOBYTES);
+        assertThatThrownBy(() -> testee.readBytes(CUSTOM_BUCKET_NAME, TEST_BLOB_ID).block())
+            .isInstanceOf(ObjectNotFoundException.class);
+    }
+
+    @Test
+    void saveShouldInvalidateCachedBlob() throws Exception {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ELEVEN_KILOBYTES).block();
+        admit(TEST_BLOB_ID);
+
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, OTHER_ELEVEN_KILOBYTES).block();
+
+        assertThat(cachedFiles()).isEmpty();
+        assertThat(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block()).isEqualTo(OTHER_ELEVEN_KILOBYTES);
+    }
+
+    @Test
+    void existsShouldNotReturnTrueForCachedBlobsDeletedFromTheUnderlyingBlobStore() {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ELEVEN_KILOBYTES).block();
+        admit(TEST_BLOB_ID);
+        underlying.delete(TEST_BUCKET_NAME, TEST_BLOB_ID).block();
+
+        assertThat(testee.exists(TEST_BUCKET_NAME, TEST_BLOB_ID).block()).isFalse();
+    }
+
+    @Test
+    void cacheShouldEvictLeastRecentlyUsedBlobsAboveMaxSize() throws Exception {
+        testee = new DiskCacheBlobStoreDAO(underlying,
+            DiskCacheConfiguration.builder(directory)
+                .maxSizeInBytes(3 * ELEVEN_KILOBYTES.length)
+                .minimumBlobSizeInBytes(1024)
+                .admissionThreshold(2)
+                .build(),
+            metricFactory);
+        List<BlobId> blobIds = IntStream.range(0, 5)
+            .mapToObj(i -> new TestBlobId("blob-" + i))
+            .collect(Collectors.toList());
+        blobIds.forEach(blobId -> testee.save(TEST_BUCKET_NAME, blobId, ELEVEN_KILOBYTES).block());
+
+        blobIds.forEach(this::admit);
+
+        assertThat(metricFactory.countFor(DiskCacheBlobStoreDAO.EVICTION_COUNT_METRIC_NAME)).isEqualTo(2);
+        assertThat(cachedFiles()).hasSize(3);
+        long cachedSize = 0;
+        for (Path path : cachedFiles()) {
+            cachedSize += Files.size(path);
+        }
+        assertThat(cachedSize).isLessThanOrEqualTo(3 * ELEVEN_KILOBYTES.length);
+    }
+
+    @Test
+    void blobsBiggerThanMaxSizeShouldNotBeAdmitted() throws Exception {
+        testee = new DiskCacheBlobStoreDAO(underlying,
+            DiskCacheConfiguration.builder(directory)
+                .maxSizeInBytes(ELEVEN_KILOBYTES.length - 1)
+                .minimumBlobSizeInBytes(1024)
+                .build(),
+            metricFactory);
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ELEVEN_KILOBYTES).block();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasSameContentAs(new ByteArrayInputStream(ELEVEN_KILOBYTES));
+            assertThat(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block()).isEqualTo(ELEVEN_KILOBYTES);
+        }
+
+        await().atMost(TEN_SECONDS)
+            .untilAsserted(() -> assertThat(cachedFiles()).isEmpty());
+        assertThat(metricFactory.countFor(DiskCacheBlobStoreDAO.ADMISSION_COUNT_METRIC_NAME)).isEqualTo(0);
+    }
+
+    @Test
+    void concurrentReadsShouldFillTheCacheOnce() throws Exception {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ELEVEN_KILOBYTES).block();
+
+        ConcurrentTestRunner.builder()
+            .operation((threadNumber, step) -> {
+                byte[] bytes = testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block();
+                if (!Arrays.equals(bytes, ELEVEN_KILOBYTES)) {
+                    throw new RuntimeException("Partial or corrupted blob read");
+                }
+            })
+            .threadCount(10)
+            .operationCount(10)
+            .runSuccessfullyWithin(Duration.ofMinutes(1));
+
+        await().atMost(TEN_SECONDS)
+            .untilAsserted(() -> assertThat(cachedFiles()).hasSize(1));
+        assertThat(metricFactory.countFor(DiskCacheBlobStoreDAO.ADMISSION_COUNT_METRIC_NAME)).isEqualTo(1);
+    }
+
+    @Test
+    void startupShouldRemoveLeftOverCacheFiles() throws Exception {
+        Path leftOver = Files.write(directory.resolve(DiskCacheBlobStoreDAO.FILE_PREFIX + "left-over" + DiskCacheBlobStoreDAO.FILE_SUFFIX), ELEVEN_KILOBYTES);
+        Path unrelated = Files.write(directory.resolve("unrelated.txt"), ELEVEN_KILOBYTES);
+
+        new DiskCacheBlobStoreDAO(underlying, DiskCacheConfiguration.builder(directory).build(), metricFactory);
+
+        assertThat(leftOver).doesNotExist();
+        assertThat(unrelated).exists();
+    }
+}
@@ -0,0 +1,84 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.junit.jupiter.api.Test;
+
+class DiskCacheConfigurationTest {
+    private static final Path DIRECTORY = Paths.get("/var/blobCache");
+
+    @Test
+    void directoryLocationShouldReturnDefaultWhenMissing() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+
+        assertThat(DiskCacheConfiguration.directoryLocation(configuration))
+            .isEqualTo(DiskCacheConfiguration.DEFAULT_DIRECTORY_LOCATION);
+    }
+
+    @Test
+    void directoryLocationShouldReturnSuppliedValue() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("cache.disk.directory", "file:///tmp/cache");
+
+        assertThat(DiskCacheConfiguration.directoryLocation(configuration))
+            .isEqualTo("file:///tmp/cache");
+    }
+
+    @Test
+    void fromShouldReturnDefaultConfigurationWhenEmpty() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+
+        assertThat(DiskCacheConfiguration.from(configuration, DIRECTORY))
+            .isEqualTo(DiskCacheConfiguration.builder(DIRECTORY).build());
+    }
+
+    @Test
+    void fromShouldReturnSuppliedConfiguration() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("cache.disk.maxSizeInBytes", "50 GiB");
+        configuration.addProperty("cache.disk.minimumBlobSizeInBytes", "16 KiB");
+        configuration.addProperty("cache.disk.admissionThreshold", "3");
+        configuration.addProperty("cache.disk.trackedBlobCount", "1000");
+
+        assertThat(DiskCacheConfiguration.from(configuration, DIRECTORY))
+            .isEqualTo(DiskCacheConfiguration.builder(DIRECTORY)
+                .maxSizeInBytes(50L * 1024 * 1024 * 1024)
+                .minimumBlobSizeInBytes(16 * 1024)
+                .admissionThreshold(3)
+                .trackedBlobCount(1000)
+                .build());
+    }
+
+    @Test
+    void fromShouldThrowWhenAdmissionThresholdIsNotStrictlyPositive() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("cache.disk.admissionThreshold", "0");
+
+        assertThatThrownBy(() -> DiskCacheConfiguration.from(configuration, DIRECTORY))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,205 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.compression;
+
+import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BLOB_ID;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BUCKET_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.james.blob.api.BlobStoreDAO;
+import org.apache.james.blob.api.BlobStoreDAOContract;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.memory.MemoryBlobStoreDAO;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.io.ByteSource;
+import com.google.common.primitives.Bytes;
+
+class CompressedBlobStoreDAOTest implements BlobStoreDAOContract {
+    private static final BucketName UNCOMPRESSED_BUCKET = BucketName.of("uncompressed");
+    private static final byte[] COMPRESSIBLE = Strings.repeat("Subject: compressible\r\n", 1000).getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SMALL = "small".getBytes(StandardCharsets.UTF_8);
+
+    private MemoryBlobStoreDAO underlying;
+    private RecordingMetricFactory metricFactory;
+    private CompressedBlobStoreDAO testee;
+
+    @BeforeEach
+    void setUp() {
+        underlying = new MemoryBlobStoreDAO();
+        metricFactory = new RecordingMetricFactory();
+        testee = new CompressedBlobStoreDAO(underlying,
+            CompressionConfiguration.builder()
+                .defaultPolicy(CompressionConfiguration.Policy.enabled(64))
+                .bucketPolicy(UNCOMPRESSED_BUCKET, CompressionConfiguration.Policy.DISABLED)
+                .build(),
+            metricFactory);
+    }
+
+    @Override
+    public BlobStoreDAO testee() {
+        return testee;
+    }
+
+    private byte[] storedBytes(BucketName bucketName) {
+        return underlying.readBytes(bucketName, TEST_BLOB_ID).block();
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(output)) {
+            gzipOutputStream.write(data);
+        }
+        return output.toByteArray();
+    }
+
+    @Test
+    void saveShouldCompressBytes() {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, COMPRESSIBLE).block();
+
+        assertThat(storedBytes(TEST_BUCKET_NAME)).hasSizeLessThan(COMPRESSIBLE.length);
+    }
+
+    @Test
+    void saveShouldCompressStreams() {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, new ByteArrayInputStream(COMPRESSIBLE)).block();
+
+        assertThat(storedBytes(TEST_BUCKET_NAME)).hasSizeLessThan(COMPRESSIBLE.length);
+    }
+
+    @Test
+    void saveShouldCompressByteSources() {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ByteSource.wrap(COMPRESSIBLE)).block();
+
+        assertThat(storedBytes(TEST_BUCKET_NAME)).hasSizeLessThan(COMPRESSIBLE.length);
+    }
+
+    @Test
+    void readShouldDecompressBlobsStoredBeforeCompressionWasDisabled() {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, COMPRESSIBLE).block();
+
+        CompressedBlobStoreDAO compressionDisabled = new CompressedBlobStoreDAO(underlying, CompressionConfiguration.DISABLED, metricFactory);
+
+        assertThat(compressionDisabled.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block()).isEqualTo(COMPRESSIBLE);
+    }
+
+    @Test
+    void saveShouldNotCompressWhenCompressionIsDisabled() {
+        CompressedBlobStoreDAO compressionDisabled = new CompressedBlobStoreDAO(underlying, CompressionConfiguration.DISABLED, metricFactory);
+
+        compressionDisabled.save(TEST_BUCKET_NAME, TEST_BLOB_ID, COMPRESSIBLE).block();
+
+        assertThat(storedBytes(TEST_BUCKET_NAME)).isEqualTo(COMPRESSIBLE);
+    }
+
+    @Test
+    void readShouldDecompressStreams() {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, new ByteArrayInputStream(COMPRESSIBLE)).block();
+
+        assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasSameContentAs(new ByteArrayInputStream(COMPRESSIBLE));
+    }
+
+    @Test
+    void saveShouldNotCompressBlobsBelowTheThreshold() {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SMALL).block();
+
+        assertThat(storedBytes(TEST_BUCKET_NAME)).isEqualTo(SMALL);
+    }
+
+    @Test
+    void saveShouldNotCompressBucketsWithCompressionDisabled() {
+        testee.save(UNCOMPRESSED_BUCKET, TEST_BLOB_ID, COMPRESSIBLE).block();
+
+        assertThat(storedBytes(UNCOMPRESSED_BUCKET)).isEqualTo(COMPRESSIBLE);
+    }
+
+    @Test
+    void saveShouldNotCompressAlreadyCompressedContent() throws Exception {
+        byte[] gzipped = gzip(COMPRESSIBLE);
+
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, new ByteArrayInputStream(gzipped)).block();
+
+        assertThat(storedBytes(TEST_BUCKET_NAME)).isEqualTo(gzipped);
+    }
+
+    @Test
+    void readBytesShouldReturnBlobsStoredBeforeCompressionWasEnabled() {
+        underlying.save(TEST_BUCKET_NAME, TEST_BLOB_ID, COMPRESSIBLE).block();
+
+        assertThat(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID).block()).isEqualTo(COMPRESSIBLE);
+    }
+
+    @Test
+    void readShouldReturnBlobsStoredBeforeCompressionWasEnabled() {
+        underlying.save(TEST_BUCKET_NAME, TEST_BLOB_ID, COMPRESSIBLE).block();
+
+        assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasSameContentAs(new ByteArrayInputStream(COMPRESSIBLE));
+    }
+
+    @Test
+    void blobsStartingWithTheMagicNumberShouldBeReadBack() {
+        byte[] data = Bytes.concat(CompressedBlobStoreDAO.MAGIC, new byte[] {CompressedBlobStoreDAO.DEFLATED}, SMALL);
+
+        testee.save(UNCOMPRESSED_BUCKET, TEST_BLOB_ID, data).block();
+
+        assertThat(testee.readBytes(UNCOMPRESSED_BUCKET, TEST_BLOB_ID).block()).isEqualTo(data);
+    }
+
+    @Test
+    void streamsStartingWithTheMagicNumberShouldBeReadBack() {
+        byte[] data = Bytes.concat(CompressedBlobStoreDAO.MAGIC, new byte[] {CompressedBlobStoreDAO.DEFLATED}, COMPRESSIBLE);
+
+        testee.save(UNCOMPRESSED_BUCKET, TEST_BLOB_ID, new ByteArrayInputStream(data)).block();
+
+        assertThat(testee.read(UNCOMPRESSED_BUCKET, TEST_BLOB_ID)).hasSameContentAs(new ByteArrayInputStream(data));
+    }
+
+    @Test
+    void saveShouldRecordOriginalAndStoredBytes() {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, COMPRESSIBLE).block();
+
+        assertThat(metricFactory.countFor(CompressedBlobStoreDAO.ORIGINAL_BYTES_METRIC_NAME)).isEqualTo(COMPRESSIBLE.length);
+        assertThat(metricFactory.countFor(CompressedBlobStoreDAO.STORED_BYTES_METRIC_NAME)).isEqualTo(storedBytes(TEST_BUCKET_NAME).length);
+    }
+
+    @Test
+    void saveShouldRecordOriginalAndStoredBytesOfStreams() {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, new ByteArrayInputStream(COMPRESSIBLE)).block();
+
+        assertThat(metricFactory.countFor(CompressedBlobStoreDAO.ORIGINAL_BYTES_METRIC_NAME)).isEqualTo(COMPRESSIBLE.length);
+        assertThat(metricFactory.countFor(CompressedBlobStoreDAO.STORED_BYTES_METRIC_NAME)).isEqualTo(storedBytes(TEST_BUCKET_NAME).length);
+    }
+
+    @Test
+    void saveShouldRecordUncompressedBlobs() {
+        testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, SMALL).block();
+
+        assertThat(metricFactory.countFor(CompressedBlobStoreDAO.UNCOMPRESSED_BLOBS_METRIC_NAME)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,92 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.compression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.compression.CompressionConfiguration.Policy;
+import org.junit.jupiter.api.Test;
+
+class CompressionConfigurationTest {
+    @Test
+    void fromShouldReturnDefaultConfigurationWhenEmpty() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+
+        assertThat(CompressionConfiguration.from(configuration))
+            .isEqualTo(CompressionConfiguration.DEFAULT);
+    }
+
+    @Test
+    void fromShouldReadDefaultThreshold() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("compression.thresholdInBytes", "4 KiB");
+
+        assertThat(CompressionConfiguration.from(configuration))
+            .isEqualTo(CompressionConfiguration.builder()
+                .defaultPolicy(Policy.enabled(4096))
+                .build());
+    }
+
+    @Test
+    void fromShouldReadBucketPolicies() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("compression.thresholdInBytes", "4 KiB");
+        configuration.addProperty("compression.bucket.deleted-messages-2021-01.enable", "false");
+        configuration.addProperty("compression.bucket.james.default.thresholdInBytes", "16 KiB");
+
+        assertThat(CompressionConfiguration.from(configuration))
+            .isEqualTo(CompressionConfiguration.builder()
+                .defaultPolicy(Policy.enabled(4096))
+                .bucketPolicy(BucketName.of("deleted-messages-2021-01"), Policy.DISABLED)
+                .bucketPolicy(BucketName.of("james.default"), Policy.enabled(16384))
+                .build());
+    }
+
+    @Test
+    void fromShouldUseDefaultThresholdForEnabledBuckets() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("compression.thresholdInBytes", "4 KiB");
+        configuration.addProperty("compression.bucket.default.enable", "true");
+
+        assertThat(CompressionConfiguration.from(configuration).policyFor(BucketName.DEFAULT))
+            .isEqualTo(Policy.enabled(4096));
+    }
+
+    @Test
+    void fromShouldThrowOnUnknownBucketProperty() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("compression.bucket.default.level", "9");
+
+        assertThatThrownBy(() -> CompressionConfiguration.from(configuration))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fromShouldThrowOnInvalidThreshold() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("compression.thresholdInBytes", "invalid");
+
+        assertThatThrownBy(() -> CompressionConfiguration.from(configuration))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,145 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.memory;
+
+import static org.apache.james.blob.api.BlobStore.StoragePolicy.LOW_COST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.api.BucketName;
+import org.apache.james.blob.api.HashBlobId;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.server.blob.deduplication.DeDuplicationBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.io.ByteSource;
+
+import reactor.core.publisher.Mono;
+
+class MemoryDeDuplicationBlobStoreTest {
+    private static final HashBlobId.Factory BLOB_ID_FACTORY = new HashBlobId.Factory();
+    private static final byte[] DATA = "content".getBytes(StandardCharsets.UTF_8);
+
+    private MemoryBlobStoreDAO blobStoreDAO;
+    private RecordingMetricFactory metricFactory;
+    private DeDuplicationBlobStore testee;
+
+    @BeforeEach
+    void setUp() {
+        blobStoreDAO = spy(new MemoryBlobStoreDAO());
+        metricFactory = new RecordingMetricFactory();
+        testee = new DeDuplicationBlobStore(blobStoreDAO, BucketName.DEFAULT, BLOB_ID_FACTORY, metricFactory);
+    }
+
+    @Test
+    void saveShouldUploadOnceWhenSavingTheSameBytesTwice() {
+        Mono.from(testee.save(BucketName.DEFAULT, DATA, LOW_COST)).block();
+        Mono.from(testee.save(BucketName.DEFAULT, DATA, LOW_COST)).block();
+
+        verify(blobStoreDAO, times(1)).save(eq(BucketName.DEFAULT), any(BlobId.class), any(byte[].class));
+    }
+
+    @Test
+    void saveShouldUploadOnceWhenSavingTheSameStreamTwice() {
+        Mono.from(testee.save(BucketName.DEFAULT, new ByteArrayInputStream(DATA), LOW_COST)).block();
+        Mono.from(testee.save(BucketName.DEFAULT, new ByteArrayInputStream(DATA), LOW_COST)).block();
+
+        verify(blobStoreDAO, times(1)).save(eq(BucketName.DEFAULT), any(BlobId.class), any(ByteSource.class));
+    }
+
+    @Test
+    void saveShouldReturnTheSameBlobIdWhenSkippingTheUpload() {
+        BlobId first = Mono.from(testee.save(BucketName.DEFAULT, DATA, LOW_COST)).block();
+        BlobId second = Mono.from(testee.save(BucketName.DEFAULT, DATA, LOW_COST)).block();
+
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    void saveShouldUploadAgainWhenTheBlobWasDeletedFromTheDAO() {
+        BlobId blobId = Mono.from(testee.save(BucketName.DEFAULT, DATA, LOW_COST)).block();
+        blobStoreDAO.delete(BucketName.DEFAULT, blobId).block();
+
+        Mono.from(testee.save(BucketName.DEFAULT, DATA, LOW_COST)).block();
+
+        assertThat(Mono.from(testee.readBytes(BucketName.DEFAULT, blobId)).block()).isEqualTo(DATA);
+    }
+
+    @Test
+    void saveShouldUploadEachBucketSeparately() {
+        BucketName otherBucket = BucketName.of("other");
+
+        Mono.from(testee.save(BucketName.DEFAULT, DATA, LOW_COST)).block();
+        BlobId blobId = Mono.from(testee.save(otherBucket, DATA, LOW_COST)).block();
+
+        assertThat(Mono.from(testee.readBytes(otherBucket, blobId)).block()).isEqualTo(DATA);
+    }
+
+    @Test
+    void saveShouldRecordSkippedUploads() {
+        Mono.from(testee.save(BucketName.DEFAULT, DATA, LOW_COST)).block();
+        Mono.from(testee.save(BucketName.DEFAULT, DATA, LOW_COST)).block();
+        Mono.from(testee.save(BucketName.DEFAULT, new ByteArrayInputStream(DATA), LOW_COST)).block();
+
+        assertThat(metricFactory.countFor(DeDuplicationBlobStore.SKIPPED_UPLOADS_METRIC_NAME())).isEqualTo(2);
+        assertThat(metricFactory.countFor(DeDuplicationBlobStore.SKIPPED_BYTES_METRIC_NAME())).isEqualTo(2 * DATA.length);
+    }
+
+    @Test
+    void constructorShouldThrowWhenExpectedSavedBlobsIsNotPositive() {
+        assertThatThrownBy(() -> new DeDuplicationBlobStore(blobStoreDAO, BucketName.DEFAULT, BLOB_ID_FACTORY, metricFactory, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void saveShouldRememberBlobsSavedBeforeTheFilterGotRotated() {
+        DeDuplicationBlobStore testee = new DeDuplicationBlobStore(blobStoreDAO, BucketName.DEFAULT, BLOB_ID_FACTORY, metricFactory, 2);
+
+        BlobId blobId = Mono.from(testee.save(BucketName.DEFAULT, DATA, LOW_COST)).block();
+        Mono.from(testee.save(BucketName.DEFAULT, "other1".getBytes(StandardCharsets.UTF_8), LOW_COST)).block();
+        Mono.from(testee.save(BucketName.DEFAULT, "other2".getBytes(StandardCharsets.UTF_8), LOW_COST)).block();
+        Mono.from(testee.save(BucketName.DEFAULT, DATA, LOW_COST)).block();
+
+        verify(blobStoreDAO, times(1)).save(eq(BucketName.DEFAULT), eq(blobId), any(byte[].class));
+    }
+
+    @Test
+    void saveShouldKeepDeduplicatingOnceTheFilterGotRotatedSeveralTimes() {
+        DeDuplicationBlobStore testee = new DeDuplicationBlobStore(blobStoreDAO, BucketName.DEFAULT, BLOB_ID_FACTORY, metricFactory, 2);
+
+        IntStream.range(0, 10)
+            .forEach(i -> Mono.from(testee.save(BucketName.DEFAULT, ("content" + i).getBytes(StandardCharsets.UTF_8), LOW_COST)).block());
+        BlobId blobId = Mono.from(testee.save(BucketName.DEFAULT, "content9".getBytes(StandardCharsets.UTF_8), LOW_COST)).block();
+
+        assertThat(metricFactory.countFor(DeDuplicationBlobStore.SKIPPED_UPLOADS_METRIC_NAME())).isEqualTo(1);
+        assertThat(Mono.from(testee.readBytes(BucketName.DEFAULT, blobId)).block()).isEqualTo("content9".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -26,9 +26,14 @@ import org.apache.james.blob.api.BucketName;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
 
 public class S3BlobStoreConfiguration {
 
+    public static final int MINIMUM_PART_SIZE = 5 * 1024 * 1024;
+    public static final int DEFAULT_PART_SIZE = 8 * 1024 * 1024;
+    public static final int DEFAULT_PART_CONCURRENCY = 4;
+
     public static Builder.RequireAuthConfiguration builder() {
         return authConfiguration -> region -> new Builder.ReadyToBuild(authConfiguration, region);
     }
@@ -52,12 +57,16 @@ public class S3BlobStoreConfiguration {
             private Optional<BucketName> defaultBucketName;
             private Optional<String> bucketPrefix;
             private Region region;
+            private Optional<Integer> partSize;
+            private Optional<Integer> partConcurrency;
 
             public ReadyToBuild(AwsS3AuthConfiguration specificAuthConfiguration, Region region) {
                 this.specificAuthConfiguration = specificAuthConfiguration;
                 this.region = region;
                 this.defaultBucketName = Optional.empty();
                 this.bucketPrefix = Optional.empty();
+                this.partSize = Optional.empty();
+                this.partConcurrency = Optional.empty();
             }
 
             public ReadyToBuild defaultBucketName(Optional<BucketName> defaultBucketName) {
@@ -80,8 +89,35 @@ public class S3BlobStoreConfiguration {
                 return this;
             }
 
+            public ReadyToBuild partSize(Optional<Integer> partSize) {
+                this.partSize = partSize;
+                return this;
+            }
+
+            public ReadyToBuild partSize(int partSize) {
+                this.partSize = Optional.of(partSize);
+                return this;
+            }
+
+            public ReadyToBuild partConcurrency(Optional<Integer> partConcurrency) {
+                this.partConcurrency = partConcurrency;
+                return this;
+            }
+
+            public ReadyToBuild partConcurrency(int partConcurrency) {
+                this.partConcurrency = Optional.of(partConcurrency);
+                return this;
+            }
+
             public S3BlobStoreConfiguration build() {
-                return new S3BlobStoreConfiguration(bucketPrefix, defaultBucketName, region, specificAuthConfiguration);
+                int actualPartSize = partSize.orElse(DEFAULT_PART_SIZE);
+                int actualPartConcurrency = partConcurrency.orElse(DEFAULT_PART_CONCURRENCY);
+                Preconditions.checkArgument(actualPartSize >= MINIMUM_PART_SIZE,
+                    "'partSize' needs to be at least %s bytes", MINIMUM_PART_SIZE);
+                Preconditions.checkArgument(actualPartConcurrency > 0, "'partConcurrency' needs to be strictly positive");
+
+                return new S3BlobStoreConfiguration(bucketPrefix, defaultBucketName, region, specificAuthConfiguration,
+                    actualPartSize, actualPartConcurrency);
             }
         }
 
@@ -91,16 +127,22 @@ public class S3BlobStoreConfiguration {
     private final AwsS3AuthConfiguration specificAuthConfiguration;
     private final Optional<BucketName> namespace;
     private final Optional<String> bucketPrefix;
+    private final int partSize;
+    private final int partConcurrency;
 
     @VisibleForTesting
     S3BlobStoreConfiguration(Optional<String> bucketPrefix,
                              Optional<BucketName> namespace,
                              Region region,
-                             AwsS3AuthConfiguration specificAuthConfiguration) {
+                             AwsS3AuthConfiguration specificAuthConfiguration,
+                             int partSize,
+                             int partConcurrency) {
         this.bucketPrefix = bucketPrefix;
         this.namespace = namespace;
         this.region = region;
         this.specificAuthConfiguration = specificAuthConfiguration;
+        this.partSize = partSize;
+        this.partConcurrency = partConcurrency;
     }
 
     public Optional<BucketName> getNamespace() {
@@ -119,6 +161,21 @@ public class S3BlobStoreConfiguration {
         return region;
     }
 
+    /**
+     * Size of the parts blobs are uploaded, and read, by. Blobs bigger than one part are uploaded using
+     * multipart uploads.
+     */
+    public int getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * Maximum count of parts of a single blob being transferred concurrently.
+     */
+    public int getPartConcurrency() {
+        return partConcurrency;
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (o instanceof S3BlobStoreConfiguration) {
@@ -127,14 +184,16 @@ public class S3BlobStoreConfiguration {
             return Objects.equals(this.namespace, that.namespace)
                 && Objects.equals(this.bucketPrefix, that.bucketPrefix)
                 && Objects.equals(this.region, that.region)
-                && Objects.equals(this.specificAuthConfiguration, that.specificAuthConfiguration);
+                && Objects.equals(this.specificAuthConfiguration, that.specificAuthConfiguration)
+                && Objects.equals(this.partSize, that.partSize)
+                && Objects.equals(this.partConcurrency, that.partConcurrency);
         }
         return false;
     }
 
     @Override
     public final int hashCode() {
-        return Objects.hash(namespace, bucketPrefix, specificAuthConfiguration);
+        return Objects.hash(namespace, bucketPrefix, specificAuthConfiguration, partSize, partConcurrency);
     }
 
     @Override
@@ -144,6 +203,8 @@ public class S3BlobStoreConfiguration {
             .add("bucketPrefix", bucketPrefix)
             .add("region", region)
             .add("specificAuthConfiguration", specificAuthConfiguration)
+            .add("partSize", partSize)
+            .add("partConcurrency", partConcurrency)
             .toString();
     }
 }
@@ -26,21 +26,22 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
 
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.james.blob.api.BlobId;
 import org.apache.james.blob.api.BlobStoreDAO;
 import org.apache.james.blob.api.BucketName;
 import org.apache.james.blob.api.ObjectNotFoundException;
 import org.apache.james.blob.api.ObjectStoreIOException;
 import org.apache.james.lifecycle.api.Startable;
-import org.apache.james.util.DataChunker;
 import org.apache.james.util.ReactorUtils;
 
 import com.github.fge.lambdas.Throwing;
@@ -48,7 +49,7 @@ import com.github.steveash.guavate.Guavate;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.io.ByteSource;
-import com.google.common.io.FileBackedOutputStream;
+import com.google.common.io.ByteStreams;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -60,6 +61,7 @@ import reactor.retry.RetryWithAsyncCallback;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.BytesWrapper;
+import software.amazon.awssdk.core.ResponseBytes;
 import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.async.AsyncResponseTransformer;
 import software.amazon.awssdk.core.async.SdkPublisher;
@@ -68,28 +70,34 @@ import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.model.BucketAlreadyOwnedByYouException;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.ListBucketsResponse;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsResponse;
 import software.amazon.awssdk.services.s3.model.ListObjectsResponse;
+import software.amazon.awssdk.services.s3.model.MultipartUpload;
 import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 import software.amazon.awssdk.services.s3.model.S3Object;
 
 public class S3BlobStoreDAO implements BlobStoreDAO, Startable, Closeable {
 
-    private static final int CHUNK_SIZE = 1024 * 1024;
     private static final int EMPTY_BUCKET_BATCH_SIZE = 1000;
-    private static final int FILE_THRESHOLD = 1024 * 100;
     private static final Duration FIRST_BACK_OFF = Duration.ofMillis(100);
     private static final Duration FOREVER = Duration.ofMillis(Long.MAX_VALUE);
     private static final boolean LAZY = false;
     private static final int MAX_RETRIES = 5;
+    private static final int NOT_FOUND = 404;
+    private static final int INVALID_RANGE = 416;
 
     private final InstrumentedPool<S3AsyncClient> clientPool;
     private final BucketNameResolver bucketNameResolver;
+    private final int partSize;
+    private final int partConcurrency;
 
     @Inject
     S3BlobStoreDAO(S3BlobStoreConfiguration configuration) {
@@ -121,6 +129,9 @@ public class S3BlobStoreDAO implements BlobStoreDAO, Startable, Closeable {
             .prefix(configuration.getBucketPrefix())
             .namespace(configuration.getNamespace())
             .build();
+
+        partSize = configuration.getPartSize();
+        partConcurrency = configuration.getPartConcurrency();
     }
 
     public void start() {
@@ -188,16 +199,74 @@ public class S3BlobStoreDAO implements BlobStoreDAO, Startable, Closeable {
     public Mono<byte[]> readBytes(BucketName bucketName, BlobId blobId) {
         BucketName resolvedBucketName = bucketNameResolver.resolve(bucketName);
 
+        return getRange(resolvedBucketName, blobId, 0)
+            .flatMap(firstRange -> readRemainingRanges(resolvedBucketName, blobId, firstRange))
+            // Empty blobs can not be read by range
+            .onErrorResume(this::isInvalidRange, e -> getObjectBytes(resolvedBucketName, blobId))
+            .onErrorMap(NoSuchBucketException.class, e -> new ObjectNotFoundException("Bucket not found " + resolvedBucketName.asString(), e))
+            .onErrorMap(NoSuchKeyException.class, e -> new ObjectNotFoundException("Blob not found " + resolvedBucketName.asString(), e));
+    }
+
+    private Mono<byte[]> getObjectBytes(BucketName bucketName, BlobId blobId) {
         return clientPool.withPoolable(client -> Mono.fromFuture(() ->
                 client.getObject(
-                    builder -> builder.bucket(resolvedBucketName.asString()).key(blobId.asString()),
+                    builder -> builder.bucket(bucketName.asString()).key(blobId.asString()),
                     AsyncResponseTransformer.toBytes())))
             .next()
-            .onErrorMap(NoSuchBucketException.class, e -> new ObjectNotFoundException("Bucket not found " + resolvedBucketName.asString(), e))
-            .onErrorMap(NoSuchKeyException.class, e -> new ObjectNotFoundException("Blob not found " + resolvedBucketName.asString(), e))
             .map(BytesWrapper::asByteArray);
     }
 
+    private Mono<ResponseBytes<GetObjectResponse>> getRange(BucketName bucketName, BlobId blobId, long position) {
+        return clientPool.withPoolable(client -> Mono.fromFuture(() ->
+                client.getObject(
+                    builder -> builder.bucket(bucketName.asString()).key(blobId.asString()).range(rangeHeader(position)),
+                    AsyncResponseTransformer.toBytes())))
+            .next();
+    }
+
+    private String rangeHeader(long position) {
+        return "bytes=" + position + "-" + (position + partSize - 1);
+    }
+
+    private Mono<byte[]> readRemainingRanges(BucketName bucketName, BlobId blobId, ResponseBytes<GetObjectResponse> firstRange) {
+        byte[] firstBytes = firstRange.asByteArray();
+        long size = Optional.ofNullable(firstRange.response().contentRange())
+            .map(contentRange -> Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1)))
+            .orElse((long) firstBytes.length);
+
+        if (firstBytes.length >= size) {
+            return Mono.just(firstBytes);
+        }
+        Flux<byte[]> remainingRanges = Flux.fromStream(LongStream.iterate(partSize, position -> position < size, position -> position + partSize).boxed())
+            .flatMapSequential(position -> getRange(bucketName, blobId, position).map(BytesWrapper::asByteArray), partConcurrency);
+
+        return Flux.just(firstBytes)
+            .concatWith(remainingRanges)
+            .reduceWith(() -> ByteBuffer.allocate(Math.toIntExact(size)), ByteBuffer::put)
+            .map(ByteBuffer::array);
+    }
+
+    private boolean isInvalidRange(Throwable throwable) {
+        return throwable instanceof S3Exception
+            && ((S3Exception) throwable).statusCode() == INVALID_RANGE;
+    }
+
+    @Override
+    public Mono<Boolean> exists(BucketName bucketName, BlobId blobId) {
+        BucketName resolvedBucketName = bucketNameResolver.resolve(bucketName);
+
+        return clientPool.withPoolable(client -> Mono.fromFuture(() ->
+                client.headObject(builder -> builder.bucket(resolvedBucketName.asString()).key(blobId.asString()))))
+            .next()
+            .thenReturn(true)
+            .onErrorResume(S3Exception.class, e -> {
+                if (e.statusCode() == NOT_FOUND) {
+                    return Mono.just(false);
+                }
+                return Mono.error(new ObjectStoreIOException("Error checking blob existence", e));
+            });
+    }
+
     @Override
     public Mono<Void> save(BucketName bucketName, BlobId blobId, byte[] data) {
         BucketName resolvedBucketName = bucketNameResolver.resolve(bucketName);
@@ -215,38 +284,102 @@ public class S3BlobStoreDAO implements BlobStoreDAO, Startable, Closeable {
     public Mono<Void> save(BucketName bucketName, BlobId blobId, InputStream inputStream) {
         Preconditions.checkNotNull(inputStream);
 
-        return uploadUsingFile(bucketName, blobId, inputStream);
+        return Mono.fromCallable(() -> readPart(inputStream))
+            .flatMap(firstPart -> {
+                if (firstPart.length < partSize) {
+                    return save(bucketName, blobId, firstPart);
+                }
+                return uploadMultipart(bucketName, blobId, Flux.just(firstPart).concatWith(remainingParts(inputStream)));
+            })
+            .onErrorMap(IOException.class, e -> new ObjectStoreIOException("Error saving blob", e))
+            .onErrorMap(SdkClientException.class, e -> new ObjectStoreIOException("Error saving blob", e));
     }
 
-    private Mono<Void> uploadUsingFile(BucketName bucketName, BlobId blobId, InputStream inputStream) {
-        return Mono.using(
-            () -> new FileBackedOutputStream(FILE_THRESHOLD),
-            fileBackedOutputStream ->
-                Mono.fromCallable(() -> IOUtils.copy(inputStream, fileBackedOutputStream))
-                    .flatMap(ignore -> save(bucketName, blobId, fileBackedOutputStream.asByteSource())),
-            Throwing.consumer(FileBackedOutputStream::reset),
+    @Override
+    public Mono<Void> save(BucketName bucketName, BlobId blobId, ByteSource content) {
+        return Mono.using(content::openStream,
+            stream -> save(bucketName, blobId, stream),
+            Throwing.consumer(InputStream::close),
             LAZY)
             .onErrorMap(IOException.class, e -> new ObjectStoreIOException("Error saving blob", e));
     }
 
-    @Override
-    public Mono<Void> save(BucketName bucketName, BlobId blobId, ByteSource content) {
+    private byte[] readPart(InputStream inputStream) throws IOException {
+        return ByteStreams.toByteArray(ByteStreams.limit(inputStream, partSize));
+    }
+
+    private Flux<byte[]> remainingParts(InputStream inputStream) {
+        return Flux.<byte[]>generate(sink -> {
+                try {
+                    byte[] part = readPart(inputStream);
+                    if (part.length > 0) {
+                        sink.next(part);
+                    }
+                    if (part.length < partSize) {
+                        sink.complete();
+                    }
+                } catch (IOException e) {
+                    sink.error(e);
+                }
+            })
+            // Parts are requested once previous uploads complete, which should not block SDK threads on reading the stream
+            .subscribeOn(Schedulers.elastic());
+    }
+
+    private Mono<Void> uploadMultipart(BucketName bucketName, BlobId blobId, Flux<byte[]> parts) {
         BucketName resolvedBucketName = bucketNameResolver.resolve(bucketName);
 
-        return Mono.using(content::openStream,
-            stream ->
-                clientPool.withPoolable(client -> Mono.fromFuture(() ->
-                    client.putObject(
-                        Throwing.<PutObjectRequest.Builder>consumer(
-                            builder -> builder.bucket(resolvedBucketName.asString()).contentLength(content.size()).key(blobId.asString()))
-                        .sneakyThrow(),
-                        AsyncRequestBody.fromPublisher(
-                            DataChunker.chunkStream(stream, CHUNK_SIZE))))).next(),
-            Throwing.consumer(InputStream::close),
-            LAZY)
-            .retryWhen(createBucketOnRetry(resolvedBucketName))
-            .onErrorMap(IOException.class, e -> new ObjectStoreIOException("Error saving blob", e))
-            .onErrorMap(SdkClientException.class, e -> new ObjectStoreIOException("Error saving blob", e))
+        return createMultipartUpload(resolvedBucketName, blobId)
+            .flatMap(uploadId -> parts
+                .index()
+                .flatMap(part -> uploadPart(resolvedBucketName, blobId, uploadId, part.getT1().intValue() + 1, part.getT2()), partConcurrency)
+                .collectSortedList(Comparator.comparing(CompletedPart::partNumber))
+                .flatMap(completedParts -> completeMultipartUpload(resolvedBucketName, blobId, uploadId, completedParts))
+                .onErrorResume(e -> abortMultipartUpload(resolvedBucketName, blobId, uploadId)
+                    .onErrorResume(abortError -> {
+                        e.addSuppressed(abortError);
+                        return Mono.empty();
+                    })
+                    .then(Mono.error(e)))
+                .doOnCancel(() -> abortMultipartUpload(resolvedBucketName, blobId, uploadId).subscribe()));
+    }
+
+    private Mono<String> createMultipartUpload(BucketName bucketName, BlobId blobId) {
+        return clientPool.withPoolable(client -> Mono.fromFuture(() ->
+                client.createMultipartUpload(builder -> builder.bucket(bucketName.asString()).key(blobId.asString()))))
+            .next()
+            .retryWhen(createBucketOnRetry(bucketName))
+            .map(CreateMultipartUploadResponse::uploadId);
+    }
+
+    private Mono<CompletedPart> uploadPart(BucketName bucketName, BlobId blobId, String uploadId, int partNumber, byte[] data) {
+        return clientPool.withPoolable(client -> Mono.fromFuture(() ->
+                client.uploadPart(
+                    builder -> builder.bucket(bucketName.asString()).key(blobId.asString())
+                        .uploadId(uploadId).partNumber(partNumber).contentLength((long) data.length),
+                    AsyncRequestBody.fromBytes(data))))
+            .next()
+            .map(response -> CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(response.eTag())
+                .build());
+    }
+
+    private Mono<Void> completeMultipartUpload(BucketName bucketName, BlobId blobId, String uploadId, List<CompletedPart> parts) {
+        return clientPool.withPoolable(client -> Mono.fromFuture(() ->
+                client.completeMultipartUpload(
+                    builder -> builder.bucket(bucketName.asString()).key(blobId.asString())
+                        .uploadId(uploadId)
+                        .multipartUpload(upload -> upload.parts(parts)))))
+            .next()
+            .then();
+    }
+
+    private Mono<Void> abortMultipartUpload(BucketName bucketName, BlobId blobId, String uploadId) {
+        return clientPool.withPoolable(client -> Mono.fromFuture(() ->
+                client.abortMultipartUpload(
+                    builder -> builder.bucket(bucketName.asString()).key(blobId.asString()).uploadId(uploadId))))
+            .next()
             .then();
     }
 
@@ -316,4 +449,15 @@ public class S3BlobStoreDAO implements BlobStoreDAO, Startable, Closeable {
                      .flatMap(bucket -> deleteResolvedBucket(BucketName.of(bucket.name())), DEFAULT_CONCURRENCY))
             .then();
     }
+
+    @VisibleForTesting
+    Flux<String> listMultipartUploads(BucketName bucketName) {
+        BucketName resolvedBucketName = bucketNameResolver.resolve(bucketName);
+
+        return clientPool.withPoolable(client -> Mono.fromFuture(() ->
+                client.listMultipartUploads(builder -> builder.bucket(resolvedBucketName.asString()))))
+            .next()
+            .flatMapIterable(ListMultipartUploadsResponse::uploads)
+            .map(MultipartUpload::uploadId);
+    }
 }
@@ -0,0 +1,87 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.blob.objectstorage.aws;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.URI;
+
+import org.junit.jupiter.api.Test;
+
+class S3BlobStoreConfigurationTest {
+    private static final AwsS3AuthConfiguration AUTH_CONFIGURATION = AwsS3AuthConfiguration.builder()
+        .endpoint(URI.create("http://myEndpoint"))
+        .accessKeyId("myAccessKeyId")
+        .secretKey("mySecretKey")
+        .build();
+    private static final Region REGION = Region.of("us-east-1");
+
+    @Test
+    void partSizeShouldDefaultToEightMegabytes() {
+        S3BlobStoreConfiguration configuration = S3BlobStoreConfiguration.builder()
+            .authConfiguration(AUTH_CONFIGURATION)
+            .region(REGION)
+            .build();
+
+        assertThat(configuration.getPartSize()).isEqualTo(8 * 1024 * 1024);
+    }
+
+    @Test
+    void partConcurrencyShouldDefaultToFour() {
+        S3BlobStoreConfiguration configuration = S3BlobStoreConfiguration.builder()
+            .authConfiguration(AUTH_CONFIGURATION)
+            .region(REGION)
+            .build();
+
+        assertThat(configuration.getPartConcurrency()).isEqualTo(4);
+    }
+
+    @Test
+    void buildShouldAcceptTheMinimumPartSize() {
+        S3BlobStoreConfiguration configuration = S3BlobStoreConfiguration.builder()
+            .authConfiguration(AUTH_CONFIGURATION)
+            .region(REGION)
+            .partSize(S3BlobStoreConfiguration.MINIMUM_PART_SIZE)
+            .build();
+
+        assertThat(configuration.getPartSize()).isEqualTo(S3BlobStoreConfiguration.MINIMUM_PART_SIZE);
+    }
+
+    @Test
+    void buildShouldThrowWhenPartSizeIsBelowTheS3Minimum() {
+        assertThatThrownBy(() -> S3BlobStoreConfiguration.builder()
+                .authConfiguration(AUTH_CONFIGURATION)
+                .region(REGION)
+                .partSize(S3BlobStoreConfiguration.MINIMUM_PART_SIZE - 1)
+                .build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void buildShouldThrowWhenPartConcurrencyIsZero() {
+        assertThatThrownBy(() -> S3BlobStoreConfiguration.builder()
+                .authConfiguration(AUTH_CONFIGURATION)
+                .region(REGION)
+                .partConcurrency(0)
+                .build())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -18,13 +18,32 @@
  ****************************************************************/
 package org.apache.james.blob.objectstorage.aws;
 
+import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BLOB_ID;
+import static org.apache.james.blob.api.BlobStoreDAOFixture.TEST_BUCKET_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+
 import org.apache.james.blob.api.BlobStoreDAO;
 import org.apache.james.blob.api.BlobStoreDAOContract;
+import org.apache.james.blob.api.ObjectNotFoundException;
+import org.apache.james.blob.api.ObjectStoreIOException;
+import org.assertj.core.api.SoftAssertions;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import com.google.common.io.ByteSource;
+
+import reactor.core.publisher.Mono;
+
 @ExtendWith(DockerAwsS3Extension.class)
 public class S3BlobStoreDAOTest implements BlobStoreDAOContract {
     private static S3BlobStoreDAO testee;
@@ -59,4 +78,78 @@ public class S3BlobStoreDAOTest implements BlobStoreDAOContract {
     public BlobStoreDAO testee() {
         return testee;
     }
+
+    private static byte[] bytesOfSize(int size) {
+        byte[] bytes = new byte[size];
+        Arrays.fill(bytes, (byte) 'a');
+        bytes[size - 1] = 'b';
+        return bytes;
+    }
+
+    @Test
+    void saveShouldStoreBlobsOfExactlyOnePart() {
+        byte[] data = bytesOfSize(S3BlobStoreConfiguration.DEFAULT_PART_SIZE);
+
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, new ByteArrayInputStream(data))).block();
+
+        assertThat(Mono.from(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block()).isEqualTo(data);
+    }
+
+    @Test
+    void saveShouldStoreStreamsSpanningSeveralParts() {
+        byte[] data = bytesOfSize(2 * S3BlobStoreConfiguration.DEFAULT_PART_SIZE + 1);
+
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, new ByteArrayInputStream(data))).block();
+
+        assertThat(Mono.from(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block()).isEqualTo(data);
+    }
+
+    @Test
+    void saveShouldStoreByteSourcesSpanningSeveralParts() {
+        byte[] data = bytesOfSize(2 * S3BlobStoreConfiguration.DEFAULT_PART_SIZE + 1);
+
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, ByteSource.wrap(data))).block();
+
+        assertThat(testee.read(TEST_BUCKET_NAME, TEST_BLOB_ID)).hasSameContentAs(new ByteArrayInputStream(data));
+    }
+
+    @Test
+    void readBytesShouldReadBlobsSpanningSeveralRanges() {
+        byte[] data = bytesOfSize(3 * S3BlobStoreConfiguration.DEFAULT_PART_SIZE - 1);
+
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, data)).block();
+
+        assertThat(Mono.from(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block()).isEqualTo(data);
+    }
+
+    @Test
+    void saveShouldStoreStreamsOneByteLargerThanAPart() {
+        byte[] data = bytesOfSize(S3BlobStoreConfiguration.DEFAULT_PART_SIZE + 1);
+
+        Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, new ByteArrayInputStream(data))).block();
+
+        assertThat(Mono.from(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block()).isEqualTo(data);
+    }
+
+    @Test
+    void saveShouldAbortTheMultipartUploadWhenTheStreamFails() {
+        InputStream failingStream = new SequenceInputStream(
+            new ByteArrayInputStream(bytesOfSize(S3BlobStoreConfiguration.DEFAULT_PART_SIZE + 1)),
+            new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    throw new IOException("Simulated failure");
+                }
+            });
+
+        assertThatThrownBy(() -> Mono.from(testee.save(TEST_BUCKET_NAME, TEST_BLOB_ID, failingStream)).block())
+            .isInstanceOf(ObjectStoreIOException.class);
+
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThatThrownBy(() -> Mono.from(testee.readBytes(TEST_BUCKET_NAME, TEST_BLOB_ID)).block())
+                .isInstanceOf(ObjectNotFoundException.class);
+            softly.assertThat(testee.listMultipartUploads(TEST_BUCKET_NAME).collectList().block())
+                .isEmpty();
+        });
+    }
 }
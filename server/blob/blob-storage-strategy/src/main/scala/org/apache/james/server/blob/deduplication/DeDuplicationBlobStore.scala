@@ -20,27 +20,55 @@
 package org.apache.james.server.blob.deduplication
 
 import java.io.InputStream
+import java.nio.charset.StandardCharsets
 
 import com.google.common.base.Preconditions
-import com.google.common.hash.{Hashing, HashingInputStream}
+import com.google.common.hash.{BloomFilter, Funnels, Hashing, HashingInputStream}
 import com.google.common.io.{ByteSource, FileBackedOutputStream}
 import javax.inject.{Inject, Named}
 import org.apache.commons.io.IOUtils
 import org.apache.james.blob.api.{BlobId, BlobStore, BlobStoreDAO, BucketName}
+import org.apache.james.metrics.api.MetricFactory
+import org.apache.james.metrics.logger.DefaultMetricFactory
 import org.reactivestreams.Publisher
 import reactor.core.publisher.Mono
 import reactor.core.scala.publisher.SMono
-import reactor.util.function.{Tuple2, Tuples}
+import reactor.util.function.{Tuple3, Tuples}
 
 object DeDuplicationBlobStore {
   val DEFAULT_BUCKET = "defaultBucket"
   val LAZY_RESOURCE_CLEANUP = false
   val FILE_THRESHOLD = 10000
+  val EXPECTED_SAVED_BLOBS = 1000000
+  val SAVED_BLOBS_FALSE_POSITIVE_RATE = 0.01
+  val SKIPPED_UPLOADS_METRIC_NAME = "blobStore:deduplication:skippedUploads"
+  val SKIPPED_BYTES_METRIC_NAME = "blobStore:deduplication:skippedBytes"
 }
 
-class DeDuplicationBlobStore @Inject()(blobStoreDAO: BlobStoreDAO,
-                                       @Named("defaultBucket") defaultBucketName: BucketName,
-                                       blobIdFactory: BlobId.Factory) extends BlobStore {
+class DeDuplicationBlobStore(blobStoreDAO: BlobStoreDAO,
+                             defaultBucketName: BucketName,
+                             blobIdFactory: BlobId.Factory,
+                             metricFactory: MetricFactory,
+                             expectedSavedBlobs: Int) extends BlobStore {
+  Preconditions.checkArgument(expectedSavedBlobs > 0, "'expectedSavedBlobs' needs to be strictly positive".asInstanceOf[Object])
+
+  @Inject
+  def this(blobStoreDAO: BlobStoreDAO,
+           @Named("defaultBucket") defaultBucketName: BucketName,
+           blobIdFactory: BlobId.Factory,
+           metricFactory: MetricFactory) =
+    this(blobStoreDAO, defaultBucketName, blobIdFactory, metricFactory, DeDuplicationBlobStore.EXPECTED_SAVED_BLOBS)
+
+  def this(blobStoreDAO: BlobStoreDAO, defaultBucketName: BucketName, blobIdFactory: BlobId.Factory) =
+    this(blobStoreDAO, defaultBucketName, blobIdFactory, new DefaultMetricFactory)
+
+  // Blobs saved by this instance: a hit makes the blob a duplicate candidate, to be confirmed against the blobStoreDAO.
+  // Once the current filter holds expectedSavedBlobs entries, it becomes the previous one and a new filter is started,
+  // so that the false positive rate stays bounded while the most recently saved blobs are still remembered.
+  @volatile private var savedBlobs = newSavedBlobsFilter()
+  @volatile private var previouslySavedBlobs: Option[BloomFilter[CharSequence]] = None
+  private val skippedUploads = metricFactory.generate(DeDuplicationBlobStore.SKIPPED_UPLOADS_METRIC_NAME)
+  private val skippedBytes = metricFactory.generate(DeDuplicationBlobStore.SKIPPED_BYTES_METRIC_NAME)
 
   override def save(bucketName: BucketName, data: Array[Byte], storagePolicy: BlobStore.StoragePolicy): Publisher[BlobId] = {
     Preconditions.checkNotNull(bucketName)
@@ -48,8 +76,7 @@ class DeDuplicationBlobStore @Inject()(blobStoreDAO: BlobStoreDAO,
 
     val blobId = blobIdFactory.forPayload(data)
 
-    SMono(blobStoreDAO.save(bucketName, blobId, data))
-      .`then`(SMono.just(blobId))
+    saveIfAbsent(bucketName, blobId, data.length, blobStoreDAO.save(bucketName, blobId, data))
   }
 
   override def save(bucketName: BucketName, data: InputStream, storagePolicy: BlobStore.StoragePolicy): Publisher[BlobId] = {
@@ -65,13 +92,48 @@ class DeDuplicationBlobStore @Inject()(blobStoreDAO: BlobStoreDAO,
 
   private def saveAndGenerateBlobId(bucketName: BucketName, hashingInputStream: HashingInputStream, fileBackedOutputStream: FileBackedOutputStream): SMono[BlobId] =
     SMono.fromCallable(() => {
-      IOUtils.copy(hashingInputStream, fileBackedOutputStream)
-      Tuples.of(blobIdFactory.from(hashingInputStream.hash.toString), fileBackedOutputStream.asByteSource)
+      val size = IOUtils.copyLarge(hashingInputStream, fileBackedOutputStream)
+      Tuples.of(blobIdFactory.from(hashingInputStream.hash.toString), fileBackedOutputStream.asByteSource, Long.box(size))
     })
-      .flatMap((tuple: Tuple2[BlobId, ByteSource]) =>
-        SMono(blobStoreDAO.save(bucketName, tuple.getT1, tuple.getT2))
-          .`then`(SMono.just(tuple.getT1)))
+      .flatMap((tuple: Tuple3[BlobId, ByteSource, java.lang.Long]) =>
+        saveIfAbsent(bucketName, tuple.getT1, tuple.getT3, blobStoreDAO.save(bucketName, tuple.getT1, tuple.getT2)))
+
+  private def saveIfAbsent(bucketName: BucketName, blobId: BlobId, size: Long, save: => Publisher[Void]): SMono[BlobId] =
+    mayAlreadyExist(bucketName, blobId)
+      .flatMap(exists => if (exists) {
+        skippedUploads.increment()
+        skippedBytes.add(Math.min(size, Int.MaxValue).toInt)
+        SMono.empty[Void]
+      } else {
+        SMono(save)
+          .doOnSuccess(_ => recordSaved(savedBlobKey(bucketName, blobId)))
+      })
+      .`then`(SMono.just(blobId))
+
+  private def mayAlreadyExist(bucketName: BucketName, blobId: BlobId): SMono[Boolean] =
+    if (mightHaveSaved(savedBlobKey(bucketName, blobId))) {
+      SMono(blobStoreDAO.exists(bucketName, blobId)).map(_.booleanValue())
+    } else {
+      SMono.just(false)
+    }
+
+  private def mightHaveSaved(key: String): Boolean =
+    savedBlobs.mightContain(key) || previouslySavedBlobs.exists(_.mightContain(key))
+
+  private def recordSaved(key: String): Unit = synchronized {
+    if (savedBlobs.approximateElementCount() >= expectedSavedBlobs) {
+      previouslySavedBlobs = Some(savedBlobs)
+      savedBlobs = newSavedBlobsFilter()
+    }
+    savedBlobs.put(key)
+  }
+
+  private def newSavedBlobsFilter(): BloomFilter[CharSequence] =
+    BloomFilter.create[CharSequence](Funnels.stringFunnel(StandardCharsets.UTF_8),
+      expectedSavedBlobs,
+      DeDuplicationBlobStore.SAVED_BLOBS_FALSE_POSITIVE_RATE)
 
+  private def savedBlobKey(bucketName: BucketName, blobId: BlobId): String = bucketName.asString() + "/" + blobId.asString()
 
   override def readBytes(bucketName: BucketName, blobId: BlobId): Publisher[Array[Byte]] = {
     Preconditions.checkNotNull(bucketName)
@@ -0,0 +1,555 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+
+package org.apache.james.server.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.mail.internet.AddressException;
+
+import org.apache.james.core.MailAddress;
+import org.apache.james.core.MaybeSender;
+import org.apache.james.mailbox.model.MessageIdDto;
+import org.apache.mailet.ArbitrarySerializable;
+import org.apache.mailet.Attribute;
+import org.apache.mailet.AttributeName;
+import org.apache.mailet.AttributeValue;
+import org.apache.mailet.Mail;
+import org.apache.mailet.PerRecipientHeaders;
+
+import com.github.steveash.guavate.Guavate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Compact, versioned binary encoding of the envelope of a {@link Mail}: its name, sender, recipients, state,
+ * error message, remote address and host, last updated date, attributes and per recipient headers.
+ *
+ * <p>Every payload starts with {@link #MAGIC} followed by a version byte, which allows readers to tell it apart
+ * from the formats used previously (JSON documents, Java serialization streams) and to keep reading them.</p>
+ *
+ * <p>Attribute values are written with a type tag. Booleans, strings, numbers, URLs, message ids, collections,
+ * maps and optionals get a native encoding. {@link ArbitrarySerializable} values are stored as their JSON form,
+ * any other {@link Serializable} value relies on Java serialization.</p>
+ */
+public class MailEnvelopeCodec {
+    public static final byte MAGIC = (byte) 0xE5;
+    public static final byte VERSION = 1;
+
+    private static final byte BOOLEAN = 1;
+    private static final byte STRING = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte FLOAT = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte URL_TAG = 7;
+    private static final byte MESSAGE_ID = 8;
+    private static final byte COLLECTION = 9;
+    private static final byte MAP = 10;
+    private static final byte EMPTY_OPTIONAL = 11;
+    private static final byte OPTIONAL = 12;
+    private static final byte JSON = 13;
+    private static final byte SERIALIZABLE = 14;
+
+    public static boolean isEncoded(byte[] bytes) {
+        return bytes.length > 1 && bytes[0] == MAGIC;
+    }
+
+    public static boolean isEncoded(ByteBuffer buffer) {
+        return buffer.remaining() > 1 && buffer.get(buffer.position()) == MAGIC;
+    }
+
+    public static byte[] encode(Mail mail) {
+        return new Writer().writeMail(mail).toByteArray();
+    }
+
+    public static MailImpl.Builder decode(byte[] bytes) throws IOException {
+        return Reader.of(ByteBuffer.wrap(bytes)).readMail();
+    }
+
+    public static ByteBuffer encodeAttributeValue(AttributeValue<?> value) {
+        return ByteBuffer.wrap(new Writer().writeAttributeValue(value).toByteArray());
+    }
+
+    public static AttributeValue<?> decodeAttributeValue(ByteBuffer buffer) throws IOException {
+        return Reader.of(buffer).readAttributeValue();
+    }
+
+    public static class Writer {
+        private static final int INITIAL_CAPACITY = 256;
+
+        private byte[] bytes;
+        private int position;
+
+        public Writer() {
+            bytes = new byte[INITIAL_CAPACITY];
+            bytes[0] = MAGIC;
+            bytes[1] = VERSION;
+            position = 2;
+        }
+
+        public Writer writeMail(Mail mail) {
+            writeString(mail.getName());
+            MaybeSender sender = mail.getMaybeSender();
+            writeNullableString(sender.isNullSender() ? null : sender.get().asString());
+            writeRecipients(mail.getRecipients());
+            writeNullableString(mail.getState());
+            writeNullableString(mail.getErrorMessage());
+            writeNullableString(mail.getRemoteAddr());
+            writeNullableString(mail.getRemoteHost());
+            writeLastUpdated(mail.getLastUpdated());
+            writeAttributes(mail.attributes().collect(Guavate.toImmutableList()));
+            writePerRecipientHeaders(mail.getPerRecipientSpecificHeaders());
+            return this;
+        }
+
+        private void writeRecipients(Collection<MailAddress> recipients) {
+            if (recipients == null) {
+                writeUnsignedVarInt(0);
+                return;
+            }
+            writeUnsignedVarInt(recipients.size());
+            recipients.forEach(recipient -> writeString(recipient.asString()));
+        }
+
+        private void writeLastUpdated(Date lastUpdated) {
+            if (lastUpdated == null) {
+                writeByte((byte) 0);
+                return;
+            }
+            writeByte((byte) 1);
+            writeVarLong(lastUpdated.getTime());
+        }
+
+        private void writeAttributes(List<Attribute> attributes) {
+            writeUnsignedVarInt(attributes.size());
+            attributes.forEach(attribute -> {
+                writeString(attribute.getName().asString());
+                writeAttributeValue(attribute.getValue());
+            });
+        }
+
+        private void writePerRecipientHeaders(PerRecipientHeaders perRecipientHeaders) {
+            Map<MailAddress, Collection<PerRecipientHeaders.Header>> headersByRecipient = perRecipientHeaders.getHeadersByRecipient().asMap();
+            writeUnsignedVarInt(headersByRecipient.size());
+            headersByRecipient.forEach((recipient, headers) -> {
+                writeString(recipient.asString());
+                writeUnsignedVarInt(headers.size());
+                headers.forEach(header -> {
+                    writeString(header.getName());
+                    writeString(header.getValue());
+                });
+            });
+        }
+
+        public Writer writeAttributeValue(AttributeValue<?> attributeValue) {
+            Object value = attributeValue.value();
+            if (value instanceof Boolean) {
+                writeByte(BOOLEAN);
+                writeByte((byte) ((Boolean) value ? 1 : 0));
+            } else if (value instanceof String) {
+                writeByte(STRING);
+                writeString((String) value);
+            } else if (value instanceof Integer) {
+                writeByte(INT);
+                writeVarLong((Integer) value);
+            } else if (value instanceof Long) {
+                writeByte(LONG);
+                writeVarLong((Long) value);
+            } else if (value instanceof Float) {
+                writeByte(FLOAT);
+                writeFixedInt(Float.floatToIntBits((Float) value));
+            } else if (value instanceof Double) {
+                writeByte(DOUBLE);
+                writeFixedLong(Double.doubleToLongBits((Double) value));
+            } else if (value instanceof Collection && isCollectionOfAttributeValues((Collection<?>) value)) {
+                writeByte(COLLECTION);
+                Collection<?> values = (Collection<?>) value;
+                writeUnsignedVarInt(values.size());
+                values.forEach(element -> writeAttributeValue((AttributeValue<?>) element));
+            } else if (value instanceof Map && isMapOfAttributeValues((Map<?, ?>) value)) {
+                writeByte(MAP);
+                Map<?, ?> values = (Map<?, ?>) value;
+                writeUnsignedVarInt(values.size());
+                values.forEach((key, element) -> {
+                    writeString((String) key);
+                    writeAttributeValue((AttributeValue<?>) element);
+                });
+            } else if (value instanceof MessageIdDto) {
+                writeByte(MESSAGE_ID);
+                writeString(((MessageIdDto) value).asString());
+            } else if (value instanceof ArbitrarySerializable) {
+                writeByte(JSON);
+                writeString(attributeValue.toJson().toString());
+            } else if (value instanceof URL) {
+                writeByte(URL_TAG);
+                writeString(value.toString());
+            } else if (value instanceof Optional && isOptionalOfAttributeValue((Optional<?>) value)) {
+                Optional<?> optional = (Optional<?>) value;
+                if (optional.isPresent()) {
+                    writeByte(OPTIONAL);
+                    writeAttributeValue((AttributeValue<?>) optional.get());
+                } else {
+                    writeByte(EMPTY_OPTIONAL);
+                }
+            } else {
+                writeByte(SERIALIZABLE);
+                writeBytes(javaSerialize(value));
+            }
+            return this;
+        }
+
+        private boolean isCollectionOfAttributeValues(Collection<?> values) {
+            return values.stream().allMatch(AttributeValue.class::isInstance);
+        }
+
+        private boolean isMapOfAttributeValues(Map<?, ?> values) {
+            return values.entrySet().stream()
+                .allMatch(entry -> entry.getKey() instanceof String && entry.getValue() instanceof AttributeValue);
+        }
+
+        private boolean isOptionalOfAttributeValue(Optional<?> value) {
+            return value.map(AttributeValue.class::isInstance).orElse(true);
+        }
+
+        private byte[] javaSerialize(Object value) {
+            try {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)) {
+                    objectOutputStream.writeObject(value);
+                }
+                return outputStream.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Can not serialize attribute value of type " + value.getClass(), e);
+            }
+        }
+
+        public Writer writeString(String value) {
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsignedVarInt(encoded.length);
+            writeRaw(encoded);
+            return this;
+        }
+
+        public Writer writeNullableString(String value) {
+            if (value == null) {
+                writeUnsignedVarInt(0);
+                return this;
+            }
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsignedVarInt(encoded.length + 1);
+            writeRaw(encoded);
+            return this;
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(bytes, position);
+        }
+
+        private void writeBytes(byte[] value) {
+            writeUnsignedVarInt(value.length);
+            writeRaw(value);
+        }
+
+        private void writeVarLong(long value) {
+            long zigZag = (value << 1) ^ (value >> 63);
+            while ((zigZag & ~0x7FL) != 0) {
+                writeByte((byte) ((zigZag & 0x7F) | 0x80));
+                zigZag >>>= 7;
+            }
+            writeByte((byte) zigZag);
+        }
+
+        private void writeUnsignedVarInt(int value) {
+            int remaining = value;
+            while ((remaining & ~0x7F) != 0) {
+                writeByte((byte) ((remaining & 0x7F) | 0x80));
+                remaining >>>= 7;
+            }
+            writeByte((byte) remaining);
+        }
+
+        private void writeFixedInt(int value) {
+            ensureCapacity(Integer.BYTES);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeFixedLong(long value) {
+            ensureCapacity(Long.BYTES);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeByte(byte value) {
+            ensureCapacity(1);
+            bytes[position++] = value;
+        }
+
+        private void writeRaw(byte[] value) {
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, bytes, position, value.length);
+            position += value.length;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (position + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + additional));
+            }
+        }
+    }
+
+    public static class Reader {
+        public static Reader of(ByteBuffer buffer) throws IOException {
+            ByteBuffer input = buffer.duplicate();
+            if (!isEncoded(input)) {
+                throw new IOException("Not a binary mail envelope");
+            }
+            input.get();
+            byte version = input.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported mail envelope encoding version " + version);
+            }
+            return new Reader(input);
+        }
+
+        private final ByteBuffer buffer;
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public MailImpl.Builder readMail() throws IOException {
+            try {
+                MailImpl.Builder builder = MailImpl.builder().name(readString())
+                    .sender(MaybeSender.getMailSender(readNullableString()))
+                    .addRecipients(readRecipients())
+                    .state(readNullableString())
+                    .errorMessage(readNullableString())
+                    .remoteAddr(readNullableString())
+                    .remoteHost(readNullableString())
+                    .lastUpdated(readLastUpdated());
+                int attributeCount = readUnsignedVarInt();
+                for (int i = 0; i < attributeCount; i++) {
+                    builder.addAttribute(new Attribute(AttributeName.of(readString()), readAttributeValue()));
+                }
+                return builder.addAllHeadersForRecipients(readPerRecipientHeaders());
+            } catch (AddressException e) {
+                throw new IOException("Invalid mail address in mail envelope", e);
+            }
+        }
+
+        private ImmutableList<MailAddress> readRecipients() throws IOException, AddressException {
+            int count = readUnsignedVarInt();
+            ImmutableList.Builder<MailAddress> recipients = ImmutableList.builderWithExpectedSize(count);
+            for (int i = 0; i < count; i++) {
+                recipients.add(new MailAddress(readString()));
+            }
+            return recipients.build();
+        }
+
+        private Date readLastUpdated() throws IOException {
+            if (readByte() == 0) {
+                return null;
+            }
+            return new Date(readVarLong());
+        }
+
+        private PerRecipientHeaders readPerRecipientHeaders() throws IOException, AddressException {
+            PerRecipientHeaders perRecipientHeaders = new PerRecipientHeaders();
+            int recipientCount = readUnsignedVarInt();
+            for (int i = 0; i < recipientCount; i++) {
+                MailAddress recipient = new MailAddress(readString());
+                int headerCount = readUnsignedVarInt();
+                for (int j = 0; j < headerCount; j++) {
+                    perRecipientHeaders.addHeaderForRecipient(PerRecipientHeaders.Header.builder()
+                        .name(readString())
+                        .value(readString())
+                        .build(), recipient);
+                }
+            }
+            return perRecipientHeaders;
+        }
+
+        public AttributeValue<?> readAttributeValue() throws IOException {
+            byte tag = readByte();
+            switch (tag) {
+                case BOOLEAN:
+                    return AttributeValue.of(readByte() != 0);
+                case STRING:
+                    return AttributeValue.of(readString());
+                case INT:
+                    return AttributeValue.of((int) readVarLong());
+                case LONG:
+                    return AttributeValue.of(readVarLong());
+                case FLOAT:
+                    return AttributeValue.of(Float.intBitsToFloat(readFixedInt()));
+                case DOUBLE:
+                    return AttributeValue.of(Double.longBitsToDouble(readFixedLong()));
+                case URL_TAG:
+                    return AttributeValue.of(new URL(readString()));
+                case MESSAGE_ID:
+                    return AttributeValue.of(new MessageIdDto(readString()));
+                case COLLECTION:
+                    return AttributeValue.of(readCollection());
+                case MAP:
+                    return AttributeValue.of(readMap());
+                case EMPTY_OPTIONAL:
+                    return AttributeValue.of(Optional.empty());
+                case OPTIONAL:
+                    return AttributeValue.of(Optional.of(readAttributeValue()));
+                case JSON:
+                    return AttributeValue.fromJsonString(readString());
+                case SERIALIZABLE:
+                    return AttributeValue.ofAny(javaDeserialize(readBytes()));
+                default:
+                    throw new IOException("Unknown attribute value type " + tag);
+            }
+        }
+
+        private Collection<AttributeValue<?>> readCollection() throws IOException {
+            int count = readUnsignedVarInt();
+            ImmutableList.Builder<AttributeValue<?>> values = ImmutableList.builderWithExpectedSize(count);
+            for (int i = 0; i < count; i++) {
+                values.add(readAttributeValue());
+            }
+            return values.build();
+        }
+
+        private Map<String, AttributeValue<?>> readMap() throws IOException {
+            int count = readUnsignedVarInt();
+            ImmutableMap.Builder<String, AttributeValue<?>> values = ImmutableMap.builderWithExpectedSize(count);
+            for (int i = 0; i < count; i++) {
+                values.put(readString(), readAttributeValue());
+            }
+            return values.build();
+        }
+
+        private Object javaDeserialize(byte[] bytes) throws IOException {
+            try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                return objectInputStream.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Can not deserialize attribute value", e);
+            }
+        }
+
+        public String readString() throws IOException {
+            return decodeString(readUnsignedVarInt());
+        }
+
+        public String readNullableString() throws IOException {
+            int length = readUnsignedVarInt();
+            if (length == 0) {
+                return null;
+            }
+            return decodeString(length - 1);
+        }
+
+        private String decodeString(int length) throws IOException {
+            ensureRemaining(length);
+            String result;
+            if (buffer.hasArray()) {
+                result = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            } else {
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                result = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return result;
+        }
+
+        private byte[] readBytes() throws IOException {
+            int length = readUnsignedVarInt();
+            ensureRemaining(length);
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        private long readVarLong() throws IOException {
+            long zigZag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte current = readByte();
+                zigZag |= (long) (current & 0x7F) << shift;
+                if ((current & 0x80) == 0) {
+                    return (zigZag >>> 1) ^ -(zigZag & 1);
+                }
+            }
+            throw new IOException("Malformed variable length long");
+        }
+
+        private int readUnsignedVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte current = readByte();
+                value |= (current & 0x7F) << shift;
+                if ((current & 0x80) == 0) {
+                    if (value < 0) {
+                        throw new IOException("Negative length in mail envelope");
+                    }
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable length int");
+        }
+
+        private int readFixedInt() throws IOException {
+            ensureRemaining(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        private long readFixedLong() throws IOException {
+            ensureRemaining(Long.BYTES);
+            return buffer.getLong();
+        }
+
+        private byte readByte() throws IOException {
+            try {
+                return buffer.get();
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Truncated mail envelope", e);
+            }
+        }
+
+        private void ensureRemaining(int length) throws IOException {
+            if (buffer.remaining() < length) {
+                throw new IOException("Truncated mail envelope");
+            }
+        }
+    }
+}
@@ -143,6 +143,15 @@ public class MailHeaders extends InternetHeaders implements Serializable, Clonea
         modified();
     }
 
+    /**
+     * Adds a raw header line on top of the existing headers, keeping the other
+     * headers untouched.
+     */
+    public synchronized void prependHeaderLine(String line) {
+        headers.add(0, new InternetHeader(line));
+        modified();
+    }
+
     private void modified() {
         modified = true;
         size = -1;
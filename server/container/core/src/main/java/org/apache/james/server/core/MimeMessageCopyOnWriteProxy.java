@@ -148,6 +148,18 @@ public class MimeMessageCopyOnWriteProxy extends MimeMessage implements Disposab
         }
     }
 
+    /**
+     * Adds a raw header line on top of the existing headers of the wrapped message.
+     */
+    public void prependHeaderLine(String line) throws MessagingException {
+        MimeMessage wrapped = getWrappedMessageForWriting();
+        if (wrapped instanceof MimeMessageWrapper) {
+            ((MimeMessageWrapper) wrapped).prependHeaderLine(line);
+        } else {
+            MimeMessageUtil.prependHeaderLine(wrapped, line);
+        }
+    }
+
     @Override
     public void writeTo(OutputStream os) throws IOException, MessagingException {
         getWrappedMessage().writeTo(os);
@@ -22,9 +22,12 @@ package org.apache.james.server.core;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.List;
 
 import javax.activation.UnsupportedDataTypeException;
+import javax.mail.Header;
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimeUtility;
@@ -164,6 +167,38 @@ public class MimeMessageUtil {
         }
     }
 
+    /**
+     * Add a raw header line on top of the headers of the given message.
+     *
+     * {@link MimeMessageWrapper} and {@link MimeMessageCopyOnWriteProxy} insert the line
+     * in place, keeping their body untouched. Other messages get all their headers removed
+     * then added back after the new line, as JavaMail offers no way to prepend a header.
+     *
+     * @param message
+     *            the MimeMessage to modify
+     * @param line
+     *            the raw header line, possibly folded
+     * @throws MessagingException
+     */
+    public static void prependHeaderLine(MimeMessage message, String line) throws MessagingException {
+        if (message instanceof MimeMessageCopyOnWriteProxy) {
+            ((MimeMessageCopyOnWriteProxy) message).prependHeaderLine(line);
+            return;
+        }
+        if (message instanceof MimeMessageWrapper) {
+            ((MimeMessageWrapper) message).prependHeaderLine(line);
+            return;
+        }
+        List<String> previousHeaders = Collections.list(message.getAllHeaderLines());
+        for (Header header : Collections.list(message.getAllHeaders())) {
+            message.removeHeader(header.getName());
+        }
+        message.addHeaderLine(line);
+        for (String previousHeader : previousHeaders) {
+            message.addHeaderLine(previousHeader);
+        }
+    }
+
     /**
      * Write the message headers to the given outputstream
      * 
@@ -529,6 +529,26 @@ public class MimeMessageWrapper extends MimeMessage implements Disposable {
         super.addHeaderLine(line);
     }
 
+    /**
+     * Adds a raw header line on top of the existing headers. Unlike removing and
+     * re-adding every header, this does not alter the body: an unmodified body
+     * is still streamed from the source.
+     */
+    public synchronized void prependHeaderLine(String line) throws MessagingException {
+        checkModifyHeaders();
+        if (headers instanceof MailHeaders) {
+            ((MailHeaders) headers).prependHeaderLine(line);
+        } else {
+            MailHeaders newHeaders = new MailHeaders();
+            newHeaders.addHeaderLine(line);
+            Enumeration<String> previousHeaders = headers.getAllHeaderLines();
+            while (previousHeaders.hasMoreElements()) {
+                newHeaders.addHeaderLine(previousHeaders.nextElement());
+            }
+            headers = newHeaders;
+        }
+    }
+
     /**
      * The message is changed when working with headers and when altering the
      * content. Every method that alter the content will fallback to this one.
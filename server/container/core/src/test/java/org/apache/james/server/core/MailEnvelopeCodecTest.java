@@ -0,0 +1,163 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+
+package org.apache.james.server.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Optional;
+
+import org.apache.james.core.MailAddress;
+import org.apache.james.core.MaybeSender;
+import org.apache.james.mailbox.model.MessageIdDto;
+import org.apache.mailet.Attribute;
+import org.apache.mailet.AttributeName;
+import org.apache.mailet.AttributeValue;
+import org.apache.mailet.PerRecipientHeaders;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+class MailEnvelopeCodecTest {
+    private static final PerRecipientHeaders.Header HEADER = PerRecipientHeaders.Header.builder()
+        .name("X-Custom")
+        .value("value")
+        .build();
+
+    @Test
+    void decodeShouldReturnEncodedEnvelope() throws Exception {
+        MailAddress recipient = new MailAddress("rcpt1@domain.tld");
+        MailImpl mail = MailImpl.builder()
+            .name("mail-name")
+            .sender("sender@domain.tld")
+            .addRecipients(recipient, new MailAddress("rcpt2@domain.tld"))
+            .state("transport")
+            .errorMessage("error")
+            .remoteAddr("10.0.0.1")
+            .remoteHost("remote.domain.tld")
+            .lastUpdated(new Date(1577836800000L))
+            .addAttribute(new Attribute(AttributeName.of("string"), AttributeValue.of("value")))
+            .addHeaderForRecipient(HEADER, recipient)
+            .build();
+
+        MailImpl decoded = MailEnvelopeCodec.decode(MailEnvelopeCodec.encode(mail)).build();
+
+        assertThat(decoded.getName()).isEqualTo("mail-name");
+        assertThat(decoded.getMaybeSender()).isEqualTo(mail.getMaybeSender());
+        assertThat(decoded.getRecipients()).containsExactlyElementsOf(mail.getRecipients());
+        assertThat(decoded.getState()).isEqualTo("transport");
+        assertThat(decoded.getErrorMessage()).isEqualTo("error");
+        assertThat(decoded.getRemoteAddr()).isEqualTo("10.0.0.1");
+        assertThat(decoded.getRemoteHost()).isEqualTo("remote.domain.tld");
+        assertThat(decoded.getLastUpdated()).isEqualTo(new Date(1577836800000L));
+        assertThat(decoded.attributes()).containsExactlyElementsOf(mail.attributes().collect(ImmutableList.toImmutableList()));
+        assertThat(decoded.getPerRecipientSpecificHeaders()).isEqualTo(mail.getPerRecipientSpecificHeaders());
+    }
+
+    @Test
+    void decodeShouldPreserveNullSender() throws Exception {
+        MailImpl mail = MailImpl.builder()
+            .name("mail-name")
+            .sender(MaybeSender.nullSender())
+            .build();
+
+        MailImpl decoded = MailEnvelopeCodec.decode(MailEnvelopeCodec.encode(mail)).build();
+
+        assertThat(decoded.getMaybeSender().isNullSender()).isTrue();
+    }
+
+    @Test
+    void attributeValuesShouldBeDecodedWithTheirType() throws Exception {
+        ImmutableList<AttributeValue<?>> values = ImmutableList.of(
+            AttributeValue.of(true),
+            AttributeValue.of("string"),
+            AttributeValue.of(-42),
+            AttributeValue.of(Long.MAX_VALUE),
+            AttributeValue.of(1.5f),
+            AttributeValue.of(-2.25d),
+            AttributeValue.of(new URL("https://james.apache.org/")),
+            AttributeValue.of(new MessageIdDto("42")),
+            AttributeValue.of(ImmutableList.of(AttributeValue.of("a"), AttributeValue.of(1))),
+            AttributeValue.of(ImmutableMap.of("key", AttributeValue.of("value"))),
+            AttributeValue.of(Optional.of(AttributeValue.of(12L))),
+            AttributeValue.of(Optional.empty()));
+
+        for (AttributeValue<?> value : values) {
+            assertThat(MailEnvelopeCodec.decodeAttributeValue(MailEnvelopeCodec.encodeAttributeValue(value)))
+                .isEqualTo(value);
+        }
+    }
+
+    @Test
+    void encodedAttributeShouldBeSmallerThanItsJsonForm() {
+        AttributeValue<String> value = AttributeValue.of("value");
+
+        assertThat(MailEnvelopeCodec.encodeAttributeValue(value).remaining())
+            .isLessThan(value.toJson().toString().length());
+    }
+
+    @Test
+    void decodeAttributeValueShouldNotAlterTheBufferPosition() throws Exception {
+        ByteBuffer buffer = MailEnvelopeCodec.encodeAttributeValue(AttributeValue.of("value"));
+
+        MailEnvelopeCodec.decodeAttributeValue(buffer);
+
+        assertThat(buffer.position()).isZero();
+    }
+
+    @Test
+    void isEncodedShouldReturnFalseForJson() {
+        assertThat(MailEnvelopeCodec.isEncoded("{\"serializer\":\"StringSerializer\"}".getBytes(StandardCharsets.UTF_8)))
+            .isFalse();
+    }
+
+    @Test
+    void isEncodedShouldReturnTrueForEncodedEnvelope() {
+        assertThat(MailEnvelopeCodec.isEncoded(MailEnvelopeCodec.encodeAttributeValue(AttributeValue.of(1))))
+            .isTrue();
+    }
+
+    @Test
+    void decodeShouldRejectUnknownVersions() {
+        byte[] bytes = {MailEnvelopeCodec.MAGIC, 42, 0};
+
+        assertThatThrownBy(() -> MailEnvelopeCodec.decode(bytes))
+            .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void decodeShouldRejectTruncatedPayloads() throws Exception {
+        byte[] encoded = MailEnvelopeCodec.encode(MailImpl.builder()
+            .name("mail-name")
+            .addRecipient("rcpt@domain.tld")
+            .build());
+
+        assertThatThrownBy(() -> MailEnvelopeCodec.decode(Arrays.copyOf(encoded, encoded.length / 2)))
+            .isInstanceOf(IOException.class);
+    }
+}
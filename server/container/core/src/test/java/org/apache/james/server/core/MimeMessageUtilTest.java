@@ -19,9 +19,12 @@
 
 package org.apache.james.server.core;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Properties;
 
 import javax.mail.MessagingException;
@@ -63,4 +66,15 @@ public class MimeMessageUtilTest {
         MimeMessageUtil.writeTo(mimeMessage, headerOut, bodyOut);
     }
 
+
+    @Test
+    public void prependHeaderLineShouldAddTheHeaderOnTopOfPlainMessages() throws Exception {
+        MimeMessage mimeMessage = new MimeMessage(Session.getDefaultInstance(new Properties()),
+            new ByteArrayInputStream("Subject: test\r\nFrom: a@b.com\r\n\r\nbody\r\n".getBytes()));
+
+        MimeMessageUtil.prependHeaderLine(mimeMessage, "X-Test: X-Value");
+
+        assertThat(Collections.list(mimeMessage.getAllHeaderLines()))
+            .containsExactly("X-Test: X-Value", "Subject: test", "From: a@b.com");
+    }
 }
@@ -176,6 +176,36 @@ public class MimeMessageWrapperTest extends MimeMessageFromStreamTest {
         assertThat(found).isTrue();
     }
 
+    @Test
+    public void prependHeaderLineShouldAddTheHeaderOnTop() throws Exception {
+        mw.prependHeaderLine("X-Test: X-Value");
+
+        Enumeration<String> headers = mw.getAllHeaderLines();
+        assertThat(headers.nextElement()).isEqualTo("X-Test: X-Value");
+        assertThat(headers.nextElement()).isEqualTo("Subject: foo");
+    }
+
+    @Test
+    public void prependHeaderLineShouldNotModifyTheBody() throws Exception {
+        mw.prependHeaderLine("X-Test: X-Value");
+
+        assertThat(mw.isHeaderModified()).isTrue();
+        assertThat(mw.isBodyModified()).isFalse();
+        assertThat(mw.messageParsed()).isFalse();
+    }
+
+    @Test
+    public void prependHeaderLineShouldBeWritten() throws Exception {
+        mw.prependHeaderLine("X-Test: X-Value");
+
+        ByteArrayOutputStream rawMessage = new ByteArrayOutputStream();
+        mw.writeTo(rawMessage);
+
+        assertThat(rawMessage.toString())
+            .startsWith("X-Test: X-Value\r\n")
+            .endsWith(sep + body);
+    }
+
     @Test
     public void testReplaceReturnPathOnBadMessage() throws Exception {
         MimeMessage message = getMessageWithBadReturnPath();
@@ -33,6 +33,8 @@ public class S3BlobStoreConfigurationReader {
     private static final String OBJECTSTORAGE_NAMESPACE = "objectstorage.namespace";
     private static final String OBJECTSTORAGE_BUCKET_PREFIX = "objectstorage.bucketPrefix";
     private static final String OBJECTSTORAGE_S3_REGION = "objectstorage.s3.region";
+    private static final String OBJECTSTORAGE_S3_PART_SIZE = "objectstorage.s3.partSizeInBytes";
+    private static final String OBJECTSTORAGE_S3_PART_CONCURRENCY = "objectstorage.s3.partConcurrency";
 
     public static S3BlobStoreConfiguration from(Configuration configuration) throws ConfigurationException {
         Optional<String> namespace = Optional.ofNullable(configuration.getString(OBJECTSTORAGE_NAMESPACE, null));
@@ -40,12 +42,16 @@ public class S3BlobStoreConfigurationReader {
         Region region = Optional.ofNullable(configuration.getString(OBJECTSTORAGE_S3_REGION, null))
             .map(Region::of)
             .orElseThrow(() -> new ConfigurationException("require a region (" + OBJECTSTORAGE_S3_REGION + " key)"));
+        Optional<Integer> partSize = Optional.ofNullable(configuration.getInteger(OBJECTSTORAGE_S3_PART_SIZE, null));
+        Optional<Integer> partConcurrency = Optional.ofNullable(configuration.getInteger(OBJECTSTORAGE_S3_PART_CONCURRENCY, null));
 
         return S3BlobStoreConfiguration.builder()
             .authConfiguration(AwsS3ConfigurationReader.from(configuration))
             .region(region)
             .defaultBucketName(namespace.map(BucketName::of))
             .bucketPrefix(bucketPrefix)
+            .partSize(partSize)
+            .partConcurrency(partConcurrency)
             .build();
     }
 
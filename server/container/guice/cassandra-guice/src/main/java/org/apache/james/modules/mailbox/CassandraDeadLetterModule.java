@@ -21,6 +21,7 @@ package org.apache.james.modules.mailbox;
 
 import org.apache.james.backends.cassandra.components.CassandraModule;
 import org.apache.james.core.healthcheck.HealthCheck;
+import org.apache.james.event.json.EventSerializerExtension;
 import org.apache.james.mailbox.events.CassandraEventDeadLetters;
 import org.apache.james.mailbox.events.CassandraEventDeadLettersDAO;
 import org.apache.james.mailbox.events.CassandraEventDeadLettersGroupDAO;
@@ -48,5 +49,7 @@ public class CassandraDeadLetterModule extends AbstractModule {
         Multibinder.newSetBinder(binder(), HealthCheck.class)
             .addBinding()
             .to(EventDeadLettersHealthCheck.class);
+
+        Multibinder.newSetBinder(binder(), EventSerializerExtension.class);
     }
 }
@@ -19,30 +19,62 @@
 
 package org.apache.james.modules.mailbox;
 
+import javax.inject.Inject;
+
 import org.apache.james.backends.cassandra.components.CassandraModule;
+import org.apache.james.lifecycle.api.Startable;
 import org.apache.james.mailbox.cassandra.quota.CassandraCurrentQuotaManager;
 import org.apache.james.mailbox.cassandra.quota.CassandraGlobalMaxQuotaDao;
 import org.apache.james.mailbox.cassandra.quota.CassandraPerDomainMaxQuotaDao;
 import org.apache.james.mailbox.cassandra.quota.CassandraPerUserMaxQuotaDao;
 import org.apache.james.mailbox.cassandra.quota.CassandraPerUserMaxQuotaManager;
+import org.apache.james.mailbox.events.EventBus;
 import org.apache.james.mailbox.events.MailboxListener;
+import org.apache.james.mailbox.events.QuotaCacheRegistrationKey;
 import org.apache.james.mailbox.quota.CurrentQuotaManager;
 import org.apache.james.mailbox.quota.MaxQuotaManager;
 import org.apache.james.mailbox.quota.QuotaManager;
 import org.apache.james.mailbox.quota.QuotaRootDeserializer;
 import org.apache.james.mailbox.quota.QuotaRootResolver;
 import org.apache.james.mailbox.quota.UserQuotaRootResolver;
+import org.apache.james.mailbox.store.quota.CachingCurrentQuotaManager;
+import org.apache.james.mailbox.store.quota.CachingMaxQuotaManager;
 import org.apache.james.mailbox.store.quota.DefaultUserQuotaRootResolver;
 import org.apache.james.mailbox.store.quota.ListeningCurrentQuotaUpdater;
 import org.apache.james.mailbox.store.quota.QuotaUpdater;
 import org.apache.james.mailbox.store.quota.StoreQuotaManager;
+import org.apache.james.utils.InitializationOperation;
+import org.apache.james.utils.InitilizationOperationBuilder;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
+import com.google.inject.Singleton;
 import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.ProvidesIntoSet;
+
+import reactor.core.publisher.Mono;
 
 public class CassandraQuotaModule extends AbstractModule {
 
+    static class QuotaCachesRegistration implements Startable {
+        private final EventBus eventBus;
+        private final CachingCurrentQuotaManager currentQuotaManager;
+        private final CachingMaxQuotaManager maxQuotaManager;
+
+        @Inject
+        QuotaCachesRegistration(EventBus eventBus, CachingCurrentQuotaManager currentQuotaManager, CachingMaxQuotaManager maxQuotaManager) {
+            this.eventBus = eventBus;
+            this.currentQuotaManager = currentQuotaManager;
+            this.maxQuotaManager = maxQuotaManager;
+        }
+
+        void register() {
+            Mono.from(eventBus.register(currentQuotaManager, QuotaCacheRegistrationKey.INSTANCE)).block();
+            Mono.from(eventBus.register(maxQuotaManager, QuotaCacheRegistrationKey.INSTANCE)).block();
+        }
+    }
+
     @Override
     protected void configure() {
         bind(CassandraCurrentQuotaManager.class).in(Scopes.SINGLETON);
@@ -53,8 +85,8 @@ public class CassandraQuotaModule extends AbstractModule {
         bind(DefaultUserQuotaRootResolver.class).in(Scopes.SINGLETON);
         bind(StoreQuotaManager.class).in(Scopes.SINGLETON);
 
-        bind(CurrentQuotaManager.class).to(CassandraCurrentQuotaManager.class);
-        bind(MaxQuotaManager.class).to(CassandraPerUserMaxQuotaManager.class);
+        bind(CurrentQuotaManager.class).to(CachingCurrentQuotaManager.class);
+        bind(MaxQuotaManager.class).to(CachingMaxQuotaManager.class);
         bind(QuotaManager.class).to(StoreQuotaManager.class);
         bind(QuotaRootResolver.class).to(DefaultUserQuotaRootResolver.class);
         bind(QuotaRootDeserializer.class).to(DefaultUserQuotaRootResolver.class);
@@ -69,4 +101,23 @@ public class CassandraQuotaModule extends AbstractModule {
             .addBinding()
             .to(ListeningCurrentQuotaUpdater.class);
     }
+
+    @Provides
+    @Singleton
+    CachingCurrentQuotaManager cachingCurrentQuotaManager(CassandraCurrentQuotaManager currentQuotaManager) {
+        return new CachingCurrentQuotaManager(currentQuotaManager);
+    }
+
+    @Provides
+    @Singleton
+    CachingMaxQuotaManager cachingMaxQuotaManager(CassandraPerUserMaxQuotaManager maxQuotaManager, EventBus eventBus) {
+        return new CachingMaxQuotaManager(maxQuotaManager, eventBus);
+    }
+
+    @ProvidesIntoSet
+    InitializationOperation registerQuotaCaches(QuotaCachesRegistration instance) {
+        return InitilizationOperationBuilder
+            .forClass(QuotaCachesRegistration.class)
+            .init(instance::register);
+    }
 }
@@ -119,6 +119,8 @@ public class BlobStoreConfiguration {
     static final String CACHE_ENABLE_PROPERTY = "cache.enable";
     static final boolean CACHE_ENABLED = true;
     static final String DEDUPLICATION_ENABLE_PROPERTY = "deduplication.enable";
+    static final String COMPRESSION_ENABLE_PROPERTY = "compression.enable";
+    static final String DISK_CACHE_ENABLE_PROPERTY = "cache.disk.enable";
 
     public static BlobStoreConfiguration parse(org.apache.james.server.core.configuration.Configuration configuration) throws ConfigurationException {
         PropertiesProvider propertiesProvider = new PropertiesProvider(new FileSystemImpl(configuration.directories()),
@@ -149,6 +151,8 @@ public class BlobStoreConfiguration {
                 "supported values in: %s", BLOBSTORE_IMPLEMENTATION_PROPERTY, BlobStoreImplName.supportedImplNames())));
 
         boolean cacheEnabled = configuration.getBoolean(CACHE_ENABLE_PROPERTY, false);
+        boolean compressionEnabled = configuration.getBoolean(COMPRESSION_ENABLE_PROPERTY, false);
+        boolean diskCacheEnabled = configuration.getBoolean(DISK_CACHE_ENABLE_PROPERTY, false);
         boolean deduplicationEnabled = Try.ofCallable(() -> configuration.getBoolean(DEDUPLICATION_ENABLE_PROPERTY))
                 .getOrElseThrow(() -> new IllegalStateException("deduplication.enable property is missing please use one of the supported values in: true, false\n" +
                         "If you choose to enable deduplication, the mails with the same content will be stored only once.\n" +
@@ -157,9 +161,9 @@ public class BlobStoreConfiguration {
                         "Upgrade note: If you are upgrading from James 3.5 or older, the deduplication was enabled."));
 
         if (deduplicationEnabled) {
-            return new BlobStoreConfiguration(blobStoreImplName, cacheEnabled, StorageStrategy.DEDUPLICATION);
+            return new BlobStoreConfiguration(blobStoreImplName, cacheEnabled, StorageStrategy.DEDUPLICATION, compressionEnabled, diskCacheEnabled);
         } else {
-            return new BlobStoreConfiguration(blobStoreImplName, cacheEnabled, StorageStrategy.PASSTHROUGH);
+            return new BlobStoreConfiguration(blobStoreImplName, cacheEnabled, StorageStrategy.PASSTHROUGH, compressionEnabled, diskCacheEnabled);
         }
     }
 
@@ -177,11 +181,28 @@ public class BlobStoreConfiguration {
     private final BlobStoreImplName implementation;
     private final boolean cacheEnabled;
     private final StorageStrategy storageStrategy;
+    private final boolean compressionEnabled;
+    private final boolean diskCacheEnabled;
 
     BlobStoreConfiguration(BlobStoreImplName implementation, boolean cacheEnabled, StorageStrategy storageStrategy) {
+        this(implementation, cacheEnabled, storageStrategy, false, false);
+    }
+
+    BlobStoreConfiguration(BlobStoreImplName implementation, boolean cacheEnabled, StorageStrategy storageStrategy,
+                           boolean compressionEnabled, boolean diskCacheEnabled) {
         this.implementation = implementation;
         this.cacheEnabled = cacheEnabled;
         this.storageStrategy = storageStrategy;
+        this.compressionEnabled = compressionEnabled;
+        this.diskCacheEnabled = diskCacheEnabled;
+    }
+
+    public BlobStoreConfiguration enableCompression() {
+        return new BlobStoreConfiguration(implementation, cacheEnabled, storageStrategy, true, diskCacheEnabled);
+    }
+
+    public BlobStoreConfiguration enableDiskCache() {
+        return new BlobStoreConfiguration(implementation, cacheEnabled, storageStrategy, compressionEnabled, true);
     }
 
     public boolean cacheEnabled() {
@@ -192,6 +213,14 @@ public class BlobStoreConfiguration {
         return storageStrategy;
     }
 
+    public boolean compressionEnabled() {
+        return compressionEnabled;
+    }
+
+    public boolean diskCacheEnabled() {
+        return diskCacheEnabled;
+    }
+
     BlobStoreImplName getImplementation() {
         return implementation;
     }
@@ -203,14 +232,16 @@ public class BlobStoreConfiguration {
 
             return Objects.equals(this.implementation, that.implementation)
                 && Objects.equals(this.cacheEnabled, that.cacheEnabled)
-                && Objects.equals(this.storageStrategy, that.storageStrategy);
+                && Objects.equals(this.storageStrategy, that.storageStrategy)
+                && Objects.equals(this.compressionEnabled, that.compressionEnabled)
+                && Objects.equals(this.diskCacheEnabled, that.diskCacheEnabled);
         }
         return false;
     }
 
     @Override
     public final int hashCode() {
-        return Objects.hash(implementation, cacheEnabled, storageStrategy);
+        return Objects.hash(implementation, cacheEnabled, storageStrategy, compressionEnabled, diskCacheEnabled);
     }
 
     @Override
@@ -219,6 +250,8 @@ public class BlobStoreConfiguration {
             .add("implementation", implementation)
             .add("cacheEnabled", cacheEnabled)
             .add("storageStrategy", storageStrategy.name())
+            .add("compressionEnabled", compressionEnabled)
+            .add("diskCacheEnabled", diskCacheEnabled)
             .toString();
     }
 }
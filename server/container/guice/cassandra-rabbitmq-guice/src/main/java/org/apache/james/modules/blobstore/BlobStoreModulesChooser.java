@@ -19,44 +19,64 @@
 
 package org.apache.james.modules.blobstore;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 
+import javax.inject.Named;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.james.blob.api.BlobStore;
 import org.apache.james.blob.api.BlobStoreDAO;
+import org.apache.james.blob.cache.DiskCacheBlobStoreDAO;
+import org.apache.james.blob.cache.DiskCacheConfiguration;
 import org.apache.james.blob.cassandra.CassandraBlobStoreDAO;
 import org.apache.james.blob.cassandra.cache.CachedBlobStore;
+import org.apache.james.blob.compression.CompressedBlobStoreDAO;
+import org.apache.james.blob.compression.CompressionConfiguration;
 import org.apache.james.blob.objectstorage.aws.S3BlobStoreDAO;
 import org.apache.james.eventsourcing.Event;
 import org.apache.james.eventsourcing.eventstore.cassandra.dto.EventDTO;
 import org.apache.james.eventsourcing.eventstore.cassandra.dto.EventDTOModule;
+import org.apache.james.filesystem.api.FileSystem;
 import org.apache.james.lifecycle.api.StartUpCheck;
 import org.apache.james.modules.blobstore.validation.EventsourcingStorageStrategy;
 import org.apache.james.modules.blobstore.validation.StorageStrategyModule;
 import org.apache.james.modules.mailbox.CassandraBlobStoreDependenciesModule;
 import org.apache.james.modules.mailbox.CassandraBucketModule;
+import org.apache.james.modules.mailbox.ConfigurationComponent;
 import org.apache.james.modules.objectstorage.DefaultBucketModule;
 import org.apache.james.modules.objectstorage.S3BlobStoreModule;
 import org.apache.james.server.blob.deduplication.DeDuplicationBlobStore;
 import org.apache.james.server.blob.deduplication.PassThroughBlobStore;
 import org.apache.james.server.blob.deduplication.StorageStrategy;
+import org.apache.james.utils.PropertiesProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.AbstractModule;
 import com.google.inject.Module;
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
+import com.google.inject.Singleton;
 import com.google.inject.TypeLiteral;
 import com.google.inject.multibindings.Multibinder;
 import com.google.inject.name.Names;
 
 public class BlobStoreModulesChooser {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlobStoreModulesChooser.class);
+
     static class CassandraBlobStoreDAODeclarationModule extends AbstractModule {
         @Override
         protected void configure() {
             install(new CassandraBlobStoreDependenciesModule());
             install(new CassandraBucketModule());
 
-            bind(BlobStoreDAO.class).to(CassandraBlobStoreDAO.class);
+            bind(BlobStoreDAO.class).annotatedWith(Names.named(DiskCacheBlobStoreDAO.BACKEND)).to(CassandraBlobStoreDAO.class);
         }
     }
 
@@ -66,7 +86,64 @@ public class BlobStoreModulesChooser {
             install(new S3BlobStoreModule());
             install(new DefaultBucketModule());
 
-            bind(BlobStoreDAO.class).to(S3BlobStoreDAO.class);
+            bind(BlobStoreDAO.class).annotatedWith(Names.named(DiskCacheBlobStoreDAO.BACKEND)).to(S3BlobStoreDAO.class);
+        }
+    }
+
+    static class DiskCacheDisabledModule extends AbstractModule {
+        @Provides
+        @Named(CompressedBlobStoreDAO.BACKEND)
+        @Singleton
+        BlobStoreDAO provideBlobStoreDAO(@Named(DiskCacheBlobStoreDAO.BACKEND) BlobStoreDAO blobStoreDAO) {
+            return blobStoreDAO;
+        }
+    }
+
+    static class DiskCacheEnabledModule extends AbstractModule {
+        @Override
+        protected void configure() {
+            bind(DiskCacheBlobStoreDAO.class).in(Scopes.SINGLETON);
+            bind(BlobStoreDAO.class).annotatedWith(Names.named(CompressedBlobStoreDAO.BACKEND)).to(DiskCacheBlobStoreDAO.class);
+        }
+
+        @Provides
+        @Singleton
+        DiskCacheConfiguration providesDiskCacheConfiguration(PropertiesProvider propertiesProvider, FileSystem fileSystem) throws ConfigurationException, IOException {
+            try {
+                Configuration configuration = propertiesProvider.getConfigurations(ConfigurationComponent.NAMES);
+                Path directory = fileSystem.getFile(DiskCacheConfiguration.directoryLocation(configuration)).toPath();
+                return DiskCacheConfiguration.from(configuration, directory);
+            } catch (FileNotFoundException e) {
+                LOGGER.warn("Could not find " + ConfigurationComponent.NAME + " configuration file, using disk cache defaults");
+                return DiskCacheConfiguration.builder(fileSystem.getFile(DiskCacheConfiguration.DEFAULT_DIRECTORY_LOCATION).toPath())
+                    .build();
+            }
+        }
+    }
+
+    /**
+     * The decorator is bound even when compression is disabled: blobs compressed while it was enabled remain readable.
+     */
+    static class CompressionModule extends AbstractModule {
+        @Override
+        protected void configure() {
+            bind(CompressedBlobStoreDAO.class).in(Scopes.SINGLETON);
+            bind(BlobStoreDAO.class).to(CompressedBlobStoreDAO.class);
+        }
+
+        @Provides
+        @Singleton
+        CompressionConfiguration providesCompressionConfiguration(PropertiesProvider propertiesProvider, BlobStoreConfiguration blobStoreConfiguration) throws ConfigurationException {
+            if (!blobStoreConfiguration.compressionEnabled()) {
+                return CompressionConfiguration.DISABLED;
+            }
+            try {
+                Configuration configuration = propertiesProvider.getConfigurations(ConfigurationComponent.NAMES);
+                return CompressionConfiguration.from(configuration);
+            } catch (FileNotFoundException e) {
+                LOGGER.warn("Could not find " + ConfigurationComponent.NAME + " configuration file, using compression defaults");
+                return CompressionConfiguration.DEFAULT;
+            }
         }
     }
 
@@ -95,6 +172,8 @@ public class BlobStoreModulesChooser {
     public static List<Module> chooseModules(BlobStoreConfiguration choosingConfiguration) {
         return ImmutableList.<Module>builder()
             .add(chooseBlobStoreDAOModule(choosingConfiguration.getImplementation()))
+            .add(chooseDiskCacheModule(choosingConfiguration.diskCacheEnabled()))
+            .add(new CompressionModule())
             .add(chooseStoragePolicyModule(choosingConfiguration.storageStrategy()))
             .add(new StoragePolicyConfigurationSanityEnforcementModule(choosingConfiguration))
             .build();
@@ -111,6 +190,13 @@ public class BlobStoreModulesChooser {
         }
     }
 
+    private static Module chooseDiskCacheModule(boolean diskCacheEnabled) {
+        if (diskCacheEnabled) {
+            return new DiskCacheEnabledModule();
+        }
+        return new DiskCacheDisabledModule();
+    }
+
     private static Module chooseStoragePolicyModule(StorageStrategy storageStrategy) {
         switch (storageStrategy) {
             case DEDUPLICATION:
@@ -21,10 +21,12 @@ package org.apache.james.modules.event;
 
 import org.apache.james.backends.rabbitmq.SimpleConnectionPool;
 import org.apache.james.event.json.EventSerializer;
+import org.apache.james.event.json.EventSerializerExtension;
 import org.apache.james.mailbox.events.EventBus;
 import org.apache.james.mailbox.events.EventBusId;
 import org.apache.james.mailbox.events.KeyReconnectionHandler;
 import org.apache.james.mailbox.events.MailboxIdRegistrationKey;
+import org.apache.james.mailbox.events.QuotaCacheRegistrationKey;
 import org.apache.james.mailbox.events.RabbitMQEventBus;
 import org.apache.james.mailbox.events.RegistrationKey;
 import org.apache.james.mailbox.events.RetryBackoffConfiguration;
@@ -41,12 +43,14 @@ public class RabbitMQEventBusModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(EventSerializer.class).in(Scopes.SINGLETON);
+        Multibinder.newSetBinder(binder(), EventSerializerExtension.class);
 
         bind(RabbitMQEventBus.class).in(Scopes.SINGLETON);
         bind(EventBus.class).to(RabbitMQEventBus.class);
 
-        Multibinder.newSetBinder(binder(), RegistrationKey.Factory.class)
-            .addBinding().to(MailboxIdRegistrationKey.Factory.class);
+        Multibinder<RegistrationKey.Factory> registrationKeyFactories = Multibinder.newSetBinder(binder(), RegistrationKey.Factory.class);
+        registrationKeyFactories.addBinding().to(MailboxIdRegistrationKey.Factory.class);
+        registrationKeyFactories.addBinding().to(QuotaCacheRegistrationKey.Factory.class);
 
         bind(RetryBackoffConfiguration.class).toInstance(RetryBackoffConfiguration.DEFAULT);
         bind(EventBusId.class).toInstance(EventBusId.random());
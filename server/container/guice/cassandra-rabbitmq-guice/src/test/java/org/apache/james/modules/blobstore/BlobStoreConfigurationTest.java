@@ -246,6 +246,48 @@ class BlobStoreConfigurationTest {
             .isFalse();
     }
 
+    @Test
+    void compressionEnabledShouldBeTrueWhenSpecified() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("implementation", BlobStoreConfiguration.BlobStoreImplName.S3.getName());
+        configuration.addProperty("compression.enable", true);
+        configuration.addProperty("deduplication.enable", "true");
+
+        assertThat(BlobStoreConfiguration.from(configuration).compressionEnabled())
+            .isTrue();
+    }
+
+    @Test
+    void compressionEnabledShouldDefaultToFalse() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("implementation", BlobStoreConfiguration.BlobStoreImplName.S3.getName());
+        configuration.addProperty("deduplication.enable", "true");
+
+        assertThat(BlobStoreConfiguration.from(configuration).compressionEnabled())
+            .isFalse();
+    }
+
+    @Test
+    void diskCacheEnabledShouldBeTrueWhenSpecified() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("implementation", BlobStoreConfiguration.BlobStoreImplName.S3.getName());
+        configuration.addProperty("cache.disk.enable", true);
+        configuration.addProperty("deduplication.enable", "true");
+
+        assertThat(BlobStoreConfiguration.from(configuration).diskCacheEnabled())
+            .isTrue();
+    }
+
+    @Test
+    void diskCacheEnabledShouldDefaultToFalse() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty("implementation", BlobStoreConfiguration.BlobStoreImplName.S3.getName());
+        configuration.addProperty("deduplication.enable", "true");
+
+        assertThat(BlobStoreConfiguration.from(configuration).diskCacheEnabled())
+            .isFalse();
+    }
+
     @Test
     void storageStrategyShouldBePassthroughWhenDeduplicationDisabled() {
         PropertiesConfiguration configuration = new PropertiesConfiguration();
@@ -44,4 +44,44 @@ class BlobStoreModulesChooserTest {
             .first()
             .isInstanceOf(BlobStoreModulesChooser.CassandraBlobStoreDAODeclarationModule.class);
     }
+
+    @Test
+    void chooseModulesShouldReturnDiskCacheDisabledModuleByDefault() {
+        assertThat(BlobStoreModulesChooser.chooseModules(BlobStoreConfiguration.builder()
+                .s3()
+                .disableCache()
+                .passthrough()))
+            .hasAtLeastOneElementOfType(BlobStoreModulesChooser.DiskCacheDisabledModule.class)
+            .doesNotHaveAnyElementsOfTypes(BlobStoreModulesChooser.DiskCacheEnabledModule.class);
+    }
+
+    @Test
+    void chooseModulesShouldReturnDiskCacheEnabledModuleWhenDiskCacheEnabled() {
+        assertThat(BlobStoreModulesChooser.chooseModules(BlobStoreConfiguration.builder()
+                .s3()
+                .disableCache()
+                .passthrough()
+                .enableDiskCache()))
+            .hasAtLeastOneElementOfType(BlobStoreModulesChooser.DiskCacheEnabledModule.class)
+            .doesNotHaveAnyElementsOfTypes(BlobStoreModulesChooser.DiskCacheDisabledModule.class);
+    }
+
+    @Test
+    void chooseModulesShouldReturnCompressionModuleByDefault() {
+        assertThat(BlobStoreModulesChooser.chooseModules(BlobStoreConfiguration.builder()
+                .cassandra()
+                .disableCache()
+                .passthrough()))
+            .hasAtLeastOneElementOfType(BlobStoreModulesChooser.CompressionModule.class);
+    }
+
+    @Test
+    void chooseModulesShouldReturnCompressionModuleWhenCompressionEnabled() {
+        assertThat(BlobStoreModulesChooser.chooseModules(BlobStoreConfiguration.builder()
+                .s3()
+                .disableCache()
+                .deduplication()
+                .enableCompression()))
+            .hasAtLeastOneElementOfType(BlobStoreModulesChooser.CompressionModule.class);
+    }
 }
\ No newline at end of file
@@ -18,20 +18,30 @@
  ****************************************************************/
 package org.apache.james.modules;
 
+import java.io.FileNotFoundException;
+
+import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.james.mailbox.SystemMailboxesProvider;
 import org.apache.james.mailbox.acl.GroupMembershipResolver;
 import org.apache.james.mailbox.acl.MailboxACLResolver;
 import org.apache.james.mailbox.acl.SimpleGroupMembershipResolver;
 import org.apache.james.mailbox.acl.UnionMailboxACLResolver;
+import org.apache.james.mailbox.store.MessageContentBuffering;
 import org.apache.james.mailbox.store.SystemMailboxesProviderImpl;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.modules.mailbox.MessageContentBufferingConfiguration;
 import org.apache.james.modules.mailbox.PreDeletionHookModule;
 import org.apache.james.utils.GuiceProbe;
+import org.apache.james.utils.PropertiesProvider;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
+import com.google.inject.Singleton;
 import com.google.inject.multibindings.Multibinder;
 
 public class MailboxModule extends AbstractModule {
+    private static final String MAILBOX_CONFIGURATION_FILE_NAME = "mailbox";
 
     @Override
     protected void configure() {
@@ -53,4 +63,15 @@ public class MailboxModule extends AbstractModule {
         bind(SystemMailboxesProvider.class).to(SystemMailboxesProviderImpl.class);
     }
 
+    @Provides
+    @Singleton
+    MessageContentBuffering provideMessageContentBuffering(PropertiesProvider propertiesProvider, MetricFactory metricFactory) throws ConfigurationException {
+        try {
+            return MessageContentBufferingConfiguration.from(propertiesProvider.getConfiguration(MAILBOX_CONFIGURATION_FILE_NAME))
+                .toContentBuffering(metricFactory);
+        } catch (FileNotFoundException e) {
+            return MessageContentBufferingConfiguration.DEFAULT.toContentBuffering(metricFactory);
+        }
+    }
+
 }
@@ -0,0 +1,98 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.modules.mailbox;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.james.mailbox.store.MessageContentBuffering;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.james.util.Size;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+
+/**
+ * Reads the size under which appended messages are kept in memory rather than spilled to a temporary file.
+ */
+public class MessageContentBufferingConfiguration {
+    static final String IN_MEMORY_THRESHOLD_PROPERTY = "append.inMemoryThreshold";
+
+    public static final MessageContentBufferingConfiguration DEFAULT = new MessageContentBufferingConfiguration(MessageContentBuffering.DEFAULT_IN_MEMORY_THRESHOLD);
+
+    public static MessageContentBufferingConfiguration from(Configuration configuration) throws ConfigurationException {
+        Optional<String> inMemoryThreshold = Optional.ofNullable(configuration.getString(IN_MEMORY_THRESHOLD_PROPERTY, null));
+        if (inMemoryThreshold.isEmpty()) {
+            return DEFAULT;
+        }
+        return new MessageContentBufferingConfiguration(parseThreshold(inMemoryThreshold.get()));
+    }
+
+    private static int parseThreshold(String value) throws ConfigurationException {
+        long bytes;
+        try {
+            bytes = Size.parse(value).asBytes();
+        } catch (Exception e) {
+            throw new ConfigurationException("Invalid '" + IN_MEMORY_THRESHOLD_PROPERTY + "' size: " + value, e);
+        }
+        if (bytes < 0 || bytes > Integer.MAX_VALUE) {
+            throw new ConfigurationException("'" + IN_MEMORY_THRESHOLD_PROPERTY + "' needs to be positive and under 2G, got " + value);
+        }
+        return (int) bytes;
+    }
+
+    private final int inMemoryThreshold;
+
+    @VisibleForTesting
+    MessageContentBufferingConfiguration(int inMemoryThreshold) {
+        this.inMemoryThreshold = inMemoryThreshold;
+    }
+
+    public int getInMemoryThreshold() {
+        return inMemoryThreshold;
+    }
+
+    public MessageContentBuffering toContentBuffering(MetricFactory metricFactory) {
+        return new MessageContentBuffering(inMemoryThreshold, metricFactory);
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (o instanceof MessageContentBufferingConfiguration) {
+            MessageContentBufferingConfiguration that = (MessageContentBufferingConfiguration) o;
+
+            return Objects.equals(this.inMemoryThreshold, that.inMemoryThreshold);
+        }
+        return false;
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(inMemoryThreshold);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("inMemoryThreshold", inMemoryThreshold)
+            .toString();
+    }
+}
@@ -0,0 +1,77 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.modules.mailbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.james.mailbox.store.MessageContentBuffering;
+import org.junit.jupiter.api.Test;
+
+class MessageContentBufferingConfigurationTest {
+    @Test
+    void fromShouldReturnDefaultWhenEmpty() throws Exception {
+        assertThat(MessageContentBufferingConfiguration.from(new PropertiesConfiguration()))
+            .isEqualTo(MessageContentBufferingConfiguration.DEFAULT);
+    }
+
+    @Test
+    void defaultShouldKeepHundredKilobytesInMemory() {
+        assertThat(MessageContentBufferingConfiguration.DEFAULT.getInMemoryThreshold())
+            .isEqualTo(MessageContentBuffering.DEFAULT_IN_MEMORY_THRESHOLD);
+    }
+
+    @Test
+    void fromShouldParseSizeWithUnit() throws Exception {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty(MessageContentBufferingConfiguration.IN_MEMORY_THRESHOLD_PROPERTY, "1M");
+
+        assertThat(MessageContentBufferingConfiguration.from(configuration))
+            .isEqualTo(new MessageContentBufferingConfiguration(1024 * 1024));
+    }
+
+    @Test
+    void fromShouldAcceptZero() throws Exception {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty(MessageContentBufferingConfiguration.IN_MEMORY_THRESHOLD_PROPERTY, "0");
+
+        assertThat(MessageContentBufferingConfiguration.from(configuration))
+            .isEqualTo(new MessageContentBufferingConfiguration(0));
+    }
+
+    @Test
+    void fromShouldThrowWhenInvalidSize() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty(MessageContentBufferingConfiguration.IN_MEMORY_THRESHOLD_PROPERTY, "invalid");
+
+        assertThatThrownBy(() -> MessageContentBufferingConfiguration.from(configuration))
+            .isInstanceOf(ConfigurationException.class);
+    }
+
+    @Test
+    void fromShouldThrowWhenTooBig() {
+        PropertiesConfiguration configuration = new PropertiesConfiguration();
+        configuration.addProperty(MessageContentBufferingConfiguration.IN_MEMORY_THRESHOLD_PROPERTY, "3G");
+
+        assertThatThrownBy(() -> MessageContentBufferingConfiguration.from(configuration))
+            .isInstanceOf(ConfigurationException.class);
+    }
+}
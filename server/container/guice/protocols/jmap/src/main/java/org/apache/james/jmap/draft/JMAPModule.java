@@ -140,6 +140,7 @@ public class JMAPModule extends AbstractModule {
                 .enabled(configuration.getBoolean("enabled", true))
                 .port(Port.of(configuration.getInt("jmap.port", DEFAULT_JMAP_PORT)))
                 .enableEmailQueryView(Optional.ofNullable(configuration.getBoolean("view.email.query.enabled", null)))
+                .enableEmailQueryChanges(Optional.ofNullable(configuration.getBoolean("email.query.changes.enabled", null)))
                 .defaultVersion(Optional.ofNullable(configuration.getString("jmap.version.default", null))
                     .map(Version::of))
                 .build();
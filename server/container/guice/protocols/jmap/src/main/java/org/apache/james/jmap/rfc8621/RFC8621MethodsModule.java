@@ -25,8 +25,12 @@ import java.io.FileNotFoundException;
 
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.james.event.json.EventSerializerExtension;
 import org.apache.james.jmap.JMAPRoutesHandler;
 import org.apache.james.jmap.Version;
+import org.apache.james.jmap.change.AccountIdRegistrationKeyFactory;
+import org.apache.james.jmap.change.StateChangeEmitter;
+import org.apache.james.jmap.change.StateChangeEventSerializer;
 import org.apache.james.jmap.core.JmapRfc8621Configuration;
 import org.apache.james.jmap.http.Authenticator;
 import org.apache.james.jmap.http.BasicAuthenticationStrategy;
@@ -35,6 +39,7 @@ import org.apache.james.jmap.jwt.JWTAuthenticationStrategy;
 import org.apache.james.jmap.method.CoreEchoMethod;
 import org.apache.james.jmap.method.EmailChangesMethod;
 import org.apache.james.jmap.method.EmailGetMethod;
+import org.apache.james.jmap.method.EmailQueryChangesMethod;
 import org.apache.james.jmap.method.EmailQueryMethod;
 import org.apache.james.jmap.method.EmailSetMethod;
 import org.apache.james.jmap.method.EmailSubmissionSetMethod;
@@ -51,9 +56,14 @@ import org.apache.james.jmap.method.VacationResponseGetMethod;
 import org.apache.james.jmap.method.VacationResponseSetMethod;
 import org.apache.james.jmap.method.ZoneIdProvider;
 import org.apache.james.jmap.routes.DownloadRoutes;
+import org.apache.james.jmap.routes.EventSourceRoutes;
 import org.apache.james.jmap.routes.JMAPApiRoutes;
 import org.apache.james.jmap.routes.SessionRoutes;
 import org.apache.james.jmap.routes.UploadRoutes;
+import org.apache.james.jmap.routes.WebSocketRoutes;
+import org.apache.james.jmap.utils.search.EmailQueryCache;
+import org.apache.james.mailbox.events.MailboxListener;
+import org.apache.james.mailbox.events.RegistrationKey;
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.utils.InitializationOperation;
 import org.apache.james.utils.InitilizationOperationBuilder;
@@ -77,6 +87,7 @@ public class RFC8621MethodsModule extends AbstractModule {
         bind(ZoneIdProvider.class).to(SystemZoneIdProvider.class);
 
         bind(EmailSubmissionSetMethod.class).in(Scopes.SINGLETON);
+        bind(EmailQueryCache.class).in(Scopes.SINGLETON);
 
         Multibinder<Method> methods = Multibinder.newSetBinder(binder(), Method.class);
         methods.addBinding().to(CoreEchoMethod.class);
@@ -88,17 +99,30 @@ public class RFC8621MethodsModule extends AbstractModule {
         methods.addBinding().to(EmailSetMethod.class);
         methods.addBinding().to(EmailSubmissionSetMethod.class);
         methods.addBinding().to(EmailQueryMethod.class);
+        methods.addBinding().to(EmailQueryChangesMethod.class);
         methods.addBinding().to(EmailChangesMethod.class);
         methods.addBinding().to(VacationResponseGetMethod.class);
         methods.addBinding().to(VacationResponseSetMethod.class);
         methods.addBinding().to(IdentityGetMethod.class);
         methods.addBinding().to(ThreadChangesMethod.class);
         methods.addBinding().to(ThreadGetMethod.class);
+
+        bind(StateChangeEmitter.class).in(Scopes.SINGLETON);
+        Multibinder.newSetBinder(binder(), MailboxListener.ReactiveGroupMailboxListener.class)
+            .addBinding()
+            .to(StateChangeEmitter.class);
+        Multibinder.newSetBinder(binder(), EventSerializerExtension.class)
+            .addBinding()
+            .to(StateChangeEventSerializer.class);
+        Multibinder.newSetBinder(binder(), RegistrationKey.Factory.class)
+            .addBinding()
+            .to(AccountIdRegistrationKeyFactory.class);
     }
 
     @ProvidesIntoSet
-    JMAPRoutesHandler routesHandler(SessionRoutes sessionRoutes, JMAPApiRoutes jmapApiRoutes, DownloadRoutes downloadRoutes, UploadRoutes uploadRoutes) {
-        return new JMAPRoutesHandler(Version.RFC8621, jmapApiRoutes, sessionRoutes, downloadRoutes, uploadRoutes);
+    JMAPRoutesHandler routesHandler(SessionRoutes sessionRoutes, JMAPApiRoutes jmapApiRoutes, DownloadRoutes downloadRoutes, UploadRoutes uploadRoutes,
+                                    WebSocketRoutes webSocketRoutes, EventSourceRoutes eventSourceRoutes) {
+        return new JMAPRoutesHandler(Version.RFC8621, jmapApiRoutes, sessionRoutes, downloadRoutes, uploadRoutes, webSocketRoutes, eventSourceRoutes);
     }
 
     @Provides
@@ -31,6 +31,7 @@ import java.util.List;
 
 import javax.inject.Inject;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.core.Domain;
 import org.apache.james.dnsservice.api.DNSService;
@@ -39,6 +40,7 @@ import org.apache.james.domainlist.lib.AbstractDomainList;
 
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
+import com.google.common.annotations.VisibleForTesting;
 
 public class CassandraDomainList extends AbstractDomainList {
     private final CassandraAsyncExecutor executor;
@@ -48,15 +50,20 @@ public class CassandraDomainList extends AbstractDomainList {
     private final PreparedStatement removeStatement;
 
     @Inject
-    public CassandraDomainList(DNSService dnsService, Session session) {
+    public CassandraDomainList(DNSService dnsService, Session session, CassandraConfiguration cassandraConfiguration) {
         super(dnsService);
-        this.executor = new CassandraAsyncExecutor(session);
+        this.executor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         this.readAllStatement = prepareReadAllStatement(session);
         this.readStatement = prepareReadStatement(session);
         this.insertStatement = prepareInsertStatement(session);
         this.removeStatement = prepareRemoveStatement(session);
     }
 
+    @VisibleForTesting
+    public CassandraDomainList(DNSService dnsService, Session session) {
+        this(dnsService, session, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareRemoveStatement(Session session) {
         return session.prepare(delete()
             .from(TABLE_NAME)
@@ -32,12 +32,14 @@ import static org.apache.james.rrt.cassandra.tables.CassandraMappingsSourcesTabl
 
 import javax.inject.Inject;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.rrt.lib.Mapping;
 import org.apache.james.rrt.lib.MappingSource;
 
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
+import com.google.common.annotations.VisibleForTesting;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -50,14 +52,19 @@ public class CassandraMappingsSourcesDAO {
     private final PreparedStatement truncateStatement;
 
     @Inject
-    public CassandraMappingsSourcesDAO(Session session) {
-        this.executor = new CassandraAsyncExecutor(session);
+    public CassandraMappingsSourcesDAO(Session session, CassandraConfiguration cassandraConfiguration) {
+        this.executor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         this.insertStatement = prepareInsertStatement(session);
         this.deleteStatement = prepareDelete(session);
         this.retrieveSourcesStatement = prepareRetrieveSourcesStatement(session);
         this.truncateStatement = prepareTruncateStatement(session);
     }
 
+    @VisibleForTesting
+    public CassandraMappingsSourcesDAO(Session session) {
+        this(session, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareInsertStatement(Session session) {
         return session.prepare(insertInto(TABLE_NAME)
             .value(MAPPING_TYPE, bindMarker(MAPPING_TYPE))
@@ -34,6 +34,7 @@ import java.util.function.Predicate;
 import javax.inject.Inject;
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.backends.cassandra.utils.CassandraUtils;
 import org.apache.james.rrt.lib.Mapping;
@@ -43,6 +44,7 @@ import org.apache.james.rrt.lib.MappingsImpl;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
 import com.github.steveash.guavate.Guavate;
+import com.google.common.annotations.VisibleForTesting;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -56,8 +58,8 @@ public class CassandraRecipientRewriteTableDAO {
     private final PreparedStatement retrieveAllMappingsStatement;
 
     @Inject
-    public CassandraRecipientRewriteTableDAO(Session session, CassandraUtils cassandraUtils) {
-        this.executor = new CassandraAsyncExecutor(session);
+    public CassandraRecipientRewriteTableDAO(Session session, CassandraUtils cassandraUtils, CassandraConfiguration cassandraConfiguration) {
+        this.executor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         this.cassandraUtils = cassandraUtils;
         this.insertStatement = prepareInsertStatement(session);
         this.deleteStatement = prepareDelete(session);
@@ -65,6 +67,11 @@ public class CassandraRecipientRewriteTableDAO {
         this.retrieveAllMappingsStatement = prepareRetrieveAllMappingStatement(session);
     }
 
+    @VisibleForTesting
+    public CassandraRecipientRewriteTableDAO(Session session, CassandraUtils cassandraUtils) {
+        this(session, cassandraUtils, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareRetrieveAllMappingStatement(Session session) {
         return session.prepare(select(USER, DOMAIN, MAPPING)
             .from(TABLE_NAME));
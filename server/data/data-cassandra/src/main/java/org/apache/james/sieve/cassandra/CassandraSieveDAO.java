@@ -35,6 +35,7 @@ import static org.apache.james.sieve.cassandra.tables.CassandraSieveTable.USER_N
 
 import javax.inject.Inject;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.core.Username;
 import org.apache.james.sieve.cassandra.model.Script;
@@ -45,6 +46,7 @@ import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.querybuilder.Select;
+import com.google.common.annotations.VisibleForTesting;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -59,8 +61,8 @@ public class CassandraSieveDAO {
     private final PreparedStatement deleteScriptStatement;
 
     @Inject
-    public CassandraSieveDAO(Session session) {
-        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session);
+    public CassandraSieveDAO(Session session, CassandraConfiguration cassandraConfiguration) {
+        this.cassandraAsyncExecutor = new CassandraAsyncExecutor(session, cassandraConfiguration);
 
         insertScriptStatement = session.prepare(
             insertInto(TABLE_NAME)
@@ -90,6 +92,11 @@ public class CassandraSieveDAO {
                 .ifExists());
     }
 
+    @VisibleForTesting
+    public CassandraSieveDAO(Session session) {
+        this(session, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private Select.Where getScriptsQuery() {
         return select(SCRIPT_CONTENT, IS_ACTIVE, SCRIPT_NAME, SIZE)
             .from(TABLE_NAME)
@@ -37,6 +37,7 @@ import java.util.Optional;
 
 import javax.inject.Inject;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.core.Username;
 import org.apache.james.user.api.AlreadyExistInUsersRepositoryException;
@@ -47,6 +48,7 @@ import org.apache.james.user.lib.model.DefaultUser;
 
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.primitives.Ints;
 
@@ -62,8 +64,8 @@ public class CassandraUsersDAO implements UsersDAO {
     private final PreparedStatement insertStatement;
 
     @Inject
-    public CassandraUsersDAO(Session session) {
-        this.executor = new CassandraAsyncExecutor(session);
+    public CassandraUsersDAO(Session session, CassandraConfiguration cassandraConfiguration) {
+        this.executor = new CassandraAsyncExecutor(session, cassandraConfiguration);
         this.getUserStatement = prepareGetUserStatement(session);
         this.updateUserStatement = prepareUpdateUserStatement(session);
         this.removeUserStatement = prepareRemoveUserStatement(session);
@@ -77,6 +79,11 @@ public class CassandraUsersDAO implements UsersDAO {
             .ifNotExists());
     }
 
+    @VisibleForTesting
+    public CassandraUsersDAO(Session session) {
+        this(session, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareListStatement(Session session) {
         return session.prepare(select(NAME)
             .from(TABLE_NAME));
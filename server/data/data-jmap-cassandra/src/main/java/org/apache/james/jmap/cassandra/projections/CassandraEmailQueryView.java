@@ -22,8 +22,10 @@ package org.apache.james.jmap.cassandra.projections;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.bindMarker;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.desc;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.eq;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.gt;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.gte;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.insertInto;
+import static com.datastax.driver.core.querybuilder.QueryBuilder.lt;
 import static com.datastax.driver.core.querybuilder.QueryBuilder.select;
 import static org.apache.james.jmap.cassandra.projections.table.CassandraEmailQueryViewTable.DATE_LOOKUP_TABLE;
 import static org.apache.james.jmap.cassandra.projections.table.CassandraEmailQueryViewTable.MAILBOX_ID;
@@ -40,6 +42,7 @@ import java.util.Date;
 
 import javax.inject.Inject;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.jmap.api.projections.EmailQueryView;
 import org.apache.james.mailbox.cassandra.ids.CassandraId;
@@ -53,6 +56,7 @@ import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 
 import reactor.core.publisher.Flux;
@@ -66,6 +70,10 @@ public class CassandraEmailQueryView implements EmailQueryView {
     private final PreparedStatement listMailboxContentBySentAt;
     private final PreparedStatement listMailboxContentSinceSentAt;
     private final PreparedStatement listMailboxContentSinceReceivedAt;
+    private final PreparedStatement listMailboxContentBeforeSentAt;
+    private final PreparedStatement listSentAtTiesFromAnchor;
+    private final PreparedStatement listMailboxContentAfterSentAt;
+    private final PreparedStatement listSentAtTiesBeforeAnchor;
     private final PreparedStatement insertInLookupTable;
     private final PreparedStatement insertReceivedAt;
     private final PreparedStatement insertSentAt;
@@ -78,9 +86,9 @@ public class CassandraEmailQueryView implements EmailQueryView {
     private final PreparedStatement lookupDate;
 
     @Inject
-    public CassandraEmailQueryView(CassandraMessageId.Factory messageIdFactory, Session session) {
+    public CassandraEmailQueryView(CassandraMessageId.Factory messageIdFactory, Session session, CassandraConfiguration cassandraConfiguration) {
         this.messageIdFactory = messageIdFactory;
-        this.executor = new CassandraAsyncExecutor(session);
+        this.executor = new CassandraAsyncExecutor(session, cassandraConfiguration);
 
         listMailboxContentBySentAt = session.prepare(select()
             .from(TABLE_NAME_SENT_AT)
@@ -101,6 +109,33 @@ public class CassandraEmailQueryView implements EmailQueryView {
             .and(gte(RECEIVED_AT, bindMarker(RECEIVED_AT)))
             .orderBy(desc(RECEIVED_AT)));
 
+        listMailboxContentBeforeSentAt = session.prepare(select()
+            .from(TABLE_NAME_SENT_AT)
+            .where(eq(MAILBOX_ID, bindMarker(MAILBOX_ID)))
+            .and(lt(SENT_AT, bindMarker(SENT_AT)))
+            .orderBy(desc(SENT_AT))
+            .limit(bindMarker(LIMIT_MARKER)));
+
+        listSentAtTiesFromAnchor = session.prepare(select()
+            .from(TABLE_NAME_SENT_AT)
+            .where(eq(MAILBOX_ID, bindMarker(MAILBOX_ID)))
+            .and(eq(SENT_AT, bindMarker(SENT_AT)))
+            .and(gte(MESSAGE_ID, bindMarker(MESSAGE_ID)))
+            .limit(bindMarker(LIMIT_MARKER)));
+
+        listMailboxContentAfterSentAt = session.prepare(select(MESSAGE_ID)
+            .from(TABLE_NAME_SENT_AT)
+            .where(eq(MAILBOX_ID, bindMarker(MAILBOX_ID)))
+            .and(gt(SENT_AT, bindMarker(SENT_AT)))
+            .limit(bindMarker(LIMIT_MARKER)));
+
+        listSentAtTiesBeforeAnchor = session.prepare(select(MESSAGE_ID)
+            .from(TABLE_NAME_SENT_AT)
+            .where(eq(MAILBOX_ID, bindMarker(MAILBOX_ID)))
+            .and(eq(SENT_AT, bindMarker(SENT_AT)))
+            .and(lt(MESSAGE_ID, bindMarker(MESSAGE_ID)))
+            .limit(bindMarker(LIMIT_MARKER)));
+
         insertInLookupTable = session.prepare(insertInto(DATE_LOOKUP_TABLE)
             .value(MAILBOX_ID, bindMarker(MAILBOX_ID))
             .value(MESSAGE_ID, bindMarker(MESSAGE_ID))
@@ -152,6 +187,11 @@ public class CassandraEmailQueryView implements EmailQueryView {
             .and(eq(MESSAGE_ID, bindMarker(MESSAGE_ID))));
     }
 
+    @VisibleForTesting
+    public CassandraEmailQueryView(CassandraMessageId.Factory messageIdFactory, Session session) {
+        this(messageIdFactory, session, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     @Override
     public Flux<MessageId> listMailboxContent(MailboxId mailboxId, Limit limit) {
         Preconditions.checkArgument(!limit.isUnlimited(), "Limit should be defined");
@@ -201,6 +241,68 @@ public class CassandraEmailQueryView implements EmailQueryView {
             .map(row -> messageIdFactory.of(row.getUUID(MESSAGE_ID)));
     }
 
+    /**
+     * Within the sentAt table, messages sharing the same sentAt are ordered by messageId. Hence, the anchor is
+     * followed by its sentAt ties having a greater messageId, then by messages sent earlier. Both are clustering key slices.
+     */
+    @Override
+    public Flux<MessageId> listMailboxContentFromAnchor(MailboxId mailboxId, MessageId anchor, Limit limit) {
+        Preconditions.checkArgument(!limit.isUnlimited(), "Limit should be defined");
+
+        CassandraMessageId cassandraMessageId = (CassandraMessageId) anchor;
+        CassandraId cassandraId = (CassandraId) mailboxId;
+        int limitValue = limit.getLimit().get();
+
+        return lookupSentAt(cassandraId, cassandraMessageId)
+            .flatMapMany(sentAt -> Flux.concat(
+                executor.executeRows(listSentAtTiesFromAnchor.bind()
+                    .setUUID(MAILBOX_ID, cassandraId.asUuid())
+                    .setTimestamp(SENT_AT, sentAt)
+                    .setUUID(MESSAGE_ID, cassandraMessageId.get())
+                    .setInt(LIMIT_MARKER, limitValue)),
+                executor.executeRows(listMailboxContentBeforeSentAt.bind()
+                    .setUUID(MAILBOX_ID, cassandraId.asUuid())
+                    .setTimestamp(SENT_AT, sentAt)
+                    .setInt(LIMIT_MARKER, limitValue))))
+            .<MessageId>map(row -> messageIdFactory.of(row.getUUID(MESSAGE_ID)))
+            .take(limitValue);
+    }
+
+    /**
+     * Reads the messages preceding the anchor, rather than counting them, so that at most {@code limit} rows are
+     * read whatever the position of the anchor.
+     */
+    @Override
+    public Mono<Long> positionOf(MailboxId mailboxId, MessageId anchor, Limit limit) {
+        Preconditions.checkArgument(!limit.isUnlimited(), "Limit should be defined");
+
+        CassandraMessageId cassandraMessageId = (CassandraMessageId) anchor;
+        CassandraId cassandraId = (CassandraId) mailboxId;
+        int limitValue = limit.getLimit().get();
+
+        return lookupSentAt(cassandraId, cassandraMessageId)
+            .flatMap(sentAt -> Flux.concat(
+                executor.executeRows(listMailboxContentAfterSentAt.bind()
+                    .setUUID(MAILBOX_ID, cassandraId.asUuid())
+                    .setTimestamp(SENT_AT, sentAt)
+                    .setInt(LIMIT_MARKER, limitValue)),
+                executor.executeRows(listSentAtTiesBeforeAnchor.bind()
+                    .setUUID(MAILBOX_ID, cassandraId.asUuid())
+                    .setTimestamp(SENT_AT, sentAt)
+                    .setUUID(MESSAGE_ID, cassandraMessageId.get())
+                    .setInt(LIMIT_MARKER, limitValue)))
+                .take(limitValue)
+                .count())
+            .filter(position -> position < limitValue);
+    }
+
+    private Mono<Date> lookupSentAt(CassandraId cassandraId, CassandraMessageId messageId) {
+        return executor.executeSingleRow(lookupDate.bind()
+                .setUUID(MAILBOX_ID, cassandraId.asUuid())
+                .setUUID(MESSAGE_ID, messageId.get()))
+            .map(row -> row.getTimestamp(SENT_AT));
+    }
+
     @Override
     public Mono<Void> delete(MailboxId mailboxId, MessageId messageId) {
         CassandraMessageId cassandraMessageId = (CassandraMessageId) messageId;
@@ -139,6 +139,23 @@ public interface EmailQueryView {
      */
     Flux<MessageId> listMailboxContentSinceSentAt(MailboxId mailboxId, ZonedDateTime since, Limit limit);
 
+    /**
+     * Anchor based paging for {@link #listMailboxContent(MailboxId, Limit)}: the messages preceding the anchor are
+     * not read.
+     *
+     * @return messageIds of the messages in this mailbox, sorted by sentAt, starting with the anchor. Empty if the
+     * anchor is not part of this mailbox.
+     */
+    Flux<MessageId> listMailboxContentFromAnchor(MailboxId mailboxId, MessageId anchor, Limit limit);
+
+    /**
+     * Only the messages preceding the anchor are read, at most {@code limit} of them.
+     *
+     * @return the position of the anchor within the messages of this mailbox, sorted by sentAt. Empty if the
+     * anchor is not part of this mailbox, or is not among its first {@code limit} messages.
+     */
+    Mono<Long> positionOf(MailboxId mailboxId, MessageId anchor, Limit limit);
+
     Mono<Void> delete(MailboxId mailboxId, MessageId messageId);
 
     Mono<Void> delete(MailboxId mailboxId);
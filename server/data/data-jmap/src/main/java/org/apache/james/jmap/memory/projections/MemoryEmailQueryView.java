@@ -36,8 +36,12 @@ import com.google.common.collect.Tables;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
 public class MemoryEmailQueryView implements EmailQueryView {
+    private static final Comparator<Entry> SENT_AT_DESCENDING = Comparator.comparing(Entry::getSentAt).reversed()
+        .thenComparing(entry -> entry.getMessageId().serialize());
+
     private final Table<MailboxId, MessageId, Entry> entries;
 
     @Inject
@@ -50,11 +54,36 @@ public class MemoryEmailQueryView implements EmailQueryView {
         Preconditions.checkArgument(!limit.isUnlimited(), "Limit should be defined");
 
         return Flux.fromIterable(entries.row(mailboxId).values())
-            .sort(Comparator.comparing(Entry::getSentAt).reversed())
+            .sort(SENT_AT_DESCENDING)
             .map(Entry::getMessageId)
             .take(limit.getLimit().get());
     }
 
+    @Override
+    public Flux<MessageId> listMailboxContentFromAnchor(MailboxId mailboxId, MessageId anchor, Limit limit) {
+        Preconditions.checkArgument(!limit.isUnlimited(), "Limit should be defined");
+
+        return Flux.fromIterable(entries.row(mailboxId).values())
+            .sort(SENT_AT_DESCENDING)
+            .map(Entry::getMessageId)
+            .skipUntil(anchor::equals)
+            .take(limit.getLimit().get());
+    }
+
+    @Override
+    public Mono<Long> positionOf(MailboxId mailboxId, MessageId anchor, Limit limit) {
+        Preconditions.checkArgument(!limit.isUnlimited(), "Limit should be defined");
+
+        return Flux.fromIterable(entries.row(mailboxId).values())
+            .sort(SENT_AT_DESCENDING)
+            .map(Entry::getMessageId)
+            .take(limit.getLimit().get())
+            .index()
+            .filter(indexedMessageId -> indexedMessageId.getT2().equals(anchor))
+            .map(Tuple2::getT1)
+            .next();
+    }
+
     @Override
     public Flux<MessageId> listMailboxContentSinceSentAt(MailboxId mailboxId, ZonedDateTime since, Limit limit) {
         Preconditions.checkArgument(!limit.isUnlimited(), "Limit should be defined");
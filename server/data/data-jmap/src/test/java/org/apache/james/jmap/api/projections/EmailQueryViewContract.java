@@ -24,6 +24,7 @@ import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 
 import org.apache.james.mailbox.model.MailboxId;
 import org.apache.james.mailbox.model.MessageId;
@@ -254,4 +255,111 @@ public interface EmailQueryViewContract {
         assertThatThrownBy(() -> testee().listMailboxContentSinceReceivedAt(mailboxId1(), DATE_3, Limit.unlimited()).blockLast())
             .isInstanceOf(IllegalArgumentException.class);
     }
+
+    @Test
+    default void listMailboxContentFromAnchorShouldStartWithTheAnchor() {
+        testee().save(mailboxId1(), DATE_1, DATE_2, messageId1()).block();
+        testee().save(mailboxId1(), DATE_3, DATE_4, messageId2()).block();
+        testee().save(mailboxId1(), DATE_2, DATE_6, messageId3()).block();
+
+        assertThat(testee().listMailboxContentFromAnchor(mailboxId1(), messageId3(), Limit.limit(12)).collectList().block())
+            .containsExactly(messageId3(), messageId1());
+    }
+
+    @Test
+    default void listMailboxContentFromAnchorShouldApplyLimit() {
+        testee().save(mailboxId1(), DATE_1, DATE_2, messageId1()).block();
+        testee().save(mailboxId1(), DATE_3, DATE_4, messageId2()).block();
+        testee().save(mailboxId1(), DATE_2, DATE_6, messageId3()).block();
+
+        assertThat(testee().listMailboxContentFromAnchor(mailboxId1(), messageId2(), Limit.limit(2)).collectList().block())
+            .containsExactly(messageId2(), messageId3());
+    }
+
+    @Test
+    default void listMailboxContentFromAnchorShouldReturnEmptyWhenAnchorNotFound() {
+        testee().save(mailboxId1(), DATE_1, DATE_2, messageId1()).block();
+        testee().save(mailboxId1(), DATE_3, DATE_4, messageId2()).block();
+
+        assertThat(testee().listMailboxContentFromAnchor(mailboxId1(), messageId3(), Limit.limit(12)).collectList().block())
+            .isEmpty();
+    }
+
+    @Test
+    default void listMailboxContentFromAnchorShouldBeConsistentWithListMailboxContentWhenDatesAreDuplicated() {
+        testee().save(mailboxId1(), DATE_3, DATE_2, messageId1()).block();
+        testee().save(mailboxId1(), DATE_1, DATE_2, messageId2()).block();
+        testee().save(mailboxId1(), DATE_1, DATE_2, messageId3()).block();
+        testee().save(mailboxId1(), DATE_1, DATE_2, messageId4()).block();
+
+        List<MessageId> content = testee().listMailboxContent(mailboxId1(), Limit.limit(12)).collectList().block();
+
+        assertThat(testee().listMailboxContentFromAnchor(mailboxId1(), content.get(2), Limit.limit(12)).collectList().block())
+            .containsExactlyElementsOf(content.subList(2, 4));
+    }
+
+    @Test
+    default void listMailboxContentFromAnchorShouldNotReturnDeletedContent() {
+        testee().save(mailboxId1(), DATE_1, DATE_2, messageId1()).block();
+        testee().save(mailboxId1(), DATE_3, DATE_4, messageId2()).block();
+        testee().save(mailboxId1(), DATE_2, DATE_6, messageId3()).block();
+
+        testee().delete(mailboxId1(), messageId3()).block();
+
+        assertThat(testee().listMailboxContentFromAnchor(mailboxId1(), messageId2(), Limit.limit(12)).collectList().block())
+            .containsExactly(messageId2(), messageId1());
+    }
+
+    @Test
+    default void listMailboxContentFromAnchorShouldThrowOnUndefinedLimit() {
+        assertThatThrownBy(() -> testee().listMailboxContentFromAnchor(mailboxId1(), messageId1(), Limit.unlimited()).blockLast())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    default void positionOfShouldReturnTheIndexOfTheAnchor() {
+        testee().save(mailboxId1(), DATE_1, DATE_2, messageId1()).block();
+        testee().save(mailboxId1(), DATE_3, DATE_4, messageId2()).block();
+        testee().save(mailboxId1(), DATE_2, DATE_6, messageId3()).block();
+
+        assertThat(testee().positionOf(mailboxId1(), messageId1(), Limit.limit(12)).block())
+            .isEqualTo(2L);
+    }
+
+    @Test
+    default void positionOfShouldReturnEmptyWhenAnchorNotFound() {
+        testee().save(mailboxId1(), DATE_1, DATE_2, messageId1()).block();
+
+        assertThat(testee().positionOf(mailboxId1(), messageId2(), Limit.limit(12)).blockOptional())
+            .isEmpty();
+    }
+
+    @Test
+    default void positionOfShouldReturnEmptyWhenAnchorIsBeyondTheLimit() {
+        testee().save(mailboxId1(), DATE_1, DATE_2, messageId1()).block();
+        testee().save(mailboxId1(), DATE_3, DATE_4, messageId2()).block();
+        testee().save(mailboxId1(), DATE_2, DATE_6, messageId3()).block();
+
+        assertThat(testee().positionOf(mailboxId1(), messageId1(), Limit.limit(2)).blockOptional())
+            .isEmpty();
+    }
+
+    @Test
+    default void positionOfShouldThrowOnUndefinedLimit() {
+        assertThatThrownBy(() -> testee().positionOf(mailboxId1(), messageId1(), Limit.unlimited()).block())
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    default void positionOfShouldBeConsistentWithListMailboxContentWhenDatesAreDuplicated() {
+        testee().save(mailboxId1(), DATE_3, DATE_2, messageId1()).block();
+        testee().save(mailboxId1(), DATE_1, DATE_2, messageId2()).block();
+        testee().save(mailboxId1(), DATE_1, DATE_2, messageId3()).block();
+        testee().save(mailboxId1(), DATE_1, DATE_2, messageId4()).block();
+
+        List<MessageId> content = testee().listMailboxContent(mailboxId1(), Limit.limit(12)).collectList().block();
+
+        assertThat(testee().positionOf(mailboxId1(), content.get(2), Limit.limit(12)).block())
+            .isEqualTo(2L);
+    }
 }
@@ -0,0 +1,121 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.user.ldap;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.InterruptedNamingException;
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.ldap.LdapContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A fixed size pool of {@link LdapContext}.
+ *
+ * JNDI contexts are not thread safe: sharing a single one serializes every search. Each operation borrows a context
+ * of its own, hence up to the pool size searches run concurrently.
+ *
+ * Closing the pool closes idle contexts right away. Borrowed contexts are closed when released, and waiting or later
+ * borrowers fail.
+ */
+public class LdapContextPool implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LdapContextPool.class);
+    private static final long CLOSED_CHECK_INTERVAL_MILLIS = 100;
+
+    @FunctionalInterface
+    public interface LdapContextFactory {
+        LdapContext create() throws NamingException;
+    }
+
+    @FunctionalInterface
+    public interface LdapOperation<T> {
+        T execute(LdapContext ldapContext) throws NamingException;
+    }
+
+    private final BlockingQueue<LdapContext> contexts;
+    private volatile boolean closed;
+
+    public LdapContextPool(int size, LdapContextFactory factory) throws NamingException {
+        Preconditions.checkArgument(size > 0, "'size' should be strictly positive");
+
+        this.contexts = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            contexts.add(factory.create());
+        }
+        this.closed = false;
+    }
+
+    public <T> T execute(LdapOperation<T> operation) throws NamingException {
+        LdapContext ldapContext = borrow();
+        try {
+            return operation.execute(ldapContext);
+        } finally {
+            release(ldapContext);
+        }
+    }
+
+    private LdapContext borrow() throws NamingException {
+        try {
+            while (!closed) {
+                LdapContext ldapContext = contexts.poll(CLOSED_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (ldapContext != null) {
+                    return ldapContext;
+                }
+            }
+            throw new ServiceUnavailableException("The LDAP context pool is closed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedNamingException("Interrupted while waiting for an LDAP context");
+        }
+    }
+
+    private void release(LdapContext ldapContext) {
+        contexts.add(ldapContext);
+        // The pool may have been closed while the context was borrowed
+        if (closed) {
+            closeIdleContexts();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        closeIdleContexts();
+    }
+
+    private void closeIdleContexts() {
+        LdapContext ldapContext = contexts.poll();
+        while (ldapContext != null) {
+            try {
+                ldapContext.close();
+            } catch (NamingException e) {
+                LOGGER.warn("Failed to close LDAP context", e);
+            }
+            ldapContext = contexts.poll();
+        }
+    }
+}
@@ -19,6 +19,8 @@
 
 package org.apache.james.user.ldap;
 
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -26,6 +28,7 @@ import org.apache.commons.configuration2.HierarchicalConfiguration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.james.core.Username;
+import org.apache.james.util.DurationParser;
 
 import com.google.common.base.Preconditions;
 
@@ -39,6 +42,9 @@ public class LdapRepositoryConfiguration {
     private static final ReadOnlyLDAPGroupRestriction NO_RESTRICTION = new ReadOnlyLDAPGroupRestriction(null);
     private static final String NO_FILTER = null;
     private static final Optional<String> NO_ADMINISTRATOR_ID = Optional.empty();
+    private static final int DEFAULT_POOL_SIZE = 4;
+    private static final Duration DEFAULT_LOOKUP_CACHE_TTL = Duration.ofMinutes(1);
+    private static final Duration NO_VERIFIED_CREDENTIALS_CACHE = Duration.ZERO;
 
     public static class Builder {
         private Optional<String> ldapHost;
@@ -51,6 +57,9 @@ public class LdapRepositoryConfiguration {
         private Optional<Long> retryStartInterval;
         private Optional<Long> retryMaxInterval;
         private Optional<Integer> scale;
+        private Optional<Integer> poolSize;
+        private Optional<Duration> lookupCacheTtl;
+        private Optional<Duration> verifiedCredentialsCacheTtl;
 
         public Builder() {
             ldapHost = Optional.empty();
@@ -63,6 +72,9 @@ public class LdapRepositoryConfiguration {
             retryStartInterval = Optional.empty();
             retryMaxInterval = Optional.empty();
             scale = Optional.empty();
+            poolSize = Optional.empty();
+            lookupCacheTtl = Optional.empty();
+            verifiedCredentialsCacheTtl = Optional.empty();
         }
 
         public Builder ldapHost(String ldapHost) {
@@ -115,6 +127,21 @@ public class LdapRepositoryConfiguration {
             return this;
         }
 
+        public Builder poolSize(int poolSize) {
+            this.poolSize = Optional.of(poolSize);
+            return this;
+        }
+
+        public Builder lookupCacheTtl(Duration lookupCacheTtl) {
+            this.lookupCacheTtl = Optional.of(lookupCacheTtl);
+            return this;
+        }
+
+        public Builder verifiedCredentialsCacheTtl(Duration verifiedCredentialsCacheTtl) {
+            this.verifiedCredentialsCacheTtl = Optional.of(verifiedCredentialsCacheTtl);
+            return this;
+        }
+
         public LdapRepositoryConfiguration build() throws ConfigurationException {
             Preconditions.checkState(ldapHost.isPresent(), "'ldapHost' is mandatory");
             Preconditions.checkState(principal.isPresent(), "'principal' is mandatory");
@@ -144,7 +171,10 @@ public class LdapRepositoryConfiguration {
                 scale.get(),
                 NO_RESTRICTION,
                 NO_FILTER,
-                NO_ADMINISTRATOR_ID);
+                NO_ADMINISTRATOR_ID,
+                poolSize.orElse(DEFAULT_POOL_SIZE),
+                lookupCacheTtl.orElse(DEFAULT_LOOKUP_CACHE_TTL),
+                verifiedCredentialsCacheTtl.orElse(NO_VERIFIED_CREDENTIALS_CACHE));
         }
     }
 
@@ -186,6 +216,17 @@ public class LdapRepositoryConfiguration {
 
         Optional<String> administratorId = Optional.ofNullable(configuration.getString("[@administratorId]"));
 
+        // Number of LDAP contexts used concurrently for searches
+        int poolSize = configuration.getInt("[@poolSize]", DEFAULT_POOL_SIZE);
+        // Time during which user and group membership lookups are cached
+        Duration lookupCacheTtl = Optional.ofNullable(configuration.getString("[@lookupCacheTtl]"))
+            .map(value -> DurationParser.parse(value, ChronoUnit.SECONDS))
+            .orElse(DEFAULT_LOOKUP_CACHE_TTL);
+        // Time during which successfully verified credentials are cached. Disabled by default
+        Duration verifiedCredentialsCacheTtl = Optional.ofNullable(configuration.getString("[@verifiedCredentialsCacheTtl]"))
+            .map(value -> DurationParser.parse(value, ChronoUnit.SECONDS))
+            .orElse(NO_VERIFIED_CREDENTIALS_CACHE);
+
         return new LdapRepositoryConfiguration(
             ldapHost,
             principal,
@@ -203,7 +244,10 @@ public class LdapRepositoryConfiguration {
             scale,
             restriction,
             filter,
-            administratorId);
+            administratorId,
+            poolSize,
+            lookupCacheTtl,
+            verifiedCredentialsCacheTtl);
     }
 
     /**
@@ -289,11 +333,21 @@ public class LdapRepositoryConfiguration {
      */
     private final Optional<Username> administratorId;
 
+    // Number of LDAP contexts, allowing as many concurrent searches
+    private final int poolSize;
+
+    // Time during which user and group membership lookups are cached. Zero disables caching
+    private final Duration lookupCacheTtl;
+
+    // Time during which successfully verified credentials are cached, as salted hashes. Zero disables caching
+    private final Duration verifiedCredentialsCacheTtl;
+
     private LdapRepositoryConfiguration(String ldapHost, String principal, String credentials, String userBase, String userIdAttribute,
                                        String userObjectClass, boolean useConnectionPool, int connectionTimeout, int readTimeout,
                                        int maxRetries, boolean supportsVirtualHosting, long retryStartInterval, long retryMaxInterval,
                                        int scale, ReadOnlyLDAPGroupRestriction restriction, String filter,
-                                       Optional<String> administratorId) throws ConfigurationException {
+                                       Optional<String> administratorId, int poolSize, Duration lookupCacheTtl,
+                                       Duration verifiedCredentialsCacheTtl) throws ConfigurationException {
         this.ldapHost = ldapHost;
         this.principal = principal;
         this.credentials = credentials;
@@ -311,6 +365,9 @@ public class LdapRepositoryConfiguration {
         this.restriction = restriction;
         this.filter = filter;
         this.administratorId = administratorId.map(Username::of);
+        this.poolSize = poolSize;
+        this.lookupCacheTtl = lookupCacheTtl;
+        this.verifiedCredentialsCacheTtl = verifiedCredentialsCacheTtl;
 
         checkState();
     }
@@ -325,6 +382,15 @@ public class LdapRepositoryConfiguration {
         if (userObjectClass == null) {
             throw new ConfigurationException("[@userObjectClass] is mandatory");
         }
+        if (poolSize < 1) {
+            throw new ConfigurationException("[@poolSize] should be strictly positive");
+        }
+        if (lookupCacheTtl.isNegative()) {
+            throw new ConfigurationException("[@lookupCacheTtl] should not be negative");
+        }
+        if (verifiedCredentialsCacheTtl.isNegative()) {
+            throw new ConfigurationException("[@verifiedCredentialsCacheTtl] should not be negative");
+        }
     }
 
     public String getLdapHost() {
@@ -395,6 +461,18 @@ public class LdapRepositoryConfiguration {
         return administratorId;
     }
 
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public Duration getLookupCacheTtl() {
+        return lookupCacheTtl;
+    }
+
+    public Duration getVerifiedCredentialsCacheTtl() {
+        return verifiedCredentialsCacheTtl;
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (o instanceof LdapRepositoryConfiguration) {
@@ -416,7 +494,10 @@ public class LdapRepositoryConfiguration {
                 && Objects.equals(this.userObjectClass, that.userObjectClass)
                 && Objects.equals(this.restriction, that.restriction)
                 && Objects.equals(this.filter, that.filter)
-                && Objects.equals(this.administratorId, that.administratorId);
+                && Objects.equals(this.administratorId, that.administratorId)
+                && Objects.equals(this.poolSize, that.poolSize)
+                && Objects.equals(this.lookupCacheTtl, that.lookupCacheTtl)
+                && Objects.equals(this.verifiedCredentialsCacheTtl, that.verifiedCredentialsCacheTtl);
         }
         return false;
     }
@@ -425,6 +506,6 @@ public class LdapRepositoryConfiguration {
     public final int hashCode() {
         return Objects.hash(ldapHost, principal, credentials, userBase, userIdAttribute, userObjectClass, useConnectionPool,
             connectionTimeout, readTimeout, maxRetries, supportsVirtualHosting, retryStartInterval, retryMaxInterval, scale,
-            restriction, filter, administratorId);
+            restriction, filter, administratorId, poolSize, lookupCacheTtl, verifiedCredentialsCacheTtl);
     }
 }
@@ -63,10 +63,15 @@ public class ReadOnlyLDAPUser implements User, Serializable {
     private String userDN;
 
     /**
-     * The context for the LDAP server from which to retrieve the
-     * user's details.
+     * Provides the contexts for the LDAP server against which the user
+     * is authenticated.
      */
-    private LdapContext ldapContext = null;
+    private LdapContextPool.LdapContextFactory bindContextFactory = null;
+
+    /**
+     * Successfully verified credentials, sparing LDAP binds.
+     */
+    private VerifiedCredentialsCache verifiedCredentialsCache = VerifiedCredentialsCache.disabled();
 
     /**
      * Creates a new instance of ReadOnlyLDAPUser.
@@ -95,10 +100,20 @@ public class ReadOnlyLDAPUser implements User, Serializable {
      * @throws NamingException 
      */
     public ReadOnlyLDAPUser(Username userName, String userDN, LdapContext ldapContext) {
+        this(userName, userDN, () -> ldapContext.newInstance(null), VerifiedCredentialsCache.disabled());
+    }
+
+    /**
+     * @param bindContextFactory
+     *            Creates a context, dedicated to a single password verification,
+     *            for the LDAP server on which the user details are held.
+     */
+    public ReadOnlyLDAPUser(Username userName, String userDN, LdapContextPool.LdapContextFactory bindContextFactory, VerifiedCredentialsCache verifiedCredentialsCache) {
         this();
         this.userName = userName;
         this.userDN = userDN;
-        this.ldapContext = ldapContext;
+        this.bindContextFactory = bindContextFactory;
+        this.verifiedCredentialsCache = verifiedCredentialsCache;
     }
 
     /**
@@ -139,10 +154,23 @@ public class ReadOnlyLDAPUser implements User, Serializable {
      */
     @Override
     public boolean verifyPassword(String password) {
+        if (verifiedCredentialsCache.isVerified(userDN, password)) {
+            return true;
+        }
+        boolean result = bind(password);
+        if (result) {
+            verifiedCredentialsCache.verified(userDN, password);
+        } else {
+            verifiedCredentialsCache.invalidate(userDN);
+        }
+        return result;
+    }
+
+    private boolean bind(String password) {
         boolean result = false;
         LdapContext ldapContext = null;
         try {
-            ldapContext = this.ldapContext.newInstance(null);
+            ldapContext = bindContextFactory.create();
             ldapContext.addToEnvironment(Context.SECURITY_AUTHENTICATION,
                     LdapConstants.SECURITY_AUTHENTICATION_SIMPLE);
             ldapContext.addToEnvironment(Context.SECURITY_PRINCIPAL, userDN);
@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.naming.Context;
@@ -47,6 +48,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.directory.api.ldap.model.filter.FilterEncoder;
 import org.apache.james.core.Username;
 import org.apache.james.lifecycle.api.Configurable;
+import org.apache.james.metrics.api.GaugeRegistry;
+import org.apache.james.metrics.api.NoopGaugeRegistry;
 import org.apache.james.user.api.UsersRepositoryException;
 import org.apache.james.user.api.model.User;
 import org.apache.james.user.ldap.api.LdapConstants;
@@ -60,6 +63,8 @@ import org.slf4j.LoggerFactory;
 import com.github.fge.lambdas.Throwing;
 import com.github.steveash.guavate.Guavate;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 public class ReadOnlyLDAPUsersDAO implements UsersDAO, Configurable {
     private static final Logger LOGGER = LoggerFactory.getLogger(ReadOnlyLDAPUsersDAO.class);
@@ -72,20 +77,32 @@ public class ReadOnlyLDAPUsersDAO implements UsersDAO, Configurable {
     private static final String PROPERTY_NAME_CONNECT_TIMEOUT = "com.sun.jndi.ldap.connect.timeout";
     private static final String PROPERTY_NAME_READ_TIMEOUT = "com.sun.jndi.ldap.read.timeout";
 
+    private static final long USER_CACHE_MAXIMUM_SIZE = 10000;
+    private static final String GROUP_MEMBERSHIP_KEY = "groupMembership";
+
     /**
-     * The context for the LDAP server. This is the connection that is built
+     * The contexts for the LDAP server. These are the connections that are built
      * from the configuration attributes &quot;ldapHost&quot;,
      * &quot;principal&quot; and &quot;credentials&quot;.
      */
-    private LdapContext ldapContext;
+    private volatile LdapContextPool ldapContextPool;
     // The schedule for retry attempts
     private RetrySchedule schedule = null;
 
     private LdapRepositoryConfiguration ldapConfiguration;
 
+    private final GaugeRegistry gaugeRegistry;
+    private Cache<Username, Optional<ReadOnlyLDAPUser>> userCache;
+    private Cache<String, Map<String, Collection<String>>> groupMembershipCache;
+    private VerifiedCredentialsCache verifiedCredentialsCache;
+
     @Inject
     public ReadOnlyLDAPUsersDAO() {
+        this(new NoopGaugeRegistry());
+    }
 
+    public ReadOnlyLDAPUsersDAO(GaugeRegistry gaugeRegistry) {
+        this.gaugeRegistry = gaugeRegistry;
     }
 
     /**
@@ -109,6 +126,35 @@ public class ReadOnlyLDAPUsersDAO implements UsersDAO, Configurable {
             configuration.getRetryStartInterval(),
             configuration.getRetryMaxInterval(),
             configuration.getScale());
+
+        userCache = lookupCache(configuration, USER_CACHE_MAXIMUM_SIZE);
+        groupMembershipCache = lookupCache(configuration, 1);
+        verifiedCredentialsCache = new VerifiedCredentialsCache(configuration.getVerifiedCredentialsCacheTtl());
+    }
+
+    private <K, V> Cache<K, V> lookupCache(LdapRepositoryConfiguration configuration, long maximumSize) {
+        if (configuration.getLookupCacheTtl().isZero()) {
+            return CacheBuilder.newBuilder()
+                .maximumSize(0)
+                .recordStats()
+                .build();
+        }
+        return CacheBuilder.newBuilder()
+            .expireAfterWrite(configuration.getLookupCacheTtl().toMillis(), TimeUnit.MILLISECONDS)
+            .maximumSize(maximumSize)
+            .recordStats()
+            .build();
+    }
+
+    private void recordStats() {
+        gaugeRegistry
+            .register("ldap.cache.users.hit.rate", () -> userCache.stats().hitRate())
+            .register("ldap.cache.users.hit.count", () -> userCache.stats().hitCount())
+            .register("ldap.cache.users.miss.count", () -> userCache.stats().missCount())
+            .register("ldap.cache.groups.hit.rate", () -> groupMembershipCache.stats().hitRate())
+            .register("ldap.cache.groups.hit.count", () -> groupMembershipCache.stats().hitCount())
+            .register("ldap.cache.groups.miss.count", () -> groupMembershipCache.stats().missCount());
+        verifiedCredentialsCache.recordStats(gaugeRegistry);
     }
 
     /**
@@ -126,14 +172,29 @@ public class ReadOnlyLDAPUsersDAO implements UsersDAO, Configurable {
                 + ldapConfiguration.getUserIdAttribute() + '\n' + "Group restriction: " + ldapConfiguration.getRestriction()
                 + '\n' + "UseConnectionPool: " + ldapConfiguration.useConnectionPool() + '\n' + "connectionTimeout: "
                 + ldapConfiguration.getConnectionTimeout() + '\n' + "readTimeout: " + ldapConfiguration.getReadTimeout()
-                + '\n' + "retrySchedule: " + schedule + '\n' + "maxRetries: " + ldapConfiguration.getMaxRetries() + '\n');
+                + '\n' + "retrySchedule: " + schedule + '\n' + "maxRetries: " + ldapConfiguration.getMaxRetries()
+                + '\n' + "poolSize: " + ldapConfiguration.getPoolSize() + '\n' + "lookupCacheTtl: " + ldapConfiguration.getLookupCacheTtl()
+                + '\n' + "verifiedCredentialsCacheTtl: " + ldapConfiguration.getVerifiedCredentialsCacheTtl() + '\n');
         }
-        // Setup the initial LDAP context
+        // Setup the initial LDAP contexts
         updateLdapContext();
+        recordStats();
     }
 
     protected void updateLdapContext() throws NamingException {
-        ldapContext = computeLdapContext();
+        LdapContextPool previousPool = ldapContextPool;
+        ldapContextPool = new LdapContextPool(ldapConfiguration.getPoolSize(), this::computeLdapContext);
+        if (previousPool != null) {
+            previousPool.close();
+        }
+    }
+
+    /**
+     * Contexts used to verify passwords are copies of a pooled context, which is borrowed for the time of the copy
+     * as JNDI contexts are not thread safe.
+     */
+    private LdapContext newBindContext() throws NamingException {
+        return ldapContextPool.execute(ldapContext -> ldapContext.newInstance(null));
     }
 
     /**
@@ -219,19 +280,34 @@ public class ReadOnlyLDAPUsersDAO implements UsersDAO, Configurable {
      *             Propagated from the LDAP communication layer.
      */
     private Set<String> getAllUsersFromLDAP() throws NamingException {
-        Set<String> result = new HashSet<>();
+        return ldapContextPool.execute(ldapContext -> {
+            Set<String> result = new HashSet<>();
+
+            SearchControls sc = new SearchControls();
+            sc.setSearchScope(SearchControls.SUBTREE_SCOPE);
+            sc.setReturningAttributes(new String[] { "distinguishedName" });
+            NamingEnumeration<SearchResult> sr = ldapContext.search(ldapConfiguration.getUserBase(), "(objectClass="
+                    + ldapConfiguration.getUserObjectClass() + ")", sc);
+            while (sr.hasMore()) {
+                SearchResult r = sr.next();
+                result.add(r.getNameInNamespace());
+            }
 
-        SearchControls sc = new SearchControls();
-        sc.setSearchScope(SearchControls.SUBTREE_SCOPE);
-        sc.setReturningAttributes(new String[] { "distinguishedName" });
-        NamingEnumeration<SearchResult> sr = ldapContext.search(ldapConfiguration.getUserBase(), "(objectClass="
-                + ldapConfiguration.getUserObjectClass() + ")", sc);
-        while (sr.hasMore()) {
-            SearchResult r = sr.next();
-            result.add(r.getNameInNamespace());
-        }
+            return result;
+        });
+    }
 
-        return result;
+    /**
+     * Group membership lists are shared by all users, hence they are cached as a whole.
+     */
+    private Map<String, Collection<String>> getGroupMembershipLists(LdapContext ldapContext) throws NamingException {
+        Map<String, Collection<String>> cached = groupMembershipCache.getIfPresent(GROUP_MEMBERSHIP_KEY);
+        if (cached != null) {
+            return cached;
+        }
+        Map<String, Collection<String>> groupMembershipLists = ldapConfiguration.getRestriction().getGroupMembershipLists(ldapContext);
+        groupMembershipCache.put(GROUP_MEMBERSHIP_KEY, groupMembershipLists);
+        return groupMembershipLists;
     }
 
     /**
@@ -268,11 +344,21 @@ public class ReadOnlyLDAPUsersDAO implements UsersDAO, Configurable {
      *            The userId which should be value of the field {@link LdapRepositoryConfiguration#userIdAttribute}
      * @return A {@link ReadOnlyLDAPUser} instance which is initialized with the
      *         userId of this user and ldap connection information with which
-     *         the user was searched. Return null if such a user was not found.
+     *         the user was searched. Empty if such a user was not found.
      * @throws NamingException
      *             Propagated by the underlying LDAP communication layer.
      */
-    private ReadOnlyLDAPUser searchAndBuildUser(Username name) throws NamingException {
+    private Optional<ReadOnlyLDAPUser> searchAndBuildUser(Username name) throws NamingException {
+        Optional<ReadOnlyLDAPUser> cached = userCache.getIfPresent(name);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<ReadOnlyLDAPUser> user = ldapContextPool.execute(ldapContext -> Optional.ofNullable(searchAndBuildUser(ldapContext, name)));
+        userCache.put(name, user);
+        return user;
+    }
+
+    private ReadOnlyLDAPUser searchAndBuildUser(LdapContext ldapContext, Username name) throws NamingException {
         SearchControls sc = new SearchControls();
         sc.setSearchScope(SearchControls.SUBTREE_SCOPE);
         sc.setReturningAttributes(new String[] { ldapConfiguration.getUserIdAttribute() });
@@ -298,8 +384,8 @@ public class ReadOnlyLDAPUsersDAO implements UsersDAO, Configurable {
         Attribute userName = r.getAttributes().get(ldapConfiguration.getUserIdAttribute());
 
         if (!ldapConfiguration.getRestriction().isActivated()
-            || userInGroupsMembershipList(r.getNameInNamespace(), ldapConfiguration.getRestriction().getGroupMembershipLists(ldapContext))) {
-            return new ReadOnlyLDAPUser(Username.of(userName.get().toString()), r.getNameInNamespace(), ldapContext);
+            || userInGroupsMembershipList(r.getNameInNamespace(), getGroupMembershipLists(ldapContext))) {
+            return new ReadOnlyLDAPUser(Username.of(userName.get().toString()), r.getNameInNamespace(), this::newBindContext, verifiedCredentialsCache);
         }
 
         return null;
@@ -322,12 +408,14 @@ public class ReadOnlyLDAPUsersDAO implements UsersDAO, Configurable {
      *             Propagated by the underlying LDAP communication layer.
      */
     private Optional<ReadOnlyLDAPUser> buildUser(String userDN) throws NamingException {
-      Attributes userAttributes = ldapContext.getAttributes(userDN);
-      Optional<Attribute> userName = Optional.ofNullable(userAttributes.get(ldapConfiguration.getUserIdAttribute()));
-      return userName
-          .map(Throwing.<Attribute, String>function(u -> u.get().toString()).sneakyThrow())
-          .map(Username::of)
-          .map(username -> new ReadOnlyLDAPUser(username, userDN, ldapContext));
+      return ldapContextPool.execute(ldapContext -> {
+          Attributes userAttributes = ldapContext.getAttributes(userDN);
+          Optional<Attribute> userName = Optional.ofNullable(userAttributes.get(ldapConfiguration.getUserIdAttribute()));
+          return userName
+              .map(Throwing.<Attribute, String>function(u -> u.get().toString()).sneakyThrow())
+              .map(Username::of)
+              .map(username -> new ReadOnlyLDAPUser(username, userDN, this::newBindContext, verifiedCredentialsCache));
+      });
     }
 
     @Override
@@ -352,7 +440,7 @@ public class ReadOnlyLDAPUsersDAO implements UsersDAO, Configurable {
     @Override
     public Optional<User> getUserByName(Username name) throws UsersRepositoryException {
         try {
-          return Optional.ofNullable(searchAndBuildUser(name));
+          return searchAndBuildUser(name).map(User.class::cast);
         } catch (NamingException e) {
             LOGGER.error("Unable to retrieve user from ldap", e);
             throw new UsersRepositoryException("Unable to retrieve user from ldap", e);
@@ -380,8 +468,7 @@ public class ReadOnlyLDAPUsersDAO implements UsersDAO, Configurable {
         Collection<String> validUserDNs;
 
         if (ldapConfiguration.getRestriction().isActivated()) {
-            Map<String, Collection<String>> groupMembershipList = ldapConfiguration.getRestriction()
-                    .getGroupMembershipLists(ldapContext);
+            Map<String, Collection<String>> groupMembershipList = ldapContextPool.execute(this::getGroupMembershipLists);
             validUserDNs = new ArrayList<>();
 
             Iterator<String> userDNIterator = userDNs.iterator();
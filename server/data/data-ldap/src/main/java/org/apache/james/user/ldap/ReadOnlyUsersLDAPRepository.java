@@ -28,6 +28,7 @@ import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.james.core.Username;
 import org.apache.james.domainlist.api.DomainList;
 import org.apache.james.lifecycle.api.Configurable;
+import org.apache.james.metrics.api.GaugeRegistry;
 import org.apache.james.user.api.UsersRepositoryException;
 import org.apache.james.user.lib.UsersRepositoryImpl;
 
@@ -194,6 +195,15 @@ import org.apache.james.user.lib.UsersRepositoryImpl;
  * <li>
  * <b>administratorId:</b> (optional) User identifier of the administrator user.
  * The administrator user is allowed to authenticate as other users.
+ * <li>
+ * <b>poolSize:</b> (optional, default = 4) The number of LDAP contexts, hence of
+ * searches that can be run concurrently.
+ * <li>
+ * <b>lookupCacheTtl:</b> (optional, default = 1 minute) How long user and group
+ * membership lookups are cached. 0 disables this cache.
+ * <li>
+ * <b>verifiedCredentialsCacheTtl:</b> (optional, default = 0) How long successfully
+ * verified credentials are cached, as salted hashes. 0 disables this cache.
  * </ul>
  * </p>
  *
@@ -212,11 +222,15 @@ import org.apache.james.user.lib.UsersRepositoryImpl;
 public class ReadOnlyUsersLDAPRepository extends UsersRepositoryImpl<ReadOnlyLDAPUsersDAO> implements Configurable {
     private LdapRepositoryConfiguration ldapConfiguration;
 
-    @Inject
     public ReadOnlyUsersLDAPRepository(DomainList domainList) {
         super(domainList, new ReadOnlyLDAPUsersDAO());
     }
 
+    @Inject
+    public ReadOnlyUsersLDAPRepository(DomainList domainList, GaugeRegistry gaugeRegistry) {
+        super(domainList, new ReadOnlyLDAPUsersDAO(gaugeRegistry));
+    }
+
     /**
      * Extracts the parameters required by the repository instance from the
      * James server configuration data. The fields extracted include
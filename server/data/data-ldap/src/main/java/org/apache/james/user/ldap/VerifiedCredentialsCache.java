@@ -0,0 +1,111 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.user.ldap;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.james.metrics.api.GaugeRegistry;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Remembers, for a short while, the credentials successfully verified against the LDAP server, sparing a bind
+ * for each authentication of a reconnecting client.
+ *
+ * Only salted hashes of the passwords are kept. Failed verifications are never cached.
+ */
+public class VerifiedCredentialsCache {
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int SALT_LENGTH = 16;
+    private static final long MAXIMUM_SIZE = 10000;
+
+    private static class SaltedHash {
+        private final byte[] salt;
+        private final byte[] hash;
+
+        private SaltedHash(byte[] salt, byte[] hash) {
+            this.salt = salt;
+            this.hash = hash;
+        }
+    }
+
+    public static VerifiedCredentialsCache disabled() {
+        return new VerifiedCredentialsCache(Duration.ZERO);
+    }
+
+    private final SecureRandom secureRandom;
+    private final Cache<String, SaltedHash> cache;
+    private final boolean enabled;
+
+    public VerifiedCredentialsCache(Duration ttl) {
+        this.secureRandom = new SecureRandom();
+        this.enabled = !ttl.isZero();
+        this.cache = CacheBuilder.newBuilder()
+            .expireAfterWrite(ttl.toMillis(), TimeUnit.MILLISECONDS)
+            .maximumSize(MAXIMUM_SIZE)
+            .recordStats()
+            .build();
+    }
+
+    public VerifiedCredentialsCache recordStats(GaugeRegistry gaugeRegistry) {
+        gaugeRegistry
+            .register("ldap.cache.credentials.hit.rate", () -> cache.stats().hitRate())
+            .register("ldap.cache.credentials.hit.count", () -> cache.stats().hitCount())
+            .register("ldap.cache.credentials.miss.count", () -> cache.stats().missCount());
+        return this;
+    }
+
+    public boolean isVerified(String userDN, String password) {
+        if (!enabled) {
+            return false;
+        }
+        SaltedHash saltedHash = cache.getIfPresent(userDN);
+        return saltedHash != null
+            && MessageDigest.isEqual(saltedHash.hash, hash(saltedHash.salt, password));
+    }
+
+    public void verified(String userDN, String password) {
+        if (enabled) {
+            byte[] salt = new byte[SALT_LENGTH];
+            secureRandom.nextBytes(salt);
+            cache.put(userDN, new SaltedHash(salt, hash(salt, password)));
+        }
+    }
+
+    public void invalidate(String userDN) {
+        cache.invalidate(userDN);
+    }
+
+    private byte[] hash(byte[] salt, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            digest.update(salt);
+            return digest.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+    }
+}
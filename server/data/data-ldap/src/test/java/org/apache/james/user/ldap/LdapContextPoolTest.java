@@ -0,0 +1,177 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.user.ldap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.NamingException;
+import javax.naming.ServiceUnavailableException;
+import javax.naming.ldap.LdapContext;
+
+import org.junit.jupiter.api.Test;
+
+class LdapContextPoolTest {
+    @Test
+    void constructorShouldRejectEmptyPools() {
+        assertThatThrownBy(() -> new LdapContextPool(0, () -> mock(LdapContext.class)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void executeShouldReturnTheOperationResult() throws Exception {
+        LdapContextPool testee = new LdapContextPool(1, () -> mock(LdapContext.class));
+
+        String result = testee.execute(ldapContext -> "result");
+        assertThat(result).isEqualTo("result");
+    }
+
+    @Test
+    void executeShouldPropagateNamingExceptions() throws Exception {
+        LdapContextPool testee = new LdapContextPool(1, () -> mock(LdapContext.class));
+
+        assertThatThrownBy(() -> testee.execute(ldapContext -> {
+            throw new NamingException("failure");
+        })).isInstanceOf(NamingException.class);
+    }
+
+    @Test
+    void contextsShouldBeReturnedToThePoolAfterFailures() throws Exception {
+        LdapContext context = mock(LdapContext.class);
+        LdapContextPool testee = new LdapContextPool(1, () -> context);
+
+        try {
+            testee.execute(ldapContext -> {
+                throw new NamingException("failure");
+            });
+        } catch (NamingException e) {
+            // expected
+        }
+
+        LdapContext borrowed = testee.execute(ldapContext -> ldapContext);
+        assertThat(borrowed).isSameAs(context);
+    }
+
+    @Test
+    void executeShouldRunConcurrentlyUpToThePoolSize() throws Exception {
+        int poolSize = 3;
+        LdapContextPool testee = new LdapContextPool(poolSize, () -> mock(LdapContext.class));
+        CountDownLatch allRunning = new CountDownLatch(poolSize);
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+
+        try {
+            List<Future<LdapContext>> results = new ArrayList<>();
+            for (int i = 0; i < poolSize; i++) {
+                results.add(executor.submit(() -> testee.execute(ldapContext -> {
+                    allRunning.countDown();
+                    try {
+                        allRunning.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return ldapContext;
+                })));
+            }
+
+            List<LdapContext> usedContexts = new ArrayList<>();
+            for (Future<LdapContext> result : results) {
+                usedContexts.add(result.get(10, TimeUnit.SECONDS));
+            }
+            assertThat(usedContexts).doesNotHaveDuplicates();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void closeShouldCloseContexts() throws Exception {
+        LdapContext context = mock(LdapContext.class);
+        LdapContextPool testee = new LdapContextPool(1, () -> context);
+
+        testee.close();
+
+        verify(context).close();
+    }
+
+    @Test
+    void closeShouldCloseBorrowedContextsOnceReleased() throws Exception {
+        LdapContext context = mock(LdapContext.class);
+        LdapContextPool testee = new LdapContextPool(1, () -> context);
+
+        testee.execute(ldapContext -> {
+            testee.close();
+            verify(ldapContext, never()).close();
+            return ldapContext;
+        });
+
+        verify(context).close();
+    }
+
+    @Test
+    void executeShouldFailWhenClosed() throws Exception {
+        LdapContextPool testee = new LdapContextPool(1, () -> mock(LdapContext.class));
+
+        testee.close();
+
+        assertThatThrownBy(() -> testee.execute(ldapContext -> ldapContext))
+            .isInstanceOf(ServiceUnavailableException.class);
+    }
+
+    @Test
+    void closeShouldFailWaitingBorrowers() throws Exception {
+        LdapContextPool testee = new LdapContextPool(1, () -> mock(LdapContext.class));
+        CountDownLatch borrowed = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            executor.submit(() -> testee.execute(ldapContext -> {
+                borrowed.countDown();
+                try {
+                    closed.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return ldapContext;
+            }));
+            borrowed.await(10, TimeUnit.SECONDS);
+            Future<LdapContext> waiting = executor.submit(() -> testee.execute(ldapContext -> ldapContext));
+
+            testee.close();
+            closed.countDown();
+
+            assertThatThrownBy(() -> waiting.get(10, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(ServiceUnavailableException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.user.ldap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.SoftAssertions.assertSoftly;
+
+import java.time.Duration;
+
+import org.apache.commons.configuration2.plist.PropertyListConfiguration;
+import org.junit.jupiter.api.Test;
+
+class LdapRepositoryConfigurationTest {
+    PropertyListConfiguration baseConfiguration() {
+        PropertyListConfiguration configuration = new PropertyListConfiguration();
+        configuration.addProperty("[@ldapHost]", "ldap://127.0.0.1");
+        configuration.addProperty("[@principal]", "cn=admin,dc=james,dc=org");
+        configuration.addProperty("[@credentials]", "mysecretpassword");
+        configuration.addProperty("[@userBase]", "ou=People,dc=james,dc=org");
+        configuration.addProperty("[@userIdAttribute]", "uid");
+        configuration.addProperty("[@userObjectClass]", "inetOrgPerson");
+        return configuration;
+    }
+
+    @Test
+    void fromShouldUseDefaultPoolAndCacheSettings() throws Exception {
+        LdapRepositoryConfiguration configuration = LdapRepositoryConfiguration.from(baseConfiguration());
+
+        assertSoftly(softly -> {
+            softly.assertThat(configuration.getPoolSize()).isEqualTo(4);
+            softly.assertThat(configuration.getLookupCacheTtl()).isEqualTo(Duration.ofMinutes(1));
+            softly.assertThat(configuration.getVerifiedCredentialsCacheTtl()).isEqualTo(Duration.ZERO);
+        });
+    }
+
+    @Test
+    void fromShouldReadPoolSize() throws Exception {
+        PropertyListConfiguration configuration = baseConfiguration();
+        configuration.addProperty("[@poolSize]", "12");
+
+        assertThat(LdapRepositoryConfiguration.from(configuration).getPoolSize()).isEqualTo(12);
+    }
+
+    @Test
+    void fromShouldReadLookupCacheTtl() throws Exception {
+        PropertyListConfiguration configuration = baseConfiguration();
+        configuration.addProperty("[@lookupCacheTtl]", "5m");
+
+        assertThat(LdapRepositoryConfiguration.from(configuration).getLookupCacheTtl()).isEqualTo(Duration.ofMinutes(5));
+    }
+
+    @Test
+    void fromShouldDefaultDurationsToSeconds() throws Exception {
+        PropertyListConfiguration configuration = baseConfiguration();
+        configuration.addProperty("[@lookupCacheTtl]", "30");
+        configuration.addProperty("[@verifiedCredentialsCacheTtl]", "45");
+
+        LdapRepositoryConfiguration ldapConfiguration = LdapRepositoryConfiguration.from(configuration);
+
+        assertSoftly(softly -> {
+            softly.assertThat(ldapConfiguration.getLookupCacheTtl()).isEqualTo(Duration.ofSeconds(30));
+            softly.assertThat(ldapConfiguration.getVerifiedCredentialsCacheTtl()).isEqualTo(Duration.ofSeconds(45));
+        });
+    }
+
+    @Test
+    void fromShouldReadVerifiedCredentialsCacheTtl() throws Exception {
+        PropertyListConfiguration configuration = baseConfiguration();
+        configuration.addProperty("[@verifiedCredentialsCacheTtl]", "10m");
+
+        assertThat(LdapRepositoryConfiguration.from(configuration).getVerifiedCredentialsCacheTtl()).isEqualTo(Duration.ofMinutes(10));
+    }
+
+    @Test
+    void builderShouldUseDefaultPoolAndCacheSettings() throws Exception {
+        LdapRepositoryConfiguration configuration = LdapRepositoryConfiguration.builder()
+            .ldapHost("ldap://127.0.0.1")
+            .principal("cn=admin,dc=james,dc=org")
+            .credentials("mysecretpassword")
+            .userBase("ou=People,dc=james,dc=org")
+            .userIdAttribute("uid")
+            .userObjectClass("inetOrgPerson")
+            .maxRetries(1)
+            .retryStartInterval(0)
+            .retryMaxInterval(2)
+            .scale(100)
+            .build();
+
+        assertSoftly(softly -> {
+            softly.assertThat(configuration.getPoolSize()).isEqualTo(4);
+            softly.assertThat(configuration.getLookupCacheTtl()).isEqualTo(Duration.ofMinutes(1));
+            softly.assertThat(configuration.getVerifiedCredentialsCacheTtl()).isEqualTo(Duration.ZERO);
+        });
+    }
+}
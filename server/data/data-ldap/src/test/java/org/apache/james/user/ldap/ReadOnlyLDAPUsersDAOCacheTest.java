@@ -0,0 +1,289 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.user.ldap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.directory.BasicAttribute;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.LdapContext;
+
+import org.apache.commons.configuration2.plist.PropertyListConfiguration;
+import org.apache.james.core.Username;
+import org.apache.james.metrics.api.Gauge;
+import org.apache.james.metrics.api.GaugeRegistry;
+import org.apache.james.user.api.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+class ReadOnlyLDAPUsersDAOCacheTest {
+    static final String USER_BASE = "ou=People,dc=james,dc=org";
+    static final String USER_DN = "uid=james-user,ou=People,dc=james,dc=org";
+    static final String OTHER_USER_DN = "uid=other-user,ou=People,dc=james,dc=org";
+    static final String GROUP_DN = "cn=mail,ou=groups,dc=james,dc=org";
+    static final Username USER = Username.of("james-user");
+    static final Username OTHER_USER = Username.of("other-user");
+    static final String PASSWORD = "secret";
+
+    static class RecordingGaugeRegistry implements GaugeRegistry {
+        private final Map<String, Gauge<?>> gauges = new HashMap<>();
+
+        @Override
+        public <T> GaugeRegistry register(String name, Gauge<T> gauge) {
+            gauges.put(name, gauge);
+            return this;
+        }
+
+        Object value(String name) {
+            return gauges.get(name).get();
+        }
+    }
+
+    LdapContext ldapContext;
+    AtomicInteger createdContexts;
+    RecordingGaugeRegistry gaugeRegistry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ldapContext = mock(LdapContext.class);
+        createdContexts = new AtomicInteger();
+        gaugeRegistry = new RecordingGaugeRegistry();
+
+        when(ldapContext.search(eq(USER_BASE), anyString(), any(SearchControls.class)))
+            .thenAnswer(invocation -> {
+                String filter = invocation.getArgument(1);
+                if (filter.contains("(uid=james-user)")) {
+                    return enumeration(ImmutableList.of(searchResult(USER_DN, USER)));
+                }
+                if (filter.contains("(uid=other-user)")) {
+                    return enumeration(ImmutableList.of(searchResult(OTHER_USER_DN, OTHER_USER)));
+                }
+                return enumeration(ImmutableList.of());
+            });
+        when(ldapContext.getAttributes(GROUP_DN))
+            .thenAnswer(invocation -> {
+                BasicAttribute members = new BasicAttribute("member");
+                members.add(USER_DN);
+                members.add(OTHER_USER_DN);
+                BasicAttributes attributes = new BasicAttributes();
+                attributes.put(members);
+                return attributes;
+            });
+        when(ldapContext.newInstance(null)).thenAnswer(invocation -> mock(LdapContext.class));
+    }
+
+    static <T> NamingEnumeration<T> enumeration(List<T> items) {
+        Iterator<T> iterator = items.iterator();
+        return new NamingEnumeration<T>() {
+            @Override
+            public T next() {
+                return iterator.next();
+            }
+
+            @Override
+            public boolean hasMore() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public boolean hasMoreElements() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T nextElement() {
+                return iterator.next();
+            }
+        };
+    }
+
+    static SearchResult searchResult(String userDN, Username username) {
+        SearchResult searchResult = new SearchResult(userDN, null, new BasicAttributes("uid", username.asString()));
+        searchResult.setNameInNamespace(userDN);
+        return searchResult;
+    }
+
+    PropertyListConfiguration baseConfiguration() {
+        PropertyListConfiguration configuration = new PropertyListConfiguration();
+        configuration.addProperty("[@ldapHost]", "ldap://127.0.0.1");
+        configuration.addProperty("[@principal]", "cn=admin,dc=james,dc=org");
+        configuration.addProperty("[@credentials]", "mysecretpassword");
+        configuration.addProperty("[@userBase]", USER_BASE);
+        configuration.addProperty("[@userIdAttribute]", "uid");
+        configuration.addProperty("[@userObjectClass]", "inetOrgPerson");
+        return configuration;
+    }
+
+    ReadOnlyLDAPUsersDAO startDAO(PropertyListConfiguration configuration) throws Exception {
+        ReadOnlyLDAPUsersDAO dao = new ReadOnlyLDAPUsersDAO(gaugeRegistry) {
+            @Override
+            protected LdapContext computeLdapContext() {
+                createdContexts.incrementAndGet();
+                return ldapContext;
+            }
+        };
+        dao.configure(configuration);
+        dao.init();
+        return dao;
+    }
+
+    @Test
+    void initShouldCreatePoolSizeContexts() throws Exception {
+        PropertyListConfiguration configuration = baseConfiguration();
+        configuration.addProperty("[@poolSize]", "3");
+
+        startDAO(configuration);
+
+        assertThat(createdContexts.get()).isEqualTo(3);
+    }
+
+    @Test
+    void getUserByNameShouldCacheLookups() throws Exception {
+        ReadOnlyLDAPUsersDAO testee = startDAO(baseConfiguration());
+
+        testee.getUserByName(USER);
+        Username username = testee.getUserByName(USER).map(User::getUserName).get();
+
+        assertThat(username).isEqualTo(USER);
+        verify(ldapContext, times(1)).search(eq(USER_BASE), anyString(), any(SearchControls.class));
+    }
+
+    @Test
+    void getUserByNameShouldCacheUnknownUsers() throws Exception {
+        ReadOnlyLDAPUsersDAO testee = startDAO(baseConfiguration());
+
+        testee.getUserByName(Username.of("unknown"));
+
+        assertThat(testee.getUserByName(Username.of("unknown"))).isEmpty();
+        verify(ldapContext, times(1)).search(eq(USER_BASE), anyString(), any(SearchControls.class));
+    }
+
+    @Test
+    void getUserByNameShouldNotCacheLookupsWhenLookupCacheTtlIsZero() throws Exception {
+        PropertyListConfiguration configuration = baseConfiguration();
+        configuration.addProperty("[@lookupCacheTtl]", "0s");
+        ReadOnlyLDAPUsersDAO testee = startDAO(configuration);
+
+        testee.getUserByName(USER);
+        testee.getUserByName(USER);
+
+        verify(ldapContext, times(2)).search(eq(USER_BASE), anyString(), any(SearchControls.class));
+    }
+
+    @Test
+    void groupMembershipListsShouldBeCachedAcrossUsers() throws Exception {
+        PropertyListConfiguration configuration = baseConfiguration();
+        configuration.addProperty("restriction[@memberAttribute]", "member");
+        configuration.addProperty("restriction.group", GROUP_DN);
+        ReadOnlyLDAPUsersDAO testee = startDAO(configuration);
+
+        assertThat(testee.getUserByName(USER)).isPresent();
+        assertThat(testee.getUserByName(OTHER_USER)).isPresent();
+
+        verify(ldapContext, times(1)).getAttributes(GROUP_DN);
+    }
+
+    @Test
+    void verifyPasswordShouldBindEachTimeByDefault() throws Exception {
+        ReadOnlyLDAPUsersDAO testee = startDAO(baseConfiguration());
+        User user = testee.getUserByName(USER).get();
+
+        user.verifyPassword(PASSWORD);
+        user.verifyPassword(PASSWORD);
+
+        verify(ldapContext, times(2)).newInstance(null);
+    }
+
+    @Test
+    void verifyPasswordShouldBindOnceWhenVerifiedCredentialsCacheIsEnabled() throws Exception {
+        PropertyListConfiguration configuration = baseConfiguration();
+        configuration.addProperty("[@verifiedCredentialsCacheTtl]", "1m");
+        ReadOnlyLDAPUsersDAO testee = startDAO(configuration);
+        User user = testee.getUserByName(USER).get();
+
+        assertThat(user.verifyPassword(PASSWORD)).isTrue();
+        assertThat(user.verifyPassword(PASSWORD)).isTrue();
+
+        verify(ldapContext, times(1)).newInstance(null);
+    }
+
+    @Test
+    void userCacheGaugesShouldReportHitsAndMisses() throws Exception {
+        ReadOnlyLDAPUsersDAO testee = startDAO(baseConfiguration());
+
+        testee.getUserByName(USER);
+        testee.getUserByName(USER);
+
+        assertThat(gaugeRegistry.value("ldap.cache.users.hit.rate")).isEqualTo(0.5);
+        assertThat(gaugeRegistry.value("ldap.cache.users.hit.count")).isEqualTo(1L);
+        assertThat(gaugeRegistry.value("ldap.cache.users.miss.count")).isEqualTo(1L);
+    }
+
+    @Test
+    void groupCacheGaugesShouldReportHitsAndMisses() throws Exception {
+        PropertyListConfiguration configuration = baseConfiguration();
+        configuration.addProperty("restriction[@memberAttribute]", "member");
+        configuration.addProperty("restriction.group", GROUP_DN);
+        ReadOnlyLDAPUsersDAO testee = startDAO(configuration);
+
+        testee.getUserByName(USER);
+        testee.getUserByName(OTHER_USER);
+
+        assertThat(gaugeRegistry.value("ldap.cache.groups.hit.rate")).isEqualTo(0.5);
+        assertThat(gaugeRegistry.value("ldap.cache.groups.hit.count")).isEqualTo(1L);
+        assertThat(gaugeRegistry.value("ldap.cache.groups.miss.count")).isEqualTo(1L);
+    }
+
+    @Test
+    void credentialsCacheGaugesShouldReportHitsAndMisses() throws Exception {
+        PropertyListConfiguration configuration = baseConfiguration();
+        configuration.addProperty("[@verifiedCredentialsCacheTtl]", "1m");
+        ReadOnlyLDAPUsersDAO testee = startDAO(configuration);
+        User user = testee.getUserByName(USER).get();
+
+        user.verifyPassword(PASSWORD);
+        user.verifyPassword(PASSWORD);
+
+        assertThat(gaugeRegistry.value("ldap.cache.credentials.hit.rate")).isEqualTo(0.5);
+        assertThat(gaugeRegistry.value("ldap.cache.credentials.hit.count")).isEqualTo(1L);
+        assertThat(gaugeRegistry.value("ldap.cache.credentials.miss.count")).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,84 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.user.ldap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class VerifiedCredentialsCacheTest {
+    private static final String USER_DN = "uid=james-user,ou=people,dc=james,dc=org";
+    private static final String PASSWORD = "secret";
+
+    @Test
+    void isVerifiedShouldReturnFalseByDefault() {
+        VerifiedCredentialsCache testee = new VerifiedCredentialsCache(Duration.ofMinutes(1));
+
+        assertThat(testee.isVerified(USER_DN, PASSWORD)).isFalse();
+    }
+
+    @Test
+    void isVerifiedShouldReturnTrueForVerifiedCredentials() {
+        VerifiedCredentialsCache testee = new VerifiedCredentialsCache(Duration.ofMinutes(1));
+
+        testee.verified(USER_DN, PASSWORD);
+
+        assertThat(testee.isVerified(USER_DN, PASSWORD)).isTrue();
+    }
+
+    @Test
+    void isVerifiedShouldReturnFalseForOtherPasswords() {
+        VerifiedCredentialsCache testee = new VerifiedCredentialsCache(Duration.ofMinutes(1));
+
+        testee.verified(USER_DN, PASSWORD);
+
+        assertThat(testee.isVerified(USER_DN, "other")).isFalse();
+    }
+
+    @Test
+    void isVerifiedShouldReturnFalseForOtherUsers() {
+        VerifiedCredentialsCache testee = new VerifiedCredentialsCache(Duration.ofMinutes(1));
+
+        testee.verified(USER_DN, PASSWORD);
+
+        assertThat(testee.isVerified("uid=other,ou=people,dc=james,dc=org", PASSWORD)).isFalse();
+    }
+
+    @Test
+    void isVerifiedShouldReturnFalseAfterInvalidation() {
+        VerifiedCredentialsCache testee = new VerifiedCredentialsCache(Duration.ofMinutes(1));
+
+        testee.verified(USER_DN, PASSWORD);
+        testee.invalidate(USER_DN);
+
+        assertThat(testee.isVerified(USER_DN, PASSWORD)).isFalse();
+    }
+
+    @Test
+    void isVerifiedShouldReturnFalseWhenDisabled() {
+        VerifiedCredentialsCache testee = VerifiedCredentialsCache.disabled();
+
+        testee.verified(USER_DN, PASSWORD);
+
+        assertThat(testee.isVerified(USER_DN, PASSWORD)).isFalse();
+    }
+}
@@ -22,6 +22,11 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.Collection;
 
+import org.reactivestreams.Publisher;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 /**
  * Provides abstraction for DNS resolutions. The interface is Mail specific. It
  * may be a good idea to make the interface more generic or expose commonly
@@ -94,4 +99,39 @@ public interface DNSService {
      */
     String getHostName(InetAddress addr);
 
+    /**
+     * Non blocking version of {@link #findMXRecords(String)}. Temporary problems are signaled as a
+     * {@link TemporaryResolutionException} error.
+     */
+    default Publisher<Collection<String>> findMXRecordsReactive(String hostname) {
+        return Mono.fromCallable(() -> findMXRecords(hostname))
+            .subscribeOn(Schedulers.elastic());
+    }
+
+    /**
+     * Non blocking version of {@link #findTXTRecords(String)}.
+     */
+    default Publisher<Collection<String>> findTXTRecordsReactive(String hostname) {
+        return Mono.fromCallable(() -> findTXTRecords(hostname))
+            .subscribeOn(Schedulers.elastic());
+    }
+
+    /**
+     * Non blocking version of {@link #getAllByName(String)}. Unresolved hosts are signaled as an
+     * {@link UnknownHostException} error.
+     */
+    default Publisher<Collection<InetAddress>> getAllByNameReactive(String host) {
+        return Mono.fromCallable(() -> getAllByName(host))
+            .subscribeOn(Schedulers.elastic());
+    }
+
+    /**
+     * Non blocking version of {@link #getByName(String)}. Unresolved hosts are signaled as an
+     * {@link UnknownHostException} error.
+     */
+    default Publisher<InetAddress> getByNameReactive(String host) {
+        return Mono.fromCallable(() -> getByName(host))
+            .subscribeOn(Schedulers.elastic());
+    }
+
 }
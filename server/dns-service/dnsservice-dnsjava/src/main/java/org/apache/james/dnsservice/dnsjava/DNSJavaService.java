@@ -26,6 +26,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
@@ -39,6 +41,7 @@ import org.apache.james.dnsservice.api.TemporaryResolutionException;
 import org.apache.james.lifecycle.api.Configurable;
 import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.metrics.api.TimeMetric;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xbill.DNS.ARecord;
@@ -60,6 +63,9 @@ import org.xbill.DNS.Type;
 
 import com.google.common.collect.ImmutableList;
 
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 /**
  * Provides DNS client functionality to services running inside James
  */
@@ -124,6 +130,11 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
 
     private String localAddress;
 
+    /**
+     * Lookups currently running, shared by identical concurrent queries.
+     */
+    private final ConcurrentHashMap<String, Mono<?>> inFlightQueries = new ConcurrentHashMap<>();
+
     @Inject
     public DNSJavaService(MetricFactory metricFactory) {
         this.metricFactory = metricFactory;
@@ -527,6 +538,41 @@ public class DNSJavaService implements DNSService, DNSServiceMBean, Configurable
         }
     }
 
+    @Override
+    public Publisher<Collection<String>> findMXRecordsReactive(String hostname) {
+        return coalesce("MX " + hostname, () -> findMXRecords(hostname));
+    }
+
+    @Override
+    public Publisher<Collection<String>> findTXTRecordsReactive(String hostname) {
+        return coalesce("TXT " + hostname, () -> findTXTRecords(hostname));
+    }
+
+    @Override
+    public Publisher<Collection<InetAddress>> getAllByNameReactive(String host) {
+        return coalesce("ALL " + host, () -> getAllByName(host));
+    }
+
+    @Override
+    public Publisher<InetAddress> getByNameReactive(String host) {
+        return coalesce("A " + host, () -> getByName(host));
+    }
+
+    /**
+     * Runs the lookup on a scheduler suited for blocking calls. Subscribers arriving while an identical lookup is running
+     * share its result instead of issuing another query.
+     *
+     * The lookups rely on {@link Lookup}, as the asynchronous API of dnsjava operates at the resolver level, bypassing the
+     * cache, the search paths and the CNAME handling.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> coalesce(String query, Callable<T> lookup) {
+        return Mono.defer(() -> (Mono<T>) inFlightQueries.computeIfAbsent(query, key -> Mono.fromCallable(lookup)
+            .subscribeOn(Schedulers.boundedElastic())
+            .doFinally(any -> inFlightQueries.remove(key))
+            .cache()));
+    }
+
     @Override
     public InetAddress getLocalHost() throws UnknownHostException {
         return InetAddress.getLocalHost();
@@ -30,6 +30,8 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.james.metrics.tests.RecordingMetricFactory;
 import org.apache.james.server.core.configuration.FileConfigurationProvider;
@@ -47,6 +49,8 @@ import org.xbill.DNS.Zone;
 
 import com.google.common.io.Resources;
 
+import reactor.core.publisher.Mono;
+
 public class DNSJavaServiceTest {
     private static final Logger LOGGER = LoggerFactory.getLogger(DNSJavaServiceTest.class);
 
@@ -207,6 +211,40 @@ public class DNSJavaServiceTest {
         assertThat(records.size()).isEqualTo(1);
         assertThat(records.contains("mx1.one-mx.bar.")).isTrue();
     }
+    @Test
+    public void findMXRecordsReactiveShouldReturnMXRecords() throws Exception {
+        doAnswer(new ZoneCacheLookupRecordsAnswer(loadZone("two-mx.differentprio.")))
+                .when(mockedCache).lookupRecords(any(Name.class), anyInt(), anyInt());
+        dnsServer.setCache(mockedCache);
+
+        Collection<String> records = Mono.from(dnsServer.findMXRecordsReactive("two-mx.differentprio.")).block();
+        assertThat(records).containsExactly("mx1.two-mx.differentprio.", "mx2.two-mx.differentprio.");
+    }
+
+    @Test
+    public void concurrentIdenticalQueriesShouldBeCoalesced() throws Exception {
+        CountDownLatch lookupStarted = new CountDownLatch(1);
+        CountDownLatch releaseLookup = new CountDownLatch(1);
+        AtomicInteger lookupCount = new AtomicInteger();
+        ZoneCacheLookupRecordsAnswer zoneAnswer = new ZoneCacheLookupRecordsAnswer(loadZone("one-mx.bar."));
+        doAnswer(invocation -> {
+            lookupCount.incrementAndGet();
+            lookupStarted.countDown();
+            releaseLookup.await();
+            return zoneAnswer.answer(invocation);
+        }).when(mockedCache).lookupRecords(any(Name.class), anyInt(), anyInt());
+        dnsServer.setCache(mockedCache);
+
+        Mono<Collection<String>> first = Mono.from(dnsServer.findMXRecordsReactive("one-mx.bar.")).toProcessor();
+        lookupStarted.await();
+        Mono<Collection<String>> second = Mono.from(dnsServer.findMXRecordsReactive("one-mx.bar.")).toProcessor();
+        releaseLookup.countDown();
+
+        assertThat(first.block()).containsExactly("mx1.one-mx.bar.");
+        assertThat(second.block()).containsExactly("mx1.one-mx.bar.");
+        assertThat(lookupCount.get()).isEqualTo(1);
+    }
+
     /*
      * public void testCNAMEasMXrecords() throws Exception { // Zone z =
      * loadZone("brandilyncollins.com."); dnsServer.setResolver(null);
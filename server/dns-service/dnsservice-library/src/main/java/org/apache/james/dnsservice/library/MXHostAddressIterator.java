@@ -22,10 +22,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.util.Collection;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
+import java.util.function.Function;
 
 import org.apache.james.dnsservice.api.DNSService;
 import org.apache.mailet.HostAddress;
@@ -34,9 +32,10 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
+import reactor.core.publisher.Flux;
+
 /**
  *
  *
@@ -51,35 +50,38 @@ public class MXHostAddressIterator implements Iterator<HostAddress> {
         this(hosts, 25, dns, useSingleIP);
     }
 
+    /**
+     * The hosts are resolved concurrently, the resulting addresses keeping the order of the hosts.
+     */
     public MXHostAddressIterator(Iterator<String> hosts, int defaultPort, DNSService dns, boolean useSingleIP) {
         checkNotNull(hosts, "Hosts is null");
         checkNotNull(dns, "Dns is null");
-        final List<HostAddress> hAddresses = Lists.newArrayList();
-
-        while (hosts.hasNext()) {
-            String nextHostname = hosts.next();
-            Map.Entry<String, String> hostAndPort = extractHostAndPort(nextHostname, defaultPort);
-
-            try {
-                final Collection<InetAddress> addrs;
-                if (useSingleIP) {
-                    addrs = ImmutableList.of(dns.getByName(hostAndPort.getKey()));
-                } else {
-                    addrs = dns.getAllByName(hostAndPort.getKey());
-                }
-                for (InetAddress addr : addrs) {
-                    hAddresses.add(new HostAddress(hostAndPort.getKey(),
-                        "smtp://" + addr.getHostAddress() + ":" + hostAndPort.getValue()));
-                }
-            } catch (UnknownHostException uhe) {
-                // this should never happen, since we just got
-                // this host from mxHosts, which should have
-                // already done this check.
-                String logBuffer = "Couldn't resolve IP address for discovered host " + hostAndPort.getKey() + ".";
-                LOGGER.error(logBuffer);
-            }
+
+        addresses = Flux.fromIterable(ImmutableList.copyOf(hosts))
+            .map(nextHostname -> extractHostAndPort(nextHostname, defaultPort))
+            .flatMapSequential(hostAndPort -> resolve(hostAndPort.getKey(), dns, useSingleIP)
+                .map(addr -> new HostAddress(hostAndPort.getKey(),
+                    "smtp://" + addr.getHostAddress() + ":" + hostAndPort.getValue())))
+            .collectList()
+            .block()
+            .iterator();
+    }
+
+    private static Flux<InetAddress> resolve(String hostname, DNSService dns, boolean useSingleIP) {
+        Flux<InetAddress> addrs;
+        if (useSingleIP) {
+            addrs = Flux.from(dns.getByNameReactive(hostname));
+        } else {
+            addrs = Flux.from(dns.getAllByNameReactive(hostname))
+                .flatMapIterable(Function.identity());
         }
-        addresses = hAddresses.iterator();
+        return addrs.onErrorResume(UnknownHostException.class, e -> {
+            // this should never happen, since we just got
+            // this host from mxHosts, which should have
+            // already done this check.
+            LOGGER.error("Couldn't resolve IP address for discovered host {}.", hostname);
+            return Flux.empty();
+        });
     }
 
     private static ImmutableMap.Entry<String, String> extractHostAndPort(String nextHostname, int defaultPort) {
@@ -0,0 +1,72 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+
+package org.apache.james.jdkim.mailets;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.james.jdkim.api.PublicKeyRecordRetriever;
+import org.apache.james.jdkim.exceptions.PermFailException;
+import org.apache.james.jdkim.exceptions.TempFailException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Caches the public key records retrieved by a {@link PublicKeyRecordRetriever}.
+ *
+ * Only successful lookups are cached: failures, as well as lookups returning no record,
+ * are retried on the next verification.
+ */
+public class CachingPublicKeyRecordRetriever implements PublicKeyRecordRetriever {
+    private final PublicKeyRecordRetriever delegate;
+    private final Cache<List<String>, List<String>> records;
+
+    public CachingPublicKeyRecordRetriever(PublicKeyRecordRetriever delegate, Duration ttl, long maximumSize) {
+        this.delegate = delegate;
+        this.records = CacheBuilder.newBuilder()
+            .expireAfterWrite(ttl)
+            .maximumSize(maximumSize)
+            .build();
+    }
+
+    @Override
+    public List<String> getRecords(CharSequence methodAndOptions, CharSequence selector, CharSequence token) throws TempFailException, PermFailException {
+        List<String> key = ImmutableList.of(methodAndOptions.toString(), selector.toString(), token.toString());
+        List<String> cachedRecords = records.getIfPresent(key);
+        if (cachedRecords != null) {
+            return cachedRecords;
+        }
+        List<String> retrievedRecords = retrieve(methodAndOptions, selector, token);
+        if (!retrievedRecords.isEmpty()) {
+            records.put(key, retrievedRecords);
+        }
+        return retrievedRecords;
+    }
+
+    private List<String> retrieve(CharSequence methodAndOptions, CharSequence selector, CharSequence token) throws TempFailException, PermFailException {
+        return Optional.ofNullable(delegate.getRecords(methodAndOptions, selector, token))
+            .<List<String>>map(ImmutableList::copyOf)
+            .orElse(ImmutableList.of());
+    }
+}
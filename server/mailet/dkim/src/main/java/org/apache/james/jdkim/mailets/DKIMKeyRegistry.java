@@ -0,0 +1,72 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+
+package org.apache.james.jdkim.mailets;
+
+import java.security.PrivateKey;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.james.core.Domain;
+import org.apache.james.jdkim.DKIMSigner;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Holds the DKIM signing keys, per signing domain.
+ *
+ * Messages whose sender domain has no dedicated key are signed with the default key, if any.
+ */
+public class DKIMKeyRegistry {
+
+    public static class SigningKey {
+        private final String signatureTemplate;
+        private final DKIMSigner signer;
+
+        public SigningKey(String signatureTemplate, PrivateKey privateKey) {
+            this.signatureTemplate = signatureTemplate;
+            this.signer = new DKIMSigner(signatureTemplate, privateKey);
+        }
+
+        public String getSignatureTemplate() {
+            return signatureTemplate;
+        }
+
+        public DKIMSigner getSigner() {
+            return signer;
+        }
+    }
+
+    private final Optional<SigningKey> defaultKey;
+    private final Map<Domain, SigningKey> keysByDomain;
+
+    public DKIMKeyRegistry(Optional<SigningKey> defaultKey, Map<Domain, SigningKey> keysByDomain) {
+        this.defaultKey = defaultKey;
+        this.keysByDomain = ImmutableMap.copyOf(keysByDomain);
+    }
+
+    public Optional<SigningKey> keyFor(Optional<Domain> senderDomain) {
+        Optional<SigningKey> domainKey = senderDomain.map(keysByDomain::get);
+        if (domainKey.isPresent()) {
+            return domainKey;
+        }
+        return defaultKey;
+    }
+}
@@ -31,19 +31,28 @@ import java.security.PrivateKey;
 import java.security.Security;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.RSAPrivateCrtKeySpec;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import javax.mail.Header;
+import javax.mail.Address;
 import javax.mail.MessagingException;
+import javax.mail.internet.AddressException;
+import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 
+import org.apache.james.core.Domain;
+import org.apache.james.core.MailAddress;
 import org.apache.james.jdkim.DKIMSigner;
 import org.apache.james.jdkim.api.BodyHasher;
 import org.apache.james.jdkim.api.Headers;
 import org.apache.james.jdkim.api.SignatureRecord;
 import org.apache.james.jdkim.exceptions.PermFailException;
+import org.apache.james.server.core.MimeMessageUtil;
 import org.apache.mailet.Mail;
 import org.apache.mailet.base.GenericMailet;
 import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
@@ -53,8 +62,15 @@ import org.bouncycastle.openssl.PEMKeyPair;
 import org.bouncycastle.openssl.PEMParser;
 import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
 import org.bouncycastle.openssl.jcajce.JcePEMDecryptorProviderBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.github.fge.lambdas.Throwing;
+import com.github.steveash.guavate.Guavate;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 /**
  * This mailet sign a message using the DKIM protocol
@@ -95,44 +111,89 @@ import com.github.fge.lambdas.Throwing;
  * &lt;/mailet&gt;
  * </code></pre>
  *
+ * Several domains can be signed by a single mailet, each with its own key. List them in
+ * <code>signingDomains</code> and give each a <code>privateKey.&lt;domain&gt;</code> or
+ * <code>privateKeyFilepath.&lt;domain&gt;</code> (and optionally a <code>privateKeyPassword.&lt;domain&gt;</code>).
+ * The signature template of a domain is read from <code>signatureTemplate.&lt;domain&gt;</code>, and defaults
+ * to <code>signatureTemplate</code> with its <code>d=</code> tag set to that domain. The key is chosen
+ * according to the domain of the From header, or of the envelope sender when the From header is missing.
+ * Messages from other domains are signed with the default key, if any, and are otherwise left unsigned:
+ *
+ * <pre><code>
+ * &lt;mailet match=&quot;All&quot; class=&quot;DKIMSign&quot;&gt;
+ *   &lt;signatureTemplate&gt;v=1; s=selector; d=example.com; h=from:to:received:received; a=rsa-sha256; bh=; b=;&lt;/signatureTemplate&gt;
+ *   &lt;signingDomains&gt;example.com, example.org&lt;/signingDomains&gt;
+ *   &lt;privateKeyFilepath.example.com&gt;example.com.pem&lt;/privateKeyFilepath.example.com&gt;
+ *   &lt;privateKeyFilepath.example.org&gt;example.org.pem&lt;/privateKeyFilepath.example.org&gt;
+ * &lt;/mailet&gt;
+ * </code></pre>
+ *
  * By default the mailet assume that Javamail will convert LF to CRLF when sending
  * so will compute the hash using converted newlines. If you don't want this
  * behaviour then set forceCRLF attribute to false.
  */
 public class DKIMSign extends GenericMailet {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DKIMSign.class);
+    private static final Pattern SIGNING_DOMAIN_TAG = Pattern.compile("(^|;)(\\s*)d=[^;]*");
 
-    private String signatureTemplate;
-    private PrivateKey privateKey;
+    private DKIMKeyRegistry keyRegistry;
     private boolean forceCRLF;
 
-    /**
-     * @return the signatureTemplate
-     */
-    private String getSignatureTemplate() {
-        return signatureTemplate;
+    public void init() throws MessagingException {
+        forceCRLF = getInitParameter("forceCRLF", true);
+        Optional<String> signatureTemplate = getInitParameterAsOptional("signatureTemplate");
+
+        ImmutableMap.Builder<Domain, DKIMKeyRegistry.SigningKey> keysByDomain = ImmutableMap.builder();
+        for (Domain domain : signingDomains()) {
+            String domainSignatureTemplate = getInitParameterAsOptional("signatureTemplate." + domain.asString())
+                .or(() -> signatureTemplate.map(template -> withSigningDomain(template, domain)))
+                .orElseThrow(() -> new MessagingException("No signature template for signing domain " + domain.asString()));
+            keysByDomain.put(domain, new DKIMKeyRegistry.SigningKey(domainSignatureTemplate, loadPrivateKey("." + domain.asString())));
+        }
+        Map<Domain, DKIMKeyRegistry.SigningKey> domainKeys = keysByDomain.build();
+
+        if (signatureTemplate.isEmpty() && domainKeys.isEmpty()) {
+            throw new MessagingException("'signatureTemplate' or 'signingDomains' needs to be specified");
+        }
+        Optional<DKIMKeyRegistry.SigningKey> defaultKey = Optional.empty();
+        if (signatureTemplate.isPresent() && hasPrivateKey("")) {
+            defaultKey = Optional.of(new DKIMKeyRegistry.SigningKey(signatureTemplate.get(), loadPrivateKey("")));
+        } else if (domainKeys.isEmpty()) {
+            throw new MessagingException("'privateKey' or 'privateKeyFilepath' needs to be specified");
+        }
+
+        keyRegistry = new DKIMKeyRegistry(defaultKey, domainKeys);
     }
 
-    /**
-     * @return the privateKey
-     */
-    private PrivateKey getPrivateKey() {
-        return privateKey;
+    private List<Domain> signingDomains() {
+        return getInitParameterAsOptional("signingDomains")
+            .map(domains -> Splitter.on(',').trimResults().omitEmptyStrings().splitToList(domains))
+            .orElse(ImmutableList.of())
+            .stream()
+            .map(Domain::of)
+            .collect(Guavate.toImmutableList());
     }
 
-    public void init() throws MessagingException {
-        signatureTemplate = getInitParameter("signatureTemplate");
-        Optional<String> privateKeyPassword = getInitParameterAsOptional("privateKeyPassword");
-        forceCRLF = getInitParameter("forceCRLF", true);
+    private boolean hasPrivateKey(String suffix) {
+        return getInitParameterAsOptional("privateKey" + suffix).isPresent()
+            || getInitParameterAsOptional("privateKeyFilepath" + suffix).isPresent();
+    }
+
+    private PrivateKey loadPrivateKey(String suffix) throws MessagingException {
+        if (!hasPrivateKey(suffix)) {
+            throw new MessagingException("'privateKey" + suffix + "' or 'privateKeyFilepath" + suffix + "' needs to be specified");
+        }
+        Optional<String> privateKeyPassword = getInitParameterAsOptional("privateKeyPassword" + suffix);
 
         try {
             char[] passphrase = privateKeyPassword.map(String::toCharArray).orElse(null);
-            InputStream pem = getInitParameterAsOptional("privateKey")
+            InputStream pem = getInitParameterAsOptional("privateKey" + suffix)
                 .map(String::getBytes)
                 .map(ByteArrayInputStream::new)
                 .map(byteArrayInputStream -> (InputStream) byteArrayInputStream)
-                .orElseGet(Throwing.supplier(() -> ClassLoader.getSystemResourceAsStream(getInitParameter("privateKeyFilepath"))).sneakyThrow());
+                .orElseGet(Throwing.supplier(() -> ClassLoader.getSystemResourceAsStream(getInitParameter("privateKeyFilepath" + suffix))).sneakyThrow());
 
-            privateKey = extractPrivateKey(pem, passphrase);
+            return extractPrivateKey(pem, passphrase);
         } catch (NoSuchAlgorithmException e) {
             throw new MessagingException("Unknown private key algorythm: " + e.getMessage(), e);
         } catch (InvalidKeySpecException e) {
@@ -142,20 +203,33 @@ public class DKIMSign extends GenericMailet {
         }
     }
 
+    @VisibleForTesting
+    static String withSigningDomain(String signatureTemplate, Domain domain) {
+        return SIGNING_DOMAIN_TAG.matcher(signatureTemplate)
+            .replaceFirst("$1$2d=" + Matcher.quoteReplacement(domain.asString()));
+    }
+
     public void service(Mail mail) throws MessagingException {
-        DKIMSigner signer = new DKIMSigner(getSignatureTemplate(), getPrivateKey());
+        MimeMessage message = mail.getMessage();
+        Optional<Domain> senderDomain = senderDomain(mail, message);
+        Optional<DKIMKeyRegistry.SigningKey> signingKey = keyRegistry.keyFor(senderDomain);
+        if (signingKey.isEmpty()) {
+            LOGGER.debug("No DKIM key for sender domain {}, {} is left unsigned", senderDomain, mail.getName());
+            return;
+        }
+
+        DKIMSigner signer = signingKey.get().getSigner();
         SignatureRecord signRecord = signer
-                .newSignatureRecordTemplate(getSignatureTemplate());
+                .newSignatureRecordTemplate(signingKey.get().getSignatureTemplate());
         try {
             BodyHasher bhj = signer.newBodyHasher(signRecord);
-            MimeMessage message = mail.getMessage();
             Headers headers = new MimeMessageHeaders(message);
             try {
-                OutputStream os = new HeaderSkippingOutputStream(bhj.getOutputStream());
+                OutputStream os = bhj.getOutputStream();
                 if (forceCRLF) {
                     os = new CRLFOutputStream(os);
                 }
-                message.writeTo(os);
+                MimeMessageBodyWriter.writeBody(message, os);
             } catch (IOException e) {
                 throw new MessagingException("Exception calculating bodyhash: " + e.getMessage(), e);
             } finally {
@@ -166,27 +240,48 @@ public class DKIMSign extends GenericMailet {
                 }
             }
             String signatureHeader = signer.sign(headers, bhj);
-            // Unfortunately JavaMail does not give us a method to add headers
-            // on top.
-            // message.addHeaderLine(signatureHeader);
-            prependHeader(message, signatureHeader);
+            // JavaMail does not give us a method to add headers on top: James messages
+            // support it natively, other messages get their headers re-added.
+            MimeMessageUtil.prependHeaderLine(message, signatureHeader);
         } catch (PermFailException e) {
             throw new MessagingException("PermFail while signing: " + e.getMessage(), e);
         }
 
     }
 
-    private void prependHeader(MimeMessage message, String signatureHeader)
-            throws MessagingException {
-        List<String> prevHeader = Collections.list(message.getAllHeaderLines());
-        Collections.list(message.getAllHeaders())
+    private Optional<Domain> senderDomain(Mail mail, MimeMessage message) throws MessagingException {
+        Optional<Domain> fromDomain = fromAddresses(message)
             .stream()
-            .map(Header::getName)
-            .forEach(Throwing.consumer(message::removeHeader).sneakyThrow());
+            .flatMap(Arrays::stream)
+            .filter(InternetAddress.class::isInstance)
+            .map(address -> ((InternetAddress) address).getAddress())
+            .filter(Objects::nonNull)
+            .filter(address -> address.contains("@"))
+            .flatMap(address -> parseDomain(address.substring(address.lastIndexOf('@') + 1)).stream())
+            .findFirst();
+        if (fromDomain.isPresent()) {
+            return fromDomain;
+        }
+        return mail.getMaybeSender().asOptional().map(MailAddress::getDomain);
+    }
+
+    // A malformed From header is ignored: the envelope sender, or the default key, is then used
+    private Optional<Address[]> fromAddresses(MimeMessage message) throws MessagingException {
+        try {
+            return Optional.ofNullable(message.getFrom());
+        } catch (AddressException e) {
+            LOGGER.debug("Ignoring malformed From header", e);
+            return Optional.empty();
+        }
+    }
 
-        message.addHeaderLine(signatureHeader);
-        prevHeader
-            .forEach(Throwing.consumer(message::addHeaderLine).sneakyThrow());
+    private Optional<Domain> parseDomain(String domain) {
+        try {
+            return Optional.of(Domain.of(domain));
+        } catch (IllegalArgumentException e) {
+            LOGGER.debug("Ignoring invalid From domain '{}'", domain);
+            return Optional.empty();
+        }
     }
 
     private PrivateKey extractPrivateKey(InputStream rawKey, char[] passphrase) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
@@ -48,12 +48,11 @@ public class DKIMVerifier {
         BodyHasher bh = originalVerifier.newBodyHasher(headers);
         try {
             if (bh != null) {
-                OutputStream os = new HeaderSkippingOutputStream(bh
-                    .getOutputStream());
+                OutputStream os = bh.getOutputStream();
                 if (forceCRLF) {
                     os = new CRLFOutputStream(os);
                 }
-                message.writeTo(os);
+                MimeMessageBodyWriter.writeBody(message, os);
             }
 
         } catch (IOException e) {
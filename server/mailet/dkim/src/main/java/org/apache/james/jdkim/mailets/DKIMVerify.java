@@ -19,6 +19,8 @@
 
 package org.apache.james.jdkim.mailets;
 
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +31,7 @@ import javax.mail.internet.MimeMessage;
 import org.apache.james.jdkim.api.PublicKeyRecordRetriever;
 import org.apache.james.jdkim.api.SignatureRecord;
 import org.apache.james.jdkim.exceptions.FailException;
+import org.apache.james.util.DurationParser;
 import org.apache.mailet.Attribute;
 import org.apache.mailet.AttributeName;
 import org.apache.mailet.AttributeValue;
@@ -49,11 +52,19 @@ import com.google.common.annotations.VisibleForTesting;
  * By default the mailet assume that Javamail will use LF instead of CRLF
  * so it will verify the hash using converted newlines. If you don't want this
  * behaviour then set forceCRLF attribute to false.
+ *
+ * Retrieved public key records are cached for <code>publicKeyCacheTtl</code> (defaults to one hour,
+ * a zero duration disables caching), up to <code>publicKeyCacheSize</code> records (defaults to 10000).
  */
 public class DKIMVerify extends GenericMailet {
 
     public static final AttributeName DKIM_AUTH_RESULT = AttributeName.of("jDKIM.AUTHRESULT");
 
+    private static final Duration DEFAULT_PUBLIC_KEY_CACHE_TTL = Duration.ofHours(1);
+    private static final long DEFAULT_PUBLIC_KEY_CACHE_SIZE = 10000;
+
+    private final PublicKeyRecordRetriever publicKeyRecordRetriever;
+
     @VisibleForTesting
     DKIMVerifier verifier;
 
@@ -61,12 +72,29 @@ public class DKIMVerify extends GenericMailet {
 
     @Inject
     public DKIMVerify(PublicKeyRecordRetriever publicKeyRecordRetriever) {
-        verifier = new DKIMVerifier(publicKeyRecordRetriever);
+        this.publicKeyRecordRetriever = publicKeyRecordRetriever;
+        this.verifier = new DKIMVerifier(publicKeyRecordRetriever);
     }
 
     @Override
-    public void init() {
+    public void init() throws MessagingException {
         forceCRLF = getInitParameter("forceCRLF", true);
+
+        Duration publicKeyCacheTtl = getInitParameterAsOptional("publicKeyCacheTtl")
+            .map(value -> DurationParser.parse(value, ChronoUnit.SECONDS))
+            .orElse(DEFAULT_PUBLIC_KEY_CACHE_TTL);
+        long publicKeyCacheSize = getInitParameterAsOptional("publicKeyCacheSize")
+            .map(Long::parseLong)
+            .orElse(DEFAULT_PUBLIC_KEY_CACHE_SIZE);
+        if (publicKeyCacheTtl.isNegative() || publicKeyCacheSize < 0) {
+            throw new MessagingException("'publicKeyCacheTtl' and 'publicKeyCacheSize' should not be negative");
+        }
+
+        if (publicKeyCacheTtl.isZero() || publicKeyCacheSize == 0) {
+            verifier = new DKIMVerifier(publicKeyRecordRetriever);
+        } else {
+            verifier = new DKIMVerifier(new CachingPublicKeyRecordRetriever(publicKeyRecordRetriever, publicKeyCacheTtl, publicKeyCacheSize));
+        }
     }
 
     public void service(Mail mail) throws MessagingException {
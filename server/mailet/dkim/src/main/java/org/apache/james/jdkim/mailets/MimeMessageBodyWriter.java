@@ -0,0 +1,55 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+
+package org.apache.james.jdkim.mailets;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+
+import org.apache.james.server.core.MimeMessageCopyOnWriteProxy;
+import org.apache.james.server.core.MimeMessageWrapper;
+
+/**
+ * Writes the body of a message, as it would be transmitted, for body hashing purposes.
+ *
+ * James messages are written straight from their source: the headers are not serialized
+ * and an unmodified body is neither parsed nor re-encoded.
+ */
+class MimeMessageBodyWriter {
+
+    static void writeBody(MimeMessage message, OutputStream bodyOutputStream) throws IOException, MessagingException {
+        MimeMessage unwrapped = unwrap(message);
+        if (unwrapped instanceof MimeMessageWrapper) {
+            ((MimeMessageWrapper) unwrapped).writeTo(OutputStream.nullOutputStream(), bodyOutputStream);
+        } else {
+            message.writeTo(new HeaderSkippingOutputStream(bodyOutputStream));
+        }
+    }
+
+    private static MimeMessage unwrap(MimeMessage message) {
+        if (message instanceof MimeMessageCopyOnWriteProxy) {
+            return ((MimeMessageCopyOnWriteProxy) message).getWrappedMessage();
+        }
+        return message;
+    }
+}
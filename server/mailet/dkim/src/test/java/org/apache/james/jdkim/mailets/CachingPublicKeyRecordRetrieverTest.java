@@ -0,0 +1,106 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+
+package org.apache.james.jdkim.mailets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.james.jdkim.api.PublicKeyRecordRetriever;
+import org.apache.james.jdkim.exceptions.TempFailException;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+class CachingPublicKeyRecordRetrieverTest {
+    private static final String RECORD = "v=DKIM1; k=rsa; p=MIGfMA0GCSqGSIb3DQEBAQUAA4GNADCBiQKBgQDYDaYKXzwVYwqWbLhmuJ66aTAN8wmDR+rfHE8HfnkSOax0oIoTM5zquZrTLo30870YMfYzxwfB6j/Nz3QdwrUD/t0YMYJiUKyWJnCKfZXHJBJ+yfRHr7oW+UW3cVo9CG2bBfIxsInwYe175g9UjyntJpWueqdEIo1c2bhv9Mp66QIDAQAB;";
+
+    @Test
+    void getRecordsShouldReturnTheDelegateRecords() throws Exception {
+        CachingPublicKeyRecordRetriever testee = new CachingPublicKeyRecordRetriever(
+            new MockPublicKeyRecordRetriever(RECORD, "selector", "example.com"), Duration.ofHours(1), 100);
+
+        assertThat(testee.getRecords("dns/txt", "selector", "example.com")).containsExactly(RECORD);
+    }
+
+    @Test
+    void getRecordsShouldCacheRecords() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        PublicKeyRecordRetriever delegate = (methodAndOptions, selector, token) -> {
+            calls.incrementAndGet();
+            return ImmutableList.of(RECORD);
+        };
+        CachingPublicKeyRecordRetriever testee = new CachingPublicKeyRecordRetriever(delegate, Duration.ofHours(1), 100);
+
+        testee.getRecords("dns/txt", "selector", "example.com");
+        testee.getRecords("dns/txt", "selector", "example.com");
+
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void getRecordsShouldNotShareRecordsBetweenDomains() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        PublicKeyRecordRetriever delegate = (methodAndOptions, selector, token) -> {
+            calls.incrementAndGet();
+            return ImmutableList.of(RECORD);
+        };
+        CachingPublicKeyRecordRetriever testee = new CachingPublicKeyRecordRetriever(delegate, Duration.ofHours(1), 100);
+
+        testee.getRecords("dns/txt", "selector", "example.com");
+        testee.getRecords("dns/txt", "selector", "example.org");
+
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void getRecordsShouldPropagateAndNotCacheFailures() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        PublicKeyRecordRetriever delegate = (methodAndOptions, selector, token) -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new TempFailException("Timeout");
+            }
+            return ImmutableList.of(RECORD);
+        };
+        CachingPublicKeyRecordRetriever testee = new CachingPublicKeyRecordRetriever(delegate, Duration.ofHours(1), 100);
+
+        assertThatThrownBy(() -> testee.getRecords("dns/txt", "selector", "example.com"))
+            .isInstanceOf(TempFailException.class);
+        assertThat(testee.getRecords("dns/txt", "selector", "example.com")).containsExactly(RECORD);
+    }
+
+    @Test
+    void getRecordsShouldNotCacheMissingRecords() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        PublicKeyRecordRetriever delegate = (methodAndOptions, selector, token) -> {
+            if (calls.incrementAndGet() == 1) {
+                return null;
+            }
+            return ImmutableList.of(RECORD);
+        };
+        CachingPublicKeyRecordRetriever testee = new CachingPublicKeyRecordRetriever(delegate, Duration.ofHours(1), 100);
+
+        assertThat(testee.getRecords("dns/txt", "selector", "example.com")).isEmpty();
+        assertThat(testee.getRecords("dns/txt", "selector", "example.com")).containsExactly(RECORD);
+    }
+}
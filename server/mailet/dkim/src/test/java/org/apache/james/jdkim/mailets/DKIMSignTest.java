@@ -20,6 +20,7 @@
 package org.apache.james.jdkim.mailets;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Fail.fail;
 
 import java.io.ByteArrayInputStream;
@@ -34,19 +35,26 @@ import javax.mail.Session;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimeMessage.RecipientType;
+import javax.mail.util.SharedByteArrayInputStream;
 
+import org.apache.james.core.Domain;
 import org.apache.james.jdkim.api.SignatureRecord;
 import org.apache.james.jdkim.exceptions.FailException;
 import org.apache.james.jdkim.exceptions.PermFailException;
+import org.apache.james.server.core.MimeMessageInputStreamSource;
+import org.apache.james.server.core.MimeMessageWrapper;
 import org.apache.james.util.MimeMessageUtil;
 import org.apache.mailet.Mail;
 import org.apache.mailet.Mailet;
 import org.apache.mailet.base.test.FakeMail;
 import org.apache.mailet.base.test.FakeMailContext;
 import org.apache.mailet.base.test.FakeMailetConfig;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import com.google.common.base.Strings;
+
 class DKIMSignTest {
 
     private static final String PKCS1_PEM_FILE = "test-dkim-pkcs1.pem";
@@ -350,4 +358,177 @@ class DKIMSignTest {
         }
     }
 
+    @Test
+    void serviceShouldUseTheKeyOfTheSenderDomain() throws Exception {
+        FakeMailetConfig mci = FakeMailetConfig.builder()
+                .mailetName("Test")
+                .mailetContext(FAKE_MAIL_CONTEXT)
+                .setProperty(
+                        "signatureTemplate",
+                        "v=1; s=selector; d=example.com; h=from:to:received:received; a=rsa-sha256; bh=; b=;")
+                .setProperty("signingDomains", "example.org")
+                .setProperty("privateKeyFilepath.example.org", PKCS1_PEM_FILE)
+                .build();
+
+        Mailet mailet = new DKIMSign();
+        mailet.init(mci);
+
+        Mail mail = FakeMail.builder()
+            .name("test")
+            .mimeMessage(new MimeMessage(Session
+                .getDefaultInstance(new Properties()),
+                new ByteArrayInputStream("From: apache@example.org\r\nTo: apache@bago.org\r\n\r\nbody\r\nprova\r\n".getBytes())))
+            .build();
+
+        mailet.service(mail);
+
+        ByteArrayOutputStream rawMessage = new ByteArrayOutputStream();
+        mail.getMessage().writeTo(rawMessage);
+
+        MockPublicKeyRecordRetriever mockPublicKeyRecordRetriever = new MockPublicKeyRecordRetriever(
+                "v=DKIM1; k=rsa; p=MIGfMA0GCSqGSIb3DQEBAQUAA4GNADCBiQKBgQDYDaYKXzwVYwqWbLhmuJ66aTAN8wmDR+rfHE8HfnkSOax0oIoTM5zquZrTLo30870YMfYzxwfB6j/Nz3QdwrUD/t0YMYJiUKyWJnCKfZXHJBJ+yfRHr7oW+UW3cVo9CG2bBfIxsInwYe175g9UjyntJpWueqdEIo1c2bhv9Mp66QIDAQAB;",
+                "selector", "example.org");
+        List<SignatureRecord> signatures = verify(rawMessage, mockPublicKeyRecordRetriever);
+        assertThat(signatures.get(0).getDToken().toString()).isEqualTo("example.org");
+    }
+
+    @Test
+    void serviceShouldFallBackToTheEnvelopeSenderWhenTheFromHeaderIsMalformed() throws Exception {
+        FakeMailetConfig mci = FakeMailetConfig.builder()
+                .mailetName("Test")
+                .mailetContext(FAKE_MAIL_CONTEXT)
+                .setProperty(
+                        "signatureTemplate",
+                        "v=1; s=selector; d=example.com; h=from:to:received:received; a=rsa-sha256; bh=; b=;")
+                .setProperty("signingDomains", "example.org")
+                .setProperty("privateKeyFilepath.example.org", PKCS1_PEM_FILE)
+                .build();
+
+        Mailet mailet = new DKIMSign();
+        mailet.init(mci);
+
+        Mail mail = FakeMail.builder()
+            .name("test")
+            .sender("apache@example.org")
+            .mimeMessage(new MimeMessage(Session
+                .getDefaultInstance(new Properties()),
+                new ByteArrayInputStream("From: apache@exa/mple.org\r\nTo: apache@bago.org\r\n\r\nbody\r\nprova\r\n".getBytes())))
+            .build();
+
+        mailet.service(mail);
+
+        assertThat(mail.getMessage().getHeader("DKIM-Signature")).isNotNull();
+    }
+
+    @Test
+    void serviceShouldFallBackToTheEnvelopeSenderWhenTheFromDomainIsTooLong() throws Exception {
+        FakeMailetConfig mci = FakeMailetConfig.builder()
+                .mailetName("Test")
+                .mailetContext(FAKE_MAIL_CONTEXT)
+                .setProperty(
+                        "signatureTemplate",
+                        "v=1; s=selector; d=example.com; h=from:to:received:received; a=rsa-sha256; bh=; b=;")
+                .setProperty("signingDomains", "example.org")
+                .setProperty("privateKeyFilepath.example.org", PKCS1_PEM_FILE)
+                .build();
+
+        Mailet mailet = new DKIMSign();
+        mailet.init(mci);
+
+        Mail mail = FakeMail.builder()
+            .name("test")
+            .sender("apache@example.org")
+            .mimeMessage(new MimeMessage(Session
+                .getDefaultInstance(new Properties()),
+                new ByteArrayInputStream(("From: apache@" + Strings.repeat("a", 300) + ".org\r\nTo: apache@bago.org\r\n\r\nbody\r\nprova\r\n").getBytes())))
+            .build();
+
+        mailet.service(mail);
+
+        assertThat(mail.getMessage().getHeader("DKIM-Signature")).isNotNull();
+    }
+
+    @Test
+    void serviceShouldNotSignMessagesWithoutMatchingKey() throws Exception {
+        FakeMailetConfig mci = FakeMailetConfig.builder()
+                .mailetName("Test")
+                .mailetContext(FAKE_MAIL_CONTEXT)
+                .setProperty(
+                        "signatureTemplate",
+                        "v=1; s=selector; d=example.com; h=from:to:received:received; a=rsa-sha256; bh=; b=;")
+                .setProperty("signingDomains", "example.org")
+                .setProperty("privateKeyFilepath.example.org", PKCS1_PEM_FILE)
+                .build();
+
+        Mailet mailet = new DKIMSign();
+        mailet.init(mci);
+
+        Mail mail = FakeMail.builder()
+            .name("test")
+            .mimeMessage(new MimeMessage(Session
+                .getDefaultInstance(new Properties()),
+                new ByteArrayInputStream("From: apache@bago.org\r\nTo: apache@bago.org\r\n\r\nbody\r\nprova\r\n".getBytes())))
+            .build();
+
+        mailet.service(mail);
+
+        assertThat(mail.getMessage().getHeader("DKIM-Signature")).isNull();
+    }
+
+    @Test
+    void serviceShouldPrependTheSignatureWithoutModifyingJamesMessageBodies() throws Exception {
+        String message = "Received: by 10.XX.XX.12 with SMTP id dfgskldjfhgkljsdfhgkljdhfg;\r\n\tTue, 06 Oct 2009 07:37:34 -0700 (PDT)\r\nFrom: apache@bago.org\r\nTo: apache@bago.org\r\n\r\nbody\r\nprova\r\n";
+
+        FakeMailetConfig mci = FakeMailetConfig.builder()
+                .mailetName("Test")
+                .mailetContext(FAKE_MAIL_CONTEXT)
+                .setProperty(
+                        "signatureTemplate",
+                        "v=1; s=selector; d=example.com; h=from:to:received; a=rsa-sha256; bh=; b=;")
+                .setProperty("privateKeyFilepath", PKCS1_PEM_FILE)
+                .build();
+
+        Mailet mailet = new DKIMSign();
+        mailet.init(mci);
+
+        MimeMessageWrapper mimeMessage = new MimeMessageWrapper(new MimeMessageInputStreamSource("test",
+            new SharedByteArrayInputStream(message.getBytes())));
+        Mail mail = FakeMail.builder()
+            .name("test")
+            .mimeMessage(mimeMessage)
+            .build();
+
+        mailet.service(mail);
+
+        assertThat(mimeMessage.isBodyModified()).isFalse();
+        assertThat(mimeMessage.getAllHeaderLines().nextElement()).startsWith("DKIM-Signature:");
+
+        ByteArrayOutputStream rawMessage = new ByteArrayOutputStream();
+        mail.getMessage().writeTo(rawMessage);
+
+        MockPublicKeyRecordRetriever mockPublicKeyRecordRetriever = new MockPublicKeyRecordRetriever(
+                "v=DKIM1; k=rsa; p=MIGfMA0GCSqGSIb3DQEBAQUAA4GNADCBiQKBgQDYDaYKXzwVYwqWbLhmuJ66aTAN8wmDR+rfHE8HfnkSOax0oIoTM5zquZrTLo30870YMfYzxwfB6j/Nz3QdwrUD/t0YMYJiUKyWJnCKfZXHJBJ+yfRHr7oW+UW3cVo9CG2bBfIxsInwYe175g9UjyntJpWueqdEIo1c2bhv9Mp66QIDAQAB;",
+                "selector", "example.com");
+        verify(rawMessage, mockPublicKeyRecordRetriever);
+    }
+
+    @Test
+    void withSigningDomainShouldReplaceTheDomainTag() {
+        assertThat(DKIMSign.withSigningDomain("v=1; s=selector; d=example.com; h=from:to; a=rsa-sha256; bh=; b=;", Domain.of("example.org")))
+            .isEqualTo("v=1; s=selector; d=example.org; h=from:to; a=rsa-sha256; bh=; b=;");
+    }
+
+    @Test
+    void initShouldFailWhenNoKeyIsConfigured() {
+        FakeMailetConfig mci = FakeMailetConfig.builder()
+                .mailetName("Test")
+                .mailetContext(FAKE_MAIL_CONTEXT)
+                .setProperty(
+                        "signatureTemplate",
+                        "v=1; s=selector; d=example.com; h=from:to:received:received; a=rsa-sha256; bh=; b=;")
+                .build();
+
+        assertThatThrownBy(() -> new DKIMSign().init(mci))
+            .isInstanceOf(MessagingException.class);
+    }
 }
@@ -40,10 +40,15 @@ import org.apache.mailet.base.GenericMailet;
  * This mailet is a composition of RecipientRewriteTable, SieveMailet 
  * and MailboxManager configured to mimic the old "LocalDelivery"
  * James 2.3 behavior.
+ *
+ * The optional <code>concurrency</code> parameter (default 1) sets how many recipients the mail is stored for
+ * concurrently. Above one, the message is serialized once and shared by the recipients without specific headers,
+ * which speeds up the delivery of mails having many local recipients.
  */
 public class LocalDelivery extends GenericMailet {
 
     public static final String LOCAL_DELIVERED_MAILS_METRIC_NAME = "localDeliveredMails";
+    private static final int DEFAULT_CONCURRENCY = 1;
     private final UsersRepository usersRepository;
     private final MailboxManager mailboxManager;
     private final MetricFactory metricFactory;
@@ -77,6 +82,9 @@ public class LocalDelivery extends GenericMailet {
                 .metric(metricFactory.generate(LOCAL_DELIVERED_MAILS_METRIC_NAME))
                 .build())
             .consume(getInitParameter("consume", true))
+            .concurrency(getInitParameterAsOptional("concurrency")
+                .map(Integer::parseInt)
+                .orElse(DEFAULT_CONCURRENCY))
             .mailetContext(getMailetContext())
             .build();
     }
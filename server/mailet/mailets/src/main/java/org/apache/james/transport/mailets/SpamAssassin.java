@@ -19,6 +19,7 @@
 
 package org.apache.james.transport.mailets;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.function.Predicate;
 
@@ -28,10 +29,10 @@ import javax.mail.internet.MimeMessage;
 
 import org.apache.james.core.MailAddress;
 import org.apache.james.metrics.api.MetricFactory;
-import org.apache.james.spamassassin.SpamAssassinInvoker;
+import org.apache.james.spamassassin.ReactiveSpamAssassinInvoker;
 import org.apache.james.spamassassin.SpamAssassinResult;
 import org.apache.james.user.api.UsersRepository;
-import org.apache.james.user.api.UsersRepositoryException;
+import org.apache.james.util.DurationParser;
 import org.apache.james.util.Port;
 import org.apache.mailet.Attribute;
 import org.apache.mailet.Mail;
@@ -39,10 +40,14 @@ import org.apache.mailet.PerRecipientHeaders;
 import org.apache.mailet.base.GenericMailet;
 import org.apache.mailet.base.MailetUtil;
 
-import com.github.fge.lambdas.Throwing;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
+
 /**
  * Sends the message through daemonized SpamAssassin (spamd), visit <a
  * href="http://spamassassin.apache.org/">spamassassin.apache.org/</a> for info
@@ -51,6 +56,13 @@ import com.google.common.base.Strings;
  * message exceeds the threshold, the header X-Spam-Flag will be added with the
  * value of YES. The default host for spamd is localhost and the default port is
  * 783.
+ *
+ * spamd is called without blocking: at most <code>spamdMaxConcurrency</code> (default 16) scans run
+ * concurrently, each of them being bounded by <code>spamdTimeout</code> (default 30 seconds). The scans for all the
+ * recipients of a mail run concurrently, so that the mailet, whose API is synchronous, waits once for the slowest
+ * of them rather than for the sum of them. After
+ * <code>spamdFailureThreshold</code> (default 5) consecutive failures, calls to spamd are skipped for
+ * <code>spamdOpenDuration</code> (default 30 seconds), failing fast rather than stalling the spool.
  * 
  * <pre>
  * <code>
@@ -65,11 +77,19 @@ import com.google.common.base.Strings;
  * &lt;mailet notmatch="SenderHostIsLocal" class="SpamAssassin"&gt;
  * &lt;spamdHost&gt;localhost&lt;/spamdHost&gt;
  * &lt;spamdPort&gt;783&lt;/spamdPort&gt;
+ * &lt;spamdMaxConcurrency&gt;16&lt;/spamdMaxConcurrency&gt;
+ * &lt;spamdTimeout&gt;30s&lt;/spamdTimeout&gt;
+ * &lt;spamdFailureThreshold&gt;5&lt;/spamdFailureThreshold&gt;
+ * &lt;spamdOpenDuration&gt;30s&lt;/spamdOpenDuration&gt;
  * </pre>
  */
 public class SpamAssassin extends GenericMailet {
     public static final String SPAMD_HOST = "spamdHost";
     public static final String SPAMD_PORT = "spamdPort";
+    public static final String SPAMD_MAX_CONCURRENCY = "spamdMaxConcurrency";
+    public static final String SPAMD_TIMEOUT = "spamdTimeout";
+    public static final String SPAMD_FAILURE_THRESHOLD = "spamdFailureThreshold";
+    public static final String SPAMD_OPEN_DURATION = "spamdOpenDuration";
     public static final String DEFAULT_HOST = "127.0.0.1";
     public static final int DEFAULT_PORT = 783;
 
@@ -78,6 +98,7 @@ public class SpamAssassin extends GenericMailet {
 
     private String spamdHost;
     private int spamdPort;
+    private ReactiveSpamAssassinInvoker invoker;
 
     @Inject
     public SpamAssassin(MetricFactory metricFactory, UsersRepository usersRepository) {
@@ -93,23 +114,53 @@ public class SpamAssassin extends GenericMailet {
 
         spamdPort = MailetUtil.getInitParameterAsStrictlyPositiveInteger(getInitParameter(SPAMD_PORT), DEFAULT_PORT);
         Port.assertValid(spamdPort);
+
+        invoker = ReactiveSpamAssassinInvoker.builder(metricFactory)
+            .spamdHost(spamdHost)
+            .spamdPort(spamdPort)
+            .maxConcurrency(MailetUtil.getInitParameterAsStrictlyPositiveInteger(getInitParameter(SPAMD_MAX_CONCURRENCY),
+                ReactiveSpamAssassinInvoker.DEFAULT_MAX_CONCURRENCY))
+            .timeout(durationParameter(SPAMD_TIMEOUT, ReactiveSpamAssassinInvoker.DEFAULT_TIMEOUT))
+            .circuitBreaker(
+                MailetUtil.getInitParameterAsStrictlyPositiveInteger(getInitParameter(SPAMD_FAILURE_THRESHOLD),
+                    ReactiveSpamAssassinInvoker.DEFAULT_FAILURE_THRESHOLD),
+                durationParameter(SPAMD_OPEN_DURATION, ReactiveSpamAssassinInvoker.DEFAULT_OPEN_DURATION))
+            .build();
+    }
+
+    private Duration durationParameter(String name, Duration defaultValue) {
+        return Optional.ofNullable(getInitParameter(name))
+            .filter(Predicate.not(Strings::isNullOrEmpty))
+            .map(DurationParser::parse)
+            .orElse(defaultValue);
     }
 
     @Override
     public void service(Mail mail) throws MessagingException {
         MimeMessage message = mail.getMessage();
 
-        // Invoke SpamAssassin connection and scan the message
-        SpamAssassinInvoker sa = new SpamAssassinInvoker(metricFactory, spamdHost, spamdPort);
-        mail.getRecipients()
-            .forEach(
-                Throwing.consumer((MailAddress recipient) -> querySpamAssassin(mail, message, sa, recipient))
-                    .sneakyThrow());
+        try {
+            Flux.fromIterable(mail.getRecipients())
+                .flatMap(recipient -> querySpamAssassin(message, recipient)
+                    .map(result -> Tuples.of(recipient, result)))
+                .collectList()
+                .block()
+                .forEach(recipientResult -> addHeaders(mail, recipientResult.getT1(), recipientResult.getT2()));
+        } catch (RuntimeException e) {
+            Throwable cause = Exceptions.unwrap(e);
+            if (cause instanceof MessagingException) {
+                throw (MessagingException) cause;
+            }
+            throw e;
+        }
     }
 
-    private void querySpamAssassin(Mail mail, MimeMessage message, SpamAssassinInvoker sa, MailAddress recipient) throws MessagingException, UsersRepositoryException {
-        SpamAssassinResult result = sa.scanMail(message, usersRepository.getUsername(recipient));
+    private Mono<SpamAssassinResult> querySpamAssassin(MimeMessage message, MailAddress recipient) {
+        return Mono.fromCallable(() -> usersRepository.getUsername(recipient))
+            .flatMap(username -> invoker.scanMail(message, username));
+    }
 
+    private void addHeaders(Mail mail, MailAddress recipient, SpamAssassinResult result) {
         // Add headers per recipient to mail object
         for (Attribute attribute : result.getHeadersAsAttributes()) {
             mail.addSpecificHeaderForRecipient(PerRecipientHeaders.Header.builder()
@@ -119,6 +170,11 @@ public class SpamAssassin extends GenericMailet {
         }
     }
 
+    @Override
+    public void destroy() {
+        Optional.ofNullable(invoker).ifPresent(ReactiveSpamAssassinInvoker::dispose);
+    }
+
     @Override
     public String getMailetInfo() {
         return "Checks message against SpamAssassin";
@@ -18,12 +18,15 @@
  ****************************************************************/
 package org.apache.james.transport.mailets.delivery;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
@@ -42,6 +45,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
@@ -60,8 +64,10 @@ public class MailDispatcher {
 
     public static class Builder {
         static final boolean CONSUME = true;
+        static final int CONCURRENCY = 1;
         private MailStore mailStore;
         private Optional<Boolean> consume = Optional.empty();
+        private Optional<Integer> concurrency = Optional.empty();
         private MailetContext mailetContext;
 
         public Builder consume(boolean consume) {
@@ -69,6 +75,18 @@ public class MailDispatcher {
             return this;
         }
 
+        /**
+         * Number of recipients the mail is stored for concurrently.
+         *
+         * Above one, the message is serialized once and the same content is appended to the mailboxes of all the
+         * recipients not having specific headers.
+         */
+        public Builder concurrency(int concurrency) {
+            Preconditions.checkArgument(concurrency > 0, "'concurrency' needs to be strictly positive");
+            this.concurrency = Optional.of(concurrency);
+            return this;
+        }
+
         public Builder mailStore(MailStore mailStore) {
             this.mailStore = mailStore;
             return this;
@@ -82,19 +100,21 @@ public class MailDispatcher {
         public MailDispatcher build() {
             Preconditions.checkNotNull(mailStore);
             Preconditions.checkNotNull(mailetContext);
-            return new MailDispatcher(mailStore, consume.orElse(CONSUME), mailetContext);
+            return new MailDispatcher(mailStore, consume.orElse(CONSUME), concurrency.orElse(CONCURRENCY), mailetContext);
         }
 
     }
 
     private final MailStore mailStore;
     private final boolean consume;
+    private final int concurrency;
     private final MailetContext mailetContext;
     private final Scheduler scheduler;
 
-    private MailDispatcher(MailStore mailStore, boolean consume, MailetContext mailetContext) {
+    private MailDispatcher(MailStore mailStore, boolean consume, int concurrency, MailetContext mailetContext) {
         this.mailStore = mailStore;
         this.consume = consume;
+        this.concurrency = concurrency;
         this.mailetContext = mailetContext;
         this.scheduler = Schedulers.elastic();
     }
@@ -130,11 +150,60 @@ public class MailDispatcher {
         // This only works because there is a placeholder inserted by MimeMessageWrapper
         message.setHeader(RFC2822Headers.RETURN_PATH, mail.getMaybeSender().asPrettyString());
 
+        if (concurrency > 1) {
+            return deliverConcurrently(mail, message);
+        }
         List<MailAddress> errors = deliver(mail, message);
 
         return errors;
     }
 
+    private List<MailAddress> deliverConcurrently(Mail mail, MimeMessage message) {
+        AtomicReference<byte[]> sharedContent = new AtomicReference<>();
+        // Copies are serialized when their delivery starts: at most concurrency copies are held in memory at once
+        return Flux.fromIterable(mail.getRecipients())
+            .flatMap(recipient -> Mono.fromCallable(() -> contentFor(mail, message, recipient, sharedContent))
+                .flatMap(content -> storeMailWithRetry(mail, recipient, content))
+                .thenReturn(Optional.<MailAddress>empty())
+                .onErrorResume(ex -> {
+                    LOGGER.error("Error while storing mail.", ex);
+                    return Mono.just(Optional.of(recipient));
+                }), concurrency)
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .collectList()
+            .block();
+    }
+
+    private byte[] contentFor(Mail mail, MimeMessage message, MailAddress recipient, AtomicReference<byte[]> sharedContent) throws MessagingException, IOException {
+        // Specific headers are added to, then removed from, the message itself: serializations can not overlap
+        synchronized (message) {
+            if (!mail.getPerRecipientSpecificHeaders().getHeadersForRecipient(recipient).isEmpty()) {
+                return serializeForRecipient(mail, message, recipient);
+            }
+            if (sharedContent.get() == null) {
+                sharedContent.set(serialize(message));
+            }
+            return sharedContent.get();
+        }
+    }
+
+    private byte[] serializeForRecipient(Mail mail, MimeMessage message, MailAddress recipient) throws MessagingException, IOException {
+        Map<String, List<String>> savedHeaders = saveHeaders(mail, recipient);
+        try {
+            addSpecificHeadersForRecipient(mail, message, recipient);
+            return serialize(message);
+        } finally {
+            restoreHeaders(message, savedHeaders);
+        }
+    }
+
+    private byte[] serialize(MimeMessage message) throws MessagingException, IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        message.writeTo(outputStream);
+        return outputStream.toByteArray();
+    }
+
     private List<MailAddress> deliver(Mail mail, MimeMessage message) {
         List<MailAddress> errors = new ArrayList<>();
         for (MailAddress recipient : mail.getRecipients()) {
@@ -161,6 +230,14 @@ public class MailDispatcher {
            .then();
     }
 
+    private Mono<Void> storeMailWithRetry(Mail mail, MailAddress recipient, byte[] content) {
+       return Mono.fromRunnable((ThrowingRunnable)() -> mailStore.storeMail(recipient, mail, content))
+           .doOnError(error -> LOGGER.error("Error While storing mail.", error))
+           .subscribeOn(scheduler)
+           .retryWhen(Retry.backoff(RETRIES, FIRST_BACKOFF).maxBackoff(MAX_BACKOFF).scheduler(Schedulers.elastic()))
+           .then();
+    }
+
     private Map<String, List<String>> saveHeaders(Mail mail, MailAddress recipient) throws MessagingException {
         ImmutableMap.Builder<String, List<String>> backup = ImmutableMap.builder();
         Collection<String> headersToSave = mail.getPerRecipientSpecificHeaders().getHeaderNamesForRecipient(recipient);
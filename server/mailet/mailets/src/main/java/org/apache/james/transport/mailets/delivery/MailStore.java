@@ -28,4 +28,9 @@ public interface MailStore {
     String DELIVERY_PATH_PREFIX = "DeliveryPath_";
 
     void storeMail(MailAddress recipient, Mail mail) throws MessagingException;
+
+    /**
+     * Stores the given serialized content in place of the message of the mail.
+     */
+    void storeMail(MailAddress recipient, Mail mail, byte[] content) throws MessagingException;
 }
@@ -19,6 +19,9 @@
 
 package org.apache.james.transport.mailets.delivery;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
 
@@ -49,8 +52,20 @@ public class MailboxAppender {
     }
 
     public ComposedMessageId append(MimeMessage mail, Username user, String folder) throws MessagingException {
+        return append(new MimeMessageInputStream(mail), user, folder);
+    }
+
+    /**
+     * Appends an already serialized message, allowing the same content to be delivered to several users without
+     * serializing the {@link MimeMessage} again.
+     */
+    public ComposedMessageId append(byte[] content, Username user, String folder) throws MessagingException {
+        return append(new ByteArrayInputStream(content), user, folder);
+    }
+
+    private ComposedMessageId append(InputStream content, Username user, String folder) throws MessagingException {
         MailboxSession session = createMailboxSession(user);
-        return append(mail, user, useSlashAsSeparator(folder, session), session)
+        return append(content, user, useSlashAsSeparator(folder, session), session)
             .getId();
     }
 
@@ -65,11 +80,11 @@ public class MailboxAppender {
         return destination;
     }
 
-    private AppendResult append(MimeMessage mail, Username user, String folder, MailboxSession session) throws MessagingException {
+    private AppendResult append(InputStream content, Username user, String folder, MailboxSession session) throws MessagingException {
         mailboxManager.startProcessingRequest(session);
         try {
             MailboxPath mailboxPath = MailboxPath.forUser(user, folder);
-            return appendMessageToMailbox(mail, session, mailboxPath);
+            return appendMessageToMailbox(content, session, mailboxPath);
         } catch (MailboxException e) {
             throw new MessagingException("Unable to access mailbox.", e);
         } finally {
@@ -77,7 +92,7 @@ public class MailboxAppender {
         }
     }
 
-    private AppendResult appendMessageToMailbox(MimeMessage mail, MailboxSession session, MailboxPath path) throws MailboxException, MessagingException {
+    private AppendResult appendMessageToMailbox(InputStream content, MailboxSession session, MailboxPath path) throws MailboxException, MessagingException {
         createMailboxIfNotExist(session, path);
         final MessageManager mailbox = mailboxManager.getMailbox(path, session);
         if (mailbox == null) {
@@ -85,7 +100,7 @@ public class MailboxAppender {
         }
         return mailbox.appendMessage(MessageManager.AppendCommand.builder()
             .recent()
-            .build(new MimeMessageInputStream(mail)),
+            .build(content),
             session);
     }
 
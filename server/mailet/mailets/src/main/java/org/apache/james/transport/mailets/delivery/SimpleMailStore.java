@@ -97,6 +97,20 @@ public class SimpleMailStore implements MailStore {
         String locatedFolder = locateFolder(username, mail);
         ComposedMessageId composedMessageId = mailboxAppender.append(mail.getMessage(), username, locatedFolder);
 
+        recordDelivery(recipient, mail, locatedFolder, composedMessageId);
+    }
+
+    @Override
+    public void storeMail(MailAddress recipient, Mail mail, byte[] content) throws MessagingException {
+        Username username = computeUsername(recipient);
+
+        String locatedFolder = locateFolder(username, mail);
+        ComposedMessageId composedMessageId = mailboxAppender.append(content, username, locatedFolder);
+
+        recordDelivery(recipient, mail, locatedFolder, composedMessageId);
+    }
+
+    private void recordDelivery(MailAddress recipient, Mail mail, String locatedFolder, ComposedMessageId composedMessageId) {
         metric.increment();
         LOGGER.info("Local delivered mail {} successfully from {} to {} in folder {} with composedMessageId {}", mail.getName(),
             mail.getMaybeSender().asString(), recipient.asPrettyString(), locatedFolder, composedMessageId);
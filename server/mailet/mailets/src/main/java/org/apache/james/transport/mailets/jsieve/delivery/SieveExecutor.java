@@ -20,10 +20,18 @@
 
 package org.apache.james.transport.mailets.jsieve.delivery;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
 import javax.mail.MessagingException;
 
 import org.apache.commons.logging.Log;
 import org.apache.james.core.MailAddress;
+import org.apache.james.metrics.api.MetricFactory;
 import org.apache.james.server.core.MailImpl;
 import org.apache.james.sieverepository.api.exception.ScriptNotFoundException;
 import org.apache.james.transport.mailets.jsieve.ActionDispatcher;
@@ -33,6 +41,7 @@ import org.apache.jsieve.ConfigurationManager;
 import org.apache.jsieve.SieveConfigurationException;
 import org.apache.jsieve.SieveFactory;
 import org.apache.jsieve.exception.SieveException;
+import org.apache.jsieve.parser.generated.Node;
 import org.apache.jsieve.parser.generated.ParseException;
 import org.apache.jsieve.parser.generated.TokenMgrError;
 import org.apache.mailet.Attribute;
@@ -60,6 +69,7 @@ public class SieveExecutor {
         private SievePoster sievePoster;
         private ResourceLocator resourceLocator;
         private Log log;
+        private MetricFactory metricFactory;
 
         public Builder sievePoster(SievePoster sievePoster) {
             this.sievePoster = sievePoster;
@@ -81,12 +91,18 @@ public class SieveExecutor {
             return this;
         }
 
+        public Builder metricFactory(MetricFactory metricFactory) {
+            this.metricFactory = metricFactory;
+            return this;
+        }
+
         public SieveExecutor build() throws MessagingException {
             Preconditions.checkNotNull(mailetContext);
             Preconditions.checkNotNull(resourceLocator);
             Preconditions.checkNotNull(log);
             Preconditions.checkNotNull(sievePoster);
-            return new SieveExecutor(mailetContext, sievePoster, resourceLocator, log);
+            Preconditions.checkNotNull(metricFactory);
+            return new SieveExecutor(mailetContext, sievePoster, resourceLocator, log, new SieveScriptCache(metricFactory));
         }
     }
 
@@ -95,14 +111,16 @@ public class SieveExecutor {
     private final ResourceLocator resourceLocator;
     private final SieveFactory factory;
     private final ActionDispatcher actionDispatcher;
+    private final SieveScriptCache scriptCache;
 
     public SieveExecutor(MailetContext mailetContext, SievePoster sievePoster,
-                         ResourceLocator resourceLocator, Log log) throws MessagingException {
+                         ResourceLocator resourceLocator, Log log, SieveScriptCache scriptCache) throws MessagingException {
         this.mailetContext = mailetContext;
         this.sievePoster = sievePoster;
         this.resourceLocator = resourceLocator;
         factory = createFactory(log);
         this.actionDispatcher = new ActionDispatcher();
+        this.scriptCache = scriptCache;
     }
 
     private SieveFactory createFactory(Log log) throws MessagingException {
@@ -145,14 +163,31 @@ public class SieveExecutor {
                 // This logging operation is potentially costly
                 LOGGER.debug("Evaluating " + aMailAdapter.toString() + " against \"" + recipient.asPrettyString() + "\"");
             }
-            factory.evaluate(aMailAdapter, factory.parse(userSieveInformation.getScriptContent()));
-        } catch (SieveException | ParseException ex) {
+            factory.evaluate(aMailAdapter, parse(recipient, userSieveInformation));
+        } catch (SieveException | ParseException | IOException ex) {
             handleFailure(recipient, aMail, ex);
         } catch (TokenMgrError ex) {
             handleFailure(recipient, aMail, new SieveException(ex));
         }
     }
 
+    private Node parse(MailAddress recipient, ResourceLocator.UserSieveInformation userSieveInformation) throws ParseException, IOException {
+        String content = readContent(userSieveInformation.getScriptContent());
+        Optional<Node> cachedNode = scriptCache.get(recipient, userSieveInformation.getScriptActivationDate(), content);
+        if (cachedNode.isPresent()) {
+            return cachedNode.get();
+        }
+        Node node = factory.parse(new ByteArrayInputStream(content.getBytes(UTF_8)));
+        scriptCache.store(recipient, userSieveInformation.getScriptActivationDate(), content, node);
+        return node;
+    }
+
+    private String readContent(InputStream scriptContent) throws IOException {
+        try (InputStream inputStream = scriptContent) {
+            return new String(inputStream.readAllBytes(), UTF_8);
+        }
+    }
+
     @VisibleForTesting
     void handleFailure(MailAddress recipient, Mail aMail, Exception ex) throws MessagingException {
         MailImpl errorMail = MailImpl.builder()
@@ -0,0 +1,113 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.transport.mailets.jsieve.delivery;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.apache.james.core.MailAddress;
+import org.apache.james.metrics.api.Metric;
+import org.apache.james.metrics.api.MetricFactory;
+import org.apache.jsieve.parser.generated.Node;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps the parsed Sieve scripts of recipients, so that each delivery does not need to run the parser again.
+ *
+ * An entry is only reused while both the activation date and the content of the active script match the ones read
+ * from the {@link org.apache.james.sieverepository.api.SieveRepository}. Hence any write to the repository, including
+ * from another node, takes effect on the next delivery.
+ */
+public class SieveScriptCache {
+    public static final String HIT_METRIC_NAME = "sieveScriptCacheHit";
+    public static final String MISS_METRIC_NAME = "sieveScriptCacheMiss";
+    private static final long MAXIMUM_SIZE = 10000;
+    private static final Duration EXPIRY = Duration.ofHours(1);
+
+    private static class Key {
+        private final MailAddress recipient;
+        private final ZonedDateTime activationDate;
+
+        private Key(MailAddress recipient, ZonedDateTime activationDate) {
+            this.recipient = recipient;
+            this.activationDate = activationDate;
+        }
+
+        @Override
+        public final boolean equals(Object o) {
+            if (o instanceof Key) {
+                Key that = (Key) o;
+
+                return Objects.equals(this.recipient, that.recipient)
+                    && Objects.equals(this.activationDate, that.activationDate);
+            }
+            return false;
+        }
+
+        @Override
+        public final int hashCode() {
+            return Objects.hash(recipient, activationDate);
+        }
+    }
+
+    private static class ParsedScript {
+        private final String content;
+        private final Node node;
+
+        private ParsedScript(String content, Node node) {
+            this.content = content;
+            this.node = node;
+        }
+    }
+
+    private final Cache<Key, ParsedScript> parsedScripts;
+    private final Metric hitMetric;
+    private final Metric missMetric;
+
+    public SieveScriptCache(MetricFactory metricFactory) {
+        this.parsedScripts = CacheBuilder.newBuilder()
+            .maximumSize(MAXIMUM_SIZE)
+            .expireAfterAccess(EXPIRY)
+            .build();
+        this.hitMetric = metricFactory.generate(HIT_METRIC_NAME);
+        this.missMetric = metricFactory.generate(MISS_METRIC_NAME);
+    }
+
+    public Optional<Node> get(MailAddress recipient, ZonedDateTime activationDate, String content) {
+        Optional<Node> node = Optional.ofNullable(parsedScripts.getIfPresent(new Key(recipient, activationDate)))
+            .filter(parsedScript -> parsedScript.content.equals(content))
+            .map(parsedScript -> parsedScript.node);
+
+        if (node.isPresent()) {
+            hitMetric.increment();
+        } else {
+            missMetric.increment();
+        }
+        return node;
+    }
+
+    public void store(MailAddress recipient, ZonedDateTime activationDate, String content, Node node) {
+        parsedScripts.put(new Key(recipient, activationDate), new ParsedScript(content, node));
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.james.transport.mailets.delivery;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -31,6 +32,7 @@ import java.util.Collection;
 import java.util.List;
 
 import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.james.core.MailAddress;
@@ -330,6 +332,135 @@ public class MailDispatcherTest {
         assertThat(mail.getMessage().getHeader(TEST_HEADER_NAME)).containsOnly(headerValue);
     }
 
+    @Test
+    public void concurrentDispatchShouldStoreMailForEachRecipient() throws Exception {
+        MailDispatcher testee = MailDispatcher.builder()
+            .mailetContext(fakeMailContext)
+            .mailStore(mailStore)
+            .consume(true)
+            .concurrency(4)
+            .build();
+
+        FakeMail mail = FakeMail.builder()
+            .name("name")
+            .sender(MailAddressFixture.OTHER_AT_JAMES)
+            .recipients(MailAddressFixture.ANY_AT_JAMES, MailAddressFixture.ANY_AT_JAMES2)
+            .state("state")
+            .mimeMessage(MimeMessageBuilder.mimeMessageBuilder().setText("content"))
+            .build();
+        testee.dispatch(mail);
+
+        verify(mailStore).storeMail(eq(MailAddressFixture.ANY_AT_JAMES), eq(mail), any(byte[].class));
+        verify(mailStore).storeMail(eq(MailAddressFixture.ANY_AT_JAMES2), eq(mail), any(byte[].class));
+        verifyNoMoreInteractions(mailStore);
+    }
+
+    @Test
+    public void concurrentDispatchShouldShareContentAmongRecipientsWithoutSpecificHeaders() throws Exception {
+        MailDispatcher testee = MailDispatcher.builder()
+            .mailetContext(fakeMailContext)
+            .mailStore(mailStore)
+            .consume(true)
+            .concurrency(4)
+            .build();
+
+        FakeMail mail = FakeMail.builder()
+            .name("name")
+            .sender(MailAddressFixture.OTHER_AT_JAMES)
+            .recipients(MailAddressFixture.ANY_AT_JAMES, MailAddressFixture.ANY_AT_JAMES2)
+            .state("state")
+            .mimeMessage(MimeMessageBuilder.mimeMessageBuilder().setText("content"))
+            .build();
+        testee.dispatch(mail);
+
+        ArgumentCaptor<byte[]> contentCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mailStore).storeMail(eq(MailAddressFixture.ANY_AT_JAMES), eq(mail), contentCaptor.capture());
+        verify(mailStore).storeMail(eq(MailAddressFixture.ANY_AT_JAMES2), eq(mail), contentCaptor.capture());
+
+        assertThat(contentCaptor.getAllValues().get(0)).isSameAs(contentCaptor.getAllValues().get(1));
+    }
+
+    @Test
+    public void concurrentDispatchShouldUpdateReturnPath() throws Exception {
+        MailDispatcher testee = MailDispatcher.builder()
+            .mailetContext(fakeMailContext)
+            .mailStore(mailStore)
+            .consume(false)
+            .concurrency(4)
+            .build();
+
+        FakeMail mail = FakeMail.builder()
+            .name("name")
+            .sender(MailAddressFixture.OTHER_AT_JAMES)
+            .recipients(MailAddressFixture.ANY_AT_JAMES)
+            .mimeMessage(MimeMessageBuilder.mimeMessageBuilder().setText("content"))
+            .state("state")
+            .build();
+        testee.dispatch(mail);
+
+        ArgumentCaptor<byte[]> contentCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mailStore).storeMail(any(MailAddress.class), any(Mail.class), contentCaptor.capture());
+
+        assertThat(MimeMessageUtil.mimeMessageFromBytes(contentCaptor.getValue()).getHeader(RFC2822Headers.RETURN_PATH))
+            .containsOnly("<" + MailAddressFixture.OTHER_AT_JAMES + ">");
+    }
+
+    @Test
+    public void concurrentDispatchShouldAddSpecificHeaderToEachRecipients() throws Exception {
+        AccumulatorHeaderMailStore accumulatorTestHeaderMailStore = new AccumulatorHeaderMailStore(TEST_HEADER_NAME);
+        MailDispatcher testee = MailDispatcher.builder()
+            .mailetContext(fakeMailContext)
+            .mailStore(accumulatorTestHeaderMailStore)
+            .consume(false)
+            .concurrency(4)
+            .build();
+
+        FakeMail mail = FakeMail.builder()
+            .name("name")
+            .sender(MailAddressFixture.OTHER_AT_JAMES)
+            .recipients(MailAddressFixture.ANY_AT_JAMES, MailAddressFixture.ANY_AT_JAMES2, MailAddressFixture.OTHER_AT_JAMES)
+            .mimeMessage(MimeMessageBuilder.mimeMessageBuilder().setText("content"))
+            .state("state")
+            .build();
+        mail.addSpecificHeaderForRecipient(TEST_HEADER_USER1, MailAddressFixture.ANY_AT_JAMES);
+        mail.addSpecificHeaderForRecipient(TEST_HEADER_USER2, MailAddressFixture.ANY_AT_JAMES2);
+        testee.dispatch(mail);
+
+        assertThat(accumulatorTestHeaderMailStore.getHeaderValues(MailAddressFixture.ANY_AT_JAMES))
+            .containsOnly(new String[]{VALUE_FOR_USER_1});
+        assertThat(accumulatorTestHeaderMailStore.getHeaderValues(MailAddressFixture.ANY_AT_JAMES2))
+            .containsOnly(new String[]{VALUE_FOR_USER_2});
+        assertThat(accumulatorTestHeaderMailStore.getHeaderValues(MailAddressFixture.OTHER_AT_JAMES))
+            .isEmpty();
+        assertThat(mail.getMessage().getHeader(TEST_HEADER_NAME)).isNull();
+    }
+
+    @Test
+    public void concurrentDispatchShouldOnlyReportFailingRecipients() throws Exception {
+        MailDispatcher testee = MailDispatcher.builder()
+            .mailetContext(fakeMailContext)
+            .mailStore(mailStore)
+            .consume(true)
+            .concurrency(4)
+            .build();
+        doThrow(new MessagingException())
+            .when(mailStore)
+            .storeMail(eq(MailAddressFixture.ANY_AT_JAMES2), any(Mail.class), any(byte[].class));
+
+        FakeMail mail = FakeMail.builder()
+            .name("name")
+            .sender(MailAddressFixture.OTHER_AT_JAMES)
+            .mimeMessage(MimeMessageBuilder.mimeMessageBuilder().setText("content"))
+            .recipients(MailAddressFixture.ANY_AT_JAMES, MailAddressFixture.ANY_AT_JAMES2)
+            .state("state")
+            .build();
+        testee.dispatch(mail);
+
+        assertThat(fakeMailContext.getSentMails())
+            .hasSize(1)
+            .allSatisfy(sentMail -> assertThat(sentMail.getRecipients()).containsOnly(MailAddressFixture.ANY_AT_JAMES2));
+    }
+
     public static class AccumulatorHeaderMailStore implements MailStore {
         private final ArrayListMultimap<MailAddress, String[]> headerValues;
         private final String headerName;
@@ -341,7 +472,16 @@ public class MailDispatcherTest {
 
         @Override
         public void storeMail(MailAddress recipient, Mail mail) throws MessagingException {
-            String[] header = mail.getMessage().getHeader(headerName);
+            accumulate(recipient, mail.getMessage());
+        }
+
+        @Override
+        public void storeMail(MailAddress recipient, Mail mail, byte[] content) throws MessagingException {
+            accumulate(recipient, MimeMessageUtil.mimeMessageFromBytes(content));
+        }
+
+        private synchronized void accumulate(MailAddress recipient, MimeMessage message) throws MessagingException {
+            String[] header = message.getHeader(headerName);
             if (header != null) {
                 headerValues.put(recipient, header);
             }
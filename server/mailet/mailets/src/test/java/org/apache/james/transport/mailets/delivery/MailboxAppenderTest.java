@@ -22,6 +22,8 @@ package org.apache.james.transport.mailets.delivery;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 
 import javax.mail.MessagingException;
@@ -119,6 +121,50 @@ public class MailboxAppenderTest {
             .hasSize(1);
     }
 
+    @Test
+    void appendShouldAddSerializedContentToDesiredMailbox() throws Exception {
+        byte[] content = "Subject: test\r\n\r\nbody".getBytes(StandardCharsets.UTF_8);
+
+        testee.append(content, USER, FOLDER);
+
+        MessageResultIterator messages = mailboxManager.getMailbox(MailboxPath.forUser(USER, FOLDER), session)
+            .getMessages(MessageRange.all(), FetchGroup.FULL_CONTENT, session);
+
+        assertThat(messages.next().getFullContent().getInputStream())
+            .hasSameContentAs(new ByteArrayInputStream(content));
+    }
+
+    @Test
+    void appendShouldAddSerializedContentToDesiredMailboxWhenMailboxExists() throws Exception {
+        MailboxPath mailboxPath = MailboxPath.forUser(USER, FOLDER);
+        mailboxManager.createMailbox(mailboxPath, session);
+
+        testee.append("Subject: test\r\n\r\nbody".getBytes(StandardCharsets.UTF_8), USER, FOLDER);
+
+        MessageResultIterator messages = mailboxManager.getMailbox(mailboxPath, session)
+            .getMessages(MessageRange.all(), FetchGroup.FULL_CONTENT, session);
+
+        assertThat(messages).toIterable()
+            .hasSize(1);
+    }
+
+    @Test
+    void appendSerializedContentShouldNotAppendToEmptyFolder() {
+        assertThatThrownBy(() -> testee.append("Subject: test\r\n\r\nbody".getBytes(StandardCharsets.UTF_8), USER, EMPTY_FOLDER))
+            .isInstanceOf(MessagingException.class);
+    }
+
+    @Test
+    void appendSerializedContentShouldReplaceSlashBySeparator() throws Exception {
+        testee.append("Subject: test\r\n\r\nbody".getBytes(StandardCharsets.UTF_8), USER, FOLDER + "/any");
+
+        MessageResultIterator messages = mailboxManager.getMailbox(MailboxPath.forUser(USER, FOLDER + ".any"), session)
+            .getMessages(MessageRange.all(), FetchGroup.FULL_CONTENT, session);
+
+        assertThat(messages).toIterable()
+            .hasSize(1);
+    }
+
     @RepeatedTest(20)
     void appendShouldNotFailInConcurrentEnvironment() throws Exception {
         ConcurrentTestRunner.builder()
@@ -25,6 +25,8 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.StandardCharsets;
+
 import javax.mail.internet.MimeMessage;
 
 import org.apache.james.core.MailAddress;
@@ -33,6 +35,9 @@ import org.apache.james.core.builder.MimeMessageBuilder;
 import org.apache.james.metrics.api.Metric;
 import org.apache.james.user.api.UsersRepository;
 import org.apache.james.user.api.UsersRepositoryException;
+import org.apache.mailet.Attribute;
+import org.apache.mailet.AttributeName;
+import org.apache.mailet.AttributeValue;
 import org.apache.mailet.base.MailAddressFixture;
 import org.apache.mailet.base.test.FakeMail;
 import org.junit.Before;
@@ -102,4 +107,36 @@ public class SimpleMailStoreTest {
 
         verify(mailboxAppender).append(any(MimeMessage.class), eq(Username.of(recipient.toString())), eq(FOLDER));
     }
+
+    @Test
+    public void storeMailShouldAppendSerializedContent() throws Exception {
+        MailAddress recipient = MailAddressFixture.OTHER_AT_JAMES;
+        when(usersRepository.getUsername(recipient)).thenReturn(Username.of(recipient.asString()));
+        FakeMail mail = FakeMail.builder()
+            .name("name")
+            .mimeMessage(mimeMessage)
+            .build();
+        byte[] content = "Subject: test\r\n\r\nbody".getBytes(StandardCharsets.UTF_8);
+
+        testee.storeMail(recipient, mail, content);
+
+        verify(mailboxAppender).append(eq(content), eq(Username.of(recipient.asString())), eq(FOLDER));
+    }
+
+    @Test
+    public void storeMailShouldAppendSerializedContentToTheDeliveryPathOfTheRecipient() throws Exception {
+        MailAddress recipient = MailAddressFixture.OTHER_AT_JAMES;
+        Username username = Username.of(recipient.asString());
+        when(usersRepository.getUsername(recipient)).thenReturn(username);
+        FakeMail mail = FakeMail.builder()
+            .name("name")
+            .mimeMessage(mimeMessage)
+            .attribute(new Attribute(AttributeName.of(MailStore.DELIVERY_PATH_PREFIX + username.asString()), AttributeValue.of("Junk")))
+            .build();
+        byte[] content = "Subject: test\r\n\r\nbody".getBytes(StandardCharsets.UTF_8);
+
+        testee.storeMail(recipient, mail, content);
+
+        verify(mailboxAppender).append(eq(content), eq(username), eq("Junk"));
+    }
 }
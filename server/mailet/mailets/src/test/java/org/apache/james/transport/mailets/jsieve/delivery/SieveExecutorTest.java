@@ -23,9 +23,15 @@ import static org.apache.james.transport.mailets.jsieve.delivery.SieveExecutor.S
 import static org.apache.mailet.base.MailAddressFixture.RECIPIENT1;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
 
 import org.apache.commons.logging.Log;
 import org.apache.james.core.builder.MimeMessageBuilder;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
 import org.apache.james.server.core.MailImpl;
 import org.apache.james.transport.mailets.jsieve.ResourceLocator;
 import org.apache.mailet.base.test.FakeMailContext;
@@ -33,17 +39,80 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 class SieveExecutorTest {
+    private static final ZonedDateTime ACTIVATION_DATE = ZonedDateTime.parse("2016-01-14T00:00:00Z");
+
     SieveExecutor testee;
     FakeMailContext mailetContext;
+    ResourceLocator resourceLocator;
+    RecordingMetricFactory metricFactory;
 
     @BeforeEach
     void setUp() throws Exception {
         mailetContext = FakeMailContext.defaultContext();
+        resourceLocator = mock(ResourceLocator.class);
+        metricFactory = new RecordingMetricFactory();
         testee = SieveExecutor.builder()
             .mailetContext(mailetContext)
             .sievePoster(mock(SievePoster.class))
-            .resourceLocator(mock(ResourceLocator.class))
+            .resourceLocator(resourceLocator)
             .log(mock(Log.class))
+            .metricFactory(metricFactory)
+            .build();
+    }
+
+    @Test
+    void executeShouldReuseParsedScriptWhenUnchanged() throws Exception {
+        when(resourceLocator.get(RECIPIENT1))
+            .thenReturn(userSieveInformation(ACTIVATION_DATE, "keep;"))
+            .thenReturn(userSieveInformation(ACTIVATION_DATE, "keep;"));
+
+        testee.execute(RECIPIENT1, mail());
+        testee.execute(RECIPIENT1, mail());
+
+        assertThat(metricFactory.countFor(SieveScriptCache.MISS_METRIC_NAME)).isEqualTo(1);
+        assertThat(metricFactory.countFor(SieveScriptCache.HIT_METRIC_NAME)).isEqualTo(1);
+    }
+
+    @Test
+    void executeShouldParseAgainWhenScriptContentChanged() throws Exception {
+        when(resourceLocator.get(RECIPIENT1))
+            .thenReturn(userSieveInformation(ACTIVATION_DATE, "keep;"))
+            .thenReturn(userSieveInformation(ACTIVATION_DATE, "discard;"));
+
+        testee.execute(RECIPIENT1, mail());
+        testee.execute(RECIPIENT1, mail());
+
+        assertThat(metricFactory.countFor(SieveScriptCache.MISS_METRIC_NAME)).isEqualTo(2);
+        assertThat(metricFactory.countFor(SieveScriptCache.HIT_METRIC_NAME)).isEqualTo(0);
+    }
+
+    @Test
+    void executeShouldParseAgainWhenScriptActivationDateChanged() throws Exception {
+        when(resourceLocator.get(RECIPIENT1))
+            .thenReturn(userSieveInformation(ACTIVATION_DATE, "keep;"))
+            .thenReturn(userSieveInformation(ACTIVATION_DATE.plusDays(1), "keep;"));
+
+        testee.execute(RECIPIENT1, mail());
+        testee.execute(RECIPIENT1, mail());
+
+        assertThat(metricFactory.countFor(SieveScriptCache.MISS_METRIC_NAME)).isEqualTo(2);
+        assertThat(metricFactory.countFor(SieveScriptCache.HIT_METRIC_NAME)).isEqualTo(0);
+    }
+
+    private ResourceLocator.UserSieveInformation userSieveInformation(ZonedDateTime activationDate, String script) {
+        return new ResourceLocator.UserSieveInformation(activationDate, ZonedDateTime.now(),
+            new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private MailImpl mail() throws Exception {
+        return MailImpl.builder()
+            .name("mymail")
+            .sender("sender@localhost")
+            .addRecipient(RECIPIENT1)
+            .mimeMessage(MimeMessageBuilder
+                .mimeMessageBuilder()
+                .setSubject("test")
+                .setText("this is the content"))
             .build();
     }
 
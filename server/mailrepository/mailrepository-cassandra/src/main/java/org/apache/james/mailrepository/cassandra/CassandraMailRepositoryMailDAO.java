@@ -45,11 +45,8 @@ import static org.apache.james.mailrepository.cassandra.MailRepositoryTable.SEND
 import static org.apache.james.mailrepository.cassandra.MailRepositoryTable.STATE;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Date;
@@ -68,6 +65,7 @@ import org.apache.james.core.MailAddress;
 import org.apache.james.core.MaybeSender;
 import org.apache.james.mailrepository.api.MailKey;
 import org.apache.james.mailrepository.api.MailRepositoryUrl;
+import org.apache.james.server.core.MailEnvelopeCodec;
 import org.apache.james.server.core.MailImpl;
 import org.apache.mailet.Attribute;
 import org.apache.mailet.AttributeName;
@@ -234,10 +232,9 @@ public class CassandraMailRepositoryMailDAO implements CassandraMailRepositoryMa
 
     private ImmutableMap<String, ByteBuffer> toRawAttributeMap(Mail mail) {
         return mail.attributes()
-            .map(attribute -> Pair.of(attribute.getName(), attribute.getValue()))
             .collect(Guavate.toImmutableMap(
-                pair -> pair.getLeft().asString(),
-                pair -> toByteBuffer((Serializable) pair.getRight().value())));
+                attribute -> attribute.getName().asString(),
+                attribute -> MailEnvelopeCodec.encodeAttributeValue(attribute.getValue())));
     }
 
     private ImmutableMap<String, UDTValue> toHeaderMap(PerRecipientHeaders perRecipientHeaders) {
@@ -265,18 +262,11 @@ public class CassandraMailRepositoryMailDAO implements CassandraMailRepositoryMa
         return result;
     }
 
-    private ByteBuffer toByteBuffer(Serializable serializable) {
-        try {
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            new ObjectOutputStream(outputStream).writeObject(serializable);
-            return ByteBuffer.wrap(outputStream.toByteArray());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     private AttributeValue<?> fromByteBuffer(ByteBuffer byteBuffer) {
         try {
+            if (MailEnvelopeCodec.isEncoded(byteBuffer)) {
+                return MailEnvelopeCodec.decodeAttributeValue(byteBuffer);
+            }
             byte[] data = new byte[byteBuffer.remaining()];
             byteBuffer.get(data);
             ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(data));
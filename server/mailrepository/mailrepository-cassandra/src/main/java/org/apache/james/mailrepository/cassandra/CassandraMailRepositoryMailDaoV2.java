@@ -44,6 +44,9 @@ import static org.apache.james.mailrepository.cassandra.MailRepositoryTableV2.RE
 import static org.apache.james.mailrepository.cassandra.MailRepositoryTableV2.SENDER;
 import static org.apache.james.mailrepository.cassandra.MailRepositoryTableV2.STATE;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
@@ -60,6 +63,7 @@ import org.apache.james.core.MailAddress;
 import org.apache.james.core.MaybeSender;
 import org.apache.james.mailrepository.api.MailKey;
 import org.apache.james.mailrepository.api.MailRepositoryUrl;
+import org.apache.james.server.core.MailEnvelopeCodec;
 import org.apache.james.server.core.MailImpl;
 import org.apache.mailet.Attribute;
 import org.apache.mailet.AttributeName;
@@ -83,6 +87,11 @@ import com.google.common.collect.ImmutableMap;
 import reactor.core.publisher.Mono;
 
 public class CassandraMailRepositoryMailDaoV2 implements CassandraMailRepositoryMailDaoAPI {
+    // Attributes are stored in a text column: binary encoded values are written as base64, values written as JSON
+    // by previous versions are still read.
+    private static final String JSON_PREFIX = "{";
+    private static final Base64.Encoder BASE64_ENCODER = Base64.getEncoder();
+    private static final Base64.Decoder BASE64_DECODER = Base64.getDecoder();
 
     private final CassandraAsyncExecutor executor;
     private final PreparedStatement insertMail;
@@ -212,7 +221,7 @@ public class CassandraMailRepositoryMailDaoV2 implements CassandraMailRepository
     private List<Attribute> toAttributes(Map<String, String> rowAttributes) {
         return rowAttributes.entrySet()
             .stream()
-            .map(Throwing.function(entry -> new Attribute(AttributeName.of(entry.getKey()), AttributeValue.fromJsonString(entry.getValue()))))
+            .map(Throwing.function(entry -> new Attribute(AttributeName.of(entry.getKey()), fromRawAttributeValue(entry.getValue()))))
             .collect(Guavate.toImmutableList());
     }
 
@@ -222,7 +231,7 @@ public class CassandraMailRepositoryMailDaoV2 implements CassandraMailRepository
 
     private ImmutableMap<String, String> toRawAttributeMap(Mail mail) {
         return mail.attributes()
-            .map(attribute -> Pair.of(attribute.getName().asString(), toJson(attribute.getValue())))
+            .map(attribute -> Pair.of(attribute.getName().asString(), toRawAttributeValue(attribute.getValue())))
             .collect(Guavate.toImmutableMap(Pair::getLeft, Pair::getRight));
     }
 
@@ -247,8 +256,15 @@ public class CassandraMailRepositoryMailDaoV2 implements CassandraMailRepository
         return result;
     }
 
-    private String toJson(AttributeValue<?> attributeValue) {
-        return attributeValue.toJson().toString();
+    private String toRawAttributeValue(AttributeValue<?> attributeValue) {
+        return BASE64_ENCODER.encodeToString(MailEnvelopeCodec.encodeAttributeValue(attributeValue).array());
+    }
+
+    private AttributeValue<?> fromRawAttributeValue(String rawValue) throws IOException {
+        if (rawValue.startsWith(JSON_PREFIX)) {
+            return AttributeValue.fromJsonString(rawValue);
+        }
+        return MailEnvelopeCodec.decodeAttributeValue(ByteBuffer.wrap(BASE64_DECODER.decode(rawValue)));
     }
 
     private MailAddress toMailAddress(String rawValue) {
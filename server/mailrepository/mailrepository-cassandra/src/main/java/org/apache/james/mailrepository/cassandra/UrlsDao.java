@@ -30,12 +30,14 @@ import java.util.Optional;
 
 import javax.inject.Inject;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.mailrepository.api.MailRepositoryUrl;
 
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
+import com.google.common.annotations.VisibleForTesting;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -47,14 +49,19 @@ public class UrlsDao {
     private final PreparedStatement select;
 
     @Inject
-    public UrlsDao(Session session) {
-        this.executor = new CassandraAsyncExecutor(session);
+    public UrlsDao(Session session, CassandraConfiguration cassandraConfiguration) {
+        this.executor = new CassandraAsyncExecutor(session, cassandraConfiguration);
 
         this.insert = prepareInsert(session);
         this.selectAll = prepareSelectAll(session);
         this.select = prepareSelect(session);
     }
 
+    @VisibleForTesting
+    public UrlsDao(Session session) {
+        this(session, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareSelect(Session session) {
         return session.prepare(select(URL)
             .from(TABLE_NAME)
@@ -22,10 +22,10 @@ package org.apache.james.jmap.rfc8621.contract
 import java.io.ByteArrayInputStream
 import java.nio.charset.StandardCharsets
 
-import io.netty.handler.codec.http.HttpHeaderNames.ACCEPT
+import io.netty.handler.codec.http.HttpHeaderNames.{ACCEPT, ACCEPT_RANGES, CONTENT_LENGTH, CONTENT_RANGE, ETAG, IF_NONE_MATCH, IF_RANGE, RANGE}
 import io.restassured.RestAssured.{`given`, requestSpecification}
 import org.apache.commons.io.IOUtils
-import org.apache.http.HttpStatus.{SC_FORBIDDEN, SC_NOT_FOUND, SC_OK, SC_UNAUTHORIZED}
+import org.apache.http.HttpStatus.{SC_FORBIDDEN, SC_NOT_FOUND, SC_NOT_MODIFIED, SC_OK, SC_PARTIAL_CONTENT, SC_REQUESTED_RANGE_NOT_SATISFIABLE, SC_UNAUTHORIZED}
 import org.apache.james.GuiceJamesServer
 import org.apache.james.jmap.http.UserCredential
 import org.apache.james.jmap.rfc8621.contract.DownloadContract.accountId
@@ -531,4 +531,182 @@ trait DownloadContract {
       .body("type", equalTo("about:blank"))
       .body("detail", equalTo("The resource could not be found"))
   }
+
+  @Test
+  def downloadShouldReturnEntityTagAndAcceptRanges(server: GuiceJamesServer): Unit = {
+    val blobId = appendPartFixture(server)
+
+    `given`
+      .basePath("")
+      .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+    .when
+      .get(s"/download/$accountId/$blobId")
+    .`then`
+      .statusCode(SC_OK)
+      .header(ETAG.toString, s""""$blobId"""")
+      .header(ACCEPT_RANGES.toString, "bytes")
+  }
+
+  @Test
+  def downloadShouldReturnNotModifiedWhenIfNoneMatchMatches(server: GuiceJamesServer): Unit = {
+    val blobId = appendPartFixture(server)
+
+    val response = `given`
+      .basePath("")
+      .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+      .header(IF_NONE_MATCH.toString, s""""other", "$blobId"""")
+    .when
+      .get(s"/download/$accountId/$blobId")
+    .`then`
+      .statusCode(SC_NOT_MODIFIED)
+      .header(ETAG.toString, s""""$blobId"""")
+      .extract
+      .body
+      .asString
+
+    assertThat(response).isEmpty()
+  }
+
+  @Test
+  def downloadShouldReturnContentWhenIfNoneMatchDoesNotMatch(server: GuiceJamesServer): Unit = {
+    val blobId = appendPartFixture(server)
+
+    val response = `given`
+      .basePath("")
+      .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+      .header(IF_NONE_MATCH.toString, "\"other\"")
+    .when
+      .get(s"/download/$accountId/$blobId")
+    .`then`
+      .statusCode(SC_OK)
+      .extract
+      .body
+      .asString
+
+    assertThat(response).isEqualTo(fullPartContent(blobId))
+  }
+
+  @Test
+  def downloadShouldReturnPartialContentForASingleRange(server: GuiceJamesServer): Unit = {
+    val blobId = appendPartFixture(server)
+    val content = fullPartContent(blobId)
+
+    val response = `given`
+      .basePath("")
+      .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+      .header(RANGE.toString, "bytes=5-14")
+    .when
+      .get(s"/download/$accountId/$blobId")
+    .`then`
+      .statusCode(SC_PARTIAL_CONTENT)
+      .header(CONTENT_RANGE.toString, s"bytes 5-14/${content.length}")
+      .header(CONTENT_LENGTH.toString, "10")
+      .extract
+      .body
+      .asString
+
+    assertThat(response).isEqualTo(content.substring(5, 15))
+  }
+
+  @Test
+  def downloadShouldReturnPartialContentForASuffixRange(server: GuiceJamesServer): Unit = {
+    val blobId = appendPartFixture(server)
+    val content = fullPartContent(blobId)
+
+    val response = `given`
+      .basePath("")
+      .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+      .header(RANGE.toString, "bytes=-10")
+    .when
+      .get(s"/download/$accountId/$blobId")
+    .`then`
+      .statusCode(SC_PARTIAL_CONTENT)
+      .header(CONTENT_RANGE.toString, s"bytes ${content.length - 10}-${content.length - 1}/${content.length}")
+      .extract
+      .body
+      .asString
+
+    assertThat(response).isEqualTo(content.substring(content.length - 10))
+  }
+
+  @Test
+  def downloadShouldReturnRangeNotSatisfiableWhenRangeStartsAfterTheEnd(server: GuiceJamesServer): Unit = {
+    val blobId = appendPartFixture(server)
+    val content = fullPartContent(blobId)
+
+    `given`
+      .basePath("")
+      .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+      .header(RANGE.toString, s"bytes=${content.length}-")
+    .when
+      .get(s"/download/$accountId/$blobId")
+    .`then`
+      .statusCode(SC_REQUESTED_RANGE_NOT_SATISFIABLE)
+      .header(CONTENT_RANGE.toString, s"bytes */${content.length}")
+  }
+
+  @Test
+  def downloadShouldReturnPartialContentWhenIfRangeMatches(server: GuiceJamesServer): Unit = {
+    val blobId = appendPartFixture(server)
+    val content = fullPartContent(blobId)
+
+    val response = `given`
+      .basePath("")
+      .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+      .header(RANGE.toString, "bytes=0-9")
+      .header(IF_RANGE.toString, s""""$blobId"""")
+    .when
+      .get(s"/download/$accountId/$blobId")
+    .`then`
+      .statusCode(SC_PARTIAL_CONTENT)
+      .extract
+      .body
+      .asString
+
+    assertThat(response).isEqualTo(content.substring(0, 10))
+  }
+
+  @Test
+  def downloadShouldReturnTheWholeContentWhenIfRangeDoesNotMatch(server: GuiceJamesServer): Unit = {
+    val blobId = appendPartFixture(server)
+    val content = fullPartContent(blobId)
+
+    val response = `given`
+      .basePath("")
+      .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+      .header(RANGE.toString, "bytes=0-9")
+      .header(IF_RANGE.toString, "\"other\"")
+    .when
+      .get(s"/download/$accountId/$blobId")
+    .`then`
+      .statusCode(SC_OK)
+      .extract
+      .body
+      .asString
+
+    assertThat(response).isEqualTo(content)
+  }
+
+  private def appendPartFixture(server: GuiceJamesServer): String = {
+    val path = MailboxPath.inbox(BOB)
+    server.getProbe(classOf[MailboxProbeImpl]).createMailbox(path)
+    val messageId = server.getProbe(classOf[MailboxProbeImpl])
+      .appendMessage(BOB.asString, path, AppendCommand.from(
+        ClassLoader.getSystemResourceAsStream("eml/multipart_simple.eml")))
+      .getMessageId
+
+    s"${messageId.serialize()}_3"
+  }
+
+  private def fullPartContent(blobId: String): String =
+    `given`
+      .basePath("")
+      .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+    .when
+      .get(s"/download/$accountId/$blobId")
+    .`then`
+      .statusCode(SC_OK)
+      .extract
+      .body
+      .asString
 }
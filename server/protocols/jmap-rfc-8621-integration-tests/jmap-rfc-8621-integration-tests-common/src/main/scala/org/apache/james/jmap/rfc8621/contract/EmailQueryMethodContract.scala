@@ -2435,7 +2435,7 @@ trait EmailQueryMethodContract {
   }
 
   @Test
-  def listMailsShouldReturnInvalidArgumentsWhenAnchorParameterIsPresent(): Unit = {
+  def listMailsShouldReturnAnchorNotFoundWhenAnchorIsNotPartOfTheResults(): Unit = {
     val request =
       s"""{
          |  "using": [
@@ -2466,14 +2466,14 @@ trait EmailQueryMethodContract {
       .inPath("$.methodResponses[0][1]")
       .isEqualTo(s"""
        {
-          "type": "invalidArguments",
-          "description": "The following parameter anchor is syntactically valid, but is not supported by the server."
+          "type": "anchorNotFound",
+          "description": "The anchor 123 is not part of the query results."
        }
        """)
   }
 
   @Test
-  def listMailsShouldReturnInvalidArgumentsWhenAnchorOffsetParameterIsPresent(): Unit = {
+  def listMailsShouldIgnoreAnchorOffsetWithoutAnchor(): Unit = {
     val request =
       s"""{
          |  "using": [
@@ -2483,7 +2483,7 @@ trait EmailQueryMethodContract {
          |    "Email/query",
          |    {
          |      "accountId": "29883977c13473ae7cb7678ef767cbfbaffc8a44a6e463d971d23a65c1dc4af6",
-         |      "anchorOffset": 0
+         |      "anchorOffset": 1
          |    },
          |    "c1"]]
          |}""".stripMargin
@@ -2501,13 +2501,139 @@ trait EmailQueryMethodContract {
       .asString
 
     assertThatJson(response)
-      .inPath("$.methodResponses[0][1]")
-      .isEqualTo(s"""
-       {
-          "type": "invalidArguments",
-          "description": "The following parameter anchorOffset is syntactically valid, but is not supported by the server."
-       }
-       """)
+      .inPath("$.methodResponses[0][1].position")
+      .isEqualTo("0")
+  }
+
+  @Test
+  def resultsShouldStartAtTheAnchorProvidedByTheClient(server: GuiceJamesServer): Unit = {
+    val message: Message = buildTestMessage
+    server.getProbe(classOf[MailboxProbeImpl]).createMailbox(MailboxPath.inbox(BOB))
+    val messageId1: MessageId = server.getProbe(classOf[MailboxProbeImpl])
+        .appendMessage(BOB.asString, MailboxPath.inbox(BOB), AppendCommand.builder()
+          .withInternalDate(Date.from(ZonedDateTime.now().minusDays(3).toInstant))
+          .build(message))
+        .getMessageId
+    val messageId2: MessageId = server.getProbe(classOf[MailboxProbeImpl])
+        .appendMessage(BOB.asString, MailboxPath.inbox(BOB), AppendCommand.builder()
+          .withInternalDate(Date.from(ZonedDateTime.now().minusDays(2).toInstant))
+          .build(message))
+        .getMessageId
+    server.getProbe(classOf[MailboxProbeImpl])
+        .appendMessage(BOB.asString, MailboxPath.inbox(BOB), AppendCommand.builder()
+          .withInternalDate(Date.from(ZonedDateTime.now().minusDays(1).toInstant))
+          .build(message))
+        .getMessageId
+
+    val request =
+      s"""{
+         |  "using": [
+         |    "urn:ietf:params:jmap:core",
+         |    "urn:ietf:params:jmap:mail"],
+         |  "methodCalls": [[
+         |    "Email/query",
+         |    {
+         |      "accountId": "29883977c13473ae7cb7678ef767cbfbaffc8a44a6e463d971d23a65c1dc4af6",
+         |      "anchor": "${messageId2.serialize}",
+         |      "comparator": [{
+         |        "property":"receivedAt",
+         |        "isAscending": false
+         |      }]
+         |    },
+         |    "c1"]]
+         |}""".stripMargin
+
+    awaitAtMostTenSeconds.untilAsserted { () =>
+      val response = `given`
+        .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+        .body(request)
+      .when
+        .post
+      .`then`
+        .statusCode(SC_OK)
+        .contentType(JSON)
+        .extract
+        .body
+        .asString
+
+      assertThatJson(response)
+        .inPath("$.methodResponses[0][1]")
+        .isEqualTo(
+          s"""{
+             |    "accountId": "29883977c13473ae7cb7678ef767cbfbaffc8a44a6e463d971d23a65c1dc4af6",
+             |    "queryState": "${generateQueryState(messageId2, messageId1)}",
+             |    "position": 1,
+             |    "limit": 256,
+             |    "canCalculateChanges": false,
+             |    "ids": ["${messageId2.serialize}", "${messageId1.serialize}"]
+             |}""".stripMargin)
+    }
+  }
+
+  @Test
+  def resultsShouldApplyTheAnchorOffsetProvidedByTheClient(server: GuiceJamesServer): Unit = {
+    val message: Message = buildTestMessage
+    server.getProbe(classOf[MailboxProbeImpl]).createMailbox(MailboxPath.inbox(BOB))
+    val messageId1: MessageId = server.getProbe(classOf[MailboxProbeImpl])
+        .appendMessage(BOB.asString, MailboxPath.inbox(BOB), AppendCommand.builder()
+          .withInternalDate(Date.from(ZonedDateTime.now().minusDays(3).toInstant))
+          .build(message))
+        .getMessageId
+    val messageId2: MessageId = server.getProbe(classOf[MailboxProbeImpl])
+        .appendMessage(BOB.asString, MailboxPath.inbox(BOB), AppendCommand.builder()
+          .withInternalDate(Date.from(ZonedDateTime.now().minusDays(2).toInstant))
+          .build(message))
+        .getMessageId
+    server.getProbe(classOf[MailboxProbeImpl])
+        .appendMessage(BOB.asString, MailboxPath.inbox(BOB), AppendCommand.builder()
+          .withInternalDate(Date.from(ZonedDateTime.now().minusDays(1).toInstant))
+          .build(message))
+        .getMessageId
+
+    val request =
+      s"""{
+         |  "using": [
+         |    "urn:ietf:params:jmap:core",
+         |    "urn:ietf:params:jmap:mail"],
+         |  "methodCalls": [[
+         |    "Email/query",
+         |    {
+         |      "accountId": "29883977c13473ae7cb7678ef767cbfbaffc8a44a6e463d971d23a65c1dc4af6",
+         |      "anchor": "${messageId1.serialize}",
+         |      "anchorOffset": -1,
+         |      "comparator": [{
+         |        "property":"receivedAt",
+         |        "isAscending": false
+         |      }]
+         |    },
+         |    "c1"]]
+         |}""".stripMargin
+
+    awaitAtMostTenSeconds.untilAsserted { () =>
+      val response = `given`
+        .header(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+        .body(request)
+      .when
+        .post
+      .`then`
+        .statusCode(SC_OK)
+        .contentType(JSON)
+        .extract
+        .body
+        .asString
+
+      assertThatJson(response)
+        .inPath("$.methodResponses[0][1]")
+        .isEqualTo(
+          s"""{
+             |    "accountId": "29883977c13473ae7cb7678ef767cbfbaffc8a44a6e463d971d23a65c1dc4af6",
+             |    "queryState": "${generateQueryState(messageId2, messageId1)}",
+             |    "position": 1,
+             |    "limit": 256,
+             |    "canCalculateChanges": false,
+             |    "ids": ["${messageId2.serialize}", "${messageId1.serialize}"]
+             |}""".stripMargin)
+    }
   }
 
   @Test
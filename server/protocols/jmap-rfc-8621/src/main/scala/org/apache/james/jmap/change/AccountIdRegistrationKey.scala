@@ -0,0 +1,40 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.change
+
+import org.apache.james.core.Username
+import org.apache.james.jmap.core.{AccountId, Id}
+import org.apache.james.mailbox.events.RegistrationKey
+
+object AccountIdRegistrationKey {
+  def of(username: Username): AccountIdRegistrationKey = AccountId.from(username)
+    .fold(e => throw e, AccountIdRegistrationKey(_))
+}
+
+case class AccountIdRegistrationKey(accountId: AccountId) extends RegistrationKey {
+  override def asString(): String = accountId.id.value
+}
+
+class AccountIdRegistrationKeyFactory extends RegistrationKey.Factory {
+  override val forClass: Class[_ <: RegistrationKey] = classOf[AccountIdRegistrationKey]
+
+  override def fromString(asString: String): RegistrationKey = Id.validate(asString)
+    .fold(e => throw e, id => AccountIdRegistrationKey(AccountId(id)))
+}
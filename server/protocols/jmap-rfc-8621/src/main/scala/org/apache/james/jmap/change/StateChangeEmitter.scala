@@ -0,0 +1,76 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.change
+
+import java.util.UUID
+
+import eu.timepit.refined.collection.NonEmpty
+import eu.timepit.refined.refineV
+import javax.inject.Inject
+import javax.mail.Flags
+import org.apache.james.jmap.core.State.State
+import org.apache.james.mailbox.events.MailboxListener.{Added, Expunged, FlagsUpdated, MailboxACLUpdated, MailboxAdded, MailboxDeletion, MailboxRenamed, ReactiveGroupMailboxListener}
+import org.apache.james.mailbox.events.{Event, EventBus, Group}
+import org.reactivestreams.Publisher
+import reactor.core.scala.publisher.SMono
+
+import scala.jdk.CollectionConverters._
+
+case class StateChangeEmitterGroup() extends Group {}
+
+/**
+ * Turns mailbox events into {@link StateChangeEvent}s dispatched on the {@link AccountIdRegistrationKey} of the
+ * impacted account, where the push connections of that account are listening.
+ */
+class StateChangeEmitter @Inject() (eventBus: EventBus) extends ReactiveGroupMailboxListener {
+
+  override def reactiveEvent(event: Event): Publisher[Void] =
+    toStateChangeEvent(event)
+      .map(stateChangeEvent => SMono(eventBus.dispatch(stateChangeEvent, AccountIdRegistrationKey.of(event.getUsername))))
+      .getOrElse(SMono.empty[Void])
+      .asJava()
+
+  override def getDefaultGroup: Group = StateChangeEmitterGroup()
+
+  override def isHandling(event: Event): Boolean = event match {
+    case _: MailboxAdded | _: MailboxRenamed | _: MailboxACLUpdated | _: MailboxDeletion | _: Added | _: Expunged | _: FlagsUpdated => true
+    case _ => false
+  }
+
+  private def toStateChangeEvent(event: Event): Option[StateChangeEvent] = event match {
+    case _: MailboxAdded | _: MailboxRenamed | _: MailboxACLUpdated =>
+      Some(StateChangeEvent(Event.EventId.random(), event.getUsername, mailboxState = Some(newState()), emailState = None))
+    case mailboxDeletion: MailboxDeletion =>
+      val emailState = Some(mailboxDeletion.getDeletedMessageCount.asLong())
+        .filter(_ > 0)
+        .map(_ => newState())
+      Some(StateChangeEvent(Event.EventId.random(), event.getUsername, mailboxState = Some(newState()), emailState = emailState))
+    case _: Added | _: Expunged =>
+      Some(StateChangeEvent(Event.EventId.random(), event.getUsername, mailboxState = Some(newState()), emailState = Some(newState())))
+    case flagsUpdated: FlagsUpdated =>
+      val isSeenChanged = flagsUpdated.getUpdatedFlags.asScala.exists(_.isChanged(Flags.Flag.SEEN))
+      val mailboxState = Some(newState()).filter(_ => isSeenChanged)
+      Some(StateChangeEvent(Event.EventId.random(), event.getUsername, mailboxState = mailboxState, emailState = Some(newState())))
+    case _ => None
+  }
+
+  private def newState(): State = refineV[NonEmpty](UUID.randomUUID().toString)
+    .fold(e => throw new IllegalStateException(e), state => state)
+}
@@ -0,0 +1,45 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.change
+
+import org.apache.james.core.Username
+import org.apache.james.jmap.core.State.State
+import org.apache.james.jmap.core.{AccountId, EmailTypeName, MailboxTypeName, StateChange, TypeName, TypeState}
+import org.apache.james.mailbox.events.Event
+import org.apache.james.mailbox.events.Event.EventId
+
+case class StateChangeEvent(eventId: EventId,
+                            username: Username,
+                            mailboxState: Option[State],
+                            emailState: Option[State]) extends Event {
+  def asStateChange: StateChange = {
+    val changes: Map[TypeName, State] = Map[TypeName, State]() ++
+      mailboxState.map(state => MailboxTypeName -> state) ++
+      emailState.map(state => EmailTypeName -> state)
+
+    StateChange(Map(AccountId.from(username).fold(e => throw e, accountId => accountId) -> TypeState(changes)))
+  }
+
+  override def getUsername: Username = username
+
+  override def isNoop: Boolean = mailboxState.isEmpty && emailState.isEmpty
+
+  override def getEventId: EventId = eventId
+}
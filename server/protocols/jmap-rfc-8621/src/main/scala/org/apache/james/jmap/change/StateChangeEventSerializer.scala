@@ -0,0 +1,62 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.change
+
+import eu.timepit.refined.collection.NonEmpty
+import eu.timepit.refined.refineV
+import org.apache.james.core.Username
+import org.apache.james.event.json.EventSerializerExtension
+import org.apache.james.jmap.core.State.State
+import org.apache.james.mailbox.events.Event
+import org.apache.james.mailbox.events.Event.EventId
+import play.api.libs.functional.syntax._
+import play.api.libs.json._
+
+/**
+ * Allows {@link StateChangeEvent}s to be carried by distributed event bus implementations.
+ */
+class StateChangeEventSerializer extends EventSerializerExtension {
+  private implicit val eventIdFormat: Format[EventId] = Format(
+    Reads.uuidReads.map(EventId.of),
+    eventId => JsString(eventId.getId.toString))
+  private implicit val usernameFormat: Format[Username] = Format(
+    Reads.StringReads.map(Username.of),
+    username => JsString(username.asString))
+  private implicit val stateFormat: Format[State] = Format(
+    Reads.StringReads.flatMap(string => refineV[NonEmpty](string)
+      .fold(error => Reads.failed[State](error), state => Reads.pure(state))),
+    state => JsString(state.value))
+
+  private implicit val stateChangeEventFormat: Format[StateChangeEvent] = (
+    (JsPath \ "eventId").format[EventId] and
+      (JsPath \ "username").format[Username] and
+      (JsPath \ "mailboxState").formatNullable[State] and
+      (JsPath \ "emailState").formatNullable[State]
+    ) (StateChangeEvent.apply, unlift(StateChangeEvent.unapply))
+
+  override val typeName: String = "StateChangeEvent"
+
+  override def toJson(event: Event): Option[JsValue] = event match {
+    case stateChangeEvent: StateChangeEvent => Some(Json.toJson(stateChangeEvent))
+    case _ => None
+  }
+
+  override def fromJson(json: JsValue): JsResult[Event] = json.validate[StateChangeEvent]
+}
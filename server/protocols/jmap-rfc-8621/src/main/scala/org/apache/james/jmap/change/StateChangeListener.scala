@@ -0,0 +1,66 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.change
+
+import org.apache.james.core.Username
+import org.apache.james.jmap.core.{StateChange, TypeName}
+import org.apache.james.mailbox.events.MailboxListener.ReactiveMailboxListener
+import org.apache.james.mailbox.events.{Event, EventBus}
+import org.reactivestreams.Publisher
+import reactor.core.publisher.{FluxSink, UnicastProcessor}
+import reactor.core.scala.publisher.{SFlux, SMono}
+
+import scala.concurrent.duration._
+
+object StateChangeListener {
+  val COALESCING_WINDOW: FiniteDuration = 500.millis
+  val MAX_COALESCED_CHANGES: Int = 256
+
+  /**
+   * Registers a listener for the changes of the given account for the lifetime of the returned stream.
+   *
+   * Changes happening within the coalescing window are merged into a single notification, so that a burst of updates
+   * (a large delivery, a bulk flag update) results in a single push holding the latest state of each type.
+   */
+  def stateChanges(eventBus: EventBus, username: Username, types: Set[TypeName]): SFlux[StateChange] = {
+    val processor: UnicastProcessor[StateChange] = UnicastProcessor.create()
+    val sink: FluxSink[StateChange] = processor.sink(FluxSink.OverflowStrategy.BUFFER)
+
+    SMono(eventBus.register(StateChangeListener(types, sink), AccountIdRegistrationKey.of(username)))
+      .flatMapMany(registration => SFlux(processor)
+        .doFinally(_ => registration.unregister()))
+      .bufferTimeout(MAX_COALESCED_CHANGES, COALESCING_WINDOW)
+      .filter(_.nonEmpty)
+      .map(_.reduce((previous, next) => previous.merge(next)))
+  }
+}
+
+case class StateChangeListener(types: Set[TypeName], sink: FluxSink[StateChange]) extends ReactiveMailboxListener {
+  override def reactiveEvent(event: Event): Publisher[Void] = event match {
+    case stateChangeEvent: StateChangeEvent => SMono.fromCallable(() => stateChangeEvent.asStateChange
+        .filter(types)
+        .foreach(sink.next))
+      .asJava()
+      .`then`()
+    case _ => SMono.empty[Void].asJava()
+  }
+
+  override def isHandling(event: Event): Boolean = event.isInstanceOf[StateChangeEvent]
+}
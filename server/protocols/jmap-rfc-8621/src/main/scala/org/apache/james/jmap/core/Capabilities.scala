@@ -19,7 +19,7 @@
 package org.apache.james.jmap.core
 
 import eu.timepit.refined.auto._
-import org.apache.james.jmap.core.CapabilityIdentifier.{CapabilityIdentifier, EMAIL_SUBMISSION, JAMES_QUOTA, JAMES_SHARES, JMAP_CORE, JMAP_MAIL, JMAP_VACATION_RESPONSE}
+import org.apache.james.jmap.core.CapabilityIdentifier.{CapabilityIdentifier, EMAIL_SUBMISSION, JAMES_QUOTA, JAMES_SHARES, JMAP_CORE, JMAP_MAIL, JMAP_VACATION_RESPONSE, JMAP_WEBSOCKET}
 
 object DefaultCapabilities {
   private def coreCapability(maxUploadSize: MaxSizeUpload) = CoreCapability(
@@ -44,16 +44,19 @@ object DefaultCapabilities {
   private val SHARES_CAPABILITY = SharesCapability()
   private val VACATION_RESPONSE_CAPABILITY = VacationResponseCapability()
   private val SUBMISSION_CAPABILITY = SubmissionCapability()
+  private def webSocketCapability(configuration: JmapRfc8621Configuration) = WebSocketCapability(
+    properties = WebSocketCapabilityProperties(SupportsPush(true), configuration.webSocketUrl))
 
   val SUPPORTED_CAPABILITY_IDENTIFIERS: Set[CapabilityIdentifier] =
-    Set(JMAP_CORE, JMAP_MAIL, JMAP_VACATION_RESPONSE, JAMES_SHARES, JAMES_QUOTA, EMAIL_SUBMISSION)
+    Set(JMAP_CORE, JMAP_MAIL, JMAP_VACATION_RESPONSE, JAMES_SHARES, JAMES_QUOTA, EMAIL_SUBMISSION, JMAP_WEBSOCKET)
 
-  def supported(maxUploadSize: MaxSizeUpload): Capabilities = Capabilities(coreCapability(maxUploadSize),
+  def supported(configuration: JmapRfc8621Configuration): Capabilities = Capabilities(coreCapability(configuration.maxUploadSize),
     MAIL_CAPABILITY,
     QUOTA_CAPABILITY,
     SHARES_CAPABILITY,
     VACATION_RESPONSE_CAPABILITY,
-    SUBMISSION_CAPABILITY)
+    SUBMISSION_CAPABILITY,
+    webSocketCapability(configuration))
 }
 
 case class Capabilities(capabilities: Capability*) {
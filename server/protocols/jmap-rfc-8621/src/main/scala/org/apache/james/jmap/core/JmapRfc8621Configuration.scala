@@ -19,7 +19,7 @@
 
 package org.apache.james.jmap.core
 
-import java.net.URL
+import java.net.{URI, URL}
 
 import org.apache.commons.configuration2.Configuration
 import org.apache.james.jmap.core.JmapRfc8621Configuration.UPLOAD_LIMIT_30_MB
@@ -47,5 +47,6 @@ case class JmapRfc8621Configuration(urlPrefixString: String, maxUploadSize: MaxS
   val apiUrl: URL = new URL(s"$urlPrefixString/jmap")
   val downloadUrl: URL = new URL(urlPrefixString + "/download/{accountId}/{blobId}/?type={type}&name={name}")
   val uploadUrl: URL = new URL(s"$urlPrefixString/upload/{accountId}")
-  val eventSourceUrl: URL = new URL(s"$urlPrefixString/eventSource")
+  val eventSourceUrl: URL = new URL(urlPrefixString + "/eventSource?types={types}&closeafter={closeafter}&ping={ping}")
+  val webSocketUrl: URI = new URI(urlPrefixString.replaceFirst("^http", "ws") + "/jmap/ws")
 }
@@ -0,0 +1,83 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ * http://www.apache.org/licenses/LICENSE-2.0                   *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.core
+
+import org.apache.james.jmap.core.State.State
+
+sealed trait TypeName {
+  def asString: String
+}
+
+case object MailboxTypeName extends TypeName {
+  override val asString: String = "Mailbox"
+}
+
+case object EmailTypeName extends TypeName {
+  override val asString: String = "Email"
+}
+
+object TypeName {
+  val ALL: Set[TypeName] = Set(MailboxTypeName, EmailTypeName)
+
+  def parse(string: String): Option[TypeName] = ALL.find(_.asString.equals(string))
+}
+
+case class TypeState(changes: Map[TypeName, State]) {
+  def filter(types: Set[TypeName]): Option[TypeState] = Some(TypeState(changes.filter {
+    case (typeName, _) => types.contains(typeName)
+  })).filter(_.changes.nonEmpty)
+
+  def merge(other: TypeState): TypeState = TypeState(changes ++ other.changes)
+}
+
+sealed trait WebSocketInboundMessage
+
+sealed trait WebSocketOutboundMessage
+
+case class RequestId(value: String) extends AnyVal
+
+case class WebSocketRequest(requestId: Option[RequestId], requestObject: RequestObject) extends WebSocketInboundMessage
+
+case class WebSocketPushEnable(dataTypes: Option[Set[TypeName]]) extends WebSocketInboundMessage
+
+case object WebSocketPushDisable extends WebSocketInboundMessage
+
+case class WebSocketResponse(requestId: Option[RequestId], responseObject: ResponseObject) extends WebSocketOutboundMessage
+
+case class WebSocketError(requestId: Option[RequestId], problemDetails: ProblemDetails) extends WebSocketOutboundMessage
+
+/**
+ * Push notification telling, for each account, the new state of the data types that changed.
+ * See https://jmap.io/spec-core.html#the-statechange-object
+ */
+case class StateChange(changes: Map[AccountId, TypeState]) extends WebSocketOutboundMessage {
+  def filter(types: Set[TypeName]): Option[StateChange] = Some(StateChange(changes.flatMap {
+    case (accountId, typeState) => typeState.filter(types).map(accountId -> _)
+  })).filter(_.changes.nonEmpty)
+
+  /**
+   * Combines two state changes, the states of `other` being the most recent ones.
+   */
+  def merge(other: StateChange): StateChange = StateChange(other.changes.foldLeft(changes) {
+    case (merged, (accountId, typeState)) => merged + (accountId -> merged.get(accountId)
+      .map(_.merge(typeState))
+      .getOrElse(typeState))
+  })
+}
@@ -21,7 +21,7 @@ package org.apache.james.jmap.json
 
 import javax.inject.Inject
 import org.apache.james.jmap.core.{CanCalculateChanges, LimitUnparsed, PositionUnparsed, QueryState}
-import org.apache.james.jmap.mail.{AllInThreadHaveKeywordSortProperty, Anchor, AnchorOffset, And, Bcc, Body, Cc, CollapseThreads, Collation, Comparator, EmailQueryRequest, EmailQueryResponse, FilterCondition, FilterOperator, FilterQuery, From, FromSortProperty, HasAttachment, HasKeywordSortProperty, Header, HeaderContains, HeaderExist, IsAscending, Keyword, Not, Operator, Or, ReceivedAtSortProperty, SentAtSortProperty, SizeSortProperty, SomeInThreadHaveKeywordSortProperty, SortProperty, Subject, SubjectSortProperty, Text, To, ToSortProperty}
+import org.apache.james.jmap.mail.{AddedItem, AllInThreadHaveKeywordSortProperty, Anchor, AnchorOffset, And, Bcc, Body, Cc, CollapseThreads, Collation, Comparator, EmailQueryChangesRequest, EmailQueryChangesResponse, EmailQueryRequest, EmailQueryResponse, FilterCondition, FilterOperator, FilterQuery, From, FromSortProperty, HasAttachment, HasKeywordSortProperty, Header, HeaderContains, HeaderExist, IsAscending, Keyword, Not, Operator, Or, ReceivedAtSortProperty, SentAtSortProperty, SizeSortProperty, SomeInThreadHaveKeywordSortProperty, SortProperty, Subject, SubjectSortProperty, Text, To, ToSortProperty}
 import org.apache.james.mailbox.model.{MailboxId, MessageId}
 import play.api.libs.json._
 
@@ -94,7 +94,7 @@ class EmailQuerySerializer @Inject()(mailboxIdFactory: MailboxId.Factory) {
   private implicit val limitUnparsedReads: Reads[LimitUnparsed] = Json.valueReads[LimitUnparsed]
   private implicit val CanCalculateChangesFormat: Format[CanCalculateChanges] = Json.valueFormat[CanCalculateChanges]
 
-  private implicit val queryStateWrites: Writes[QueryState] = Json.valueWrites[QueryState]
+  private implicit val queryStateFormat: Format[QueryState] = Json.valueFormat[QueryState]
   private implicit val positionUnparsedReads: Reads[PositionUnparsed] = Json.valueReads[PositionUnparsed]
   private implicit val messageIdWrites: Writes[MessageId] = id => JsString(id.serialize())
 
@@ -134,7 +134,15 @@ class EmailQuerySerializer @Inject()(mailboxIdFactory: MailboxId.Factory) {
 
   private implicit val emailQueryResponseWrites: OWrites[EmailQueryResponse] = Json.writes[EmailQueryResponse]
 
+  private implicit val emailQueryChangesRequestReads: Reads[EmailQueryChangesRequest] = Json.reads[EmailQueryChangesRequest]
+  private implicit val addedItemWrites: OWrites[AddedItem] = Json.writes[AddedItem]
+  private implicit val emailQueryChangesResponseWrites: OWrites[EmailQueryChangesResponse] = Json.writes[EmailQueryChangesResponse]
+
   def serialize(emailQueryResponse: EmailQueryResponse): JsObject = Json.toJsObject(emailQueryResponse)
 
   def deserializeEmailQueryRequest(input: JsValue): JsResult[EmailQueryRequest] = Json.fromJson[EmailQueryRequest](input)
+
+  def serialize(emailQueryChangesResponse: EmailQueryChangesResponse): JsObject = Json.toJsObject(emailQueryChangesResponse)
+
+  def deserializeEmailQueryChangesRequest(input: JsValue): JsResult[EmailQueryChangesRequest] = Json.fromJson[EmailQueryChangesRequest](input)
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ * http://www.apache.org/licenses/LICENSE-2.0                   *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.json
+
+import org.apache.james.jmap.core.{RequestId, StateChange, TypeName, TypeState, WebSocketError, WebSocketInboundMessage, WebSocketOutboundMessage, WebSocketPushDisable, WebSocketPushEnable, WebSocketRequest, WebSocketResponse}
+import play.api.libs.json._
+
+object PushSerializer {
+  private val TYPE: String = "@type"
+  private val REQUEST_ID: String = "requestId"
+
+  private implicit val typeNameReads: Reads[TypeName] = {
+    case JsString(string) => TypeName.parse(string)
+      .map(JsSuccess(_))
+      .getOrElse(JsError(s"Unknown type name $string"))
+    case _ => JsError("Expecting a JsString to represent a type name")
+  }
+
+  private implicit val webSocketPushEnableReads: Reads[WebSocketPushEnable] =
+    (JsPath \ "dataTypes").readNullable[Set[TypeName]].map(WebSocketPushEnable)
+
+  private implicit val webSocketInboundMessageReads: Reads[WebSocketInboundMessage] = {
+    case json: JsObject => json.value.get(TYPE) match {
+      case Some(JsString("Request")) => ResponseSerializer.deserializeRequestObject(json)
+        .map(requestObject => WebSocketRequest((json \ "id").asOpt[String].map(RequestId), requestObject))
+      case Some(JsString("WebSocketPushEnable")) => json.validate[WebSocketPushEnable]
+      case Some(JsString("WebSocketPushDisable")) => JsSuccess(WebSocketPushDisable)
+      case Some(JsString(unknownType)) => JsError(s"Unknown @type field on a web socket JMAP message: $unknownType")
+      case Some(_) => JsError("Invalid @type field on a web socket JMAP message: expecting a JsString")
+      case None => JsError("Missing @type field on a web socket JMAP message")
+    }
+    case _ => JsError("Expecting a JsObject to represent a web socket inbound message")
+  }
+
+  private def typeStateWrites(typeState: TypeState): JsObject = JsObject(typeState.changes.map {
+    case (typeName, state) => typeName.asString -> JsString(state.value)
+  })
+
+  private def stateChangeWrites(stateChange: StateChange): JsObject = Json.obj(
+    TYPE -> "StateChange",
+    "changed" -> JsObject(stateChange.changes.map {
+      case (accountId, typeState) => accountId.id.value -> typeStateWrites(typeState)
+    }))
+
+  private def withRequestId(json: JsValue, requestId: Option[RequestId]): JsObject = json match {
+    case jsObject: JsObject => requestId
+      .map(id => jsObject + (REQUEST_ID -> JsString(id.value)))
+      .getOrElse(jsObject)
+    case _ => throw new IllegalArgumentException(s"Expecting a JsObject but got $json")
+  }
+
+  def serialize(message: WebSocketOutboundMessage): JsValue = message match {
+    case WebSocketResponse(requestId, responseObject) =>
+      withRequestId(ResponseSerializer.serialize(responseObject), requestId) + (TYPE -> JsString("Response"))
+    case WebSocketError(requestId, problemDetails) =>
+      withRequestId(ResponseSerializer.serialize(problemDetails), requestId) + (TYPE -> JsString("RequestError"))
+    case stateChange: StateChange => stateChangeWrites(stateChange)
+  }
+
+  def deserializeWebSocketInboundMessage(input: String): JsResult[WebSocketInboundMessage] =
+    Json.parse(input).validate[WebSocketInboundMessage]
+}
@@ -20,7 +20,7 @@
 package org.apache.james.jmap.json
 
 import java.io.InputStream
-import java.net.URL
+import java.net.{URI, URL}
 
 import eu.timepit.refined.refineV
 import io.netty.handler.codec.http.HttpResponseStatus
@@ -85,6 +85,9 @@ object ResponseSerializer {
 
   private implicit val usernameWrites: Writes[Username] = username => JsString(username.asString)
   private implicit val urlWrites: Writes[URL] = url => JsString(url.toString)
+  private implicit val uriWrites: Writes[URI] = uri => JsString(uri.toString)
+  private implicit val supportsPushWrites: Writes[SupportsPush] = Json.valueWrites[SupportsPush]
+  private implicit val webSocketCapabilityWrites: Writes[WebSocketCapabilityProperties] = Json.writes[WebSocketCapabilityProperties]
   private implicit val coreCapabilityWrites: Writes[CoreCapabilityProperties] = Json.writes[CoreCapabilityProperties]
   private implicit val mailCapabilityWrites: Writes[MailCapabilityProperties] = Json.writes[MailCapabilityProperties]
   private implicit val maxDelayedSendWrites: Writes[MaxDelayedSend] = Json.valueWrites[MaxDelayedSend]
@@ -112,6 +115,8 @@ object ResponseSerializer {
             jsObject.+(capability.identifier.value, vacationResponseCapabilityWrites.writes(capability.properties))
           case capability: SubmissionCapability =>
             jsObject.+(capability.identifier.value, submissionPropertiesWrites.writes(capability.properties))
+          case capability: WebSocketCapability =>
+            jsObject.+(capability.identifier.value, webSocketCapabilityWrites.writes(capability.properties))
           case _ => jsObject
         }
       })
@@ -178,5 +183,7 @@ object ResponseSerializer {
 
   def deserializeRequestObject(input: InputStream): JsResult[RequestObject] = Json.parse(input).validate[RequestObject]
 
+  def deserializeRequestObject(input: JsValue): JsResult[RequestObject] = input.validate[RequestObject]
+
   def deserializeResponseObject(input: String): JsResult[ResponseObject] = Json.parse(input).validate[ResponseObject]
 }
\ No newline at end of file
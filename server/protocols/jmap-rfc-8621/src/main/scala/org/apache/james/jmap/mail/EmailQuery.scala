@@ -22,6 +22,7 @@ package org.apache.james.jmap.mail
 import cats.implicits._
 import org.apache.james.jmap.core.Limit.Limit
 import org.apache.james.jmap.core.Position.Position
+import org.apache.james.jmap.core.UnsignedInt.UnsignedInt
 import org.apache.james.jmap.core.{AccountId, CanCalculateChanges, LimitUnparsed, PositionUnparsed, QueryState, UTCDate}
 import org.apache.james.jmap.mail.Email.Size
 import org.apache.james.jmap.mail.IsAscending.ASCENDING
@@ -34,6 +35,7 @@ case class UnsupportedSortException(unsupportedSort: String) extends Unsupported
 case class UnsupportedFilterException(unsupportedFilter: String) extends UnsupportedOperationException
 case class UnsupportedNestingException(message: String) extends UnsupportedOperationException
 case class UnsupportedRequestParameterException(unsupportedParam: String) extends UnsupportedOperationException
+case class AnchorNotFoundException(anchor: Anchor) extends RuntimeException
 
 sealed trait FilterQuery {
   def inMailboxFilterOnly: Boolean
@@ -222,3 +224,27 @@ case class EmailQueryResponse(accountId: AccountId,
                               ids: Seq[MessageId],
                               position: Position,
                               limit: Option[Limit])
+
+case class EmailQueryChangesRequest(accountId: AccountId,
+                                    filter: Option[FilterQuery],
+                                    comparator: Option[Set[Comparator]],
+                                    collapseThreads: Option[CollapseThreads],
+                                    sinceQueryState: QueryState,
+                                    maxChanges: Option[UnsignedInt]) extends WithAccountId {
+  def asQueryRequest: EmailQueryRequest = EmailQueryRequest(accountId = accountId,
+    position = None,
+    limit = None,
+    filter = filter,
+    comparator = comparator,
+    collapseThreads = collapseThreads,
+    anchor = None,
+    anchorOffset = None)
+}
+
+case class AddedItem(id: MessageId, index: Position)
+
+case class EmailQueryChangesResponse(accountId: AccountId,
+                                     oldQueryState: QueryState,
+                                     newQueryState: QueryState,
+                                     removed: Seq[MessageId],
+                                     added: Seq[AddedItem])
@@ -0,0 +1,107 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.method
+
+import eu.timepit.refined.auto._
+import eu.timepit.refined.numeric.NonNegative
+import eu.timepit.refined.refineV
+import javax.inject.Inject
+import org.apache.james.jmap.core.CapabilityIdentifier.{CapabilityIdentifier, JMAP_MAIL}
+import org.apache.james.jmap.core.Invocation.{Arguments, MethodName}
+import org.apache.james.jmap.core.{ErrorCode, Invocation}
+import org.apache.james.jmap.json.{EmailQuerySerializer, ResponseSerializer}
+import org.apache.james.jmap.mail.{AddedItem, EmailQueryChangesRequest, EmailQueryChangesResponse}
+import org.apache.james.jmap.routes.SessionSupplier
+import org.apache.james.jmap.utils.search.{CachedResults, EmailQueryCacheKey}
+import org.apache.james.mailbox.MailboxSession
+import org.apache.james.mailbox.model.MessageId
+import org.apache.james.metrics.api.MetricFactory
+import play.api.libs.json.{JsError, JsSuccess}
+import reactor.core.scala.publisher.SMono
+
+object EmailQueryChangesMethod {
+  /**
+   * Supported sorts (receivedAt, sentAt) are on immutable properties: the relative order of the ids present in both
+   * results can not change, hence the delta is made of the ids that left or entered the results.
+   */
+  def changes(oldIds: Seq[MessageId], newIds: Seq[MessageId]): (Seq[MessageId], Seq[AddedItem]) = {
+    val oldIdSet: Set[MessageId] = oldIds.toSet
+    val newIdSet: Set[MessageId] = newIds.toSet
+
+    val removed: Seq[MessageId] = oldIds.filterNot(newIdSet.contains)
+    val added: Seq[AddedItem] = newIds.zipWithIndex
+      .filterNot { case (id, _) => oldIdSet.contains(id) }
+      .flatMap { case (id, index) => refineV[NonNegative](index).toOption.map(AddedItem(id, _)) }
+
+    (removed, added)
+  }
+}
+
+class EmailQueryChangesMethod @Inject() (serializer: EmailQuerySerializer,
+                                         emailQueryMethod: EmailQueryMethod,
+                                         val metricFactory: MetricFactory,
+                                         val sessionSupplier: SessionSupplier) extends MethodRequiringAccountId[EmailQueryChangesRequest] {
+  override val methodName: MethodName = MethodName("Email/queryChanges")
+  override val requiredCapabilities: Set[CapabilityIdentifier] = Set(JMAP_MAIL)
+
+  override def doProcess(capabilities: Set[CapabilityIdentifier], invocation: InvocationWithContext, mailboxSession: MailboxSession, request: EmailQueryChangesRequest): SMono[InvocationWithContext] = {
+    val key: EmailQueryCacheKey = EmailQueryCacheKey.of(request.accountId, request.filter, request.comparator)
+
+    // Past results are only known by the node that served the query
+    val result: SMono[Invocation] = emailQueryMethod.emailQueryCache.resultsAt(key, request.sinceQueryState)
+      .filter(_ => emailQueryMethod.configuration.isEmailQueryChangesEnabled) match {
+        case Some(oldIds) => emailQueryMethod.cachedResults(mailboxSession, request.asQueryRequest, capabilities)
+          .map {
+            case Right(cachedResults) => computeChanges(request, oldIds, cachedResults, invocation.invocation)
+            case Left(reason) => Invocation.error(ErrorCode.CannotCalculateChanges,
+              s"Changes can not be calculated: $reason",
+              invocation.invocation.methodCallId)
+          }
+        case None => SMono.just(Invocation.error(ErrorCode.CannotCalculateChanges,
+          s"${request.sinceQueryState.value} is not a known query state for this query",
+          invocation.invocation.methodCallId))
+      }
+
+    result.map(invocationResult => InvocationWithContext(invocationResult, invocation.processingContext))
+  }
+
+  private def computeChanges(request: EmailQueryChangesRequest, oldIds: Seq[MessageId], cachedResults: CachedResults, invocation: Invocation): Invocation =
+    EmailQueryChangesMethod.changes(oldIds, cachedResults.ids) match {
+      case (removed, added) if request.maxChanges.exists(_.value < removed.size + added.size) =>
+        Invocation.error(ErrorCode.TooManyChanges,
+          s"${removed.size + added.size} changes exceed the requested maxChanges",
+          invocation.methodCallId)
+      case (removed, added) => Invocation(
+        methodName = methodName,
+        arguments = Arguments(serializer.serialize(EmailQueryChangesResponse(
+          accountId = request.accountId,
+          oldQueryState = request.sinceQueryState,
+          newQueryState = cachedResults.queryState,
+          removed = removed,
+          added = added))),
+        methodCallId = invocation.methodCallId)
+    }
+
+  override def getRequest(mailboxSession: MailboxSession, invocation: Invocation): Either[IllegalArgumentException, EmailQueryChangesRequest] =
+    serializer.deserializeEmailQueryChangesRequest(invocation.arguments.value) match {
+      case JsSuccess(emailQueryChangesRequest, _) => Right(emailQueryChangesRequest)
+      case errors: JsError => Left(new IllegalArgumentException(ResponseSerializer.serialize(errors).toString))
+    }
+}
@@ -22,6 +22,8 @@ import java.time.ZonedDateTime
 
 import cats.implicits._
 import eu.timepit.refined.auto._
+import eu.timepit.refined.numeric.NonNegative
+import eu.timepit.refined.refineV
 import javax.inject.Inject
 import org.apache.james.jmap.JMAPConfiguration
 import org.apache.james.jmap.api.projections.EmailQueryView
@@ -31,10 +33,12 @@ import org.apache.james.jmap.core.Limit.Limit
 import org.apache.james.jmap.core.Position.Position
 import org.apache.james.jmap.core.{CanCalculateChanges, Invocation, Limit, Position, QueryState}
 import org.apache.james.jmap.json.{EmailQuerySerializer, ResponseSerializer}
-import org.apache.james.jmap.mail.{Comparator, EmailQueryRequest, EmailQueryResponse, FilterCondition, UnsupportedRequestParameterException}
+import org.apache.james.jmap.mail.{Anchor, AnchorNotFoundException, Comparator, EmailQueryRequest, EmailQueryResponse, FilterCondition}
 import org.apache.james.jmap.routes.SessionSupplier
 import org.apache.james.jmap.utils.search.MailboxFilter
 import org.apache.james.jmap.utils.search.MailboxFilter.QueryFilter
+import org.apache.james.jmap.utils.search.{CachedResults, EmailQueryCache, EmailQueryCacheKey, MailboxState}
+import org.apache.james.mailbox.MessageManager.MailboxMetaData
 import org.apache.james.mailbox.exception.MailboxNotFoundException
 import org.apache.james.mailbox.model.{MailboxId, MessageId, MultimailboxesSearchQuery}
 import org.apache.james.mailbox.{MailboxManager, MailboxSession}
@@ -45,13 +49,21 @@ import reactor.core.scala.publisher.{SFlux, SMono}
 import reactor.core.scheduler.Schedulers
 
 import scala.jdk.CollectionConverters._
+import scala.util.Try
+
+object EmailQueryMethod {
+  // Resolving an anchor reads the results preceding it: anchors further in the results are reported as not found
+  val MAX_ANCHOR_POSITION: Int = EmailQueryCache.MAX_RESULTS_PER_QUERY
+}
 
 class EmailQueryMethod @Inject() (serializer: EmailQuerySerializer,
                                   mailboxManager: MailboxManager,
                                   val metricFactory: MetricFactory,
                                   val sessionSupplier: SessionSupplier,
                                   val configuration: JMAPConfiguration,
-                                  val emailQueryView: EmailQueryView) extends MethodRequiringAccountId[EmailQueryRequest] {
+                                  val emailQueryView: EmailQueryView,
+                                  val messageIdFactory: MessageId.Factory,
+                                  val emailQueryCache: EmailQueryCache) extends MethodRequiringAccountId[EmailQueryRequest] {
   override val methodName: MethodName = MethodName("Email/query")
   override val requiredCapabilities: Set[CapabilityIdentifier] = Set(JMAP_MAIL)
 
@@ -80,19 +92,113 @@ class EmailQueryMethod @Inject() (serializer: EmailQuerySerializer,
 
   override def getRequest(mailboxSession: MailboxSession, invocation: Invocation): Either[Exception, EmailQueryRequest] =
     serializer.deserializeEmailQueryRequest(invocation.arguments.value) match {
-      case JsSuccess(emailQueryRequest, _) => validateRequestParameters(emailQueryRequest)
+      case JsSuccess(emailQueryRequest, _) => Right(emailQueryRequest)
       case errors: JsError => Left(new IllegalArgumentException(ResponseSerializer.serialize(errors).toString))
     }
 
-  private def validateRequestParameters(request: EmailQueryRequest): Either[Exception, EmailQueryRequest] =
-    (request.anchor, request.anchorOffset) match {
-      case (Some(anchor), _) => Left(UnsupportedRequestParameterException("anchor"))
-      case (_, Some(anchorOffset)) => Left(UnsupportedRequestParameterException("anchorOffset"))
-      case _ => Right(request)
+  /**
+   * Results of the queries restricted to a single mailbox are cached, and reused as long as that mailbox is left unchanged.
+   *
+   * @return the complete results of the query, or the reason why they can not be served from the cache
+   */
+  def cachedResults(session: MailboxSession, request: EmailQueryRequest, capabilities: Set[CapabilityIdentifier]): SMono[Either[String, CachedResults]] =
+    searchQueryFromRequest(request, capabilities, session)
+      .fold(SMono.raiseError, searchQuery => cachedResults(session, request, searchQuery, EmailQueryCache.MAX_RESULTS_PER_QUERY, loadOnMiss = true))
+      .map(_.filterOrElse(_.complete, s"The results of this query exceed ${EmailQueryCache.MAX_RESULTS_PER_QUERY} emails"))
+
+  /**
+   * @param window the number of ids, from the start of the results, the caller needs
+   * @param loadOnMiss whether to read and cache the first `window` ids when the cache does not hold them
+   */
+  private def cachedResults(session: MailboxSession, request: EmailQueryRequest, searchQuery: MultimailboxesSearchQuery,
+                            window: Int, loadOnMiss: Boolean): SMono[Either[String, CachedResults]] =
+    cacheableMailbox(request).filter(_ => window <= EmailQueryCache.MAX_RESULTS_PER_QUERY) match {
+      case Some(mailboxId) =>
+        val key: EmailQueryCacheKey = EmailQueryCacheKey.of(request.accountId, request.filter, request.comparator)
+        SMono.fromCallable(() => MailboxState.from(mailboxManager.getMailbox(mailboxId, session)
+            .getMetaData(false, session, MailboxMetaData.FetchGroup.NO_COUNT)))
+          .subscribeOn(Schedulers.elastic())
+          .flatMap[Either[String, CachedResults]](mailboxState => emailQueryCache.get(key, mailboxState, window)
+            .map(cachedResults => SMono.just[Either[String, CachedResults]](Right(cachedResults)))
+            .getOrElse(if (!loadOnMiss) {
+              SMono.just[Either[String, CachedResults]](Left("The results of this query are not cached"))
+            } else if (!emailQueryCache.isSettled(key, mailboxState)) {
+              SMono.just[Either[String, CachedResults]](Left("The mailbox changed too recently for the results of this query to be settled, retry later"))
+            } else {
+              // One more id than the window is read to tell whether the results are complete
+              firstResults(session, request, searchQuery, mailboxId, window + 1)
+                .map[Either[String, CachedResults]](ids => Right(emailQueryCache.store(key, mailboxState, ids.take(window), ids.size <= window)))
+            }))
+          .onErrorResume({
+            case _: MailboxNotFoundException => SMono.just[Either[String, CachedResults]](Left(s"${mailboxId.serialize()} can not be found"))
+            case e => SMono.raiseError[Either[String, CachedResults]](e)
+          })
+      case None => SMono.just[Either[String, CachedResults]](Left("Only the results of queries restricted to a mailbox are cached"))
+    }
+
+  private def cacheableMailbox(request: EmailQueryRequest): Option[MailboxId] =
+    request.filter.flatMap {
+      case filterCondition: FilterCondition => filterCondition.inMailbox
+      case _ => None
     }
 
+  private def firstResults(session: MailboxSession, request: EmailQueryRequest, searchQuery: MultimailboxesSearchQuery, mailboxId: MailboxId, limit: Int): SMono[Seq[MessageId]] = {
+    val ids: SFlux[MessageId] = request match {
+      case request: EmailQueryRequest if matchesInMailboxSortedBySentAt(request) =>
+        SFlux.fromPublisher(emailQueryView.listMailboxContent(mailboxId, JavaLimit.from(limit)))
+      case request: EmailQueryRequest if matchesInMailboxAfterSortedBySentAt(request) =>
+        val after: ZonedDateTime = request.filter.get.asInstanceOf[FilterCondition].after.get.asUTC
+        SFlux.fromPublisher(emailQueryView.listMailboxContentSinceReceivedAt(mailboxId, after, JavaLimit.from(limit)))
+      case _ => SFlux.fromPublisher(mailboxManager.search(searchQuery, session, limit))
+    }
+    ids.collectSeq()
+  }
+
   private def executeQuery(session: MailboxSession, request: EmailQueryRequest, searchQuery: MultimailboxesSearchQuery, position: Position, limit: Limit): SMono[EmailQueryResponse] = {
-    val ids: SMono[Seq[MessageId]] = request match {
+    // Anchors are only resolved against complete results: those are not read for the sole purpose of being cached
+    val window: Int = request.anchor
+      .map(_ => EmailQueryCache.MAX_RESULTS_PER_QUERY)
+      .getOrElse(Math.min(Int.MaxValue.toLong, position.value.toLong + limit.value).toInt)
+
+    cachedResults(session, request, searchQuery, window, loadOnMiss = request.anchor.isEmpty)
+      .map(_.toOption.filter(cachedResults => request.anchor.isEmpty || cachedResults.complete))
+      .flatMap {
+        case Some(cachedResults) => SMono.fromCallable(() => fromCachedResults(request, cachedResults, position, limit))
+        case None => executeUncachedQuery(session, request, searchQuery, position, limit)
+      }
+  }
+
+  private def fromCachedResults(request: EmailQueryRequest, cachedResults: CachedResults, position: Position, limit: Limit): EmailQueryResponse = {
+    val actualPosition: Position = request.anchor
+      .map(anchor => Try(messageIdFactory.fromString(anchor.value)).toOption
+        .map(anchorId => cachedResults.ids.indexOf(anchorId))
+        .filter(_ >= 0)
+        .map(anchorPosition => positionFrom(anchorPosition, request.anchorOffset.map(_.value).getOrElse(0)))
+        .getOrElse(throw AnchorNotFoundException(anchor)))
+      .getOrElse(position)
+    val ids: Seq[MessageId] = cachedResults.ids.slice(actualPosition.value, actualPosition.value + limit.value)
+
+    if (cachedResults.complete) {
+      toResponse(request, actualPosition, limit, ids, cachedResults.queryState, CanCalculateChanges(configuration.isEmailQueryChangesEnabled))
+    } else {
+      toResponse(request, actualPosition, limit, ids, QueryState.forIds(ids), CanCalculateChanges.CANNOT)
+    }
+  }
+
+  private def executeUncachedQuery(session: MailboxSession, request: EmailQueryRequest, searchQuery: MultimailboxesSearchQuery, position: Position, limit: Limit): SMono[EmailQueryResponse] = {
+    val positionedIds: SMono[(Position, Seq[MessageId])] = request.anchor match {
+      case Some(anchor) => executeAnchoredQuery(session, request, searchQuery, anchor, limit)
+      case None => executePositionedQuery(session, request, searchQuery, position, limit)
+        .map(ids => (position, ids))
+    }
+
+    positionedIds.map {
+      case (actualPosition, ids) => toResponse(request, actualPosition, limit, ids, QueryState.forIds(ids), CanCalculateChanges.CANNOT)
+    }
+  }
+
+  private def executePositionedQuery(session: MailboxSession, request: EmailQueryRequest, searchQuery: MultimailboxesSearchQuery, position: Position, limit: Limit): SMono[Seq[MessageId]] =
+    request match {
       case request: EmailQueryRequest if matchesInMailboxSortedBySentAt(request) =>
         queryViewForListingSortedBySentAt(session, position, limit, request)
       case request: EmailQueryRequest if matchesInMailboxAfterSortedBySentAt(request) =>
@@ -100,9 +206,80 @@ class EmailQueryMethod @Inject() (serializer: EmailQuerySerializer,
       case _ => executeQueryAgainstSearchIndex(session, searchQuery, position, limit)
     }
 
-    ids.map(ids => toResponse(request, position, limit, ids))
+  // Anchors are resolved against the query results: a position is then only computed for the returned ids
+  private def executeAnchoredQuery(session: MailboxSession, request: EmailQueryRequest, searchQuery: MultimailboxesSearchQuery, anchor: Anchor, limit: Limit): SMono[(Position, Seq[MessageId])] = {
+    val anchorOffset: Int = request.anchorOffset.map(_.value).getOrElse(0)
+
+    Try(messageIdFactory.fromString(anchor.value))
+      .fold(_ => SMono.raiseError(AnchorNotFoundException(anchor)),
+        anchorId => if (matchesInMailboxSortedBySentAt(request)) {
+          queryViewFromAnchor(session, request, anchor, anchorId, anchorOffset, limit)
+        } else {
+          searchIndexFromAnchor(session, searchQuery, anchor, anchorId, anchorOffset, limit)
+        })
+  }
+
+  private def queryViewFromAnchor(mailboxSession: MailboxSession, request: EmailQueryRequest, anchor: Anchor, anchorId: MessageId, anchorOffset: Int, limitToUse: Limit): SMono[(Position, Seq[MessageId])] = {
+    val mailboxId: MailboxId = request.filter.get.asInstanceOf[FilterCondition].inMailbox.get
+    SMono.fromCallable(() => mailboxManager.getMailbox(mailboxId, mailboxSession))
+      .subscribeOn(Schedulers.elastic())
+      .`then`(SMono.fromPublisher(emailQueryView.positionOf(mailboxId, anchorId, JavaLimit.from(EmailQueryMethod.MAX_ANCHOR_POSITION))))
+      .switchIfEmpty(SMono.raiseError(AnchorNotFoundException(anchor)))
+      .flatMap(anchorPosition => {
+        val position: Position = positionFrom(anchorPosition, anchorOffset)
+        if (anchorOffset < 0) {
+          queryViewForListingSortedBySentAt(mailboxSession, position, limitToUse, request)
+            .map(ids => (position, ids))
+        } else {
+          SFlux.fromPublisher(emailQueryView.listMailboxContentFromAnchor(mailboxId, anchorId, JavaLimit.from(windowSize(anchorOffset, limitToUse))))
+            .drop(anchorOffset)
+            .collectSeq()
+            .map(ids => (position, ids))
+        }
+      })
+      .onErrorResume({
+        case _: MailboxNotFoundException => SMono.raiseError[(Position, Seq[MessageId])](AnchorNotFoundException(anchor))
+        case e => SMono.raiseError[(Position, Seq[MessageId])](e)
+      })
+  }
+
+  // The search index can not start reading from the anchor: the results preceding it are read, up to MAX_ANCHOR_POSITION
+  private def searchIndexFromAnchor(mailboxSession: MailboxSession, searchQuery: MultimailboxesSearchQuery, anchor: Anchor, anchorId: MessageId, anchorOffset: Int, limitToUse: Limit): SMono[(Position, Seq[MessageId])] = {
+    def indexedIds(limit: Long): SFlux[(Long, MessageId)] = SFlux.fromPublisher(mailboxManager.search(searchQuery, mailboxSession, limit))
+      .index()
+
+    if (anchorOffset < 0) {
+      indexedIds(EmailQueryMethod.MAX_ANCHOR_POSITION)
+        .filter(_._2.equals(anchorId))
+        .next()
+        .switchIfEmpty(SMono.raiseError(AnchorNotFoundException(anchor)))
+        .flatMap {
+          case (anchorPosition, _) =>
+            val position: Position = positionFrom(anchorPosition, anchorOffset)
+            executeQueryAgainstSearchIndex(mailboxSession, searchQuery, position, limitToUse)
+              .map(ids => (position, ids))
+        }
+    } else {
+      indexedIds(EmailQueryMethod.MAX_ANCHOR_POSITION.toLong + windowSize(anchorOffset, limitToUse))
+        .skipUntil(_._2.equals(anchorId))
+        .take(windowSize(anchorOffset, limitToUse))
+        .collectSeq()
+        .flatMap(window => window.headOption
+          .filter { case (anchorPosition, _) => anchorPosition < EmailQueryMethod.MAX_ANCHOR_POSITION }
+          .map {
+            case (anchorPosition, _) => SMono.just((positionFrom(anchorPosition, anchorOffset), window.drop(anchorOffset).map(_._2)))
+          }
+          .getOrElse(SMono.raiseError(AnchorNotFoundException(anchor))))
+    }
   }
 
+  private def windowSize(anchorOffset: Int, limitToUse: Limit): Int =
+    Math.min(Int.MaxValue.toLong, anchorOffset.toLong + limitToUse.value).toInt
+
+  private def positionFrom(anchorPosition: Long, anchorOffset: Int): Position =
+    refineV[NonNegative](Math.min(Int.MaxValue.toLong, Math.max(0L, anchorPosition + anchorOffset)).toInt)
+      .getOrElse(Position.zero)
+
   private def queryViewForContentAfterSortedBySentAt(mailboxSession: MailboxSession, position: Position, limitToUse: Limit, request: EmailQueryRequest): SMono[Seq[MessageId]] = {
     val condition: FilterCondition = request.filter.get.asInstanceOf[FilterCondition]
     val mailboxId: MailboxId = condition.inMailbox.get
@@ -110,7 +287,7 @@ class EmailQueryMethod @Inject() (serializer: EmailQuerySerializer,
     SMono.fromCallable(() => mailboxManager.getMailbox(mailboxId, mailboxSession))
       .subscribeOn(Schedulers.elastic())
       .`then`(SFlux.fromPublisher(
-        emailQueryView.listMailboxContentSinceReceivedAt(mailboxId, after, JavaLimit.from(limitToUse.value)))
+        emailQueryView.listMailboxContentSinceReceivedAt(mailboxId, after, JavaLimit.from(position.value + limitToUse.value)))
         .drop(position.value)
         .take(limitToUse.value)
         .collectSeq())
@@ -125,7 +302,7 @@ class EmailQueryMethod @Inject() (serializer: EmailQuerySerializer,
     SMono.fromCallable(() => mailboxManager.getMailbox(mailboxId, mailboxSession))
       .subscribeOn(Schedulers.elastic())
       .`then`(SFlux.fromPublisher(
-        emailQueryView.listMailboxContent(mailboxId, JavaLimit.from(limitToUse.value)))
+        emailQueryView.listMailboxContent(mailboxId, JavaLimit.from(position.value + limitToUse.value)))
         .drop(position.value)
         .take(limitToUse.value)
         .collectSeq())
@@ -145,10 +322,11 @@ class EmailQueryMethod @Inject() (serializer: EmailQuerySerializer,
       request.filter.exists(_.inMailboxAndAfterFilterOnly) &&
       request.comparator.contains(Set(Comparator.SENT_AT_DESC))
 
-  private def toResponse(request: EmailQueryRequest, position: Position, limitToUse: Limit, ids: Seq[MessageId]): EmailQueryResponse =
+  private def toResponse(request: EmailQueryRequest, position: Position, limitToUse: Limit, ids: Seq[MessageId],
+                         queryState: QueryState, canCalculateChanges: CanCalculateChanges): EmailQueryResponse =
     EmailQueryResponse(accountId = request.accountId,
-      queryState = QueryState.forIds(ids),
-      canCalculateChanges = CanCalculateChanges.CANNOT,
+      queryState = queryState,
+      canCalculateChanges = canCalculateChanges,
       ids = ids,
       position = position,
       limit = Some(limitToUse).filterNot(used => request.limit.map(_.value).contains(used.value)))
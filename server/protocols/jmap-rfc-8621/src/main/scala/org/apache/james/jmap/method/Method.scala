@@ -21,7 +21,7 @@ package org.apache.james.jmap.method
 import org.apache.james.jmap.core.CapabilityIdentifier.CapabilityIdentifier
 import org.apache.james.jmap.core.Invocation.MethodName
 import org.apache.james.jmap.core.{AccountId, ErrorCode, Invocation, Session}
-import org.apache.james.jmap.mail.{UnsupportedFilterException, UnsupportedNestingException, UnsupportedRequestParameterException, UnsupportedSortException}
+import org.apache.james.jmap.mail.{AnchorNotFoundException, UnsupportedFilterException, UnsupportedNestingException, UnsupportedRequestParameterException, UnsupportedSortException}
 import org.apache.james.jmap.routes.{ProcessingContext, SessionSupplier}
 import org.apache.james.mailbox.MailboxSession
 import org.apache.james.mailbox.exception.MailboxNotFoundException
@@ -75,6 +75,10 @@ trait MethodRequiringAccountId[REQUEST <: WithAccountId] extends Method {
           ErrorCode.UnsupportedFilter,
           s"The filter ${e.unsupportedFilter} is syntactically valid, but the server cannot process it. If the filter was the result of a user’s search input, the client SHOULD suggest that the user simplify their search.",
           invocation.invocation.methodCallId), invocation.processingContext))
+        case e: AnchorNotFoundException => SFlux.just[InvocationWithContext] (InvocationWithContext(Invocation.error(
+          ErrorCode.AnchorNotFound,
+          s"The anchor ${e.anchor.value} is not part of the query results.",
+          invocation.invocation.methodCallId), invocation.processingContext))
         case e: UnsupportedNestingException => SFlux.just[InvocationWithContext] (InvocationWithContext(Invocation.error(
           ErrorCode.UnsupportedFilter,
           description = e.message,
@@ -24,11 +24,12 @@ import java.util.stream
 import java.util.stream.Stream
 
 import com.google.common.base.CharMatcher
+import com.google.common.io.ByteStreams
 import eu.timepit.refined.numeric.NonNegative
 import eu.timepit.refined.refineV
 import io.netty.buffer.Unpooled
-import io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE
-import io.netty.handler.codec.http.HttpResponseStatus.{BAD_REQUEST, FORBIDDEN, INTERNAL_SERVER_ERROR, NOT_FOUND, OK, UNAUTHORIZED}
+import io.netty.handler.codec.http.HttpHeaderNames.{ACCEPT_RANGES, CONTENT_LENGTH, CONTENT_RANGE, CONTENT_TYPE, ETAG, IF_NONE_MATCH, IF_RANGE, RANGE}
+import io.netty.handler.codec.http.HttpResponseStatus.{BAD_REQUEST, FORBIDDEN, INTERNAL_SERVER_ERROR, NOT_FOUND, NOT_MODIFIED, OK, PARTIAL_CONTENT, REQUESTED_RANGE_NOT_SATISFIABLE, UNAUTHORIZED}
 import io.netty.handler.codec.http.{HttpMethod, HttpResponseStatus, QueryStringDecoder}
 import javax.inject.{Inject, Named}
 import org.apache.james.jmap.HttpConstants.JSON_CONTENT_TYPE
@@ -46,6 +47,7 @@ import org.apache.james.mailbox.model.{AttachmentId, AttachmentMetadata, Content
 import org.apache.james.mailbox.{AttachmentManager, MailboxSession, MessageIdManager}
 import org.apache.james.mime4j.codec.EncoderUtil
 import org.apache.james.mime4j.codec.EncoderUtil.Usage
+import org.apache.james.mime4j.dom.SingleBody
 import org.apache.james.mime4j.message.DefaultMessageWriter
 import org.apache.james.util.ReactorUtils
 import org.slf4j.{Logger, LoggerFactory}
@@ -62,6 +64,65 @@ object DownloadRoutes {
   val LOGGER: Logger = LoggerFactory.getLogger(classOf[DownloadRoutes])
 
   val BUFFER_SIZE: Int = 16 * 1024
+  val BYTES_UNIT: String = "bytes"
+
+  // Blob ids are immutable: the content behind a given blob id never changes, hence it is a valid strong validator
+  def entityTag(blobId: BlobId): String = "\"" + blobId.value.value + "\""
+}
+
+case class ByteRange(first: Long, last: Long) {
+  def length: Long = last - first + 1
+
+  def asContentRange(size: Long): String = s"${DownloadRoutes.BYTES_UNIT} $first-$last/$size"
+}
+
+/**
+ * A single byte range as specified by RFC-7233 section 2.1
+ */
+sealed trait RangeSpecification {
+  /**
+   * @return the matching range of a representation of the given size, None if the range is not satisfiable
+   */
+  def resolve(size: Long): Option[ByteRange]
+}
+case class BoundedRange(first: Long, last: Option[Long]) extends RangeSpecification {
+  override def resolve(size: Long): Option[ByteRange] =
+    if (first >= size) {
+      None
+    } else {
+      Some(ByteRange(first, last.map(Math.min(_, size - 1)).getOrElse(size - 1)))
+    }
+}
+case class SuffixRange(length: Long) extends RangeSpecification {
+  override def resolve(size: Long): Option[ByteRange] =
+    if (length == 0 || size == 0) {
+      None
+    } else {
+      Some(ByteRange(Math.max(0, size - length), size - 1))
+    }
+}
+
+object RangeSpecification {
+  private val SINGLE_RANGE = "^bytes=(\\d*)-(\\d*)$".r
+
+  /**
+   * Multiple ranges, other units and syntactically invalid ranges are not supported: as allowed by RFC-7233
+   * the Range header is then ignored and the full content is served.
+   */
+  def parse(header: String): Option[RangeSpecification] =
+    header.trim match {
+      case SINGLE_RANGE("", "") => None
+      case SINGLE_RANGE("", suffixLength) => asLong(suffixLength).map(SuffixRange)
+      case SINGLE_RANGE(first, "") => asLong(first).map(BoundedRange(_, None))
+      case SINGLE_RANGE(first, last) => for {
+          firstPosition <- asLong(first)
+          lastPosition <- asLong(last)
+          if lastPosition >= firstPosition
+        } yield BoundedRange(firstPosition, Some(lastPosition))
+      case _ => None
+    }
+
+  private def asLong(value: String): Option[Long] = value.toLongOption
 }
 
 sealed trait BlobResolutionResult {
@@ -83,6 +144,21 @@ trait Blob {
   def contentType: ContentType
   def size: Try[Size]
   def content: InputStream
+
+  /**
+   * Sources backed by files or memory seek when skipping, hence the content before the range is not read.
+   */
+  def content(range: ByteRange): InputStream = {
+    val stream = content
+    try {
+      ByteStreams.skipFully(stream, range.first)
+      ByteStreams.limit(stream, range.length)
+    } catch {
+      case e: Exception =>
+        stream.close()
+        throw e
+    }
+  }
 }
 
 case class BlobNotFoundException(blobId: BlobId) extends RuntimeException
@@ -114,11 +190,13 @@ case class EmailBodyPartBlob(blobId: BlobId, part: EmailBodyPart) extends Blob {
 
   override def contentType: ContentType = new ContentType(part.`type`.value)
 
-  override def content: InputStream = {
-    val writer = new DefaultMessageWriter
-    val outputStream = new ByteArrayOutputStream()
-    writer.writeBody(part.entity.getBody, outputStream)
-    new ByteArrayInputStream(outputStream.toByteArray)
+  override def content: InputStream = part.entity.getBody match {
+    case body: SingleBody => body.getInputStream
+    case body =>
+      val writer = new DefaultMessageWriter
+      val outputStream = new ByteArrayOutputStream()
+      writer.writeBody(body, outputStream)
+      new ByteArrayInputStream(outputStream.toByteArray)
   }
 }
 
@@ -248,6 +326,7 @@ class DownloadRoutes @Inject()(@Named(InjectionKeys.RFC_8621) val authenticator:
         blobResolvers.resolve(_, mailboxSession))
       .flatMap(blob => downloadBlob(
         optionalName = queryParam(request, nameParam),
+        request = request,
         response = response,
         blobContentType = queryParam(request, contentTypeParam)
           .map(ContentType.of)
@@ -275,16 +354,47 @@ class DownloadRoutes @Inject()(@Named(InjectionKeys.RFC_8621) val authenticator:
   }
 
   private def downloadBlob(optionalName: Option[String],
+                           request: HttpServerRequest,
                            response: HttpServerResponse,
                            blobContentType: ContentType,
-                           blob: Blob): SMono[Unit] =
+                           blob: Blob): SMono[Unit] = {
+    val entityTag = DownloadRoutes.entityTag(blob.blobId)
+    val withHeaders: HttpServerResponse => HttpServerResponse = addContentDispositionHeader(optionalName)
+      .andThen(_.header(CONTENT_TYPE, blobContentType.asString)
+        .header(ETAG, entityTag)
+        .header(ACCEPT_RANGES, DownloadRoutes.BYTES_UNIT))
+
+    if (isNotModified(request, entityTag)) {
+      SMono.fromPublisher(response.status(NOT_MODIFIED)
+        .header(ETAG, entityTag)
+        .send()
+        .`then`).`then`
+    } else {
+      requestedRange(request, entityTag)
+        .flatMap(range => blob.size.toOption.map(size => (range, size.value)))
+        .map {
+          case (range, size) => range.resolve(size)
+            .map(byteRange => send(() => blob.content(byteRange),
+              withHeaders.andThen(_.status(PARTIAL_CONTENT)
+                .header(CONTENT_RANGE, byteRange.asContentRange(size))
+                .header(CONTENT_LENGTH, byteRange.length.toString))
+                .apply(response)))
+            .getOrElse(SMono.fromPublisher(response.status(REQUESTED_RANGE_NOT_SATISFIABLE)
+              .header(CONTENT_RANGE, s"${DownloadRoutes.BYTES_UNIT} */$size")
+              .send()
+              .`then`).`then`)
+        }
+        .getOrElse(send(() => blob.content,
+          withHeaders.andThen(addContentLengthHeader(blob.size))
+            .andThen(_.status(OK))
+            .apply(response)))
+    }
+  }
+
+  private def send(content: () => InputStream, response: HttpServerResponse): SMono[Unit] =
     SMono.fromPublisher(Mono.using(
-      () => blob.content,
-      (stream: InputStream) => addContentDispositionHeader(optionalName)
-        .compose(addContentLengthHeader(blob.size))
-        .apply(response)
-        .header(CONTENT_TYPE, blobContentType.asString)
-        .status(OK)
+      () => content.apply(),
+      (stream: InputStream) => response
         .send(ReactorUtils.toChunks(stream, BUFFER_SIZE)
           .map(Unpooled.wrappedBuffer(_))
           .subscribeOn(Schedulers.elastic))
@@ -292,13 +402,25 @@ class DownloadRoutes @Inject()(@Named(InjectionKeys.RFC_8621) val authenticator:
       asJavaConsumer[InputStream]((stream: InputStream) => stream.close())))
       .`then`
 
+  private def isNotModified(request: HttpServerRequest, entityTag: String): Boolean =
+    Option(request.requestHeaders().get(IF_NONE_MATCH))
+      .exists(_.split(',')
+        .map(_.trim.stripPrefix("W/"))
+        .exists(tag => tag.equals("*") || tag.equals(entityTag)))
+
+  // If-Range requires a strong comparison, and dates can not be validated as blobs have no modification date
+  private def requestedRange(request: HttpServerRequest, entityTag: String): Option[RangeSpecification] =
+    Option(request.requestHeaders().get(RANGE))
+      .filter(_ => Option(request.requestHeaders().get(IF_RANGE)).forall(_.trim.equals(entityTag)))
+      .flatMap(RangeSpecification.parse)
+
   private def addContentDispositionHeader(optionalName: Option[String]): HttpServerResponse => HttpServerResponse =
     resp => optionalName.map(addContentDispositionHeaderRegardingEncoding(_, resp))
       .getOrElse(resp)
 
   private def addContentLengthHeader(sizeTry: Try[Size]): HttpServerResponse => HttpServerResponse =
     resp => sizeTry
-      .map(size => resp.header("Content-Length", size.value.toString))
+      .map(size => resp.header(CONTENT_LENGTH, size.value.toString))
       .getOrElse(resp)
 
   private def addContentDispositionHeaderRegardingEncoding(name: String, resp: HttpServerResponse): HttpServerResponse =
@@ -0,0 +1,189 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *  http://www.apache.org/licenses/LICENSE-2.0                  *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.routes
+
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+import java.util.stream
+import java.util.stream.Stream
+
+import io.netty.handler.codec.http.HttpHeaderNames.{CACHE_CONTROL, CONTENT_TYPE}
+import io.netty.handler.codec.http.HttpResponseStatus.{BAD_REQUEST, INTERNAL_SERVER_ERROR, OK, UNAUTHORIZED}
+import io.netty.handler.codec.http.{HttpMethod, HttpResponseStatus, QueryStringDecoder}
+import javax.inject.{Inject, Named}
+import org.apache.james.jmap.HttpConstants.JSON_CONTENT_TYPE
+import org.apache.james.jmap.JMAPUrls.EVENT_SOURCE
+import org.apache.james.jmap.change.StateChangeListener
+import org.apache.james.jmap.core.ProblemDetails.notRequestProblem
+import org.apache.james.jmap.core.{ProblemDetails, StateChange, TypeName}
+import org.apache.james.jmap.exceptions.UnauthorizedException
+import org.apache.james.jmap.http.Authenticator
+import org.apache.james.jmap.http.rfc8621.InjectionKeys
+import org.apache.james.jmap.json.{PushSerializer, ResponseSerializer}
+import org.apache.james.jmap.routes.EventSourceRoutes.{EVENT_STREAM_CONTENT_TYPE, LOGGER}
+import org.apache.james.jmap.{Endpoint, JMAPRoute, JMAPRoutes}
+import org.apache.james.mailbox.MailboxSession
+import org.apache.james.mailbox.events.EventBus
+import org.slf4j.{Logger, LoggerFactory}
+import reactor.core.publisher.{Flux, Mono}
+import reactor.core.scala.publisher.{SFlux, SMono}
+import reactor.core.scheduler.Schedulers
+import reactor.netty.http.server.{HttpServerRequest, HttpServerResponse}
+
+import scala.jdk.CollectionConverters._
+import scala.util.Try
+
+object EventSourceRoutes {
+  val LOGGER: Logger = LoggerFactory.getLogger(classOf[EventSourceRoutes])
+
+  val EVENT_STREAM_CONTENT_TYPE: String = "text/event-stream"
+}
+
+sealed trait CloseAfter
+case object CloseAfterState extends CloseAfter
+case object NoCloseAfter extends CloseAfter
+
+object EventSourceOptions {
+  private val ALL_TYPES = "*"
+
+  def parse(queryStringDecoder: QueryStringDecoder): Either[IllegalArgumentException, EventSourceOptions] = {
+    def parameter(name: String): Option[String] = queryStringDecoder.parameters().asScala
+      .get(name)
+      .flatMap(_.asScala.headOption)
+
+    for {
+      types <- parseTypes(parameter("types"))
+      closeAfter <- parseCloseAfter(parameter("closeafter"))
+      ping <- parsePing(parameter("ping"))
+    } yield EventSourceOptions(types, closeAfter, ping)
+  }
+
+  private def parseTypes(value: Option[String]): Either[IllegalArgumentException, Set[TypeName]] = value match {
+    case None => Right(TypeName.ALL)
+    case Some(ALL_TYPES) => Right(TypeName.ALL)
+    case Some(types) => types.split(',').toList
+      .map(_.trim)
+      .filter(_.nonEmpty)
+      .map(typeName => TypeName.parse(typeName).toRight(new IllegalArgumentException(s"Unknown type '$typeName'")))
+      .partitionMap(identity) match {
+        case (Nil, typeNames) => Right(typeNames.toSet)
+        case (error :: _, _) => Left(error)
+      }
+  }
+
+  private def parseCloseAfter(value: Option[String]): Either[IllegalArgumentException, CloseAfter] = value match {
+    case None => Right(NoCloseAfter)
+    case Some("no") => Right(NoCloseAfter)
+    case Some("state") => Right(CloseAfterState)
+    case Some(other) => Left(new IllegalArgumentException(s"closeafter should be either 'state' or 'no', got '$other'"))
+  }
+
+  private def parsePing(value: Option[String]): Either[IllegalArgumentException, Option[Duration]] = value match {
+    case None => Right(None)
+    case Some(seconds) => Try(seconds.toLong).toOption
+      .filter(_ >= 0)
+      .toRight(new IllegalArgumentException(s"ping should be a positive number of seconds, got '$seconds'"))
+      .map {
+        case 0L => None
+        case interval => Some(Duration.ofSeconds(interval))
+      }
+  }
+}
+
+case class EventSourceOptions(types: Set[TypeName], closeAfter: CloseAfter, ping: Option[Duration])
+
+sealed trait ServerSentEvent {
+  def asString: String
+}
+case class StateServerSentEvent(stateChange: StateChange) extends ServerSentEvent {
+  override def asString: String = s"event: state\ndata: ${PushSerializer.serialize(stateChange).toString}\n\n"
+}
+case class PingServerSentEvent(interval: Duration) extends ServerSentEvent {
+  override def asString: String = s"""event: ping\ndata: {"interval":${interval.getSeconds}}\n\n"""
+}
+
+/**
+ * Push notifications as server sent events.
+ * See https://jmap.io/spec-core.html#event-source
+ */
+class EventSourceRoutes @Inject() (@Named(InjectionKeys.RFC_8621) val authenticator: Authenticator,
+                                   eventBus: EventBus) extends JMAPRoutes {
+
+  override def routes(): stream.Stream[JMAPRoute] = Stream.of(
+    JMAPRoute.builder
+      .endpoint(new Endpoint(HttpMethod.GET, EVENT_SOURCE))
+      .action(this.handleEventSource)
+      .corsHeaders,
+    JMAPRoute.builder
+      .endpoint(new Endpoint(HttpMethod.OPTIONS, EVENT_SOURCE))
+      .action(JMAPRoutes.CORS_CONTROL)
+      .corsHeaders())
+
+  private def handleEventSource(httpServerRequest: HttpServerRequest, httpServerResponse: HttpServerResponse): Mono[Void] =
+    SMono(authenticator.authenticate(httpServerRequest))
+      .flatMap((mailboxSession: MailboxSession) => EventSourceOptions.parse(new QueryStringDecoder(httpServerRequest.uri()))
+        .fold(e => SMono.raiseError[Void](e), options => sendEvents(httpServerResponse, mailboxSession, options)))
+      .onErrorResume(throwable => handleError(throwable, httpServerResponse))
+      .subscribeOn(Schedulers.elastic)
+      .asJava()
+      .`then`()
+
+  private def sendEvents(httpServerResponse: HttpServerResponse, mailboxSession: MailboxSession, options: EventSourceOptions): SMono[Void] = {
+    val stateChanges: SFlux[ServerSentEvent] = StateChangeListener.stateChanges(eventBus, mailboxSession.getUser, options.types)
+      .map(StateServerSentEvent)
+    val pings: SFlux[ServerSentEvent] = options.ping
+      .map(interval => SFlux(Flux.interval(interval)).map[ServerSentEvent](_ => PingServerSentEvent(interval)))
+      .getOrElse(SFlux.empty)
+
+    val events: SFlux[ServerSentEvent] = SFlux.merge(Seq(stateChanges, pings))
+      .takeUntil {
+        case _: StateServerSentEvent => options.closeAfter == CloseAfterState
+        case _ => false
+      }
+
+    SMono.fromPublisher(httpServerResponse.status(OK)
+      .header(CONTENT_TYPE, EVENT_STREAM_CONTENT_TYPE)
+      .header(CACHE_CONTROL, "no-cache")
+      .sendString(events.map(_.asString), StandardCharsets.UTF_8)
+      .`then`())
+  }
+
+  private def handleError(throwable: Throwable, response: HttpServerResponse): SMono[Void] = throwable match {
+    case exception: IllegalArgumentException => respondDetails(response,
+      notRequestProblem(s"Invalid event source parameters: ${exception.getMessage}"))
+    case e: UnauthorizedException =>
+      LOGGER.warn("Unauthorized", e)
+      respondDetails(response,
+        ProblemDetails(status = UNAUTHORIZED, detail = e.getMessage),
+        UNAUTHORIZED)
+    case e =>
+      LOGGER.error("Unexpected error upon event source request", e)
+      respondDetails(response,
+        ProblemDetails(status = INTERNAL_SERVER_ERROR, detail = e.getMessage),
+        INTERNAL_SERVER_ERROR)
+  }
+
+  private def respondDetails(httpServerResponse: HttpServerResponse, details: ProblemDetails, statusCode: HttpResponseStatus = BAD_REQUEST): SMono[Void] =
+    SMono.fromPublisher(httpServerResponse.status(statusCode)
+      .header(CONTENT_TYPE, JSON_CONTENT_TYPE)
+      .sendString(SMono.fromCallable(() => ResponseSerializer.serialize(details).toString),
+        StandardCharsets.UTF_8)
+      .`then`)
+}
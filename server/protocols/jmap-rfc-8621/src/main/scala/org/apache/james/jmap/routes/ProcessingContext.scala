@@ -138,6 +138,63 @@ case class BackReference(name: MethodName, path: JsonPath, resultOf: MethodCallI
 
 case class InvalidResultReferenceException(message: String) extends IllegalArgumentException
 
+object ProcessingContext {
+  private val READ_ONLY_METHOD_SUFFIXES: Set[String] = Set("/get", "/query", "/changes", "/queryChanges")
+  private val CORE_ECHO: String = "Core/echo"
+
+  /**
+   * Positions, for each method call of a request, of the previous method calls it needs to be processed after.
+   *
+   * Method calls with side effects act as barriers: they depend on every previous method calls, and every following
+   * method call depends on them. Read only method calls additionally depend on the method calls whose results they
+   * reference, and on all previous method calls when they reference a creation id.
+   */
+  def dependencies(methodCalls: Seq[Invocation]): Vector[Set[Int]] = {
+    val indexedMethodCalls: IndexedSeq[Invocation] = methodCalls.toIndexedSeq
+
+    indexedMethodCalls.indices.map(position => {
+      val invocation: Invocation = indexedMethodCalls(position)
+      val previousPositions: Range = 0 until position
+
+      if (!isReadOnly(invocation) || referencesCreationIds(invocation.arguments.value)) {
+        previousPositions.toSet
+      } else {
+        val referencedCalls: Set[MethodCallId] = referencedMethodCallIds(invocation.arguments.value)
+        val lastBarrier: Option[Int] = previousPositions.reverse.find(previous => !isReadOnly(indexedMethodCalls(previous)))
+
+        previousPositions.filter(previous => referencedCalls.contains(indexedMethodCalls(previous).methodCallId)).toSet ++
+          lastBarrier
+      }
+    }).toVector
+  }
+
+  private def isReadOnly(invocation: Invocation): Boolean = {
+    val methodName: String = invocation.methodName.value.value
+    methodName.equals(CORE_ECHO) || READ_ONLY_METHOD_SUFFIXES.exists(suffix => methodName.endsWith(suffix))
+  }
+
+  private def referencedMethodCallIds(jsValue: JsValue): Set[MethodCallId] = jsValue match {
+    case JsArray(values) => values.flatMap(referencedMethodCallIds).toSet
+    case JsObject(underlying) => underlying.flatMap {
+      case (key, value) if key.startsWith("#") => BackReferenceDeserializer.deserializeBackReference(value)
+        .fold(_ => referencedMethodCallIds(value), backReference => Set(backReference.resultOf))
+      case (_, value) => referencedMethodCallIds(value)
+    }.toSet
+    case _ => Set()
+  }
+
+  private def referencesCreationIds(jsValue: JsValue): Boolean = jsValue match {
+    case JsArray(values) => values.exists(referencesCreationIds)
+    case JsObject(underlying) => underlying.exists {
+      case (key, value) if key.startsWith("#") => BackReferenceDeserializer.deserializeBackReference(value)
+        .fold(_ => true, _ => false)
+      case (_, value) => referencesCreationIds(value)
+    }
+    case JsString(value) => value.startsWith("#")
+    case _ => false
+  }
+}
+
 case class ProcessingContext(private val creationIds: ImmutableMap[ClientId, ServerId],
                              private val invocations: ImmutableMap[MethodCallId, Invocation]) {
 
@@ -145,6 +202,8 @@ case class ProcessingContext(private val creationIds: ImmutableMap[ClientId, Ser
 
   def recordInvocation(invocation: Invocation): ProcessingContext = ProcessingContext(creationIds, invocations + (invocation.methodCallId -> invocation))
 
+  def merge(other: ProcessingContext): ProcessingContext = ProcessingContext(creationIds ++ other.creationIds, invocations ++ other.invocations)
+
   def resolveBackReferences(invocation: Invocation): Either[InvalidResultReferenceException, Invocation] =
     backReferenceResolver.reads(invocation.arguments.value) match {
       case JsError(e) => Left(InvalidResultReferenceException(e.toString()))
@@ -26,12 +26,10 @@ import org.apache.james.jmap.core.{Account, AccountId, DefaultCapabilities, IsPe
 import reactor.core.scala.publisher.SMono
 
 class SessionSupplier @Inject() (val configuration: JmapRfc8621Configuration){
-  private val maxSizeUpload = configuration.maxUploadSize
-
   def generate(username: Username): Either[IllegalArgumentException, Session] =
     accounts(username)
       .map(account => Session(
-        DefaultCapabilities.supported(maxSizeUpload),
+        DefaultCapabilities.supported(configuration),
         List(account),
         primaryAccounts(account.accountId),
         username,
@@ -41,10 +39,10 @@ class SessionSupplier @Inject() (val configuration: JmapRfc8621Configuration){
         eventSourceUrl = configuration.eventSourceUrl))
 
   private def accounts(username: Username): Either[IllegalArgumentException, Account] =
-    Account.from(username, IsPersonal(true), IsReadOnly(false), DefaultCapabilities.supported(maxSizeUpload).toSet)
+    Account.from(username, IsPersonal(true), IsReadOnly(false), DefaultCapabilities.supported(configuration).toSet)
 
   private def primaryAccounts(accountId: AccountId): Map[CapabilityIdentifier, AccountId] =
-    DefaultCapabilities.supported(maxSizeUpload).toSet
+    DefaultCapabilities.supported(configuration).toSet
       .map(capability => (capability.identifier(), accountId))
       .toMap
 }
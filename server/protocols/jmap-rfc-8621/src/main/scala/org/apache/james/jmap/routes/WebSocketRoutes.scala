@@ -0,0 +1,173 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *  http://www.apache.org/licenses/LICENSE-2.0                  *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.routes
+
+import java.nio.charset.StandardCharsets
+import java.util.stream
+import java.util.stream.Stream
+
+import com.fasterxml.jackson.core.JsonParseException
+import io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE
+import io.netty.handler.codec.http.HttpResponseStatus.{BAD_REQUEST, INTERNAL_SERVER_ERROR, UNAUTHORIZED}
+import io.netty.handler.codec.http.{HttpMethod, HttpResponseStatus}
+import javax.inject.{Inject, Named}
+import org.apache.james.jmap.HttpConstants.JSON_CONTENT_TYPE
+import org.apache.james.jmap.JMAPUrls.JMAP_WS
+import org.apache.james.jmap.change.StateChangeListener
+import org.apache.james.jmap.core.ProblemDetails.{notJSONProblem, notRequestProblem, unknownCapabilityProblem}
+import org.apache.james.jmap.core.{ProblemDetails, RequestId, TypeName, WebSocketError, WebSocketOutboundMessage, WebSocketPushDisable, WebSocketPushEnable, WebSocketRequest, WebSocketResponse}
+import org.apache.james.jmap.exceptions.UnauthorizedException
+import org.apache.james.jmap.http.rfc8621.InjectionKeys
+import org.apache.james.jmap.http.{Authenticator, UserProvisioning}
+import org.apache.james.jmap.json.{PushSerializer, ResponseSerializer}
+import org.apache.james.jmap.routes.WebSocketRoutes.{LOGGER, PROTOCOL}
+import org.apache.james.jmap.{Endpoint, JMAPRoute, JMAPRoutes}
+import org.apache.james.mailbox.MailboxSession
+import org.apache.james.mailbox.events.EventBus
+import org.slf4j.{Logger, LoggerFactory}
+import play.api.libs.json.{JsError, JsSuccess}
+import reactor.core.{Disposable, Disposables}
+import reactor.core.publisher.{FluxSink, Mono, UnicastProcessor}
+import reactor.core.scala.publisher.{SFlux, SMono}
+import reactor.core.scheduler.Schedulers
+import reactor.netty.http.server.{HttpServerRequest, HttpServerResponse}
+import reactor.netty.http.websocket.{WebsocketInbound, WebsocketOutbound}
+
+object WebSocketRoutes {
+  val LOGGER: Logger = LoggerFactory.getLogger(classOf[WebSocketRoutes])
+
+  val PROTOCOL: String = "jmap"
+}
+
+/**
+ * A WebSocket connection carries both JMAP requests and push notifications.
+ * See https://tools.ietf.org/html/rfc8887
+ */
+class WebSocketRoutes @Inject() (@Named(InjectionKeys.RFC_8621) val authenticator: Authenticator,
+                                 userProvisioner: UserProvisioning,
+                                 eventBus: EventBus,
+                                 jmapApi: JMAPApi) extends JMAPRoutes {
+
+  override def routes(): stream.Stream[JMAPRoute] = Stream.of(
+    JMAPRoute.builder
+      .endpoint(new Endpoint(HttpMethod.GET, JMAP_WS))
+      .action(this.handleWebSockets)
+      .corsHeaders,
+    JMAPRoute.builder
+      .endpoint(new Endpoint(HttpMethod.OPTIONS, JMAP_WS))
+      .action(JMAPRoutes.CORS_CONTROL)
+      .corsHeaders())
+
+  private def handleWebSockets(httpServerRequest: HttpServerRequest, httpServerResponse: HttpServerResponse): Mono[Void] =
+    SMono(authenticator.authenticate(httpServerRequest))
+      .flatMap((mailboxSession: MailboxSession) => userProvisioner.provisionUser(mailboxSession)
+        .`then`
+        .`then`(SMono(httpServerResponse.sendWebsocket(PROTOCOL,
+          (in: WebsocketInbound, out: WebsocketOutbound) => handleWebSocketConnection(mailboxSession)(in, out)))))
+      .onErrorResume(throwable => handleHttpHandshakeError(throwable, httpServerResponse))
+      .subscribeOn(Schedulers.elastic)
+      .asJava()
+      .`then`()
+
+  private def handleWebSocketConnection(mailboxSession: MailboxSession)(in: WebsocketInbound, out: WebsocketOutbound): Mono[Void] = {
+    val outbound: UnicastProcessor[WebSocketOutboundMessage] = UnicastProcessor.create()
+    val sink: FluxSink[WebSocketOutboundMessage] = outbound.sink(FluxSink.OverflowStrategy.BUFFER)
+    val pushSubscription: Disposable.Swap = Disposables.swap()
+
+    val inboundProcessing: Mono[Void] = SFlux(in.aggregateFrames()
+      .receive()
+      .asString(StandardCharsets.UTF_8))
+      .flatMap(message => handleClientMessage(message, mailboxSession, sink, pushSubscription), JMAPApi.METHOD_CALLS_CONCURRENCY, JMAPApi.METHOD_CALLS_CONCURRENCY, false)
+      .doOnNext(message => sink.next(message))
+      .doFinally(_ => {
+        pushSubscription.dispose()
+        sink.complete()
+      })
+      .asJava()
+      .`then`()
+
+    val outboundProcessing: Mono[Void] = out.sendString(SFlux(outbound)
+        .map(message => PushSerializer.serialize(message).toString),
+      StandardCharsets.UTF_8)
+      .`then`()
+
+    Mono.when(inboundProcessing, outboundProcessing)
+  }
+
+  private def handleClientMessage(message: String,
+                                  mailboxSession: MailboxSession,
+                                  sink: FluxSink[WebSocketOutboundMessage],
+                                  pushSubscription: Disposable.Swap): SMono[WebSocketOutboundMessage] =
+    SMono.fromCallable(() => PushSerializer.deserializeWebSocketInboundMessage(message))
+      .flatMap {
+        case JsSuccess(WebSocketRequest(requestId, requestObject), _) =>
+          jmapApi.process(requestObject, mailboxSession)
+            .map[WebSocketOutboundMessage](responseObject => WebSocketResponse(requestId, responseObject))
+            .onErrorResume(throwable => SMono.just(asError(requestId, throwable)))
+        case JsSuccess(WebSocketPushEnable(dataTypes), _) =>
+          SMono.fromCallable(() => pushSubscription.update(
+            StateChangeListener.stateChanges(eventBus, mailboxSession.getUser, dataTypes.getOrElse(TypeName.ALL))
+              .asJava()
+              .subscribe(stateChange => sink.next(stateChange))))
+            .`then`(SMono.empty[WebSocketOutboundMessage])
+        case JsSuccess(WebSocketPushDisable, _) =>
+          SMono.fromCallable(() => pushSubscription.update(Disposables.disposed()))
+            .`then`(SMono.empty[WebSocketOutboundMessage])
+        case errors: JsError =>
+          SMono.just[WebSocketOutboundMessage](asError(None,
+            new IllegalArgumentException(ResponseSerializer.serialize(errors).toString())))
+      }
+      .onErrorResume(throwable => SMono.just(asError(None, throwable)))
+
+  private def asError(requestId: Option[RequestId], throwable: Throwable): WebSocketError =
+    WebSocketError(requestId, asProblemDetails(throwable))
+
+  private def asProblemDetails(throwable: Throwable): ProblemDetails = throwable match {
+    case exception: IllegalArgumentException => notRequestProblem(
+      s"The request was successfully parsed as JSON but did not match the type signature of the Request object: ${exception.getMessage}")
+    case exception: JsonParseException => notJSONProblem(
+      s"The request did not parse as I-JSON: ${exception.getMessage}")
+    case exception: UnsupportedCapabilitiesException =>
+      unknownCapabilityProblem(s"The request used unsupported capabilities: ${exception.capabilities}")
+    case e =>
+      LOGGER.error("Unexpected error upon WebSocket request", e)
+      ProblemDetails(status = INTERNAL_SERVER_ERROR, detail = e.getMessage)
+  }
+
+  private def handleHttpHandshakeError(throwable: Throwable, response: HttpServerResponse): SMono[Void] = throwable match {
+    case e: UnauthorizedException =>
+      LOGGER.warn("Unauthorized", e)
+      respondDetails(response,
+        ProblemDetails(status = UNAUTHORIZED, detail = e.getMessage),
+        UNAUTHORIZED)
+    case e =>
+      LOGGER.error("Unexpected error upon WebSocket handshake", e)
+      respondDetails(response,
+        ProblemDetails(status = INTERNAL_SERVER_ERROR, detail = e.getMessage),
+        INTERNAL_SERVER_ERROR)
+  }
+
+  private def respondDetails(httpServerResponse: HttpServerResponse, details: ProblemDetails, statusCode: HttpResponseStatus = BAD_REQUEST): SMono[Void] =
+    SMono.fromPublisher(httpServerResponse.status(statusCode)
+      .header(CONTENT_TYPE, JSON_CONTENT_TYPE)
+      .sendString(SMono.fromCallable(() => ResponseSerializer.serialize(details).toString),
+        StandardCharsets.UTF_8)
+      .`then`)
+}
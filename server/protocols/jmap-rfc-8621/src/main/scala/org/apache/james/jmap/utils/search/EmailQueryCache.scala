@@ -0,0 +1,146 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ * http://www.apache.org/licenses/LICENSE-2.0                   *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.utils.search
+
+import java.time.{Clock, Duration, Instant}
+
+import com.google.common.cache.{Cache, CacheBuilder}
+import javax.inject.Inject
+import org.apache.james.jmap.core.{AccountId, QueryState}
+import org.apache.james.jmap.mail.IsAscending.ASCENDING
+import org.apache.james.jmap.mail.{Comparator, FilterCondition, FilterOperator, FilterQuery, Operator}
+import org.apache.james.jmap.utils.search.EmailQueryCache.{MAX_CACHED_IDS, MAX_OBSERVED_STATES, PAST_RESULTS_EXPIRY, RESULTS_EXPIRY, SETTLING_DELAY}
+import org.apache.james.mailbox.MessageManager.MailboxMetaData
+import org.apache.james.mailbox.model.MessageId
+import org.apache.james.mailbox.{MessageUid, ModSeq}
+
+/**
+ * Any change to the content of a mailbox, including flag updates, bumps its highest modseq or its uid next.
+ */
+case class MailboxState(uidNext: MessageUid, highestModSeq: ModSeq)
+
+object MailboxState {
+  def from(metaData: MailboxMetaData): MailboxState = MailboxState(metaData.getUidNext, metaData.getHighestModSeq)
+}
+
+sealed trait NormalizedFilter
+case class NormalizedCondition(condition: FilterCondition) extends NormalizedFilter
+case class NormalizedOperator(operator: Operator, conditions: Set[NormalizedFilter]) extends NormalizedFilter
+
+object NormalizedFilter {
+  // AND, OR and NOT operators are all commutative: the order of their conditions is irrelevant
+  def from(filter: FilterQuery): NormalizedFilter = filter match {
+    case condition: FilterCondition => NormalizedCondition(condition)
+    case FilterOperator(operator, conditions) => NormalizedOperator(operator, conditions.map(from).toSet)
+  }
+}
+
+case class EmailQueryCacheKey(accountId: AccountId, filter: Option[NormalizedFilter], comparators: Set[Comparator])
+
+object EmailQueryCacheKey {
+  def of(accountId: AccountId, filter: Option[FilterQuery], comparators: Option[Set[Comparator]]): EmailQueryCacheKey =
+    EmailQueryCacheKey(accountId,
+      filter.map(NormalizedFilter.from),
+      comparators.getOrElse(Set())
+        .map(comparator => comparator.copy(isAscending = comparator.isAscending.orElse(Some(ASCENDING)))))
+}
+
+/**
+ * The first ids of the results of a query, or all of them when `complete`.
+ *
+ * Only complete results identify the query state, and can be diffed against past results.
+ */
+case class CachedResults(mailboxState: MailboxState, ids: Seq[MessageId], complete: Boolean) {
+  lazy val queryState: QueryState = QueryState.forIds(ids)
+
+  def covers(window: Int): Boolean = complete || ids.size >= window
+}
+
+case class ObservedMailboxState(mailboxState: MailboxState, since: Instant)
+
+object EmailQueryCache {
+  val MAX_RESULTS_PER_QUERY: Int = 5000
+  // Search indexes and projections are updated asynchronously: results read right after a change could miss it
+  val SETTLING_DELAY: Duration = Duration.ofSeconds(5)
+  private val MAX_CACHED_IDS: Long = 500000
+  private val MAX_OBSERVED_STATES: Long = 100000
+  private val RESULTS_EXPIRY: Duration = Duration.ofMinutes(1)
+  private val PAST_RESULTS_EXPIRY: Duration = Duration.ofMinutes(30)
+}
+
+/**
+ * Holds the first results of recent Email/query calls, validated against the state of the mailbox they are restricted to.
+ *
+ * Results are only cached once the mailbox state they are read at has been observed for the settling delay, so that
+ * the search index and the projections had the time to catch up with the last change.
+ *
+ * Complete results are also retained by query state so that Email/queryChanges can compute the delta from a previous
+ * query. They are held in memory by the node that served the query.
+ */
+class EmailQueryCache(clock: Clock) {
+  @Inject
+  def this() = this(Clock.systemUTC())
+
+  private val results: Cache[EmailQueryCacheKey, CachedResults] = CacheBuilder.newBuilder()
+    .maximumWeight(MAX_CACHED_IDS)
+    .weigher[EmailQueryCacheKey, CachedResults]((_, cachedResults) => cachedResults.ids.size + 1)
+    .expireAfterWrite(RESULTS_EXPIRY)
+    .build[EmailQueryCacheKey, CachedResults]()
+
+  private val observedStates: Cache[EmailQueryCacheKey, ObservedMailboxState] = CacheBuilder.newBuilder()
+    .maximumSize(MAX_OBSERVED_STATES)
+    .expireAfterWrite(RESULTS_EXPIRY)
+    .build[EmailQueryCacheKey, ObservedMailboxState]()
+
+  private val pastResults: Cache[(EmailQueryCacheKey, QueryState), Seq[MessageId]] = CacheBuilder.newBuilder()
+    .maximumWeight(MAX_CACHED_IDS)
+    .weigher[(EmailQueryCacheKey, QueryState), Seq[MessageId]]((_, ids) => ids.size + 1)
+    .expireAfterWrite(PAST_RESULTS_EXPIRY)
+    .build[(EmailQueryCacheKey, QueryState), Seq[MessageId]]()
+
+  /**
+   * @return the cached results holding at least the first `window` ids, if any
+   */
+  def get(key: EmailQueryCacheKey, mailboxState: MailboxState, window: Int): Option[CachedResults] =
+    Option(results.getIfPresent(key))
+      .filter(cachedResults => cachedResults.mailboxState.equals(mailboxState) && cachedResults.covers(window))
+
+  /**
+   * Records the mailbox state seen by a query, and tells whether it did not change for the settling delay.
+   */
+  def isSettled(key: EmailQueryCacheKey, mailboxState: MailboxState): Boolean = {
+    val now: Instant = clock.instant()
+    val observed: ObservedMailboxState = observedStates.asMap().merge(key, ObservedMailboxState(mailboxState, now),
+      (previous, current) => if (previous.mailboxState.equals(current.mailboxState)) previous else current)
+    !observed.since.plus(SETTLING_DELAY).isAfter(now)
+  }
+
+  def store(key: EmailQueryCacheKey, mailboxState: MailboxState, ids: Seq[MessageId], complete: Boolean): CachedResults = {
+    val cachedResults = CachedResults(mailboxState, ids, complete)
+    if (complete) {
+      pastResults.put((key, cachedResults.queryState), ids)
+    }
+    results.put(key, cachedResults)
+    cachedResults
+  }
+
+  def resultsAt(key: EmailQueryCacheKey, queryState: QueryState): Option[Seq[MessageId]] =
+    Option(pastResults.getIfPresent((key, queryState)))
+}
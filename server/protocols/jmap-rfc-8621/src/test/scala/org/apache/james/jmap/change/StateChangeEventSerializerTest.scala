@@ -0,0 +1,68 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.change
+
+import eu.timepit.refined.auto._
+import org.apache.james.core.Username
+import org.apache.james.event.json.EventSerializer
+import org.apache.james.jmap.core.State.State
+import org.apache.james.mailbox.events.Event.EventId
+import org.apache.james.mailbox.model.{TestId, TestMessageId}
+import org.apache.james.mailbox.store.quota.DefaultUserQuotaRootResolver
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+
+object StateChangeEventSerializerTest {
+  val EVENT_SERIALIZER: EventSerializer = new EventSerializer(new TestId.Factory, new TestMessageId.Factory,
+    new DefaultUserQuotaRootResolver.DefaultQuotaRootDeserializer,
+    java.util.Set.of(new StateChangeEventSerializer))
+  val EVENT_ID: EventId = EventId.of("6e0dd59d-660e-4d9b-b22f-0354479f47b4")
+  val USERNAME: Username = Username.of("bob@domain.tld")
+  val MAILBOX_STATE: State = "2f9f1b12-b35a-43e6-9af2-0106fb53a943"
+  val EMAIL_STATE: State = "2d9f1b12-b35a-43e6-9af2-0106fb53a943"
+}
+
+class StateChangeEventSerializerTest {
+  import StateChangeEventSerializerTest._
+
+  @Test
+  def stateChangeEventShouldBeWellSerialized(): Unit = {
+    val event = StateChangeEvent(EVENT_ID, USERNAME, Some(MAILBOX_STATE), Some(EMAIL_STATE))
+
+    assertThat(EVENT_SERIALIZER.toJson(event)).isEqualTo(
+      """{"StateChangeEvent":{"eventId":"6e0dd59d-660e-4d9b-b22f-0354479f47b4","username":"bob@domain.tld","mailboxState":"2f9f1b12-b35a-43e6-9af2-0106fb53a943","emailState":"2d9f1b12-b35a-43e6-9af2-0106fb53a943"}}""")
+  }
+
+  @Test
+  def stateChangeEventShouldBeWellDeserialized(): Unit = {
+    val event = StateChangeEvent(EVENT_ID, USERNAME, Some(MAILBOX_STATE), Some(EMAIL_STATE))
+
+    assertThat(EVENT_SERIALIZER.fromJson(EVENT_SERIALIZER.toJson(event)).get).isEqualTo(event)
+  }
+
+  @Test
+  def stateChangeEventShouldBeDeserializedWhenMissingStates(): Unit = {
+    val event = StateChangeEvent(EVENT_ID, USERNAME, Some(MAILBOX_STATE), None)
+
+    assertThat(EVENT_SERIALIZER.fromJson(
+      """{"StateChangeEvent":{"eventId":"6e0dd59d-660e-4d9b-b22f-0354479f47b4","username":"bob@domain.tld","mailboxState":"2f9f1b12-b35a-43e6-9af2-0106fb53a943"}}""").get)
+      .isEqualTo(event)
+  }
+}
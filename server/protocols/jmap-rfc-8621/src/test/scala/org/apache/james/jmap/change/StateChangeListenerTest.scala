@@ -0,0 +1,107 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.change
+
+import java.time.Duration
+
+import eu.timepit.refined.auto._
+import org.apache.james.jmap.core.State.State
+import org.apache.james.jmap.core.{AccountId, EmailTypeName, MailboxTypeName, StateChange, TypeName, TypeState}
+import org.apache.james.mailbox.events.delivery.InVmEventDelivery
+import org.apache.james.mailbox.events.{Event, EventBus, InVMEventBus, MemoryEventDeadLetters, RetryBackoffConfiguration}
+import org.apache.james.mailbox.fixture.MailboxFixture.BOB
+import org.apache.james.mailbox.inmemory.manager.InMemoryIntegrationResources
+import org.apache.james.mailbox.model.MailboxPath
+import org.apache.james.mailbox.{MailboxManager, MailboxSessionUtil}
+import org.apache.james.metrics.tests.RecordingMetricFactory
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.{BeforeEach, Test}
+
+object StateChangeListenerTest {
+  val STATE_1: State = "2f9f1b12-b35a-43e6-9af2-0106fb53a943"
+  val STATE_2: State = "2d9f1b12-b35a-43e6-9af2-0106fb53a943"
+  val TIMEOUT: Duration = Duration.ofSeconds(10)
+}
+
+class StateChangeListenerTest {
+  import StateChangeListenerTest._
+
+  var eventBus: EventBus = _
+  var mailboxManager: MailboxManager = _
+  val accountId: AccountId = AccountId.from(BOB).toOption.get
+
+  @BeforeEach
+  def setUp: Unit = {
+    eventBus = new InVMEventBus(new InVmEventDelivery(new RecordingMetricFactory), RetryBackoffConfiguration.DEFAULT, new MemoryEventDeadLetters)
+    val resources = InMemoryIntegrationResources.builder
+      .preProvisionnedFakeAuthenticator
+      .fakeAuthorizator
+      .eventBus(eventBus)
+      .defaultAnnotationLimits.defaultMessageParser.scanningSearchIndex.noPreDeletionHooks.storeQuotaManager
+      .build
+
+    mailboxManager = resources.getMailboxManager
+    eventBus.register(new StateChangeEmitter(eventBus))
+  }
+
+  @Test
+  def changesHappeningWithinTheCoalescingWindowShouldBeMerged(): Unit = {
+    val stateChange = StateChangeListener.stateChanges(eventBus, BOB, TypeName.ALL)
+      .next()
+      .asJava()
+      .toFuture
+
+    dispatch(StateChangeEvent(Event.EventId.random(), BOB, Some(STATE_1), None))
+    dispatch(StateChangeEvent(Event.EventId.random(), BOB, Some(STATE_2), Some(STATE_1)))
+
+    assertThat(stateChange.get())
+      .isEqualTo(StateChange(Map(accountId -> TypeState(Map(MailboxTypeName -> STATE_2, EmailTypeName -> STATE_1)))))
+  }
+
+  @Test
+  def stateChangesShouldOnlyContainRequestedTypes(): Unit = {
+    val stateChange = StateChangeListener.stateChanges(eventBus, BOB, Set(EmailTypeName))
+      .next()
+      .asJava()
+      .toFuture
+
+    dispatch(StateChangeEvent(Event.EventId.random(), BOB, Some(STATE_1), None))
+    dispatch(StateChangeEvent(Event.EventId.random(), BOB, None, Some(STATE_2)))
+
+    assertThat(stateChange.get())
+      .isEqualTo(StateChange(Map(accountId -> TypeState(Map(EmailTypeName -> STATE_2)))))
+  }
+
+  @Test
+  def creatingAMailboxShouldPushAMailboxStateChange(): Unit = {
+    val stateChange = StateChangeListener.stateChanges(eventBus, BOB, TypeName.ALL)
+      .next()
+      .asJava()
+      .toFuture
+
+    mailboxManager.createMailbox(MailboxPath.inbox(BOB), MailboxSessionUtil.create(BOB))
+
+    assertThat(stateChange.get().changes(accountId).changes.keySet.contains(MailboxTypeName))
+      .isTrue
+  }
+
+  private def dispatch(event: StateChangeEvent): Unit =
+    eventBus.dispatch(event, AccountIdRegistrationKey.of(BOB)).block(TIMEOUT)
+}
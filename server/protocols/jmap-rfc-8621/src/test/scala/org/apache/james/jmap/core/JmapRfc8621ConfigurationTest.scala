@@ -19,7 +19,7 @@
 
 package org.apache.james.jmap.core
 
-import java.net.URL
+import java.net.{URI, URL}
 
 import org.apache.commons.configuration2.{Configuration, PropertiesConfiguration}
 import org.apache.james.jmap.core.JmapRfc8621Configuration.URL_PREFIX_PROPERTIES
@@ -44,7 +44,8 @@ class JmapRfc8621ConfigurationTest extends AnyWordSpec with Matchers {
       jmapRfc8621Configuration.apiUrl must be(new URL("http://random-domain.com/jmap"))
       jmapRfc8621Configuration.downloadUrl must be(new URL("http://random-domain.com/download/{accountId}/{blobId}/?type={type}&name={name}"))
       jmapRfc8621Configuration.uploadUrl must be(new URL("http://random-domain.com/upload/{accountId}"))
-      jmapRfc8621Configuration.eventSourceUrl must be(new URL("http://random-domain.com/eventSource"))
+      jmapRfc8621Configuration.eventSourceUrl must be(new URL("http://random-domain.com/eventSource?types={types}&closeafter={closeafter}&ping={ping}"))
+      jmapRfc8621Configuration.webSocketUrl must be(new URI("ws://random-domain.com/jmap/ws"))
     }
 
     "load default config for urlPrefix when no configuration provided" in {
@@ -53,7 +54,8 @@ class JmapRfc8621ConfigurationTest extends AnyWordSpec with Matchers {
       jmapRfc8621Configuration.apiUrl must be(new URL("http://localhost/jmap"))
       jmapRfc8621Configuration.downloadUrl must be(new URL("http://localhost/download/{accountId}/{blobId}/?type={type}&name={name}"))
       jmapRfc8621Configuration.uploadUrl must be(new URL("http://localhost/upload/{accountId}"))
-      jmapRfc8621Configuration.eventSourceUrl must be(new URL("http://localhost/eventSource"))
+      jmapRfc8621Configuration.eventSourceUrl must be(new URL("http://localhost/eventSource?types={types}&closeafter={closeafter}&ping={ping}"))
+      jmapRfc8621Configuration.webSocketUrl must be(new URI("ws://localhost/jmap/ws"))
     }
   }
 }
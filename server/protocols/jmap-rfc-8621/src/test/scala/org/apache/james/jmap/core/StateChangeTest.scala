@@ -0,0 +1,68 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.core
+
+import eu.timepit.refined.auto._
+import org.apache.james.core.Username
+import org.apache.james.jmap.core.State.State
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class StateChangeTest extends AnyWordSpec with Matchers {
+  private val BOB: AccountId = AccountId.from(Username.of("bob@domain.tld")).toOption.get
+  private val ALICE: AccountId = AccountId.from(Username.of("alice@domain.tld")).toOption.get
+  private val STATE_1: State = "state-1"
+  private val STATE_2: State = "state-2"
+
+  "StateChange merge" should {
+    "keep the most recent state of a type" in {
+      StateChange(Map(BOB -> TypeState(Map(MailboxTypeName -> STATE_1))))
+        .merge(StateChange(Map(BOB -> TypeState(Map(MailboxTypeName -> STATE_2))))) should be(
+        StateChange(Map(BOB -> TypeState(Map(MailboxTypeName -> STATE_2)))))
+    }
+
+    "combine the types of an account" in {
+      StateChange(Map(BOB -> TypeState(Map(MailboxTypeName -> STATE_1))))
+        .merge(StateChange(Map(BOB -> TypeState(Map(EmailTypeName -> STATE_2))))) should be(
+        StateChange(Map(BOB -> TypeState(Map(MailboxTypeName -> STATE_1, EmailTypeName -> STATE_2)))))
+    }
+
+    "combine accounts" in {
+      StateChange(Map(BOB -> TypeState(Map(MailboxTypeName -> STATE_1))))
+        .merge(StateChange(Map(ALICE -> TypeState(Map(EmailTypeName -> STATE_2))))) should be(
+        StateChange(Map(
+          BOB -> TypeState(Map(MailboxTypeName -> STATE_1)),
+          ALICE -> TypeState(Map(EmailTypeName -> STATE_2)))))
+    }
+  }
+
+  "StateChange filter" should {
+    "retain only the requested types" in {
+      StateChange(Map(BOB -> TypeState(Map(MailboxTypeName -> STATE_1, EmailTypeName -> STATE_2))))
+        .filter(Set(EmailTypeName)) should be(
+        Some(StateChange(Map(BOB -> TypeState(Map(EmailTypeName -> STATE_2))))))
+    }
+
+    "return empty when no requested type changed" in {
+      StateChange(Map(BOB -> TypeState(Map(MailboxTypeName -> STATE_1))))
+        .filter(Set(EmailTypeName)) should be(None)
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.json
+
+import eu.timepit.refined.auto._
+import net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson
+import org.apache.james.core.Username
+import org.apache.james.jmap.core.State.State
+import org.apache.james.jmap.core.{AccountId, EmailTypeName, MailboxTypeName, RequestId, StateChange, TypeState, WebSocketPushDisable, WebSocketPushEnable, WebSocketRequest}
+import org.apache.james.jmap.json.Fixture.coreIdentifier
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+import play.api.libs.json.{JsError, JsSuccess, Json}
+
+class PushSerializerTest extends AnyWordSpec with Matchers {
+  private val ACCOUNT_ID: AccountId = AccountId.from(Username.of("bob@domain.tld")).toOption.get
+  private val MAILBOX_STATE: State = "mailbox-state"
+  private val EMAIL_STATE: State = "email-state"
+
+  "Deserialize WebSocketInboundMessage" should {
+    "succeed for a request" in {
+      val json =
+        """{
+          |  "@type": "Request",
+          |  "id": "R1",
+          |  "using": ["urn:ietf:params:jmap:core"],
+          |  "methodCalls": [["Core/echo", {"arg1": "arg1data"}, "c1"]]
+          |}""".stripMargin
+
+      PushSerializer.deserializeWebSocketInboundMessage(json) match {
+        case JsSuccess(WebSocketRequest(requestId, requestObject), _) =>
+          requestId should be(Some(RequestId("R1")))
+          requestObject.using should be(Seq(coreIdentifier))
+        case other => fail(s"Unexpected result $other")
+      }
+    }
+
+    "succeed for a push enable with data types" in {
+      PushSerializer.deserializeWebSocketInboundMessage("""{"@type": "WebSocketPushEnable", "dataTypes": ["Mailbox"]}""").get should be(
+        WebSocketPushEnable(Some(Set(MailboxTypeName))))
+    }
+
+    "succeed for a push enable without data types" in {
+      PushSerializer.deserializeWebSocketInboundMessage("""{"@type": "WebSocketPushEnable"}""").get should be(
+        WebSocketPushEnable(None))
+    }
+
+    "succeed for a push disable" in {
+      PushSerializer.deserializeWebSocketInboundMessage("""{"@type": "WebSocketPushDisable"}""").get should be(
+        WebSocketPushDisable)
+    }
+
+    "fail for an unknown data type" in {
+      PushSerializer.deserializeWebSocketInboundMessage("""{"@type": "WebSocketPushEnable", "dataTypes": ["Unknown"]}""") shouldBe a[JsError]
+    }
+
+    "fail for an unknown type" in {
+      PushSerializer.deserializeWebSocketInboundMessage("""{"@type": "Unknown"}""") shouldBe a[JsError]
+    }
+
+    "fail when missing type" in {
+      PushSerializer.deserializeWebSocketInboundMessage("""{"dataTypes": ["Mailbox"]}""") shouldBe a[JsError]
+    }
+  }
+
+  "Serialize StateChange" should {
+    "succeed" in {
+      val stateChange = StateChange(Map(ACCOUNT_ID -> TypeState(Map(MailboxTypeName -> MAILBOX_STATE, EmailTypeName -> EMAIL_STATE))))
+
+      assertThatJson(Json.stringify(PushSerializer.serialize(stateChange))).isEqualTo(
+        s"""{
+           |  "@type": "StateChange",
+           |  "changed": {
+           |    "${ACCOUNT_ID.id.value}": {
+           |      "Mailbox": "mailbox-state",
+           |      "Email": "email-state"
+           |    }
+           |  }
+           |}""".stripMargin)
+    }
+  }
+}
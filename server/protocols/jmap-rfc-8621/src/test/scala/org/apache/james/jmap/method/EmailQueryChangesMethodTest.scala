@@ -0,0 +1,50 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.method
+
+import eu.timepit.refined.auto._
+import org.apache.james.jmap.mail.AddedItem
+import org.apache.james.mailbox.model.{MessageId, TestMessageId}
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class EmailQueryChangesMethodTest extends AnyWordSpec with Matchers {
+  private val ID_1: MessageId = TestMessageId.of(1)
+  private val ID_2: MessageId = TestMessageId.of(2)
+  private val ID_3: MessageId = TestMessageId.of(3)
+
+  "EmailQueryChangesMethod changes" should {
+    "be empty when results are unchanged" in {
+      EmailQueryChangesMethod.changes(Seq(ID_1, ID_2), Seq(ID_1, ID_2)) should be((Seq(), Seq()))
+    }
+
+    "report removed ids" in {
+      EmailQueryChangesMethod.changes(Seq(ID_1, ID_2, ID_3), Seq(ID_1, ID_3)) should be((Seq(ID_2), Seq()))
+    }
+
+    "report added ids with their index in the new results" in {
+      EmailQueryChangesMethod.changes(Seq(ID_1, ID_3), Seq(ID_2, ID_1, ID_3)) should be((Seq(), Seq(AddedItem(ID_2, 0))))
+    }
+
+    "report both added and removed ids" in {
+      EmailQueryChangesMethod.changes(Seq(ID_1, ID_2), Seq(ID_3, ID_1)) should be((Seq(ID_2), Seq(AddedItem(ID_3, 0))))
+    }
+  }
+}
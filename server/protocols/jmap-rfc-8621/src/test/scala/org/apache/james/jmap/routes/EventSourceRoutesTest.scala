@@ -0,0 +1,226 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *  http://www.apache.org/licenses/LICENSE-2.0                  *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.routes
+
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+
+import eu.timepit.refined.auto._
+import io.netty.handler.codec.http.HttpHeaderNames.ACCEPT
+import io.restassured.RestAssured
+import io.restassured.builder.RequestSpecBuilder
+import io.restassured.config.EncoderConfig.encoderConfig
+import io.restassured.config.RestAssuredConfig.newConfig
+import io.restassured.http.ContentType
+import org.apache.http.HttpStatus
+import org.apache.james.core.Username
+import org.apache.james.jmap.JMAPUrls.EVENT_SOURCE
+import org.apache.james.jmap.change.{AccountIdRegistrationKey, StateChangeEvent}
+import org.apache.james.jmap.core.AccountId
+import org.apache.james.jmap.core.State.State
+import org.apache.james.jmap.exceptions.UnauthorizedException
+import org.apache.james.jmap.http.Authenticator
+import org.apache.james.jmap.routes.EventSourceRoutesTest.{ACCEPT_RFC8621_VERSION_HEADER, ACCOUNT_ID, BOB, EMAIL_STATE, MAILBOX_STATE, TEST_CONFIGURATION, TIMEOUT}
+import org.apache.james.jmap.{JMAPConfiguration, JMAPRoutesHandler, JMAPServer, Version, VersionParser}
+import org.apache.james.mailbox.MailboxSession
+import org.apache.james.mailbox.events.delivery.InVmEventDelivery
+import org.apache.james.mailbox.events.{Event, EventBus, InVMEventBus, MemoryEventDeadLetters, RetryBackoffConfiguration}
+import org.apache.james.metrics.tests.RecordingMetricFactory
+import org.hamcrest.Matchers.{equalTo, startsWith}
+import org.mockito.ArgumentMatchers.any
+import org.mockito.Mockito.{mock, when}
+import org.scalatest.BeforeAndAfter
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+import reactor.core.publisher.{Flux, Mono}
+import reactor.netty.http.client.HttpClient
+
+import scala.jdk.CollectionConverters._
+
+object EventSourceRoutesTest {
+  private val TEST_CONFIGURATION = JMAPConfiguration.builder.enable.randomPort.build
+  private val BOB = Username.of("bob@james.org")
+  private val ACCOUNT_ID: String = AccountId.from(BOB).toOption.get.id.value
+  private val MAILBOX_STATE: State = "2f9f1b12-b35a-43e6-9af2-0106fb53a943"
+  private val EMAIL_STATE: State = "2d9f1b12-b35a-43e6-9af2-0106fb53a943"
+  private val TIMEOUT = Duration.ofSeconds(10)
+  private val ACCEPT_RFC8621_VERSION_HEADER = s"application/json; jmapVersion=${Version.RFC8621.asString}"
+}
+
+class EventSourceRoutesTest extends AnyFlatSpec with BeforeAndAfter with Matchers {
+
+  var jmapServer: JMAPServer = _
+  var eventBus: EventBus = _
+  var authenticator: Authenticator = _
+
+  before {
+    val mockedSession = mock(classOf[MailboxSession])
+    when(mockedSession.getUser)
+      .thenReturn(BOB)
+
+    authenticator = mock(classOf[Authenticator])
+    when(authenticator.authenticate(any()))
+      .thenReturn(Mono.just(mockedSession))
+
+    eventBus = new InVMEventBus(new InVmEventDelivery(new RecordingMetricFactory), RetryBackoffConfiguration.DEFAULT, new MemoryEventDeadLetters)
+
+    val eventSourceRoutes = new EventSourceRoutes(authenticator, eventBus)
+    jmapServer = new JMAPServer(
+      TEST_CONFIGURATION,
+      Set(new JMAPRoutesHandler(Version.RFC8621, eventSourceRoutes)).asJava,
+      new VersionParser(Set(Version.RFC8621, Version.DRAFT).asJava, JMAPConfiguration.DEFAULT))
+    jmapServer.start()
+
+    RestAssured.requestSpecification = new RequestSpecBuilder()
+      .setConfig(newConfig.encoderConfig(encoderConfig.defaultContentCharset(StandardCharsets.UTF_8)))
+      .addHeader(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+      .setPort(jmapServer.getPort.getValue)
+      .setBasePath(EVENT_SOURCE)
+      .build()
+  }
+
+  after {
+    jmapServer.stop()
+  }
+
+  "options" should "return OK status" in {
+    RestAssured.when()
+      .options
+    .`then`
+      .statusCode(HttpStatus.SC_OK)
+  }
+
+  "get" should "be rejected when authentication fails" in {
+    when(authenticator.authenticate(any()))
+      .thenReturn(Mono.error[MailboxSession](new UnauthorizedException("Invalid credentials")))
+
+    RestAssured.when()
+      .get
+    .`then`
+      .statusCode(HttpStatus.SC_UNAUTHORIZED)
+      .contentType(ContentType.JSON)
+      .body("status", equalTo(401))
+  }
+
+  "get" should "reject unknown types" in {
+    RestAssured.`given`()
+      .queryParam("types", "Mailbox,Unknown")
+    .when()
+      .get
+    .`then`
+      .statusCode(HttpStatus.SC_BAD_REQUEST)
+      .contentType(ContentType.JSON)
+      .body("type", equalTo("urn:ietf:params:jmap:error:notRequest"))
+      .body("detail", equalTo("Invalid event source parameters: Unknown type 'Unknown'"))
+  }
+
+  "get" should "reject invalid closeafter" in {
+    RestAssured.`given`()
+      .queryParam("closeafter", "never")
+    .when()
+      .get
+    .`then`
+      .statusCode(HttpStatus.SC_BAD_REQUEST)
+      .contentType(ContentType.JSON)
+      .body("type", equalTo("urn:ietf:params:jmap:error:notRequest"))
+      .body("detail", startsWith("Invalid event source parameters: closeafter"))
+  }
+
+  "get" should "reject non numeric ping" in {
+    RestAssured.`given`()
+      .queryParam("ping", "abc")
+    .when()
+      .get
+    .`then`
+      .statusCode(HttpStatus.SC_BAD_REQUEST)
+      .contentType(ContentType.JSON)
+      .body("type", equalTo("urn:ietf:params:jmap:error:notRequest"))
+      .body("detail", startsWith("Invalid event source parameters: ping"))
+  }
+
+  "get" should "reject negative ping" in {
+    RestAssured.`given`()
+      .queryParam("ping", "-1")
+    .when()
+      .get
+    .`then`
+      .statusCode(HttpStatus.SC_BAD_REQUEST)
+      .body("detail", startsWith("Invalid event source parameters: ping"))
+  }
+
+  "get" should "send a state event and close when closeafter is state" in {
+    withStateChangesDispatched(Some(MAILBOX_STATE), Some(EMAIL_STATE)) {
+      RestAssured.`given`()
+        .queryParam("types", "*")
+        .queryParam("closeafter", "state")
+      .when()
+        .get
+      .`then`
+        .statusCode(HttpStatus.SC_OK)
+        .contentType("text/event-stream")
+        .header("Cache-Control", "no-cache")
+        .body(equalTo("event: state\n" +
+          s"""data: {"@type":"StateChange","changed":{"$ACCOUNT_ID":{"Mailbox":"$MAILBOX_STATE","Email":"$EMAIL_STATE"}}}""" +
+          "\n\n"))
+    }
+  }
+
+  "get" should "only send the requested types" in {
+    withStateChangesDispatched(Some(MAILBOX_STATE), Some(EMAIL_STATE)) {
+      RestAssured.`given`()
+        .queryParam("types", "Email")
+        .queryParam("closeafter", "state")
+      .when()
+        .get
+      .`then`
+        .statusCode(HttpStatus.SC_OK)
+        .body(equalTo("event: state\n" +
+          s"""data: {"@type":"StateChange","changed":{"$ACCOUNT_ID":{"Email":"$EMAIL_STATE"}}}""" +
+          "\n\n"))
+    }
+  }
+
+  "get" should "send ping events at the requested interval" in {
+    val firstEvent = HttpClient.create()
+      .port(jmapServer.getPort.getValue)
+      .headers(headers => headers.add(ACCEPT, ACCEPT_RFC8621_VERSION_HEADER))
+      .get()
+      .uri(s"$EVENT_SOURCE?ping=1")
+      .responseContent()
+      .asString(StandardCharsets.UTF_8)
+      .blockFirst(TIMEOUT)
+
+    firstEvent shouldBe "event: ping\ndata: {\"interval\":1}\n\n"
+  }
+
+  /**
+   * The listener is registered asynchronously: state changes are dispatched repeatedly while the block runs.
+   */
+  private def withStateChangesDispatched[T](mailboxState: Option[State], emailState: Option[State])(block: => T): T = {
+    val dispatcher = Flux.interval(Duration.ofMillis(100))
+      .concatMap(_ => eventBus.dispatch(StateChangeEvent(Event.EventId.random(), BOB, mailboxState, emailState), AccountIdRegistrationKey.of(BOB)))
+      .subscribe()
+    try {
+      block
+    } finally {
+      dispatcher.dispose()
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.jmap.routes
+
+import eu.timepit.refined.auto._
+import org.apache.james.jmap.core.Invocation
+import org.apache.james.jmap.core.Invocation.{Arguments, MethodCallId, MethodName}
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+import play.api.libs.json.{JsObject, Json}
+
+class ProcessingContextTest extends AnyWordSpec with Matchers {
+  private def invocation(methodName: MethodName, methodCallId: MethodCallId, arguments: String = "{}"): Invocation =
+    Invocation(methodName, Arguments(Json.parse(arguments).as[JsObject]), methodCallId)
+
+  "Method call dependencies" should {
+    "be empty for independent read only method calls" in {
+      ProcessingContext.dependencies(Seq(
+        invocation(MethodName("Mailbox/get"), MethodCallId("c1")),
+        invocation(MethodName("Email/query"), MethodCallId("c2")),
+        invocation(MethodName("VacationResponse/get"), MethodCallId("c3")))) should equal(
+        Vector(Set(), Set(), Set()))
+    }
+    "include referenced method calls" in {
+      ProcessingContext.dependencies(Seq(
+        invocation(MethodName("Email/query"), MethodCallId("c1")),
+        invocation(MethodName("Mailbox/get"), MethodCallId("c2")),
+        invocation(MethodName("Email/get"), MethodCallId("c3"),
+          """{"#ids": {"resultOf": "c1", "name": "Email/query", "path": "/ids"}}"""))) should equal(
+        Vector(Set(), Set(), Set(0)))
+    }
+    "include all previous method calls when referencing a creation id" in {
+      ProcessingContext.dependencies(Seq(
+        invocation(MethodName("Email/query"), MethodCallId("c1")),
+        invocation(MethodName("Mailbox/get"), MethodCallId("c2")),
+        invocation(MethodName("Mailbox/get"), MethodCallId("c3"), """{"ids": ["#C42"]}"""))) should equal(
+        Vector(Set(), Set(), Set(0, 1)))
+    }
+    "order method calls around method calls with side effects" in {
+      ProcessingContext.dependencies(Seq(
+        invocation(MethodName("Mailbox/get"), MethodCallId("c1")),
+        invocation(MethodName("Mailbox/set"), MethodCallId("c2")),
+        invocation(MethodName("Mailbox/get"), MethodCallId("c3")),
+        invocation(MethodName("Email/query"), MethodCallId("c4")))) should equal(
+        Vector(Set(), Set(0), Set(1), Set(1)))
+    }
+  }
+
+  "Merging processing contexts" should {
+    "retain invocations of both contexts" in {
+      val first = invocation(MethodName("Mailbox/get"), MethodCallId("c1"), """{"list": []}""")
+      val second = invocation(MethodName("Email/query"), MethodCallId("c2"))
+      val reference = invocation(MethodName("Email/get"), MethodCallId("c3"),
+        """{"#ids": {"resultOf": "c1", "name": "Mailbox/get", "path": "/list"}}""")
+
+      val merged = ProcessingContext(Map.empty, Map.empty).recordInvocation(first)
+        .merge(ProcessingContext(Map.empty, Map.empty).recordInvocation(second))
+
+      merged.resolveBackReferences(reference).isRight should be(true)
+    }
+  }
+}
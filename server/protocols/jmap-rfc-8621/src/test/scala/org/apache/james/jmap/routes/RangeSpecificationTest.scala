@@ -0,0 +1,75 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+package org.apache.james.jmap.routes
+
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class RangeSpecificationTest extends AnyWordSpec with Matchers {
+  "Range parsing" should {
+    "support bounded ranges" in {
+      RangeSpecification.parse("bytes=10-19") should equal(Some(BoundedRange(10, Some(19))))
+    }
+    "support open ended ranges" in {
+      RangeSpecification.parse("bytes=10-") should equal(Some(BoundedRange(10, None)))
+    }
+    "support suffix ranges" in {
+      RangeSpecification.parse("bytes=-5") should equal(Some(SuffixRange(5)))
+    }
+    "ignore multiple ranges" in {
+      RangeSpecification.parse("bytes=0-1,5-6") should equal(None)
+    }
+    "ignore other units" in {
+      RangeSpecification.parse("items=0-1") should equal(None)
+    }
+    "ignore inverted ranges" in {
+      RangeSpecification.parse("bytes=20-10") should equal(None)
+    }
+    "ignore empty ranges" in {
+      RangeSpecification.parse("bytes=-") should equal(None)
+    }
+  }
+
+  "Range resolution" should {
+    "truncate the last position to the size" in {
+      BoundedRange(10, Some(200)).resolve(100) should equal(Some(ByteRange(10, 99)))
+    }
+    "extend open ended ranges to the end" in {
+      BoundedRange(10, None).resolve(100) should equal(Some(ByteRange(10, 99)))
+    }
+    "serve the end of the content for suffix ranges" in {
+      SuffixRange(5).resolve(100) should equal(Some(ByteRange(95, 99)))
+    }
+    "serve the whole content for suffix ranges longer than the content" in {
+      SuffixRange(500).resolve(100) should equal(Some(ByteRange(0, 99)))
+    }
+    "not be satisfiable when starting after the end" in {
+      BoundedRange(100, None).resolve(100) should equal(None)
+    }
+    "not be satisfiable for empty suffixes" in {
+      SuffixRange(0).resolve(100) should equal(None)
+    }
+  }
+
+  "Content range" should {
+    "be formatted as specified by RFC-7233" in {
+      ByteRange(10, 19).asContentRange(100) should equal("bytes 10-19/100")
+    }
+  }
+}
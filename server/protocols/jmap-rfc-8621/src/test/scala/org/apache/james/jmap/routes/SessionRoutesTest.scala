@@ -143,7 +143,11 @@ class SessionRoutesTest extends AnyFlatSpec with BeforeAndAfter with Matchers {
                          |    },
                          |    "urn:apache:james:params:jmap:mail:quota": {},
                          |    "urn:apache:james:params:jmap:mail:shares": {},
-                         |    "urn:ietf:params:jmap:vacationresponse":{}
+                         |    "urn:ietf:params:jmap:vacationresponse":{},
+                         |    "urn:ietf:params:jmap:websocket": {
+                         |      "supportsPush": true,
+                         |      "url": "ws://localhost/jmap/ws"
+                         |    }
                          |  },
                          |  "accounts" : {
                          |    "0fe275bf13ff761407c17f64b1dfae2f4b3186feea223d7267b79f873a105401" : {
@@ -175,7 +179,11 @@ class SessionRoutesTest extends AnyFlatSpec with BeforeAndAfter with Matchers {
                          |        },
                          |        "urn:apache:james:params:jmap:mail:quota": {},
                          |        "urn:apache:james:params:jmap:mail:shares": {},
-                         |        "urn:ietf:params:jmap:vacationresponse":{}
+                         |        "urn:ietf:params:jmap:vacationresponse":{},
+                         |        "urn:ietf:params:jmap:websocket": {
+                         |          "supportsPush": true,
+                         |          "url": "ws://localhost/jmap/ws"
+                         |        }
                          |      }
                          |    }
                          |  },
@@ -185,13 +193,14 @@ class SessionRoutesTest extends AnyFlatSpec with BeforeAndAfter with Matchers {
                          |    "urn:ietf:params:jmap:mail" : "0fe275bf13ff761407c17f64b1dfae2f4b3186feea223d7267b79f873a105401",
                          |    "urn:apache:james:params:jmap:mail:quota": "0fe275bf13ff761407c17f64b1dfae2f4b3186feea223d7267b79f873a105401",
                          |    "urn:apache:james:params:jmap:mail:shares": "0fe275bf13ff761407c17f64b1dfae2f4b3186feea223d7267b79f873a105401",
-                         |    "urn:ietf:params:jmap:vacationresponse": "0fe275bf13ff761407c17f64b1dfae2f4b3186feea223d7267b79f873a105401"
+                         |    "urn:ietf:params:jmap:vacationresponse": "0fe275bf13ff761407c17f64b1dfae2f4b3186feea223d7267b79f873a105401",
+                         |    "urn:ietf:params:jmap:websocket": "0fe275bf13ff761407c17f64b1dfae2f4b3186feea223d7267b79f873a105401"
                          |  },
                          |  "username" : "bob@james.org",
                          |  "apiUrl" : "$LOCALHOST_URL_PREFIX/jmap",
                          |  "downloadUrl" : "$LOCALHOST_URL_PREFIX/$downloadPath",
                          |  "uploadUrl" : "$LOCALHOST_URL_PREFIX/upload/{accountId}",
-                         |  "eventSourceUrl" : "$LOCALHOST_URL_PREFIX/eventSource",
+                         |  "eventSourceUrl" : "$LOCALHOST_URL_PREFIX/eventSource?types={types}&closeafter={closeafter}&ping={ping}",
                          |  "state" : "000001"
                          |}""".stripMargin
 
@@ -0,0 +1,265 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *  http://www.apache.org/licenses/LICENSE-2.0                  *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.routes
+
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+
+import eu.timepit.refined.auto._
+import io.netty.handler.codec.http.HttpHeaderNames.ACCEPT
+import io.restassured.RestAssured
+import io.restassured.builder.RequestSpecBuilder
+import io.restassured.config.EncoderConfig.encoderConfig
+import io.restassured.config.RestAssuredConfig.newConfig
+import io.restassured.http.ContentType
+import net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson
+import org.apache.http.HttpStatus
+import org.apache.james.core.Username
+import org.apache.james.jmap.JMAPUrls.JMAP_WS
+import org.apache.james.jmap.change.{AccountIdRegistrationKey, StateChangeEvent}
+import org.apache.james.jmap.core.State.State
+import org.apache.james.jmap.core.{AccountId, JmapRfc8621Configuration}
+import org.apache.james.jmap.exceptions.UnauthorizedException
+import org.apache.james.jmap.http.{Authenticator, UserProvisioning}
+import org.apache.james.jmap.method.{CoreEchoMethod, Method}
+import org.apache.james.jmap.routes.WebSocketRoutesTest.{ACCEPT_RFC8621_VERSION_HEADER, ACCOUNT_ID, BOB, ECHO_REQUEST, EMAIL_STATE, MAILBOX_STATE, TEST_CONFIGURATION, TIMEOUT}
+import org.apache.james.jmap.{JMAPConfiguration, JMAPRoutesHandler, JMAPServer, Version, VersionParser}
+import org.apache.james.mailbox.MailboxSession
+import org.apache.james.mailbox.events.delivery.InVmEventDelivery
+import org.apache.james.mailbox.events.{Event, EventBus, InVMEventBus, MemoryEventDeadLetters, RetryBackoffConfiguration}
+import org.apache.james.metrics.tests.RecordingMetricFactory
+import org.mockito.ArgumentMatchers.any
+import org.mockito.Mockito.{mock, when}
+import org.scalatest.BeforeAndAfter
+import org.scalatest.flatspec.AnyFlatSpec
+import org.scalatest.matchers.should.Matchers
+import reactor.core.publisher.{Flux, Mono}
+import reactor.core.scala.publisher.SMono
+import reactor.netty.http.client.HttpClient
+
+import scala.jdk.CollectionConverters._
+
+object WebSocketRoutesTest {
+  private val TEST_CONFIGURATION = JMAPConfiguration.builder.enable.randomPort.build
+  private val BOB = Username.of("bob@james.org")
+  private val ACCOUNT_ID: String = AccountId.from(BOB).toOption.get.id.value
+  private val MAILBOX_STATE: State = "2f9f1b12-b35a-43e6-9af2-0106fb53a943"
+  private val EMAIL_STATE: State = "2d9f1b12-b35a-43e6-9af2-0106fb53a943"
+  private val TIMEOUT = Duration.ofSeconds(10)
+  private val ACCEPT_RFC8621_VERSION_HEADER = s"application/json; jmapVersion=${Version.RFC8621.asString}"
+
+  private val ECHO_REQUEST: String =
+    """{
+      |  "@type": "Request",
+      |  "id": "req-36",
+      |  "using": [ "urn:ietf:params:jmap:core" ],
+      |  "methodCalls": [
+      |    [
+      |      "Core/echo",
+      |      {
+      |        "arg1": "arg1data",
+      |        "arg2": "arg2data"
+      |      },
+      |      "c1"
+      |    ]
+      |  ]
+      |}""".stripMargin
+}
+
+class WebSocketRoutesTest extends AnyFlatSpec with BeforeAndAfter with Matchers {
+
+  var jmapServer: JMAPServer = _
+  var eventBus: EventBus = _
+  var authenticator: Authenticator = _
+
+  before {
+    val mockedSession = mock(classOf[MailboxSession])
+    when(mockedSession.getUser)
+      .thenReturn(BOB)
+
+    authenticator = mock(classOf[Authenticator])
+    when(authenticator.authenticate(any()))
+      .thenReturn(Mono.just(mockedSession))
+
+    val userProvisioning = mock(classOf[UserProvisioning])
+    when(userProvisioning.provisionUser(any()))
+      .thenReturn(SMono.empty[Unit])
+
+    eventBus = new InVMEventBus(new InVmEventDelivery(new RecordingMetricFactory), RetryBackoffConfiguration.DEFAULT, new MemoryEventDeadLetters)
+
+    val webSocketRoutes = new WebSocketRoutes(authenticator, userProvisioning, eventBus, new JMAPApi(Set[Method](new CoreEchoMethod)))
+    jmapServer = new JMAPServer(
+      TEST_CONFIGURATION,
+      Set(new JMAPRoutesHandler(Version.RFC8621, webSocketRoutes)).asJava,
+      new VersionParser(Set(Version.RFC8621, Version.DRAFT).asJava, JMAPConfiguration.DEFAULT))
+    jmapServer.start()
+
+    RestAssured.requestSpecification = new RequestSpecBuilder()
+      .setContentType(ContentType.JSON)
+      .setConfig(newConfig.encoderConfig(encoderConfig.defaultContentCharset(StandardCharsets.UTF_8)))
+      .addHeader(ACCEPT.toString, ACCEPT_RFC8621_VERSION_HEADER)
+      .setPort(jmapServer.getPort.getValue)
+      .setBasePath(JMAP_WS)
+      .build()
+  }
+
+  after {
+    jmapServer.stop()
+  }
+
+  "options" should "return OK status" in {
+    RestAssured.when()
+      .options
+    .`then`
+      .statusCode(HttpStatus.SC_OK)
+  }
+
+  "handshake" should "be rejected when authentication fails" in {
+    when(authenticator.authenticate(any()))
+      .thenReturn(Mono.error[MailboxSession](new UnauthorizedException("Invalid credentials")))
+
+    RestAssured.when()
+      .get
+    .`then`
+      .statusCode(HttpStatus.SC_UNAUTHORIZED)
+      .contentType(ContentType.JSON)
+  }
+
+  "request" should "be answered with a response carrying its request id" in {
+    val response = exchange(Seq(ECHO_REQUEST))
+
+    assertThatJson(response).isEqualTo(
+      """{
+        |  "@type": "Response",
+        |  "requestId": "req-36",
+        |  "sessionState": "${json-unit.ignore}",
+        |  "methodResponses": [
+        |    [
+        |      "Core/echo",
+        |      {
+        |        "arg1": "arg1data",
+        |        "arg2": "arg2data"
+        |      },
+        |      "c1"
+        |    ]
+        |  ]
+        |}""".stripMargin)
+  }
+
+  "message" should "be answered with a request error when its type is unknown" in {
+    val response = exchange(Seq("""{"@type": "Unknown"}"""))
+
+    assertThatJson(response).isEqualTo(
+      """{
+        |  "@type": "RequestError",
+        |  "type": "urn:ietf:params:jmap:error:notRequest",
+        |  "status": 400,
+        |  "detail": "${json-unit.ignore}"
+        |}""".stripMargin)
+  }
+
+  "message" should "be answered with a request error when it is not JSON" in {
+    val response = exchange(Seq("""{"@type": "Request", """))
+
+    assertThatJson(response).isEqualTo(
+      """{
+        |  "@type": "RequestError",
+        |  "type": "urn:ietf:params:jmap:error:notJSON",
+        |  "status": 400,
+        |  "detail": "${json-unit.ignore}"
+        |}""".stripMargin)
+  }
+
+  "push enable" should "deliver the state changes of the connected account" in {
+    val stateChange = withStateChangesDispatched(Some(MAILBOX_STATE), Some(EMAIL_STATE)) {
+      exchange(Seq("""{"@type": "WebSocketPushEnable"}"""))
+    }
+
+    assertThatJson(stateChange).isEqualTo(
+      s"""{
+        |  "@type": "StateChange",
+        |  "changed": {
+        |    "$ACCOUNT_ID": {
+        |      "Mailbox": "$MAILBOX_STATE",
+        |      "Email": "$EMAIL_STATE"
+        |    }
+        |  }
+        |}""".stripMargin)
+  }
+
+  "push enable" should "only deliver the requested data types" in {
+    val stateChange = withStateChangesDispatched(Some(MAILBOX_STATE), Some(EMAIL_STATE)) {
+      exchange(Seq("""{"@type": "WebSocketPushEnable", "dataTypes": ["Email"]}"""))
+    }
+
+    assertThatJson(stateChange).isEqualTo(
+      s"""{
+        |  "@type": "StateChange",
+        |  "changed": {
+        |    "$ACCOUNT_ID": {
+        |      "Email": "$EMAIL_STATE"
+        |    }
+        |  }
+        |}""".stripMargin)
+  }
+
+  "push enable" should "be answered with a request error when a data type is unknown" in {
+    val response = exchange(Seq("""{"@type": "WebSocketPushEnable", "dataTypes": ["Unknown"]}"""))
+
+    assertThatJson(response).isEqualTo(
+      """{
+        |  "@type": "RequestError",
+        |  "type": "urn:ietf:params:jmap:error:notRequest",
+        |  "status": 400,
+        |  "detail": "${json-unit.ignore}"
+        |}""".stripMargin)
+  }
+
+  /**
+   * Sends the given messages over a new WebSocket connection and returns the first message received from the server.
+   */
+  private def exchange(messages: Seq[String]): String =
+    HttpClient.create()
+      .port(jmapServer.getPort.getValue)
+      .headers(headers => headers.add(ACCEPT, ACCEPT_RFC8621_VERSION_HEADER))
+      .websocket(WebSocketRoutes.PROTOCOL)
+      .uri(JMAP_WS)
+      .handle((in, out) => out.sendString(Flux.fromIterable(messages.asJava), StandardCharsets.UTF_8)
+        .`then`()
+        .thenMany(in.aggregateFrames()
+          .receive()
+          .asString(StandardCharsets.UTF_8)
+          .take(1)))
+      .blockFirst(TIMEOUT)
+
+  /**
+   * The push subscription is registered asynchronously: state changes are dispatched repeatedly while the block runs.
+   */
+  private def withStateChangesDispatched[T](mailboxState: Option[State], emailState: Option[State])(block: => T): T = {
+    val dispatcher = Flux.interval(Duration.ofMillis(100))
+      .concatMap(_ => eventBus.dispatch(StateChangeEvent(Event.EventId.random(), BOB, mailboxState, emailState), AccountIdRegistrationKey.of(BOB)))
+      .subscribe()
+    try {
+      block
+    } finally {
+      dispatcher.dispose()
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.jmap.utils.search
+
+import java.time.{Clock, Instant, ZoneId, ZoneOffset}
+
+import org.apache.james.core.Username
+import org.apache.james.jmap.core.{AccountId, QueryState}
+import org.apache.james.jmap.mail.IsAscending.{ASCENDING, DESCENDING}
+import org.apache.james.jmap.mail.{And, Comparator, FilterCondition, FilterOperator, HasAttachment, Or, ReceivedAtSortProperty, SentAtSortProperty}
+import org.apache.james.mailbox.model.{MessageId, TestId, TestMessageId}
+import org.apache.james.mailbox.{MessageUid, ModSeq}
+import org.scalatest.matchers.should.Matchers
+import org.scalatest.wordspec.AnyWordSpec
+
+class EmailQueryCacheTest extends AnyWordSpec with Matchers {
+  private val BOB: AccountId = AccountId.from(Username.of("bob@domain.tld")).toOption.get
+  private val IN_MAILBOX: FilterCondition = condition(hasAttachment = None)
+  private val WITH_ATTACHMENT: FilterCondition = condition(hasAttachment = Some(HasAttachment(true)))
+  private val STATE_1: MailboxState = MailboxState(MessageUid.of(3), ModSeq.of(12))
+  private val STATE_2: MailboxState = MailboxState(MessageUid.of(4), ModSeq.of(13))
+  private val KEY: EmailQueryCacheKey = EmailQueryCacheKey.of(BOB, Some(IN_MAILBOX), None)
+  private val IDS: Seq[MessageId] = Seq(TestMessageId.of(1), TestMessageId.of(2))
+  private val NOW: Instant = Instant.parse("2020-10-20T10:00:00Z")
+
+  private def condition(hasAttachment: Option[HasAttachment]): FilterCondition =
+    FilterCondition(Some(TestId.of(1)), None, None, None, None, None, None, None, hasAttachment,
+      None, None, None, None, None, None, None, None, None, None, None)
+
+  "EmailQueryCacheKey" should {
+    "ignore the order of operator conditions" in {
+      EmailQueryCacheKey.of(BOB, Some(FilterOperator(And, Seq(IN_MAILBOX, WITH_ATTACHMENT))), None) should be(
+        EmailQueryCacheKey.of(BOB, Some(FilterOperator(And, Seq(WITH_ATTACHMENT, IN_MAILBOX))), None))
+    }
+
+    "distinguish operators" in {
+      EmailQueryCacheKey.of(BOB, Some(FilterOperator(And, Seq(IN_MAILBOX, WITH_ATTACHMENT))), None) should not be
+        EmailQueryCacheKey.of(BOB, Some(FilterOperator(Or, Seq(IN_MAILBOX, WITH_ATTACHMENT))), None)
+    }
+
+    "consider comparators ascending by default" in {
+      EmailQueryCacheKey.of(BOB, None, Some(Set(Comparator(ReceivedAtSortProperty, None, None)))) should be(
+        EmailQueryCacheKey.of(BOB, None, Some(Set(Comparator(ReceivedAtSortProperty, Some(ASCENDING), None)))))
+    }
+
+    "distinguish sort orders" in {
+      EmailQueryCacheKey.of(BOB, None, Some(Set(Comparator(SentAtSortProperty, Some(ASCENDING), None)))) should not be
+        EmailQueryCacheKey.of(BOB, None, Some(Set(Comparator(SentAtSortProperty, Some(DESCENDING), None))))
+    }
+  }
+
+  "EmailQueryCache" should {
+    "return stored results for the same mailbox state" in {
+      val testee = new EmailQueryCache
+      testee.store(KEY, STATE_1, IDS, complete = true)
+
+      testee.get(KEY, STATE_1, 10) should be(Some(CachedResults(STATE_1, IDS, complete = true)))
+    }
+
+    "not return results once the mailbox state changed" in {
+      val testee = new EmailQueryCache
+      testee.store(KEY, STATE_1, IDS, complete = true)
+
+      testee.get(KEY, STATE_2, 10) should be(None)
+    }
+
+    "not return results of other queries" in {
+      val testee = new EmailQueryCache
+      testee.store(KEY, STATE_1, IDS, complete = true)
+
+      testee.get(EmailQueryCacheKey.of(BOB, Some(WITH_ATTACHMENT), None), STATE_1, 10) should be(None)
+    }
+
+    "return partial results covering the requested window" in {
+      val testee = new EmailQueryCache
+      testee.store(KEY, STATE_1, IDS, complete = false)
+
+      testee.get(KEY, STATE_1, 2) should be(Some(CachedResults(STATE_1, IDS, complete = false)))
+    }
+
+    "not return partial results shorter than the requested window" in {
+      val testee = new EmailQueryCache
+      testee.store(KEY, STATE_1, IDS, complete = false)
+
+      testee.get(KEY, STATE_1, 3) should be(None)
+    }
+
+    "retain past results by query state" in {
+      val testee = new EmailQueryCache
+      testee.store(KEY, STATE_1, IDS, complete = true)
+      testee.store(KEY, STATE_2, IDS.take(1), complete = true)
+
+      testee.resultsAt(KEY, QueryState.forIds(IDS)) should be(Some(IDS))
+    }
+
+    "not retain partial results by query state" in {
+      val testee = new EmailQueryCache
+      testee.store(KEY, STATE_1, IDS, complete = false)
+
+      testee.resultsAt(KEY, QueryState.forIds(IDS)) should be(None)
+    }
+
+    "not return past results for unknown query states" in {
+      val testee = new EmailQueryCache
+      testee.store(KEY, STATE_1, IDS, complete = true)
+
+      testee.resultsAt(KEY, QueryState.forIds(IDS.take(1))) should be(None)
+    }
+
+    "not consider a newly observed mailbox state as settled" in {
+      val testee = new EmailQueryCache(new ManualClock(NOW))
+
+      testee.isSettled(KEY, STATE_1) should be(false)
+    }
+
+    "consider a mailbox state settled once observed for the settling delay" in {
+      val clock = new ManualClock(NOW)
+      val testee = new EmailQueryCache(clock)
+      testee.isSettled(KEY, STATE_1)
+
+      clock.now = NOW.plus(EmailQueryCache.SETTLING_DELAY)
+
+      testee.isSettled(KEY, STATE_1) should be(true)
+    }
+
+    "not consider a mailbox state settled before the settling delay" in {
+      val clock = new ManualClock(NOW)
+      val testee = new EmailQueryCache(clock)
+      testee.isSettled(KEY, STATE_1)
+
+      clock.now = NOW.plus(EmailQueryCache.SETTLING_DELAY).minusMillis(1)
+
+      testee.isSettled(KEY, STATE_1) should be(false)
+    }
+
+    "restart the settling delay when the mailbox state changes" in {
+      val clock = new ManualClock(NOW)
+      val testee = new EmailQueryCache(clock)
+      testee.isSettled(KEY, STATE_1)
+
+      clock.now = NOW.plus(EmailQueryCache.SETTLING_DELAY)
+
+      testee.isSettled(KEY, STATE_2) should be(false)
+    }
+  }
+}
+
+class ManualClock(var now: Instant) extends Clock {
+  override def getZone: ZoneId = ZoneOffset.UTC
+
+  override def withZone(zone: ZoneId): Clock = this
+
+  override def instant(): Instant = now
+}
@@ -34,6 +34,7 @@ public class JMAPConfiguration {
     public static class Builder {
         private Optional<Boolean> enabled = Optional.empty();
         private Optional<Boolean> emailQueryViewEnabled = Optional.empty();
+        private Optional<Boolean> emailQueryChangesEnabled = Optional.empty();
         private Optional<Port> port = Optional.empty();
         private Optional<Version> defaultVersion = Optional.empty();
 
@@ -71,6 +72,23 @@ public class JMAPConfiguration {
             return enableEmailQueryView(false);
         }
 
+        public Builder enableEmailQueryChanges(boolean enabled) {
+            return enableEmailQueryChanges(Optional.of(enabled));
+        }
+
+        public Builder enableEmailQueryChanges(Optional<Boolean> enabled) {
+            this.emailQueryChangesEnabled = enabled;
+            return this;
+        }
+
+        public Builder enableEmailQueryChanges() {
+            return enableEmailQueryChanges(true);
+        }
+
+        public Builder disableEmailQueryChanges() {
+            return enableEmailQueryChanges(false);
+        }
+
         public Builder port(Port port) {
             this.port = Optional.of(port);
             return this;
@@ -93,7 +111,7 @@ public class JMAPConfiguration {
         public JMAPConfiguration build() {
             Preconditions.checkState(enabled.isPresent(), "You should specify if JMAP server should be started");
             return new JMAPConfiguration(enabled.get(), port, emailQueryViewEnabled.orElse(false),
-                    defaultVersion.orElse(Version.DRAFT));
+                    emailQueryChangesEnabled.orElse(false), defaultVersion.orElse(Version.DRAFT));
         }
     }
 
@@ -102,13 +120,15 @@ public class JMAPConfiguration {
     private final boolean enabled;
     private final Optional<Port> port;
     private final boolean emailQueryViewEnabled;
+    private final boolean emailQueryChangesEnabled;
     private final Version defaultVersion;
 
     @VisibleForTesting
-    JMAPConfiguration(boolean enabled, Optional<Port> port, boolean emailQueryViewEnabled, Version defaultVersion) {
+    JMAPConfiguration(boolean enabled, Optional<Port> port, boolean emailQueryViewEnabled, boolean emailQueryChangesEnabled, Version defaultVersion) {
         this.enabled = enabled;
         this.port = port;
         this.emailQueryViewEnabled = emailQueryViewEnabled;
+        this.emailQueryChangesEnabled = emailQueryChangesEnabled;
         this.defaultVersion = defaultVersion;
     }
 
@@ -124,6 +144,10 @@ public class JMAPConfiguration {
         return emailQueryViewEnabled;
     }
 
+    public boolean isEmailQueryChangesEnabled() {
+        return emailQueryChangesEnabled;
+    }
+
     public Version getDefaultVersion() {
         return defaultVersion;
     }
@@ -24,5 +24,7 @@ public interface JMAPUrls {
     String AUTHENTICATION = "/authentication";
     String DOWNLOAD = "/download";
     String UPLOAD = "/upload";
+    String JMAP_WS = "/jmap/ws";
+    String EVENT_SOURCE = "/eventSource";
     String NOT_IMPLEMENTED = "/notImplemented";
 }
@@ -32,6 +32,7 @@ import javax.mail.MessagingException;
 import org.apache.james.core.MailAddress;
 import org.apache.james.core.MaybeSender;
 import org.apache.james.lifecycle.api.LifecycleUtil;
+import org.apache.james.protocols.api.FutureResponse;
 import org.apache.james.protocols.api.ProtocolSession.State;
 import org.apache.james.protocols.api.Response;
 import org.apache.james.protocols.api.handler.ExtensibleHandler;
@@ -58,6 +59,9 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 /**
  * Handles the calling of JamesMessageHooks
  */
@@ -101,24 +105,22 @@ public class DataLineJamesMessageHookHandler implements DataLineFilter, Extensib
                 session.setAttachment(SMTPConstants.MAIL, mail, State.Transaction);
 
                 MimeMessageCopyOnWriteProxy mimeMessageCopyOnWriteProxy = null;
+                Response response = null;
                 try {
                     mimeMessageCopyOnWriteProxy = new MimeMessageCopyOnWriteProxy(mmiss);
                     mail.setMessage(mimeMessageCopyOnWriteProxy);
 
-                    Response response = processExtensions(session, mail);
+                    response = processExtensions(session, mail);
 
                     session.popLineHandler();
-                    return response;
-
                 } catch (MessagingException e) {
                     // TODO probably return a temporary problem
                     LOGGER.info("Unexpected error handling DATA stream", e);
-                    return new SMTPResponse(SMTPRetCode.LOCAL_ERROR, "Unexpected error handling DATA stream.");
+                    response = new SMTPResponse(SMTPRetCode.LOCAL_ERROR, "Unexpected error handling DATA stream.");
                 } finally {
-                    LifecycleUtil.dispose(mimeMessageCopyOnWriteProxy);
-                    LifecycleUtil.dispose(mmiss);
-                    LifecycleUtil.dispose(mail);
+                    response = disposeOnCompletion(response, mimeMessageCopyOnWriteProxy, mmiss, mail);
                 }
+                return response;
 
                 // DotStuffing.
             } else if (line[0] == 46 && line[1] == 46) {
@@ -139,69 +141,106 @@ public class DataLineJamesMessageHookHandler implements DataLineFilter, Extensib
         return null;
     }
 
+    /**
+     * Asynchronous message hooks complete after {@link #processExtensions(SMTPSession, Mail)} returned: resources
+     * needed by the hooks are only released once the {@link FutureResponse} completes, before the transport writes
+     * it and handles the next commands
+     */
+    private Response onCompletion(Response response, Runnable cleanup) {
+        if (response instanceof FutureResponse) {
+            return new FutureResponse(((FutureResponse) response).getResponse()
+                .whenComplete((result, error) -> cleanup.run()));
+        }
+        cleanup.run();
+        return response;
+    }
+
+    private Response disposeOnCompletion(Response response, Object... resources) {
+        return onCompletion(response, () -> {
+            for (Object resource : resources) {
+                LifecycleUtil.dispose(resource);
+            }
+        });
+    }
+
     protected Response processExtensions(SMTPSession session, Mail mail) {
         if (mail != null && messageHandlers != null) {
+            Response response = null;
             try {
-                MimeMessageInputStreamSource mmiss = session.getAttachment(SMTPConstants.DATA_MIMEMESSAGE_STREAMSOURCE, State.Transaction)
-                    .orElseThrow(() -> new RuntimeException("'" + SMTPConstants.DATA_MIMEMESSAGE_STREAMSOURCE.asString() + "' has not been filled."));
-                OutputStream out;
-                out = mmiss.getWritableOutputStream();
-                for (MessageHook rawHandler : mHandlers) {
-                    LOGGER.debug("executing james message handler {}", rawHandler);
-                    long start = System.currentTimeMillis();
-
-                    HookResult hRes = rawHandler.onMessage(session, new MailToMailEnvelopeWrapper(mail, out));
-                    long executionTime = System.currentTimeMillis() - start;
-
-                    if (rHooks != null) {
-                        for (HookResultHook rHook : rHooks) {
-                            LOGGER.debug("executing hook {}", rHook);
-                            hRes = rHook.onHookResult(session, hRes, executionTime, rawHandler);
-                        }
-                    }
-
-                    SMTPResponse response = AbstractHookableCmdHandler.calcDefaultSMTPResponse(hRes);
-
-                    // if the response is received, stop processing of command
-                    // handlers
-                    if (response != null) {
-                        return response;
-                    }
-                }
-
-                for (JamesMessageHook messageHandler : messageHandlers) {
-                    LOGGER.debug("executing james message handler {}", messageHandler);
-                    long start = System.currentTimeMillis();
-                    HookResult hRes = messageHandler.onMessage(session, mail);
-                    long executionTime = System.currentTimeMillis() - start;
-                    if (rHooks != null) {
-                        for (HookResultHook rHook : rHooks) {
-                            LOGGER.debug("executing hook {}", rHook);
-                            hRes = rHook.onHookResult(session, hRes, executionTime, messageHandler);
-                        }
-                    }
-
-                    SMTPResponse response = AbstractHookableCmdHandler.calcDefaultSMTPResponse(hRes);
-
-                    // if the response is received, stop processing of command
-                    // handlers
-                    if (response != null) {
-                        return response;
-                    }
+                response = processRawMessageHooks(session, mail);
+                if (response == null) {
+                    response = FutureResponse.of(processMessageHooks(session, mail).toFuture());
                 }
             } finally {
-                // Dispose the mail object and remove it
-                if (mail != null) {
+                response = onCompletion(response, () -> {
+                    // Dispose the mail object
                     LifecycleUtil.dispose(mail);
-                    mail = null;
+                    // do the clean up
+                    session.resetState();
+                });
+            }
+            return response;
+        }
+        return null;
+    }
+
+    private Response processRawMessageHooks(SMTPSession session, Mail mail) {
+        MimeMessageInputStreamSource mmiss = session.getAttachment(SMTPConstants.DATA_MIMEMESSAGE_STREAMSOURCE, State.Transaction)
+            .orElseThrow(() -> new RuntimeException("'" + SMTPConstants.DATA_MIMEMESSAGE_STREAMSOURCE.asString() + "' has not been filled."));
+        OutputStream out;
+        out = mmiss.getWritableOutputStream();
+        for (MessageHook rawHandler : mHandlers) {
+            LOGGER.debug("executing james message handler {}", rawHandler);
+            long start = System.currentTimeMillis();
+
+            HookResult hRes = rawHandler.onMessage(session, new MailToMailEnvelopeWrapper(mail, out));
+            long executionTime = System.currentTimeMillis() - start;
+
+            if (rHooks != null) {
+                for (HookResultHook rHook : rHooks) {
+                    LOGGER.debug("executing hook {}", rHook);
+                    hRes = rHook.onHookResult(session, hRes, executionTime, rawHandler);
                 }
-                // do the clean up
-                session.resetState();
+            }
+
+            SMTPResponse response = AbstractHookableCmdHandler.calcDefaultSMTPResponse(hRes);
+
+            // if the response is received, stop processing of command
+            // handlers
+            if (response != null) {
+                return response;
             }
         }
         return null;
     }
 
+    private Mono<Response> processMessageHooks(SMTPSession session, Mail mail) {
+        return Flux.fromIterable(messageHandlers)
+            .concatMap(messageHandler -> executeMessageHook(session, mail, messageHandler))
+            .next();
+    }
+
+    private Mono<Response> executeMessageHook(SMTPSession session, Mail mail, JamesMessageHook messageHandler) {
+        LOGGER.debug("executing james message handler {}", messageHandler);
+        long start = System.currentTimeMillis();
+
+        return Mono.from(messageHandler.onMessageReactive(session, mail))
+            .flatMap(hookResult -> {
+                HookResult hRes = hookResult;
+                long executionTime = System.currentTimeMillis() - start;
+                if (rHooks != null) {
+                    for (HookResultHook rHook : rHooks) {
+                        LOGGER.debug("executing hook {}", rHook);
+                        hRes = rHook.onHookResult(session, hRes, executionTime, messageHandler);
+                    }
+                }
+
+                // if the response is received, stop processing of command
+                // handlers
+                return Mono.justOrEmpty(AbstractHookableCmdHandler.calcDefaultSMTPResponse(hRes));
+            });
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public void wireExtensions(Class<?> interfaceName, List<?> extension) throws WiringException {
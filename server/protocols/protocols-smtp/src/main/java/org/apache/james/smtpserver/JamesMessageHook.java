@@ -22,6 +22,10 @@ import org.apache.james.protocols.smtp.SMTPSession;
 import org.apache.james.protocols.smtp.hook.Hook;
 import org.apache.james.protocols.smtp.hook.HookResult;
 import org.apache.mailet.Mail;
+import org.reactivestreams.Publisher;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * Custom message handlers must implement this interface The message hooks will
@@ -34,4 +38,13 @@ public interface JamesMessageHook extends Hook {
      */
     HookResult onMessage(SMTPSession session, Mail mail);
 
+    /**
+     * Handle Message without blocking the calling thread. The default implementation adapts
+     * {@link #onMessage(SMTPSession, Mail)} on an elastic scheduler, as a previous hook may complete on an I/O thread.
+     */
+    default Publisher<HookResult> onMessageReactive(SMTPSession session, Mail mail) {
+        return Mono.fromCallable(() -> onMessage(session, mail))
+            .subscribeOn(Schedulers.elastic());
+    }
+
 }
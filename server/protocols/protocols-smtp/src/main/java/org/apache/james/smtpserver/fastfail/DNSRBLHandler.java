@@ -22,6 +22,8 @@ import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 import javax.inject.Inject;
 
@@ -31,6 +33,12 @@ import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.james.dnsservice.api.DNSService;
 import org.apache.james.protocols.api.handler.ProtocolHandler;
+import org.reactivestreams.Publisher;
+
+import com.google.common.collect.ImmutableSet;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 public class DNSRBLHandler extends org.apache.james.protocols.smtp.core.fastfail.DNSRBLHandler implements ProtocolHandler {
     private final DNSService dns;
@@ -77,8 +85,27 @@ public class DNSRBLHandler extends org.apache.james.protocols.smtp.core.fastfail
         }
     }
 
+    @Override
+    protected Set<String> resolvableNames(List<String> names) {
+        return Mono.from(resolvableNamesReactive(names)).block();
+    }
+
+    @Override
+    protected Publisher<Set<String>> resolvableNamesReactive(List<String> names) {
+        return Flux.fromIterable(names)
+            .flatMap(name -> Mono.from(dns.getByNameReactive(name))
+                .map(any -> name)
+                .onErrorResume(UnknownHostException.class, e -> Mono.empty()))
+            .collect(ImmutableSet.toImmutableSet());
+    }
+
     @Override
     protected Collection<String> resolveTXTRecords(String ip) {
         return dns.findTXTRecords(ip);
     }
+
+    @Override
+    protected Publisher<Collection<String>> resolveTXTRecordsReactive(String ip) {
+        return dns.findTXTRecordsReactive(ip);
+    }
 }
@@ -19,9 +19,10 @@
 
 package org.apache.james.smtpserver.fastfail;
 
+import java.time.Duration;
+import java.util.Optional;
+
 import javax.inject.Inject;
-import javax.mail.MessagingException;
-import javax.mail.internet.MimeMessage;
 
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.ex.ConfigurationException;
@@ -33,12 +34,15 @@ import org.apache.james.protocols.smtp.dsn.DSNStatus;
 import org.apache.james.protocols.smtp.hook.HookResult;
 import org.apache.james.protocols.smtp.hook.HookReturnCode;
 import org.apache.james.smtpserver.JamesMessageHook;
-import org.apache.james.spamassassin.SpamAssassinInvoker;
+import org.apache.james.spamassassin.ReactiveSpamAssassinInvoker;
 import org.apache.james.spamassassin.SpamAssassinResult;
+import org.apache.james.util.DurationParser;
 import org.apache.mailet.Mail;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import reactor.core.publisher.Mono;
+
 /**
  * <p>
  * This MessageHandler could be used to check message against spamd before
@@ -62,11 +66,20 @@ import org.slf4j.LoggerFactory;
  *   &lt;spamdHost&gt;localhost&lt;/spamdHost&gt;
  *   &lt;spamdPort&gt;783&lt;/spamdPort&gt; <br>
  *   &lt;spamdRejectionHits&gt;15.0&lt;/spamdRejectionHits&gt;
+ *   &lt;spamdMaxConcurrency&gt;16&lt;/spamdMaxConcurrency&gt;
+ *   &lt;spamdTimeout&gt;30s&lt;/spamdTimeout&gt;
+ *   &lt;spamdFailureThreshold&gt;5&lt;/spamdFailureThreshold&gt;
+ *   &lt;spamdOpenDuration&gt;30s&lt;/spamdOpenDuration&gt;
  *   &lt;checkAuthNetworks&gt;false&lt;/checkAuthNetworks&gt;
  * &lt;/handler&gt;
  * </pre>
  * 
  * </p>
+ * <p>
+ * spamd is called without blocking the SMTP server threads, through a connection pool bounding the concurrent
+ * scans. Messages are accepted when spamd fails, times out, or when calls are skipped after too many consecutive
+ * failures.
+ * </p>
  */
 public class SpamAssassinHandler implements JamesMessageHook, ProtocolHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(SpamAssassinHandler.class);
@@ -82,6 +95,13 @@ public class SpamAssassinHandler implements JamesMessageHook, ProtocolHandler {
     /** The hits on which the message get rejected */
     private double spamdRejectionHits = 0.0;
 
+    private int spamdMaxConcurrency = ReactiveSpamAssassinInvoker.DEFAULT_MAX_CONCURRENCY;
+    private Duration spamdTimeout = ReactiveSpamAssassinInvoker.DEFAULT_TIMEOUT;
+    private int spamdFailureThreshold = ReactiveSpamAssassinInvoker.DEFAULT_FAILURE_THRESHOLD;
+    private Duration spamdOpenDuration = ReactiveSpamAssassinInvoker.DEFAULT_OPEN_DURATION;
+
+    private ReactiveSpamAssassinInvoker invoker;
+
     @Inject
     public SpamAssassinHandler(MetricFactory metricFactory) {
         this.metricFactory = metricFactory;
@@ -118,49 +138,106 @@ public class SpamAssassinHandler implements JamesMessageHook, ProtocolHandler {
 
     }
 
+    /**
+     * Set the maximum number of concurrent calls to spamd
+     */
+    public void setSpamdMaxConcurrency(int spamdMaxConcurrency) {
+        this.spamdMaxConcurrency = spamdMaxConcurrency;
+    }
+
+    /**
+     * Set the timeout of a call to spamd
+     */
+    public void setSpamdTimeout(Duration spamdTimeout) {
+        this.spamdTimeout = spamdTimeout;
+    }
+
+    /**
+     * Set the number of consecutive failures after which calls to spamd are skipped for
+     * the given open duration
+     */
+    public void setSpamdCircuitBreaker(int spamdFailureThreshold, Duration spamdOpenDuration) {
+        this.spamdFailureThreshold = spamdFailureThreshold;
+        this.spamdOpenDuration = spamdOpenDuration;
+    }
+
     @Override
     public HookResult onMessage(SMTPSession session, Mail mail) {
+        return onMessageReactive(session, mail).block();
+    }
 
-        try {
-            MimeMessage message = mail.getMessage();
-            SpamAssassinInvoker sa = new SpamAssassinInvoker(metricFactory, spamdHost, spamdPort);
-            SpamAssassinResult result = sa.scanMail(message);
-
-            // Add the headers
-            result.getHeadersAsAttributes().forEach(mail::setAttribute);
-
-            // Check if rejectionHits was configured
-            if (spamdRejectionHits > 0) {
-                try {
-                    double hits = Double.parseDouble(result.getHits());
-
-                    // if the hits are bigger the rejectionHits reject the
-                    // message
-                    if (spamdRejectionHits <= hits) {
-                        String buffer = "Rejected message from " + session.getAttachment(SMTPSession.SENDER, State.Transaction).toString() + " from host " + session.getRemoteAddress().getHostName() + " (" + session.getRemoteAddress().getAddress().getHostAddress() + ") This message reach the spam hits treshold. Required rejection hits: " + spamdRejectionHits + " hits: " + hits;
-                        LOGGER.info(buffer);
-
-                        // Message reject .. abort it!
-                        return HookResult.builder()
-                            .hookReturnCode(HookReturnCode.deny())
-                            .smtpDescription(DSNStatus.getStatus(DSNStatus.PERMANENT, DSNStatus.SECURITY_OTHER)
-                                + " This message reach the spam hits treshold. Please contact the Postmaster if the email is not SPAM. Message rejected")
-                            .build();
-                    }
-                } catch (NumberFormatException e) {
-                    // hits unknown
+    @Override
+    public Mono<HookResult> onMessageReactive(SMTPSession session, Mail mail) {
+        return Mono.fromCallable(mail::getMessage)
+            .flatMap(message -> invoker().scanMail(message))
+            .map(result -> onResult(session, mail, result))
+            .onErrorResume(e -> {
+                LOGGER.error("Failed checking message against spamd, accepting it", e);
+                return Mono.just(HookResult.DECLINED);
+            });
+    }
+
+    private HookResult onResult(SMTPSession session, Mail mail, SpamAssassinResult result) {
+        // Add the headers
+        result.getHeadersAsAttributes().forEach(mail::setAttribute);
+
+        // Check if rejectionHits was configured
+        if (spamdRejectionHits > 0) {
+            try {
+                double hits = Double.parseDouble(result.getHits());
+
+                // if the hits are bigger the rejectionHits reject the
+                // message
+                if (spamdRejectionHits <= hits) {
+                    String buffer = "Rejected message from " + session.getAttachment(SMTPSession.SENDER, State.Transaction).toString() + " from host " + session.getRemoteAddress().getHostName() + " (" + session.getRemoteAddress().getAddress().getHostAddress() + ") This message reach the spam hits treshold. Required rejection hits: " + spamdRejectionHits + " hits: " + hits;
+                    LOGGER.info(buffer);
+
+                    // Message reject .. abort it!
+                    return HookResult.builder()
+                        .hookReturnCode(HookReturnCode.deny())
+                        .smtpDescription(DSNStatus.getStatus(DSNStatus.PERMANENT, DSNStatus.SECURITY_OTHER)
+                            + " This message reach the spam hits treshold. Please contact the Postmaster if the email is not SPAM. Message rejected")
+                        .build();
                 }
+            } catch (NumberFormatException e) {
+                // hits unknown
             }
-        } catch (MessagingException e) {
-            LOGGER.error(e.getMessage());
         }
         return HookResult.DECLINED;
     }
 
+    private synchronized ReactiveSpamAssassinInvoker invoker() {
+        if (invoker == null) {
+            invoker = ReactiveSpamAssassinInvoker.builder(metricFactory)
+                .spamdHost(spamdHost)
+                .spamdPort(spamdPort)
+                .maxConcurrency(spamdMaxConcurrency)
+                .timeout(spamdTimeout)
+                .circuitBreaker(spamdFailureThreshold, spamdOpenDuration)
+                .build();
+        }
+        return invoker;
+    }
+
     @Override
     public void init(Configuration config) throws ConfigurationException {
         setSpamdHost(config.getString("spamdHost", "localhost"));
         setSpamdPort(config.getInt("spamdPort", 783));
-        setSpamdRejectionHits(config.getDouble("spamdRejectionHits", 0.0));        
+        setSpamdRejectionHits(config.getDouble("spamdRejectionHits", 0.0));
+        setSpamdMaxConcurrency(config.getInt("spamdMaxConcurrency", ReactiveSpamAssassinInvoker.DEFAULT_MAX_CONCURRENCY));
+        setSpamdTimeout(durationParameter(config, "spamdTimeout", ReactiveSpamAssassinInvoker.DEFAULT_TIMEOUT));
+        setSpamdCircuitBreaker(config.getInt("spamdFailureThreshold", ReactiveSpamAssassinInvoker.DEFAULT_FAILURE_THRESHOLD),
+            durationParameter(config, "spamdOpenDuration", ReactiveSpamAssassinInvoker.DEFAULT_OPEN_DURATION));
+    }
+
+    private Duration durationParameter(Configuration config, String name, Duration defaultValue) {
+        return Optional.ofNullable(config.getString(name, null))
+            .map(DurationParser::parse)
+            .orElse(defaultValue);
+    }
+
+    @Override
+    public synchronized void destroy() {
+        Optional.ofNullable(invoker).ifPresent(ReactiveSpamAssassinInvoker::dispose);
     }
 }
@@ -23,7 +23,6 @@ import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Optional;
 
 import javax.inject.Inject;
@@ -48,6 +47,9 @@ import org.apache.mailet.Mail;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 /**
  * Extract domains from message and check against URIRBLServer. For more
  * information see <a href="http://www.surbl.org">www.surbl.org</a>
@@ -61,6 +63,16 @@ public class URIRBLHandler implements JamesMessageHook, ProtocolHandler {
 
     private static final ProtocolSession.AttachmentKey<String> URBLSERVER = ProtocolSession.AttachmentKey.of("URBL_SERVER", String.class);
 
+    private static class UriRblQuery {
+        private final String domain;
+        private final String uRblServer;
+
+        private UriRblQuery(String domain, String uRblServer) {
+            this.domain = domain;
+            this.uRblServer = uRblServer;
+        }
+    }
+
     private DNSService dnsService;
 
     private Collection<String> uriRbl;
@@ -196,36 +208,36 @@ public class URIRBLHandler implements JamesMessageHook, ProtocolHandler {
 
             HashSet<String> domains = scanMailForDomains(message, session);
 
-            for (String domain : domains) {
-                Iterator<String> uRbl = uriRbl.iterator();
-                String target = domain;
-
-                while (uRbl.hasNext()) {
-                    try {
-                        String uRblServer = uRbl.next();
-                        String address = target + "." + uRblServer;
-
-                        LOGGER.debug("Lookup {}", address);
-
-                        dnsService.getByName(address);
-
-                        // store server name for later use
-                        session.setAttachment(URBLSERVER, uRblServer, State.Transaction);
-                        session.setAttachment(LISTED_DOMAIN, target, State.Transaction);
-
-                        return true;
-
-                    } catch (UnknownHostException uhe) {
-                        // domain not found. keep processing
-                    }
-                }
-            }
+            // Domains are checked against all the servers concurrently, the first listing found wins
+            Optional<UriRblQuery> listedQuery = Flux.fromIterable(domains)
+                .flatMap(domain -> Flux.fromIterable(uriRbl)
+                    .map(uRblServer -> new UriRblQuery(domain, uRblServer)))
+                .flatMap(this::lookup)
+                .next()
+                .blockOptional();
+
+            listedQuery.ifPresent(listed -> {
+                // store server name for later use
+                session.setAttachment(URBLSERVER, listed.uRblServer, State.Transaction);
+                session.setAttachment(LISTED_DOMAIN, listed.domain, State.Transaction);
+            });
+            return listedQuery.isPresent();
         } catch (MessagingException | IOException e) {
             LOGGER.error(e.getMessage());
         }
         return false;
     }
 
+    private Mono<UriRblQuery> lookup(UriRblQuery query) {
+        String address = query.domain + "." + query.uRblServer;
+        LOGGER.debug("Lookup {}", address);
+
+        return Mono.from(dnsService.getByNameReactive(address))
+            .map(any -> query)
+            // domain not found. keep processing
+            .onErrorResume(UnknownHostException.class, e -> Mono.empty());
+    }
+
     @Override
     public void init(Configuration config) throws ConfigurationException {
         String[] servers = config.getStringArray("uriRblServers.server");
@@ -36,9 +36,13 @@ import org.apache.james.rrt.api.RecipientRewriteTableException;
 import org.apache.james.rrt.lib.Mappings;
 import org.apache.james.user.api.UsersRepository;
 import org.apache.james.user.api.UsersRepositoryException;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 /**
  * Handler which reject invalid recipients
  */
@@ -78,6 +82,16 @@ public class ValidRcptHandler extends AbstractValidRcptHandler implements Protoc
         }
     }
 
+    /**
+     * The repositories only offer blocking calls: they are performed on the elastic scheduler rather than on the
+     * thread handling the SMTP session
+     */
+    @Override
+    protected Publisher<Boolean> isValidRecipientReactive(SMTPSession session, MailAddress recipient) {
+        return Mono.fromCallable(() -> isValidRecipient(session, recipient))
+            .subscribeOn(Schedulers.elastic());
+    }
+
     private boolean isRedirected(MailAddress recipient, String username) {
         LOGGER.debug("Unknown user {} check if it's an alias", username);
 
@@ -106,6 +120,12 @@ public class ValidRcptHandler extends AbstractValidRcptHandler implements Protoc
         }
     }
 
+    @Override
+    protected Publisher<Boolean> isLocalDomainReactive(SMTPSession session, Domain domain) {
+        return Mono.fromCallable(() -> isLocalDomain(session, domain))
+            .subscribeOn(Schedulers.elastic());
+    }
+
     @Override
     public void init(Configuration config) throws ConfigurationException {
         setSupportsRecipientRewriteTable(config.getBoolean("enableRecipientRewriteTable", true));
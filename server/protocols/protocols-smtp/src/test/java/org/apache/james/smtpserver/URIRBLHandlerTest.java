@@ -54,7 +54,9 @@ public class URIRBLHandlerTest {
     private static final String BAD_DOMAIN1 = "bad.domain.de";
     private static final String BAD_DOMAIN2 = "bad2.domain.de";
     private static final String GOOD_DOMAIN = "good.apache.org";
+    private static final String LISTED_BY_SECOND_SERVER_DOMAIN = "spam.example.com";
     private static final String URISERVER = "multi.surbl.org.";
+    private static final String SECOND_URISERVER = "dbl.example.net.";
     private Mail mockedMail;
 
     private SMTPSession setupMockedSMTPSession(Mail mail) {
@@ -156,6 +158,8 @@ public class URIRBLHandlerTest {
 
                 if ((BAD_DOMAIN1.substring(4)).equals(hostname)) {
                     res.add("Blocked - see http://www.surbl.org");
+                } else if ((BAD_DOMAIN1.substring(4) + "." + URISERVER).equals(hostname)) {
+                    res.add("Blocked - see http://www.surbl.org");
                 }
                 return res;
             }
@@ -168,6 +172,12 @@ public class URIRBLHandlerTest {
                     return InetAddress.getByName("127.0.0.1");
                 } else if ((GOOD_DOMAIN.substring(5) + "." + URISERVER).equals(host)) {
                     throw new UnknownHostException();
+                } else if ((GOOD_DOMAIN.substring(5) + "." + SECOND_URISERVER).equals(host)) {
+                    throw new UnknownHostException();
+                } else if ((LISTED_BY_SECOND_SERVER_DOMAIN.substring(5) + "." + URISERVER).equals(host)) {
+                    throw new UnknownHostException();
+                } else if ((LISTED_BY_SECOND_SERVER_DOMAIN.substring(5) + "." + SECOND_URISERVER).equals(host)) {
+                    return InetAddress.getByName("127.0.0.2");
                 }
                 throw new UnsupportedOperationException("getByName(" + host + ") not implemented by this mock");
             }
@@ -228,6 +238,67 @@ public class URIRBLHandlerTest {
         assertThat(HookReturnCode.deny()).describedAs("Email was rejected").isEqualTo(response.getResult());
     }
 
+    @Test
+    public void testBlockedWithDetail() throws IOException, MessagingException {
+
+        ArrayList<String> servers = new ArrayList<>();
+        servers.add(URISERVER);
+
+        SMTPSession session = setupMockedSMTPSession(setupMockedMail(setupMockedMimeMessage(
+                "http://" + BAD_DOMAIN1 + "/")));
+
+        URIRBLHandler handler = new URIRBLHandler();
+
+        handler.setDNSService(setupMockedDnsServer());
+        handler.setUriRblServer(servers);
+        handler.setGetDetail(true);
+        HookResult response = handler.onMessage(session, mockedMail);
+
+        assertThat(response.getResult()).describedAs("Email was rejected").isEqualTo(HookReturnCode.deny());
+        assertThat(response.getSmtpDescription()).contains("Details: Blocked - see http://www.surbl.org");
+    }
+
+    @Test
+    public void testNotBlockedByAnyServer() throws IOException, MessagingException {
+
+        ArrayList<String> servers = new ArrayList<>();
+        servers.add(URISERVER);
+        servers.add(SECOND_URISERVER);
+
+        SMTPSession session = setupMockedSMTPSession(setupMockedMail(setupMockedMimeMessage(
+                "http://" + GOOD_DOMAIN + "/")));
+
+        URIRBLHandler handler = new URIRBLHandler();
+
+        handler.setDNSService(setupMockedDnsServer());
+        handler.setUriRblServer(servers);
+        HookResult response = handler.onMessage(session, mockedMail);
+
+        assertThat(response.getResult()).describedAs("Email was not rejected").isEqualTo(HookReturnCode.declined());
+    }
+
+    @Test
+    public void testBlockedByFirstListingFound() throws IOException, MessagingException {
+
+        ArrayList<String> servers = new ArrayList<>();
+        servers.add(URISERVER);
+        servers.add(SECOND_URISERVER);
+
+        SMTPSession session = setupMockedSMTPSession(setupMockedMail(setupMockedMimeMessage(
+                "http://" + GOOD_DOMAIN + "/" + " " + "http://" + LISTED_BY_SECOND_SERVER_DOMAIN + "/")));
+
+        URIRBLHandler handler = new URIRBLHandler();
+
+        handler.setDNSService(setupMockedDnsServer());
+        handler.setUriRblServer(servers);
+        HookResult response = handler.onMessage(session, mockedMail);
+
+        assertThat(response.getResult()).describedAs("Email was rejected").isEqualTo(HookReturnCode.deny());
+        assertThat(response.getSmtpDescription())
+            .contains(LISTED_BY_SECOND_SERVER_DOMAIN.substring(5))
+            .contains(SECOND_URISERVER);
+    }
+
     /*
      * public void testAddJunkScore() throws IOException, MessagingException {
      * 
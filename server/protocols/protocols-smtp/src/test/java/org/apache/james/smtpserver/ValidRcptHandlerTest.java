@@ -33,6 +33,7 @@ import org.apache.james.dnsservice.api.DNSService;
 import org.apache.james.domainlist.lib.DomainListConfiguration;
 import org.apache.james.domainlist.memory.MemoryDomainList;
 import org.apache.james.protocols.smtp.SMTPSession;
+import org.apache.james.protocols.smtp.hook.HookResult;
 import org.apache.james.protocols.smtp.hook.HookReturnCode;
 import org.apache.james.protocols.smtp.utils.BaseFakeSMTPSession;
 import org.apache.james.rrt.api.RecipientRewriteTableConfiguration;
@@ -46,6 +47,8 @@ import org.junit.Test;
 
 import com.google.common.base.Preconditions;
 
+import reactor.core.publisher.Mono;
+
 public class ValidRcptHandlerTest {
     private static final Username VALID_USER = Username.of("postmaster");
     private static final String INVALID_USER = "invalid";
@@ -136,6 +139,40 @@ public class ValidRcptHandlerTest {
         assertThat(rCode).isEqualTo(HookReturnCode.deny());
     }
 
+    @Test
+    public void doRcptReactiveShouldRejectNotExistingLocalUsers() {
+        SMTPSession session = setupMockedSMTPSession(!RELAYING_ALLOWED);
+
+        HookReturnCode rCode = Mono.from(handler.doRcptReactive(session, MAYBE_SENDER, invalidUserEmail))
+            .map(HookResult::getResult)
+            .block();
+
+        assertThat(rCode).isEqualTo(HookReturnCode.deny());
+    }
+
+    @Test
+    public void doRcptReactiveShouldDeclineValidUsers() {
+        SMTPSession session = setupMockedSMTPSession(!RELAYING_ALLOWED);
+
+        HookReturnCode rCode = Mono.from(handler.doRcptReactive(session, MAYBE_SENDER, validUserEmail))
+            .map(HookResult::getResult)
+            .block();
+
+        assertThat(rCode).isEqualTo(HookReturnCode.declined());
+    }
+
+    @Test
+    public void doRcptReactiveShouldDeclineNonLocalUsers() throws Exception {
+        MailAddress mailAddress = new MailAddress(INVALID_USER + "@otherdomain");
+        SMTPSession session = setupMockedSMTPSession(!RELAYING_ALLOWED);
+
+        HookReturnCode rCode = Mono.from(handler.doRcptReactive(session, MAYBE_SENDER, mailAddress))
+            .map(HookResult::getResult)
+            .block();
+
+        assertThat(rCode).isEqualTo(HookReturnCode.declined());
+    }
+
     @Test
     public void doRcptShouldDenyNotExistingLocalUsersWhenRelay() {
         SMTPSession session = setupMockedSMTPSession(RELAYING_ALLOWED);
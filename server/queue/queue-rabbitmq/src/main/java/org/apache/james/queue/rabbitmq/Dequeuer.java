@@ -143,22 +143,22 @@ class Dequeuer implements Closeable {
         return toMailReference(delivery)
             .flatMap(reference -> mailLoader.load(reference)
                 .onErrorResume(ObjectNotFoundException.class, e -> {
-                    LOGGER.error("Fail to load mail {} with enqueueId {} as underlying blobs do not exist. Discarding this message to prevent an infinite loop.", reference.getName(), reference.getEnqueueId(), e);
+                    LOGGER.error("Fail to load mail {} with enqueueId {} as underlying blobs do not exist. Discarding this message to prevent an infinite loop.", reference.getMail().getName(), reference.getEnqueueId(), e);
                     delivery.nack(!REQUEUE);
                     return Mono.empty();
                 })
                 .onErrorResume(e -> {
-                    LOGGER.error("Fail to load mail {} with enqueueId {}", reference.getName(), reference.getEnqueueId(), e);
+                    LOGGER.error("Fail to load mail {} with enqueueId {}", reference.getMail().getName(), reference.getEnqueueId(), e);
                     delivery.nack(REQUEUE);
                     return Mono.empty();
                 }));
     }
 
-    private Mono<MailReferenceDTO> toMailReference(AcknowledgableDelivery delivery) {
+    private Mono<MailReference> toMailReference(AcknowledgableDelivery delivery) {
         return Mono.fromCallable(delivery::getBody)
             .map(Throwing.function(mailReferenceSerializer::read).sneakyThrow())
             .onErrorResume(e -> {
-                LOGGER.error("Fail to deserialize MailReferenceDTO. Discarding this message to prevent an infinite loop.", e);
+                LOGGER.error("Fail to deserialize MailReference. Discarding this message to prevent an infinite loop.", e);
                 delivery.nack(!REQUEUE);
                 return Mono.empty();
             });
@@ -37,7 +37,6 @@ import org.apache.james.queue.rabbitmq.view.api.MailQueueView;
 import org.apache.james.queue.rabbitmq.view.cassandra.CassandraMailQueueBrowser;
 import org.apache.mailet.Mail;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.github.fge.lambdas.Throwing;
 import com.google.common.collect.ImmutableMap;
 import com.rabbitmq.client.AMQP;
@@ -126,9 +125,8 @@ class Enqueuer {
 
     private byte[] getMailReferenceBytes(MailReference mailReference) throws MailQueue.MailQueueException {
         try {
-            MailReferenceDTO mailDTO = MailReferenceDTO.fromMailReference(mailReference);
-            return mailReferenceSerializer.write(mailDTO);
-        } catch (JsonProcessingException e) {
+            return mailReferenceSerializer.write(mailReference);
+        } catch (IllegalArgumentException e) {
             throw new MailQueue.MailQueueException("Unable to serialize message", e);
         }
     }
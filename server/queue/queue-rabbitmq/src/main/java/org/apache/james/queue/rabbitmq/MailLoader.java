@@ -25,7 +25,6 @@ import javax.mail.MessagingException;
 import javax.mail.internet.AddressException;
 import javax.mail.internet.MimeMessage;
 
-import org.apache.james.blob.api.BlobId;
 import org.apache.james.blob.api.Store;
 import org.apache.james.blob.mail.MimeMessagePartsId;
 import org.apache.james.queue.api.MailQueue;
@@ -37,20 +36,17 @@ import reactor.core.publisher.Mono;
 
 class MailLoader {
     private final Store<MimeMessage, MimeMessagePartsId> mimeMessageStore;
-    private final BlobId.Factory blobIdFactory;
 
-    MailLoader(Store<MimeMessage, MimeMessagePartsId> mimeMessageStore, BlobId.Factory blobIdFactory) {
+    MailLoader(Store<MimeMessage, MimeMessagePartsId> mimeMessageStore) {
         this.mimeMessageStore = mimeMessageStore;
-        this.blobIdFactory = blobIdFactory;
     }
 
-    Mono<MailWithEnqueueId> load(MailReferenceDTO dto) {
-        return Mono.fromCallable(() -> dto.toMailReference(blobIdFactory))
-            .flatMap(mailReference -> buildMail(mailReference)
-                .map(mail -> new MailWithEnqueueId(
-                    mailReference.getEnqueueId(),
-                    mail,
-                    mailReference.getPartsId())));
+    Mono<MailWithEnqueueId> load(MailReference mailReference) {
+        return buildMail(mailReference)
+            .map(mail -> new MailWithEnqueueId(
+                mailReference.getEnqueueId(),
+                mail,
+                mailReference.getPartsId()));
     }
 
     private Mono<Mail> buildMail(MailReference mailReference) {
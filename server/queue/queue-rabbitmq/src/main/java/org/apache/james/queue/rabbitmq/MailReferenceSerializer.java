@@ -20,29 +20,62 @@
 package org.apache.james.queue.rabbitmq;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.james.blob.api.BlobId;
+import org.apache.james.blob.mail.MimeMessagePartsId;
+import org.apache.james.server.core.MailEnvelopeCodec;
+import org.apache.mailet.Mail;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+/**
+ * Mail references are written using {@link MailEnvelopeCodec}: the enqueue id and the blob ids are followed by the
+ * mail envelope.
+ *
+ * JSON {@link MailReferenceDTO} written by previous versions are still read.
+ */
 class MailReferenceSerializer {
 
     private final ObjectMapper objectMapper;
+    private final BlobId.Factory blobIdFactory;
 
-    MailReferenceSerializer() {
+    MailReferenceSerializer(BlobId.Factory blobIdFactory) {
+        this.blobIdFactory = blobIdFactory;
         this.objectMapper = new ObjectMapper()
             .registerModule(new Jdk8Module())
             .registerModule(new JavaTimeModule())
             .registerModule(new GuavaModule());
     }
 
-    MailReferenceDTO read(byte[] bytes) throws IOException {
-        return objectMapper.readValue(bytes, MailReferenceDTO.class);
+    MailReference read(byte[] bytes) throws IOException {
+        if (MailEnvelopeCodec.isEncoded(bytes)) {
+            return readBinary(bytes);
+        }
+        return objectMapper.readValue(bytes, MailReferenceDTO.class)
+            .toMailReference(blobIdFactory);
+    }
+
+    private MailReference readBinary(byte[] bytes) throws IOException {
+        MailEnvelopeCodec.Reader reader = MailEnvelopeCodec.Reader.of(ByteBuffer.wrap(bytes));
+        EnqueueId enqueueId = EnqueueId.ofSerialized(reader.readString());
+        MimeMessagePartsId partsId = MimeMessagePartsId.builder()
+            .headerBlobId(blobIdFactory.from(reader.readString()))
+            .bodyBlobId(blobIdFactory.from(reader.readString()))
+            .build();
+        Mail mail = reader.readMail().build();
+        return new MailReference(enqueueId, mail, partsId);
     }
 
-    byte[] write(MailReferenceDTO mailDTO) throws JsonProcessingException {
-        return objectMapper.writeValueAsBytes(mailDTO);
+    byte[] write(MailReference mailReference) {
+        return new MailEnvelopeCodec.Writer()
+            .writeString(mailReference.getEnqueueId().serialize())
+            .writeString(mailReference.getPartsId().getHeaderBlobId().asString())
+            .writeString(mailReference.getPartsId().getBodyBlobId().asString())
+            .writeMail(mailReference.getMail())
+            .toByteArray();
     }
 }
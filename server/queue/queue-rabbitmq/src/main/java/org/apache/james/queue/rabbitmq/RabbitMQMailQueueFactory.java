@@ -87,8 +87,8 @@ public class RabbitMQMailQueueFactory implements MailQueueFactory<RabbitMQMailQu
             this.mailQueueViewFactory = mailQueueViewFactory;
             this.clock = clock;
             this.decoratorFactory = decoratorFactory;
-            this.mailReferenceSerializer = new MailReferenceSerializer();
-            this.mailLoader = new MailLoader(mimeMessageStore, blobIdFactory);
+            this.mailReferenceSerializer = new MailReferenceSerializer(blobIdFactory);
+            this.mailLoader = new MailLoader(mimeMessageStore);
             this.configuration = configuration;
         }
 
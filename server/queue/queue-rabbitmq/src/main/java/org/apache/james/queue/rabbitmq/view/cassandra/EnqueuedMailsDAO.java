@@ -51,6 +51,7 @@ import java.util.Optional;
 
 import javax.inject.Inject;
 
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration;
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor;
 import org.apache.james.blob.api.BlobId;
 import org.apache.james.blob.mail.MimeMessagePartsId;
@@ -66,6 +67,7 @@ import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.TupleType;
+import com.google.common.annotations.VisibleForTesting;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -79,8 +81,8 @@ public class EnqueuedMailsDAO {
     private final TupleType userHeaderNameHeaderValueTriple;
 
     @Inject
-    EnqueuedMailsDAO(Session session, BlobId.Factory blobIdFactory) {
-        this.executor = new CassandraAsyncExecutor(session);
+    EnqueuedMailsDAO(Session session, BlobId.Factory blobIdFactory, CassandraConfiguration cassandraConfiguration) {
+        this.executor = new CassandraAsyncExecutor(session, cassandraConfiguration);
 
         this.selectFrom = prepareSelectFrom(session);
         this.insert = prepareInsert(session);
@@ -88,6 +90,11 @@ public class EnqueuedMailsDAO {
         this.userHeaderNameHeaderValueTriple = session.getCluster().getMetadata().newTupleType(text(), text(), text());
     }
 
+    @VisibleForTesting
+    EnqueuedMailsDAO(Session session, BlobId.Factory blobIdFactory) {
+        this(session, blobIdFactory, CassandraConfiguration.DEFAULT_CONFIGURATION);
+    }
+
     private PreparedStatement prepareSelectFrom(Session session) {
         return session.prepare(select()
             .from(TABLE_NAME)
@@ -62,6 +62,7 @@ import org.apache.james.queue.rabbitmq.EnqueuedItem;
 import org.apache.james.queue.rabbitmq.MailQueueName;
 import org.apache.james.queue.rabbitmq.view.cassandra.model.BucketedSlices;
 import org.apache.james.queue.rabbitmq.view.cassandra.model.EnqueuedItemWithSlicingContext;
+import org.apache.james.server.core.MailEnvelopeCodec;
 import org.apache.james.server.core.MailImpl;
 import org.apache.mailet.Attribute;
 import org.apache.mailet.AttributeName;
@@ -147,6 +148,9 @@ public class EnqueuedMailsDaoUtil {
 
     private static AttributeValue<?> fromByteBuffer(ByteBuffer byteBuffer) {
         try {
+            if (MailEnvelopeCodec.isEncoded(byteBuffer)) {
+                return MailEnvelopeCodec.decodeAttributeValue(byteBuffer);
+            }
             return AttributeValue.fromJsonString(StandardCharsets.UTF_8.decode(byteBuffer).toString());
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -182,14 +186,10 @@ public class EnqueuedMailsDaoUtil {
 
     static ImmutableMap<String, ByteBuffer> toRawAttributeMap(Mail mail) {
         return mail.attributes()
-            .map(attribute -> Pair.of(attribute.getName().asString(), toByteBuffer(attribute.getValue())))
+            .map(attribute -> Pair.of(attribute.getName().asString(), MailEnvelopeCodec.encodeAttributeValue(attribute.getValue())))
             .collect(ImmutableMap.toImmutableMap(Pair::getLeft, Pair::getRight));
     }
 
-    private static ByteBuffer toByteBuffer(AttributeValue<?> attributeValue) {
-        return ByteBuffer.wrap(attributeValue.toJson().toString().getBytes(StandardCharsets.UTF_8));
-    }
-
     static ImmutableList<TupleValue> toTupleList(TupleType userHeaderNameHeaderValueTriple, PerRecipientHeaders perRecipientHeaders) {
         return perRecipientHeaders.getHeadersByRecipient()
             .entries()
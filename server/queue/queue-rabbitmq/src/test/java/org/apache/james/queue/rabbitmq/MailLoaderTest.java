@@ -26,7 +26,6 @@ import static org.mockito.Mockito.when;
 
 import javax.mail.internet.MimeMessage;
 
-import org.apache.james.blob.api.HashBlobId;
 import org.apache.james.blob.api.Store;
 import org.apache.james.blob.mail.MimeMessagePartsId;
 import org.junit.jupiter.api.Test;
@@ -38,11 +37,9 @@ class MailLoaderTest {
     void storeExceptionShouldBePropagated() {
         Store<MimeMessage, MimeMessagePartsId> store = mock(Store.class);
         when(store.read(any())).thenReturn(Mono.error(new RuntimeException("Cassandra problem")));
-        MailReferenceDTO dto = mock(MailReferenceDTO.class);
-        when(dto.toMailReference(any())).thenReturn(mock(MailReference.class));
-        MailLoader loader = new MailLoader(store, new HashBlobId.Factory());
+        MailLoader loader = new MailLoader(store);
 
-        String result = loader.load(dto)
+        String result = loader.load(mock(MailReference.class))
             .thenReturn("continued")
             .onErrorResume(RuntimeException.class, e -> Mono.just("caught"))
             .block();
@@ -0,0 +1,114 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.queue.rabbitmq;
+
+import static org.apache.james.util.ClassLoaderUtils.getSystemResourceAsString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+
+import org.apache.james.blob.api.HashBlobId;
+import org.apache.james.blob.mail.MimeMessagePartsId;
+import org.apache.james.server.core.MailImpl;
+import org.apache.mailet.Attribute;
+import org.apache.mailet.AttributeName;
+import org.apache.mailet.AttributeValue;
+import org.apache.mailet.Mail;
+import org.apache.mailet.PerRecipientHeaders;
+import org.apache.mailet.base.MailAddressFixture;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.collect.ImmutableList;
+
+class MailReferenceSerializerTest {
+    static final EnqueueId EN_QUEUE_ID = EnqueueId.ofSerialized("110e8400-e29b-11d4-a716-446655440000");
+    static final HashBlobId.Factory BLOB_ID_FACTORY = new HashBlobId.Factory();
+    static final MimeMessagePartsId PARTS_ID = MimeMessagePartsId.builder()
+        .headerBlobId(BLOB_ID_FACTORY.from("210e7136-ede3-44eb-9495-3ed816d6e23b"))
+        .bodyBlobId(BLOB_ID_FACTORY.from("ef46c026-7819-4048-b562-3a37469191ed"))
+        .build();
+
+    private final MailReferenceSerializer testee = new MailReferenceSerializer(BLOB_ID_FACTORY);
+
+    @Test
+    void readShouldReturnWrittenMailReference() throws Exception {
+        Mail mail = mail();
+
+        MailReference read = testee.read(testee.write(new MailReference(EN_QUEUE_ID, mail, PARTS_ID)));
+
+        assertThat(read.getEnqueueId()).isEqualTo(EN_QUEUE_ID);
+        assertThat(read.getPartsId()).isEqualTo(PARTS_ID);
+        assertSameEnvelope(read.getMail(), mail);
+    }
+
+    @Test
+    void readShouldSupportJsonMailReferences() throws Exception {
+        MailReference read = testee.read(getSystemResourceAsString("json/mail1.json").getBytes(StandardCharsets.UTF_8));
+
+        assertThat(read.getEnqueueId()).isEqualTo(EN_QUEUE_ID);
+        assertThat(read.getPartsId()).isEqualTo(PARTS_ID);
+        assertSameEnvelope(read.getMail(), mail());
+    }
+
+    @Test
+    void writeShouldBeMoreCompactThanJson() throws Exception {
+        MailReference mailReference = new MailReference(EN_QUEUE_ID, mail(), PARTS_ID);
+
+        assertThat(testee.write(mailReference).length)
+            .isLessThan(getSystemResourceAsString("json/mail1.json").replaceAll("\\s", "").length());
+    }
+
+    private void assertSameEnvelope(Mail actual, Mail expected) {
+        assertThat(actual.getName()).isEqualTo(expected.getName());
+        assertThat(actual.getMaybeSender()).isEqualTo(expected.getMaybeSender());
+        assertThat(actual.getRecipients()).containsExactlyElementsOf(expected.getRecipients());
+        assertThat(actual.getState()).isEqualTo(expected.getState());
+        assertThat(actual.getErrorMessage()).isEqualTo(expected.getErrorMessage());
+        assertThat(actual.getRemoteAddr()).isEqualTo(expected.getRemoteAddr());
+        assertThat(actual.getRemoteHost()).isEqualTo(expected.getRemoteHost());
+        assertThat(actual.getLastUpdated()).isEqualTo(expected.getLastUpdated());
+        assertThat(actual.attributes()).containsExactlyElementsOf(expected.attributes().collect(ImmutableList.toImmutableList()));
+        assertThat(actual.getPerRecipientSpecificHeaders()).isEqualTo(expected.getPerRecipientSpecificHeaders());
+    }
+
+    private Mail mail() throws Exception {
+        return MailImpl.builder()
+            .name("mail-name-558")
+            .addRecipients(MailAddressFixture.RECIPIENT1, MailAddressFixture.RECIPIENT2)
+            .sender(MailAddressFixture.SENDER)
+            .addAttribute(new Attribute(AttributeName.of("att1"), AttributeValue.of("value")))
+            .errorMessage("an error")
+            .lastUpdated(Date.from(Instant.parse("2016-09-08T14:25:52.000Z")))
+            .remoteHost("toto.com")
+            .remoteAddr("159.221.12.145")
+            .addHeaderForRecipient(PerRecipientHeaders.Header.builder()
+                .name("X-custom-header")
+                .value("uedcgukrcg")
+                .build(), MailAddressFixture.RECIPIENT1)
+            .addHeaderForRecipient(PerRecipientHeaders.Header.builder()
+                .name("X-custom-header-2")
+                .value("uedcgukrcg")
+                .build(), MailAddressFixture.RECIPIENT2)
+            .state("state")
+            .build();
+    }
+}
@@ -24,7 +24,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
+import org.apache.james.server.core.MailEnvelopeCodec;
 import org.apache.mailet.Attribute;
+import org.apache.mailet.AttributeValue;
 import org.junit.jupiter.api.Test;
 
 import com.google.common.collect.ImmutableMap;
@@ -48,6 +50,15 @@ class EnqueuedMailsDaoUtilTest {
             .containsExactly(Attribute.convertToAttribute("Header-1", "alice"));
     }
 
+    @Test
+    void toAttributesShouldConvertBinaryRawAttributeMap() {
+        ImmutableMap<String, ByteBuffer> attrMap = ImmutableMap
+            .of("Header-1", MailEnvelopeCodec.encodeAttributeValue(AttributeValue.of("alice")));
+
+        assertThat(EnqueuedMailsDaoUtil.toAttributes(attrMap))
+            .containsExactly(Attribute.convertToAttribute("Header-1", "alice"));
+    }
+
     private ByteBuffer toByteBuffer(String value) {
         return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
     }
@@ -24,6 +24,7 @@ import com.datastax.driver.core.querybuilder.QueryBuilder
 import com.datastax.driver.core.querybuilder.QueryBuilder.{bindMarker, insertInto, select}
 import com.datastax.driver.core.{BoundStatement, Row, Session, UDTValue}
 import javax.inject.Inject
+import org.apache.james.backends.cassandra.init.configuration.CassandraConfiguration
 import org.apache.james.backends.cassandra.init.{CassandraTypesProvider, CassandraZonedDateTimeModule}
 import org.apache.james.backends.cassandra.utils.CassandraAsyncExecutor
 import org.apache.james.server.task.json.JsonTaskAdditionalInformationSerializer
@@ -33,10 +34,13 @@ import reactor.core.publisher.{Flux, Mono}
 
 import scala.compat.java8.OptionConverters._
 
-class CassandraTaskExecutionDetailsProjectionDAO @Inject()(session: Session, typesProvider: CassandraTypesProvider, jsonTaskAdditionalInformationSerializer: JsonTaskAdditionalInformationSerializer) {
-  private val cassandraAsyncExecutor = new CassandraAsyncExecutor(session)
+class CassandraTaskExecutionDetailsProjectionDAO @Inject()(session: Session, typesProvider: CassandraTypesProvider, jsonTaskAdditionalInformationSerializer: JsonTaskAdditionalInformationSerializer, cassandraConfiguration: CassandraConfiguration) {
+  private val cassandraAsyncExecutor = new CassandraAsyncExecutor(session, cassandraConfiguration)
   private val dateType = typesProvider.getDefinedUserType(CassandraZonedDateTimeModule.ZONED_DATE_TIME)
 
+  def this(session: Session, typesProvider: CassandraTypesProvider, jsonTaskAdditionalInformationSerializer: JsonTaskAdditionalInformationSerializer) =
+    this(session, typesProvider, jsonTaskAdditionalInformationSerializer, CassandraConfiguration.DEFAULT_CONFIGURATION)
+
   private val insertStatement = session.prepare(insertInto(TABLE_NAME)
     .value(TASK_ID, bindMarker(TASK_ID))
     .value(TYPE, bindMarker(TYPE))
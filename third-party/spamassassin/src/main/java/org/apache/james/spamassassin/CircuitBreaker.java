@@ -0,0 +1,135 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.spamassassin;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.mail.MessagingException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Stops calling spamd once too many consecutive calls failed.
+ *
+ * After {@code failureThreshold} consecutive failures the circuit opens: calls fail immediately for
+ * {@code openDuration}. A single trial call is then let through, closing the circuit upon success and
+ * opening it again upon failure.
+ */
+class CircuitBreaker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+    private final AtomicInteger consecutiveFailures;
+    private final AtomicReference<State> state;
+    private volatile Instant openedAt;
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        Preconditions.checkArgument(failureThreshold > 0, "'failureThreshold' needs to be strictly positive");
+        Preconditions.checkArgument(!openDuration.isNegative(), "'openDuration' should not be negative");
+
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+        this.consecutiveFailures = new AtomicInteger(0);
+        this.state = new AtomicReference<>(State.CLOSED);
+        this.openedAt = Instant.MIN;
+    }
+
+    <T> Mono<T> protect(Mono<T> operation) {
+        return Mono.defer(() -> {
+            if (!allowCall()) {
+                return Mono.error(new MessagingException("spamd circuit breaker is open, skipping call"));
+            }
+            return operation
+                .doOnSuccess(any -> onSuccess())
+                .doOnError(e -> onFailure())
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        onCancel();
+                    }
+                });
+        });
+    }
+
+    State getState() {
+        return state.get();
+    }
+
+    private boolean allowCall() {
+        switch (state.get()) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return isOpenDurationElapsed() && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+            default:
+                return false;
+        }
+    }
+
+    private boolean isOpenDurationElapsed() {
+        return !clock.instant().isBefore(openedAt.plus(openDuration));
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+            LOGGER.info("spamd answered again, closing the circuit");
+        }
+    }
+
+    private void onFailure() {
+        if (state.get() == State.HALF_OPEN) {
+            open();
+        } else if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open();
+        }
+    }
+
+    private void onCancel() {
+        if (state.get() == State.HALF_OPEN) {
+            open();
+        }
+    }
+
+    private void open() {
+        openedAt = clock.instant();
+        if (state.getAndSet(State.OPEN) != State.OPEN) {
+            LOGGER.warn("{} consecutive failures while calling spamd, opening the circuit for {}", consecutiveFailures.get(), openDuration);
+        }
+    }
+}
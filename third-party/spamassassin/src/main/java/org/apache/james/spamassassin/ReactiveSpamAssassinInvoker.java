@@ -0,0 +1,313 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.spamassassin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.james.core.Username;
+import org.apache.james.metrics.api.MetricFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.socket.SocketChannel;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.Connection;
+import reactor.netty.FutureMono;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.tcp.TcpClient;
+
+/**
+ * Non blocking spamd client.
+ *
+ * Requests are written and answers read on the netty event loop, message content is read by chunks of
+ * {@value #CHUNK_SIZE} bytes and streamed to spamd, thus callers are never blocked while spamd scans the
+ * message.
+ *
+ * The number of concurrent connections to spamd is bounded by a connection pool: further calls wait for
+ * a connection up to the timeout. spamd closes the connection once it answered, hence connections are
+ * released rather than reused. Each call is subject to a timeout and a circuit breaker skips calls to an
+ * unhealthy spamd.
+ */
+public class ReactiveSpamAssassinInvoker implements Disposable {
+    public static class Builder {
+        private final MetricFactory metricFactory;
+        private String spamdHost;
+        private Optional<Integer> spamdPort;
+        private Optional<Integer> maxConcurrency;
+        private Optional<Duration> timeout;
+        private Optional<Integer> failureThreshold;
+        private Optional<Duration> openDuration;
+        private Optional<Clock> clock;
+
+        private Builder(MetricFactory metricFactory) {
+            this.metricFactory = metricFactory;
+            spamdPort = Optional.empty();
+            maxConcurrency = Optional.empty();
+            timeout = Optional.empty();
+            failureThreshold = Optional.empty();
+            openDuration = Optional.empty();
+            clock = Optional.empty();
+        }
+
+        public Builder spamdHost(String spamdHost) {
+            this.spamdHost = spamdHost;
+            return this;
+        }
+
+        public Builder spamdPort(int spamdPort) {
+            this.spamdPort = Optional.of(spamdPort);
+            return this;
+        }
+
+        public Builder maxConcurrency(int maxConcurrency) {
+            Preconditions.checkArgument(maxConcurrency > 0, "'maxConcurrency' needs to be strictly positive");
+            this.maxConcurrency = Optional.of(maxConcurrency);
+            return this;
+        }
+
+        public Builder timeout(Duration timeout) {
+            Preconditions.checkArgument(!timeout.isNegative() && !timeout.isZero(), "'timeout' needs to be strictly positive");
+            this.timeout = Optional.of(timeout);
+            return this;
+        }
+
+        public Builder circuitBreaker(int failureThreshold, Duration openDuration) {
+            this.failureThreshold = Optional.of(failureThreshold);
+            this.openDuration = Optional.of(openDuration);
+            return this;
+        }
+
+        Builder clock(Clock clock) {
+            this.clock = Optional.of(clock);
+            return this;
+        }
+
+        public ReactiveSpamAssassinInvoker build() {
+            Preconditions.checkState(spamdHost != null, "'spamdHost' is compulsory");
+
+            return new ReactiveSpamAssassinInvoker(metricFactory, spamdHost,
+                spamdPort.orElse(DEFAULT_PORT),
+                maxConcurrency.orElse(DEFAULT_MAX_CONCURRENCY),
+                timeout.orElse(DEFAULT_TIMEOUT),
+                new CircuitBreaker(failureThreshold.orElse(DEFAULT_FAILURE_THRESHOLD),
+                    openDuration.orElse(DEFAULT_OPEN_DURATION),
+                    clock.orElse(Clock.systemUTC())));
+        }
+    }
+
+    public static Builder builder(MetricFactory metricFactory) {
+        return new Builder(metricFactory);
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveSpamAssassinInvoker.class);
+
+    public static final int DEFAULT_PORT = 783;
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+    private static final int CHUNK_SIZE = 8192;
+    private static final String CRLF = "\r\n";
+
+    private final MetricFactory metricFactory;
+    private final String spamdHost;
+    private final int spamdPort;
+    private final Duration timeout;
+    private final CircuitBreaker circuitBreaker;
+    private final ConnectionProvider connectionProvider;
+    private final TcpClient tcpClient;
+
+    private ReactiveSpamAssassinInvoker(MetricFactory metricFactory, String spamdHost, int spamdPort, int maxConcurrency,
+                                        Duration timeout, CircuitBreaker circuitBreaker) {
+        this.metricFactory = metricFactory;
+        this.spamdHost = spamdHost;
+        this.spamdPort = spamdPort;
+        this.timeout = timeout;
+        this.circuitBreaker = circuitBreaker;
+        this.connectionProvider = ConnectionProvider.fixed("spamd", maxConcurrency, timeout.toMillis());
+        this.tcpClient = TcpClient.create(connectionProvider)
+            .host(spamdHost)
+            .port(spamdPort)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(timeout.toMillis()));
+    }
+
+    /**
+     * Scan a MimeMessage for spam by passing it to spamd, on behalf of the given user.
+     */
+    public Mono<SpamAssassinResult> scanMail(MimeMessage message, Username username) {
+        return scan(message, ImmutableList.of("User: " + username.asString()));
+    }
+
+    public Mono<SpamAssassinResult> scanMail(MimeMessage message) {
+        return scan(message, ImmutableList.of());
+    }
+
+    /**
+     * Tell spamd that the given message is a spam.
+     *
+     * @param contentLength the size in bytes of the message, as spamd expects it upfront
+     * @return true if spamd learnt the message
+     */
+    public Mono<Boolean> learnAsSpam(InputStream message, long contentLength, Username username) {
+        return Mono.from(metricFactory.decoratePublisherWithTimerMetric("spamAssassin-spam-report",
+            reportMessageAs(message, contentLength, username, SpamAssassinInvoker.MessageClass.SPAM)));
+    }
+
+    /**
+     * Tell spamd that the given message is a ham.
+     *
+     * @param contentLength the size in bytes of the message, as spamd expects it upfront
+     * @return true if spamd learnt the message
+     */
+    public Mono<Boolean> learnAsHam(InputStream message, long contentLength, Username username) {
+        return Mono.from(metricFactory.decoratePublisherWithTimerMetric("spamAssassin-ham-report",
+            reportMessageAs(message, contentLength, username, SpamAssassinInvoker.MessageClass.HAM)));
+    }
+
+    private Mono<SpamAssassinResult> scan(MimeMessage message, List<String> additionalHeaders) {
+        StringBuilder request = new StringBuilder("CHECK SPAMC/1.2").append(CRLF);
+        additionalHeaders.forEach(header -> request.append(header).append(CRLF));
+        request.append(CRLF);
+
+        return Mono.from(metricFactory.decoratePublisherWithTimerMetric("spamAssassin-check",
+            exchange(request.toString(), Mono.fromCallable(() -> asInputStream(message)))
+                .map(answer -> SpamdResponse.checkResult(lines(answer)))
+                .doOnNext(result -> LOGGER.debug("spam check result: {}", result))));
+    }
+
+    private Mono<Boolean> reportMessageAs(InputStream message, long contentLength, Username username, SpamAssassinInvoker.MessageClass messageClass) {
+        String request = "TELL SPAMC/1.2" + CRLF
+            + "Content-length: " + contentLength + CRLF
+            + "Message-class: " + messageClass.value + CRLF
+            + "Set: local, remote" + CRLF
+            + "User: " + username.asString() + CRLF
+            + CRLF;
+
+        return exchange(request, Mono.just(message))
+            .map(answer -> SpamdResponse.hasBeenSet(lines(answer)))
+            .doOnNext(hasBeenSet -> LOGGER.debug("Reported mail as {} {}", messageClass, hasBeenSet ? "succeeded" : "failed"));
+    }
+
+    private Mono<String> exchange(String request, Mono<InputStream> content) {
+        return circuitBreaker.protect(
+            tcpClient.connect()
+                .flatMap(connection -> send(connection, request, content)
+                    .then(FutureMono.deferFuture(() -> ((SocketChannel) connection.channel()).shutdownOutput()))
+                    .then(connection.inbound().receive().aggregate().asString(StandardCharsets.UTF_8))
+                    .defaultIfEmpty("")
+                    .doFinally(any -> connection.dispose()))
+                .timeout(timeout)
+                .onErrorMap(e -> !(e instanceof MessagingException),
+                    e -> new MessagingException("Error communicating with spamd on " + spamdHost + ":" + spamdPort, asException(e))));
+    }
+
+    private Mono<Void> send(Connection connection, String request, Mono<InputStream> content) {
+        return connection.outbound()
+            .sendString(Mono.just(request), StandardCharsets.UTF_8)
+            // Building the content may serialize the message: keep it off the event loop, as the chunks are
+            .send(content.subscribeOn(Schedulers.elastic()).flatMapMany(this::chunks))
+            .then();
+    }
+
+    private Flux<ByteBuf> chunks(InputStream content) {
+        return Flux.using(() -> content,
+            stream -> Flux.<ByteBuf>generate(sink -> {
+                ByteBuf chunk = ByteBufAllocator.DEFAULT.buffer(CHUNK_SIZE);
+                try {
+                    if (chunk.writeBytes(stream, CHUNK_SIZE) < 0) {
+                        chunk.release();
+                        sink.complete();
+                    } else {
+                        sink.next(chunk);
+                    }
+                } catch (IOException e) {
+                    chunk.release();
+                    sink.error(e);
+                }
+            }),
+            IOUtils::closeQuietly)
+            .subscribeOn(Schedulers.elastic());
+    }
+
+    /**
+     * Avoids serializing the message in memory whenever its raw content is available.
+     */
+    private InputStream asInputStream(MimeMessage message) throws MessagingException, IOException {
+        try {
+            InputStream body = message.getRawInputStream();
+            StringBuilder headers = new StringBuilder();
+            Collections.list(message.getAllHeaderLines())
+                .forEach(line -> headers.append(line).append(CRLF));
+            headers.append(CRLF);
+            return new SequenceInputStream(new ByteArrayInputStream(headers.toString().getBytes(StandardCharsets.UTF_8)), body);
+        } catch (MessagingException e) {
+            LOGGER.debug("No raw content for message {}, serializing it", message.getMessageID());
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            message.writeTo(outputStream);
+            return new ByteArrayInputStream(outputStream.toByteArray());
+        }
+    }
+
+    private Exception asException(Throwable throwable) {
+        if (throwable instanceof Exception) {
+            return (Exception) throwable;
+        }
+        return new RuntimeException(throwable);
+    }
+
+    private Stream<String> lines(String answer) {
+        return Splitter.onPattern("\r?\n").splitToList(answer).stream();
+    }
+
+    @Override
+    public void dispose() {
+        connectionProvider.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return connectionProvider.isDisposed();
+    }
+}
@@ -29,7 +29,6 @@ import java.io.PrintWriter;
 import java.net.Socket;
 import java.net.UnknownHostException;
 import java.util.Arrays;
-import java.util.List;
 
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
@@ -41,8 +40,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.fge.lambdas.Throwing;
-import com.google.common.base.Splitter;
-import com.google.common.collect.Lists;
 
 /**
  * Sends the message through daemonized SpamAssassin (spamd), visit <a
@@ -55,16 +52,13 @@ public class SpamAssassinInvoker {
         HAM("ham"),
         SPAM("spam");
 
-        private final String value;
+        final String value;
 
         MessageClass(String value) {
             this.value = value;
         }
     }
 
-    private static final int SPAM_INDEX = 1;
-    private static final int HITS_INDEX = 3;
-    private static final int REQUIRED_HITS_INDEX = 5;
     private static final String CRLF = "\r\n";
 
     private final MetricFactory metricFactory;
@@ -136,11 +130,7 @@ public class SpamAssassinInvoker {
             out.flush();
             socket.shutdownOutput();
 
-            SpamAssassinResult spamAssassinResult = in.lines()
-                .filter(this::isSpam)
-                .map(this::processSpam)
-                .findFirst()
-                .orElse(SpamAssassinResult.empty());
+            SpamAssassinResult spamAssassinResult = SpamdResponse.checkResult(in.lines());
 
             LOGGER.debug("spam check result: {}", spamAssassinResult);
             return spamAssassinResult;
@@ -155,36 +145,6 @@ public class SpamAssassinInvoker {
         return scanMailWithAdditionalHeaders(message);
     }
 
-    private SpamAssassinResult processSpam(String line) {
-        List<String> elements = Lists.newArrayList(Splitter.on(' ').split(line));
-
-        return builderFrom(elements)
-            .hits(elements.get(HITS_INDEX))
-            .requiredHits(elements.get(REQUIRED_HITS_INDEX))
-            .build();
-    }
-
-    private SpamAssassinResult.Builder builderFrom(List<String> elements) {
-        if (spam(elements.get(SPAM_INDEX))) {
-            return SpamAssassinResult.asSpam();
-        } else {
-            return SpamAssassinResult.asHam();
-        }
-    }
-
-    private boolean spam(String string) {
-        try {
-            return Boolean.parseBoolean(string);
-        } catch (Exception e) {
-            LOGGER.warn("Fail parsing spamassassin answer: " + string);
-            return false;
-        }
-    }
-
-    private boolean isSpam(String line) {
-        return line.startsWith("Spam:");
-    }
-
     /**
      * Tell spamd that the given MimeMessage is a spam.
      * 
@@ -244,7 +204,7 @@ public class SpamAssassinInvoker {
             out.flush();
             socket.shutdownOutput();
 
-            boolean hasBeenSet = in.lines().anyMatch(this::hasBeenSet);
+            boolean hasBeenSet = SpamdResponse.hasBeenSet(in.lines());
             if (hasBeenSet) {
                 LOGGER.debug("Reported mail as {} succeeded", messageClass);
             } else {
@@ -257,8 +217,4 @@ public class SpamAssassinInvoker {
             throw new MessagingException("Error communicating with spamd on " + spamdHost + ":" + spamdPort, e);
         }
     }
-
-    private boolean hasBeenSet(String line) {
-        return line.startsWith("DidSet: ");
-    }
 }
@@ -0,0 +1,82 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.spamassassin;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+
+/**
+ * Parses the lines answered by spamd.
+ */
+class SpamdResponse {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpamdResponse.class);
+
+    private static final int SPAM_INDEX = 1;
+    private static final int HITS_INDEX = 3;
+    private static final int REQUIRED_HITS_INDEX = 5;
+
+    static SpamAssassinResult checkResult(Stream<String> lines) {
+        return lines
+            .filter(SpamdResponse::isSpam)
+            .map(SpamdResponse::processSpam)
+            .findFirst()
+            .orElse(SpamAssassinResult.empty());
+    }
+
+    static boolean hasBeenSet(Stream<String> lines) {
+        return lines.anyMatch(line -> line.startsWith("DidSet: "));
+    }
+
+    private static SpamAssassinResult processSpam(String line) {
+        List<String> elements = Lists.newArrayList(Splitter.on(' ').split(line));
+
+        return builderFrom(elements)
+            .hits(elements.get(HITS_INDEX))
+            .requiredHits(elements.get(REQUIRED_HITS_INDEX))
+            .build();
+    }
+
+    private static SpamAssassinResult.Builder builderFrom(List<String> elements) {
+        if (spam(elements.get(SPAM_INDEX))) {
+            return SpamAssassinResult.asSpam();
+        } else {
+            return SpamAssassinResult.asHam();
+        }
+    }
+
+    private static boolean spam(String string) {
+        try {
+            return Boolean.parseBoolean(string);
+        } catch (Exception e) {
+            LOGGER.warn("Fail parsing spamassassin answer: " + string);
+            return false;
+        }
+    }
+
+    private static boolean isSpam(String line) {
+        return line.startsWith("Spam:");
+    }
+}
@@ -0,0 +1,142 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.spamassassin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.mail.MessagingException;
+
+import org.apache.james.utils.UpdatableTickingClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+
+class CircuitBreakerTest {
+    static final Instant NOW = Instant.parse("2020-04-01T10:00:00Z");
+    static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    UpdatableTickingClock clock;
+    CircuitBreaker testee;
+    AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        clock = new UpdatableTickingClock(NOW);
+        testee = new CircuitBreaker(2, OPEN_DURATION, clock);
+        calls = new AtomicInteger();
+    }
+
+    Mono<String> success() {
+        return Mono.fromCallable(() -> {
+            calls.incrementAndGet();
+            return "ok";
+        });
+    }
+
+    Mono<String> failure() {
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(new MessagingException("spamd failure"));
+        });
+    }
+
+    void fail() {
+        assertThatThrownBy(() -> testee.protect(failure()).block());
+    }
+
+    @Test
+    void circuitShouldBeClosedByDefault() {
+        assertThat(testee.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void circuitShouldStayClosedBelowThreshold() {
+        fail();
+
+        assertThat(testee.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void successShouldResetFailureCount() {
+        fail();
+        testee.protect(success()).block();
+        fail();
+
+        assertThat(testee.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void circuitShouldOpenWhenThresholdReached() {
+        fail();
+        fail();
+
+        assertThat(testee.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void openCircuitShouldNotCallOperation() {
+        fail();
+        fail();
+
+        assertThatThrownBy(() -> testee.protect(success()).block())
+            .hasCauseInstanceOf(MessagingException.class);
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void circuitShouldCloseWhenTrialSucceeds() {
+        fail();
+        fail();
+        clock.setInstant(NOW.plus(OPEN_DURATION));
+
+        assertThat(testee.protect(success()).block()).isEqualTo("ok");
+        assertThat(testee.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void circuitShouldReopenWhenTrialFails() {
+        fail();
+        fail();
+        clock.setInstant(NOW.plus(OPEN_DURATION));
+
+        fail();
+
+        assertThat(testee.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void reopenedCircuitShouldWaitForAnotherOpenDuration() {
+        fail();
+        fail();
+        clock.setInstant(NOW.plus(OPEN_DURATION));
+        fail();
+
+        clock.setInstant(NOW.plus(OPEN_DURATION).plusSeconds(1));
+
+        assertThatThrownBy(() -> testee.protect(success()).block());
+        assertThat(calls.get()).isEqualTo(3);
+    }
+}
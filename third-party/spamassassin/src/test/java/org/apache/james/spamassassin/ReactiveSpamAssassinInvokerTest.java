@@ -0,0 +1,266 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.spamassassin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.james.core.Username;
+import org.apache.james.core.builder.MimeMessageBuilder;
+import org.apache.james.metrics.tests.RecordingMetricFactory;
+import org.apache.james.spamassassin.mock.MockSpamd;
+import org.apache.james.util.concurrent.NamedThreadFactory;
+import org.apache.mailet.Attribute;
+import org.apache.mailet.AttributeValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+
+class ReactiveSpamAssassinInvokerTest {
+    static final Username USERNAME = Username.of("any@james");
+    static final String DID_SET = "SPAMD/1.1 0 EX_OK\r\nDidSet: local\r\n\r\n";
+
+    static class FakeSpamd implements AutoCloseable {
+        private final ServerSocket serverSocket;
+        private final ExecutorService executor;
+        private final ConcurrentLinkedQueue<String> requests;
+        private final AtomicInteger concurrentConnections;
+        private final AtomicInteger maxConcurrentConnections;
+
+        FakeSpamd(String answer, Duration delay) throws IOException {
+            this.serverSocket = new ServerSocket(0);
+            this.executor = Executors.newCachedThreadPool(NamedThreadFactory.withClassName(getClass()));
+            this.requests = new ConcurrentLinkedQueue<>();
+            this.concurrentConnections = new AtomicInteger();
+            this.maxConcurrentConnections = new AtomicInteger();
+            executor.execute(() -> acceptLoop(answer, delay));
+        }
+
+        private void acceptLoop(String answer, Duration delay) {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    executor.execute(() -> answer(socket, answer, delay));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void answer(Socket socket, String answer, Duration delay) {
+            int current = concurrentConnections.incrementAndGet();
+            maxConcurrentConnections.accumulateAndGet(current, Math::max);
+            try (Socket closeable = socket;
+                 InputStream in = socket.getInputStream();
+                 OutputStream out = socket.getOutputStream()) {
+                requests.add(IOUtils.toString(in, StandardCharsets.UTF_8));
+                Thread.sleep(delay.toMillis());
+                out.write(answer.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            } catch (IOException | InterruptedException e) {
+                // connection dropped by the client
+            } finally {
+                concurrentConnections.decrementAndGet();
+            }
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            executor.shutdownNow();
+        }
+    }
+
+    FakeSpamd spamd;
+    ReactiveSpamAssassinInvoker testee;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (testee != null) {
+            testee.dispose();
+        }
+        if (spamd != null) {
+            spamd.close();
+        }
+    }
+
+    ReactiveSpamAssassinInvoker.Builder invoker(int port) {
+        return ReactiveSpamAssassinInvoker.builder(new RecordingMetricFactory())
+            .spamdHost("localhost")
+            .spamdPort(port);
+    }
+
+    MimeMessage message(String subject) throws MessagingException {
+        return MimeMessageBuilder.mimeMessageBuilder()
+            .addFrom("sender@james.org")
+            .addToRecipient("rcpt@james.org")
+            .setSubject(subject)
+            .setText("Please!")
+            .build();
+    }
+
+    @Test
+    void scanMailShouldReturnSpamWhenSpam() throws Exception {
+        spamd = new FakeSpamd(MockSpamd.SPAM, Duration.ZERO);
+        testee = invoker(spamd.getPort()).build();
+
+        SpamAssassinResult result = testee.scanMail(message(MockSpamd.GTUBE), USERNAME).block();
+
+        assertThat(result.getHeadersAsAttributes())
+            .contains(new Attribute(SpamAssassinResult.FLAG_MAIL, AttributeValue.of("YES")));
+    }
+
+    @Test
+    void scanMailShouldReturnHamWhenNotSpam() throws Exception {
+        spamd = new FakeSpamd(MockSpamd.NOT_SPAM, Duration.ZERO);
+        testee = invoker(spamd.getPort()).build();
+
+        SpamAssassinResult result = testee.scanMail(message("testing"), USERNAME).block();
+
+        assertThat(result.getHeadersAsAttributes())
+            .contains(new Attribute(SpamAssassinResult.FLAG_MAIL, AttributeValue.of("NO")));
+    }
+
+    @Test
+    void scanMailShouldSendUserAndMessage() throws Exception {
+        spamd = new FakeSpamd(MockSpamd.NOT_SPAM, Duration.ZERO);
+        testee = invoker(spamd.getPort()).build();
+
+        testee.scanMail(message("testing"), USERNAME).block();
+
+        assertThat(spamd.requests.peek())
+            .startsWith("CHECK SPAMC/1.2\r\nUser: any@james\r\n\r\n")
+            .contains("Subject: testing")
+            .contains("Please!");
+    }
+
+    @Test
+    void scanMailShouldStreamRawContentWhenAvailable() throws Exception {
+        spamd = new FakeSpamd(MockSpamd.NOT_SPAM, Duration.ZERO);
+        testee = invoker(spamd.getPort()).build();
+        String content = "Subject: raw\r\nFrom: sender@james.org\r\n\r\nbody\r\n";
+        MimeMessage message = new MimeMessage(null, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+
+        testee.scanMail(message).block();
+
+        assertThat(spamd.requests.peek())
+            .isEqualTo("CHECK SPAMC/1.2\r\n\r\n" + content);
+    }
+
+    @Test
+    void learnAsSpamShouldSendContentLength() throws Exception {
+        spamd = new FakeSpamd(DID_SET, Duration.ZERO);
+        testee = invoker(spamd.getPort()).build();
+        byte[] content = "Subject: spam\r\n\r\nbody\r\n".getBytes(StandardCharsets.UTF_8);
+
+        testee.learnAsSpam(new ByteArrayInputStream(content), content.length, USERNAME).block();
+
+        assertThat(spamd.requests.peek())
+            .startsWith("TELL SPAMC/1.2\r\nContent-length: " + content.length + "\r\nMessage-class: spam\r\n");
+    }
+
+    @Test
+    void learnAsHamShouldReturnTrueWhenSpamdDidSet() throws Exception {
+        spamd = new FakeSpamd(DID_SET, Duration.ZERO);
+        testee = invoker(spamd.getPort()).build();
+        byte[] content = "Subject: ham\r\n\r\nbody\r\n".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(testee.learnAsHam(new ByteArrayInputStream(content), content.length, USERNAME).block())
+            .isTrue();
+    }
+
+    @Test
+    void learnAsHamShouldReturnFalseWhenSpamdDidNotSet() throws Exception {
+        spamd = new FakeSpamd("SPAMD/1.1 0 EX_OK\r\n\r\n", Duration.ZERO);
+        testee = invoker(spamd.getPort()).build();
+        byte[] content = "Subject: ham\r\n\r\nbody\r\n".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(testee.learnAsHam(new ByteArrayInputStream(content), content.length, USERNAME).block())
+            .isFalse();
+    }
+
+    @Test
+    void scanMailShouldTimeoutWhenSpamdIsTooSlow() throws Exception {
+        spamd = new FakeSpamd(MockSpamd.NOT_SPAM, Duration.ofSeconds(5));
+        testee = invoker(spamd.getPort())
+            .timeout(Duration.ofMillis(200))
+            .build();
+
+        assertThatThrownBy(() -> testee.scanMail(message("testing"), USERNAME).block())
+            .hasCauseInstanceOf(MessagingException.class);
+    }
+
+    @Test
+    void concurrentScansShouldNotExceedMaxConcurrency() throws Exception {
+        spamd = new FakeSpamd(MockSpamd.NOT_SPAM, Duration.ofMillis(100));
+        testee = invoker(spamd.getPort())
+            .maxConcurrency(2)
+            .build();
+        MimeMessage message = message("testing");
+
+        Flux.range(0, 10)
+            .flatMap(i -> testee.scanMail(message, USERNAME))
+            .blockLast();
+
+        assertThat(spamd.requests).hasSize(10);
+        assertThat(spamd.maxConcurrentConnections.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void scanMailShouldFailFastWhenCircuitIsOpen() throws Exception {
+        int unusedPort;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            unusedPort = serverSocket.getLocalPort();
+        }
+        testee = invoker(unusedPort)
+            .circuitBreaker(2, Duration.ofMinutes(1))
+            .build();
+        MimeMessage message = message("testing");
+
+        assertThatThrownBy(() -> testee.scanMail(message, USERNAME).block());
+        assertThatThrownBy(() -> testee.scanMail(message, USERNAME).block());
+
+        assertThatThrownBy(() -> testee.scanMail(message, USERNAME).block())
+            .hasMessageContaining("circuit breaker is open");
+    }
+}